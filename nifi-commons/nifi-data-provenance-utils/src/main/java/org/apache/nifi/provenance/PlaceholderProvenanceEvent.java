@@ -32,10 +32,14 @@ public class PlaceholderProvenanceEvent implements ProvenanceEventRecord {
     private final String flowFileUuid;
 
     public PlaceholderProvenanceEvent(final ProvenanceEventRecord original) {
-        this.componentId = original.getComponentId();
-        this.eventId = original.getEventId();
-        this.eventTime = original.getEventTime();
-        this.flowFileUuid = original.getFlowFileUuid();
+        this(original.getComponentId(), original.getEventId(), original.getEventTime(), original.getFlowFileUuid());
+    }
+
+    public PlaceholderProvenanceEvent(final String componentId, final long eventId, final long eventTime, final String flowFileUuid) {
+        this.componentId = componentId;
+        this.eventId = eventId;
+        this.eventTime = eventTime;
+        this.flowFileUuid = flowFileUuid;
     }
 
     @Override
@@ -18,6 +18,7 @@
 package org.apache.nifi.attribute.expression.language;
 
 import org.antlr.runtime.tree.Tree;
+import org.apache.nifi.attribute.expression.language.compile.ExpressionFunction;
 import org.apache.nifi.attribute.expression.language.evaluation.Evaluator;
 import org.apache.nifi.expression.AttributeValueDecorator;
 
@@ -28,12 +29,21 @@ public class CompiledExpression implements Expression {
     private final Tree tree;
     private final String expression;
     private final Set<Evaluator<?>> allEvaluators;
+    private final ExpressionFunction<?> function;
 
     public CompiledExpression(final String expression, final Evaluator<?> rootEvaluator, final Tree tree, final Set<Evaluator<?>> allEvaluators) {
+        this(expression, rootEvaluator, tree, allEvaluators, null);
+    }
+
+    /**
+     * @param function the compiled form of the Expression that is used to evaluate it, or <code>null</code> if the Expression is to be evaluated by its Evaluators
+     */
+    public CompiledExpression(final String expression, final Evaluator<?> rootEvaluator, final Tree tree, final Set<Evaluator<?>> allEvaluators, final ExpressionFunction<?> function) {
         this.rootEvaluator = rootEvaluator;
         this.tree = tree;
         this.expression = expression;
         this.allEvaluators = allEvaluators;
+        this.function = function;
     }
 
     public Evaluator<?> getRootEvaluator() {
@@ -54,6 +64,16 @@ public class CompiledExpression implements Expression {
 
     @Override
     public String evaluate(final EvaluationContext evaluationContext, final AttributeValueDecorator decorator) {
+        if (function != null) {
+            final Object evaluated = function.evaluate(evaluationContext);
+            if (evaluated == null) {
+                return null;
+            }
+
+            final String value = evaluated.toString();
+            return decorator == null ? value : decorator.decorate(value);
+        }
+
         return Query.evaluateExpression(tree, rootEvaluator, expression, evaluationContext, decorator);
     }
 }
@@ -17,6 +17,8 @@
 
 package org.apache.nifi.attribute.expression.language.compile;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.antlr.runtime.ANTLRStringStream;
 import org.antlr.runtime.CharStream;
 import org.antlr.runtime.CommonTokenStream;
@@ -251,9 +253,42 @@ import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpre
 import static org.apache.nifi.attribute.expression.language.antlr.AttributeExpressionParser.EVALUATE_EL_STRING;
 
 public class ExpressionCompiler {
+    /**
+     * Name of the system property that, when set to <code>true</code>, causes Expressions to be compiled into {@link ExpressionFunction}s
+     * so that evaluating them does not create a result object for each function that is called
+     */
+    public static final String COMPILE_FUNCTIONS_PROPERTY = "nifi.expression.language.compile.functions";
+
+    private static final int MAX_CACHED_EXPRESSIONS = 10_000;
+
+    // Expressions that compile fully into functions hold no state, so a single instance can be shared by all Prepared Queries that contain the same Expression
+    private static final Cache<String, CompiledExpression> compiledExpressionCache = Caffeine.newBuilder()
+            .maximumSize(MAX_CACHED_EXPRESSIONS)
+            .build();
+
     private final Set<Evaluator<?>> evaluators = new HashSet<>();
+    private final boolean compileFunctions;
+
+    public ExpressionCompiler() {
+        this(Boolean.getBoolean(COMPILE_FUNCTIONS_PROPERTY));
+    }
+
+    /**
+     * @param compileFunctions whether or not Expressions should be compiled into {@link ExpressionFunction}s, falling back to their Evaluators for any
+     * functions that cannot be compiled
+     */
+    public ExpressionCompiler(final boolean compileFunctions) {
+        this.compileFunctions = compileFunctions;
+    }
 
     public CompiledExpression compile(final String expression) {
+        if (compileFunctions) {
+            final CompiledExpression cached = compiledExpressionCache.getIfPresent(expression);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         try {
             final CharStream input = new ANTLRStringStream(expression);
             final AttributeExpressionLexer lexer = new AttributeExpressionLexer(input);
@@ -269,7 +304,18 @@ public class ExpressionCompiler {
             final Set<Evaluator<?>> allEvaluators = new HashSet<>(evaluators);
             this.evaluators.clear();
 
-            return new CompiledExpression(expression, evaluator, tree, allEvaluators);
+            if (!compileFunctions) {
+                return new CompiledExpression(expression, evaluator, tree, allEvaluators);
+            }
+
+            final ExpressionFunctionCompiler functionCompiler = new ExpressionFunctionCompiler();
+            final ExpressionFunction<?> function = functionCompiler.compile(evaluator, allEvaluators);
+            final CompiledExpression compiledExpression = new CompiledExpression(expression, evaluator, tree, allEvaluators, function);
+            if (function != null && !functionCompiler.isEvaluatorsRetained()) {
+                compiledExpressionCache.put(expression, compiledExpression);
+            }
+
+            return compiledExpression;
         } catch (final AttributeExpressionLanguageParsingException e) {
             throw e;
         } catch (final Exception e) {
@@ -0,0 +1,465 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.attribute.expression.language.compile;
+
+import org.apache.nifi.attribute.expression.language.EvaluationContext;
+import org.apache.nifi.attribute.expression.language.StandardEvaluationContext;
+import org.apache.nifi.attribute.expression.language.evaluation.Evaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.QueryResult;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.AndEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.AppendEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.ContainsEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.EndsWithEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.EqualsEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.EqualsIgnoreCaseEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.GreaterThanEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.GreaterThanOrEqualEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.IfElseEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.IsEmptyEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.IsNullEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.LessThanEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.LessThanOrEqualEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.NotEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.NotNullEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.OrEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.PrependEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.ReplaceEmptyEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.ReplaceNullEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.StartsWithEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.ToLowerEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.ToUpperEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.functions.TrimEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.literals.BooleanLiteralEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.literals.DecimalLiteralEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.literals.StringLiteralEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.literals.WholeNumberLiteralEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.selection.AttributeEvaluator;
+import org.apache.nifi.attribute.expression.language.evaluation.selection.MultiAttributeEvaluator;
+import org.apache.nifi.expression.AttributeExpression.ResultType;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * <p>
+ * Compiles a tree of Evaluators into a tree of {@link ExpressionFunction}s. Each function is specialized when it is compiled for the
+ * literal values and result types of its arguments, and returns its value directly, so that evaluating an Expression does not create
+ * a QueryResult for each function that it calls. Booleans are always returned as the canonical {@link Boolean#TRUE} and {@link Boolean#FALSE}
+ * instances.
+ * </p>
+ *
+ * <p>
+ * The functions most commonly used for routing and updating attributes are compiled. Any other Evaluator, along with everything beneath it,
+ * is evaluated by the Evaluator itself. Expressions that iterate over multiple attributes are not compiled at all, because their Evaluators
+ * are evaluated once per attribute and keep state between those evaluations.
+ * </p>
+ */
+public class ExpressionFunctionCompiler {
+    private static final EvaluationContext LITERAL_EVALUATION_CONTEXT = new StandardEvaluationContext(Collections.emptyMap());
+
+    private boolean evaluatorsRetained;
+
+    /**
+     * Compiles the given Expression
+     *
+     * @param rootEvaluator the root Evaluator of the Expression
+     * @param allEvaluators all of the Evaluators in the Expression
+     * @return the compiled Expression, or <code>null</code> if compiling the Expression would not avoid evaluating it with its Evaluators
+     */
+    public ExpressionFunction<?> compile(final Evaluator<?> rootEvaluator, final Set<Evaluator<?>> allEvaluators) {
+        evaluatorsRetained = false;
+        if (!isCompilable(rootEvaluator)) {
+            return null;
+        }
+
+        for (final Evaluator<?> evaluator : allEvaluators) {
+            if (evaluator instanceof MultiAttributeEvaluator) {
+                return null;
+            }
+        }
+
+        return compileEvaluator(rootEvaluator);
+    }
+
+    /**
+     * @return <code>true</code> if the function returned by the last call to {@link #compile(Evaluator, Set)} evaluates any part of the Expression
+     * with its Evaluators. A function that does not is independent of the Evaluators that it was compiled from and holds no state of its own.
+     */
+    public boolean isEvaluatorsRetained() {
+        return evaluatorsRetained;
+    }
+
+    private boolean isCompilable(final Evaluator<?> evaluator) {
+        return evaluator instanceof StringLiteralEvaluator
+            || evaluator instanceof BooleanLiteralEvaluator
+            || evaluator instanceof WholeNumberLiteralEvaluator
+            || evaluator instanceof DecimalLiteralEvaluator
+            || evaluator instanceof AttributeEvaluator
+            || evaluator instanceof ToUpperEvaluator
+            || evaluator instanceof ToLowerEvaluator
+            || evaluator instanceof TrimEvaluator
+            || evaluator instanceof AppendEvaluator
+            || evaluator instanceof PrependEvaluator
+            || evaluator instanceof ReplaceNullEvaluator
+            || evaluator instanceof ReplaceEmptyEvaluator
+            || evaluator instanceof IfElseEvaluator
+            || evaluator instanceof IsNullEvaluator
+            || evaluator instanceof NotNullEvaluator
+            || evaluator instanceof IsEmptyEvaluator
+            || evaluator instanceof EqualsEvaluator
+            || evaluator instanceof EqualsIgnoreCaseEvaluator
+            || evaluator instanceof StartsWithEvaluator
+            || evaluator instanceof EndsWithEvaluator
+            || evaluator instanceof ContainsEvaluator
+            || evaluator instanceof AndEvaluator
+            || evaluator instanceof OrEvaluator
+            || evaluator instanceof NotEvaluator
+            || evaluator instanceof GreaterThanEvaluator
+            || evaluator instanceof GreaterThanOrEqualEvaluator
+            || evaluator instanceof LessThanEvaluator
+            || evaluator instanceof LessThanOrEqualEvaluator;
+    }
+
+    private ExpressionFunction<?> compileEvaluator(final Evaluator<?> evaluator) {
+        if (evaluator instanceof StringLiteralEvaluator || evaluator instanceof BooleanLiteralEvaluator
+                || evaluator instanceof WholeNumberLiteralEvaluator || evaluator instanceof DecimalLiteralEvaluator) {
+            final Object value = evaluator.evaluate(LITERAL_EVALUATION_CONTEXT).getValue();
+            return context -> value;
+        }
+
+        if (evaluator instanceof AttributeEvaluator) {
+            final Evaluator<String> nameEvaluator = ((AttributeEvaluator) evaluator).getNameEvaluator();
+            if (nameEvaluator instanceof StringLiteralEvaluator) {
+                final String attributeName = nameEvaluator.evaluate(LITERAL_EVALUATION_CONTEXT).getValue();
+                return context -> context.getExpressionValue(attributeName);
+            }
+
+            final ExpressionFunction<String> nameFunction = compileString(nameEvaluator);
+            return context -> context.getExpressionValue(nameFunction.evaluate(context));
+        }
+
+        if (evaluator instanceof ToUpperEvaluator) {
+            final ExpressionFunction<String> subject = compileString(evaluator.getSubjectEvaluator());
+            return context -> {
+                final String subjectValue = subject.evaluate(context);
+                return subjectValue == null ? null : subjectValue.toUpperCase();
+            };
+        }
+
+        if (evaluator instanceof ToLowerEvaluator) {
+            final ExpressionFunction<String> subject = compileString(evaluator.getSubjectEvaluator());
+            return context -> {
+                final String subjectValue = subject.evaluate(context);
+                return subjectValue == null ? null : subjectValue.toLowerCase();
+            };
+        }
+
+        if (evaluator instanceof TrimEvaluator) {
+            final ExpressionFunction<String> subject = compileString(evaluator.getSubjectEvaluator());
+            return context -> {
+                final String subjectValue = subject.evaluate(context);
+                return subjectValue == null ? null : subjectValue.trim();
+            };
+        }
+
+        if (evaluator instanceof AppendEvaluator) {
+            final ExpressionFunction<String> subject = compileString(evaluator.getSubjectEvaluator());
+            final ExpressionFunction<String> append = compileString(((AppendEvaluator) evaluator).getAppendEvaluator());
+            return context -> {
+                final String subjectValue = subject.evaluate(context);
+                final String appendValue = append.evaluate(context);
+                return (subjectValue == null ? "" : subjectValue) + (appendValue == null ? "" : appendValue);
+            };
+        }
+
+        if (evaluator instanceof PrependEvaluator) {
+            final ExpressionFunction<String> subject = compileString(evaluator.getSubjectEvaluator());
+            final ExpressionFunction<String> prepend = compileString(((PrependEvaluator) evaluator).getPrependEvaluator());
+            return context -> {
+                final String subjectValue = subject.evaluate(context);
+                final String prependValue = prepend.evaluate(context);
+                return (prependValue == null ? "" : prependValue) + (subjectValue == null ? "" : subjectValue);
+            };
+        }
+
+        if (evaluator instanceof ReplaceNullEvaluator) {
+            final ExpressionFunction<String> subject = compileString(evaluator.getSubjectEvaluator());
+            final ExpressionFunction<String> replacement = compileString(((ReplaceNullEvaluator) evaluator).getResultEvaluator());
+            return context -> {
+                final String subjectValue = subject.evaluate(context);
+                return subjectValue == null ? replacement.evaluate(context) : subjectValue;
+            };
+        }
+
+        if (evaluator instanceof ReplaceEmptyEvaluator) {
+            final ExpressionFunction<String> subject = compileString(evaluator.getSubjectEvaluator());
+            final ExpressionFunction<String> replacement = compileString(((ReplaceEmptyEvaluator) evaluator).getReplacementEvaluator());
+            return context -> {
+                final String subjectValue = subject.evaluate(context);
+                return subjectValue == null || subjectValue.trim().isEmpty() ? replacement.evaluate(context) : subjectValue;
+            };
+        }
+
+        if (evaluator instanceof IfElseEvaluator) {
+            final IfElseEvaluator ifElseEvaluator = (IfElseEvaluator) evaluator;
+            final ExpressionFunction<Boolean> subject = compileBoolean(ifElseEvaluator.getSubjectEvaluator());
+            final ExpressionFunction<String> trueFunction = compileString(ifElseEvaluator.getTrueEvaluator());
+            final ExpressionFunction<String> falseFunction = compileString(ifElseEvaluator.getFalseEvaluator());
+            return context -> Boolean.TRUE.equals(subject.evaluate(context)) ? trueFunction.evaluate(context) : falseFunction.evaluate(context);
+        }
+
+        if (evaluator instanceof IsNullEvaluator) {
+            final ExpressionFunction<?> subject = compileEvaluator(evaluator.getSubjectEvaluator());
+            return context -> subject.evaluate(context) == null;
+        }
+
+        if (evaluator instanceof NotNullEvaluator) {
+            final ExpressionFunction<?> subject = compileEvaluator(evaluator.getSubjectEvaluator());
+            return context -> subject.evaluate(context) != null;
+        }
+
+        if (evaluator instanceof IsEmptyEvaluator) {
+            final ExpressionFunction<?> subject = compileEvaluator(evaluator.getSubjectEvaluator());
+            return context -> {
+                final Object subjectValue = subject.evaluate(context);
+                return subjectValue == null || subjectValue.toString().trim().isEmpty();
+            };
+        }
+
+        if (evaluator instanceof EqualsEvaluator) {
+            return compileEquals(evaluator.getSubjectEvaluator(), ((EqualsEvaluator) evaluator).getCompareToEvaluator());
+        }
+
+        if (evaluator instanceof EqualsIgnoreCaseEvaluator) {
+            final ExpressionFunction<?> subject = compileEvaluator(evaluator.getSubjectEvaluator());
+            final ExpressionFunction<?> compareTo = compileEvaluator(((EqualsIgnoreCaseEvaluator) evaluator).getCompareToEvaluator());
+            return context -> {
+                final Object subjectValue = subject.evaluate(context);
+                if (subjectValue == null) {
+                    return false;
+                }
+
+                final Object compareToValue = compareTo.evaluate(context);
+                if (compareToValue == null) {
+                    return false;
+                }
+
+                if (subjectValue instanceof String && compareToValue instanceof String) {
+                    return ((String) subjectValue).equalsIgnoreCase((String) compareToValue);
+                }
+
+                return subjectValue.equals(compareToValue);
+            };
+        }
+
+        if (evaluator instanceof StartsWithEvaluator) {
+            final ExpressionFunction<String> subject = compileString(evaluator.getSubjectEvaluator());
+            final ExpressionFunction<String> search = compileString(((StartsWithEvaluator) evaluator).getSearchEvaluator());
+            return context -> {
+                final String subjectValue = subject.evaluate(context);
+                if (subjectValue == null) {
+                    return false;
+                }
+
+                final String searchValue = search.evaluate(context);
+                return searchValue != null && subjectValue.startsWith(searchValue);
+            };
+        }
+
+        if (evaluator instanceof EndsWithEvaluator) {
+            final ExpressionFunction<String> subject = compileString(evaluator.getSubjectEvaluator());
+            final ExpressionFunction<String> search = compileString(((EndsWithEvaluator) evaluator).getSearchEvaluator());
+            return context -> {
+                final String subjectValue = subject.evaluate(context);
+                if (subjectValue == null) {
+                    return false;
+                }
+
+                final String searchValue = search.evaluate(context);
+                return searchValue != null && subjectValue.endsWith(searchValue);
+            };
+        }
+
+        if (evaluator instanceof ContainsEvaluator) {
+            final ExpressionFunction<String> subject = compileString(evaluator.getSubjectEvaluator());
+            final ExpressionFunction<String> search = compileString(((ContainsEvaluator) evaluator).getSearchEvaluator());
+            return context -> {
+                final String subjectValue = subject.evaluate(context);
+                if (subjectValue == null) {
+                    return false;
+                }
+
+                final String searchValue = search.evaluate(context);
+                return searchValue != null && subjectValue.contains(searchValue);
+            };
+        }
+
+        // The Evaluators of And, Or and Not return null when their subject produces no result at all, which only an Evaluator that is not compiled can do.
+        // Such a subject is left to the Evaluator of the function, along with the function itself, so that those semantics are preserved. A compiled subject
+        // whose value is null is treated as the Evaluators treat it: And and Or return the value of the right-hand side, and Not returns null.
+        if ((evaluator instanceof AndEvaluator || evaluator instanceof OrEvaluator || evaluator instanceof NotEvaluator) && !isCompilable(evaluator.getSubjectEvaluator())) {
+            return compileFallback(evaluator);
+        }
+
+        // The Evaluators of And and Or keep the result of the right-hand side in the Evaluator State so that it is not evaluated once per attribute
+        // when the subject iterates over multiple attributes. Compiled Expressions never iterate, so the right-hand side is simply evaluated.
+        if (evaluator instanceof AndEvaluator) {
+            final ExpressionFunction<Boolean> subject = compileBoolean(evaluator.getSubjectEvaluator());
+            final ExpressionFunction<Boolean> rhs = compileBoolean(((AndEvaluator) evaluator).getRhsEvaluator());
+            return context -> Boolean.FALSE.equals(subject.evaluate(context)) ? Boolean.FALSE : rhs.evaluate(context);
+        }
+
+        if (evaluator instanceof OrEvaluator) {
+            final ExpressionFunction<Boolean> subject = compileBoolean(evaluator.getSubjectEvaluator());
+            final ExpressionFunction<Boolean> rhs = compileBoolean(((OrEvaluator) evaluator).getRhsEvaluator());
+            return context -> Boolean.TRUE.equals(subject.evaluate(context)) ? Boolean.TRUE : rhs.evaluate(context);
+        }
+
+        if (evaluator instanceof NotEvaluator) {
+            final ExpressionFunction<Boolean> subject = compileBoolean(evaluator.getSubjectEvaluator());
+            return context -> {
+                final Boolean subjectValue = subject.evaluate(context);
+                if (subjectValue == null) {
+                    return null;
+                }
+
+                return subjectValue ? Boolean.FALSE : Boolean.TRUE;
+            };
+        }
+
+        if (evaluator instanceof GreaterThanEvaluator) {
+            return compileComparison(evaluator.getSubjectEvaluator(), ((GreaterThanEvaluator) evaluator).getComparisonEvaluator(), (a, b) -> a > b, (a, b) -> a > b);
+        }
+
+        if (evaluator instanceof GreaterThanOrEqualEvaluator) {
+            return compileComparison(evaluator.getSubjectEvaluator(), ((GreaterThanOrEqualEvaluator) evaluator).getComparisonEvaluator(), (a, b) -> a >= b, (a, b) -> a >= b);
+        }
+
+        if (evaluator instanceof LessThanEvaluator) {
+            return compileComparison(evaluator.getSubjectEvaluator(), ((LessThanEvaluator) evaluator).getComparisonEvaluator(), (a, b) -> a < b, (a, b) -> a < b);
+        }
+
+        if (evaluator instanceof LessThanOrEqualEvaluator) {
+            return compileComparison(evaluator.getSubjectEvaluator(), ((LessThanOrEqualEvaluator) evaluator).getComparisonEvaluator(), (a, b) -> a <= b, (a, b) -> a <= b);
+        }
+
+        return compileFallback(evaluator);
+    }
+
+    private ExpressionFunction<?> compileFallback(final Evaluator<?> evaluator) {
+        evaluatorsRetained = true;
+        return context -> {
+            final QueryResult<?> result = evaluator.evaluate(context);
+            return result == null ? null : result.getValue();
+        };
+    }
+
+    private ExpressionFunction<Boolean> compileEquals(final Evaluator<?> subjectEvaluator, final Evaluator<?> compareToEvaluator) {
+        final ExpressionFunction<?> subject = compileEvaluator(subjectEvaluator);
+        final ExpressionFunction<?> compareTo = compileEvaluator(compareToEvaluator);
+
+        final ResultType subjectType = subjectEvaluator.getResultType();
+        final ResultType compareToType = compareToEvaluator.getResultType();
+        if (subjectType == compareToType) {
+            return context -> {
+                final Object subjectValue = subject.evaluate(context);
+                if (subjectValue == null) {
+                    return false;
+                }
+
+                final Object compareToValue = compareTo.evaluate(context);
+                return compareToValue != null && subjectValue.equals(compareToValue);
+            };
+        }
+
+        return context -> {
+            final Object subjectValue = subject.evaluate(context);
+            if (subjectValue == null) {
+                return false;
+            }
+
+            final Object compareToValue = compareTo.evaluate(context);
+            if (compareToValue == null) {
+                return false;
+            }
+
+            return normalizeValue(subjectType, subjectValue).equals(normalizeValue(compareToType, compareToValue));
+        };
+    }
+
+    private static String normalizeValue(final ResultType type, final Object value) {
+        switch (type) {
+            case STRING:
+                return (String) value;
+            case DATE:
+                return String.valueOf(((Date) value).getTime());
+            case BOOLEAN:
+            case NUMBER:
+            default:
+                return String.valueOf(value);
+        }
+    }
+
+    private ExpressionFunction<Boolean> compileComparison(final Evaluator<?> subjectEvaluator, final Evaluator<?> comparisonEvaluator,
+                                                          final DoubleComparison doubleComparison, final LongComparison longComparison) {
+        final ExpressionFunction<Number> subject = compileNumber(subjectEvaluator);
+        final ExpressionFunction<Number> comparison = compileNumber(comparisonEvaluator);
+
+        return context -> {
+            final Number subjectValue = subject.evaluate(context);
+            if (subjectValue == null) {
+                return false;
+            }
+
+            final Number comparisonValue = comparison.evaluate(context);
+            if (comparisonValue == null) {
+                return false;
+            }
+
+            if (subjectValue instanceof Double || comparisonValue instanceof Double) {
+                return doubleComparison.compare(subjectValue.doubleValue(), comparisonValue.doubleValue());
+            }
+
+            return longComparison.compare(subjectValue.longValue(), comparisonValue.longValue());
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private ExpressionFunction<String> compileString(final Evaluator<?> evaluator) {
+        return (ExpressionFunction<String>) compileEvaluator(evaluator);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ExpressionFunction<Boolean> compileBoolean(final Evaluator<?> evaluator) {
+        return (ExpressionFunction<Boolean>) compileEvaluator(evaluator);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ExpressionFunction<Number> compileNumber(final Evaluator<?> evaluator) {
+        return (ExpressionFunction<Number>) compileEvaluator(evaluator);
+    }
+
+    private interface DoubleComparison {
+        boolean compare(double a, double b);
+    }
+
+    private interface LongComparison {
+        boolean compare(long a, long b);
+    }
+}
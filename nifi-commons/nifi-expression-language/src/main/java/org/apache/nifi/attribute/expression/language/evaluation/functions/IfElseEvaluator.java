@@ -49,4 +49,12 @@ public class IfElseEvaluator extends StringEvaluator {
         return subject;
     }
 
+    public Evaluator<String> getTrueEvaluator() {
+        return trueEvaluator;
+    }
+
+    public Evaluator<String> getFalseEvaluator() {
+        return falseEvaluator;
+    }
+
 }
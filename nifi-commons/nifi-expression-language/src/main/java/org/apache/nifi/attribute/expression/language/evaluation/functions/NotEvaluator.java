@@ -33,7 +33,7 @@ public class NotEvaluator extends BooleanEvaluator {
     @Override
     public QueryResult<Boolean> evaluate(final EvaluationContext evaluationContext) {
         final QueryResult<Boolean> subjectValue = subjectEvaluator.evaluate(evaluationContext);
-        if (subjectValue == null) {
+        if (subjectValue == null || subjectValue.getValue() == null) {
             return new BooleanQueryResult(null);
         }
 
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.attribute.expression.language.compile;
+
+import org.apache.nifi.attribute.expression.language.CompiledExpression;
+import org.apache.nifi.attribute.expression.language.StandardEvaluationContext;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class TestExpressionFunctionCompiler {
+
+    private static final List<String> EXPRESSIONS = Arrays.asList(
+        "${a}",
+        "${missing}",
+        "${${ref}}",
+        "${a:toUpper():toLower():trim()}",
+        "${padded:trim():append('-'):prepend(${a})}",
+        "${missing:append('x')}",
+        "${missing:replaceNull('default')}",
+        "${empty:replaceEmpty('default')}",
+        "${a:replaceEmpty('default')}",
+        "${a:equals('hello')}",
+        "${a:equals(${b})}",
+        "${number:equals(42)}",
+        "${number:toNumber():equals(42)}",
+        "${flag:equals('true'):and(true)}",
+        "${a:equalsIgnoreCase('HELLO')}",
+        "${a:startsWith('he'):and(${a:endsWith('lo')})}",
+        "${a:contains('ell'):or(${missing:contains('x')})}",
+        "${a:contains('xyz'):not()}",
+        "${missing:isNull()}",
+        "${a:notNull()}",
+        "${empty:isEmpty()}",
+        "${padded:isEmpty()}",
+        "${number:toNumber():gt(41)}",
+        "${number:toNumber():ge(42)}",
+        "${decimal:toDecimal():lt(3.5)}",
+        "${number:toNumber():le(${decimal:toDecimal()})}",
+        "${missing:toNumber():gt(1)}",
+        "${a:equals('hello'):ifElse('yes', 'no')}",
+        "${a:length():gt(3):ifElse(${a:toUpper()}, ${b})}",
+        "${a:substring(1, 3):equals('el')}",
+        "${anyAttribute('a', 'b'):equals('hello')}",
+        "${allAttributes('a', 'b'):isEmpty():not()}",
+        "${literal('abc'):toUpper()}",
+        "${'quoted literal'}"
+    );
+
+    private Map<String, String> getAttributes() {
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("a", "hello");
+        attributes.put("b", "world");
+        attributes.put("ref", "b");
+        attributes.put("padded", "  padded  ");
+        attributes.put("empty", "");
+        attributes.put("number", "42");
+        attributes.put("decimal", "3.14");
+        attributes.put("flag", "true");
+        return attributes;
+    }
+
+    @Test
+    public void testCompiledFunctionsMatchEvaluators() {
+        final Map<String, String> attributes = getAttributes();
+
+        for (final String expression : EXPRESSIONS) {
+            final CompiledExpression interpreted = new ExpressionCompiler(false).compile(expression);
+            final CompiledExpression compiled = new ExpressionCompiler(true).compile(expression);
+
+            final String expected = interpreted.evaluate(new StandardEvaluationContext(attributes), null);
+            final String actual = compiled.evaluate(new StandardEvaluationContext(attributes), null);
+            assertEquals(expected, actual, "Unexpected result for " + expression);
+        }
+    }
+
+    @Test
+    public void testNullSubjectsMatchEvaluators() {
+        final List<String> expressions = Arrays.asList(
+            "${missing:not()}",
+            "${missing:not():not()}",
+            "${missing:and(true)}",
+            "${missing:and(false)}",
+            "${missing:or(true)}",
+            "${missing:or(false)}",
+            "${missing:not():and(true)}",
+            "${missing:not():or(false)}",
+            "${missing:not():ifElse('yes', 'no')}",
+            "${a:contains('ell'):and(${missing})}",
+            "${a:contains('xyz'):or(${missing})}",
+            "${missing:matches('h.*'):not()}",
+            "${missing:matches('h.*'):and(true)}",
+            "${missing:matches('h.*'):or(false)}"
+        );
+
+        final Map<String, String> attributes = getAttributes();
+        for (final String expression : expressions) {
+            final CompiledExpression interpreted = new ExpressionCompiler(false).compile(expression);
+            final CompiledExpression compiled = new ExpressionCompiler(true).compile(expression);
+
+            final String expected = interpreted.evaluate(new StandardEvaluationContext(attributes), null);
+            final String actual = compiled.evaluate(new StandardEvaluationContext(attributes), null);
+            assertEquals(expected, actual, "Unexpected result for " + expression);
+        }
+
+        final CompiledExpression not = new ExpressionCompiler(false).compile("${missing:not()}");
+        final ExpressionFunction<?> notFunction = new ExpressionFunctionCompiler().compile(not.getRootEvaluator(), not.getAllEvaluators());
+        assertNull(notFunction.evaluate(new StandardEvaluationContext(attributes)));
+    }
+
+    @Test
+    public void testDecorator() {
+        final CompiledExpression compiled = new ExpressionCompiler(true).compile("${a:toUpper()}");
+        assertEquals("[HELLO]", compiled.evaluate(new StandardEvaluationContext(getAttributes()), value -> "[" + value + "]"));
+    }
+
+    @Test
+    public void testFullyCompiledExpressionsCached() {
+        final String expression = "${a:equals('cached'):ifElse('yes', 'no')}";
+        assertSame(new ExpressionCompiler(true).compile(expression), new ExpressionCompiler(true).compile(expression));
+        assertNotSame(new ExpressionCompiler(false).compile(expression), new ExpressionCompiler(false).compile(expression));
+
+        // substring() is evaluated by its Evaluator, so the Expression is not shared
+        final String partiallyCompiled = "${a:substring(1, 3):equals('el')}";
+        assertNotSame(new ExpressionCompiler(true).compile(partiallyCompiled), new ExpressionCompiler(true).compile(partiallyCompiled));
+    }
+
+    @Test
+    public void testUnsupportedRootNotCompiled() {
+        final ExpressionFunctionCompiler functionCompiler = new ExpressionFunctionCompiler();
+        final CompiledExpression compiled = new ExpressionCompiler(false).compile("${a:substring(1, 3)}");
+        assertEquals(null, functionCompiler.compile(compiled.getRootEvaluator(), compiled.getAllEvaluators()));
+
+        final CompiledExpression iterating = new ExpressionCompiler(false).compile("${anyAttribute('a', 'b'):equals('hello'):not()}");
+        assertEquals(null, functionCompiler.compile(iterating.getRootEvaluator(), iterating.getAllEvaluators()));
+    }
+}
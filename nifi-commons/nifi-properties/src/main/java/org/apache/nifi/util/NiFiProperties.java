@@ -68,6 +68,7 @@ public class NiFiProperties extends ApplicationProperties {
     public static final String WRITE_DELAY_INTERVAL = "nifi.flowservice.writedelay.interval";
     public static final String AUTO_RESUME_STATE = "nifi.flowcontroller.autoResumeState";
     public static final String FLOW_CONTROLLER_GRACEFUL_SHUTDOWN_PERIOD = "nifi.flowcontroller.graceful.shutdown.period";
+    public static final String FLOW_CONTROLLER_IO_BOUND_THREAD_COUNT = "nifi.flowcontroller.io.bound.thread.count";
     public static final String NAR_LIBRARY_DIRECTORY = "nifi.nar.library.directory";
     public static final String NAR_LIBRARY_DIRECTORY_PREFIX = "nifi.nar.library.directory.";
     public static final String NAR_LIBRARY_AUTOLOAD_DIRECTORY = "nifi.nar.library.autoload.directory";
@@ -107,6 +108,8 @@ public class NiFiProperties extends ApplicationProperties {
     public static final String CONTENT_ARCHIVE_BACK_PRESSURE_PERCENTAGE = "nifi.content.repository.archive.backpressure.percentage";
     public static final String CONTENT_ARCHIVE_ENABLED = "nifi.content.repository.archive.enabled";
     public static final String CONTENT_ARCHIVE_CLEANUP_FREQUENCY = "nifi.content.repository.archive.cleanup.frequency";
+    public static final String CONTENT_REPOSITORY_MAPPED_READS_ENABLED = "nifi.content.repository.mapped.reads.enabled";
+    public static final String CONTENT_REPOSITORY_MAPPED_READS_MAX_SIZE = "nifi.content.repository.mapped.reads.max.size";
     public static final String CONTENT_VIEWER_URL = "nifi.content.viewer.url";
     public static final String CONTENT_REPOSITORY_ENCRYPTION_KEY = "nifi.content.repository.encryption.key";
     public static final String CONTENT_REPOSITORY_ENCRYPTION_KEY_ID = "nifi.content.repository.encryption.key.id";
@@ -126,7 +129,10 @@ public class NiFiProperties extends ApplicationProperties {
     public static final String FLOWFILE_REPOSITORY_ENCRYPTION_KEY_PROVIDER_LOCATION = "nifi.flowfile.repository.encryption.key.provider.location";
     public static final String FLOWFILE_REPOSITORY_ENCRYPTION_KEY_PROVIDER_PASSWORD = "nifi.flowfile.repository.encryption.key.provider.password";
     public static final String FLOWFILE_SWAP_MANAGER_IMPLEMENTATION = "nifi.swap.manager.implementation";
+    public static final String FLOWFILE_SWAP_SERIALIZATION_FORMAT = "nifi.swap.serialization.format";
     public static final String QUEUE_SWAP_THRESHOLD = "nifi.queue.swap.threshold";
+    public static final String QUEUE_ACTIVE_PARTITIONS = "nifi.queue.active.partitions";
+    public static final String QUEUE_SWAP_THRESHOLD_ADAPTIVE = "nifi.queue.swap.threshold.adaptive";
 
     // provenance properties
     public static final String PROVENANCE_REPO_IMPLEMENTATION_CLASS = "nifi.provenance.repository.implementation";
@@ -149,6 +155,12 @@ public class NiFiProperties extends ApplicationProperties {
     public static final String PROVENANCE_REPO_ENCRYPTION_KEY_PROVIDER_LOCATION = "nifi.provenance.repository.encryption.key.provider.location";
     public static final String PROVENANCE_REPO_ENCRYPTION_KEY_PROVIDER_PASSWORD = "nifi.provenance.repository.encryption.key.provider.password";
     public static final String PROVENANCE_REPO_DEBUG_FREQUENCY = "nifi.provenance.repository.debug.frequency";
+    public static final String PROVENANCE_COLUMNAR_STORE_ENABLED = "nifi.provenance.repository.columnar.store.enabled";
+    public static final String PROVENANCE_COLUMNAR_PARTITION_DURATION = "nifi.provenance.repository.columnar.partition.duration";
+    public static final String PROVENANCE_ASYNC_INGEST_ENABLED = "nifi.provenance.repository.async.ingest.enabled";
+    public static final String PROVENANCE_ASYNC_INGEST_BUFFER_SIZE = "nifi.provenance.repository.async.ingest.buffer.size";
+    public static final String PROVENANCE_ASYNC_INGEST_THREADS = "nifi.provenance.repository.async.ingest.threads";
+    public static final String PROVENANCE_ASYNC_INGEST_FULL_POLICY = "nifi.provenance.repository.async.ingest.full.policy";
 
     // status repository properties
     public static final String COMPONENT_STATUS_REPOSITORY_IMPLEMENTATION = "nifi.components.status.repository.implementation";
@@ -247,6 +259,7 @@ public class NiFiProperties extends ApplicationProperties {
     // cluster common properties
     public static final String CLUSTER_PROTOCOL_HEARTBEAT_INTERVAL = "nifi.cluster.protocol.heartbeat.interval";
     public static final String CLUSTER_PROTOCOL_HEARTBEAT_MISSABLE_MAX = "nifi.cluster.protocol.heartbeat.missable.max";
+    public static final String CLUSTER_PROTOCOL_HEARTBEAT_PAYLOAD_FORMAT = "nifi.cluster.protocol.heartbeat.payload.format";
     public static final String CLUSTER_PROTOCOL_IS_SECURE = "nifi.cluster.protocol.is.secure";
 
     // cluster node properties
@@ -257,6 +270,7 @@ public class NiFiProperties extends ApplicationProperties {
     public static final String CLUSTER_NODE_CONNECTION_TIMEOUT = "nifi.cluster.node.connection.timeout";
     public static final String CLUSTER_NODE_READ_TIMEOUT = "nifi.cluster.node.read.timeout";
     public static final String CLUSTER_NODE_MAX_CONCURRENT_REQUESTS = "nifi.cluster.node.max.concurrent.requests";
+    public static final String CLUSTER_NODE_STATUS_RESPONSE_CACHE_EXPIRATION = "nifi.cluster.node.status.response.cache.expiration";
     public static final String CLUSTER_FIREWALL_FILE = "nifi.cluster.firewall.file";
     public static final String FLOW_ELECTION_MAX_WAIT_TIME = "nifi.cluster.flow.election.max.wait.time";
     public static final String FLOW_ELECTION_MAX_CANDIDATES = "nifi.cluster.flow.election.max.candidates";
@@ -265,6 +279,7 @@ public class NiFiProperties extends ApplicationProperties {
     public static final String LOAD_BALANCE_HOST = "nifi.cluster.load.balance.host";
     public static final String LOAD_BALANCE_PORT = "nifi.cluster.load.balance.port";
     public static final String LOAD_BALANCE_CONNECTIONS_PER_NODE = "nifi.cluster.load.balance.connections.per.node";
+    public static final String LOAD_BALANCE_STREAMS_PER_CONNECTION = "nifi.cluster.load.balance.streams.per.connection";
     public static final String LOAD_BALANCE_MAX_THREAD_COUNT = "nifi.cluster.load.balance.max.thread.count";
     public static final String LOAD_BALANCE_COMMS_TIMEOUT = "nifi.cluster.load.balance.comms.timeout";
 
@@ -310,6 +325,8 @@ public class NiFiProperties extends ApplicationProperties {
     public static final String ANALYTICS_CONNECTION_MODEL_IMPLEMENTATION = "nifi.analytics.connection.model.implementation";
     public static final String ANALYTICS_CONNECTION_MODEL_SCORE_NAME = "nifi.analytics.connection.model.score.name";
     public static final String ANALYTICS_CONNECTION_MODEL_SCORE_THRESHOLD = "nifi.analytics.connection.model.score.threshold";
+    public static final String ANALYTICS_CONNECTION_REFRESH_THREADS = "nifi.analytics.connection.refresh.threads";
+    public static final String ANALYTICS_CONNECTION_SAMPLE_SIZE = "nifi.analytics.connection.sample.size";
 
     // runtime monitoring properties
     public static final String MONITOR_LONG_RUNNING_TASK_SCHEDULE = "nifi.monitor.long.running.task.schedule";
@@ -347,12 +364,17 @@ public class NiFiProperties extends ApplicationProperties {
     public static final String DEFAULT_FLOWFILE_CHECKPOINT_INTERVAL = "20 secs";
     public static final int DEFAULT_MAX_FLOWFILES_PER_CLAIM = 100;
     public static final String DEFAULT_MAX_APPENDABLE_CLAIM_SIZE = "1 MB";
+    public static final String DEFAULT_CONTENT_REPOSITORY_MAPPED_READS_MAX_SIZE = "256 MB";
     public static final int DEFAULT_QUEUE_SWAP_THRESHOLD = 20000;
+    public static final int DEFAULT_QUEUE_ACTIVE_PARTITIONS = 1;
+    public static final boolean DEFAULT_QUEUE_SWAP_THRESHOLD_ADAPTIVE = false;
+    public static final String DEFAULT_FLOWFILE_SWAP_SERIALIZATION_FORMAT = "SCHEMA";
     public static final long DEFAULT_BACKPRESSURE_COUNT = 10_000L;
     public static final String DEFAULT_BACKPRESSURE_SIZE = "1 GB";
     public static final String DEFAULT_ADMINISTRATIVE_YIELD_DURATION = "30 sec";
     public static final String DEFAULT_COMPONENT_STATUS_SNAPSHOT_FREQUENCY = "5 mins";
     public static final String DEFAULT_BORED_YIELD_DURATION = "10 millis";
+    public static final int DEFAULT_FLOW_CONTROLLER_IO_BOUND_THREAD_COUNT = 0;
     public static final String DEFAULT_ZOOKEEPER_CONNECT_TIMEOUT = "3 secs";
     public static final String DEFAULT_ZOOKEEPER_SESSION_TIMEOUT = "3 secs";
     public static final String DEFAULT_ZOOKEEPER_ROOT_NODE = "/nifi";
@@ -387,9 +409,11 @@ public class NiFiProperties extends ApplicationProperties {
     // cluster common defaults
     public static final String DEFAULT_CLUSTER_PROTOCOL_HEARTBEAT_INTERVAL = "5 sec";
     public static final int DEFAULT_CLUSTER_PROTOCOL_HEARTBEAT_MISSABLE_MAX = 8;
+    public static final String DEFAULT_CLUSTER_PROTOCOL_HEARTBEAT_PAYLOAD_FORMAT = "XML";
     public static final String DEFAULT_CLUSTER_NODE_READ_TIMEOUT = "5 sec";
     public static final String DEFAULT_CLUSTER_NODE_CONNECTION_TIMEOUT = "5 sec";
     public static final int DEFAULT_CLUSTER_NODE_MAX_CONCURRENT_REQUESTS = 100;
+    public static final String DEFAULT_CLUSTER_NODE_STATUS_RESPONSE_CACHE_EXPIRATION = "1 sec";
 
     // cluster node defaults
     public static final int DEFAULT_CLUSTER_NODE_PROTOCOL_THREADS = 10;
@@ -399,6 +423,7 @@ public class NiFiProperties extends ApplicationProperties {
     // cluster load balance defaults
     public static final int DEFAULT_LOAD_BALANCE_PORT = 6342;
     public static final int DEFAULT_LOAD_BALANCE_CONNECTIONS_PER_NODE = 4;
+    public static final int DEFAULT_LOAD_BALANCE_STREAMS_PER_CONNECTION = 1;
     public static final int DEFAULT_LOAD_BALANCE_MAX_THREAD_COUNT = 8;
     public static final String DEFAULT_LOAD_BALANCE_COMMS_TIMEOUT = "30 sec";
 
@@ -416,6 +441,8 @@ public class NiFiProperties extends ApplicationProperties {
     public final static String DEFAULT_ANALYTICS_CONNECTION_MODEL_IMPLEMENTATION = "org.apache.nifi.controller.status.analytics.models.OrdinaryLeastSquares";
     public static final String DEFAULT_ANALYTICS_CONNECTION_SCORE_NAME = "rSquared";
     public static final double DEFAULT_ANALYTICS_CONNECTION_SCORE_THRESHOLD = .90;
+    public static final int DEFAULT_ANALYTICS_CONNECTION_REFRESH_THREADS = 2;
+    public static final int DEFAULT_ANALYTICS_CONNECTION_SAMPLE_SIZE = 0;
 
     // Status repository defaults
     public static final int DEFAULT_COMPONENT_STATUS_REPOSITORY_PERSIST_NODE_DAYS = 14;
@@ -495,6 +522,34 @@ public class NiFiProperties extends ApplicationProperties {
         }
     }
 
+    /**
+     * @return the number of independently locked partitions that the active queue of a connection without prioritizers is split into.
+     * A value of 1 disables partitioning.
+     */
+    public int getQueueActivePartitions() {
+        final int partitions = getIntegerProperty(QUEUE_ACTIVE_PARTITIONS, DEFAULT_QUEUE_ACTIVE_PARTITIONS);
+        return Math.max(1, partitions);
+    }
+
+    /**
+     * @return whether or not the swap threshold of connections is lowered automatically when the heap is under pressure
+     */
+    public boolean isQueueSwapThresholdAdaptive() {
+        final String adaptive = getProperty(QUEUE_SWAP_THRESHOLD_ADAPTIVE);
+        if (adaptive == null || adaptive.trim().isEmpty()) {
+            return DEFAULT_QUEUE_SWAP_THRESHOLD_ADAPTIVE;
+        }
+
+        return Boolean.parseBoolean(adaptive.trim());
+    }
+
+    /**
+     * @return the format in which swap files are written, either SCHEMA or COLUMNAR. Swap files in either format can always be read.
+     */
+    public String getFlowFileSwapSerializationFormat() {
+        return getProperty(FLOWFILE_SWAP_SERIALIZATION_FORMAT, DEFAULT_FLOWFILE_SWAP_SERIALIZATION_FORMAT);
+    }
+
     public Integer getIntegerProperty(final String propertyName, final Integer defaultValue) {
         final String value = getProperty(propertyName);
         if (value == null || value.trim().isEmpty()) {
@@ -843,6 +898,10 @@ public class NiFiProperties extends ApplicationProperties {
         return getClusterProtocolHeartbeatInterval();
     }
 
+    public String getClusterProtocolHeartbeatPayloadFormat() {
+        return getProperty(CLUSTER_PROTOCOL_HEARTBEAT_PAYLOAD_FORMAT, DEFAULT_CLUSTER_PROTOCOL_HEARTBEAT_PAYLOAD_FORMAT);
+    }
+
     public String getClusterNodeReadTimeout() {
         return getProperty(CLUSTER_NODE_READ_TIMEOUT, DEFAULT_CLUSTER_NODE_READ_TIMEOUT);
     }
@@ -1523,6 +1582,16 @@ public class NiFiProperties extends ApplicationProperties {
         return getProperty(BORED_YIELD_DURATION, DEFAULT_BORED_YIELD_DURATION);
     }
 
+    /**
+     * Returns the number of threads that are dedicated to running Timer Driven components that are marked as I/O-bound.
+     * A value of 0 indicates that I/O-bound components share the Timer Driven thread pool with all other components.
+     *
+     * @return the number of threads dedicated to I/O-bound components
+     */
+    public int getFlowControllerIOBoundThreadCount() {
+        return getIntegerProperty(FLOW_CONTROLLER_IO_BOUND_THREAD_COUNT, DEFAULT_FLOW_CONTROLLER_IO_BOUND_THREAD_COUNT);
+    }
+
     public File getStateManagementConfigFile() {
         return new File(getProperty(STATE_MANAGEMENT_CONFIG_FILE, DEFAULT_STATE_MANAGEMENT_CONFIG_FILE));
     }
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.record.path.paths;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.nifi.record.path.ArrayIndexFieldValue;
+import org.apache.nifi.record.path.FieldValue;
+import org.apache.nifi.record.path.RecordPathEvaluationContext;
+import org.apache.nifi.record.path.StandardFieldValue;
+import org.apache.nifi.record.path.util.Filters;
+import org.apache.nifi.serialization.record.ArrayRecord;
+import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.RecordSchemaIndex;
+import org.apache.nifi.serialization.record.type.ArrayDataType;
+
+/**
+ * <p>
+ * An Absolute RecordPath that consists only of child field references and single array indices, such as <code>/customer/id</code>
+ * or <code>/orders[0]/total</code>. Rather than chaining a Stream through each segment of the path, the Record is walked directly,
+ * and the position of each child field is looked up in the {@link RecordSchemaIndex} of the parent Record's schema and remembered
+ * for as long as Records of that same schema are evaluated.
+ * </p>
+ *
+ * <p>
+ * A CompiledFieldPath selects the same FieldValues as the segments that it was compiled from. Any other RecordPath is not
+ * supported and must be evaluated by its segments; see {@link #getUnsupportedSegment(RecordPathSegment)}.
+ * </p>
+ */
+public class CompiledFieldPath extends RecordPathSegment {
+    static final String RELATIVE_PATH = "RelativePath";
+
+    private final Step[] steps;
+    private volatile RootBinding rootBinding;
+
+    private CompiledFieldPath(final RecordPathSegment path, final List<Step> steps) {
+        super(path.getPath(), null, true);
+        this.steps = steps.toArray(new Step[0]);
+    }
+
+    /**
+     * Compiles the given RecordPath into a CompiledFieldPath, if it consists only of the segments that a CompiledFieldPath supports
+     *
+     * @param path the RecordPath to compile
+     * @return the compiled path, or <code>null</code> if the given path contains a segment that is not supported
+     */
+    public static CompiledFieldPath compile(final RecordPathSegment path) {
+        if (getUnsupportedSegment(path) != null) {
+            return null;
+        }
+
+        final List<Step> steps = new ArrayList<>();
+        for (RecordPathSegment segment = path; !(segment instanceof RootPath); segment = segment.getParentPath()) {
+            if (segment instanceof ChildFieldPath) {
+                steps.add(new ChildStep(((ChildFieldPath) segment).getChildName()));
+            } else {
+                steps.add(new ArrayIndexStep(((ArrayIndexPath) segment).getIndex()));
+            }
+        }
+
+        Collections.reverse(steps);
+        return new CompiledFieldPath(path, steps);
+    }
+
+    /**
+     * Determines which segment of the given RecordPath, if any, prevents it from being compiled into a CompiledFieldPath.
+     *
+     * @param path the RecordPath to inspect
+     * @return the simple class name of the unsupported segment that is nearest to the root of the path, the name <code>RelativePath</code>
+     * if the path is not anchored at the root of the Record, or <code>null</code> if the path can be compiled
+     */
+    public static String getUnsupportedSegment(final RecordPathSegment path) {
+        String unsupported = null;
+        RecordPathSegment segment = path;
+        while (segment != null && !(segment instanceof RootPath)) {
+            if (!(segment instanceof ChildFieldPath) && !(segment instanceof ArrayIndexPath)) {
+                unsupported = segment.getClass().getSimpleName();
+            }
+
+            segment = segment.getParentPath();
+        }
+
+        if (unsupported == null && segment == null) {
+            return RELATIVE_PATH;
+        }
+
+        return unsupported;
+    }
+
+    /**
+     * Evaluates this path against the given Record without creating a Stream
+     *
+     * @param record the Record to evaluate
+     * @return the selected FieldValue, or <code>null</code> if no field is selected
+     */
+    public FieldValue evaluateField(final Record record) {
+        FieldValue fieldValue = new StandardFieldValue(record, getRootField(record.getSchema()), null);
+        for (final Step step : steps) {
+            fieldValue = step.evaluate(fieldValue);
+            if (fieldValue == null) {
+                return null;
+            }
+        }
+
+        return fieldValue;
+    }
+
+    @Override
+    public Stream<FieldValue> evaluate(final RecordPathEvaluationContext context) {
+        final FieldValue fieldValue = evaluateField(context.getRecord());
+        return fieldValue == null ? Stream.empty() : Stream.of(fieldValue);
+    }
+
+    private RecordField getRootField(final RecordSchema schema) {
+        RootBinding binding = rootBinding;
+        if (binding == null || binding.schema != schema) {
+            binding = new RootBinding(schema);
+            rootBinding = binding;
+        }
+
+        return binding.field;
+    }
+
+    private interface Step {
+        FieldValue evaluate(FieldValue parent);
+    }
+
+    private static class ChildStep implements Step {
+        private final String childName;
+        private volatile ChildBinding binding;
+
+        private ChildStep(final String childName) {
+            this.childName = childName;
+        }
+
+        @Override
+        public FieldValue evaluate(final FieldValue parent) {
+            if (!Filters.isRecord(parent)) {
+                return missingChild(parent);
+            }
+
+            final Record record = (Record) parent.getValue();
+            if (record == null) {
+                return missingChild(parent);
+            }
+
+            final ChildBinding binding = getBinding(record.getSchema());
+            if (binding.field == null) {
+                return missingChild(parent);
+            }
+
+            final Object value = record instanceof ArrayRecord ? ((ArrayRecord) record).getValue(binding.index) : record.getValue(childName);
+            if (value == null) {
+                return missingChild(parent);
+            }
+
+            return new StandardFieldValue(value, binding.field, parent);
+        }
+
+        private ChildBinding getBinding(final RecordSchema schema) {
+            ChildBinding current = binding;
+            if (current == null || current.schema != schema) {
+                current = new ChildBinding(schema, childName);
+                binding = current;
+            }
+
+            return current;
+        }
+
+        private FieldValue missingChild(final FieldValue parent) {
+            final RecordField field = new RecordField(childName, RecordFieldType.CHOICE.getChoiceDataType(RecordFieldType.STRING.getDataType(), RecordFieldType.RECORD.getDataType()));
+            return new StandardFieldValue(null, field, parent);
+        }
+    }
+
+    private static class ArrayIndexStep implements Step {
+        private final int index;
+        private volatile ElementBinding binding;
+
+        private ArrayIndexStep(final int index) {
+            this.index = index;
+        }
+
+        @Override
+        public FieldValue evaluate(final FieldValue parent) {
+            final RecordField arrayField = parent.getField();
+            if (arrayField.getDataType().getFieldType() != RecordFieldType.ARRAY) {
+                return null;
+            }
+
+            final Object[] values = (Object[]) parent.getValue();
+            if (values == null) {
+                return null;
+            }
+
+            final int arrayIndex = index < 0 ? values.length + index : index;
+            if (arrayIndex < 0 || arrayIndex >= values.length) {
+                return null;
+            }
+
+            return new ArrayIndexFieldValue(values[arrayIndex], getElementField(arrayField), parent, arrayIndex);
+        }
+
+        private RecordField getElementField(final RecordField arrayField) {
+            ElementBinding current = binding;
+            if (current == null || current.arrayField != arrayField) {
+                current = new ElementBinding(arrayField);
+                binding = current;
+            }
+
+            return current.elementField;
+        }
+    }
+
+    private static class RootBinding {
+        private final RecordSchema schema;
+        private final RecordField field;
+
+        private RootBinding(final RecordSchema schema) {
+            this.schema = schema;
+            this.field = new RecordField("root", RecordFieldType.RECORD.getRecordDataType(schema));
+        }
+    }
+
+    private static class ChildBinding {
+        private final RecordSchema schema;
+        private final int index;
+        private final RecordField field;
+
+        private ChildBinding(final RecordSchema schema, final String childName) {
+            final RecordSchemaIndex schemaIndex = schema.getSchemaIndex();
+            this.schema = schema;
+            this.index = schemaIndex.getFieldIndex(childName);
+            this.field = index < 0 ? null : schemaIndex.getField(index);
+        }
+    }
+
+    private static class ElementBinding {
+        private final RecordField arrayField;
+        private final RecordField elementField;
+
+        private ElementBinding(final RecordField arrayField) {
+            final DataType elementDataType = ((ArrayDataType) arrayField.getDataType()).getElementType();
+            this.arrayField = arrayField;
+            this.elementField = new RecordField(arrayField.getFieldName(), elementDataType);
+        }
+    }
+}
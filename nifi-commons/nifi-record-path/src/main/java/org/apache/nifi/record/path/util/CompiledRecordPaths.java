@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.record.path.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import org.apache.nifi.record.path.RecordPath;
+import org.apache.nifi.record.path.paths.CompiledFieldPath;
+import org.apache.nifi.record.path.paths.RecordPathSegment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>
+ * A process-wide, bounded cache of RecordPaths in which every path that consists only of child field references and single array
+ * indices is replaced by a {@link CompiledFieldPath}. All other paths are cached as they are compiled by {@link RecordPath#compile(String)}
+ * and are evaluated by the general RecordPath engine.
+ * </p>
+ *
+ * <p>
+ * For each kind of path segment that causes a path to be evaluated by the general engine, the number of such paths that have been compiled
+ * is recorded so that it is possible to determine which kinds of paths would benefit from being compiled. These counts are logged at DEBUG
+ * level each time a path is compiled.
+ * </p>
+ */
+public final class CompiledRecordPaths {
+    private static final Logger logger = LoggerFactory.getLogger(CompiledRecordPaths.class);
+
+    public static final String ENABLED_PROPERTY = "nifi.record.path.compile.field.paths";
+    public static final String CACHE_SIZE_PROPERTY = "nifi.record.path.compiled.cache.size";
+    private static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    private static final LoadingCache<String, RecordPath> compiledRecordPaths = Caffeine.newBuilder()
+            .maximumSize(Integer.getInteger(CACHE_SIZE_PROPERTY, DEFAULT_CACHE_SIZE))
+            .build(CompiledRecordPaths::compile);
+
+    private static final LongAdder compiledCount = new LongAdder();
+    private static final ConcurrentMap<String, LongAdder> fallbackCounts = new ConcurrentHashMap<>();
+
+    private CompiledRecordPaths() {
+    }
+
+    /**
+     * @return <code>true</code> if the system property {@value #ENABLED_PROPERTY} indicates that RecordPaths should be compiled into
+     * CompiledFieldPaths where possible
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ENABLED_PROPERTY);
+    }
+
+    /**
+     * Returns the cached RecordPath for the given text, compiling it if it is not already cached
+     *
+     * @param path the textual representation of the RecordPath
+     * @return the compiled RecordPath
+     */
+    public static RecordPath getCompiled(final String path) {
+        return compiledRecordPaths.get(path);
+    }
+
+    /**
+     * Compiles the given text into a RecordPath, without consulting the cache, using a {@link CompiledFieldPath} if the path allows it
+     *
+     * @param path the textual representation of the RecordPath
+     * @return the compiled RecordPath
+     */
+    public static RecordPath compile(final String path) {
+        final RecordPath recordPath = RecordPath.compile(path);
+        if (!(recordPath instanceof RecordPathSegment)) {
+            return recordPath;
+        }
+
+        final RecordPathSegment segment = (RecordPathSegment) recordPath;
+        final String unsupportedSegment = CompiledFieldPath.getUnsupportedSegment(segment);
+        if (unsupportedSegment != null) {
+            fallbackCounts.computeIfAbsent(unsupportedSegment, key -> new LongAdder()).increment();
+            if (logger.isDebugEnabled()) {
+                logger.debug("RecordPath {} contains a {} so it will not be compiled into a field lookup; {}", path, unsupportedSegment, getSummary());
+            }
+            return recordPath;
+        }
+
+        compiledCount.increment();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Compiled RecordPath {} into a field lookup; {}", path, getSummary());
+        }
+        return CompiledFieldPath.compile(segment);
+    }
+
+    /**
+     * @return the number of paths that have been compiled into a CompiledFieldPath
+     */
+    public static long getCompiledCount() {
+        return compiledCount.sum();
+    }
+
+    /**
+     * @return for each kind of path segment that prevented a path from being compiled, the number of such paths, keyed by the simple name of the segment's class
+     */
+    public static Map<String, Long> getFallbackCounts() {
+        final Map<String, Long> counts = new TreeMap<>();
+        fallbackCounts.forEach((segment, count) -> counts.put(segment, count.sum()));
+        return counts;
+    }
+
+    /**
+     * @return a description of the number of paths that have been compiled and, for each kind of path segment that prevented compilation, the number of such paths
+     */
+    public static String getSummary() {
+        return getCompiledCount() + " RecordPaths compiled into field lookups, paths not compiled by segment type: " + getFallbackCounts();
+    }
+}
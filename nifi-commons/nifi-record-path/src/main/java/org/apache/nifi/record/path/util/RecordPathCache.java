@@ -25,9 +25,17 @@ public class RecordPathCache {
     private final LoadingCache<String, RecordPath> compiledRecordPaths;
 
     public RecordPathCache(final int cacheSize) {
+        this(cacheSize, CompiledRecordPaths.isEnabled());
+    }
+
+    /**
+     * @param cacheSize the maximum number of RecordPaths to cache
+     * @param compileFieldPaths whether paths should be obtained from {@link CompiledRecordPaths} so that simple field paths are compiled
+     */
+    public RecordPathCache(final int cacheSize, final boolean compileFieldPaths) {
         compiledRecordPaths = Caffeine.newBuilder()
                 .maximumSize(cacheSize)
-                .build(RecordPath::compile);
+                .build(compileFieldPaths ? CompiledRecordPaths::getCompiled : RecordPath::compile);
     }
 
     public RecordPath getCompiled(final String path) {
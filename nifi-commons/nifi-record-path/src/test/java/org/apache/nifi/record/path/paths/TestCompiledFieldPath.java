@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.record.path.paths;
+
+import org.apache.nifi.record.path.ArrayIndexFieldValue;
+import org.apache.nifi.record.path.FieldValue;
+import org.apache.nifi.record.path.RecordPath;
+import org.apache.nifi.record.path.util.CompiledRecordPaths;
+import org.apache.nifi.record.path.util.RecordPathCache;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.ArrayRecord;
+import org.apache.nifi.serialization.record.MapRecord;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestCompiledFieldPath {
+
+    private static final List<String> FIELD_PATHS = Arrays.asList("/", "/id", "/name", "/missing", "/customer", "/customer/id", "/customer/missing",
+        "/missing/id", "/id/missing", "/numbers[0]", "/numbers[2]", "/numbers[-1]", "/numbers[3]", "/customer/orders[1]/total",
+        "/customer/orders[-1]/total", "/customer/orders[5]/total", "/id[0]", "/none[0]");
+
+    @Test
+    public void testSelectsSameFieldValuesAsSegments() {
+        for (final Record record : Arrays.asList(createMapRecord(), createArrayRecord())) {
+            for (final String path : FIELD_PATHS) {
+                final RecordPath recordPath = RecordPath.compile(path);
+                final CompiledFieldPath compiledPath = CompiledFieldPath.compile((RecordPathSegment) recordPath);
+                assertNotNull(compiledPath, path);
+                assertEquals(recordPath.getPath(), compiledPath.getPath());
+
+                final List<FieldValue> expected = recordPath.evaluate(record).getSelectedFields().collect(Collectors.toList());
+                final List<FieldValue> actual = compiledPath.evaluate(record).getSelectedFields().collect(Collectors.toList());
+                assertEquals(expected, actual, path);
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i).getClass(), actual.get(i).getClass(), path);
+                    assertEquals(expected.get(i).getParent(), actual.get(i).getParent(), path);
+                }
+
+                final FieldValue field = compiledPath.evaluateField(record);
+                assertEquals(expected.isEmpty() ? null : expected.get(0), field, path);
+            }
+        }
+    }
+
+    @Test
+    public void testNegativeIndexBeyondStartOfArray() {
+        final CompiledFieldPath path = CompiledFieldPath.compile((RecordPathSegment) RecordPath.compile("/numbers[-4]"));
+        assertNull(path.evaluateField(createMapRecord()));
+    }
+
+    @Test
+    public void testUpdateValue() {
+        final Record record = createArrayRecord();
+        final CompiledFieldPath ordersPath = CompiledFieldPath.compile((RecordPathSegment) RecordPath.compile("/customer/orders[0]/total"));
+        ordersPath.evaluateField(record).updateValue(99.5);
+        assertEquals(99.5, ordersPath.evaluateField(record).getValue());
+
+        final CompiledFieldPath numberPath = CompiledFieldPath.compile((RecordPathSegment) RecordPath.compile("/numbers[1]"));
+        final FieldValue number = numberPath.evaluateField(record);
+        assertTrue(number instanceof ArrayIndexFieldValue);
+        number.updateValue(42);
+        assertEquals(42, ((Object[]) record.getValue("numbers"))[1]);
+    }
+
+    @Test
+    public void testSchemaChangeBetweenEvaluations() {
+        final CompiledFieldPath path = CompiledFieldPath.compile((RecordPathSegment) RecordPath.compile("/name"));
+        assertEquals("John", path.evaluateField(createMapRecord()).getValue());
+
+        final RecordSchema reorderedSchema = new SimpleRecordSchema(Arrays.asList(
+            new RecordField("name", RecordFieldType.STRING.getDataType()),
+            new RecordField("id", RecordFieldType.INT.getDataType())));
+        final Map<String, Object> values = new HashMap<>();
+        values.put("id", 7);
+        values.put("name", "Jane");
+        assertEquals("Jane", path.evaluateField(createArrayRecord(reorderedSchema, values)).getValue());
+        assertEquals(7, CompiledFieldPath.compile((RecordPathSegment) RecordPath.compile("/id")).evaluateField(createArrayRecord(reorderedSchema, values)).getValue());
+    }
+
+    @Test
+    public void testUnsupportedSegments() {
+        assertNull(CompiledFieldPath.getUnsupportedSegment((RecordPathSegment) RecordPath.compile("/customer/id")));
+        assertEquals("PredicatePath", CompiledFieldPath.getUnsupportedSegment((RecordPathSegment) RecordPath.compile("/customer[./id = 1]/id")));
+        assertEquals("WildcardChildPath", CompiledFieldPath.getUnsupportedSegment((RecordPathSegment) RecordPath.compile("/customer/*")));
+        assertEquals("DescendantFieldPath", CompiledFieldPath.getUnsupportedSegment((RecordPathSegment) RecordPath.compile("//id")));
+        assertEquals("MultiArrayIndexPath", CompiledFieldPath.getUnsupportedSegment((RecordPathSegment) RecordPath.compile("/numbers[0, 1]")));
+        assertEquals("CurrentFieldPath", CompiledFieldPath.getUnsupportedSegment((RecordPathSegment) RecordPath.compile("./id")));
+        assertNull(CompiledFieldPath.compile((RecordPathSegment) RecordPath.compile("/customer/*")));
+    }
+
+    @Test
+    public void testCompiledRecordPaths() {
+        final long compiledCount = CompiledRecordPaths.getCompiledCount();
+        final long wildcardCount = CompiledRecordPaths.getFallbackCounts().getOrDefault("WildcardChildPath", 0L);
+
+        assertTrue(CompiledRecordPaths.compile("/customer/id") instanceof CompiledFieldPath);
+        assertFalse(CompiledRecordPaths.compile("/customer/*") instanceof CompiledFieldPath);
+        assertEquals(compiledCount + 1, CompiledRecordPaths.getCompiledCount());
+        assertEquals(wildcardCount + 1, CompiledRecordPaths.getFallbackCounts().get("WildcardChildPath").longValue());
+
+        final RecordPath cached = CompiledRecordPaths.getCompiled("/customer/orders[0]/total");
+        assertTrue(cached == CompiledRecordPaths.getCompiled("/customer/orders[0]/total"));
+        assertTrue(new RecordPathCache(10, true).getCompiled("/customer/orders[0]/total") == cached);
+        assertFalse(new RecordPathCache(10, false).getCompiled("/customer/orders[0]/total") instanceof CompiledFieldPath);
+    }
+
+    @Test
+    public void testSummaryReportsCompiledAndFallbackCounts() {
+        CompiledRecordPaths.compile("/customer/id");
+        CompiledRecordPaths.compile("/customer/*");
+
+        final String summary = CompiledRecordPaths.getSummary();
+        assertTrue(summary.startsWith(CompiledRecordPaths.getCompiledCount() + " RecordPaths compiled into field lookups"));
+        assertTrue(summary.contains("WildcardChildPath=" + CompiledRecordPaths.getFallbackCounts().get("WildcardChildPath")));
+    }
+
+    private static RecordSchema createOrderSchema() {
+        return new SimpleRecordSchema(Arrays.asList(
+            new RecordField("id", RecordFieldType.INT.getDataType()),
+            new RecordField("total", RecordFieldType.DOUBLE.getDataType())));
+    }
+
+    private static RecordSchema createCustomerSchema() {
+        return new SimpleRecordSchema(Arrays.asList(
+            new RecordField("id", RecordFieldType.INT.getDataType()),
+            new RecordField("orders", RecordFieldType.ARRAY.getArrayDataType(RecordFieldType.RECORD.getRecordDataType(createOrderSchema())))));
+    }
+
+    private static RecordSchema createSchema() {
+        return new SimpleRecordSchema(Arrays.asList(
+            new RecordField("id", RecordFieldType.INT.getDataType()),
+            new RecordField("name", RecordFieldType.STRING.getDataType()),
+            new RecordField("numbers", RecordFieldType.ARRAY.getArrayDataType(RecordFieldType.INT.getDataType())),
+            new RecordField("none", RecordFieldType.ARRAY.getArrayDataType(RecordFieldType.INT.getDataType())),
+            new RecordField("customer", RecordFieldType.RECORD.getRecordDataType(createCustomerSchema()))));
+    }
+
+    private static Map<String, Object> createValues(final boolean arrayRecords) {
+        final Record[] orders = new Record[2];
+        for (int i = 0; i < orders.length; i++) {
+            final Map<String, Object> orderValues = new HashMap<>();
+            orderValues.put("id", i);
+            orderValues.put("total", 10.0 * (i + 1));
+            orders[i] = arrayRecords ? createArrayRecord(createOrderSchema(), orderValues) : new MapRecord(createOrderSchema(), orderValues);
+        }
+
+        final Map<String, Object> customerValues = new HashMap<>();
+        customerValues.put("id", 48);
+        customerValues.put("orders", orders);
+
+        final Map<String, Object> values = new HashMap<>();
+        values.put("id", 1);
+        values.put("name", "John");
+        values.put("numbers", new Object[] {1, 2, 3});
+        values.put("customer", arrayRecords ? createArrayRecord(createCustomerSchema(), customerValues) : new MapRecord(createCustomerSchema(), customerValues));
+        return values;
+    }
+
+    private static Record createMapRecord() {
+        return new MapRecord(createSchema(), createValues(false));
+    }
+
+    private static Record createArrayRecord() {
+        return createArrayRecord(createSchema(), createValues(true));
+    }
+
+    private static Record createArrayRecord(final RecordSchema schema, final Map<String, Object> values) {
+        final Object[] fieldValues = schema.getFieldNames().stream().map(values::get).toArray();
+        return new ArrayRecord(schema, fieldValues);
+    }
+}
@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.Map;
 
 import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordBatch;
 import org.apache.nifi.serialization.record.RecordSet;
 
 public abstract class AbstractRecordSetWriter implements RecordSetWriter {
@@ -47,10 +48,26 @@ public abstract class AbstractRecordSetWriter implements RecordSetWriter {
     @Override
     public WriteResult write(final RecordSet recordSet) throws IOException {
         beginRecordSet();
+
+        // Write the Records a batch at a time so that subclasses are able to amortize per-record work across each batch
+        RecordBatch batch = null;
         Record record;
         while ((record = recordSet.next()) != null) {
-            write(record);
+            if (batch == null) {
+                batch = new RecordBatch(record.getSchema(), RecordBatch.DEFAULT_BATCH_SIZE);
+            }
+
+            batch.add(record);
+            if (batch.isFull()) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+
+        if (batch != null && !batch.isEmpty()) {
+            writeBatch(batch);
         }
+
         return finishRecordSet();
     }
 
@@ -60,6 +77,16 @@ public abstract class AbstractRecordSetWriter implements RecordSetWriter {
         return WriteResult.of(++recordCount, attributes);
     }
 
+    @Override
+    public WriteResult writeBatch(final RecordBatch batch) throws IOException {
+        if (batch.isEmpty()) {
+            return WriteResult.EMPTY;
+        }
+
+        final Map<String, String> attributes = writeRecords(batch);
+        return WriteResult.of(recordCount, attributes);
+    }
+
     protected OutputStream getOutputStream() {
         return out;
     }
@@ -118,4 +145,24 @@ public abstract class AbstractRecordSetWriter implements RecordSetWriter {
     }
 
     protected abstract Map<String, String> writeRecord(Record record) throws IOException;
+
+    /**
+     * Method that is called by {@link #writeBatch(RecordBatch)} in order to write every Record in a non-empty batch. By default, this method
+     * calls {@link #writeRecord(Record)} and then {@link #incrementRecordCount()} for each Record; subclasses may override it in order to write
+     * the batch more efficiently, but must likewise call {@link #incrementRecordCount()} as each Record is written, so that the record count
+     * reflects the Records that were written if this method fails part way through the batch.
+     *
+     * @param batch the Records to write
+     * @return a Map of key/value pairs that should be added to the FlowFile as attributes, as returned for the last Record in the batch
+     * @throws IOException if unable to write to the underlying stream
+     */
+    protected Map<String, String> writeRecords(final RecordBatch batch) throws IOException {
+        Map<String, String> attributes = Collections.emptyMap();
+        for (final Record record : batch) {
+            attributes = writeRecord(record);
+            incrementRecordCount();
+        }
+
+        return attributes;
+    }
 }
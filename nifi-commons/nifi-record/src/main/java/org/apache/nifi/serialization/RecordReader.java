@@ -18,6 +18,7 @@
 package org.apache.nifi.serialization;
 
 import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordBatch;
 import org.apache.nifi.serialization.record.RecordSchema;
 import org.apache.nifi.serialization.record.RecordSet;
 
@@ -70,6 +71,55 @@ public interface RecordReader extends Closeable {
      */
     Record nextRecord(boolean coerceTypes, boolean dropUnknownFields) throws IOException, MalformedRecordException;
 
+    /**
+     * Returns a batch containing up to the given number of records from the stream, or <code>null</code> if no more records are available.
+     * Types will be coerced and any unknown fields will be dropped.
+     *
+     * @param maxRecords the maximum number of records to include in the batch
+     * @return the next batch of records in the stream or <code>null</code> if no more records are available
+     *
+     * @throws IOException if unable to read from the underlying data
+     * @throws MalformedRecordException if an unrecoverable failure occurs when trying to parse a record
+     * @throws SchemaValidationException if a Record contains a field that violates the schema and cannot be coerced into the appropriate field type.
+     */
+    default RecordBatch nextBatch(final int maxRecords) throws IOException, MalformedRecordException {
+        return nextBatch(maxRecords, true, false);
+    }
+
+    /**
+     * Reads up to the given number of records from the underlying stream, as if by calling {@link #nextRecord(boolean, boolean)} repeatedly.
+     * The batch is returned as soon as it is full or the stream has no more records, so it may contain fewer than <code>maxRecords</code> records.
+     * The schema of the batch is that of its first record. By default, this method reads one record at a time; implementations that are able to
+     * amortize per-record work across many records should override it.
+     *
+     * @param maxRecords the maximum number of records to include in the batch
+     * @param coerceTypes whether or not fields in the Records should be validated against the schema and coerced when necessary
+     * @param dropUnknownFields if <code>true</code>, any field that is found in the data that is not present in the schema will be dropped
+     *
+     * @return the next batch of records in the stream or <code>null</code> if no more records are available
+     * @throws IOException if unable to read from the underlying data
+     * @throws MalformedRecordException if an unrecoverable failure occurs when trying to parse a record, or a Record contains a field
+     *             that violates the schema and cannot be coerced into the appropriate field type.
+     * @throws SchemaValidationException if a Record contains a field that violates the schema and cannot be coerced into the appropriate
+     *             field type and schema enforcement is enabled
+     */
+    default RecordBatch nextBatch(final int maxRecords, final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+        final Record firstRecord = nextRecord(coerceTypes, dropUnknownFields);
+        if (firstRecord == null) {
+            return null;
+        }
+
+        final RecordBatch batch = new RecordBatch(firstRecord.getSchema(), maxRecords);
+        batch.add(firstRecord);
+
+        Record record;
+        while (!batch.isFull() && (record = nextRecord(coerceTypes, dropUnknownFields)) != null) {
+            batch.add(record);
+        }
+
+        return batch;
+    }
+
     /**
      * @return a RecordSchema that is appropriate for the records in the stream
      * @throws MalformedRecordException if an unrecoverable failure occurs when trying to parse the underlying data
@@ -20,6 +20,8 @@ package org.apache.nifi.serialization;
 import java.io.IOException;
 import java.io.OutputStream;
 
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordBatch;
 import org.apache.nifi.serialization.record.RecordSet;
 
 /**
@@ -43,6 +45,23 @@ public interface RecordSetWriter extends RecordWriter {
      */
     WriteResult write(RecordSet recordSet) throws IOException;
 
+    /**
+     * Writes every record in the given batch, in order, as if by calling {@link #write(Record)} for each of them. By default, this method
+     * writes one record at a time; implementations that are able to amortize per-record work across many records should override it.
+     *
+     * @param batch the records to write
+     * @return the results of writing the data, as returned for the last record in the batch, or {@link WriteResult#EMPTY} if the batch is empty
+     * @throws IOException if unable to write to the underlying stream
+     */
+    default WriteResult writeBatch(final RecordBatch batch) throws IOException {
+        WriteResult writeResult = WriteResult.EMPTY;
+        for (final Record record : batch) {
+            writeResult = write(record);
+        }
+
+        return writeResult;
+    }
+
     /**
      * Begins a new RecordSet
      *
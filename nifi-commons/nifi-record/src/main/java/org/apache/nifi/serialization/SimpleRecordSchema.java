@@ -20,6 +20,7 @@ package org.apache.nifi.serialization;
 import org.apache.nifi.serialization.record.DataType;
 import org.apache.nifi.serialization.record.RecordField;
 import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.RecordSchemaIndex;
 import org.apache.nifi.serialization.record.SchemaIdentifier;
 
 import java.util.ArrayList;
@@ -41,6 +42,7 @@ public class SimpleRecordSchema implements RecordSchema {
     private String schemaName;
     private String schemaNamespace;
     private volatile int hashCode;
+    private volatile RecordSchemaIndex schemaIndex;
 
     public SimpleRecordSchema(final List<RecordField> fields) {
         this(fields, null, null, false, SchemaIdentifier.EMPTY);
@@ -154,6 +156,16 @@ public class SimpleRecordSchema implements RecordSchema {
     }
 
 
+    @Override
+    public RecordSchemaIndex getSchemaIndex() {
+        RecordSchemaIndex index = this.schemaIndex;
+        if (index == null) {
+            index = this.schemaIndex = new RecordSchemaIndex(this);
+        }
+
+        return index;
+    }
+
     @Override
     public boolean equals(final Object obj) {
         if (obj == null) {
@@ -0,0 +1,796 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.serialization.record;
+
+import org.apache.nifi.serialization.SchemaValidationException;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.type.ArrayDataType;
+import org.apache.nifi.serialization.record.type.MapDataType;
+import org.apache.nifi.serialization.record.util.DataTypeUtils;
+import org.apache.nifi.serialization.record.util.IllegalTypeConversionException;
+
+import java.nio.charset.StandardCharsets;
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * A Record whose values are stored in an array, by the position of each field in the Record's schema, as determined by the schema's
+ * {@link RecordSchemaIndex}. Unlike {@link MapRecord}, accessing a value by field requires a single lookup of the field's position,
+ * and values may be accessed by position, without any lookup at all.
+ * </p>
+ *
+ * <p>
+ * Values of fields whose type is INT, LONG, DOUBLE, or BOOLEAN may be set and retrieved without boxing via methods such as
+ * {@link #setLong(int, long)} and {@link #getLong(int)}. Values of fields that are not present in the schema are retained
+ * separately, in the same manner as by {@link MapRecord}.
+ * </p>
+ *
+ * <p>
+ * A <code>null</code> element of the array of values given to the constructor indicates that the field is missing from the Record,
+ * and the field is not included in {@link #getRawFieldNames()}. A field that is present but whose value is <code>null</code> is
+ * indicated by setting the field's value to <code>null</code> via {@link #setValue(int, Object)}.
+ * </p>
+ *
+ * <p>
+ * A Record that contains a subset of this Record's fields may be obtained via {@link #project(RecordSchema)} without copying any values.
+ * </p>
+ */
+public class ArrayRecord implements Record {
+    /**
+     * Stored in place of a value that is explicitly <code>null</code>, or whose primitive representation is held in the {@link #primitives} array.
+     */
+    private enum Slot {
+        NULL,
+        INT,
+        LONG,
+        DOUBLE,
+        BOOLEAN
+    }
+
+    private RecordSchemaIndex schemaIndex;
+    private Object[] values;
+    private long[] primitives;
+    private int[] slots;
+    private Map<String, Object> unknownValues;
+    private Optional<SerializedForm> serializedForm;
+    private final boolean checkTypes;
+    private final boolean dropUnknownFields;
+    private Set<RecordField> inactiveFields = null;
+
+    public ArrayRecord(final RecordSchema schema, final Object[] values) {
+        this(schema, values, false, false);
+    }
+
+    public ArrayRecord(final RecordSchema schema, final Object[] values, final boolean checkTypes, final boolean dropUnknownFields) {
+        this(schema, values, null, null, checkTypes, dropUnknownFields);
+    }
+
+    /**
+     * @param schema the schema of the Record
+     * @param values the values of the fields of the schema, in the order of the schema's fields. The array is not copied but becomes the storage of the Record.
+     * @param unknownValues the values of fields that are not present in the schema, keyed by field name, or <code>null</code> if there are no such values
+     * @param serializedForm the serialized form of the Record, or <code>null</code> if not available
+     * @param checkTypes whether or not the values should be checked against, and coerced into, the types of the schema's fields
+     * @param dropUnknownFields whether or not values of fields that are not present in the schema should be ignored
+     *
+     * @throws IllegalArgumentException if the number of values does not match the number of fields in the schema
+     */
+    public ArrayRecord(final RecordSchema schema, final Object[] values, final Map<String, Object> unknownValues, final SerializedForm serializedForm,
+                       final boolean checkTypes, final boolean dropUnknownFields) {
+        Objects.requireNonNull(schema);
+        Objects.requireNonNull(values);
+
+        this.schemaIndex = schema.getSchemaIndex();
+        if (values.length != schemaIndex.getFieldCount()) {
+            throw new IllegalArgumentException("Cannot create Record with " + values.length + " values because its schema has " + schemaIndex.getFieldCount() + " fields");
+        }
+
+        this.values = values;
+        this.unknownValues = unknownValues == null || unknownValues.isEmpty() ? null : new LinkedHashMap<>(unknownValues);
+        this.serializedForm = Optional.ofNullable(serializedForm);
+        this.checkTypes = checkTypes;
+        this.dropUnknownFields = dropUnknownFields;
+
+        if (checkTypes) {
+            checkTypes();
+        }
+    }
+
+    private ArrayRecord(final RecordSchemaIndex schemaIndex, final Object[] values, final long[] primitives, final int[] slots, final boolean checkTypes, final boolean dropUnknownFields) {
+        this.schemaIndex = schemaIndex;
+        this.values = values;
+        this.primitives = primitives;
+        this.slots = slots;
+        this.serializedForm = Optional.empty();
+        this.checkTypes = checkTypes;
+        this.dropUnknownFields = dropUnknownFields;
+    }
+
+    private void checkTypes() {
+        for (int i = 0; i < schemaIndex.getFieldCount(); i++) {
+            final RecordField field = schemaIndex.getField(i);
+            final Object value = getRawValue(i);
+
+            if (value == null) {
+                if (field.isNullable() || field.getDefaultValue() != null) {
+                    continue;
+                }
+
+                throw new SchemaValidationException("Field " + field.getFieldName() + " cannot be null");
+            }
+
+            if (!DataTypeUtils.isCompatibleDataType(value, field.getDataType())) {
+                throw new SchemaValidationException("Field " + field.getFieldName() + " has a value of " + value
+                    + ", which cannot be coerced into the appropriate data type of " + field.getDataType());
+            }
+        }
+    }
+
+    private int slot(final int index) {
+        return slots == null ? index : slots[index];
+    }
+
+    private Object getRawValue(final int index) {
+        final int slot = slot(index);
+        final Object value = values[slot];
+        if (!(value instanceof Slot)) {
+            return value;
+        }
+
+        switch ((Slot) value) {
+            case NULL:
+                return null;
+            case INT:
+                return (int) primitives[slot];
+            case LONG:
+                return primitives[slot];
+            case DOUBLE:
+                return Double.longBitsToDouble(primitives[slot]);
+            default:
+                return primitives[slot] != 0L;
+        }
+    }
+
+    /**
+     * @return the value of the field at the given position, boxed if necessary, or {@link Slot#NULL} if the field is explicitly <code>null</code>
+     */
+    private Object getStoredValue(final int index) {
+        final Object value = values[slot(index)];
+        return value instanceof Slot && value != Slot.NULL ? getRawValue(index) : value;
+    }
+
+    @Override
+    public boolean isDropUnknownFields() {
+        return dropUnknownFields;
+    }
+
+    @Override
+    public boolean isTypeChecked() {
+        return checkTypes;
+    }
+
+    @Override
+    public RecordSchema getSchema() {
+        return schemaIndex.getSchema();
+    }
+
+    /**
+     * @param fieldName the name or alias of a field
+     * @return the position of the field in this Record's schema, or <code>-1</code> if the schema does not contain the field
+     */
+    public int getFieldIndex(final String fieldName) {
+        return schemaIndex.getFieldIndex(fieldName);
+    }
+
+    @Override
+    public Object[] getValues() {
+        final Object[] result = new Object[schemaIndex.getFieldCount()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = getValue(i);
+        }
+        return result;
+    }
+
+    /**
+     * @param index the position of the field in this Record's schema
+     * @return the value of the field, or the field's default value if the field has no value
+     * @throws ArrayIndexOutOfBoundsException if the index is less than 0 or not less than the number of fields in the schema
+     */
+    public Object getValue(final int index) {
+        final Object value = getRawValue(index);
+        return value == null ? schemaIndex.getField(index).getDefaultValue() : value;
+    }
+
+    @Override
+    public Object getValue(final String fieldName) {
+        final int index = schemaIndex.getFieldIndex(fieldName);
+        if (index >= 0) {
+            return getValue(index);
+        }
+
+        if (dropUnknownFields || unknownValues == null) {
+            return null;
+        }
+
+        return unknownValues.get(fieldName);
+    }
+
+    @Override
+    public Object getValue(final RecordField field) {
+        final int index = schemaIndex.getFieldIndex(field);
+        if (index >= 0) {
+            final Object value = getRawValue(index);
+            if (value != null) {
+                return value;
+            }
+
+            final Object defaultValue = field.getDefaultValue();
+            return defaultValue == null ? schemaIndex.getField(index).getDefaultValue() : defaultValue;
+        }
+
+        final Object unknownValue = getUnknownValue(field);
+        return unknownValue == null ? field.getDefaultValue() : unknownValue;
+    }
+
+    private Object getUnknownValue(final RecordField field) {
+        if (unknownValues == null) {
+            return null;
+        }
+
+        final Object value = unknownValues.get(field.getFieldName());
+        if (value != null) {
+            return value;
+        }
+
+        for (final String alias : field.getAliases()) {
+            final Object aliasValue = unknownValues.get(alias);
+            if (aliasValue != null) {
+                return aliasValue;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @param index the position of the field in this Record's schema
+     * @return <code>true</code> if the field has neither a value nor a default value, <code>false</code> otherwise
+     */
+    public boolean isNull(final int index) {
+        return getValue(index) == null;
+    }
+
+    /**
+     * @param index the position of the field in this Record's schema
+     * @return the value of the field as an int
+     * @throws IllegalTypeConversionException if the field has no value or its value cannot be converted into an int
+     */
+    public int getInt(final int index) {
+        final int slot = slot(index);
+        if (values[slot] == Slot.INT) {
+            return (int) primitives[slot];
+        }
+
+        return requireValue(DataTypeUtils.toInteger(getValue(index), getFieldName(index)), index);
+    }
+
+    /**
+     * @param index the position of the field in this Record's schema
+     * @return the value of the field as a long
+     * @throws IllegalTypeConversionException if the field has no value or its value cannot be converted into a long
+     */
+    public long getLong(final int index) {
+        final int slot = slot(index);
+        final Object value = values[slot];
+        if (value == Slot.LONG || value == Slot.INT) {
+            return primitives[slot];
+        }
+
+        return requireValue(DataTypeUtils.toLong(getValue(index), getFieldName(index)), index);
+    }
+
+    /**
+     * @param index the position of the field in this Record's schema
+     * @return the value of the field as a double
+     * @throws IllegalTypeConversionException if the field has no value or its value cannot be converted into a double
+     */
+    public double getDouble(final int index) {
+        final int slot = slot(index);
+        final Object value = values[slot];
+        if (value == Slot.DOUBLE) {
+            return Double.longBitsToDouble(primitives[slot]);
+        }
+        if (value == Slot.LONG || value == Slot.INT) {
+            return primitives[slot];
+        }
+
+        return requireValue(DataTypeUtils.toDouble(getValue(index), getFieldName(index)), index);
+    }
+
+    /**
+     * @param index the position of the field in this Record's schema
+     * @return the value of the field as a boolean
+     * @throws IllegalTypeConversionException if the field has no value or its value cannot be converted into a boolean
+     */
+    public boolean getBoolean(final int index) {
+        final int slot = slot(index);
+        if (values[slot] == Slot.BOOLEAN) {
+            return primitives[slot] != 0L;
+        }
+
+        return requireValue(DataTypeUtils.toBoolean(getValue(index), getFieldName(index)), index);
+    }
+
+    private <T> T requireValue(final T value, final int index) {
+        if (value == null) {
+            throw new IllegalTypeConversionException("Cannot convert value of field " + getFieldName(index) + " into a primitive value because the field has no value");
+        }
+
+        return value;
+    }
+
+    private String getFieldName(final int index) {
+        return schemaIndex.getField(index).getFieldName();
+    }
+
+    @Override
+    public String getAsString(final String fieldName) {
+        final Optional<DataType> dataTypeOption = getSchema().getDataType(fieldName);
+        if (dataTypeOption.isPresent()) {
+            return convertToString(getValue(fieldName), dataTypeOption.get().getFormat());
+        }
+
+        return DataTypeUtils.toString(getValue(fieldName), (Supplier<DateFormat>) null);
+    }
+
+    @Override
+    public String getAsString(final String fieldName, final String format) {
+        return convertToString(getValue(fieldName), format);
+    }
+
+    @Override
+    public String getAsString(final RecordField field, final String format) {
+        return convertToString(getValue(field), format);
+    }
+
+    private String convertToString(final Object value, final String format) {
+        if (value == null) {
+            return null;
+        }
+
+        return DataTypeUtils.toString(value, format);
+    }
+
+    @Override
+    public Long getAsLong(final String fieldName) {
+        return DataTypeUtils.toLong(getValue(fieldName), fieldName);
+    }
+
+    @Override
+    public Integer getAsInt(final String fieldName) {
+        return DataTypeUtils.toInteger(getValue(fieldName), fieldName);
+    }
+
+    @Override
+    public Double getAsDouble(final String fieldName) {
+        return DataTypeUtils.toDouble(getValue(fieldName), fieldName);
+    }
+
+    @Override
+    public Float getAsFloat(final String fieldName) {
+        return DataTypeUtils.toFloat(getValue(fieldName), fieldName);
+    }
+
+    @Override
+    public Record getAsRecord(final String fieldName, final RecordSchema schema) {
+        return DataTypeUtils.toRecord(getValue(fieldName), schema, fieldName);
+    }
+
+    @Override
+    public Boolean getAsBoolean(final String fieldName) {
+        return DataTypeUtils.toBoolean(getValue(fieldName), fieldName);
+    }
+
+    @Override
+    public Date getAsDate(final String fieldName, final String format) {
+        return DataTypeUtils.toDate(getValue(fieldName), () -> DataTypeUtils.getDateFormat(format), fieldName);
+    }
+
+    @Override
+    public Object[] getAsArray(final String fieldName) {
+        return DataTypeUtils.toArray(getValue(fieldName), fieldName, null, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Optional<SerializedForm> getSerializedForm() {
+        return serializedForm;
+    }
+
+    /**
+     * Updates the value of the field at the given position. If type checking is enabled, the value is coerced into the type of the field.
+     *
+     * @param index the position of the field in this Record's schema
+     * @param value the value to set
+     * @throws IllegalTypeConversionException if type checking is enabled and the value cannot be coerced into the type of the field
+     */
+    public void setValue(final int index, final Object value) {
+        final RecordField field = schemaIndex.getField(index);
+        final Object coerced = checkTypes ? DataTypeUtils.convertType(value, field.getDataType(), field.getFieldName()) : value;
+        final Object previousValue = getRawValue(index);
+
+        values[slot(index)] = coerced == null ? Slot.NULL : coerced;
+        if (!Objects.equals(coerced, previousValue)) {
+            serializedForm = Optional.empty();
+        }
+    }
+
+    /**
+     * Updates the value of the field at the given position without boxing the value, provided that the field is of type INT or type checking is disabled.
+     *
+     * @param index the position of the field in this Record's schema
+     * @param value the value to set
+     */
+    public void setInt(final int index, final int value) {
+        if (isPrimitiveAllowed(index, RecordFieldType.INT)) {
+            setPrimitive(index, Slot.INT, value);
+        } else {
+            setValue(index, value);
+        }
+    }
+
+    /**
+     * Updates the value of the field at the given position without boxing the value, provided that the field is of type LONG or type checking is disabled.
+     *
+     * @param index the position of the field in this Record's schema
+     * @param value the value to set
+     */
+    public void setLong(final int index, final long value) {
+        if (isPrimitiveAllowed(index, RecordFieldType.LONG)) {
+            setPrimitive(index, Slot.LONG, value);
+        } else {
+            setValue(index, value);
+        }
+    }
+
+    /**
+     * Updates the value of the field at the given position without boxing the value, provided that the field is of type DOUBLE or type checking is disabled.
+     *
+     * @param index the position of the field in this Record's schema
+     * @param value the value to set
+     */
+    public void setDouble(final int index, final double value) {
+        if (isPrimitiveAllowed(index, RecordFieldType.DOUBLE)) {
+            setPrimitive(index, Slot.DOUBLE, Double.doubleToRawLongBits(value));
+        } else {
+            setValue(index, value);
+        }
+    }
+
+    /**
+     * Updates the value of the field at the given position without boxing the value, provided that the field is of type BOOLEAN or type checking is disabled.
+     *
+     * @param index the position of the field in this Record's schema
+     * @param value the value to set
+     */
+    public void setBoolean(final int index, final boolean value) {
+        if (isPrimitiveAllowed(index, RecordFieldType.BOOLEAN)) {
+            setPrimitive(index, Slot.BOOLEAN, value ? 1L : 0L);
+        } else {
+            setValue(index, value);
+        }
+    }
+
+    private boolean isPrimitiveAllowed(final int index, final RecordFieldType fieldType) {
+        return !checkTypes || schemaIndex.getField(index).getDataType().getFieldType() == fieldType;
+    }
+
+    private void setPrimitive(final int index, final Slot primitiveSlot, final long primitive) {
+        if (primitives == null) {
+            primitives = new long[values.length];
+        }
+
+        final int slot = slot(index);
+        if (values[slot] != primitiveSlot || primitives[slot] != primitive) {
+            values[slot] = primitiveSlot;
+            primitives[slot] = primitive;
+            serializedForm = Optional.empty();
+        }
+    }
+
+    @Override
+    public void setValue(final RecordField field, final Object value) {
+        final int index = schemaIndex.getFieldIndex(field.getFieldName());
+        if (index >= 0) {
+            setValue(index, value);
+            return;
+        }
+
+        setUnknownValue(field.getFieldName(), value);
+        addInactiveField(field);
+    }
+
+    @Override
+    public void setValue(final String fieldName, final Object value) {
+        final int index = schemaIndex.getFieldIndex(fieldName);
+        if (index >= 0) {
+            setValue(index, value);
+            return;
+        }
+
+        setUnknownValue(fieldName, value);
+
+        final DataType inferredDataType = DataTypeUtils.inferDataType(value, RecordFieldType.STRING.getDataType());
+        addInactiveField(new RecordField(fieldName, inferredDataType));
+    }
+
+    private void setUnknownValue(final String fieldName, final Object value) {
+        if (dropUnknownFields) {
+            return;
+        }
+
+        if (unknownValues == null) {
+            unknownValues = new LinkedHashMap<>();
+        }
+
+        final Object previousValue = unknownValues.put(fieldName, value);
+        if (!Objects.equals(value, previousValue)) {
+            serializedForm = Optional.empty();
+        }
+    }
+
+    private void addInactiveField(final RecordField field) {
+        if (inactiveFields == null) {
+            inactiveFields = new LinkedHashSet<>();
+        }
+
+        inactiveFields.add(field);
+    }
+
+    @Override
+    public void setArrayValue(final String fieldName, final int arrayIndex, final Object value) {
+        final int index = schemaIndex.getFieldIndex(fieldName);
+        if (index < 0) {
+            return;
+        }
+
+        final DataType dataType = schemaIndex.getField(index).getDataType();
+        if (dataType.getFieldType() != RecordFieldType.ARRAY) {
+            throw new IllegalTypeConversionException("Cannot set the value of an array index on Record because the field '" + fieldName
+                + "' is of type '" + dataType + "' and cannot be coerced into an ARRAY type");
+        }
+
+        final Object arrayObject = getRawValue(index);
+        if (!(arrayObject instanceof Object[])) {
+            return;
+        }
+
+        final Object[] array = (Object[]) arrayObject;
+        if (arrayIndex >= array.length) {
+            return;
+        }
+
+        final DataType elementType = ((ArrayDataType) dataType).getElementType();
+        final Object coerced = DataTypeUtils.convertType(value, elementType, fieldName);
+
+        if (!Objects.equals(coerced, array[arrayIndex])) {
+            array[arrayIndex] = coerced;
+            serializedForm = Optional.empty();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void setMapValue(final String fieldName, final String mapKey, final Object value) {
+        final int index = schemaIndex.getFieldIndex(fieldName);
+        if (index < 0) {
+            return;
+        }
+
+        final DataType dataType = schemaIndex.getField(index).getDataType();
+        if (dataType.getFieldType() != RecordFieldType.MAP) {
+            throw new IllegalTypeConversionException("Cannot set the value of map entry on Record because the field '" + fieldName
+                + "' is of type '" + dataType + "' and cannot be coerced into an MAP type");
+        }
+
+        Object mapObject = getRawValue(index);
+        if (mapObject == null) {
+            mapObject = new HashMap<String, Object>();
+        }
+        if (!(mapObject instanceof Map)) {
+            return;
+        }
+
+        final Map<String, Object> map = (Map<String, Object>) mapObject;
+
+        final DataType valueDataType = ((MapDataType) dataType).getValueType();
+        final Object coerced = DataTypeUtils.convertType(value, valueDataType, fieldName);
+
+        final Object replaced = map.put(mapKey, coerced);
+        if (replaced == null || !replaced.equals(coerced)) {
+            serializedForm = Optional.empty();
+        }
+    }
+
+    /**
+     * <p>
+     * Returns a Record whose schema is the given schema and whose values are the values of the corresponding fields of this Record.
+     * The values are not copied: the returned Record shares its storage with this Record, so that updating the value of a field in
+     * either Record updates the value in both, until the schema of either Record is changed via {@link #incorporateSchema(RecordSchema)}
+     * or {@link #incorporateInactiveFields()}. Values of fields that are not present in this Record's schema are not carried over.
+     * </p>
+     *
+     * @param schema the schema of the projection, whose fields must all be present in this Record's schema
+     * @return a projection of this Record onto the given schema
+     * @throws IllegalArgumentException if the given schema contains a field that is not present in this Record's schema
+     */
+    public ArrayRecord project(final RecordSchema schema) {
+        final RecordSchemaIndex projectedIndex = schema.getSchemaIndex();
+        final int[] projectedSlots = new int[projectedIndex.getFieldCount()];
+        for (int i = 0; i < projectedSlots.length; i++) {
+            final RecordField field = projectedIndex.getField(i);
+            final int index = schemaIndex.getFieldIndex(field);
+            if (index < 0) {
+                throw new IllegalArgumentException("Cannot project Record onto schema " + schema + " because field '" + field.getFieldName() + "' is not present in the Record's schema");
+            }
+
+            projectedSlots[i] = slot(index);
+        }
+
+        // Allocate the primitive storage now so that it is shared with the projection
+        if (primitives == null) {
+            primitives = new long[values.length];
+        }
+
+        return new ArrayRecord(projectedIndex, values, primitives, projectedSlots, checkTypes, dropUnknownFields);
+    }
+
+    @Override
+    public void incorporateSchema(final RecordSchema other) {
+        relayout(DataTypeUtils.merge(getSchema(), other));
+    }
+
+    @Override
+    public void incorporateInactiveFields() {
+        final List<RecordField> updatedFields = new ArrayList<>();
+
+        boolean fieldUpdated = false;
+        for (final RecordField field : getSchema().getFields()) {
+            final RecordField updated = MapRecord.getUpdatedRecordField(field, this);
+            if (!updated.equals(field)) {
+                fieldUpdated = true;
+            }
+
+            updatedFields.add(updated);
+        }
+
+        if (!fieldUpdated && (inactiveFields == null || inactiveFields.isEmpty())) {
+            return;
+        }
+
+        if (inactiveFields != null) {
+            for (final RecordField field : inactiveFields) {
+                if (!updatedFields.contains(field)) {
+                    updatedFields.add(field);
+                }
+            }
+        }
+
+        relayout(new SimpleRecordSchema(updatedFields));
+    }
+
+    /**
+     * Moves the values of this Record into new storage that is laid out according to the given schema. Values of fields that are not
+     * present in the current schema but are present in the given schema are moved from the unknown values into the new storage.
+     */
+    private void relayout(final RecordSchema schema) {
+        final RecordSchemaIndex updatedIndex = schema.getSchemaIndex();
+        final Object[] updatedValues = new Object[updatedIndex.getFieldCount()];
+
+        for (int i = 0; i < updatedValues.length; i++) {
+            final RecordField field = updatedIndex.getField(i);
+            final int index = schemaIndex.getFieldIndex(field);
+            if (index >= 0) {
+                updatedValues[i] = getStoredValue(index);
+            } else if (unknownValues != null && unknownValues.containsKey(field.getFieldName())) {
+                final Object value = unknownValues.remove(field.getFieldName());
+                updatedValues[i] = value == null ? Slot.NULL : value;
+            }
+        }
+
+        if (unknownValues != null && unknownValues.isEmpty()) {
+            unknownValues = null;
+        }
+
+        this.schemaIndex = updatedIndex;
+        this.values = updatedValues;
+        this.primitives = null;
+        this.slots = null;
+    }
+
+    @Override
+    public Set<String> getRawFieldNames() {
+        final Set<String> fieldNames = new LinkedHashSet<>(schemaIndex.getFieldCount() * 2);
+        for (int i = 0; i < schemaIndex.getFieldCount(); i++) {
+            if (values[slot(i)] != null) {
+                fieldNames.add(getFieldName(i));
+            }
+        }
+
+        if (unknownValues != null) {
+            fieldNames.addAll(unknownValues.keySet());
+        }
+
+        return Collections.unmodifiableSet(fieldNames);
+    }
+
+    @Override
+    public Map<String, Object> toMap() {
+        final Map<String, Object> map = new LinkedHashMap<>(schemaIndex.getFieldCount() * 2);
+        for (int i = 0; i < schemaIndex.getFieldCount(); i++) {
+            if (values[slot(i)] != null) {
+                map.put(getFieldName(i), getRawValue(i));
+            }
+        }
+
+        if (unknownValues != null) {
+            map.putAll(unknownValues);
+        }
+
+        return Collections.unmodifiableMap(map);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 + 41 * toMap().hashCode() + 7 * getSchema().hashCode();
+    }
+
+    /**
+     * An ArrayRecord is equal to any {@link Record}, such as a {@link MapRecord}, that has the same schema and the same values for the same fields
+     */
+    @Override
+    public boolean equals(final Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (!(obj instanceof Record)) {
+            return false;
+        }
+        final Record other = (Record) obj;
+        return getSchema().equals(other.getSchema()) && toMap().equals(other.toMap());
+    }
+
+    @Override
+    public String toString() {
+        return "ArrayRecord[" + toMap() + "]";
+    }
+}
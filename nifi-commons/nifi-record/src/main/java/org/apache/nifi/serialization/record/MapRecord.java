@@ -285,6 +285,9 @@ public class MapRecord implements Record {
         return 31 + 41 * values.hashCode() + 7 * schema.hashCode();
     }
 
+    /**
+     * A MapRecord is equal to any {@link Record}, such as an {@link ArrayRecord}, that has the same schema and the same values for the same fields
+     */
     @Override
     public boolean equals(final Object obj) {
         if (obj == this) {
@@ -293,11 +296,11 @@ public class MapRecord implements Record {
         if (obj == null) {
             return false;
         }
-        if (!(obj instanceof MapRecord)) {
+        if (!(obj instanceof Record)) {
             return false;
         }
-        final MapRecord other = (MapRecord) obj;
-        return schema.equals(other.schema) && values.equals(other.values);
+        final Record other = (Record) obj;
+        return schema.equals(other.getSchema()) && values.equals(other.toMap());
     }
 
     @Override
@@ -455,7 +458,7 @@ public class MapRecord implements Record {
 
         boolean fieldUpdated = false;
         for (final RecordField field : schema.getFields()) {
-            final RecordField updated = getUpdatedRecordField(field);
+            final RecordField updated = getUpdatedRecordField(field, this);
             if (!updated.equals(field)) {
                 fieldUpdated = true;
             }
@@ -478,7 +481,14 @@ public class MapRecord implements Record {
         this.schema = new SimpleRecordSchema(updatedFields);
     }
 
-    private RecordField getUpdatedRecordField(final RecordField field) {
+    /**
+     * Returns the given field, updated so that its type incorporates the inactive fields of any child Records of the given Record's value for the field
+     *
+     * @param field the field to update
+     * @param parent the Record whose value for the field should be incorporated
+     * @return the updated field, or the given field if no update is necessary
+     */
+    static RecordField getUpdatedRecordField(final RecordField field, final Record parent) {
         final DataType dataType = field.getDataType();
         final RecordFieldType fieldType = dataType.getFieldType();
 
@@ -486,7 +496,7 @@ public class MapRecord implements Record {
             return field;
         }
 
-        final Object value = getValue(field);
+        final Object value = parent.getValue(field);
         if (value == null) {
             return field;
         }
@@ -565,7 +575,7 @@ public class MapRecord implements Record {
         return field;
     }
 
-    private boolean isSimpleType(final RecordFieldType fieldType) {
+    private static boolean isSimpleType(final RecordFieldType fieldType) {
         switch (fieldType) {
             case ARRAY:
             case RECORD:
@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.serialization.record;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * A bounded batch of Records that are read or written together, allowing a {@link org.apache.nifi.serialization.RecordReader RecordReader}
+ * or {@link org.apache.nifi.serialization.RecordSetWriter RecordSetWriter} to process many Records per call rather than one.
+ * </p>
+ *
+ * <p>
+ * In addition to accessing the Records in the batch one at a time, the values of a single field can be obtained for every Record in the batch
+ * via {@link #getColumn(RecordField)}. This allows a consumer to resolve the field once and then process its values column by column,
+ * which is typically how a writer that emits the same fields for every Record can make best use of a batch.
+ * </p>
+ *
+ * <p>
+ * A RecordBatch is not thread-safe.
+ * </p>
+ */
+public class RecordBatch implements Iterable<Record> {
+    /**
+     * The number of Records to read or write at a time when there is no reason to choose a different number, such as when every Record
+     * of a FlowFile is processed in order. It is large enough to amortize per-batch work while keeping the Records of a batch in memory briefly.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final RecordSchema schema;
+    private final Record[] records;
+    private int size = 0;
+
+    /**
+     * @param schema the schema that applies to the Records in the batch
+     * @param capacity the maximum number of Records that the batch can hold
+     */
+    public RecordBatch(final RecordSchema schema, final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cannot create a RecordBatch with a capacity of " + capacity + ". Capacity must be a positive integer");
+        }
+
+        this.schema = schema;
+        this.records = new Record[capacity];
+    }
+
+    /**
+     * @return the schema that applies to the Records in this batch
+     */
+    public RecordSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * @return the number of Records in this batch
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return <code>true</code> if this batch contains no Records
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return the maximum number of Records that this batch can hold
+     */
+    public int getCapacity() {
+        return records.length;
+    }
+
+    /**
+     * @return <code>true</code> if no more Records can be added to this batch
+     */
+    public boolean isFull() {
+        return size == records.length;
+    }
+
+    /**
+     * Adds the given Record to the end of this batch
+     *
+     * @param record the Record to add
+     * @throws IllegalStateException if the batch is full
+     */
+    public void add(final Record record) {
+        if (isFull()) {
+            throw new IllegalStateException("Cannot add Record to RecordBatch because the batch already contains " + size + " Records");
+        }
+
+        records[size++] = record;
+    }
+
+    /**
+     * @param index the position of the Record in this batch
+     * @return the Record at the given position
+     * @throws IndexOutOfBoundsException if the index is less than 0 or not less than the size of the batch
+     */
+    public Record get(final int index) {
+        checkIndex(index);
+        return records[index];
+    }
+
+    /**
+     * Replaces the Record at the given position, such as with the result of processing the Record
+     *
+     * @param index the position of the Record in this batch
+     * @param record the Record to place at the given position
+     * @throws IndexOutOfBoundsException if the index is less than 0 or not less than the size of the batch
+     */
+    public void set(final int index, final Record record) {
+        checkIndex(index);
+        records[index] = record;
+    }
+
+    /**
+     * Returns the value of the given field for every Record in this batch, as returned by {@link Record#getValue(RecordField)}
+     *
+     * @param field the field whose values should be returned
+     * @return an array that has one element per Record in this batch, in the same order as the Records
+     */
+    public Object[] getColumn(final RecordField field) {
+        final Object[] column = new Object[size];
+        for (int i = 0; i < size; i++) {
+            column[i] = records[i].getValue(field);
+        }
+
+        return column;
+    }
+
+    /**
+     * Returns the value of the field with the given name for every Record in this batch, as returned by {@link Record#getValue(String)}
+     *
+     * @param fieldName the name of the field whose values should be returned
+     * @return an array that has one element per Record in this batch, in the same order as the Records
+     */
+    public Object[] getColumn(final String fieldName) {
+        final Object[] column = new Object[size];
+        for (int i = 0; i < size; i++) {
+            column[i] = records[i].getValue(fieldName);
+        }
+
+        return column;
+    }
+
+    /**
+     * Removes all Records from this batch so that it can be filled again
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            records[i] = null;
+        }
+
+        size = 0;
+    }
+
+    @Override
+    public Iterator<Record> iterator() {
+        return new Iterator<Record>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public Record next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+
+                return records[index++];
+            }
+        };
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for RecordBatch of size " + size);
+        }
+    }
+}
@@ -87,4 +87,15 @@ public interface RecordSchema {
      */
     Optional<String> getSchemaNamespace();
 
+    /**
+     * Returns an index of the positions of the schema's fields. Implementations are encouraged to compute the index only once and
+     * return the same instance for every call, as the index is consulted whenever a Record that is stored by field position, such as
+     * {@link ArrayRecord}, is created.
+     *
+     * @return an index of the positions of the schema's fields
+     */
+    default RecordSchemaIndex getSchemaIndex() {
+        return new RecordSchemaIndex(this);
+    }
+
 }
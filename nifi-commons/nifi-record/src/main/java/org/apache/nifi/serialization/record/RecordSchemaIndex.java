@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.serialization.record;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * An immutable index of the fields of a {@link RecordSchema}, mapping each field name and alias to the position of the field in the schema.
+ * Records such as {@link ArrayRecord} use the index in order to store their values by position rather than by name.
+ * </p>
+ *
+ * <p>
+ * Building an index requires visiting every field of the schema, so an index should be obtained via {@link RecordSchema#getSchemaIndex()},
+ * which allows the schema to reuse a single index for all Records that share the schema.
+ * </p>
+ */
+public final class RecordSchemaIndex {
+    private final RecordSchema schema;
+    private final RecordField[] fields;
+    private final Map<String, Integer> positions;
+
+    public RecordSchemaIndex(final RecordSchema schema) {
+        this.schema = schema;
+
+        final List<RecordField> schemaFields = schema.getFields();
+        this.fields = schemaFields.toArray(new RecordField[0]);
+        this.positions = new HashMap<>(fields.length * 2);
+
+        for (int i = 0; i < fields.length; i++) {
+            positions.put(fields[i].getFieldName(), i);
+        }
+
+        // Field names take precedence over aliases, just as they do when a Record looks up a value
+        for (int i = 0; i < fields.length; i++) {
+            for (final String alias : fields[i].getAliases()) {
+                positions.putIfAbsent(alias, i);
+            }
+        }
+    }
+
+    /**
+     * @return the schema that is indexed
+     */
+    public RecordSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * @return the number of fields in the schema
+     */
+    public int getFieldCount() {
+        return fields.length;
+    }
+
+    /**
+     * @param index the position of the field
+     * @return the field at the given position
+     * @throws ArrayIndexOutOfBoundsException if the index is less than 0 or not less than the number of fields
+     */
+    public RecordField getField(final int index) {
+        return fields[index];
+    }
+
+    /**
+     * @param fieldName the name or alias of a field
+     * @return the position of the field with the given name or alias, or <code>-1</code> if the schema has no such field
+     */
+    public int getFieldIndex(final String fieldName) {
+        final Integer position = positions.get(fieldName);
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * Returns the position of the field in the schema that has the same name as the given field or, if there is no such field, that
+     * has the same name as one of the given field's aliases.
+     *
+     * @param field the field to find
+     * @return the position of the field, or <code>-1</code> if the schema has no field with the name or any of the aliases of the given field
+     */
+    public int getFieldIndex(final RecordField field) {
+        final int index = getFieldIndex(field.getFieldName());
+        if (index >= 0) {
+            return index;
+        }
+
+        for (final String alias : field.getAliases()) {
+            final int aliasIndex = getFieldIndex(alias);
+            if (aliasIndex >= 0) {
+                return aliasIndex;
+            }
+        }
+
+        return -1;
+    }
+}
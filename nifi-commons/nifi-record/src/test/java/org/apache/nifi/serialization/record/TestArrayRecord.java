@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.serialization.record;
+
+import org.apache.nifi.serialization.SchemaValidationException;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.util.IllegalTypeConversionException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestArrayRecord {
+
+    private RecordSchema createSchema() {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.INT.getDataType(), false));
+        fields.add(new RecordField("name", RecordFieldType.STRING.getDataType(), null, new HashSet<>(Collections.singletonList("fullName"))));
+        fields.add(new RecordField("balance", RecordFieldType.DOUBLE.getDataType(), 0.0D));
+        fields.add(new RecordField("active", RecordFieldType.BOOLEAN.getDataType()));
+        fields.add(new RecordField("count", RecordFieldType.LONG.getDataType()));
+        return new SimpleRecordSchema(fields);
+    }
+
+    @Test
+    public void testGetValueByNameAliasAndIndex() {
+        final RecordSchema schema = createSchema();
+        final ArrayRecord record = new ArrayRecord(schema, new Object[] {1, "John", null, true, 5L});
+
+        assertEquals(1, record.getValue("id"));
+        assertEquals("John", record.getValue("fullName"));
+        assertEquals("John", record.getValue(new RecordField("fullName", RecordFieldType.STRING.getDataType())));
+        assertEquals(0.0D, record.getValue(2));
+        assertEquals(0.0D, record.getValue("balance"));
+        assertEquals(1, record.getFieldIndex("fullName"));
+        assertEquals(-1, record.getFieldIndex("other"));
+        assertNull(record.getValue("other"));
+        assertEquals(Arrays.asList(1, "John", 0.0D, true, 5L), Arrays.asList(record.getValues()));
+    }
+
+    @Test
+    public void testSchemaIndexIsShared() {
+        final RecordSchema schema = createSchema();
+        assertSame(schema.getSchemaIndex(), schema.getSchemaIndex());
+    }
+
+    @Test
+    public void testWrongNumberOfValues() {
+        assertThrows(IllegalArgumentException.class, () -> new ArrayRecord(createSchema(), new Object[] {1}));
+    }
+
+    @Test
+    public void testCheckTypes() {
+        final RecordSchema schema = createSchema();
+        assertThrows(SchemaValidationException.class, () -> new ArrayRecord(schema, new Object[] {null, "John", null, null, null}, true, false));
+        assertThrows(SchemaValidationException.class, () -> new ArrayRecord(schema, new Object[] {"abc", "John", null, null, null}, true, false));
+
+        final ArrayRecord record = new ArrayRecord(schema, new Object[] {1, "John", null, null, null}, true, false);
+        record.setValue("count", "12");
+        assertEquals(12L, record.getValue("count"));
+    }
+
+    @Test
+    public void testPrimitiveValues() {
+        final RecordSchema schema = createSchema();
+        final ArrayRecord record = new ArrayRecord(schema, new Object[] {0, null, null, null, null}, true, false);
+
+        record.setInt(0, 42);
+        record.setDouble(2, 1.5D);
+        record.setBoolean(3, true);
+        record.setLong(4, 7L);
+
+        assertEquals(42, record.getInt(0));
+        assertEquals(42L, record.getLong(0));
+        assertEquals(1.5D, record.getDouble(2));
+        assertTrue(record.getBoolean(3));
+        assertEquals(7L, record.getLong(4));
+        assertEquals(7.0D, record.getDouble(4));
+
+        assertEquals(42, record.getValue("id"));
+        assertEquals(1.5D, record.getValue("balance"));
+        assertEquals(true, record.getValue("active"));
+        assertEquals(7L, record.getValue("count"));
+
+        // A primitive that does not match the field's type is coerced into the field's type
+        record.setInt(4, 9);
+        assertEquals(9L, record.getValue("count"));
+        record.setLong(1, 10L);
+        assertEquals("10", record.getValue("name"));
+
+        record.setValue("id", 43);
+        assertEquals(43, record.getInt(0));
+    }
+
+    @Test
+    public void testPrimitiveOfNullValue() {
+        final ArrayRecord record = new ArrayRecord(createSchema(), new Object[5]);
+        assertTrue(record.isNull(4));
+        assertFalse(record.isNull(2));
+        assertThrows(IllegalTypeConversionException.class, () -> record.getLong(4));
+    }
+
+    @Test
+    public void testExplicitNullValue() {
+        final ArrayRecord record = new ArrayRecord(createSchema(), new Object[] {1, null, null, null, null});
+        assertEquals(Collections.singleton("id"), record.getRawFieldNames());
+
+        record.setValue(1, null);
+        assertNull(record.getValue("name"));
+        assertEquals(new HashSet<>(Arrays.asList("id", "name")), record.getRawFieldNames());
+
+        record.incorporateSchema(new SimpleRecordSchema(Collections.singletonList(new RecordField("city", RecordFieldType.STRING.getDataType()))));
+        assertEquals(new HashSet<>(Arrays.asList("id", "name")), record.getRawFieldNames());
+    }
+
+    @Test
+    public void testSerializedFormCleared() {
+        final SerializedForm serializedForm = SerializedForm.of("{}", "application/json");
+        final ArrayRecord record = new ArrayRecord(createSchema(), new Object[] {1, "John", null, null, null}, null, serializedForm, false, false);
+        assertTrue(record.getSerializedForm().isPresent());
+
+        record.setValue("name", "John");
+        assertTrue(record.getSerializedForm().isPresent());
+
+        record.setLong(4, 1L);
+        assertFalse(record.getSerializedForm().isPresent());
+    }
+
+    @Test
+    public void testUnknownFields() {
+        final ArrayRecord record = new ArrayRecord(createSchema(), new Object[] {1, "John", null, null, null}, Collections.singletonMap("extra", "value"), null, false, false);
+        assertEquals("value", record.getValue("extra"));
+
+        record.setValue("other", 12);
+        assertEquals(12, record.getValue("other"));
+        assertEquals(new HashSet<>(Arrays.asList("id", "name", "extra", "other")), record.getRawFieldNames());
+
+        record.incorporateInactiveFields();
+        assertEquals(6, record.getSchema().getFieldCount());
+        assertEquals(RecordFieldType.INT, record.getSchema().getDataType("other").get().getFieldType());
+        assertEquals(12, record.getValue(5));
+        assertEquals("value", record.getValue("extra"));
+
+        final ArrayRecord dropping = new ArrayRecord(createSchema(), new Object[] {1, "John", null, null, null}, Collections.singletonMap("extra", "value"), null, false, true);
+        assertNull(dropping.getValue("extra"));
+        dropping.setValue("other", 12);
+        assertNull(dropping.getValue("other"));
+    }
+
+    @Test
+    public void testIncorporateSchema() {
+        final ArrayRecord record = new ArrayRecord(createSchema(), new Object[] {1, "John", null, null, 3L});
+        record.setLong(4, 4L);
+
+        record.incorporateSchema(new SimpleRecordSchema(Collections.singletonList(new RecordField("city", RecordFieldType.STRING.getDataType()))));
+        assertEquals(6, record.getSchema().getFieldCount());
+        assertEquals(4L, record.getLong(4));
+        assertNull(record.getValue("city"));
+
+        record.setValue("city", "Boston");
+        assertEquals("Boston", record.getValue(5));
+    }
+
+    @Test
+    public void testProjection() {
+        final ArrayRecord record = new ArrayRecord(createSchema(), new Object[] {1, "John", 2.5D, true, 3L});
+
+        final List<RecordField> projectedFields = new ArrayList<>();
+        projectedFields.add(new RecordField("count", RecordFieldType.LONG.getDataType()));
+        projectedFields.add(new RecordField("fullName", RecordFieldType.STRING.getDataType()));
+        final ArrayRecord projection = record.project(new SimpleRecordSchema(projectedFields));
+
+        assertEquals(Arrays.asList(3L, "John"), Arrays.asList(projection.getValues()));
+        assertEquals(3L, projection.getLong(0));
+        assertNull(projection.getValue("id"));
+
+        projection.setLong(0, 8L);
+        assertEquals(8L, record.getLong(4));
+        record.setValue("name", "Jane");
+        assertEquals("Jane", projection.getValue(1));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> record.project(new SimpleRecordSchema(Collections.singletonList(new RecordField("other", RecordFieldType.STRING.getDataType())))));
+    }
+
+    @Test
+    public void testEquals() {
+        final ArrayRecord first = new ArrayRecord(createSchema(), new Object[] {1, "John", null, null, 3L});
+        final ArrayRecord second = new ArrayRecord(createSchema(), new Object[] {1, "John", null, null, null});
+        second.setLong(4, 3L);
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+    }
+
+    @Test
+    public void testEqualsMapRecord() {
+        final ArrayRecord arrayRecord = new ArrayRecord(createSchema(), new Object[] {1, "John", null, null, null});
+        arrayRecord.setLong(4, 3L);
+
+        final Map<String, Object> values = new LinkedHashMap<>();
+        values.put("id", 1);
+        values.put("name", "John");
+        values.put("count", 3L);
+        final MapRecord mapRecord = new MapRecord(createSchema(), values);
+
+        assertEquals(arrayRecord, mapRecord);
+        assertEquals(mapRecord, arrayRecord);
+        assertEquals(arrayRecord.hashCode(), mapRecord.hashCode());
+
+        arrayRecord.setValue(2, null);
+        assertNotEquals(arrayRecord, mapRecord);
+        assertNotEquals(mapRecord, arrayRecord);
+
+        mapRecord.setValue("balance", null);
+        assertEquals(arrayRecord, mapRecord);
+        assertEquals(mapRecord, arrayRecord);
+        assertEquals(arrayRecord.hashCode(), mapRecord.hashCode());
+    }
+}
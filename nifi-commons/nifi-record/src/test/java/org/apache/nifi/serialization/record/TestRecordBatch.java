@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.serialization.record;
+
+import org.apache.nifi.serialization.AbstractRecordSetWriter;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.WriteResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestRecordBatch {
+
+    private final RecordSchema schema = new SimpleRecordSchema(Arrays.asList(
+        new RecordField("id", RecordFieldType.INT.getDataType()),
+        new RecordField("name", RecordFieldType.STRING.getDataType(), "unknown")));
+
+    private List<Record> createRecords(final int count) {
+        final List<Record> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            records.add(new ArrayRecord(schema, new Object[] {i, i % 2 == 0 ? "name-" + i : null}));
+        }
+        return records;
+    }
+
+    @Test
+    public void testColumns() {
+        final RecordBatch batch = new RecordBatch(schema, 4);
+        createRecords(3).forEach(batch::add);
+
+        assertEquals(3, batch.size());
+        assertArrayEquals(new Object[] {0, 1, 2}, batch.getColumn("id"));
+        assertArrayEquals(new Object[] {"name-0", "unknown", "name-2"}, batch.getColumn(schema.getField(1)));
+        assertArrayEquals(new Object[] {null, null, null}, batch.getColumn("other"));
+
+        batch.add(new MapRecord(schema, Collections.singletonMap("id", 3)));
+        assertTrue(batch.isFull());
+        assertThrows(IllegalStateException.class, () -> batch.add(new MapRecord(schema, Collections.emptyMap())));
+        assertThrows(IndexOutOfBoundsException.class, () -> batch.get(4));
+
+        batch.clear();
+        assertTrue(batch.isEmpty());
+        assertEquals(0, batch.getColumn("id").length);
+    }
+
+    @Test
+    public void testDefaultNextBatch() throws Exception {
+        final List<Record> records = createRecords(5);
+        final Iterator<Record> iterator = records.iterator();
+        final RecordReader reader = new RecordReader() {
+            @Override
+            public Record nextRecord(final boolean coerceTypes, final boolean dropUnknownFields) {
+                return iterator.hasNext() ? iterator.next() : null;
+            }
+
+            @Override
+            public RecordSchema getSchema() {
+                return schema;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        final RecordBatch first = reader.nextBatch(3);
+        assertEquals(3, first.size());
+        assertSame(schema, first.getSchema());
+        assertSame(records.get(2), first.get(2));
+
+        final RecordBatch second = reader.nextBatch(3);
+        assertEquals(2, second.size());
+        assertSame(records.get(4), second.get(1));
+
+        assertNull(reader.nextBatch(3));
+    }
+
+    @Test
+    public void testWriteBatch() throws Exception {
+        final List<Record> written = new ArrayList<>();
+        final AbstractRecordSetWriter writer = createWriter(written);
+
+        final List<Record> records = createRecords(3);
+        final RecordBatch batch = new RecordBatch(schema, 2);
+        batch.add(records.get(0));
+        batch.add(records.get(1));
+
+        writer.beginRecordSet();
+        WriteResult result = writer.writeBatch(batch);
+        assertEquals(2, result.getRecordCount());
+        assertEquals("1", result.getAttributes().get("last.id"));
+
+        result = writer.write(records.get(2));
+        assertEquals(3, result.getRecordCount());
+        assertEquals(3, writer.finishRecordSet().getRecordCount());
+        assertEquals(records, written);
+
+    }
+
+    @Test
+    public void testRecordCountAfterWriteBatchFails() throws Exception {
+        final List<Record> written = new ArrayList<>();
+        final AbstractRecordSetWriter writer = new AbstractRecordSetWriter(new ByteArrayOutputStream()) {
+            @Override
+            protected Map<String, String> writeRecord(final Record record) throws IOException {
+                if (written.size() == 2) {
+                    throw new IOException("Intentional Unit Test Exception");
+                }
+
+                written.add(record);
+                return Collections.emptyMap();
+            }
+
+            @Override
+            public String getMimeType() {
+                return "text/plain";
+            }
+        };
+
+        final RecordBatch batch = new RecordBatch(schema, 4);
+        createRecords(4).forEach(batch::add);
+
+        writer.beginRecordSet();
+        assertThrows(IOException.class, () -> writer.writeBatch(batch));
+        assertEquals(2, writer.finishRecordSet().getRecordCount());
+    }
+
+    @Test
+    public void testWriteRecordSet() throws Exception {
+        final List<Record> written = new ArrayList<>();
+        final List<Record> records = createRecords(RecordBatch.DEFAULT_BATCH_SIZE + 1);
+
+        final WriteResult result = createWriter(written).write(new ListRecordSet(schema, records));
+        assertEquals(records.size(), result.getRecordCount());
+        assertEquals(records, written);
+    }
+
+    private AbstractRecordSetWriter createWriter(final List<Record> written) {
+        return new AbstractRecordSetWriter(new ByteArrayOutputStream()) {
+            @Override
+            protected Map<String, String> writeRecord(final Record record) {
+                written.add(record);
+                return Collections.singletonMap("last.id", String.valueOf(record.getValue("id")));
+            }
+
+            @Override
+            public String getMimeType() {
+                return "text/plain";
+            }
+        };
+    }
+}
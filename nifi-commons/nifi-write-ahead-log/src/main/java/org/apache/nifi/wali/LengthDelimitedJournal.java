@@ -19,6 +19,7 @@ package org.apache.nifi.wali;
 
 import org.apache.nifi.stream.io.ByteCountingInputStream;
 import org.apache.nifi.stream.io.LimitingInputStream;
+import org.apache.nifi.stream.io.StreamUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wali.SerDe;
@@ -27,6 +28,7 @@ import org.wali.UpdateType;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
@@ -42,12 +44,24 @@ import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.DecimalFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
     private static final Logger logger = LoggerFactory.getLogger(LengthDelimitedJournal.class);
@@ -58,6 +72,7 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
     private static final byte TRANSACTION_FOLLOWS = 64;
     private static final byte JOURNAL_COMPLETE = 127;
     private static final int NUL_BYTE = 0;
+    private static final int DECODE_BLOCK_BYTES = 1024 * 1024;
 
     private final File journalFile;
     private final File overflowDirectory;
@@ -78,6 +93,13 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
     private volatile boolean closed = false;
     private final ByteBuffer transactionPreamble = ByteBuffer.allocate(12); // guarded by synchronized block
 
+    // Used to implement "group commit" in fsync(): syncing to disk happens outside of the synchronized block, so that other threads can continue
+    // to write to the journal while one thread waits on the disk. Threads that were waiting on the sync lock will then find that their transactions
+    // were already made durable by the previous sync and need not sync again.
+    private final Lock syncLock = new ReentrantLock();
+    private volatile long syncedTransactionId; // exclusive upper bound of Transaction IDs known to be synced to disk; guarded by syncLock for writes
+    private final AtomicLong syncCount = new AtomicLong(0L);
+
     public LengthDelimitedJournal(final File journalFile, final SerDeFactory<T> serdeFactory, final ObjectPool<ByteArrayDataOutputStream> streamPool, final long initialTransactionId) {
         this(journalFile, serdeFactory, streamPool, initialTransactionId, DEFAULT_MAX_IN_HEAP_SERIALIZATION_BYTES);
     }
@@ -92,6 +114,7 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
 
         this.initialTransactionId = initialTransactionId;
         this.currentTransactionId = initialTransactionId;
+        this.syncedTransactionId = initialTransactionId;
         this.maxInHeapSerializationBytes = maxInHeapSerializationBytes;
     }
 
@@ -214,12 +237,13 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
                 + " of the serializer/deserializer but this version of the code only understands version " + serde.getVersion() + " and below");
         }
 
+        // Retain the SerDe's header so that additional SerDes can be created if recovering concurrently
         final int serdeHeaderLength = in.readInt();
-        final InputStream serdeHeaderIn = new LimitingInputStream(in, serdeHeaderLength);
-        final DataInputStream dis = new DataInputStream(serdeHeaderIn);
-        serde.readHeader(dis);
+        final byte[] serdeHeader = new byte[serdeHeaderLength];
+        in.readFully(serdeHeader);
+        serde.readHeader(new DataInputStream(new ByteArrayInputStream(serdeHeader)));
 
-        return new SerDeAndVersion(serde, serdeVersion);
+        return new SerDeAndVersion(serde, serdeVersion, serdeClassName, serdeHeader);
     }
 
 
@@ -375,19 +399,74 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
         }
     }
 
+    /**
+     * Ensures that all transactions that have been written to the journal before this method was called are synced to disk.
+     * If multiple threads call this method concurrently, a single sync to disk will often cover the transactions of all of them.
+     */
     @Override
-    public synchronized void fsync() throws IOException {
-        checkState();
+    public void fsync() throws IOException {
+        final long targetTransactionId;
+        synchronized (this) {
+            checkState();
+            targetTransactionId = currentTransactionId;
+        }
+
+        if (syncedTransactionId >= targetTransactionId) {
+            return;
+        }
 
+        syncLock.lock();
         try {
-            if (fileOut != null) {
-                fileOut.getChannel().force(false);
+            // Another thread may have synced our transaction while we were waiting for the lock
+            if (syncedTransactionId >= targetTransactionId) {
+                return;
             }
-        } catch (final IOException ioe) {
-            poison(ioe);
+
+            // Capture any transactions that have been written since we determined our target, as those will be synced as well.
+            final long syncThroughTransactionId;
+            final FileOutputStream out;
+            synchronized (this) {
+                checkState();
+                syncThroughTransactionId = currentTransactionId;
+                out = fileOut;
+            }
+
+            if (out == null) {
+                return;
+            }
+
+            try {
+                syncToDisk(out);
+            } catch (final IOException ioe) {
+                synchronized (this) {
+                    // If the journal was closed while we were syncing, report that rather than poisoning the journal.
+                    checkState();
+                    poison(ioe);
+                }
+                return;
+            }
+
+            final long transactionsSynced = syncThroughTransactionId - syncedTransactionId;
+            syncedTransactionId = syncThroughTransactionId;
+            syncCount.incrementAndGet();
+            logger.trace("Synced {} transactions to journal {}", transactionsSynced, journalFile);
+        } finally {
+            syncLock.unlock();
         }
     }
 
+    // Visible/overrideable for testing.
+    protected void syncToDisk(final FileOutputStream out) throws IOException {
+        out.getChannel().force(false);
+    }
+
+    /**
+     * @return the number of times that the journal has been synced to disk
+     */
+    public long getSyncCount() {
+        return syncCount.get();
+    }
+
     @Override
     public synchronized void close() throws IOException {
         if (closed) {
@@ -411,12 +490,26 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
 
     @Override
     public JournalRecovery recoverRecords(final Map<Object, T> recordMap, final Set<String> swapLocations) throws IOException {
-        long maxTransactionId = -1L;
-        int updateCount = 0;
+        return recoverRecords(recordMap, swapLocations, null);
+    }
+
+    /**
+     * Recovers the records from this journal, applying each transaction to the given record map and swap locations in the order in which
+     * the transactions were written. If a ForkJoinPool is provided and the journal's SerDe indicates that it is able to deserialize edits without
+     * the current state of the records (see {@link SerDe#isEditDeserializationStateless()}), then transactions are read from the journal on the calling
+     * thread but are deserialized concurrently by the given pool. Otherwise, all transactions are deserialized on the calling thread.
+     *
+     * @param recordMap the map of records to update
+     * @param swapLocations the swap locations to update
+     * @param decodePool the pool to use for deserializing transactions, or <code>null</code> to deserialize on the calling thread
+     * @return a JournalRecovery describing the results of the recovery
+     * @throws IOException if unable to recover the records
+     */
+    public JournalRecovery recoverRecords(final Map<Object, T> recordMap, final Set<String> swapLocations, final ForkJoinPool decodePool) throws IOException {
+        final RecoveryProgress progress = new RecoveryProgress();
 
         boolean eofException = false;
         logger.info("Recovering records from journal {}", journalFile);
-        final double journalLength = journalFile.length();
 
         try (final InputStream fis = new FileInputStream(journalFile);
             final InputStream bufferedIn = new BufferedInputStream(fis);
@@ -429,122 +522,33 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
                 final SerDe<T> serde = serdeAndVersion.getSerDe();
 
                 // Ensure that we get a valid transaction indicator
-                int transactionIndicator = in.read();
-                if (transactionIndicator != TRANSACTION_FOLLOWS && transactionIndicator != JOURNAL_COMPLETE && transactionIndicator != -1) {
-                    throw new IOException("After reading " + byteCountingIn.getBytesConsumed() + " bytes from " + journalFile + ", encountered unexpected value of "
-                        + transactionIndicator + " for the Transaction Indicator. This journal may have been corrupted.");
-                }
-
-                long consumedAtLog = 0L;
-
-                // We don't want to apply the updates in a transaction until we've finished recovering the entire
-                // transaction. Otherwise, we could apply say 8 out of 10 updates and then hit an EOF. In such a case,
-                // we want to rollback the entire transaction. We handle this by not updating recordMap or swapLocations
-                // variables directly but instead keeping track of the things that occurred and then once we've read the
-                // entire transaction, we can apply those updates to the recordMap and swapLocations.
-                final Map<Object, T> transactionRecordMap = new HashMap<>();
-                final Set<Object> idsRemoved = new HashSet<>();
-                final Set<String> swapLocationsRemoved = new HashSet<>();
-                final Set<String> swapLocationsAdded = new HashSet<>();
-                int transactionUpdates = 0;
-
-                // While we have a transaction to recover, recover it
-                while (transactionIndicator == TRANSACTION_FOLLOWS) {
-                    transactionRecordMap.clear();
-                    idsRemoved.clear();
-                    swapLocationsRemoved.clear();
-                    swapLocationsAdded.clear();
-                    transactionUpdates = 0;
-
-                    // Format is <Transaction ID: 8 bytes> <Transaction Length: 4 bytes> <Transaction data: # of bytes indicated by Transaction Length Field>
-                    final long transactionId = in.readLong();
-                    maxTransactionId = Math.max(maxTransactionId, transactionId);
-                    final int transactionLength = in.readInt();
+                final int transactionIndicator = readTransactionIndicator(in, byteCountingIn);
 
-                    // Use SerDe to deserialize the update. We use a LimitingInputStream to ensure that the SerDe is not able to read past its intended
-                    // length, in case there is a bug in the SerDe. We then use a ByteCountingInputStream so that we can ensure that all of the data has
-                    // been read and throw EOFException otherwise.
-                    final InputStream transactionLimitingIn = new LimitingInputStream(in, transactionLength);
-                    final ByteCountingInputStream transactionByteCountingIn = new ByteCountingInputStream(transactionLimitingIn);
-                    final DataInputStream transactionDis = new DataInputStream(transactionByteCountingIn);
-
-                    while (transactionByteCountingIn.getBytesConsumed() < transactionLength || serde.isMoreInExternalFile()) {
-                        final T record = serde.deserializeEdit(transactionDis, recordMap, serdeAndVersion.getVersion());
-
-                        // Update our RecordMap so that we have the most up-to-date version of the Record.
-                        final Object recordId = serde.getRecordIdentifier(record);
-                        final UpdateType updateType = serde.getUpdateType(record);
-
-                        switch (updateType) {
-                            case DELETE: {
-                                idsRemoved.add(recordId);
-                                transactionRecordMap.remove(recordId);
-                                break;
-                            }
-                            case SWAP_IN: {
-                                final String location = serde.getLocation(record);
-                                if (location == null) {
-                                    logger.error("Recovered SWAP_IN record from edit log, but it did not contain a Location; skipping record");
-                                } else {
-                                    swapLocationsRemoved.add(location);
-                                    swapLocationsAdded.remove(location);
-                                    transactionRecordMap.put(recordId, record);
-                                }
-                                break;
-                            }
-                            case SWAP_OUT: {
-                                final String location = serde.getLocation(record);
-                                if (location == null) {
-                                    logger.error("Recovered SWAP_OUT record from edit log, but it did not contain a Location; skipping record");
-                                } else {
-                                    swapLocationsRemoved.remove(location);
-                                    swapLocationsAdded.add(location);
-                                    idsRemoved.add(recordId);
-                                    transactionRecordMap.remove(recordId);
-                                }
-
-                                break;
-                            }
-                            default: {
-                                transactionRecordMap.put(recordId, record);
-                                idsRemoved.remove(recordId);
-                                break;
-                            }
-                        }
-
-                        transactionUpdates++;
-                    }
-
-                    // Apply the transaction
-                    for (final Object id : idsRemoved) {
-                        recordMap.remove(id);
-                    }
-                    recordMap.putAll(transactionRecordMap);
-                    swapLocations.removeAll(swapLocationsRemoved);
-                    swapLocations.addAll(swapLocationsAdded);
-                    updateCount += transactionUpdates;
-
-                    // Check if there is another transaction to read
-                    transactionIndicator = in.read();
-                    if (transactionIndicator != TRANSACTION_FOLLOWS && transactionIndicator != JOURNAL_COMPLETE && transactionIndicator != -1) {
-                        throw new IOException("After reading " + byteCountingIn.getBytesConsumed() + " bytes from " + journalFile + ", encountered unexpected value of "
-                            + transactionIndicator + " for the Transaction Indicator. This journal may have been corrupted.");
-                    }
-
-                    // If we have a very large journal (for instance, if checkpoint is not called for a long time, or if there is a problem rolling over
-                    // the journal), then we want to occasionally notify the user that we are, in fact, making progress, so that it doesn't appear that
-                    // NiFi has become "stuck".
-                    final long consumed = byteCountingIn.getBytesConsumed();
-                    if (consumed - consumedAtLog > 50_000_000) {
-                        final double percentage = consumed / journalLength * 100D;
-                        final String pct = new DecimalFormat("#.00").format(percentage);
-                        logger.info("{}% of the way finished recovering journal {}, having recovered {} updates", pct, journalFile, updateCount);
-                        consumedAtLog = consumed;
-                    }
+                if (decodePool != null && serde.isEditDeserializationStateless()) {
+                    recoverConcurrently(in, byteCountingIn, serdeAndVersion, transactionIndicator, recordMap, swapLocations, decodePool, progress);
+                } else {
+                    recoverSequentially(in, byteCountingIn, serdeAndVersion, transactionIndicator, recordMap, swapLocations, progress);
                 }
             } catch (final EOFException eof) {
                 eofException = true;
                 logger.warn("Encountered unexpected End-of-File when reading journal file {}; assuming that NiFi was shutdown unexpectedly and continuing recovery", journalFile);
+            } catch (final TransactionDecodeException tde) {
+                // A transaction that was deserialized concurrently failed. As below, if the rest of the journal consists solely of NUL bytes,
+                // then we treat this the same as an EOF. Otherwise, we re-throw the Exception.
+                if (tde.isFollowedOnlyByNulBytes()) {
+                    logger.warn("Failed to recover some of the data from Write-Ahead Log Journal because encountered trailing NUL bytes. "
+                        + "This will sometimes happen after a sudden power loss. The rest of this journal file will be skipped for recovery purposes."
+                        + "The following Exception was encountered while recovering the updates to the journal:", tde.getCause());
+                } else {
+                    final Throwable cause = tde.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw tde;
+                }
             } catch (final Exception e) {
                 // If the stream consists solely of NUL bytes, then we want to treat it
                 // the same as an EOF because we see this happen when we suddenly lose power
@@ -560,8 +564,275 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
             }
         }
 
-        logger.info("Successfully recovered {} updates from journal {}", updateCount, journalFile);
-        return new StandardJournalRecovery(updateCount, maxTransactionId, eofException);
+        logger.info("Successfully recovered {} updates from journal {}", progress.updateCount, journalFile);
+        return new StandardJournalRecovery(progress.updateCount, progress.maxTransactionId, eofException);
+    }
+
+    private int readTransactionIndicator(final DataInputStream in, final ByteCountingInputStream byteCountingIn) throws IOException {
+        final int transactionIndicator = in.read();
+        if (transactionIndicator != TRANSACTION_FOLLOWS && transactionIndicator != JOURNAL_COMPLETE && transactionIndicator != -1) {
+            throw new IOException("After reading " + byteCountingIn.getBytesConsumed() + " bytes from " + journalFile + ", encountered unexpected value of "
+                + transactionIndicator + " for the Transaction Indicator. This journal may have been corrupted.");
+        }
+
+        return transactionIndicator;
+    }
+
+    private void recoverSequentially(final DataInputStream in, final ByteCountingInputStream byteCountingIn, final SerDeAndVersion serdeAndVersion, final int firstTransactionIndicator,
+                                     final Map<Object, T> recordMap, final Set<String> swapLocations, final RecoveryProgress progress) throws IOException {
+        final SerDe<T> serde = serdeAndVersion.getSerDe();
+        final double journalLength = journalFile.length();
+        long consumedAtLog = 0L;
+
+        // We don't want to apply the updates in a transaction until we've finished recovering the entire
+        // transaction. Otherwise, we could apply say 8 out of 10 updates and then hit an EOF. In such a case,
+        // we want to rollback the entire transaction. We handle this by first deserializing all of the records
+        // in the transaction and only then applying those updates to the recordMap and swapLocations.
+        final List<T> transactionRecords = new ArrayList<>();
+
+        // While we have a transaction to recover, recover it
+        int transactionIndicator = firstTransactionIndicator;
+        while (transactionIndicator == TRANSACTION_FOLLOWS) {
+            transactionRecords.clear();
+
+            // Format is <Transaction ID: 8 bytes> <Transaction Length: 4 bytes> <Transaction data: # of bytes indicated by Transaction Length Field>
+            final long transactionId = in.readLong();
+            progress.maxTransactionId = Math.max(progress.maxTransactionId, transactionId);
+            final int transactionLength = in.readInt();
+
+            // Use SerDe to deserialize the update. We use a LimitingInputStream to ensure that the SerDe is not able to read past its intended
+            // length, in case there is a bug in the SerDe. We then use a ByteCountingInputStream so that we can ensure that all of the data has
+            // been read and throw EOFException otherwise.
+            final InputStream transactionLimitingIn = new LimitingInputStream(in, transactionLength);
+            final ByteCountingInputStream transactionByteCountingIn = new ByteCountingInputStream(transactionLimitingIn);
+            final DataInputStream transactionDis = new DataInputStream(transactionByteCountingIn);
+
+            while (transactionByteCountingIn.getBytesConsumed() < transactionLength || serde.isMoreInExternalFile()) {
+                transactionRecords.add(serde.deserializeEdit(transactionDis, recordMap, serdeAndVersion.getVersion()));
+            }
+
+            progress.updateCount += applyTransaction(transactionRecords, serde, recordMap, swapLocations);
+
+            // Check if there is another transaction to read
+            transactionIndicator = readTransactionIndicator(in, byteCountingIn);
+
+            // If we have a very large journal (for instance, if checkpoint is not called for a long time, or if there is a problem rolling over
+            // the journal), then we want to occasionally notify the user that we are, in fact, making progress, so that it doesn't appear that
+            // NiFi has become "stuck".
+            final long consumed = byteCountingIn.getBytesConsumed();
+            if (consumed - consumedAtLog > 50_000_000) {
+                logProgress(consumed, journalLength, progress.updateCount);
+                consumedAtLog = consumed;
+            }
+        }
+    }
+
+    private void recoverConcurrently(final DataInputStream in, final ByteCountingInputStream byteCountingIn, final SerDeAndVersion serdeAndVersion, final int firstTransactionIndicator,
+                                     final Map<Object, T> recordMap, final Set<String> swapLocations, final ForkJoinPool decodePool, final RecoveryProgress progress) throws IOException {
+        final SerDe<T> serde = serdeAndVersion.getSerDe();
+        final double journalLength = journalFile.length();
+        final int maxBlocksInFlight = Math.max(2, decodePool.getParallelism() * 2);
+        final Deque<ForkJoinTask<List<DecodedTransaction>>> blocksInFlight = new ArrayDeque<>();
+        long consumedAtLog = 0L;
+
+        // Read each transaction's bytes on this thread, grouping them into blocks that are deserialized by the pool. Blocks are then
+        // applied in the order in which they were read. We bound the number of blocks that may be in flight so that we do not hold
+        // too much of the journal in memory at once.
+        Exception readFailure = null;
+        int transactionIndicator = firstTransactionIndicator;
+        while (true) {
+            final List<RawTransaction> block = new ArrayList<>();
+            long blockBytes = 0L;
+
+            try {
+                while (transactionIndicator == TRANSACTION_FOLLOWS && blockBytes < DECODE_BLOCK_BYTES) {
+                    // Format is <Transaction ID: 8 bytes> <Transaction Length: 4 bytes> <Transaction data: # of bytes indicated by Transaction Length Field>
+                    final long transactionId = in.readLong();
+                    final int transactionLength = in.readInt();
+                    final byte[] transactionBytes = new byte[transactionLength];
+                    in.readFully(transactionBytes);
+
+                    block.add(new RawTransaction(transactionId, transactionBytes, byteCountingIn.getBytesConsumed()));
+                    blockBytes += transactionLength;
+
+                    transactionIndicator = readTransactionIndicator(in, byteCountingIn);
+
+                    final long consumed = byteCountingIn.getBytesConsumed();
+                    if (consumed - consumedAtLog > 50_000_000) {
+                        logProgress(consumed, journalLength, progress.updateCount);
+                        consumedAtLog = consumed;
+                    }
+                }
+            } catch (final Exception e) {
+                // All transactions that were read fully before the failure must still be applied before we report the failure.
+                readFailure = e;
+            }
+
+            if (!block.isEmpty()) {
+                blocksInFlight.add(decodePool.submit(createDecodeTask(block, serdeAndVersion)));
+            }
+
+            // Apply blocks until there is room for another block or, if there is nothing more to read, until all blocks have been applied.
+            final boolean moreToRead = readFailure == null && transactionIndicator == TRANSACTION_FOLLOWS;
+            try {
+                while (!blocksInFlight.isEmpty() && (!moreToRead || blocksInFlight.size() >= maxBlocksInFlight)) {
+                    applyBlock(blocksInFlight.poll(), serde, recordMap, swapLocations, progress);
+                }
+            } catch (final IOException | RuntimeException e) {
+                // Any failure to apply a transaction means that none of the subsequent transactions may be applied.
+                cancelAll(blocksInFlight);
+                throw e;
+            }
+
+            if (!moreToRead) {
+                break;
+            }
+        }
+
+        if (readFailure instanceof IOException) {
+            throw (IOException) readFailure;
+        }
+        if (readFailure instanceof RuntimeException) {
+            throw (RuntimeException) readFailure;
+        }
+    }
+
+    private void cancelAll(final Collection<ForkJoinTask<List<DecodedTransaction>>> tasks) {
+        for (final ForkJoinTask<List<DecodedTransaction>> task : tasks) {
+            task.cancel(true);
+        }
+        tasks.clear();
+    }
+
+    private Callable<List<DecodedTransaction>> createDecodeTask(final List<RawTransaction> block, final SerDeAndVersion serdeAndVersion) {
+        return () -> {
+            // Each block uses its own SerDe, since SerDes are not thread-safe.
+            final SerDe<T> serde = serdeAndVersion.createSerDe();
+            final List<DecodedTransaction> decoded = new ArrayList<>(block.size());
+
+            for (final RawTransaction transaction : block) {
+                final ByteArrayInputStream bais = new ByteArrayInputStream(transaction.getBytes());
+                final ByteCountingInputStream countingIn = new ByteCountingInputStream(bais);
+                final DataInputStream dis = new DataInputStream(countingIn);
+                final List<T> records = new ArrayList<>();
+
+                try {
+                    while (countingIn.getBytesConsumed() < transaction.getBytes().length || serde.isMoreInExternalFile()) {
+                        records.add(serde.deserializeEdit(dis, Collections.emptyMap(), serdeAndVersion.getVersion()));
+                    }
+                } catch (final Exception e) {
+                    // No subsequent transaction will be applied, so there is no need to decode any more of the block.
+                    decoded.add(new DecodedTransaction(transaction, null, e, remainingBytesAllNul(bais)));
+                    break;
+                }
+
+                decoded.add(new DecodedTransaction(transaction, records, null, false));
+            }
+
+            return decoded;
+        };
+    }
+
+    private void applyBlock(final ForkJoinTask<List<DecodedTransaction>> blockTask, final SerDe<T> serde, final Map<Object, T> recordMap,
+                            final Set<String> swapLocations, final RecoveryProgress progress) throws IOException {
+        final List<DecodedTransaction> block;
+        try {
+            block = blockTask.get();
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while recovering journal " + journalFile, ie);
+        } catch (final ExecutionException ee) {
+            throw new IOException("Failed to deserialize transactions from journal " + journalFile, ee.getCause());
+        }
+
+        for (final DecodedTransaction transaction : block) {
+            progress.maxTransactionId = Math.max(progress.maxTransactionId, transaction.getTransactionId());
+
+            final Exception failure = transaction.getFailure();
+            if (failure != null) {
+                if (failure instanceof EOFException) {
+                    throw (EOFException) failure;
+                }
+
+                final boolean followedOnlyByNulBytes = transaction.isRemainderNul() && remainingBytesAllNul(transaction.getEndOffset());
+                throw new TransactionDecodeException(failure, followedOnlyByNulBytes);
+            }
+
+            progress.updateCount += applyTransaction(transaction.getRecords(), serde, recordMap, swapLocations);
+        }
+    }
+
+    private int applyTransaction(final List<T> transactionRecords, final SerDe<T> serde, final Map<Object, T> recordMap, final Set<String> swapLocations) {
+        final Map<Object, T> transactionRecordMap = new HashMap<>();
+        final Set<Object> idsRemoved = new HashSet<>();
+        final Set<String> swapLocationsRemoved = new HashSet<>();
+        final Set<String> swapLocationsAdded = new HashSet<>();
+
+        for (final T record : transactionRecords) {
+            // Update our RecordMap so that we have the most up-to-date version of the Record.
+            final Object recordId = serde.getRecordIdentifier(record);
+            final UpdateType updateType = serde.getUpdateType(record);
+
+            switch (updateType) {
+                case DELETE: {
+                    idsRemoved.add(recordId);
+                    transactionRecordMap.remove(recordId);
+                    break;
+                }
+                case SWAP_IN: {
+                    final String location = serde.getLocation(record);
+                    if (location == null) {
+                        logger.error("Recovered SWAP_IN record from edit log, but it did not contain a Location; skipping record");
+                    } else {
+                        swapLocationsRemoved.add(location);
+                        swapLocationsAdded.remove(location);
+                        transactionRecordMap.put(recordId, record);
+                    }
+                    break;
+                }
+                case SWAP_OUT: {
+                    final String location = serde.getLocation(record);
+                    if (location == null) {
+                        logger.error("Recovered SWAP_OUT record from edit log, but it did not contain a Location; skipping record");
+                    } else {
+                        swapLocationsRemoved.remove(location);
+                        swapLocationsAdded.add(location);
+                        idsRemoved.add(recordId);
+                        transactionRecordMap.remove(recordId);
+                    }
+
+                    break;
+                }
+                default: {
+                    transactionRecordMap.put(recordId, record);
+                    idsRemoved.remove(recordId);
+                    break;
+                }
+            }
+        }
+
+        // Apply the transaction
+        for (final Object id : idsRemoved) {
+            recordMap.remove(id);
+        }
+        recordMap.putAll(transactionRecordMap);
+        swapLocations.removeAll(swapLocationsRemoved);
+        swapLocations.addAll(swapLocationsAdded);
+        return transactionRecords.size();
+    }
+
+    private void logProgress(final long consumed, final double journalLength, final int updateCount) {
+        final double percentage = consumed / journalLength * 100D;
+        final String pct = new DecimalFormat("#.00").format(percentage);
+        logger.info("{}% of the way finished recovering journal {}, having recovered {} updates", pct, journalFile, updateCount);
+    }
+
+    private boolean remainingBytesAllNul(final long offset) throws IOException {
+        try (final InputStream fis = new FileInputStream(journalFile);
+             final InputStream in = new BufferedInputStream(fis)) {
+            StreamUtils.skip(in, offset);
+            return remainingBytesAllNul(in);
+        }
     }
 
     /**
@@ -598,10 +869,14 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
     private class SerDeAndVersion {
         private final SerDe<T> serde;
         private final int version;
+        private final String serdeClassName;
+        private final byte[] serdeHeader;
 
-        public SerDeAndVersion(final SerDe<T> serde, final int version) {
+        public SerDeAndVersion(final SerDe<T> serde, final int version, final String serdeClassName, final byte[] serdeHeader) {
             this.serde = serde;
             this.version = version;
+            this.serdeClassName = serdeClassName;
+            this.serdeHeader = serdeHeader;
         }
 
         public SerDe<T> getSerDe() {
@@ -611,5 +886,83 @@ public class LengthDelimitedJournal<T> implements WriteAheadJournal<T> {
         public int getVersion() {
             return version;
         }
+
+        /**
+         * @return a new SerDe that is equivalent to the one returned by {@link #getSerDe()}, having read the same header
+         */
+        public SerDe<T> createSerDe() throws IOException {
+            final SerDe<T> newSerDe = serdeFactory.createSerDe(serdeClassName);
+            newSerDe.readHeader(new DataInputStream(new ByteArrayInputStream(serdeHeader)));
+            return newSerDe;
+        }
+    }
+
+    private static class RecoveryProgress {
+        private long maxTransactionId = -1L;
+        private int updateCount = 0;
+    }
+
+    private static class RawTransaction {
+        private final long transactionId;
+        private final byte[] bytes;
+        private final long endOffset;
+
+        RawTransaction(final long transactionId, final byte[] bytes, final long endOffset) {
+            this.transactionId = transactionId;
+            this.bytes = bytes;
+            this.endOffset = endOffset;
+        }
+
+        byte[] getBytes() {
+            return bytes;
+        }
+    }
+
+    private class DecodedTransaction {
+        private final RawTransaction transaction;
+        private final List<T> records;
+        private final Exception failure;
+        private final boolean remainderNul;
+
+        DecodedTransaction(final RawTransaction transaction, final List<T> records, final Exception failure, final boolean remainderNul) {
+            this.transaction = transaction;
+            this.records = records;
+            this.failure = failure;
+            this.remainderNul = remainderNul;
+        }
+
+        long getTransactionId() {
+            return transaction.transactionId;
+        }
+
+        long getEndOffset() {
+            return transaction.endOffset;
+        }
+
+        List<T> getRecords() {
+            return records;
+        }
+
+        Exception getFailure() {
+            return failure;
+        }
+
+        // whether or not the bytes of the transaction that were not consumed when the failure occurred are all NUL bytes
+        boolean isRemainderNul() {
+            return remainderNul;
+        }
+    }
+
+    private static class TransactionDecodeException extends IOException {
+        private final boolean followedOnlyByNulBytes;
+
+        TransactionDecodeException(final Exception cause, final boolean followedOnlyByNulBytes) {
+            super(cause);
+            this.followedOnlyByNulBytes = followedOnlyByNulBytes;
+        }
+
+        boolean isFollowedOnlyByNulBytes() {
+            return followedOnlyByNulBytes;
+        }
     }
 }
@@ -0,0 +1,925 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wali.SerDe;
+import org.wali.SerDeFactory;
+import org.wali.UpdateType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.SecureRandom;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * A {@link WriteAheadSnapshot} that keeps all 'active' records in hash tables keyed by primitive <code>long</code> Record Identifiers, rather than
+ * in a {@link java.util.concurrent.ConcurrentHashMap} of boxed keys as {@link HashMapSnapshot} does. The records are spread across a fixed number of
+ * independently locked segments so that concurrent updates rarely contend with one another. This implementation therefore requires that the
+ * {@link SerDeFactory} return a {@link Number} as the identifier of each record, as is the case for FlowFile records.
+ * </p>
+ *
+ * <p>
+ * Rather than rewriting every record at each checkpoint, this implementation keeps track of which records have changed since the last snapshot
+ * was written and writes only those records (along with the identifiers of any records that were removed) to a 'delta' file. Recovery reads the
+ * most recent full snapshot and then applies each delta file in order. Once the number of changes written to delta files becomes large relative
+ * to the number of records, or too many delta files have been written, the next checkpoint writes a full snapshot and removes the delta files.
+ * </p>
+ *
+ * <p>
+ * Each full snapshot is assigned a random identifier, and each delta file records the identifier of the full snapshot that it applies to. This
+ * allows recovery to ignore any delta file that was left behind if NiFi were to stop after writing a new full snapshot but before the old delta
+ * files were deleted. The full snapshot is written using the same layout as {@link HashMapSnapshot}, and a snapshot that was written by
+ * {@link HashMapSnapshot} can be recovered by this implementation, but not the other way around.
+ * </p>
+ */
+public class LongKeyedDeltaSnapshot<T> implements WriteAheadSnapshot<T>, RecordLookup<T> {
+    private static final Logger logger = LoggerFactory.getLogger(LongKeyedDeltaSnapshot.class);
+    private static final int ENCODING_VERSION = 1;
+
+    private static final int SEGMENT_BITS = 6;
+    private static final int SEGMENT_COUNT = 1 << SEGMENT_BITS;
+
+    private static final String DELTA_FILENAME_PREFIX = "checkpoint.delta.";
+    private static final Pattern DELTA_FILENAME_PATTERN = Pattern.compile("checkpoint\\.delta\\.(\\d+)");
+    private static final int RECORD_REMOVED = 0;
+    private static final int RECORD_UPDATED = 1;
+
+    public static final int DEFAULT_MAX_DELTA_FILES = 32;
+    public static final double DEFAULT_COMPACTION_RATIO = 1.0D;
+
+    private final Segment<T>[] segments;
+    private final SerDeFactory<T> serdeFactory;
+    private final Set<String> swapLocations = Collections.synchronizedSet(new HashSet<>());
+    private final File storageDirectory;
+    private final int maxDeltaFiles;
+    private final double compactionRatio;
+    private final SecureRandom random = new SecureRandom();
+    private final Map<Object, T> recordMapView = new RecordMapView();
+
+    // guarded by synchronizing on 'this'
+    private boolean baseSnapshotExists = false;
+    private long baseSnapshotId = 0L;
+    private long nextDeltaSequence = 1L;
+    private int deltaFileCount = 0;
+    private long changesSinceBaseSnapshot = 0L;
+    private long captureGeneration = 0L;
+
+    public LongKeyedDeltaSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory) {
+        this(storageDirectory, serdeFactory, DEFAULT_MAX_DELTA_FILES, DEFAULT_COMPACTION_RATIO);
+    }
+
+    /**
+     * @param storageDirectory the directory to write snapshots to
+     * @param serdeFactory the SerDe Factory used to serialize records
+     * @param maxDeltaFiles the maximum number of delta files that may be written before a full snapshot is written
+     * @param compactionRatio a full snapshot is written once the number of changes that have been written to delta files, divided by the number of
+     *            records, reaches this value
+     */
+    @SuppressWarnings("unchecked")
+    public LongKeyedDeltaSnapshot(final File storageDirectory, final SerDeFactory<T> serdeFactory, final int maxDeltaFiles, final double compactionRatio) {
+        if (maxDeltaFiles < 0) {
+            throw new IllegalArgumentException("Max number of delta files cannot be negative");
+        }
+        if (compactionRatio <= 0D) {
+            throw new IllegalArgumentException("Compaction ratio must be positive");
+        }
+
+        this.storageDirectory = storageDirectory;
+        this.serdeFactory = serdeFactory;
+        this.maxDeltaFiles = maxDeltaFiles;
+        this.compactionRatio = compactionRatio;
+
+        segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    private static long toLong(final Object recordId) {
+        if (recordId instanceof Number) {
+            return ((Number) recordId).longValue();
+        }
+
+        throw new IllegalArgumentException(LongKeyedDeltaSnapshot.class.getSimpleName() + " requires that Record Identifiers be numeric but received "
+            + (recordId == null ? "null" : "Record Identifier of type " + recordId.getClass().getName()));
+    }
+
+    private Segment<T> getSegment(final long recordId) {
+        return segments[(int) ((recordId * 0x9E3779B97F4A7C15L) >>> (64 - SEGMENT_BITS))];
+    }
+
+    @Override
+    public void update(final Collection<T> records) {
+        for (final T record : records) {
+            final Object recordIdentifier = serdeFactory.getRecordIdentifier(record);
+            final long recordId = toLong(recordIdentifier);
+            final UpdateType updateType = serdeFactory.getUpdateType(record);
+
+            switch (updateType) {
+                case DELETE:
+                    getSegment(recordId).remove(recordId);
+                    break;
+                case SWAP_OUT:
+                    final String location = serdeFactory.getLocation(record);
+                    if (location == null) {
+                        logger.error("Received Record (ID=" + recordIdentifier + ") with UpdateType of SWAP_OUT but "
+                            + "no indicator of where the Record is to be Swapped Out to; these records may be "
+                            + "lost when the repository is restored!");
+                    } else {
+                        getSegment(recordId).remove(recordId);
+                        this.swapLocations.add(location);
+                    }
+                    break;
+                case SWAP_IN:
+                    final String swapLocation = serdeFactory.getLocation(record);
+                    if (swapLocation == null) {
+                        logger.error("Received Record (ID=" + recordIdentifier + ") with UpdateType of SWAP_IN but no "
+                            + "indicator of where the Record is to be Swapped In from; these records may be duplicated "
+                            + "when the repository is restored!");
+                    } else {
+                        swapLocations.remove(swapLocation);
+                    }
+                    getSegment(recordId).put(recordId, record);
+                    break;
+                default:
+                    getSegment(recordId).put(recordId, record);
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public int getRecordCount() {
+        long count = 0L;
+        for (final Segment<T> segment : segments) {
+            count += segment.size();
+        }
+
+        return (int) Math.min(count, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public T lookup(final Object recordId) {
+        if (!(recordId instanceof Number)) {
+            return null;
+        }
+
+        final long id = ((Number) recordId).longValue();
+        return getSegment(id).get(id);
+    }
+
+    @Override
+    public SnapshotCapture<T> prepareSnapshot(final long maxTransactionId) {
+        return prepareSnapshot(maxTransactionId, this.swapLocations);
+    }
+
+    @Override
+    public synchronized SnapshotCapture<T> prepareSnapshot(final long maxTransactionId, final Set<String> swapFileLocations) {
+        final long generation = ++captureGeneration;
+        final Set<String> capturedSwapLocations = new HashSet<>(swapFileLocations);
+
+        long recordCount = 0L;
+        long changeCountEstimate = 0L;
+        for (final Segment<T> segment : segments) {
+            synchronized (segment) {
+                recordCount += segment.records.size();
+                changeCountEstimate += segment.changed.size() + segment.pending.size();
+            }
+        }
+
+        final boolean full = isFullSnapshotRequired(recordCount, changeCountEstimate);
+        if (full) {
+            final List<T> records = new ArrayList<>((int) Math.min(recordCount, Integer.MAX_VALUE - 8));
+            for (final Segment<T> segment : segments) {
+                synchronized (segment) {
+                    segment.markPending();
+                    segment.records.forEach((id, record) -> records.add(record));
+                }
+            }
+
+            return new Capture(generation, baseSnapshotId, maxTransactionId, capturedSwapLocations, records.size(), records, null, null);
+        }
+
+        final ChangeCollector<T> collector = new ChangeCollector<>((int) Math.min(changeCountEstimate, Integer.MAX_VALUE - 8));
+        long capturedRecordCount = 0L;
+        for (final Segment<T> segment : segments) {
+            synchronized (segment) {
+                segment.markPending();
+                segment.pending.forEach((id, ignored) -> collector.add(id, segment.records.get(id)));
+                capturedRecordCount += segment.records.size();
+            }
+        }
+
+        return new Capture(generation, baseSnapshotId, maxTransactionId, capturedSwapLocations, (int) Math.min(capturedRecordCount, Integer.MAX_VALUE),
+            null, collector.getIds(), collector.getRecords());
+    }
+
+    private boolean isFullSnapshotRequired(final long recordCount, final long changeCount) {
+        if (!baseSnapshotExists || deltaFileCount >= maxDeltaFiles) {
+            return true;
+        }
+
+        return changesSinceBaseSnapshot + changeCount >= Math.max(recordCount, 1L) * compactionRatio;
+    }
+
+    @Override
+    public synchronized void writeSnapshot(final SnapshotCapture<T> snapshot) throws IOException {
+        if (!(snapshot instanceof LongKeyedDeltaSnapshot.Capture)) {
+            throw new IllegalArgumentException("Cannot write Snapshot Capture of type " + snapshot.getClass().getName() + " using " + getClass().getSimpleName());
+        }
+
+        @SuppressWarnings("unchecked")
+        final Capture capture = (Capture) snapshot;
+        if (capture.isFull()) {
+            writeFullSnapshot(capture);
+        } else {
+            writeDeltaSnapshot(capture);
+        }
+
+        // If no other snapshot has been prepared since this one, all of the changes that were pending are now persisted. If another snapshot
+        // was prepared in the meantime, it may contain changes that are not in this capture, so we leave them pending; at worst, they will be
+        // written again as part of the next delta.
+        if (capture.getGeneration() == captureGeneration) {
+            for (final Segment<T> segment : segments) {
+                synchronized (segment) {
+                    segment.clearPending();
+                }
+            }
+        }
+    }
+
+    private void writeFullSnapshot(final Capture capture) throws IOException {
+        final SerDe<T> serde = serdeFactory.createSerDe(null);
+
+        final File snapshotFile = getSnapshotFile();
+        final File partialFile = getPartialFile();
+
+        // As in HashMapSnapshot, we write to a 'partial' file, then delete the existing Snapshot file and rename the partial file, so that
+        // there is always a viable Snapshot file. If there is a partial file but no Snapshot file, the previous checkpoint failed after deleting
+        // the Snapshot file, so we must rename the partial file before overwriting it.
+        if (!snapshotFile.exists() && partialFile.exists()) {
+            final boolean rename = partialFile.renameTo(snapshotFile);
+            if (!rename) {
+                throw new IOException("Failed to rename partial snapshot file " + partialFile + " to " + snapshotFile);
+            }
+        }
+
+        long snapshotId;
+        do {
+            snapshotId = random.nextLong();
+        } while (snapshotId == 0L || snapshotId == baseSnapshotId);
+
+        try (final FileOutputStream fileOut = new FileOutputStream(partialFile);
+            final OutputStream bufferedOut = new BufferedOutputStream(fileOut);
+            final DataOutputStream dataOut = new DataOutputStream(bufferedOut)) {
+
+            dataOut.writeUTF(LongKeyedDeltaSnapshot.class.getName());
+            dataOut.writeInt(ENCODING_VERSION);
+            dataOut.writeLong(snapshotId);
+            dataOut.writeUTF(serde.getClass().getName());
+            dataOut.writeInt(serde.getVersion());
+            dataOut.writeLong(capture.getMaxTransactionId());
+            dataOut.writeInt(capture.getRecordList().size());
+            serde.writeHeader(dataOut);
+
+            for (final T record : capture.getRecordList()) {
+                logger.trace("Checkpointing {}", record);
+                serde.serializeRecord(record, dataOut);
+            }
+
+            writeSwapLocations(capture.getSwapLocations(), dataOut);
+
+            dataOut.flush();
+            fileOut.getChannel().force(false);
+        }
+
+        if (snapshotFile.exists() && !snapshotFile.delete()) {
+            logger.warn("Unable to delete existing Snapshot file " + snapshotFile);
+        }
+
+        final boolean rename = partialFile.renameTo(snapshotFile);
+        if (!rename) {
+            throw new IOException("Failed to rename partial snapshot file " + partialFile + " to " + snapshotFile);
+        }
+
+        baseSnapshotExists = true;
+        baseSnapshotId = snapshotId;
+        deltaFileCount = 0;
+        changesSinceBaseSnapshot = 0L;
+        nextDeltaSequence = 1L;
+
+        // The delta files refer to the previous full snapshot, so they are no longer needed. If we fail to delete any of them, recovery will
+        // ignore them because their snapshot identifier will not match.
+        for (final File deltaFile : getDeltaFiles().values()) {
+            if (!deltaFile.delete()) {
+                logger.warn("Unable to delete obsolete Snapshot Delta file {}", deltaFile);
+            }
+        }
+
+        logger.debug("Wrote full Snapshot with {} records to {}", capture.getRecordList().size(), snapshotFile);
+    }
+
+    private void writeDeltaSnapshot(final Capture capture) throws IOException {
+        if (!baseSnapshotExists || capture.getBaseSnapshotId() != baseSnapshotId) {
+            throw new IOException("Cannot write Snapshot Delta to " + storageDirectory + " because the full Snapshot that the delta was prepared against is no longer current");
+        }
+
+        final SerDe<T> serde = serdeFactory.createSerDe(null);
+        final File partialFile = getPartialDeltaFile();
+        final long[] changedIds = capture.getChangedIds();
+        final List<T> changedRecords = capture.getChangedRecords();
+
+        try (final FileOutputStream fileOut = new FileOutputStream(partialFile);
+            final OutputStream bufferedOut = new BufferedOutputStream(fileOut);
+            final DataOutputStream dataOut = new DataOutputStream(bufferedOut)) {
+
+            dataOut.writeUTF(LongKeyedDeltaSnapshot.class.getName());
+            dataOut.writeInt(ENCODING_VERSION);
+            dataOut.writeLong(baseSnapshotId);
+            dataOut.writeUTF(serde.getClass().getName());
+            dataOut.writeInt(serde.getVersion());
+            dataOut.writeLong(capture.getMaxTransactionId());
+            dataOut.writeInt(changedIds.length);
+            serde.writeHeader(dataOut);
+
+            for (int i = 0; i < changedIds.length; i++) {
+                final T record = changedRecords.get(i);
+                if (record == null) {
+                    dataOut.write(RECORD_REMOVED);
+                    dataOut.writeLong(changedIds[i]);
+                } else {
+                    dataOut.write(RECORD_UPDATED);
+                    dataOut.writeLong(changedIds[i]);
+                    serde.serializeRecord(record, dataOut);
+                }
+            }
+
+            writeSwapLocations(capture.getSwapLocations(), dataOut);
+
+            dataOut.flush();
+            fileOut.getChannel().force(false);
+        }
+
+        final File deltaFile = new File(storageDirectory, DELTA_FILENAME_PREFIX + nextDeltaSequence);
+        final boolean rename = partialFile.renameTo(deltaFile);
+        if (!rename) {
+            throw new IOException("Failed to rename partial snapshot delta file " + partialFile + " to " + deltaFile);
+        }
+
+        nextDeltaSequence++;
+        deltaFileCount++;
+        changesSinceBaseSnapshot += changedIds.length;
+
+        logger.debug("Wrote Snapshot Delta with {} changes to {}", changedIds.length, deltaFile);
+    }
+
+    private void writeSwapLocations(final Set<String> swapLocations, final DataOutputStream dataOut) throws IOException {
+        dataOut.writeInt(swapLocations.size());
+        for (final String swapLocation : swapLocations) {
+            dataOut.writeUTF(swapLocation);
+        }
+    }
+
+    @Override
+    public synchronized SnapshotRecovery<T> recover() throws IOException {
+        final File partialFile = getPartialFile();
+        final File snapshotFile = getSnapshotFile();
+        final boolean partialExists = partialFile.exists();
+        final boolean snapshotExists = snapshotFile.exists();
+
+        final File partialDeltaFile = getPartialDeltaFile();
+        if (partialDeltaFile.exists()) {
+            // We failed while writing a delta. The journals that it would have replaced were not deleted, so it is safe to discard it.
+            Files.delete(partialDeltaFile.toPath());
+        }
+
+        final Map<Long, File> deltaFiles = getDeltaFiles();
+
+        if (!partialExists && !snapshotExists) {
+            if (!deltaFiles.isEmpty()) {
+                throw new IOException("Found " + deltaFiles.size() + " Snapshot Delta files in " + storageDirectory + " but no Snapshot file to apply them to; cannot restore");
+            }
+
+            return new StandardSnapshotRecovery<>(recordMapView, new HashSet<>(), null, -1L);
+        }
+
+        if (partialExists && snapshotExists) {
+            // both files exist -- assume NiFi crashed/died while checkpointing. Delete the partial file.
+            Files.delete(partialFile.toPath());
+        } else if (partialExists) {
+            // partial exists but snapshot does not -- we must have completed creating the partial, deleted the snapshot
+            // but crashed before renaming the partial to the snapshot. Just rename partial to snapshot
+            Files.move(partialFile.toPath(), snapshotFile.toPath());
+        }
+
+        if (snapshotFile.length() == 0) {
+            logger.warn("{} Found 0-byte Snapshot file; skipping Snapshot file and {} Snapshot Delta files in recovery", this, deltaFiles.size());
+            return new StandardSnapshotRecovery<>(recordMapView, new HashSet<>(), null, -1L);
+        }
+
+        final Set<String> recoveredSwapLocations = new HashSet<>();
+        final long snapshotId;
+        long maxTransactionId;
+        try (final DataInputStream dataIn = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile)))) {
+            final SnapshotHeader header = readHeader(dataIn, snapshotFile, true);
+            snapshotId = header.getSnapshotId();
+            maxTransactionId = header.getMaxTransactionId();
+
+            final SerDe<T> serde = header.getSerDe();
+            final int serdeVersion = header.getSerDeVersion();
+            final int numRecords = header.getNumRecords();
+            for (int i = 0; i < numRecords; i++) {
+                final T record = serde.deserializeRecord(dataIn, serdeVersion);
+                if (record == null) {
+                    throw new EOFException();
+                }
+
+                final UpdateType updateType = serde.getUpdateType(record);
+                if (updateType == UpdateType.DELETE) {
+                    logger.warn("While recovering from snapshot, found record with type 'DELETE'; this record will not be restored");
+                    continue;
+                }
+
+                logger.trace("Recovered from snapshot: {}", record);
+                final long recordId = toLong(serdeFactory.getRecordIdentifier(record));
+                getSegment(recordId).recover(recordId, record);
+            }
+
+            readSwapLocations(dataIn, recoveredSwapLocations);
+        }
+
+        int deltasApplied = 0;
+        long changesApplied = 0L;
+        long lastSequence = 0L;
+        for (final Map.Entry<Long, File> entry : deltaFiles.entrySet()) {
+            final File deltaFile = entry.getValue();
+            lastSequence = entry.getKey();
+
+            try (final DataInputStream dataIn = new DataInputStream(new BufferedInputStream(new FileInputStream(deltaFile)))) {
+                final SnapshotHeader header = readHeader(dataIn, deltaFile, false);
+                if (header.getSnapshotId() != snapshotId) {
+                    logger.info("Snapshot Delta file {} does not apply to the current Snapshot; it was most likely left behind when the last full Snapshot was written. Deleting it.", deltaFile);
+                    Files.delete(deltaFile.toPath());
+                    continue;
+                }
+
+                if (header.getMaxTransactionId() < maxTransactionId) {
+                    throw new IOException("Snapshot Delta file " + deltaFile + " has a Max Transaction ID of " + header.getMaxTransactionId()
+                        + ", which is less than the Max Transaction ID of " + maxTransactionId + " of the Snapshot that precedes it");
+                }
+
+                final SerDe<T> serde = header.getSerDe();
+                final int serdeVersion = header.getSerDeVersion();
+                final int numChanges = header.getNumRecords();
+                for (int i = 0; i < numChanges; i++) {
+                    final int changeType = dataIn.read();
+                    final long recordId = dataIn.readLong();
+                    if (changeType == RECORD_REMOVED) {
+                        getSegment(recordId).recover(recordId, null);
+                    } else if (changeType == RECORD_UPDATED) {
+                        final T record = serde.deserializeRecord(dataIn, serdeVersion);
+                        if (record == null) {
+                            throw new EOFException();
+                        }
+                        getSegment(recordId).recover(recordId, record);
+                    } else {
+                        throw new IOException("Encountered unexpected change type of " + changeType + " in Snapshot Delta file " + deltaFile);
+                    }
+                }
+
+                // Each delta contains the full set of swap locations as of the time that it was written
+                recoveredSwapLocations.clear();
+                readSwapLocations(dataIn, recoveredSwapLocations);
+
+                maxTransactionId = header.getMaxTransactionId();
+                deltasApplied++;
+                changesApplied += numChanges;
+            }
+        }
+
+        baseSnapshotExists = true;
+        baseSnapshotId = snapshotId;
+        deltaFileCount = deltasApplied;
+        changesSinceBaseSnapshot = changesApplied;
+        nextDeltaSequence = lastSequence + 1;
+        this.swapLocations.addAll(recoveredSwapLocations);
+
+        logger.info("{} restored {} Records and {} Swap Files from Snapshot and {} Snapshot Delta files, ending with Transaction ID {}",
+            this, getRecordCount(), recoveredSwapLocations.size(), deltasApplied, maxTransactionId);
+
+        return new StandardSnapshotRecovery<>(recordMapView, recoveredSwapLocations, snapshotFile, maxTransactionId);
+    }
+
+    private void readSwapLocations(final DataInputStream dataIn, final Set<String> swapLocations) throws IOException {
+        final int numSwapRecords = dataIn.readInt();
+        for (int i = 0; i < numSwapRecords; i++) {
+            swapLocations.add(dataIn.readUTF());
+        }
+    }
+
+    private SnapshotHeader readHeader(final DataInputStream dataIn, final File file, final boolean allowHashMapSnapshot) throws IOException {
+        final String snapshotClass = dataIn.readUTF();
+        logger.debug("Snapshot Class Name for {} is {}", file, snapshotClass);
+
+        final boolean hashMapSnapshot = allowHashMapSnapshot && snapshotClass.equals(HashMapSnapshot.class.getName());
+        if (!hashMapSnapshot && !snapshotClass.equals(LongKeyedDeltaSnapshot.class.getName())) {
+            throw new IOException("Write-Ahead Log Snapshot located at " + file + " was written using the "
+                + snapshotClass + " class; cannot restore using " + getClass().getName());
+        }
+
+        final int snapshotVersion = dataIn.readInt();
+        logger.debug("Snapshot version for {} is {}", file, snapshotVersion);
+        if (!hashMapSnapshot && snapshotVersion > ENCODING_VERSION) {
+            throw new IOException("Write-Ahead Log Snapshot located at " + file + " was written using version "
+                + snapshotVersion + " of the " + snapshotClass + " class; cannot restore using Version " + ENCODING_VERSION);
+        }
+
+        // A snapshot written by HashMapSnapshot has no identifier. Any delta written against it will use an identifier of 0.
+        final long snapshotId = hashMapSnapshot ? 0L : dataIn.readLong();
+
+        final String serdeEncoding = dataIn.readUTF();
+        final int serdeVersion = dataIn.readInt();
+        final long maxTransactionId = dataIn.readLong();
+        final int numRecords = dataIn.readInt();
+        logger.debug("Snapshot at {} has Serde version {}, Max Transaction ID {} and {} records", file, serdeVersion, maxTransactionId, numRecords);
+
+        final SerDe<T> serde = serdeFactory.createSerDe(serdeEncoding);
+        serde.readHeader(dataIn);
+
+        return new SnapshotHeader(serde, serdeVersion, snapshotId, maxTransactionId, numRecords);
+    }
+
+    private File getPartialFile() {
+        return new File(storageDirectory, "checkpoint.partial");
+    }
+
+    private File getSnapshotFile() {
+        return new File(storageDirectory, "checkpoint");
+    }
+
+    private File getPartialDeltaFile() {
+        return new File(storageDirectory, DELTA_FILENAME_PREFIX + "partial");
+    }
+
+    private Map<Long, File> getDeltaFiles() {
+        final Map<Long, File> deltaFiles = new TreeMap<>();
+        final File[] files = storageDirectory.listFiles();
+        if (files == null) {
+            return deltaFiles;
+        }
+
+        for (final File file : files) {
+            final Matcher matcher = DELTA_FILENAME_PATTERN.matcher(file.getName());
+            if (file.isFile() && matcher.matches()) {
+                deltaFiles.put(Long.parseLong(matcher.group(1)), file);
+            }
+        }
+
+        return deltaFiles;
+    }
+
+    @Override
+    public String toString() {
+        return "LongKeyedDeltaSnapshot[storageDirectory=" + storageDirectory + "]";
+    }
+
+
+    private static class Segment<T> {
+        private final LongObjectHashMap<T> records = new LongObjectHashMap<>();
+        private LongObjectHashMap<Boolean> changed = new LongObjectHashMap<>(); // IDs changed since the last snapshot was prepared
+        private LongObjectHashMap<Boolean> pending = new LongObjectHashMap<>(); // IDs captured by a prepared snapshot that has not yet been written
+
+        synchronized T get(final long recordId) {
+            return records.get(recordId);
+        }
+
+        synchronized T put(final long recordId, final T record) {
+            changed.put(recordId, Boolean.TRUE);
+            return records.put(recordId, record);
+        }
+
+        synchronized T remove(final long recordId) {
+            final T removed = records.remove(recordId);
+            if (removed != null) {
+                changed.put(recordId, Boolean.TRUE);
+            }
+            return removed;
+        }
+
+        // Applies a change read from a snapshot file, which need not be written again in the next delta.
+        synchronized void recover(final long recordId, final T record) {
+            if (record == null) {
+                records.remove(recordId);
+            } else {
+                records.put(recordId, record);
+            }
+        }
+
+        synchronized int size() {
+            return records.size();
+        }
+
+        // must be called while synchronized on this
+        void markPending() {
+            if (pending.isEmpty()) {
+                final LongObjectHashMap<Boolean> emptied = pending;
+                pending = changed;
+                changed = emptied;
+            } else {
+                changed.forEach((id, value) -> pending.put(id, value));
+                changed = new LongObjectHashMap<>();
+            }
+        }
+
+        // must be called while synchronized on this
+        void clearPending() {
+            pending = new LongObjectHashMap<>();
+        }
+
+        synchronized List<Map.Entry<Object, T>> copyEntries() {
+            final List<Map.Entry<Object, T>> entries = new ArrayList<>(records.size());
+            records.forEach((id, record) -> entries.add(new AbstractMap.SimpleImmutableEntry<>(id, record)));
+            return entries;
+        }
+    }
+
+    private static class ChangeCollector<T> {
+        private long[] ids;
+        private final List<T> records;
+        private int count = 0;
+
+        ChangeCollector(final int expectedSize) {
+            ids = new long[Math.max(expectedSize, 16)];
+            records = new ArrayList<>(ids.length);
+        }
+
+        void add(final long id, final T record) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+            }
+            ids[count++] = id;
+            records.add(record);
+        }
+
+        long[] getIds() {
+            return Arrays.copyOf(ids, count);
+        }
+
+        List<T> getRecords() {
+            return records;
+        }
+    }
+
+    /**
+     * A Map view of the records held by this snapshot. Changes made through the view are reflected in the snapshot and are included
+     * in the next delta. This is handed back from {@link #recover()} so that the records that are recovered from the journals are
+     * applied directly to the snapshot.
+     */
+    private class RecordMapView extends AbstractMap<Object, T> {
+        @Override
+        public T get(final Object key) {
+            return lookup(key);
+        }
+
+        @Override
+        public boolean containsKey(final Object key) {
+            return lookup(key) != null;
+        }
+
+        @Override
+        public T put(final Object key, final T value) {
+            final long recordId = toLong(key);
+            return getSegment(recordId).put(recordId, value);
+        }
+
+        @Override
+        public T remove(final Object key) {
+            if (!(key instanceof Number)) {
+                return null;
+            }
+
+            final long recordId = ((Number) key).longValue();
+            return getSegment(recordId).remove(recordId);
+        }
+
+        @Override
+        public int size() {
+            return getRecordCount();
+        }
+
+        @Override
+        public Set<Map.Entry<Object, T>> entrySet() {
+            return new AbstractSet<Map.Entry<Object, T>>() {
+                @Override
+                public Iterator<Map.Entry<Object, T>> iterator() {
+                    return new SegmentIterator();
+                }
+
+                @Override
+                public int size() {
+                    return getRecordCount();
+                }
+            };
+        }
+    }
+
+    /**
+     * Iterates over the records of each segment in turn, copying the contents of only one segment at a time.
+     */
+    private class SegmentIterator implements Iterator<Map.Entry<Object, T>> {
+        private int segmentIndex = 0;
+        private Iterator<Map.Entry<Object, T>> current = Collections.emptyIterator();
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && segmentIndex < segments.length) {
+                current = segments[segmentIndex++].copyEntries().iterator();
+            }
+
+            return current.hasNext();
+        }
+
+        @Override
+        public Map.Entry<Object, T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            return current.next();
+        }
+    }
+
+    /**
+     * A capture of either the full set of records or only the records that have changed since the previous snapshot was written.
+     * In the latter case, {@link #getRecords()} reflects the current state of the snapshot rather than the state at the time of capture,
+     * since materializing every record at each checkpoint is precisely what a delta snapshot is intended to avoid.
+     */
+    private class Capture implements SnapshotCapture<T> {
+        private final long generation;
+        private final long baseSnapshotId;
+        private final long maxTransactionId;
+        private final Set<String> swapLocations;
+        private final int recordCount;
+        private final List<T> recordList;
+        private final long[] changedIds;
+        private final List<T> changedRecords;
+        private Map<Object, T> records;
+
+        Capture(final long generation, final long baseSnapshotId, final long maxTransactionId, final Set<String> swapLocations, final int recordCount,
+                final List<T> recordList, final long[] changedIds, final List<T> changedRecords) {
+            this.generation = generation;
+            this.baseSnapshotId = baseSnapshotId;
+            this.maxTransactionId = maxTransactionId;
+            this.swapLocations = swapLocations;
+            this.recordCount = recordCount;
+            this.recordList = recordList;
+            this.changedIds = changedIds;
+            this.changedRecords = changedRecords;
+        }
+
+        boolean isFull() {
+            return recordList != null;
+        }
+
+        long getGeneration() {
+            return generation;
+        }
+
+        long getBaseSnapshotId() {
+            return baseSnapshotId;
+        }
+
+        List<T> getRecordList() {
+            return recordList;
+        }
+
+        long[] getChangedIds() {
+            return changedIds;
+        }
+
+        List<T> getChangedRecords() {
+            return changedRecords;
+        }
+
+        @Override
+        public Map<Object, T> getRecords() {
+            return new AbstractMap<Object, T>() {
+                @Override
+                public int size() {
+                    return recordCount;
+                }
+
+                @Override
+                public Set<Map.Entry<Object, T>> entrySet() {
+                    return materialize().entrySet();
+                }
+            };
+        }
+
+        private synchronized Map<Object, T> materialize() {
+            if (records != null) {
+                return records;
+            }
+
+            if (isFull()) {
+                final Map<Object, T> map = new HashMap<>(recordList.size() * 4 / 3 + 1);
+                for (final T record : recordList) {
+                    map.put(serdeFactory.getRecordIdentifier(record), record);
+                }
+                records = map;
+            } else {
+                records = new HashMap<>(recordMapView);
+            }
+
+            return records;
+        }
+
+        @Override
+        public long getMaxTransactionId() {
+            return maxTransactionId;
+        }
+
+        @Override
+        public Set<String> getSwapLocations() {
+            return swapLocations;
+        }
+    }
+
+    private class SnapshotHeader {
+        private final SerDe<T> serde;
+        private final int serdeVersion;
+        private final long snapshotId;
+        private final long maxTransactionId;
+        private final int numRecords;
+
+        SnapshotHeader(final SerDe<T> serde, final int serdeVersion, final long snapshotId, final long maxTransactionId, final int numRecords) {
+            this.serde = serde;
+            this.serdeVersion = serdeVersion;
+            this.snapshotId = snapshotId;
+            this.maxTransactionId = maxTransactionId;
+            this.numRecords = numRecords;
+        }
+
+        SerDe<T> getSerDe() {
+            return serde;
+        }
+
+        int getSerDeVersion() {
+            return serdeVersion;
+        }
+
+        long getSnapshotId() {
+            return snapshotId;
+        }
+
+        long getMaxTransactionId() {
+            return maxTransactionId;
+        }
+
+        int getNumRecords() {
+            return numRecords;
+        }
+    }
+}
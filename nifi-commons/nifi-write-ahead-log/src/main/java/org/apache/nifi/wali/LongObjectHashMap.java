@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+/**
+ * <p>
+ * A hash map from primitive <code>long</code> keys to non-null values that uses open addressing with linear probing. Keys are stored in a
+ * <code>long[]</code> and values in a parallel <code>Object[]</code>, so that no boxed key or entry object is created per mapping.
+ * </p>
+ *
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @param <V> the type of value
+ */
+class LongObjectHashMap<V> {
+    private static final int MIN_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.7F;
+
+    private long[] keys;
+    private Object[] values; // a null value indicates an empty slot
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    LongObjectHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    LongObjectHashMap(final int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    private static int tableSizeFor(final int expectedSize) {
+        final long minCapacity = (long) Math.ceil(Math.max(expectedSize, 1) / (double) LOAD_FACTOR);
+        if (minCapacity > (1 << 30)) {
+            throw new IllegalArgumentException("Cannot create a map large enough to hold " + expectedSize + " entries");
+        }
+
+        int capacity = MIN_CAPACITY;
+        while (capacity < minCapacity) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(final long key) {
+        final long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(final long key) {
+        int index = slot(key);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                return (V) values[index];
+            }
+            index = (index + 1) & mask;
+        }
+
+        return null;
+    }
+
+    boolean containsKey(final long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Associates the given value with the given key
+     *
+     * @param key the key
+     * @param value the value, which may not be <code>null</code>
+     * @return the value previously associated with the key, or <code>null</code> if there was none
+     */
+    @SuppressWarnings("unchecked")
+    V put(final long key, final V value) {
+        if (value == null) {
+            throw new NullPointerException("Value cannot be null");
+        }
+
+        int index = slot(key);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                final V previous = (V) values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+        if (++size > resizeThreshold) {
+            resize(keys.length << 1);
+        }
+
+        return null;
+    }
+
+    /**
+     * Removes the mapping for the given key
+     *
+     * @param key the key
+     * @return the value that was associated with the key, or <code>null</code> if there was none
+     */
+    @SuppressWarnings("unchecked")
+    V remove(final long key) {
+        int index = slot(key);
+        while (values[index] != null) {
+            if (keys[index] == key) {
+                final V previous = (V) values[index];
+                deleteSlot(index);
+                size--;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+
+        return null;
+    }
+
+    // Removes the entry at the given slot and shifts back any subsequent entries in the same probe sequence, so that no tombstones are needed.
+    private void deleteSlot(final int deletedIndex) {
+        int gap = deletedIndex;
+        int index = (gap + 1) & mask;
+        while (values[index] != null) {
+            final int home = slot(keys[index]);
+            final boolean canMove = (gap <= index) ? (home <= gap || home > index) : (home <= gap && home > index);
+            if (canMove) {
+                keys[gap] = keys[index];
+                values[gap] = values[index];
+                gap = index;
+            }
+            index = (index + 1) & mask;
+        }
+
+        values[gap] = null;
+        keys[gap] = 0L;
+    }
+
+    private void resize(final int newCapacity) {
+        final long[] oldKeys = keys;
+        final Object[] oldValues = values;
+        allocate(newCapacity);
+
+        for (int i = 0; i < oldValues.length; i++) {
+            final Object value = oldValues[i];
+            if (value == null) {
+                continue;
+            }
+
+            int index = slot(oldKeys[i]);
+            while (values[index] != null) {
+                index = (index + 1) & mask;
+            }
+
+            keys[index] = oldKeys[i];
+            values[index] = value;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        allocate(MIN_CAPACITY);
+        size = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(final EntryConsumer<V> consumer) {
+        for (int i = 0; i < values.length; i++) {
+            final Object value = values[i];
+            if (value != null) {
+                consumer.accept(keys[i], (V) value);
+            }
+        }
+    }
+
+    interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+}
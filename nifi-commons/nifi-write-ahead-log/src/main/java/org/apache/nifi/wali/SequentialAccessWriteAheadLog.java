@@ -27,6 +27,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -88,6 +89,15 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
     }
 
     public SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory, final SyncListener syncListener) throws IOException {
+        this(storageDirectory, serdeFactory, syncListener, new HashMapSnapshot<>(storageDirectory, serdeFactory));
+    }
+
+    /**
+     * Creates a Write-Ahead Log that uses the given snapshot in order to checkpoint and recover its records. The snapshot must
+     * write its files to the given storage directory.
+     */
+    public <S extends WriteAheadSnapshot<T> & RecordLookup<T>> SequentialAccessWriteAheadLog(final File storageDirectory, final SerDeFactory<T> serdeFactory,
+                final SyncListener syncListener, final S snapshot) throws IOException {
         if (!storageDirectory.exists() && !storageDirectory.mkdirs()) {
             throw new IOException("Directory " + storageDirectory + " does not exist and cannot be created");
         }
@@ -95,9 +105,8 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
             throw new IOException("File " + storageDirectory + " is a regular file and not a directory");
         }
 
-        final HashMapSnapshot<T> hashMapSnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
-        this.snapshot = hashMapSnapshot;
-        this.recordLookup = hashMapSnapshot;
+        this.snapshot = snapshot;
+        this.recordLookup = snapshot;
 
         this.storageDirectory = storageDirectory;
         this.journalsDirectory = new File(storageDirectory, "journals");
@@ -183,26 +192,37 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
         int journalFilesSkipped = 0;
         long maxTransactionId = snapshotTransactionId;
 
-        for (final File journalFile : orderedJournalFiles) {
-            final long journalMinTransactionId = getMinTransactionId(journalFile);
-            if (journalMinTransactionId < snapshotTransactionId) {
-                logger.debug("Will not recover records from journal file {} because the minimum Transaction ID for that journal is {} and the Transaction ID recovered from Snapshot was {}",
-                    journalFile, journalMinTransactionId, snapshotTransactionId);
+        // Journals are applied one at a time, in order, but the transactions within each journal may be deserialized concurrently.
+        final long journalRecoveryStart = System.nanoTime();
+        final int recoveryThreads = Runtime.getRuntime().availableProcessors();
+        final ForkJoinPool decodePool = recoveryThreads > 1 ? new ForkJoinPool(recoveryThreads) : null;
 
-                journalFilesSkipped++;
-                continue;
-            }
+        try {
+            for (final File journalFile : orderedJournalFiles) {
+                final long journalMinTransactionId = getMinTransactionId(journalFile);
+                if (journalMinTransactionId < snapshotTransactionId) {
+                    logger.debug("Will not recover records from journal file {} because the minimum Transaction ID for that journal is {} and the Transaction ID recovered from Snapshot was {}",
+                        journalFile, journalMinTransactionId, snapshotTransactionId);
+
+                    journalFilesSkipped++;
+                    continue;
+                }
 
-            logger.debug("Min Transaction ID for journal {} is {}, so will recover records from journal", journalFile, journalMinTransactionId);
-            journalFilesRecovered++;
+                logger.debug("Min Transaction ID for journal {} is {}, so will recover records from journal", journalFile, journalMinTransactionId);
+                journalFilesRecovered++;
 
-            try (final WriteAheadJournal<T> journal = new LengthDelimitedJournal<>(journalFile, serdeFactory, streamPool, 0L)) {
-                final JournalRecovery journalRecovery = journal.recoverRecords(recoveredRecords, swapLocations);
-                final int updates = journalRecovery.getUpdateCount();
+                try (final LengthDelimitedJournal<T> journal = new LengthDelimitedJournal<>(journalFile, serdeFactory, streamPool, 0L)) {
+                    final JournalRecovery journalRecovery = journal.recoverRecords(recoveredRecords, swapLocations, decodePool);
+                    final int updates = journalRecovery.getUpdateCount();
 
-                logger.debug("Recovered {} updates from journal {}", updates, journalFile);
-                totalUpdates += updates;
-                maxTransactionId = Math.max(maxTransactionId, journalRecovery.getMaxTransactionId());
+                    logger.debug("Recovered {} updates from journal {}", updates, journalFile);
+                    totalUpdates += updates;
+                    maxTransactionId = Math.max(maxTransactionId, journalRecovery.getMaxTransactionId());
+                }
+            }
+        } finally {
+            if (decodePool != null) {
+                decodePool.shutdownNow();
             }
         }
 
@@ -210,13 +230,19 @@ public class SequentialAccessWriteAheadLog<T> implements WriteAheadRepository<T>
             totalUpdates, journalFilesRecovered, journalFilesSkipped);
         this.nextTransactionId = maxTransactionId + 1;
 
+        final long journalRecoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - journalRecoveryStart);
         final long recoverNanos = System.nanoTime() - recoverStart;
         final long recoveryMillis = TimeUnit.MILLISECONDS.convert(recoverNanos, TimeUnit.NANOSECONDS);
         logger.info("Successfully recovered {} records in {} milliseconds. Now checkpointing to ensure that Write-Ahead Log is in a consistent state", recoveredRecords.size(), recoveryMillis);
 
         this.recoveredSwapLocations.addAll(swapLocations);
 
+        final long checkpointStart = System.nanoTime();
         checkpoint(this.recoveredSwapLocations);
+        final long checkpointMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - checkpointStart);
+
+        logger.info("Write-Ahead Log recovery timing for {}: Snapshot recovery took {} millis, recovery of {} journal files with up to {} decoding threads took {} millis, checkpoint took {} millis",
+            storageDirectory, snapshotRecoveryMillis, journalFilesRecovered, Math.max(1, recoveryThreads), journalRecoveryMillis, checkpointMillis);
 
         return recoveredRecords.values();
     }
@@ -185,4 +185,15 @@ public interface SerDe<T> {
     default boolean isMoreInExternalFile() throws IOException {
         return false;
     }
+
+    /**
+     * Indicates whether or not {@link #deserializeEdit(DataInputStream, Map, int)} is able to deserialize an edit without consulting the
+     * current state of the records. If so, the Write-Ahead Log may deserialize edits from many transactions concurrently upon recovery,
+     * using a separate SerDe, obtained from the SerDeFactory, for each thread.
+     *
+     * @return <code>true</code> if edits can be deserialized without the current record states, <code>false</code> otherwise
+     */
+    default boolean isEditDeserializationStateless() {
+        return false;
+    }
 }
@@ -42,6 +42,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
@@ -558,4 +559,171 @@ public class TestLengthDelimitedJournal {
             assertEquals(0, recordMap.size());
         }
     }
+
+    @Test
+    public void testConcurrentSyncsAreGrouped() throws IOException, InterruptedException {
+        final int threadCount = 8;
+        final int updatesPerThread = 10;
+        final AtomicInteger diskSyncs = new AtomicInteger(0);
+
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<DummyRecord>(journalFile, serdeFactory, streamPool, 0L) {
+            @Override
+            protected void syncToDisk(final FileOutputStream out) throws IOException {
+                diskSyncs.incrementAndGet();
+
+                // Simulate a slow disk so that other threads queue up behind this sync
+                try {
+                    Thread.sleep(10L);
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+
+                super.syncToDisk(out);
+            }
+        }) {
+            journal.writeHeader();
+
+            final AtomicReference<Throwable> failure = new AtomicReference<>();
+            final Thread[] threads = new Thread[threadCount];
+            for (int i = 0; i < threadCount; i++) {
+                final int threadIndex = i;
+                threads[i] = new Thread(() -> {
+                    try {
+                        for (int j = 0; j < updatesPerThread; j++) {
+                            final DummyRecord record = new DummyRecord(threadIndex + "-" + j, UpdateType.CREATE);
+                            journal.update(Collections.singleton(record), id -> null);
+                            journal.fsync();
+                        }
+                    } catch (final Throwable t) {
+                        failure.set(t);
+                    }
+                });
+            }
+
+            for (final Thread thread : threads) {
+                thread.start();
+            }
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+
+            assertNull(failure.get());
+            assertTrue(diskSyncs.get() > 0);
+            assertTrue(diskSyncs.get() < threadCount * updatesPerThread);
+            assertEquals(diskSyncs.get(), journal.getSyncCount());
+
+            // All transactions have been synced, so syncing again should not require going to disk
+            final int syncsBefore = diskSyncs.get();
+            journal.fsync();
+            assertEquals(syncsBefore, diskSyncs.get());
+        }
+
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, serdeFactory, streamPool, 0L)) {
+            final Map<Object, DummyRecord> recordMap = new HashMap<>();
+            final Set<String> swapLocations = new HashSet<>();
+
+            journal.recoverRecords(recordMap, swapLocations);
+            assertEquals(threadCount * updatesPerThread, recordMap.size());
+        }
+    }
+
+    @Test
+    public void testConcurrentRecoveryMatchesSequentialRecovery() throws IOException {
+        final DummyRecordSerde statelessSerde = new StatelessDummyRecordSerde();
+        final SerDeFactory<DummyRecord> statelessSerdeFactory = new SingletonSerDeFactory<>(statelessSerde);
+
+        // Write enough data that the journal spans several decoding blocks
+        final String value = String.join("", Collections.nCopies(100, "x"));
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, statelessSerdeFactory, streamPool, 0L)) {
+            journal.writeHeader();
+
+            for (int i = 0; i < 25_000; i++) {
+                final List<DummyRecord> transaction = new ArrayList<>();
+                final String id = String.valueOf(i % 5_000);
+                if (i < 5_000) {
+                    transaction.add(new DummyRecord(id, UpdateType.CREATE).setProperty("index", String.valueOf(i)));
+                } else if (i % 7 == 0) {
+                    transaction.add(new DummyRecord(id, UpdateType.DELETE));
+                } else if (i % 11 == 0) {
+                    final DummyRecord swapOut = new DummyRecord(id, UpdateType.SWAP_OUT);
+                    swapOut.setSwapLocation("swap-" + i);
+                    transaction.add(swapOut);
+                } else {
+                    transaction.add(new DummyRecord(id, UpdateType.UPDATE).setProperty("index", String.valueOf(i)).setProperty("value", value));
+                }
+
+                journal.update(transaction, recordId -> null);
+            }
+        }
+
+        final Map<Object, DummyRecord> sequentialRecords = new HashMap<>();
+        final Set<String> sequentialSwapLocations = new HashSet<>();
+        final JournalRecovery sequentialRecovery;
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, statelessSerdeFactory, streamPool, 0L)) {
+            sequentialRecovery = journal.recoverRecords(sequentialRecords, sequentialSwapLocations, null);
+        }
+
+        final ForkJoinPool decodePool = new ForkJoinPool(4);
+        try {
+            final Map<Object, DummyRecord> concurrentRecords = new HashMap<>();
+            final Set<String> concurrentSwapLocations = new HashSet<>();
+            try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, statelessSerdeFactory, streamPool, 0L)) {
+                final JournalRecovery concurrentRecovery = journal.recoverRecords(concurrentRecords, concurrentSwapLocations, decodePool);
+
+                assertEquals(sequentialRecovery.getUpdateCount(), concurrentRecovery.getUpdateCount());
+                assertEquals(sequentialRecovery.getMaxTransactionId(), concurrentRecovery.getMaxTransactionId());
+                assertEquals(24_999L, concurrentRecovery.getMaxTransactionId());
+            }
+
+            assertFalse(sequentialRecords.isEmpty());
+            assertFalse(sequentialSwapLocations.isEmpty());
+            assertEquals(sequentialSwapLocations, concurrentSwapLocations);
+            assertEquals(sequentialRecords.keySet(), concurrentRecords.keySet());
+            for (final Map.Entry<Object, DummyRecord> entry : sequentialRecords.entrySet()) {
+                assertEquals(entry.getValue().getProperties(), concurrentRecords.get(entry.getKey()).getProperties());
+            }
+        } finally {
+            decodePool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testConcurrentRecoveryHandlesTrailingNulBytes() throws IOException {
+        final SerDeFactory<DummyRecord> statelessSerdeFactory = new SingletonSerDeFactory<>(new StatelessDummyRecordSerde());
+
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, statelessSerdeFactory, streamPool, 0L)) {
+            journal.writeHeader();
+            journal.update(Collections.singleton(new DummyRecord("1", UpdateType.CREATE)), id -> null);
+            journal.update(Collections.singleton(new DummyRecord("2", UpdateType.CREATE)), id -> null);
+            journal.update(Collections.singleton(new DummyRecord("1", UpdateType.UPDATE).setProperty("abc", "123")), id -> null);
+        }
+
+        final byte[] contents = Files.readAllBytes(journalFile.toPath());
+        final byte[] truncated = Arrays.copyOfRange(contents, 0, contents.length - 8);
+        final byte[] withNuls = new byte[truncated.length + 28];
+        System.arraycopy(truncated, 0, withNuls, 0, truncated.length);
+
+        try (final OutputStream fos = new FileOutputStream(journalFile)) {
+            fos.write(withNuls);
+        }
+
+        final ForkJoinPool decodePool = new ForkJoinPool(2);
+        try (final LengthDelimitedJournal<DummyRecord> journal = new LengthDelimitedJournal<>(journalFile, statelessSerdeFactory, streamPool, 0L)) {
+            final Map<Object, DummyRecord> recordMap = new HashMap<>();
+            final JournalRecovery recovery = journal.recoverRecords(recordMap, new HashSet<>(), decodePool);
+
+            assertEquals(2, recordMap.size());
+            assertEquals(2L, recovery.getMaxTransactionId());
+            assertTrue(recordMap.get("1").getProperties().isEmpty());
+        } finally {
+            decodePool.shutdownNow();
+        }
+    }
+
+    private static class StatelessDummyRecordSerde extends DummyRecordSerde {
+        @Override
+        public boolean isEditDeserializationStateless() {
+            return true;
+        }
+    }
 }
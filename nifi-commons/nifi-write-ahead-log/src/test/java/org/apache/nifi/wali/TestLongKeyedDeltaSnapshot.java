@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.wali;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.wali.DummyRecord;
+import org.wali.DummyRecordSerde;
+import org.wali.SerDeFactory;
+import org.wali.SingletonSerDeFactory;
+import org.wali.UpdateType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestLongKeyedDeltaSnapshot {
+
+    private final File storageDirectory = new File("target/test-long-keyed-delta-snapshot");
+    private DummyRecordSerde serde;
+    private SerDeFactory<DummyRecord> serdeFactory;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        if (!storageDirectory.exists()) {
+            Files.createDirectories(storageDirectory.toPath());
+        }
+
+        final File[] childFiles = storageDirectory.listFiles();
+        for (final File childFile : childFiles) {
+            if (childFile.isFile()) {
+                Files.delete(childFile.toPath());
+            }
+        }
+
+        serde = new DummyRecordSerde();
+        serdeFactory = new SingletonSerDeFactory<DummyRecord>(serde) {
+            @Override
+            public Object getRecordIdentifier(final DummyRecord record) {
+                return Long.valueOf(record.getId());
+            }
+        };
+    }
+
+    private DummyRecord createRecord(final long id, final UpdateType updateType, final String value) {
+        final DummyRecord record = new DummyRecord(String.valueOf(id), updateType);
+        if (value != null) {
+            record.setProperty("key", value);
+        }
+        return record;
+    }
+
+    private void update(final LongKeyedDeltaSnapshot<DummyRecord> snapshot, final DummyRecord record) {
+        snapshot.update(Collections.singleton(record));
+    }
+
+    private File getDeltaFile(final int sequence) {
+        return new File(storageDirectory, "checkpoint.delta." + sequence);
+    }
+
+    @Test
+    public void testDeltaRoundTrip() throws IOException {
+        final LongKeyedDeltaSnapshot<DummyRecord> snapshot = new LongKeyedDeltaSnapshot<>(storageDirectory, serdeFactory);
+        for (int i = 0; i < 10; i++) {
+            update(snapshot, createRecord(i, UpdateType.CREATE, "initial-" + i));
+        }
+
+        // No full snapshot exists yet, so the first snapshot must be a full snapshot.
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(10L));
+        assertTrue(new File(storageDirectory, "checkpoint").exists());
+        assertFalse(getDeltaFile(1).exists());
+
+        update(snapshot, createRecord(2, UpdateType.DELETE, null));
+        update(snapshot, createRecord(3, UpdateType.UPDATE, "updated-3"));
+        final DummyRecord swapOut = createRecord(5, UpdateType.SWAP_OUT, null);
+        swapOut.setSwapLocation("swap-file-1");
+        update(snapshot, swapOut);
+        update(snapshot, createRecord(10, UpdateType.CREATE, "initial-10"));
+
+        final SnapshotCapture<DummyRecord> capture = snapshot.prepareSnapshot(20L);
+        assertEquals(9, capture.getRecords().size());
+        assertEquals(Collections.singleton("swap-file-1"), capture.getSwapLocations());
+
+        snapshot.writeSnapshot(capture);
+        assertTrue(getDeltaFile(1).exists());
+
+        final LongKeyedDeltaSnapshot<DummyRecord> recoveredSnapshot = new LongKeyedDeltaSnapshot<>(storageDirectory, serdeFactory);
+        final SnapshotRecovery<DummyRecord> recovery = recoveredSnapshot.recover();
+        assertEquals(20L, recovery.getMaxTransactionId());
+        assertEquals(Collections.singleton("swap-file-1"), recovery.getRecoveredSwapLocations());
+
+        final Map<Object, DummyRecord> records = recovery.getRecords();
+        assertEquals(9, records.size());
+        assertNull(records.get(2L));
+        assertNull(records.get(5L));
+        assertEquals("updated-3", records.get(3L).getProperty("key"));
+        assertEquals("initial-10", records.get(10L).getProperty("key"));
+        assertEquals("initial-0", recoveredSnapshot.lookup(0L).getProperty("key"));
+    }
+
+    @Test
+    public void testFullSnapshotWrittenAfterMaxDeltaFiles() throws IOException {
+        final LongKeyedDeltaSnapshot<DummyRecord> snapshot = new LongKeyedDeltaSnapshot<>(storageDirectory, serdeFactory, 2, 100D);
+        for (int i = 0; i < 10; i++) {
+            update(snapshot, createRecord(i, UpdateType.CREATE, "0"));
+        }
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(1L));
+
+        for (int checkpoint = 1; checkpoint <= 3; checkpoint++) {
+            update(snapshot, createRecord(checkpoint, UpdateType.UPDATE, String.valueOf(checkpoint)));
+            snapshot.writeSnapshot(snapshot.prepareSnapshot(1L + checkpoint));
+        }
+
+        // Two deltas were written, then the third checkpoint should have written a full snapshot and removed the deltas.
+        assertFalse(getDeltaFile(1).exists());
+        assertFalse(getDeltaFile(2).exists());
+        assertFalse(getDeltaFile(3).exists());
+
+        final SnapshotRecovery<DummyRecord> recovery = new LongKeyedDeltaSnapshot<>(storageDirectory, serdeFactory).recover();
+        assertEquals(4L, recovery.getMaxTransactionId());
+        assertEquals(10, recovery.getRecords().size());
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(String.valueOf(i), recovery.getRecords().get((long) i).getProperty("key"));
+        }
+    }
+
+    @Test
+    public void testFullSnapshotWrittenWhenChangesExceedCompactionRatio() throws IOException {
+        final LongKeyedDeltaSnapshot<DummyRecord> snapshot = new LongKeyedDeltaSnapshot<>(storageDirectory, serdeFactory, 100, 0.5D);
+        for (int i = 0; i < 10; i++) {
+            update(snapshot, createRecord(i, UpdateType.CREATE, "0"));
+        }
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(1L));
+
+        update(snapshot, createRecord(1, UpdateType.UPDATE, "1"));
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(2L));
+        assertTrue(getDeltaFile(1).exists());
+
+        for (int i = 0; i < 5; i++) {
+            update(snapshot, createRecord(i, UpdateType.UPDATE, "2"));
+        }
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(3L));
+        assertFalse(getDeltaFile(1).exists());
+        assertFalse(getDeltaFile(2).exists());
+
+        final SnapshotRecovery<DummyRecord> recovery = new LongKeyedDeltaSnapshot<>(storageDirectory, serdeFactory).recover();
+        assertEquals(3L, recovery.getMaxTransactionId());
+        assertEquals("2", recovery.getRecords().get(4L).getProperty("key"));
+        assertEquals("0", recovery.getRecords().get(9L).getProperty("key"));
+    }
+
+    @Test
+    public void testStaleDeltaIgnoredOnRecovery() throws IOException {
+        final LongKeyedDeltaSnapshot<DummyRecord> snapshot = new LongKeyedDeltaSnapshot<>(storageDirectory, serdeFactory, 1, 100D);
+        for (int i = 0; i < 10; i++) {
+            update(snapshot, createRecord(i, UpdateType.CREATE, "0"));
+        }
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(1L));
+
+        update(snapshot, createRecord(1, UpdateType.DELETE, null));
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(2L));
+
+        final File staleDelta = new File(storageDirectory, "stale-delta");
+        Files.copy(getDeltaFile(1).toPath(), staleDelta.toPath());
+
+        // Max of 1 delta file, so this writes a full snapshot. Then simulate the old delta file not having been deleted.
+        update(snapshot, createRecord(1, UpdateType.CREATE, "recreated"));
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(3L));
+        assertFalse(getDeltaFile(1).exists());
+        Files.move(staleDelta.toPath(), getDeltaFile(1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        final SnapshotRecovery<DummyRecord> recovery = new LongKeyedDeltaSnapshot<>(storageDirectory, serdeFactory).recover();
+        assertEquals(3L, recovery.getMaxTransactionId());
+        assertEquals(10, recovery.getRecords().size());
+        assertEquals("recreated", recovery.getRecords().get(1L).getProperty("key"));
+        assertFalse(getDeltaFile(1).exists());
+    }
+
+    @Test
+    public void testChangesRetainedWhenDeltaWriteFails() throws IOException {
+        final LongKeyedDeltaSnapshot<DummyRecord> snapshot = new LongKeyedDeltaSnapshot<>(storageDirectory, serdeFactory);
+        for (int i = 0; i < 10; i++) {
+            update(snapshot, createRecord(i, UpdateType.CREATE, "0"));
+        }
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(1L));
+
+        update(snapshot, createRecord(3, UpdateType.UPDATE, "3"));
+        update(snapshot, createRecord(4, UpdateType.UPDATE, "4"));
+
+        serde.setThrowIOEAfterNSerializeEdits(1);
+        assertThrows(IOException.class, () -> snapshot.writeSnapshot(snapshot.prepareSnapshot(2L)));
+        serde.setThrowIOEAfterNSerializeEdits(-1);
+
+        update(snapshot, createRecord(5, UpdateType.UPDATE, "5"));
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(3L));
+
+        final SnapshotRecovery<DummyRecord> recovery = new LongKeyedDeltaSnapshot<>(storageDirectory, serdeFactory).recover();
+        assertEquals(3L, recovery.getMaxTransactionId());
+        assertEquals("3", recovery.getRecords().get(3L).getProperty("key"));
+        assertEquals("4", recovery.getRecords().get(4L).getProperty("key"));
+        assertEquals("5", recovery.getRecords().get(5L).getProperty("key"));
+    }
+
+    @Test
+    public void testChangesToRecoveredRecordsIncludedInNextDelta() throws IOException {
+        final LongKeyedDeltaSnapshot<DummyRecord> snapshot = new LongKeyedDeltaSnapshot<>(storageDirectory, serdeFactory);
+        for (int i = 0; i < 10; i++) {
+            update(snapshot, createRecord(i, UpdateType.CREATE, "0"));
+        }
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(1L));
+
+        // Simulate the Write-Ahead Log replaying its journals into the recovered records
+        final LongKeyedDeltaSnapshot<DummyRecord> recoveredSnapshot = new LongKeyedDeltaSnapshot<>(storageDirectory, serdeFactory);
+        final Map<Object, DummyRecord> recoveredRecords = recoveredSnapshot.recover().getRecords();
+        recoveredRecords.remove(2L);
+        recoveredRecords.put(20L, createRecord(20, UpdateType.CREATE, "20"));
+        assertEquals(10, recoveredSnapshot.getRecordCount());
+
+        recoveredSnapshot.writeSnapshot(recoveredSnapshot.prepareSnapshot(5L));
+        assertTrue(getDeltaFile(1).exists());
+
+        final SnapshotRecovery<DummyRecord> recovery = new LongKeyedDeltaSnapshot<>(storageDirectory, serdeFactory).recover();
+        final Set<Object> expectedIds = new HashSet<>();
+        for (long i = 0; i < 10; i++) {
+            if (i != 2) {
+                expectedIds.add(i);
+            }
+        }
+        expectedIds.add(20L);
+        assertEquals(expectedIds, recovery.getRecords().keySet());
+    }
+
+    @Test
+    public void testRecoverFromHashMapSnapshot() throws IOException {
+        final HashMapSnapshot<DummyRecord> hashMapSnapshot = new HashMapSnapshot<>(storageDirectory, serdeFactory);
+        for (int i = 0; i < 10; i++) {
+            hashMapSnapshot.update(Collections.singleton(createRecord(i, UpdateType.CREATE, String.valueOf(i))));
+        }
+        final DummyRecord swapOut = createRecord(9, UpdateType.SWAP_OUT, null);
+        swapOut.setSwapLocation("swap-file-1");
+        hashMapSnapshot.update(Collections.singleton(swapOut));
+        hashMapSnapshot.writeSnapshot(hashMapSnapshot.prepareSnapshot(8L));
+
+        final LongKeyedDeltaSnapshot<DummyRecord> snapshot = new LongKeyedDeltaSnapshot<>(storageDirectory, serdeFactory);
+        final SnapshotRecovery<DummyRecord> recovery = snapshot.recover();
+        assertEquals(8L, recovery.getMaxTransactionId());
+        assertEquals(9, recovery.getRecords().size());
+        assertEquals(Collections.singleton("swap-file-1"), recovery.getRecoveredSwapLocations());
+
+        // Deltas may be written against the snapshot that was written by HashMapSnapshot
+        update(snapshot, createRecord(0, UpdateType.UPDATE, "updated"));
+        snapshot.writeSnapshot(snapshot.prepareSnapshot(9L));
+        assertTrue(getDeltaFile(1).exists());
+
+        final SnapshotRecovery<DummyRecord> secondRecovery = new LongKeyedDeltaSnapshot<>(storageDirectory, serdeFactory).recover();
+        assertEquals(9L, secondRecovery.getMaxTransactionId());
+        final DummyRecord updated = secondRecovery.getRecords().get(0L);
+        assertNotNull(updated);
+        assertEquals("updated", updated.getProperty("key"));
+    }
+
+    @Test
+    public void testNonNumericRecordIdentifierRejected() {
+        final LongKeyedDeltaSnapshot<DummyRecord> snapshot = new LongKeyedDeltaSnapshot<>(storageDirectory, new SingletonSerDeFactory<>(serde));
+        assertThrows(IllegalArgumentException.class, () -> update(snapshot, new DummyRecord("abc", UpdateType.CREATE)));
+    }
+}
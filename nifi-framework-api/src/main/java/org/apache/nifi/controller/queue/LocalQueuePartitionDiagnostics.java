@@ -29,4 +29,18 @@ public interface LocalQueuePartitionDiagnostics {
     boolean isAnyActiveFlowFilePenalized();
 
     boolean isAllActiveFlowFilesPenalized();
+
+    /**
+     * @return the number of times that FlowFiles have been swapped in from a swap file
+     */
+    default long getSwapInCount() {
+        return 0L;
+    }
+
+    /**
+     * @return the total number of milliseconds that threads pulling FlowFiles from the queue have spent waiting on FlowFiles to be swapped in
+     */
+    default long getSwapInStallMillis() {
+        return 0L;
+    }
 }
@@ -22,8 +22,10 @@ import org.apache.nifi.controller.repository.claim.ResourceClaim;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.util.Collection;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -259,6 +261,20 @@ public interface ContentRepository {
      */
     InputStream read(ResourceClaim claim) throws IOException;
 
+    /**
+     * Optional operation that opens a read-only FileChannel over the file that holds the content of the given claim, so that the content can be read
+     * into direct ByteBuffers or transferred to another channel without being copied through an intermediate byte array. The content of the claim begins
+     * at position {@link ContentClaim#getOffset()} of the returned channel, and the caller is responsible for closing the channel.
+     *
+     * @param claim the claim to read from
+     * @return a FileChannel over the file that holds the claim's content, or an empty Optional if the repository cannot provide one for the claim,
+     * in which case {@link #read(ContentClaim)} should be used instead
+     * @throws IOException if unable to open the channel
+     */
+    default Optional<FileChannel> openFileChannel(ContentClaim claim) throws IOException {
+        return Optional.empty();
+    }
+
     /**
      * Indicates whether or not this Content Repository supports obtaining an InputStream for
      * an entire Resource Claim. If this method returns <code>false</code>, the {@link #read(ResourceClaim)} should not
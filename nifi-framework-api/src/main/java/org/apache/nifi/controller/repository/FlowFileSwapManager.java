@@ -80,6 +80,18 @@ public interface FlowFileSwapManager {
      */
     SwapContents swapIn(String swapLocation, FlowFileQueue flowFileQueue) throws IncompleteSwapFileException, IOException;
 
+    /**
+     * Indicates that the swap file at the given location is likely to be swapped in soon. Implementations may begin
+     * reading the swap file in the background so that a subsequent call to {@link #swapIn(String, FlowFileQueue)}
+     * for the same location does not have to wait for the swap file to be read. This is a hint only: it must not
+     * update the FlowFile Repository or remove the swap file, and the default implementation does nothing.
+     *
+     * @param swapLocation the location of the swap file
+     * @param flowFileQueue the queue to which the FlowFiles belong
+     */
+    default void prefetch(String swapLocation, FlowFileQueue flowFileQueue) {
+    }
+
     /**
      * Determines swap files that exist for the given FlowFileQueue
      *
@@ -241,4 +241,12 @@ public interface ProvenanceRepository extends ProvenanceEventRepository {
      * name
      */
     long getContainerUsableSpace(String containerName) throws IOException;
+
+    /**
+     * @return the number of Provenance Events that were registered with this repository but will never be stored, because the repository
+     * could not keep up with the rate at which they were registered or failed to write them
+     */
+    default long getDroppedEventCount() {
+        return 0L;
+    }
 }
@@ -895,39 +895,62 @@ public class AvroTypeUtil {
         final Map<String, Object> values = new HashMap<>(recordSchema.getFieldCount());
 
         for (final RecordField recordField : recordSchema.getFields()) {
+            values.put(recordField.getFieldName(), convertAvroField(avroRecord, recordField, charset));
+        }
 
-            Object value = avroRecord.get(recordField.getFieldName());
-            if (value == null) {
-                for (final String alias : recordField.getAliases()) {
-                    value = avroRecord.get(alias);
-                    if (value != null) {
-                        break;
-                    }
+        return values;
+    }
+
+    public static Object[] convertAvroRecordToValues(final GenericRecord avroRecord, final RecordSchema recordSchema) {
+        return convertAvroRecordToValues(avroRecord, recordSchema, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Converts the given Avro Record into the values of the fields of the given schema, in the order of the schema's fields,
+     * as expected by {@link org.apache.nifi.serialization.record.ArrayRecord}
+     *
+     * @param avroRecord the Avro Record to convert
+     * @param recordSchema the schema of the values
+     * @param charset the character set used when converting bytes into Strings
+     * @return the values of the schema's fields
+     */
+    public static Object[] convertAvroRecordToValues(final GenericRecord avroRecord, final RecordSchema recordSchema, final Charset charset) {
+        final Object[] values = new Object[recordSchema.getFieldCount()];
+
+        for (int i = 0; i < values.length; i++) {
+            values[i] = convertAvroField(avroRecord, recordSchema.getField(i), charset);
+        }
+
+        return values;
+    }
+
+    private static Object convertAvroField(final GenericRecord avroRecord, final RecordField recordField, final Charset charset) {
+        Object value = avroRecord.get(recordField.getFieldName());
+        if (value == null) {
+            for (final String alias : recordField.getAliases()) {
+                value = avroRecord.get(alias);
+                if (value != null) {
+                    break;
                 }
             }
+        }
 
-            final String fieldName = recordField.getFieldName();
-            try {
+        final String fieldName = recordField.getFieldName();
+        try {
             final Field avroField = avroRecord.getSchema().getField(fieldName);
             if (avroField == null) {
-                values.put(fieldName, null);
-                continue;
+                return null;
             }
 
             final Schema fieldSchema = avroField.schema();
             final Object rawValue = normalizeValue(value, fieldSchema, fieldName);
 
             final DataType desiredType = recordField.getDataType();
-            final Object coercedValue = DataTypeUtils.convertType(rawValue, desiredType, fieldName, charset);
-
-            values.put(fieldName, coercedValue);
-            } catch (Exception ex) {
-                logger.debug("fail to convert field " + fieldName, ex );
-                throw ex;
-            }
+            return DataTypeUtils.convertType(rawValue, desiredType, fieldName, charset);
+        } catch (Exception ex) {
+            logger.debug("fail to convert field " + fieldName, ex );
+            throw ex;
         }
-
-        return values;
     }
 
     /**
@@ -30,6 +30,8 @@ public class LocalQueuePartitionDTO {
     private int swapFlowFileCount;
     private long swapByteCount;
     private int swapFiles;
+    private long swapInCount;
+    private long swapInStallMillis;
     private int inFlightFlowFileCount;
     private long inFlightByteCount;
     private Boolean allActiveQueueFlowFilesPenalized;
@@ -98,6 +100,24 @@ public class LocalQueuePartitionDTO {
         this.swapFiles = swapFiles;
     }
 
+    @ApiModelProperty("The number of times that FlowFiles have been swapped in from disk for this Connection")
+    public long getSwapInCount() {
+        return swapInCount;
+    }
+
+    public void setSwapInCount(long swapInCount) {
+        this.swapInCount = swapInCount;
+    }
+
+    @ApiModelProperty("The total number of milliseconds that threads pulling from this Connection have spent waiting for FlowFiles to be swapped in from disk")
+    public long getSwapInStallMillis() {
+        return swapInStallMillis;
+    }
+
+    public void setSwapInStallMillis(long swapInStallMillis) {
+        this.swapInStallMillis = swapInStallMillis;
+    }
+
     @ApiModelProperty("The number of In-Flight FlowFiles for this Connection. These are FlowFiles that belong to the connection but are currently being operated on by a Processor, Port, etc.")
     public int getInFlightFlowFileCount() {
         return inFlightFlowFileCount;
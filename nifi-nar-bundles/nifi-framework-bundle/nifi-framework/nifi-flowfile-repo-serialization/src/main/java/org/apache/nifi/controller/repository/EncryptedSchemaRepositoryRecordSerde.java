@@ -168,6 +168,16 @@ public class EncryptedSchemaRepositoryRecordSerde implements SerDe<SerializedRep
         // throw new EOFException();
     }
 
+    /**
+     * Returns whether or not the wrapped SerDe is able to deserialize edits without the current state of the records.
+     *
+     * @return true if edits can be deserialized without the current record states
+     */
+    @Override
+    public boolean isEditDeserializationStateless() {
+        return wrappedSerDe.isEditDeserializationStateless();
+    }
+
     /**
      * Returns the deserialized and decrypted {@link RepositoryRecord} from the input stream.
      *
@@ -121,6 +121,12 @@ public class SchemaRepositoryRecordSerde extends RepositoryRecordSerde implement
         throw new EOFException();
     }
 
+    @Override
+    public boolean isEditDeserializationStateless() {
+        // Each edit contains the full state of the record, so the current record states are never consulted
+        return true;
+    }
+
     @Override
     public SerializedRepositoryRecord deserializeRecord(final DataInputStream in, final int version) throws IOException {
         if (recordIterator != null) {
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.benchmarks;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.NopConnectionEventListener;
+import org.apache.nifi.controller.queue.StandardFlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.FlowFileRepository;
+import org.apache.nifi.controller.repository.LiveSerializedRepositoryRecord;
+import org.apache.nifi.controller.repository.SerializedRepositoryRecord;
+import org.apache.nifi.controller.repository.StandardFlowFileRecord;
+import org.apache.nifi.controller.repository.StandardRepositoryRecord;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardContentClaim;
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.provenance.ProvenanceEventRepository;
+import org.apache.nifi.util.file.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Helper methods shared by the benchmarks
+ */
+final class BenchmarkUtils {
+    // Large enough that none of the benchmarks ever cause FlowFiles to be swapped out
+    static final int NO_SWAP_THRESHOLD = Integer.MAX_VALUE;
+
+    private BenchmarkUtils() {
+    }
+
+    static File createTempDirectory(final String prefix) throws IOException {
+        return Files.createTempDirectory("nifi-benchmark-" + prefix).toFile();
+    }
+
+    static void deleteDirectory(final File directory) throws IOException {
+        if (directory != null && directory.exists()) {
+            FileUtils.deleteFile(directory, true);
+        }
+    }
+
+    /**
+     * Creates a FlowFile Queue that never swaps and that has no Process Scheduler, which is sufficient for enqueuing and polling FlowFiles
+     */
+    static FlowFileQueue createQueue(final String identifier, final FlowFileRepository flowFileRepository, final ProvenanceEventRepository provenanceRepository,
+                                     final ResourceClaimManager resourceClaimManager) {
+        return new StandardFlowFileQueue(identifier, new NopConnectionEventListener(), flowFileRepository, provenanceRepository, resourceClaimManager,
+            null, null, EventReporter.NO_OP, NO_SWAP_THRESHOLD, "0 sec", 0L, "0 B");
+    }
+
+    static FlowFileRecord createFlowFile(final long id, final int attributeCount) {
+        final StandardFlowFileRecord.Builder builder = new StandardFlowFileRecord.Builder()
+            .id(id)
+            .entryDate(System.currentTimeMillis())
+            .addAttribute("uuid", "00000000-0000-0000-0000-" + String.format("%012d", id));
+
+        for (int i = 0; i < attributeCount; i++) {
+            builder.addAttribute("attribute." + i, "value-" + i);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Creates a record of a new FlowFile whose content lives in a Resource Claim, as the FlowFile Repository would write it when a session is committed
+     */
+    static SerializedRepositoryRecord createRepositoryRecord(final long id, final int attributeCount, final FlowFileQueue queue, final ResourceClaimManager resourceClaimManager) {
+        final ResourceClaim resourceClaim = resourceClaimManager.newResourceClaim("default", "1", "benchmark-claim", false, false);
+        final ContentClaim contentClaim = new StandardContentClaim(resourceClaim, id * 1024L);
+
+        final FlowFileRecord flowFile = new StandardFlowFileRecord.Builder()
+            .fromFlowFile(createFlowFile(id, attributeCount))
+            .contentClaim(contentClaim)
+            .size(1024L)
+            .build();
+
+        final StandardRepositoryRecord record = new StandardRepositoryRecord(queue);
+        record.setWorking(flowFile, false);
+        return new LiveSerializedRepositoryRecord(record);
+    }
+}
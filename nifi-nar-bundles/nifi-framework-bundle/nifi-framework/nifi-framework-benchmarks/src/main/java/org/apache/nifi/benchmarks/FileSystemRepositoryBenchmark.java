@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.benchmarks;
+
+import org.apache.nifi.controller.repository.FileSystemRepository;
+import org.apache.nifi.controller.repository.StandardContentRepositoryContext;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.util.NiFiProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing and reading Content Claims of a {@link FileSystemRepository} whose single container lives in a temporary directory
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileSystemRepositoryBenchmark {
+
+    @Param({"1024", "1048576"})
+    private int contentSize;
+
+    private File contentRepositoryDirectory;
+    private FileSystemRepository contentRepository;
+    private byte[] content;
+    private ContentClaim existingClaim;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        contentRepositoryDirectory = BenchmarkUtils.createTempDirectory("content");
+
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(NiFiProperties.REPOSITORY_CONTENT_PREFIX + "default", contentRepositoryDirectory.getAbsolutePath());
+        properties.put(NiFiProperties.CONTENT_ARCHIVE_ENABLED, "false");
+        final NiFiProperties nifiProperties = NiFiProperties.createBasicNiFiProperties("", properties);
+
+        contentRepository = new FileSystemRepository(nifiProperties);
+        contentRepository.initialize(new StandardContentRepositoryContext(new StandardResourceClaimManager(), EventReporter.NO_OP));
+
+        content = new byte[contentSize];
+        new Random(1L).nextBytes(content);
+
+        existingClaim = write();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        contentRepository.shutdown();
+        BenchmarkUtils.deleteDirectory(contentRepositoryDirectory);
+    }
+
+    @Benchmark
+    public ContentClaim writeClaim() throws IOException {
+        final ContentClaim claim = write();
+
+        // Release the claim so that the repository can destroy its Resource Claim in the background, as it would once a FlowFile is dropped
+        contentRepository.decrementClaimantCount(claim);
+        return claim;
+    }
+
+    @Benchmark
+    public long readClaim() throws IOException {
+        return read(existingClaim);
+    }
+
+    @Benchmark
+    public long writeAndReadClaim() throws IOException {
+        final ContentClaim claim = write();
+        final long bytesRead = read(claim);
+        contentRepository.decrementClaimantCount(claim);
+        return bytesRead;
+    }
+
+    private ContentClaim write() throws IOException {
+        final ContentClaim claim = contentRepository.create(false);
+        try (final OutputStream out = contentRepository.write(claim)) {
+            out.write(content);
+        }
+        return claim;
+    }
+
+    private long read(final ContentClaim claim) throws IOException {
+        final byte[] buffer = new byte[8192];
+        long total = 0L;
+        try (final InputStream in = contentRepository.read(claim)) {
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                total += len;
+            }
+        }
+        return total;
+    }
+}
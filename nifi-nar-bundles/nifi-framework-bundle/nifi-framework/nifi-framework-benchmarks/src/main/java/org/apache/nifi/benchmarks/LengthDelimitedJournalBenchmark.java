@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.benchmarks;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.SerializedRepositoryRecord;
+import org.apache.nifi.controller.repository.StandardRepositoryRecordSerdeFactory;
+import org.apache.nifi.controller.repository.VolatileFlowFileRepository;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.provenance.VolatileProvenanceRepository;
+import org.apache.nifi.wali.BlockingQueuePool;
+import org.apache.nifi.wali.ByteArrayDataOutputStream;
+import org.apache.nifi.wali.LengthDelimitedJournal;
+import org.apache.nifi.wali.ObjectPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of writing FlowFile Repository transactions to a {@link LengthDelimitedJournal}, with and without syncing each
+ * transaction to disk. A new journal is started for each iteration so that the journal does not grow without bound.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LengthDelimitedJournalBenchmark {
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    @Param({"1", "100"})
+    private int recordsPerTransaction;
+
+    private File journalDirectory;
+    private StandardRepositoryRecordSerdeFactory serdeFactory;
+    private ObjectPool<ByteArrayDataOutputStream> streamPool;
+    private List<SerializedRepositoryRecord> transaction;
+    private LengthDelimitedJournal<SerializedRepositoryRecord> journal;
+    private int journalIndex = 0;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        journalDirectory = BenchmarkUtils.createTempDirectory("journal");
+
+        final StandardResourceClaimManager resourceClaimManager = new StandardResourceClaimManager();
+        final FlowFileQueue queue = BenchmarkUtils.createQueue("benchmark-queue", new VolatileFlowFileRepository(), new VolatileProvenanceRepository(), resourceClaimManager);
+        serdeFactory = new StandardRepositoryRecordSerdeFactory(resourceClaimManager);
+        streamPool = new BlockingQueuePool<>(16,
+            () -> new ByteArrayDataOutputStream(BUFFER_SIZE),
+            stream -> stream.getByteArrayOutputStream().size() < BUFFER_SIZE,
+            stream -> stream.getByteArrayOutputStream().reset());
+
+        transaction = new ArrayList<>(recordsPerTransaction);
+        for (int i = 0; i < recordsPerTransaction; i++) {
+            transaction.add(BenchmarkUtils.createRepositoryRecord(i, 5, queue, resourceClaimManager));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void createJournal() throws IOException {
+        final File journalFile = new File(journalDirectory, (journalIndex++) + ".journal");
+        journal = new LengthDelimitedJournal<>(journalFile, serdeFactory, streamPool, 0L);
+        journal.writeHeader();
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeJournal() throws IOException {
+        journal.close();
+        BenchmarkUtils.deleteDirectory(journalDirectory);
+        journalDirectory.mkdirs();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkUtils.deleteDirectory(journalDirectory);
+    }
+
+    @Benchmark
+    public void update() throws IOException {
+        journal.update(transaction, id -> null);
+    }
+
+    @Benchmark
+    public void updateAndSync() throws IOException {
+        journal.update(transaction, id -> null);
+        journal.fsync();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.benchmarks;
+
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.connectable.StandardConnection;
+import org.apache.nifi.controller.StandardFunnel;
+import org.apache.nifi.controller.repository.FileSystemRepository;
+import org.apache.nifi.controller.repository.RepositoryContext;
+import org.apache.nifi.controller.repository.StandardContentRepositoryContext;
+import org.apache.nifi.controller.repository.StandardCounterRepository;
+import org.apache.nifi.controller.repository.StandardProcessSession;
+import org.apache.nifi.controller.repository.StandardRepositoryContext;
+import org.apache.nifi.controller.repository.VolatileFlowFileRepository;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.controller.repository.metrics.RingBufferEventRepository;
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.groups.ProcessGroup;
+import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.provenance.VolatileProvenanceRepository;
+import org.apache.nifi.util.NiFiProperties;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * Measures a full round trip of FlowFiles through {@link StandardProcessSession}: one session creates FlowFiles, updates their attributes, transfers
+ * them to a Connection and commits, and a second session pulls the FlowFiles from that Connection, removes them and commits.
+ * </p>
+ *
+ * <p>
+ * The FlowFile and Provenance Repositories are the volatile implementations so that the benchmark measures the session itself. Content is written to
+ * a {@link FileSystemRepository} in a temporary directory.
+ * </p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProcessSessionBenchmark {
+    private static final byte[] CONTENT = new byte[1024];
+
+    @Param({"1", "100"})
+    private int flowFilesPerSession;
+
+    private File contentRepositoryDirectory;
+    private FileSystemRepository contentRepository;
+    private VolatileFlowFileRepository flowFileRepository;
+    private VolatileProvenanceRepository provenanceRepository;
+    private RingBufferEventRepository flowFileEventRepository;
+    private RepositoryContext sourceContext;
+    private RepositoryContext destinationContext;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        contentRepositoryDirectory = BenchmarkUtils.createTempDirectory("content");
+
+        final Map<String, String> properties = new HashMap<>();
+        properties.put(NiFiProperties.REPOSITORY_CONTENT_PREFIX + "default", contentRepositoryDirectory.getAbsolutePath());
+        properties.put(NiFiProperties.CONTENT_ARCHIVE_ENABLED, "false");
+        final NiFiProperties nifiProperties = NiFiProperties.createBasicNiFiProperties("", properties);
+
+        final StandardResourceClaimManager resourceClaimManager = new StandardResourceClaimManager();
+        contentRepository = new FileSystemRepository(nifiProperties);
+        contentRepository.initialize(new StandardContentRepositoryContext(resourceClaimManager, EventReporter.NO_OP));
+
+        flowFileRepository = new VolatileFlowFileRepository();
+        flowFileRepository.initialize(resourceClaimManager);
+        provenanceRepository = new VolatileProvenanceRepository(10_000, null, null);
+        flowFileEventRepository = new RingBufferEventRepository(5);
+
+        final StandardFunnel source = new StandardFunnel("source-funnel", 1, 1);
+        final StandardFunnel destination = new StandardFunnel("destination-funnel", 1, 1);
+        final Connection connection = new StandardConnection.Builder(null)
+            .id("benchmark-connection")
+            .source(source)
+            .destination(destination)
+            .relationships(Collections.singleton(Relationship.ANONYMOUS))
+            .processGroup(Mockito.mock(ProcessGroup.class))
+            .flowFileQueueFactory((loadBalanceStrategy, partitioningAttribute, eventListener, processGroup) ->
+                BenchmarkUtils.createQueue("benchmark-connection", flowFileRepository, provenanceRepository, resourceClaimManager))
+            .build();
+        source.addConnection(connection);
+        destination.addConnection(connection);
+
+        sourceContext = new StandardRepositoryContext(source, new AtomicLong(0L), contentRepository, flowFileRepository, flowFileEventRepository,
+            new StandardCounterRepository(), provenanceRepository, null);
+        destinationContext = new StandardRepositoryContext(destination, new AtomicLong(0L), contentRepository, flowFileRepository, flowFileEventRepository,
+            new StandardCounterRepository(), provenanceRepository, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        contentRepository.shutdown();
+        flowFileRepository.close();
+        provenanceRepository.close();
+        flowFileEventRepository.close();
+        BenchmarkUtils.deleteDirectory(contentRepositoryDirectory);
+    }
+
+    @Benchmark
+    public int createTransferCommit() {
+        final StandardProcessSession createSession = new StandardProcessSession(sourceContext, () -> false);
+        for (int i = 0; i < flowFilesPerSession; i++) {
+            FlowFile flowFile = createSession.create();
+            flowFile = createSession.putAttribute(flowFile, "index", String.valueOf(i));
+            createSession.transfer(flowFile, Relationship.ANONYMOUS);
+        }
+        createSession.commit();
+
+        return drain();
+    }
+
+    @Benchmark
+    public int createWriteTransferCommit() {
+        final StandardProcessSession createSession = new StandardProcessSession(sourceContext, () -> false);
+        for (int i = 0; i < flowFilesPerSession; i++) {
+            FlowFile flowFile = createSession.create();
+            flowFile = createSession.write(flowFile, out -> out.write(CONTENT));
+            flowFile = createSession.putAttribute(flowFile, "index", String.valueOf(i));
+            createSession.transfer(flowFile, Relationship.ANONYMOUS);
+        }
+        createSession.commit();
+
+        return drain();
+    }
+
+    private int drain() {
+        final StandardProcessSession drainSession = new StandardProcessSession(destinationContext, () -> false);
+        final List<FlowFile> flowFiles = drainSession.get(flowFilesPerSession);
+        drainSession.remove(flowFiles);
+        drainSession.commit();
+        return flowFiles.size();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.benchmarks;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.SchemaRepositoryRecordSerde;
+import org.apache.nifi.controller.repository.SerializedRepositoryRecord;
+import org.apache.nifi.controller.repository.VolatileFlowFileRepository;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.provenance.VolatileProvenanceRepository;
+import org.apache.nifi.repository.schema.NoOpFieldCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serializing and deserializing FlowFile Repository records with {@link SchemaRepositoryRecordSerde}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class RepositoryRecordSerdeBenchmark {
+
+    @Param({"5", "50"})
+    private int attributeCount;
+
+    private SchemaRepositoryRecordSerde serializer;
+    private SchemaRepositoryRecordSerde deserializer;
+    private SerializedRepositoryRecord record;
+    private ByteArrayOutputStream buffer;
+    private DataOutputStream bufferOut;
+    private byte[] serializedRecord;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        final StandardResourceClaimManager resourceClaimManager = new StandardResourceClaimManager();
+        final FlowFileQueue queue = BenchmarkUtils.createQueue("benchmark-queue", new VolatileFlowFileRepository(), new VolatileProvenanceRepository(), resourceClaimManager);
+        record = BenchmarkUtils.createRepositoryRecord(1L, attributeCount, queue, resourceClaimManager);
+
+        serializer = new SchemaRepositoryRecordSerde(resourceClaimManager, new NoOpFieldCache());
+        deserializer = new SchemaRepositoryRecordSerde(resourceClaimManager, new NoOpFieldCache());
+
+        buffer = new ByteArrayOutputStream();
+        bufferOut = new DataOutputStream(buffer);
+
+        serializer.writeHeader(bufferOut);
+        bufferOut.flush();
+        deserializer.readHeader(new DataInputStream(new ByteArrayInputStream(buffer.toByteArray())));
+
+        buffer.reset();
+        serializer.serializeRecord(record, bufferOut);
+        bufferOut.flush();
+        serializedRecord = buffer.toByteArray();
+    }
+
+    @Benchmark
+    public int serialize() throws IOException {
+        buffer.reset();
+        serializer.serializeRecord(record, bufferOut);
+        bufferOut.flush();
+        return buffer.size();
+    }
+
+    @Benchmark
+    public SerializedRepositoryRecord deserialize() throws IOException {
+        return deserializer.deserializeRecord(new DataInputStream(new ByteArrayInputStream(serializedRecord)), deserializer.getVersion());
+    }
+}
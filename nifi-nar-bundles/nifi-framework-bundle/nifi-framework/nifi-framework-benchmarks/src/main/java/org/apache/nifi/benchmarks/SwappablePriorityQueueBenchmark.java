@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.benchmarks;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.SwappablePriorityQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.VolatileFlowFileRepository;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.provenance.VolatileProvenanceRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput of enqueuing and dequeuing FlowFiles on a single {@link SwappablePriorityQueue} that is shared by several threads
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class SwappablePriorityQueueBenchmark {
+    private static final int INITIAL_QUEUE_SIZE = 10_000;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"1", "8"})
+    private int activeQueuePartitions;
+
+    private final AtomicLong flowFileIdGenerator = new AtomicLong(0L);
+    private SwappablePriorityQueue queue;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        final FlowFileQueue flowFileQueue = BenchmarkUtils.createQueue("benchmark-queue", new VolatileFlowFileRepository(), new VolatileProvenanceRepository(),
+            new StandardResourceClaimManager());
+        queue = new SwappablePriorityQueue(null, BenchmarkUtils.NO_SWAP_THRESHOLD, activeQueuePartitions, EventReporter.NO_OP, flowFileQueue,
+            (flowFiles, requestor) -> null, null);
+
+        final List<FlowFileRecord> flowFiles = new ArrayList<>(INITIAL_QUEUE_SIZE);
+        for (int i = 0; i < INITIAL_QUEUE_SIZE; i++) {
+            flowFiles.add(BenchmarkUtils.createFlowFile(flowFileIdGenerator.getAndIncrement(), 5));
+        }
+        queue.putAll(flowFiles);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private final Set<FlowFileRecord> expired = new HashSet<>();
+        private final List<FlowFileRecord> batch = new ArrayList<>(BATCH_SIZE);
+    }
+
+    @Benchmark
+    public FlowFileRecord putAndPoll(final ThreadState threadState) {
+        queue.put(BenchmarkUtils.createFlowFile(flowFileIdGenerator.getAndIncrement(), 5));
+
+        final FlowFileRecord polled = queue.poll(threadState.expired, 0L);
+        if (polled != null) {
+            queue.acknowledge(polled);
+        }
+        return polled;
+    }
+
+    @Benchmark
+    public int putAllAndPollBatch(final ThreadState threadState) {
+        final List<FlowFileRecord> batch = threadState.batch;
+        batch.clear();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(BenchmarkUtils.createFlowFile(flowFileIdGenerator.getAndIncrement(), 5));
+        }
+        queue.putAll(batch);
+
+        final List<FlowFileRecord> polled = queue.poll(BATCH_SIZE, threadState.expired, 0L);
+        queue.acknowledge(polled);
+        return polled.size();
+    }
+}
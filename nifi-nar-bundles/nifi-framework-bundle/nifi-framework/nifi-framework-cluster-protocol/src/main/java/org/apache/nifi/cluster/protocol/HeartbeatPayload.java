@@ -16,7 +16,10 @@
  */
 package org.apache.nifi.cluster.protocol;
 
+import org.apache.nifi.cluster.coordination.node.DisconnectionCode;
+import org.apache.nifi.cluster.coordination.node.NodeConnectionState;
 import org.apache.nifi.cluster.coordination.node.NodeConnectionStatus;
+import org.apache.nifi.cluster.coordination.node.OffloadCode;
 import org.apache.nifi.security.xml.XmlUtils;
 
 import javax.xml.bind.JAXBContext;
@@ -24,23 +27,55 @@ import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * The payload of the heartbeat. The payload contains status to inform the cluster manager the current workload of this node.
  *
+ * <p>
+ * The payload may be marshalled either as XML or using a compact binary encoding, as indicated by {@link Format}. Either format
+ * can be unmarshalled, but versions prior to the introduction of the binary encoding are only able to unmarshal XML.
+ * </p>
  */
 @XmlRootElement
 public class HeartbeatPayload {
 
+    /**
+     * The formats in which a Heartbeat Payload can be marshalled
+     */
+    public enum Format {
+        /**
+         * The JAXB-marshalled XML that all versions are able to unmarshal
+         */
+        XML,
+
+        /**
+         * A compact, versioned binary encoding that only versions supporting it are able to unmarshal
+         */
+        BINARY
+    }
+
     private static final JAXBContext JAXB_CONTEXT;
 
+    private static final byte[] MAGIC_HEADER = {'N', 'H', 'B'};
+    private static final int ENCODING_VERSION = 1;
+
     static {
         try {
             JAXB_CONTEXT = JAXBContext.newInstance(HeartbeatPayload.class);
@@ -55,6 +90,7 @@ public class HeartbeatPayload {
     private long systemStartTime;
     private List<NodeConnectionStatus> clusterStatus;
     private long revisionUpdateCount;
+    private boolean clusterStatusUnchanged;
 
     public int getActiveThreadCount() {
         return activeThreadCount;
@@ -104,13 +140,49 @@ public class HeartbeatPayload {
         this.revisionUpdateCount = revisionUpdateCount;
     }
 
+    /**
+     * @return <code>true</code> if the node's view of the cluster status is the same as the one that it reported in its last heartbeat
+     * that was acknowledged by the Cluster Coordinator, in which case the cluster status is not included in this payload. This is only
+     * conveyed by the {@link Format#BINARY binary} format.
+     */
+    @XmlTransient
+    public boolean isClusterStatusUnchanged() {
+        return clusterStatusUnchanged;
+    }
+
+    public void setClusterStatusUnchanged(final boolean clusterStatusUnchanged) {
+        this.clusterStatusUnchanged = clusterStatusUnchanged;
+    }
+
+    /**
+     * Marshals this payload in the {@link Format#XML XML} format, which every version of the Cluster Coordinator can read
+     */
     public byte[] marshal() throws ProtocolException {
+        return marshal(Format.XML);
+    }
+
+    public byte[] marshal(final Format format) throws ProtocolException {
         final ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream();
-        marshal(this, payloadBytes);
+        marshal(this, payloadBytes, format);
         return payloadBytes.toByteArray();
     }
 
+    /**
+     * Marshals the given payload in the {@link Format#XML XML} format, which every version of the Cluster Coordinator can read
+     */
     public static void marshal(final HeartbeatPayload payload, final OutputStream os) throws ProtocolException {
+        marshal(payload, os, Format.XML);
+    }
+
+    public static void marshal(final HeartbeatPayload payload, final OutputStream os, final Format format) throws ProtocolException {
+        if (format == Format.XML) {
+            marshalXml(payload, os);
+        } else {
+            marshalBinary(payload, os);
+        }
+    }
+
+    private static void marshalXml(final HeartbeatPayload payload, final OutputStream os) throws ProtocolException {
         try {
             final Marshaller marshaller = JAXB_CONTEXT.createMarshaller();
             marshaller.marshal(payload, os);
@@ -119,10 +191,55 @@ public class HeartbeatPayload {
         }
     }
 
+    private static void marshalBinary(final HeartbeatPayload payload, final OutputStream os) throws ProtocolException {
+        try {
+            final DataOutputStream dos = new DataOutputStream(os);
+            dos.write(MAGIC_HEADER);
+            dos.writeByte(ENCODING_VERSION);
+
+            dos.writeInt(payload.getActiveThreadCount());
+            dos.writeLong(payload.getTotalFlowFileCount());
+            dos.writeLong(payload.getTotalFlowFileBytes());
+            dos.writeLong(payload.getSystemStartTime());
+            dos.writeLong(payload.getRevisionUpdateCount());
+            dos.writeBoolean(payload.isClusterStatusUnchanged());
+
+            final List<NodeConnectionStatus> clusterStatus = payload.getClusterStatus();
+            if (clusterStatus == null) {
+                dos.writeInt(-1);
+            } else {
+                dos.writeInt(clusterStatus.size());
+                for (final NodeConnectionStatus status : clusterStatus) {
+                    writeConnectionStatus(status, dos);
+                }
+            }
+
+            dos.flush();
+        } catch (final IOException ioe) {
+            throw new ProtocolException(ioe);
+        }
+    }
+
     public static HeartbeatPayload unmarshal(final InputStream is) throws ProtocolException {
+        final InputStream in = is.markSupported() ? is : new BufferedInputStream(is);
+
+        try {
+            in.mark(MAGIC_HEADER.length);
+            final byte[] header = new byte[MAGIC_HEADER.length];
+            final int headerLength = fillBuffer(in, header);
+            if (headerLength == MAGIC_HEADER.length && Arrays.equals(header, MAGIC_HEADER)) {
+                return unmarshalBinary(new DataInputStream(in));
+            }
+
+            in.reset();
+        } catch (final IOException ioe) {
+            throw new ProtocolException(ioe);
+        }
+
+        // Payloads marshalled by older versions are XML
         try {
             final Unmarshaller unmarshaller = JAXB_CONTEXT.createUnmarshaller();
-            final XMLStreamReader xsr = XmlUtils.createSafeReader(is);
+            final XMLStreamReader xsr = XmlUtils.createSafeReader(in);
             return (HeartbeatPayload) unmarshaller.unmarshal(xsr);
         } catch (final JAXBException | XMLStreamException e) {
             throw new ProtocolException(e);
@@ -132,4 +249,161 @@ public class HeartbeatPayload {
     public static HeartbeatPayload unmarshal(final byte[] bytes) throws ProtocolException {
         return unmarshal(new ByteArrayInputStream(bytes));
     }
+
+    private static HeartbeatPayload unmarshalBinary(final DataInputStream in) throws IOException {
+        final int version = in.readUnsignedByte();
+        if (version != ENCODING_VERSION) {
+            throw new ProtocolException("Unable to unmarshal Heartbeat Payload because it was encoded using version " + version
+                + " but only version " + ENCODING_VERSION + " is supported");
+        }
+
+        final HeartbeatPayload payload = new HeartbeatPayload();
+        payload.setActiveThreadCount(in.readInt());
+        payload.setTotalFlowFileCount(in.readLong());
+        payload.setTotalFlowFileBytes(in.readLong());
+        payload.setSystemStartTime(in.readLong());
+        payload.setRevisionUpdateCount(in.readLong());
+        payload.setClusterStatusUnchanged(in.readBoolean());
+
+        final int statusCount = in.readInt();
+        if (statusCount >= 0) {
+            final List<NodeConnectionStatus> clusterStatus = new ArrayList<>(statusCount);
+            for (int i = 0; i < statusCount; i++) {
+                clusterStatus.add(readConnectionStatus(in));
+            }
+            payload.setClusterStatus(clusterStatus);
+        }
+
+        return payload;
+    }
+
+    private static void writeConnectionStatus(final NodeConnectionStatus status, final DataOutputStream out) throws IOException {
+        out.writeLong(status.getUpdateIdentifier());
+        writeNodeIdentifier(status.getNodeIdentifier(), out);
+        writeString(status.getState() == null ? null : status.getState().name(), out);
+        writeString(status.getOffloadCode() == null ? null : status.getOffloadCode().name(), out);
+        writeString(status.getDisconnectCode() == null ? null : status.getDisconnectCode().name(), out);
+        writeString(status.getReason(), out);
+        writeLong(status.getConnectionRequestTime(), out);
+    }
+
+    private static NodeConnectionStatus readConnectionStatus(final DataInputStream in) throws IOException {
+        final long updateId = in.readLong();
+        final NodeIdentifier nodeId = readNodeIdentifier(in);
+        final String state = readString(in);
+        final String offloadCode = readString(in);
+        final String disconnectCode = readString(in);
+        final String reason = readString(in);
+        final Long connectionRequestTime = readLong(in);
+
+        try {
+            return new NodeConnectionStatus(updateId, nodeId,
+                state == null ? null : NodeConnectionState.valueOf(state),
+                offloadCode == null ? null : OffloadCode.valueOf(offloadCode),
+                disconnectCode == null ? null : DisconnectionCode.valueOf(disconnectCode),
+                reason, connectionRequestTime);
+        } catch (final IllegalArgumentException iae) {
+            throw new ProtocolException("Unable to unmarshal Node Connection Status for " + nodeId, iae);
+        }
+    }
+
+    private static void writeNodeIdentifier(final NodeIdentifier nodeId, final DataOutputStream out) throws IOException {
+        writeString(nodeId.getId(), out);
+        writeString(nodeId.getApiAddress(), out);
+        out.writeInt(nodeId.getApiPort());
+        writeString(nodeId.getSocketAddress(), out);
+        out.writeInt(nodeId.getSocketPort());
+        writeString(nodeId.getLoadBalanceAddress(), out);
+        out.writeInt(nodeId.getLoadBalancePort());
+        writeString(nodeId.getSiteToSiteAddress(), out);
+        writeInteger(nodeId.getSiteToSitePort(), out);
+        writeInteger(nodeId.getSiteToSiteHttpApiPort(), out);
+        out.writeBoolean(nodeId.isSiteToSiteSecure());
+
+        final Set<String> nodeIdentities = nodeId.getNodeIdentities();
+        out.writeInt(nodeIdentities.size());
+        for (final String identity : nodeIdentities) {
+            writeString(identity, out);
+        }
+    }
+
+    private static NodeIdentifier readNodeIdentifier(final DataInputStream in) throws IOException {
+        final String id = readString(in);
+        final String apiAddress = readString(in);
+        final int apiPort = in.readInt();
+        final String socketAddress = readString(in);
+        final int socketPort = in.readInt();
+        final String loadBalanceAddress = readString(in);
+        final int loadBalancePort = in.readInt();
+        final String siteToSiteAddress = readString(in);
+        final Integer siteToSitePort = readInteger(in);
+        final Integer siteToSiteHttpApiPort = readInteger(in);
+        final boolean siteToSiteSecure = in.readBoolean();
+
+        final int identityCount = in.readInt();
+        final Set<String> nodeIdentities = new HashSet<>(identityCount);
+        for (int i = 0; i < identityCount; i++) {
+            nodeIdentities.add(readString(in));
+        }
+
+        return new NodeIdentifier(id, apiAddress, apiPort, socketAddress, socketPort, loadBalanceAddress, loadBalancePort,
+            siteToSiteAddress, siteToSitePort, siteToSiteHttpApiPort, siteToSiteSecure, nodeIdentities);
+    }
+
+    private static void writeString(final String value, final DataOutputStream out) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInteger(final Integer value, final DataOutputStream out) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeInt(value);
+        }
+    }
+
+    private static Integer readInteger(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readInt() : null;
+    }
+
+    private static void writeLong(final Long value, final DataOutputStream out) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static int fillBuffer(final InputStream in, final byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            final int read = in.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+
+        return total;
+    }
 }
@@ -28,6 +28,7 @@ public class HeartbeatResponseMessage extends ProtocolMessage {
 
     private List<NodeConnectionStatus> updatedNodeStatuses = new ArrayList<>();
     private String flowElectionMessage = null;
+    private boolean clusterStatusRequired = false;
     private CommsTimingDetails commsTimingDetails;
 
     @Override
@@ -51,6 +52,18 @@ public class HeartbeatResponseMessage extends ProtocolMessage {
         this.flowElectionMessage = flowElectionMessage;
     }
 
+    /**
+     * @return <code>true</code> if the node omitted its view of the cluster status from its heartbeat but the Cluster Coordinator
+     * has no prior view for the node to compare against, so the node must include its full cluster status in its next heartbeat
+     */
+    public boolean isClusterStatusRequired() {
+        return clusterStatusRequired;
+    }
+
+    public void setClusterStatusRequired(final boolean clusterStatusRequired) {
+        this.clusterStatusRequired = clusterStatusRequired;
+    }
+
     public CommsTimingDetails getCommsTimingDetails() {
         return commsTimingDetails;
     }
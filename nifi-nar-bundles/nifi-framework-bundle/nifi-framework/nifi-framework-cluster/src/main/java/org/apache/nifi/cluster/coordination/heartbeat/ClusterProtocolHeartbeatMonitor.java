@@ -59,6 +59,10 @@ public class ClusterProtocolHeartbeatMonitor extends AbstractHeartbeatMonitor im
     private final String heartbeatAddress;
     private final ConcurrentMap<NodeIdentifier, NodeHeartbeat> heartbeatMessages = new ConcurrentHashMap<>();
 
+    // The most recent view of the cluster status that each node included in a heartbeat. Nodes omit their view from
+    // heartbeats while it is unchanged, in which case this view is used instead.
+    private final ConcurrentMap<NodeIdentifier, List<NodeConnectionStatus>> reportedClusterStatuses = new ConcurrentHashMap<>();
+
     private volatile long purgeTimestamp = System.currentTimeMillis();
 
     public ClusterProtocolHeartbeatMonitor(final ClusterCoordinator clusterCoordinator, final ProtocolListener protocolListener, final NiFiProperties nifiProperties) {
@@ -100,6 +104,7 @@ public class ClusterProtocolHeartbeatMonitor extends AbstractHeartbeatMonitor im
         // that if we go the required amount of time without receiving a heartbeat, we do know to mark the node
         // as disconnected.
         heartbeatMessages.clear();
+        reportedClusterStatuses.clear();
         for (final NodeIdentifier nodeId : clusterCoordinator.getNodeIdentifiers()) {
             final NodeHeartbeat heartbeat = new StandardNodeHeartbeat(nodeId, System.currentTimeMillis(),
                     clusterCoordinator.getConnectionStatus(nodeId), 0, 0L, 0, System.currentTimeMillis(), 0L);
@@ -120,12 +125,14 @@ public class ClusterProtocolHeartbeatMonitor extends AbstractHeartbeatMonitor im
     public synchronized void removeHeartbeat(final NodeIdentifier nodeId) {
         logger.debug("Deleting heartbeat for node {}", nodeId);
         heartbeatMessages.remove(nodeId);
+        reportedClusterStatuses.remove(nodeId);
     }
 
     @Override
     public synchronized void purgeHeartbeats() {
         logger.debug("Purging old heartbeats");
         heartbeatMessages.clear();
+        reportedClusterStatuses.clear();
         purgeTimestamp = System.currentTimeMillis();
     }
 
@@ -165,16 +172,29 @@ public class ClusterProtocolHeartbeatMonitor extends AbstractHeartbeatMonitor im
         heartbeatMessages.put(heartbeat.getNodeIdentifier(), nodeHeartbeat);
         logger.debug("Received new heartbeat from {}", nodeId);
 
+        final HeartbeatResponseMessage responseMessage = new HeartbeatResponseMessage();
+
         // Formulate a List of differences between our view of the cluster topology and the node's view
         // and send that back to the node so that it is in-sync with us
-        List<NodeConnectionStatus> nodeStatusList = payload.getClusterStatus();
-        if (nodeStatusList == null) {
-            nodeStatusList = Collections.emptyList();
+        List<NodeConnectionStatus> nodeStatusList;
+        if (payload.isClusterStatusUnchanged()) {
+            nodeStatusList = reportedClusterStatuses.get(nodeId);
+        } else {
+            nodeStatusList = payload.getClusterStatus();
+            if (nodeStatusList == null) {
+                nodeStatusList = Collections.emptyList();
+            }
+            reportedClusterStatuses.put(nodeId, nodeStatusList);
         }
-        final List<NodeConnectionStatus> updatedStatuses = getUpdatedStatuses(nodeStatusList);
 
-        final HeartbeatResponseMessage responseMessage = new HeartbeatResponseMessage();
-        responseMessage.setUpdatedNodeStatuses(updatedStatuses);
+        if (nodeStatusList == null) {
+            // The node omitted its view of the cluster status, but we have not seen it, perhaps because we were just elected.
+            logger.debug("Heartbeat from {} did not include cluster status and no prior cluster status is known; will request full cluster status", nodeId);
+            responseMessage.setClusterStatusRequired(true);
+        } else {
+            final List<NodeConnectionStatus> updatedStatuses = getUpdatedStatuses(nodeStatusList);
+            responseMessage.setUpdatedNodeStatuses(updatedStatuses);
+        }
 
         if (!getClusterCoordinator().isFlowElectionComplete()) {
             responseMessage.setFlowElectionMessage(getClusterCoordinator().getFlowElectionStatus());
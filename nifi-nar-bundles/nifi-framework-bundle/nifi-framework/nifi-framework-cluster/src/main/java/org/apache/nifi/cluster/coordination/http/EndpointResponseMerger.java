@@ -21,6 +21,7 @@ import java.net.URI;
 import java.util.Set;
 
 import org.apache.nifi.cluster.manager.NodeResponse;
+import org.apache.nifi.web.api.entity.Entity;
 
 /**
  * <p>
@@ -59,4 +60,24 @@ public interface EndpointResponseMerger {
      */
     NodeResponse merge(URI uri, String method, Set<NodeResponse> successfulResponses, Set<NodeResponse> problematicResponses, NodeResponse clientResponse);
 
+    /**
+     * Indicates the type of Entity that this merger reads from each successful node response. When provided, each node's response
+     * is parsed as soon as it is received, in parallel with waiting for the other nodes, instead of when all responses are merged.
+     *
+     * @return the type of Entity read from each node response, or <code>null</code> if not known
+     */
+    default Class<? extends Entity> getResponseEntityClass() {
+        return null;
+    }
+
+    /**
+     * Indicates whether a merged response for this endpoint may be returned, for a short period of time, to other identical requests
+     * made on behalf of the same user. This is appropriate for read-only status endpoints whose values are expected to be approximate.
+     *
+     * @return <code>true</code> if the merged response may be shared, <code>false</code> otherwise
+     */
+    default boolean isMergedResponseCacheable() {
+        return false;
+    }
+
 }
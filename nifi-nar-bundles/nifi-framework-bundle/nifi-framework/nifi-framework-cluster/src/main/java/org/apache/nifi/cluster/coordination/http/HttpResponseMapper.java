@@ -62,4 +62,27 @@ public interface HttpResponseMapper {
      * @return <code>true</code> if the response must be interpreted, <code>false</code> otherwise
      */
     boolean isResponseInterpreted(URI uri, String httpMethod);
+
+    /**
+     * Prepares the given response from a single node to be merged, before the responses from the other nodes have been received.
+     * Called only for responses that will be merged.
+     *
+     * @param uri the URI of the request
+     * @param httpMethod the HTTP Method of the request
+     * @param nodeResponse the response from a single node
+     */
+    default void preprocessResponse(URI uri, String httpMethod, NodeResponse nodeResponse) {
+    }
+
+    /**
+     * Indicates whether a merged response for the given URI & HTTP method may be returned, for a short period of time, to other
+     * identical requests made on behalf of the same user
+     *
+     * @param uri the URI of the request
+     * @param httpMethod the HTTP Method of the request
+     * @return <code>true</code> if the merged response may be shared, <code>false</code> otherwise
+     */
+    default boolean isMergedResponseCacheable(URI uri, String httpMethod) {
+        return false;
+    }
 }
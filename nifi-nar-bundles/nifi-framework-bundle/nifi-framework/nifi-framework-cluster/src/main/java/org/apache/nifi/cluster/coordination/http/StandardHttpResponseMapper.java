@@ -80,6 +80,7 @@ import org.apache.nifi.cluster.coordination.http.endpoints.UsersEndpointMerger;
 import org.apache.nifi.cluster.coordination.http.endpoints.VariableRegistryEndpointMerger;
 import org.apache.nifi.cluster.coordination.http.endpoints.VerifyConfigEndpointMerger;
 import org.apache.nifi.cluster.coordination.http.replication.RequestReplicator;
+import org.apache.nifi.cluster.coordination.http.replication.okhttp.JacksonResponse;
 import org.apache.nifi.cluster.manager.NodeResponse;
 import org.apache.nifi.stream.io.NullOutputStream;
 import org.apache.nifi.util.FormatUtils;
@@ -240,6 +241,32 @@ public class StandardHttpResponseMapper implements HttpResponseMapper {
         return getEndpointResponseMerger(uri, httpMethod) != null;
     }
 
+    @Override
+    public void preprocessResponse(final URI uri, final String httpMethod, final NodeResponse nodeResponse) {
+        if (nodeResponse.hasThrowable() || !nodeResponse.is2xx() || !(nodeResponse.getClientResponse() instanceof JacksonResponse)) {
+            return;
+        }
+
+        final EndpointResponseMerger merger = getEndpointResponseMerger(uri, httpMethod);
+        final Class<?> entityClass = merger == null ? null : merger.getResponseEntityClass();
+        if (entityClass == null) {
+            return;
+        }
+
+        try {
+            ((JacksonResponse) nodeResponse.getClientResponse()).preloadEntity(entityClass);
+        } catch (final Exception e) {
+            // The entity will be parsed again when the responses are merged, and any failure will be reported then
+            logger.debug("Failed to parse response from {} for {} {} as {}", nodeResponse.getNodeId(), httpMethod, uri, entityClass.getSimpleName(), e);
+        }
+    }
+
+    @Override
+    public boolean isMergedResponseCacheable(final URI uri, final String httpMethod) {
+        final EndpointResponseMerger merger = getEndpointResponseMerger(uri, httpMethod);
+        return merger != null && merger.isMergedResponseCacheable();
+    }
+
     private EndpointResponseMerger getEndpointResponseMerger(final URI uri, final String httpMethod) {
         return endpointMergers.stream().filter(p -> p.canHandle(uri, httpMethod)).findFirst().orElse(null);
     }
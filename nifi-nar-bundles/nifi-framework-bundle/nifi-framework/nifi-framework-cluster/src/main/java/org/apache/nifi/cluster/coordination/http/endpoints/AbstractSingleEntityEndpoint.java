@@ -46,6 +46,11 @@ public abstract class AbstractSingleEntityEndpoint<EntityType extends Entity> im
         return new NodeResponse(clientResponse, responseEntity);
     }
 
+    @Override
+    public Class<? extends Entity> getResponseEntityClass() {
+        return getEntityClass();
+    }
+
     /**
      * @return the class that represents the type of Entity that is expected by this response mapper
      */
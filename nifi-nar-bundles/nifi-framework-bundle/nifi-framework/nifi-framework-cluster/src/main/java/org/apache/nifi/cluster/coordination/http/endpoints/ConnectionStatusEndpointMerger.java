@@ -44,6 +44,11 @@ public class ConnectionStatusEndpointMerger extends AbstractSingleEntityEndpoint
         return ConnectionStatusEntity.class;
     }
 
+    @Override
+    public boolean isMergedResponseCacheable() {
+        return true;
+    }
+
     @Override
     protected void mergeResponses(ConnectionStatusEntity clientEntity, Map<NodeIdentifier, ConnectionStatusEntity> entityMap, Set<NodeResponse> successfulResponses,
                                   Set<NodeResponse> problematicResponses) {
@@ -41,6 +41,11 @@ public class ControllerStatusEndpointMerger extends AbstractSingleDTOEndpoint<Co
         return ControllerStatusEntity.class;
     }
 
+    @Override
+    public boolean isMergedResponseCacheable() {
+        return true;
+    }
+
     @Override
     protected ControllerStatusDTO getDto(ControllerStatusEntity entity) {
         return entity.getControllerStatus();
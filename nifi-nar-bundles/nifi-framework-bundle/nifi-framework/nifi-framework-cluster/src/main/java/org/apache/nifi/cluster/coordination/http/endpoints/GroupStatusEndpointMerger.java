@@ -44,6 +44,11 @@ public class GroupStatusEndpointMerger extends AbstractSingleEntityEndpoint<Proc
         return ProcessGroupStatusEntity.class;
     }
 
+    @Override
+    public boolean isMergedResponseCacheable() {
+        return true;
+    }
+
     @Override
     protected void mergeResponses(ProcessGroupStatusEntity clientEntity, Map<NodeIdentifier, ProcessGroupStatusEntity> entityMap, Set<NodeResponse> successfulResponses,
                                   Set<NodeResponse> problematicResponses) {
@@ -45,6 +45,11 @@ public class PortStatusEndpointMerger extends AbstractSingleEntityEndpoint<PortS
         return PortStatusEntity.class;
     }
 
+    @Override
+    public boolean isMergedResponseCacheable() {
+        return true;
+    }
+
     @Override
     protected void mergeResponses(PortStatusEntity clientEntity, Map<NodeIdentifier, PortStatusEntity> entityMap, Set<NodeResponse> successfulResponses, Set<NodeResponse> problematicResponses) {
         final PortStatusDTO mergedPortStatus = clientEntity.getPortStatus();
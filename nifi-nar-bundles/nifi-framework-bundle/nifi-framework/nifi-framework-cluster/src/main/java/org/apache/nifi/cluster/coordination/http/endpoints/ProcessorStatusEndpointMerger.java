@@ -44,6 +44,11 @@ public class ProcessorStatusEndpointMerger extends AbstractSingleEntityEndpoint<
         return ProcessorStatusEntity.class;
     }
 
+    @Override
+    public boolean isMergedResponseCacheable() {
+        return true;
+    }
+
     @Override
     protected void mergeResponses(ProcessorStatusEntity clientEntity, Map<NodeIdentifier, ProcessorStatusEntity> entityMap, Set<NodeResponse> successfulResponses,
                                   Set<NodeResponse> problematicResponses) {
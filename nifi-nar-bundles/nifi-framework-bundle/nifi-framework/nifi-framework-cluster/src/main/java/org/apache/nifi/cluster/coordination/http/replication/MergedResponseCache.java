@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.cluster.coordination.http.replication;
+
+import org.apache.nifi.cluster.manager.NodeResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Allows identical, read-only requests that are made at about the same time to share a single replicated request and merged response.
+ * A request that arrives while an identical request is being replicated waits for that request's response rather than replicating
+ * again, and the merged response continues to be returned for the configured expiration period after it completes. Only successful
+ * responses are shared.
+ * </p>
+ *
+ * <p>
+ * Callers are responsible for including in the key everything that may affect the response, including the identity of the user.
+ * </p>
+ */
+class MergedResponseCache {
+    private static final Logger logger = LoggerFactory.getLogger(MergedResponseCache.class);
+
+    private final long expirationNanos;
+    private final ConcurrentMap<String, CacheEntry> entries = new ConcurrentHashMap<>();
+
+    MergedResponseCache(final long expiration, final TimeUnit timeUnit) {
+        this.expirationNanos = timeUnit.toNanos(expiration);
+    }
+
+    boolean isEnabled() {
+        return expirationNanos > 0;
+    }
+
+    /**
+     * Returns the response for an identical request that is in progress or recently completed successfully, or else obtains a new response
+     * from the given supplier and makes it available to subsequent identical requests
+     *
+     * @param key the key identifying the request
+     * @param responseSupplier replicates the request
+     * @return the response for the request
+     */
+    AsyncClusterResponse getOrReplicate(final String key, final Supplier<AsyncClusterResponse> responseSupplier) {
+        final CacheEntry newEntry = new CacheEntry();
+        final CacheEntry entry = entries.compute(key, (k, existing) -> existing != null && existing.isReusable(System.nanoTime()) ? existing : newEntry);
+
+        if (entry != newEntry) {
+            try {
+                final AsyncClusterResponse response = entry.future.get();
+                logger.debug("Using shared response {} for request {}", response, key);
+                return response;
+            } catch (final ExecutionException e) {
+                // The identical request failed; replicate this request on its own so that its failure is reported as usual
+                return responseSupplier.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return responseSupplier.get();
+            }
+        }
+
+        try {
+            final AsyncClusterResponse response = responseSupplier.get();
+            newEntry.complete(response);
+            return response;
+        } catch (final RuntimeException | Error e) {
+            entries.remove(key, newEntry);
+            newEntry.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Discards all shared responses, so that subsequent requests are replicated. Requests that are in progress continue to be shared.
+     */
+    void invalidate() {
+        entries.values().removeIf(CacheEntry::isDone);
+    }
+
+    /**
+     * Discards any shared responses that have expired
+     *
+     * @return the number of entries remaining
+     */
+    int purgeExpired() {
+        final long now = System.nanoTime();
+        entries.values().removeIf(entry -> !entry.isReusable(now));
+        return entries.size();
+    }
+
+    private class CacheEntry {
+        private final CompletableFuture<AsyncClusterResponse> future = new CompletableFuture<>();
+        private volatile long completedNanos;
+
+        void complete(final AsyncClusterResponse response) {
+            completedNanos = System.nanoTime();
+            future.complete(response);
+        }
+
+        boolean isDone() {
+            return future.isDone();
+        }
+
+        boolean isReusable(final long now) {
+            if (!future.isDone()) {
+                return true;
+            }
+
+            if (future.isCompletedExceptionally() || now - completedNanos > expirationNanos) {
+                return false;
+            }
+
+            final AsyncClusterResponse response = future.getNow(null);
+            if (!response.isComplete()) {
+                return true;
+            }
+
+            try {
+                final NodeResponse mergedResponse = response.getMergedResponse();
+                return mergedResponse != null && mergedResponse.is2xx();
+            } catch (final RuntimeException e) {
+                return false;
+            }
+        }
+    }
+}
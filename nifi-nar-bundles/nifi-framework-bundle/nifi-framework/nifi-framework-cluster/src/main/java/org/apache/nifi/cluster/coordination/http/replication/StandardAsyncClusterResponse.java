@@ -284,6 +284,13 @@ public class StandardAsyncClusterResponse implements AsyncClusterResponse {
             throw new IllegalStateException("Node " + nodeResponse.getNodeId() + " is not known for this request");
         }
 
+        // Parse the node's response now, while waiting on other nodes, so that only the merge itself remains once all have responded
+        if (merge && phase != VERIFICATION_PHASE) {
+            final long start = System.nanoTime();
+            responseMapper.preprocessResponse(uri, method, nodeResponse);
+            addTiming("Preprocess Response", nodeResponse.getNodeId().toString(), System.nanoTime() - start);
+        }
+
         responseHolder.setResponse(nodeResponse);
         final int completedCount = requestsCompleted.incrementAndGet();
 
@@ -36,6 +36,7 @@ import org.apache.nifi.cluster.protocol.NodeIdentifier;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.reporting.Severity;
 import org.apache.nifi.util.ComponentIdGenerator;
+import org.apache.nifi.util.FormatUtils;
 import org.apache.nifi.util.NiFiProperties;
 import org.apache.nifi.web.security.ProxiedEntitiesUtils;
 import org.apache.nifi.web.security.http.SecurityCookieName;
@@ -89,6 +90,7 @@ public class ThreadPoolRequestReplicator implements RequestReplicator {
     private ScheduledExecutorService maintenanceExecutor;
 
     private final ConcurrentMap<String, StandardAsyncClusterResponse> responseMap = new ConcurrentHashMap<>();
+    private final MergedResponseCache mergedResponseCache;
     private final ConcurrentMap<NodeIdentifier, AtomicInteger> sequentialLongRequestCounts = new ConcurrentHashMap<>();
 
     private final ReadWriteLock rwLock = new ReentrantReadWriteLock();
@@ -124,6 +126,7 @@ public class ThreadPoolRequestReplicator implements RequestReplicator {
         this.callback = callback;
         this.nifiProperties = nifiProperties;
         this.httpClient = client;
+        this.mergedResponseCache = new MergedResponseCache(getStatusResponseCacheExpiration(nifiProperties), TimeUnit.MILLISECONDS);
 
         final AtomicInteger threadId = new AtomicInteger(0);
         final ThreadFactory threadFactory = r -> {
@@ -147,6 +150,22 @@ public class ThreadPoolRequestReplicator implements RequestReplicator {
         });
 
         maintenanceExecutor.scheduleWithFixedDelay(() -> purgeExpiredRequests(), 1, 1, TimeUnit.SECONDS);
+        maintenanceExecutor.scheduleWithFixedDelay(() -> mergedResponseCache.purgeExpired(), 1, 1, TimeUnit.SECONDS);
+    }
+
+    private static long getStatusResponseCacheExpiration(final NiFiProperties nifiProperties) {
+        final String expiration = nifiProperties.getProperty(NiFiProperties.CLUSTER_NODE_STATUS_RESPONSE_CACHE_EXPIRATION);
+        if (StringUtils.isBlank(expiration)) {
+            return Math.round(FormatUtils.getPreciseTimeDuration(NiFiProperties.DEFAULT_CLUSTER_NODE_STATUS_RESPONSE_CACHE_EXPIRATION, TimeUnit.MILLISECONDS));
+        }
+
+        try {
+            return Math.round(FormatUtils.getPreciseTimeDuration(expiration, TimeUnit.MILLISECONDS));
+        } catch (final Exception e) {
+            logger.warn("Invalid value '{}' for property {}; will use default of {}", expiration, NiFiProperties.CLUSTER_NODE_STATUS_RESPONSE_CACHE_EXPIRATION,
+                NiFiProperties.DEFAULT_CLUSTER_NODE_STATUS_RESPONSE_CACHE_EXPIRATION);
+            return Math.round(FormatUtils.getPreciseTimeDuration(NiFiProperties.DEFAULT_CLUSTER_NODE_STATUS_RESPONSE_CACHE_EXPIRATION, TimeUnit.MILLISECONDS));
+        }
     }
 
     @Override
@@ -228,6 +247,27 @@ public class ThreadPoolRequestReplicator implements RequestReplicator {
     @Override
     public AsyncClusterResponse replicate(Set<NodeIdentifier> nodeIds, final NiFiUser user, String method, URI uri, Object entity, Map<String, String> headers,
                                           final boolean indicateReplicated, final boolean performVerification) {
+        // Status requests from the same user that arrive at about the same time, such as from several browser tabs, share a single replication and merge
+        if (indicateReplicated && user != null && mergedResponseCache.isEnabled() && responseMapper.isMergedResponseCacheable(uri, method)) {
+            final String cacheKey = createCacheKey(nodeIds, user, method, uri);
+            return mergedResponseCache.getOrReplicate(cacheKey, () -> replicateAsUser(nodeIds, user, method, uri, entity, headers, true, performVerification));
+        }
+
+        return replicateAsUser(nodeIds, user, method, uri, entity, headers, indicateReplicated, performVerification);
+    }
+
+    private String createCacheKey(final Set<NodeIdentifier> nodeIds, final NiFiUser user, final String method, final URI uri) {
+        final String nodes = nodeIds.stream()
+            .map(NodeIdentifier::getId)
+            .sorted()
+            .collect(Collectors.joining(","));
+
+        return method.toUpperCase() + " " + uri + " [" + nodes + "] " + ProxiedEntitiesUtils.buildProxiedEntitiesChainString(user)
+            + " " + ProxiedEntitiesUtils.buildProxiedEntityGroupsString(user.getIdentityProviderGroups());
+    }
+
+    private AsyncClusterResponse replicateAsUser(final Set<NodeIdentifier> nodeIds, final NiFiUser user, final String method, final URI uri, final Object entity,
+                                                 final Map<String, String> headers, final boolean indicateReplicated, final boolean performVerification) {
         final Map<String, String> updatedHeaders = new HashMap<>(headers);
 
         updatedHeaders.put(RequestReplicator.CLUSTER_ID_GENERATION_SEED_HEADER, ComponentIdGenerator.generateId().toString());
@@ -669,6 +709,11 @@ public class ThreadPoolRequestReplicator implements RequestReplicator {
     private void onCompletedResponse(final String requestId) {
         final AsyncClusterResponse response = responseMap.get(requestId);
 
+        // Any change to the flow may change the status of its components, so shared status responses should no longer be used
+        if (response != null && isMutableRequest(response.getMethod(), response.getURIPath())) {
+            mergedResponseCache.invalidate();
+        }
+
         if (response != null && callback != null) {
             try {
                 callback.afterRequest(response.getURIPath(), response.getMethod(), response.getCompletedNodeResponses());
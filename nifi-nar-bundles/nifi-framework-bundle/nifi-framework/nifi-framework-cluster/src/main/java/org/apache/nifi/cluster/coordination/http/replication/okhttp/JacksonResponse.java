@@ -53,6 +53,9 @@ public class JacksonResponse extends Response {
 
     private final JsonFactory jsonFactory = new JsonFactory();
 
+    private Class<?> preloadedEntityType; // guarded by synchronizing on this
+    private Object preloadedEntity; // guarded by synchronizing on this
+
     public JacksonResponse(final ObjectMapper codec, final byte[] responseBody, final MultivaluedMap<String, String> responseHeaders, final URI location, final int statusCode,
             final Runnable closeCallback) {
         this.codec = codec;
@@ -87,6 +90,15 @@ public class JacksonResponse extends Response {
     @Override
     @SuppressWarnings("unchecked")
     public <T> T readEntity(Class<T> entityType) {
+        synchronized (this) {
+            if (preloadedEntity != null && entityType.equals(preloadedEntityType)) {
+                final T entity = entityType.cast(preloadedEntity);
+                preloadedEntity = null;
+                preloadedEntityType = null;
+                return entity;
+            }
+        }
+
         if (InputStream.class.equals(entityType)) {
             return (T) new ByteArrayInputStream(responseBody);
         }
@@ -104,6 +116,22 @@ public class JacksonResponse extends Response {
         }
     }
 
+    /**
+     * Parses the response body as an entity of the given type so that the next call to {@link #readEntity(Class)} for that type does not need to.
+     * This allows each node's response to be parsed as soon as it is received, rather than when all responses are merged. As with
+     * {@link #readEntity(Class)}, each subsequent call for the same type parses the body again and returns a new entity.
+     *
+     * @param entityType the type of entity to parse the response body as
+     */
+    public void preloadEntity(final Class<?> entityType) {
+        final Object entity = readEntity(entityType);
+
+        synchronized (this) {
+            preloadedEntity = entity;
+            preloadedEntityType = entityType;
+        }
+    }
+
     @Override
     public <T> T readEntity(GenericType<T> entityType) {
         throw new UnsupportedOperationException();
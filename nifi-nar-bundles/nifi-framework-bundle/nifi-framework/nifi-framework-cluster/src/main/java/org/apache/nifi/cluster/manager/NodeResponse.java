@@ -178,8 +178,9 @@ public class NodeResponse {
     }
 
     public Response getResponse() {
-        // if the response encapsulates a throwable, then the input stream is never read and the below warning is irrelevant
-        if (hasCreatedResponse && !hasThrowable()) {
+        // if the response encapsulates a throwable, then the input stream is never read and the below warning is irrelevant;
+        // likewise, a response whose entity was replaced by a merged entity can be created any number of times
+        if (hasCreatedResponse && !hasThrowable() && updatedEntity == null) {
             logger.warn("ClientResponse's input stream has already been read.  The created response will not contain this data.");
         }
         hasCreatedResponse = true;
@@ -180,6 +180,8 @@ public class ProcessorDiagnosticsEntityMerger implements ComponentEntityMerger<P
         localPartition.setSwapByteCount(0);
         localPartition.setSwapFiles(0);
         localPartition.setSwapFlowFileCount(0);
+        localPartition.setSwapInCount(0L);
+        localPartition.setSwapInStallMillis(0L);
         localPartition.setTotalByteCount(0);
         localPartition.setTotalFlowFileCount(0);
 
@@ -201,6 +203,8 @@ public class ProcessorDiagnosticsEntityMerger implements ComponentEntityMerger<P
             localPartition.setSwapByteCount(localPartition.getSwapByteCount() + snapshotLocalPartition.getSwapByteCount());
             localPartition.setSwapFiles(localPartition.getSwapFiles() + snapshotLocalPartition.getSwapFiles());
             localPartition.setSwapFlowFileCount(localPartition.getSwapFlowFileCount() + snapshotLocalPartition.getSwapFlowFileCount());
+            localPartition.setSwapInCount(localPartition.getSwapInCount() + snapshotLocalPartition.getSwapInCount());
+            localPartition.setSwapInStallMillis(localPartition.getSwapInStallMillis() + snapshotLocalPartition.getSwapInStallMillis());
             localPartition.setTotalByteCount(localPartition.getTotalByteCount() + snapshotLocalPartition.getTotalByteCount());
             localPartition.setTotalFlowFileCount(localPartition.getTotalFlowFileCount() + snapshotLocalPartition.getTotalFlowFileCount());
 
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.cluster.coordination.http.replication;
+
+import org.apache.nifi.cluster.manager.NodeResponse;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestMergedResponseCache {
+
+    @Test
+    public void testDisabledWhenExpirationIsZero() {
+        assertFalse(new MergedResponseCache(0, TimeUnit.SECONDS).isEnabled());
+        assertTrue(new MergedResponseCache(1, TimeUnit.SECONDS).isEnabled());
+    }
+
+    @Test
+    public void testSuccessfulResponseIsShared() {
+        final MergedResponseCache cache = new MergedResponseCache(1, TimeUnit.MINUTES);
+        final AtomicInteger replications = new AtomicInteger(0);
+
+        final AsyncClusterResponse first = cache.getOrReplicate("key", () -> replicate(replications, 200));
+        final AsyncClusterResponse second = cache.getOrReplicate("key", () -> replicate(replications, 200));
+
+        assertSame(first, second);
+        assertEquals(1, replications.get());
+    }
+
+    @Test
+    public void testDifferentKeysAreNotShared() {
+        final MergedResponseCache cache = new MergedResponseCache(1, TimeUnit.MINUTES);
+        final AtomicInteger replications = new AtomicInteger(0);
+
+        final AsyncClusterResponse first = cache.getOrReplicate("user-1", () -> replicate(replications, 200));
+        final AsyncClusterResponse second = cache.getOrReplicate("user-2", () -> replicate(replications, 200));
+
+        assertNotSame(first, second);
+        assertEquals(2, replications.get());
+    }
+
+    @Test
+    public void testUnsuccessfulResponseIsNotShared() {
+        final MergedResponseCache cache = new MergedResponseCache(1, TimeUnit.MINUTES);
+        final AtomicInteger replications = new AtomicInteger(0);
+
+        cache.getOrReplicate("key", () -> replicate(replications, 409));
+        cache.getOrReplicate("key", () -> replicate(replications, 409));
+
+        assertEquals(2, replications.get());
+    }
+
+    @Test
+    public void testExpiredResponseIsNotShared() throws InterruptedException {
+        final MergedResponseCache cache = new MergedResponseCache(1, TimeUnit.MILLISECONDS);
+        final AtomicInteger replications = new AtomicInteger(0);
+
+        cache.getOrReplicate("key", () -> replicate(replications, 200));
+        Thread.sleep(10L);
+        cache.getOrReplicate("key", () -> replicate(replications, 200));
+
+        assertEquals(2, replications.get());
+
+        Thread.sleep(10L);
+        assertEquals(0, cache.purgeExpired());
+    }
+
+    @Test
+    public void testInvalidateDiscardsCompletedResponses() {
+        final MergedResponseCache cache = new MergedResponseCache(1, TimeUnit.MINUTES);
+        final AtomicInteger replications = new AtomicInteger(0);
+
+        cache.getOrReplicate("key", () -> replicate(replications, 200));
+        cache.invalidate();
+        cache.getOrReplicate("key", () -> replicate(replications, 200));
+
+        assertEquals(2, replications.get());
+    }
+
+    @Test
+    public void testFailedReplicationIsNotShared() {
+        final MergedResponseCache cache = new MergedResponseCache(1, TimeUnit.MINUTES);
+        final AtomicInteger replications = new AtomicInteger(0);
+
+        try {
+            cache.getOrReplicate("key", () -> {
+                throw new IllegalStateException("Intentional failure for unit test");
+            });
+            fail("Expected IllegalStateException");
+        } catch (final IllegalStateException expected) {
+        }
+
+        cache.getOrReplicate("key", () -> replicate(replications, 200));
+        assertEquals(1, replications.get());
+    }
+
+    @Test(timeout = 10000)
+    public void testConcurrentRequestWaitsForInFlightRequest() throws Exception {
+        final MergedResponseCache cache = new MergedResponseCache(1, TimeUnit.MINUTES);
+        final AtomicInteger replications = new AtomicInteger(0);
+        final CountDownLatch replicationStarted = new CountDownLatch(1);
+        final CountDownLatch allowCompletion = new CountDownLatch(1);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final Future<AsyncClusterResponse> first = executor.submit(() -> cache.getOrReplicate("key", () -> {
+                replicationStarted.countDown();
+                try {
+                    allowCompletion.await();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return replicate(replications, 200);
+            }));
+
+            replicationStarted.await();
+            final Future<AsyncClusterResponse> second = executor.submit(() -> cache.getOrReplicate("key", () -> replicate(replications, 200)));
+
+            allowCompletion.countDown();
+            assertSame(first.get(), second.get());
+            assertEquals(1, replications.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private AsyncClusterResponse replicate(final AtomicInteger replications, final int status) {
+        replications.incrementAndGet();
+
+        final NodeResponse mergedResponse = Mockito.mock(NodeResponse.class);
+        Mockito.when(mergedResponse.is2xx()).thenReturn(status >= 200 && status < 300);
+
+        final AsyncClusterResponse response = Mockito.mock(AsyncClusterResponse.class);
+        Mockito.when(response.isComplete()).thenReturn(true);
+        Mockito.when(response.getMergedResponse()).thenReturn(mergedResponse);
+        return response;
+    }
+}
@@ -27,6 +27,8 @@ import org.apache.nifi.controller.repository.SwapContents;
 import org.apache.nifi.controller.repository.SwapManagerInitializationContext;
 import org.apache.nifi.controller.repository.SwapSummary;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.swap.ColumnarSwapDeserializer;
+import org.apache.nifi.controller.swap.ColumnarSwapSerializer;
 import org.apache.nifi.controller.swap.SchemaSwapDeserializer;
 import org.apache.nifi.controller.swap.SchemaSwapSerializer;
 import org.apache.nifi.controller.swap.SimpleSwapDeserializer;
@@ -65,6 +67,18 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -81,9 +95,12 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
     private static final Pattern TEMP_SWAP_FILE_PATTERN = Pattern.compile("\\d+-.+?(\\..*?)?\\.swap\\.part");
 
     public static final String EVENT_CATEGORY = "Swap FlowFiles";
+    public static final String SCHEMA_SERIALIZATION_FORMAT = "SCHEMA";
+    public static final String COLUMNAR_SERIALIZATION_FORMAT = "COLUMNAR";
     private static final Logger logger = LoggerFactory.getLogger(FileSystemSwapManager.class);
 
     private final File storageDirectory;
+    private final boolean writeColumnar;
     private final FieldCache fieldCache = new CaffeineFieldCache(10_000_000);
 
     // effectively final
@@ -93,18 +110,41 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
 
     private static final byte[] MAGIC_HEADER = {'S', 'W', 'A', 'P'};
 
+    // Swap files are prefetched by a small pool of daemon threads that is shared by the Swap Managers of all connections. The threads exit when idle.
+    private static final int PREFETCH_THREAD_COUNT = Math.max(2, Runtime.getRuntime().availableProcessors() / 4);
+    private static final ExecutorService prefetchExecutor = createPrefetchExecutor();
+
+    private final ConcurrentMap<String, Future<SwapContents>> prefetchedContents = new ConcurrentHashMap<>();
+
     /**
      * Default no args constructor for service loading only.
      */
     public FileSystemSwapManager() {
         storageDirectory = null;
+        writeColumnar = false;
     }
 
     public FileSystemSwapManager(final NiFiProperties nifiProperties) {
-        this(nifiProperties.getFlowFileRepositoryPath());
+        this(nifiProperties.getFlowFileRepositoryPath(), nifiProperties.getFlowFileSwapSerializationFormat());
     }
 
     public FileSystemSwapManager(final Path flowFileRepoPath) {
+        this(flowFileRepoPath, SCHEMA_SERIALIZATION_FORMAT);
+    }
+
+    /**
+     * @param flowFileRepoPath the path of the FlowFile Repository, within which swap files are stored
+     * @param serializationFormat the format in which swap files are written, {@value #SCHEMA_SERIALIZATION_FORMAT} or {@value #COLUMNAR_SERIALIZATION_FORMAT}.
+     * Swap files written in either format can be read, but earlier versions of NiFi can read only the {@value #SCHEMA_SERIALIZATION_FORMAT} format.
+     */
+    public FileSystemSwapManager(final Path flowFileRepoPath, final String serializationFormat) {
+        final String format = serializationFormat == null ? SCHEMA_SERIALIZATION_FORMAT : serializationFormat.trim().toUpperCase();
+        if (!format.equals(SCHEMA_SERIALIZATION_FORMAT) && !format.equals(COLUMNAR_SERIALIZATION_FORMAT)) {
+            throw new IllegalArgumentException("Invalid value for " + NiFiProperties.FLOWFILE_SWAP_SERIALIZATION_FORMAT + ": " + serializationFormat
+                + "; must be " + SCHEMA_SERIALIZATION_FORMAT + " or " + COLUMNAR_SERIALIZATION_FORMAT);
+        }
+
+        this.writeColumnar = format.equals(COLUMNAR_SERIALIZATION_FORMAT);
         this.storageDirectory = flowFileRepoPath.resolve("swap").toFile();
         if (!storageDirectory.exists() && !storageDirectory.mkdirs()) {
             throw new RuntimeException("Cannot create Swap Storage directory " + storageDirectory.getAbsolutePath());
@@ -141,7 +181,7 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         final File swapTempFile = new File(swapFile.getParentFile(), swapFile.getName() + ".part");
         final String swapLocation = swapFile.getAbsolutePath();
 
-        final SwapSerializer serializer = new SchemaSwapSerializer();
+        final SwapSerializer serializer = writeColumnar ? new ColumnarSwapSerializer() : new SchemaSwapSerializer();
         try (final OutputStream os = getOutputStream(swapTempFile);
             final OutputStream out = new BufferedOutputStream(os)) {
             out.write(MAGIC_HEADER);
@@ -171,6 +211,7 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
 
         final boolean validLocation = flowFileRepository.isValidSwapLocationSuffix(swapFile.getName());
         if (!validLocation) {
+            discardPrefetchedContents(swapLocation);
             warn("Cannot swap in FlowFiles from location " + swapLocation + " because the FlowFile Repository does not know about this Swap Location. " +
                 "This file should be manually removed. This typically occurs when a Swap File is written but the FlowFile Repository is not updated yet to reflect this. " +
                 "This is generally not a cause for concern, but may be indicative of a failure to update the FlowFile Repository.");
@@ -178,7 +219,7 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
             return new StandardSwapContents(swapSummary, Collections.emptyList());
         }
 
-        final SwapContents swapContents = peek(swapLocation, flowFileQueue);
+        final SwapContents swapContents = getSwapContents(swapLocation, flowFileQueue);
         flowFileRepository.swapFlowFilesIn(swapFile.getAbsolutePath(), swapContents.getFlowFiles(), flowFileQueue);
 
         if (!swapFile.delete()) {
@@ -188,6 +229,70 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
         return swapContents;
     }
 
+    @Override
+    public void prefetch(final String swapLocation, final FlowFileQueue flowFileQueue) {
+        if (prefetchedContents.containsKey(swapLocation)) {
+            return;
+        }
+
+        final FutureTask<SwapContents> prefetchTask = new FutureTask<>(() -> peek(swapLocation, flowFileQueue));
+        if (prefetchedContents.putIfAbsent(swapLocation, prefetchTask) != null) {
+            return;
+        }
+
+        try {
+            prefetchExecutor.execute(prefetchTask);
+            logger.debug("Prefetching Swap File {} for {}", swapLocation, flowFileQueue);
+        } catch (final RejectedExecutionException ree) {
+            prefetchedContents.remove(swapLocation, prefetchTask);
+        }
+    }
+
+    /**
+     * Returns the contents of the given swap file, waiting on the prefetch of the swap file to complete if one was started, or reading the swap file otherwise.
+     */
+    private SwapContents getSwapContents(final String swapLocation, final FlowFileQueue flowFileQueue) throws IOException {
+        final Future<SwapContents> prefetched = prefetchedContents.remove(swapLocation);
+        if (prefetched == null) {
+            return peek(swapLocation, flowFileQueue);
+        }
+
+        try {
+            return prefetched.get();
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for Swap File " + swapLocation + " to be read", ie);
+        } catch (final ExecutionException ee) {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+
+            logger.warn("Failed to prefetch Swap File {}; will read the Swap File again", swapLocation, cause);
+            return peek(swapLocation, flowFileQueue);
+        }
+    }
+
+    private void discardPrefetchedContents(final String swapLocation) {
+        final Future<SwapContents> prefetched = prefetchedContents.remove(swapLocation);
+        if (prefetched != null) {
+            prefetched.cancel(false);
+        }
+    }
+
+    private static ExecutorService createPrefetchExecutor() {
+        final AtomicInteger threadCounter = new AtomicInteger(0);
+        final ThreadFactory threadFactory = runnable -> {
+            final Thread thread = new Thread(runnable, "Swap File Prefetch-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(PREFETCH_THREAD_COUNT, PREFETCH_THREAD_COUNT, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     @Override
     public SwapContents peek(final String swapLocation, final FlowFileQueue flowFileQueue) throws IOException {
         final File swapFile = new File(swapLocation);
@@ -206,6 +311,10 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
 
     @Override
     public void purge() {
+        for (final String swapLocation : prefetchedContents.keySet()) {
+            discardPrefetchedContents(swapLocation);
+        }
+
         final File[] swapFiles = storageDirectory.listFiles(new FilenameFilter() {
             @Override
             public boolean accept(final File dir, final String name) {
@@ -292,7 +401,8 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
             if (TEMP_SWAP_FILE_PATTERN.matcher(swapFile.getName()).matches()) {
                 if (swapFile.delete()) {
                     logger.info("Removed incomplete/temporary Swap File " + swapFile);
-                } else {
+                } else if (swapFile.exists()) {
+                    // Swap Files for multiple queues may be recovered concurrently, so another queue may already have removed the file
                     warn("Failed to remove incomplete/temporary Swap File " + swapFile + "; this file should be cleaned up manually");
                 }
 
@@ -380,6 +490,9 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
 
         if (Arrays.equals(magicHeader, MAGIC_HEADER)) {
             final String serializationName = dis.readUTF();
+            if (serializationName.equals(ColumnarSwapDeserializer.getSerializationName())) {
+                return new ColumnarSwapDeserializer();
+            }
             if (serializationName.equals(SchemaSwapDeserializer.getSerializationName())) {
                 return new SchemaSwapDeserializer(fieldCache);
             }
@@ -460,6 +573,8 @@ public class FileSystemSwapManager implements FlowFileSwapManager {
 
     @Override
     public String changePartitionName(final String swapLocation, final String newPartitionName) throws IOException {
+        discardPrefetchedContents(swapLocation);
+
         final File existingFile = new File(swapLocation);
         if (!existingFile.exists()) {
             throw new FileNotFoundException("Could not change name of partition for swap location " + swapLocation + " because no swap file exists at that location");
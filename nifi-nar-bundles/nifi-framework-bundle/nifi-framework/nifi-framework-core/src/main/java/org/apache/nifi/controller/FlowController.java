@@ -67,7 +67,9 @@ import org.apache.nifi.controller.queue.FlowFileQueueFactory;
 import org.apache.nifi.controller.queue.LoadBalanceStrategy;
 import org.apache.nifi.controller.queue.QueueSize;
 import org.apache.nifi.controller.queue.StandardFlowFileQueue;
+import org.apache.nifi.controller.queue.SwapThreshold;
 import org.apache.nifi.controller.queue.clustered.ContentRepositoryFlowFileAccess;
+import org.apache.nifi.controller.queue.clustered.LoadBalanceTransferMetrics;
 import org.apache.nifi.controller.queue.clustered.SocketLoadBalancedFlowFileQueue;
 import org.apache.nifi.controller.queue.clustered.client.StandardLoadBalanceFlowFileCodec;
 import org.apache.nifi.controller.queue.clustered.client.async.nio.NioAsyncLoadBalanceClientFactory;
@@ -87,7 +89,6 @@ import org.apache.nifi.controller.repository.FlowFileRecord;
 import org.apache.nifi.controller.repository.FlowFileRepository;
 import org.apache.nifi.controller.repository.FlowFileSwapManager;
 import org.apache.nifi.controller.repository.QueueProvider;
-import org.apache.nifi.controller.repository.RepositoryStatusReport;
 import org.apache.nifi.controller.repository.StandardContentRepositoryContext;
 import org.apache.nifi.controller.repository.StandardCounterRepository;
 import org.apache.nifi.controller.repository.StandardFlowFileRecord;
@@ -121,7 +122,7 @@ import org.apache.nifi.controller.state.server.ZooKeeperStateServer;
 import org.apache.nifi.controller.status.NodeStatus;
 import org.apache.nifi.controller.status.StorageStatus;
 import org.apache.nifi.controller.status.analytics.CachingConnectionStatusAnalyticsEngine;
-import org.apache.nifi.controller.status.analytics.ConnectionStatusAnalytics;
+import org.apache.nifi.controller.status.analytics.ConnectionStatusAnalyticsRefreshTask;
 import org.apache.nifi.controller.status.analytics.StatusAnalyticsEngine;
 import org.apache.nifi.controller.status.analytics.StatusAnalyticsModelMapFactory;
 import org.apache.nifi.controller.status.history.GarbageCollectionHistory;
@@ -214,6 +215,7 @@ import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
 import java.net.InetSocketAddress;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -226,6 +228,9 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -260,6 +265,8 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
     private final AtomicInteger maxEventDrivenThreads;
     private final AtomicReference<FlowEngine> timerDrivenEngineRef;
     private final AtomicReference<FlowEngine> eventDrivenEngineRef;
+    private final FlowEngine ioBoundEngine;
+    private final SwapThreshold queueSwapThreshold;
     private final EventDrivenSchedulingAgent eventDrivenSchedulingAgent;
 
     private final ContentRepository contentRepository;
@@ -291,6 +298,7 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
     private final NioAsyncLoadBalanceClientRegistry loadBalanceClientRegistry;
     private final FlowEngine loadBalanceClientThreadPool;
     private final Set<NioAsyncLoadBalanceClientTask> loadBalanceClientTasks = new HashSet<>();
+    private final LoadBalanceTransferMetrics loadBalanceTransferMetrics = new LoadBalanceTransferMetrics();
 
     private final ConcurrentMap<String, ProcessGroup> allProcessGroups = new ConcurrentHashMap<>();
 
@@ -352,6 +360,7 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
     private ScheduledFuture<?> heartbeatSenderFuture;
     private final Heartbeater heartbeater;
     private final HeartbeatMonitor heartbeatMonitor;
+    private final HeartbeatPayload.Format heartbeatPayloadFormat;
 
     // guarded by FlowController lock
     /**
@@ -375,6 +384,8 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
     private NodeConnectionStatus connectionStatus;
 
     private StatusAnalyticsEngine analyticsEngine;
+    private FlowEngine analyticsRefreshThreadPool;
+    private ConnectionStatusAnalyticsRefreshTask analyticsRefreshTask;
 
     // guarded by rwLock
     private String instanceId;
@@ -505,6 +516,9 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
         timerDrivenEngineRef = new AtomicReference<>(new FlowEngine(maxTimerDrivenThreads.get(), "Timer-Driven Process"));
         eventDrivenEngineRef = new AtomicReference<>(new FlowEngine(maxEventDrivenThreads.get(), "Event-Driven Process"));
 
+        final int ioBoundThreadCount = nifiProperties.getFlowControllerIOBoundThreadCount();
+        ioBoundEngine = ioBoundThreadCount > 0 ? new FlowEngine(ioBoundThreadCount, "Timer-Driven I/O Process") : null;
+
         final FlowFileRepository flowFileRepo = createFlowFileRepository(nifiProperties, extensionManager, resourceClaimManager);
         flowFileRepository = flowFileRepo;
         flowFileEventRepository = flowFileEventRepo;
@@ -559,7 +573,8 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
         processScheduler.setSchedulingAgent(SchedulingStrategy.EVENT_DRIVEN, eventDrivenSchedulingAgent);
 
         final QuartzSchedulingAgent quartzSchedulingAgent = new QuartzSchedulingAgent(this, timerDrivenEngineRef.get(), repositoryContextFactory, encryptor);
-        final TimerDrivenSchedulingAgent timerDrivenAgent = new TimerDrivenSchedulingAgent(this, timerDrivenEngineRef.get(), repositoryContextFactory, encryptor, this.nifiProperties);
+        final TimerDrivenSchedulingAgent timerDrivenAgent = new TimerDrivenSchedulingAgent(this, timerDrivenEngineRef.get(), ioBoundEngine, repositoryContextFactory,
+            encryptor, this.nifiProperties);
         processScheduler.setSchedulingAgent(SchedulingStrategy.TIMER_DRIVEN, timerDrivenAgent);
         // PRIMARY_NODE_ONLY is deprecated, but still exists to handle processors that are still defined with it (they haven't been re-configured with executeNode = PRIMARY).
         processScheduler.setSchedulingAgent(SchedulingStrategy.PRIMARY_NODE_ONLY, timerDrivenAgent);
@@ -588,6 +603,8 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
             throw new IllegalStateException("NiFi Configured to allow Secure Site-to-Site communications but the Keystore/Truststore properties are not configured");
         }
 
+        this.queueSwapThreshold = nifiProperties.isQueueSwapThresholdAdaptive() ? SwapThreshold.adaptive(nifiProperties.getQueueSwapThreshold())
+            : SwapThreshold.fixed(nifiProperties.getQueueSwapThreshold());
         this.heartbeatDelaySeconds = (int) FormatUtils.getTimeDuration(nifiProperties.getNodeHeartbeatInterval(), TimeUnit.SECONDS);
 
         this.snippetManager = new SnippetManager();
@@ -692,24 +709,13 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
             analyticsEngine = new CachingConnectionStatusAnalyticsEngine(flowManager, statusHistoryRepository, statusAnalyticsModelMapFactory,
                     predictionIntervalMillis, queryIntervalMillis, modelScoreName, modelScoreThreshold);
 
-            timerDrivenEngineRef.get().scheduleWithFixedDelay(new Runnable() {
-                @Override
-                public void run() {
-                    try {
-                        Long startTs = System.currentTimeMillis();
-                        RepositoryStatusReport statusReport = flowFileEventRepository.reportTransferEvents(startTs);
-                        flowManager.findAllConnections().forEach(connection -> {
-                            ConnectionStatusAnalytics connectionStatusAnalytics = ((ConnectionStatusAnalytics)analyticsEngine.getStatusAnalytics(connection.getIdentifier()));
-                            connectionStatusAnalytics.refresh();
-                            connectionStatusAnalytics.loadPredictions(statusReport);
-                        });
-                        Long endTs = System.currentTimeMillis();
-                        LOG.debug("Time Elapsed for Prediction for loading all predictions: {}", endTs - startTs);
-                    } catch (final Exception e) {
-                        LOG.error("Failed to generate predictions", e);
-                    }
-                }
-            }, 0L, 15, TimeUnit.SECONDS);
+            // Models are trained and predictions are loaded for connections concurrently, and models are retrained only once new status history is captured
+            final int refreshThreadCount = nifiProperties.getIntegerProperty(NiFiProperties.ANALYTICS_CONNECTION_REFRESH_THREADS, NiFiProperties.DEFAULT_ANALYTICS_CONNECTION_REFRESH_THREADS);
+            final int sampleSize = nifiProperties.getIntegerProperty(NiFiProperties.ANALYTICS_CONNECTION_SAMPLE_SIZE, NiFiProperties.DEFAULT_ANALYTICS_CONNECTION_SAMPLE_SIZE);
+            analyticsRefreshThreadPool = new FlowEngine(Math.max(1, refreshThreadCount), "Connection Status Analytics", true);
+            analyticsRefreshTask = new ConnectionStatusAnalyticsRefreshTask(analyticsEngine, flowManager, flowFileEventRepository, analyticsRefreshThreadPool, sampleSize);
+
+            timerDrivenEngineRef.get().scheduleWithFixedDelay(analyticsRefreshTask, 0L, 15, TimeUnit.SECONDS);
 
         }
 
@@ -720,17 +726,25 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
             public void run() {
                 try {
                     statusHistoryRepository.capture(getNodeStatusSnapshot(), eventAccess.getControllerStatus(), getGarbageCollectionStatus(), new Date());
+                    if (analyticsRefreshTask != null) {
+                        analyticsRefreshTask.onStatusHistoryCaptured();
+                    }
                 } catch (final Exception e) {
                     LOG.error("Failed to capture component stats for Stats History", e);
                 }
             }
         }, snapshotMillis, snapshotMillis, TimeUnit.MILLISECONDS);
 
+        if (nifiProperties.isQueueSwapThresholdAdaptive()) {
+            timerDrivenEngineRef.get().scheduleWithFixedDelay(queueSwapThreshold::refresh, 1L, 1L, TimeUnit.SECONDS);
+        }
+
         this.connectionStatus = new NodeConnectionStatus(nodeId, DisconnectionCode.NOT_YET_CONNECTED);
         heartbeatBeanRef.set(new HeartbeatBean(rootGroup, false));
 
+        heartbeatPayloadFormat = getHeartbeatPayloadFormat(nifiProperties);
         if (configuredForClustering) {
-            heartbeater = new ClusterProtocolHeartbeater(protocolSender, clusterCoordinator, leaderElectionManager);
+            heartbeater = new ClusterProtocolHeartbeater(protocolSender, clusterCoordinator, leaderElectionManager, heartbeatPayloadFormat);
 
             // Check if there is already a cluster coordinator elected. If not, go ahead
             // and register for coordinator role. If there is already one elected, do not register until
@@ -765,7 +779,8 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
             final EventReporter eventReporter = createEventReporter();
 
             final LoadBalanceAuthorizer authorizeConnection = new ClusterLoadBalanceAuthorizer(clusterCoordinator, eventReporter);
-            final LoadBalanceProtocol loadBalanceProtocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepository, provenanceRepository, this, authorizeConnection);
+            final LoadBalanceProtocol loadBalanceProtocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepository, provenanceRepository, this, authorizeConnection,
+                    loadBalanceTransferMetrics);
 
             final int numThreads = nifiProperties.getIntegerProperty(NiFiProperties.LOAD_BALANCE_MAX_THREAD_COUNT, NiFiProperties.DEFAULT_LOAD_BALANCE_MAX_THREAD_COUNT);
             final String timeoutPeriod = nifiProperties.getProperty(NiFiProperties.LOAD_BALANCE_COMMS_TIMEOUT, NiFiProperties.DEFAULT_LOAD_BALANCE_COMMS_TIMEOUT);
@@ -776,8 +791,10 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
 
 
             final int connectionsPerNode = nifiProperties.getIntegerProperty(NiFiProperties.LOAD_BALANCE_CONNECTIONS_PER_NODE, NiFiProperties.DEFAULT_LOAD_BALANCE_CONNECTIONS_PER_NODE);
+            final int streamsPerConnection = nifiProperties.getIntegerProperty(NiFiProperties.LOAD_BALANCE_STREAMS_PER_CONNECTION,
+                    NiFiProperties.DEFAULT_LOAD_BALANCE_STREAMS_PER_CONNECTION);
             final NioAsyncLoadBalanceClientFactory asyncClientFactory = new NioAsyncLoadBalanceClientFactory(sslContext, timeoutMillis, new ContentRepositoryFlowFileAccess(contentRepository),
-                    eventReporter, new StandardLoadBalanceFlowFileCodec(), clusterCoordinator);
+                    eventReporter, new StandardLoadBalanceFlowFileCodec(), clusterCoordinator, loadBalanceTransferMetrics, streamsPerConnection);
             loadBalanceClientRegistry = new NioAsyncLoadBalanceClientRegistry(asyncClientFactory, connectionsPerNode);
 
             final int loadBalanceClientThreadCount = nifiProperties.getIntegerProperty(NiFiProperties.LOAD_BALANCE_MAX_THREAD_COUNT, NiFiProperties.DEFAULT_LOAD_BALANCE_MAX_THREAD_COUNT);
@@ -810,6 +827,16 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
         return ResourceFactory.getControllerResource();
     }
 
+    private static HeartbeatPayload.Format getHeartbeatPayloadFormat(final NiFiProperties properties) {
+        final String format = properties.getClusterProtocolHeartbeatPayloadFormat();
+        try {
+            return HeartbeatPayload.Format.valueOf(format.trim().toUpperCase());
+        } catch (final IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid value for " + NiFiProperties.CLUSTER_PROTOCOL_HEARTBEAT_PAYLOAD_FORMAT + ": " + format
+                    + "; the value must be one of " + Arrays.toString(HeartbeatPayload.Format.values()), e);
+        }
+    }
+
     private static FlowFileRepository createFlowFileRepository(final NiFiProperties properties, final ExtensionManager extensionManager, final ResourceClaimManager contentClaimManager) {
         final String implementationClassName = properties.getProperty(NiFiProperties.FLOWFILE_REPOSITORY_IMPLEMENTATION, DEFAULT_FLOWFILE_REPO_IMPLEMENTATION);
         if (implementationClassName == null) {
@@ -896,6 +923,56 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
         initializeFlow(new StandardQueueProvider(getFlowManager()));
     }
 
+    /**
+     * Recovers the swapped FlowFiles of all given connections. Reading the Swap File headers is I/O bound and independent for each queue,
+     * so the queues are recovered concurrently.
+     *
+     * @param connections the connections whose swapped FlowFiles should be recovered
+     * @return the Swap Summary of each connection, in the same order as the connections were iterated
+     * @throws IOException if unable to recover the swapped FlowFiles
+     */
+    private List<SwapSummary> recoverSwappedFlowFiles(final Collection<Connection> connections) throws IOException {
+        if (connections.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final long start = System.nanoTime();
+        final int threadCount = Math.min(connections.size(), Runtime.getRuntime().availableProcessors());
+        final ExecutorService executor = new FlowEngine(threadCount, "Swap File Recovery", true);
+        try {
+            final List<Future<SwapSummary>> futures = new ArrayList<>(connections.size());
+            for (final Connection connection : connections) {
+                final FlowFileQueue queue = connection.getFlowFileQueue();
+                futures.add(executor.submit(queue::recoverSwappedFlowFiles));
+            }
+
+            final List<SwapSummary> swapSummaries = new ArrayList<>(futures.size());
+            for (final Future<SwapSummary> future : futures) {
+                try {
+                    swapSummaries.add(future.get());
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while recovering Swap Files", ie);
+                } catch (final ExecutionException ee) {
+                    final Throwable cause = ee.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IOException("Failed to recover Swap Files", cause);
+                }
+            }
+
+            final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            LOG.info("Recovered Swap Files for {} connections using {} threads in {} millis", connections.size(), threadCount, millis);
+            return swapSummaries;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     public void initializeFlow(final QueueProvider queueProvider) throws IOException {
         writeLock.lock();
         try {
@@ -911,9 +988,7 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
                     queue.purgeSwapFiles();
                 }
             } else {
-                for (final Connection connection : connections) {
-                    final FlowFileQueue queue = connection.getFlowFileQueue();
-                    final SwapSummary swapSummary = queue.recoverSwappedFlowFiles();
+                for (final SwapSummary swapSummary : recoverSwappedFlowFiles(connections)) {
                     if (swapSummary != null) {
                         final Long maxFlowFileId = swapSummary.getMaxFlowFileId();
                         if (maxFlowFileId != null && maxFlowFileId > maxIdFromSwapFiles) {
@@ -1307,10 +1382,16 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
             if (kill) {
                 this.timerDrivenEngineRef.get().shutdownNow();
                 this.eventDrivenEngineRef.get().shutdownNow();
+                if (ioBoundEngine != null) {
+                    ioBoundEngine.shutdownNow();
+                }
                 LOG.info("Initiated immediate shutdown of flow controller...");
             } else {
                 this.timerDrivenEngineRef.get().shutdown();
                 this.eventDrivenEngineRef.get().shutdown();
+                if (ioBoundEngine != null) {
+                    ioBoundEngine.shutdown();
+                }
                 LOG.info("Initiated graceful shutdown of flow controller...waiting up to " + gracefulShutdownSeconds + " seconds");
             }
 
@@ -1324,6 +1405,10 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
             if (loadBalanceClientThreadPool != null) {
                 loadBalanceClientThreadPool.shutdownNow();
             }
+
+            if (analyticsRefreshThreadPool != null) {
+                analyticsRefreshThreadPool.shutdownNow();
+            }
             loadBalanceClientTasks.forEach(NioAsyncLoadBalanceClientTask::stop);
 
             // Trigger any processors' methods marked with @OnShutdown to be called
@@ -1344,6 +1429,9 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
             try {
                 this.timerDrivenEngineRef.get().awaitTermination(gracefulShutdownSeconds / 2, TimeUnit.SECONDS);
                 this.eventDrivenEngineRef.get().awaitTermination(gracefulShutdownSeconds / 2, TimeUnit.SECONDS);
+                if (ioBoundEngine != null) {
+                    ioBoundEngine.awaitTermination(gracefulShutdownSeconds / 2, TimeUnit.SECONDS);
+                }
             } catch (final InterruptedException ie) {
                 LOG.info("Interrupted while waiting for controller termination.");
             }
@@ -1354,7 +1442,7 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
                 LOG.warn("Unable to shut down FlowFileRepository due to {}", new Object[]{t});
             }
 
-            if (this.timerDrivenEngineRef.get().isTerminated() && eventDrivenEngineRef.get().isTerminated()) {
+            if (this.timerDrivenEngineRef.get().isTerminated() && eventDrivenEngineRef.get().isTerminated() && (ioBoundEngine == null || ioBoundEngine.isTerminated())) {
                 LOG.info("Controller has been terminated successfully.");
             } else {
                 LOG.warn("Controller hasn't terminated properly.  There exists an uninterruptable thread that "
@@ -1516,6 +1604,10 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
         return timerDrivenEngineRef.get().getActiveCount();
     }
 
+    public int getActiveIOBoundThreadCount() {
+        return ioBoundEngine == null ? 0 : ioBoundEngine.getActiveCount();
+    }
+
     public void setMaxTimerDrivenThreadCount(final int maxThreadCount) {
         writeLock.lock();
         try {
@@ -1928,6 +2020,10 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
         return clusterCoordinator;
     }
 
+    public LoadBalanceTransferMetrics getLoadBalanceTransferMetrics() {
+        return loadBalanceTransferMetrics;
+    }
+
     /**
      * Creates a connection between two Connectable objects.
      *
@@ -1982,11 +2078,11 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
 
                 if (clusterCoordinator == null) {
                     flowFileQueue = new StandardFlowFileQueue(id, eventListener, flowFileRepository, provenanceRepository, resourceClaimManager, processScheduler, swapManager,
-                            eventReporter, nifiProperties.getQueueSwapThreshold(),
+                            eventReporter, queueSwapThreshold, nifiProperties.getQueueActivePartitions(),
                             processGroup.getDefaultFlowFileExpiration(), processGroup.getDefaultBackPressureObjectThreshold(), processGroup.getDefaultBackPressureDataSizeThreshold());
                 } else {
                     flowFileQueue = new SocketLoadBalancedFlowFileQueue(id, eventListener, processScheduler, flowFileRepository, provenanceRepository, contentRepository, resourceClaimManager,
-                            clusterCoordinator, loadBalanceClientRegistry, swapManager, nifiProperties.getQueueSwapThreshold(), eventReporter);
+                            clusterCoordinator, loadBalanceClientRegistry, swapManager, queueSwapThreshold, nifiProperties.getQueueActivePartitions(), eventReporter);
 
                     flowFileQueue.setFlowFileExpiration(processGroup.getDefaultFlowFileExpiration());
                     flowFileQueue.setBackPressureObjectThreshold(processGroup.getDefaultBackPressureObjectThreshold());
@@ -2173,7 +2269,7 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
     public int getActiveThreadCount() {
         final int timerDrivenCount = timerDrivenEngineRef.get().getActiveCount();
         final int eventDrivenCount = eventDrivenSchedulingAgent.getActiveThreadCount();
-        return timerDrivenCount + eventDrivenCount;
+        return timerDrivenCount + eventDrivenCount + getActiveIOBoundThreadCount();
     }
 
 
@@ -2980,7 +3076,7 @@ public class FlowController implements ReportingTaskProvider, Authorizable, Node
                 return null;
             }
 
-            final Heartbeat heartbeat = new Heartbeat(nodeId, connectionStatus, hbPayload.marshal());
+            final Heartbeat heartbeat = new Heartbeat(nodeId, connectionStatus, hbPayload.marshal(heartbeatPayloadFormat));
             final HeartbeatMessage message = new HeartbeatMessage();
             message.setHeartbeat(heartbeat);
 
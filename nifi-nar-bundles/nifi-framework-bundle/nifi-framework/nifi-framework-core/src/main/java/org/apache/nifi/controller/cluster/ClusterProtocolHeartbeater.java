@@ -19,6 +19,7 @@ package org.apache.nifi.controller.cluster;
 import org.apache.nifi.cluster.coordination.ClusterCoordinator;
 import org.apache.nifi.cluster.coordination.node.ClusterRoles;
 import org.apache.nifi.cluster.coordination.node.NodeConnectionStatus;
+import org.apache.nifi.cluster.protocol.Heartbeat;
 import org.apache.nifi.cluster.protocol.HeartbeatPayload;
 import org.apache.nifi.cluster.protocol.NodeIdentifier;
 import org.apache.nifi.cluster.protocol.NodeProtocolSender;
@@ -45,6 +46,10 @@ import java.util.stream.Collectors;
  * Cluster Coordinator and to indicate that this node is part of the cluster.
  * Once the Cluster Coordinator is known, heartbeats are sent directly to the
  * Cluster Coordinator.
+ *
+ * A node's view of the cluster status rarely changes, so when heartbeats are sent in the binary payload format, once the Cluster
+ * Coordinator has acknowledged a heartbeat, subsequent heartbeats to the same Cluster Coordinator omit the cluster status until it
+ * changes. Heartbeats in the XML payload format, which older Cluster Coordinators require, always include the full cluster status.
  */
 public class ClusterProtocolHeartbeater implements Heartbeater {
 
@@ -53,11 +58,21 @@ public class ClusterProtocolHeartbeater implements Heartbeater {
     private final NodeProtocolSender protocolSender;
     private final LeaderElectionManager electionManager;
     private final ClusterCoordinator clusterCoordinator;
+    private final HeartbeatPayload.Format payloadFormat;
+
+    private String acknowledgedHeartbeatAddress;
+    private List<NodeConnectionStatus> acknowledgedClusterStatus;
 
     public ClusterProtocolHeartbeater(final NodeProtocolSender protocolSender, final ClusterCoordinator clusterCoordinator, final LeaderElectionManager electionManager) {
+        this(protocolSender, clusterCoordinator, electionManager, HeartbeatPayload.Format.XML);
+    }
+
+    public ClusterProtocolHeartbeater(final NodeProtocolSender protocolSender, final ClusterCoordinator clusterCoordinator, final LeaderElectionManager electionManager,
+                                      final HeartbeatPayload.Format payloadFormat) {
         this.protocolSender = protocolSender;
         this.clusterCoordinator = clusterCoordinator;
         this.electionManager = electionManager;
+        this.payloadFormat = payloadFormat;
     }
 
     @Override
@@ -78,11 +93,32 @@ public class ClusterProtocolHeartbeater implements Heartbeater {
         final String heartbeatAddress = getHeartbeatAddress();
         final long findCoordinatorNanos = System.nanoTime() - findCoordinatorStart;
 
-        final HeartbeatResponseMessage responseMessage = protocolSender.heartbeat(heartbeatMessage, heartbeatAddress);
-
         final byte[] payloadBytes = heartbeatMessage.getHeartbeat().getPayload();
         final HeartbeatPayload payload = HeartbeatPayload.unmarshal(payloadBytes);
         final List<NodeConnectionStatus> nodeStatusList = payload.getClusterStatus();
+
+        final HeartbeatMessage messageToSend;
+        if (payloadFormat == HeartbeatPayload.Format.BINARY && nodeStatusList != null && heartbeatAddress.equals(acknowledgedHeartbeatAddress) && nodeStatusList.equals(acknowledgedClusterStatus)) {
+            messageToSend = createClusterStatusUnchangedMessage(heartbeatMessage, payload);
+        } else {
+            messageToSend = heartbeatMessage;
+        }
+
+        final HeartbeatResponseMessage responseMessage;
+        try {
+            responseMessage = protocolSender.heartbeat(messageToSend, heartbeatAddress);
+        } catch (final RuntimeException e) {
+            clearAcknowledgedClusterStatus();
+            throw e;
+        }
+
+        if (responseMessage.isClusterStatusRequired() || nodeStatusList == null) {
+            clearAcknowledgedClusterStatus();
+        } else {
+            acknowledgedHeartbeatAddress = heartbeatAddress;
+            acknowledgedClusterStatus = nodeStatusList;
+        }
+
         final Map<NodeIdentifier, Long> updateIdMap = nodeStatusList.stream().collect(
                 Collectors.toMap(status -> status.getNodeIdentifier(), status -> status.getUpdateIdentifier()));
 
@@ -126,6 +162,28 @@ public class ClusterProtocolHeartbeater implements Heartbeater {
             formattedElectionMessage);
     }
 
+    private HeartbeatMessage createClusterStatusUnchangedMessage(final HeartbeatMessage heartbeatMessage, final HeartbeatPayload payload) {
+        final HeartbeatPayload unchangedPayload = new HeartbeatPayload();
+        unchangedPayload.setActiveThreadCount(payload.getActiveThreadCount());
+        unchangedPayload.setTotalFlowFileCount(payload.getTotalFlowFileCount());
+        unchangedPayload.setTotalFlowFileBytes(payload.getTotalFlowFileBytes());
+        unchangedPayload.setSystemStartTime(payload.getSystemStartTime());
+        unchangedPayload.setRevisionUpdateCount(payload.getRevisionUpdateCount());
+        unchangedPayload.setClusterStatusUnchanged(true);
+
+        final Heartbeat heartbeat = heartbeatMessage.getHeartbeat();
+        final Heartbeat unchangedHeartbeat = new Heartbeat(heartbeat.getNodeIdentifier(), heartbeat.getConnectionStatus(), unchangedPayload.marshal(HeartbeatPayload.Format.BINARY));
+
+        final HeartbeatMessage unchangedMessage = new HeartbeatMessage();
+        unchangedMessage.setHeartbeat(unchangedHeartbeat);
+        return unchangedMessage;
+    }
+
+    private void clearAcknowledgedClusterStatus() {
+        acknowledgedHeartbeatAddress = null;
+        acknowledgedClusterStatus = null;
+    }
+
     @Override
     public void close() throws IOException {
     }
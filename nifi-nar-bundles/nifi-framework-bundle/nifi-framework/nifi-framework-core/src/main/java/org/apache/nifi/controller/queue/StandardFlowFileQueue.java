@@ -54,11 +54,27 @@ public class StandardFlowFileQueue extends AbstractFlowFileQueue implements Flow
     public StandardFlowFileQueue(final String identifier, final ConnectionEventListener eventListener, final FlowFileRepository flowFileRepo, final ProvenanceEventRepository provRepo,
                                  final ResourceClaimManager resourceClaimManager, final ProcessScheduler scheduler, final FlowFileSwapManager swapManager, final EventReporter eventReporter,
                                  final int swapThreshold, final String expirationPeriod, final long defaultBackPressureObjectThreshold, final String defaultBackPressureDataSizeThreshold) {
+        this(identifier, eventListener, flowFileRepo, provRepo, resourceClaimManager, scheduler, swapManager, eventReporter, swapThreshold, 1, expirationPeriod,
+            defaultBackPressureObjectThreshold, defaultBackPressureDataSizeThreshold);
+    }
+
+    public StandardFlowFileQueue(final String identifier, final ConnectionEventListener eventListener, final FlowFileRepository flowFileRepo, final ProvenanceEventRepository provRepo,
+                                 final ResourceClaimManager resourceClaimManager, final ProcessScheduler scheduler, final FlowFileSwapManager swapManager, final EventReporter eventReporter,
+                                 final int swapThreshold, final int activeQueuePartitions, final String expirationPeriod, final long defaultBackPressureObjectThreshold,
+                                 final String defaultBackPressureDataSizeThreshold) {
+        this(identifier, eventListener, flowFileRepo, provRepo, resourceClaimManager, scheduler, swapManager, eventReporter, SwapThreshold.fixed(swapThreshold), activeQueuePartitions,
+            expirationPeriod, defaultBackPressureObjectThreshold, defaultBackPressureDataSizeThreshold);
+    }
+
+    public StandardFlowFileQueue(final String identifier, final ConnectionEventListener eventListener, final FlowFileRepository flowFileRepo, final ProvenanceEventRepository provRepo,
+                                 final ResourceClaimManager resourceClaimManager, final ProcessScheduler scheduler, final FlowFileSwapManager swapManager, final EventReporter eventReporter,
+                                 final SwapThreshold swapThreshold, final int activeQueuePartitions, final String expirationPeriod, final long defaultBackPressureObjectThreshold,
+                                 final String defaultBackPressureDataSizeThreshold) {
 
         super(identifier, scheduler, flowFileRepo, provRepo, resourceClaimManager);
         super.setFlowFileExpiration(expirationPeriod);
         this.swapManager = swapManager;
-        this.queue = new SwappablePriorityQueue(swapManager, swapThreshold, eventReporter, this, this::drop, null);
+        this.queue = new SwappablePriorityQueue(swapManager, swapThreshold, activeQueuePartitions, eventReporter, this, this::drop, null);
         this.eventListener = eventListener;
 
         writeLock = new TimedLock(this.lock.writeLock(), getIdentifier() + " Write Lock", 100);
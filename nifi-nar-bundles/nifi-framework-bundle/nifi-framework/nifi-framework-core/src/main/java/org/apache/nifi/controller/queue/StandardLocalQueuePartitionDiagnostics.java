@@ -21,11 +21,20 @@ public class StandardLocalQueuePartitionDiagnostics implements LocalQueuePartiti
     private final FlowFileQueueSize queueSize;
     private final boolean anyPenalized;
     private final boolean allPenalized;
+    private final long swapInCount;
+    private final long swapInStallMillis;
 
     public StandardLocalQueuePartitionDiagnostics(final FlowFileQueueSize queueSize, final boolean anyPenalized, final boolean allPenalized) {
+        this(queueSize, anyPenalized, allPenalized, 0L, 0L);
+    }
+
+    public StandardLocalQueuePartitionDiagnostics(final FlowFileQueueSize queueSize, final boolean anyPenalized, final boolean allPenalized, final long swapInCount,
+                                                  final long swapInStallMillis) {
         this.queueSize = queueSize;
         this.anyPenalized = anyPenalized;
         this.allPenalized = allPenalized;
+        this.swapInCount = swapInCount;
+        this.swapInStallMillis = swapInStallMillis;
     }
 
     @Override
@@ -57,4 +66,14 @@ public class StandardLocalQueuePartitionDiagnostics implements LocalQueuePartiti
     public boolean isAllActiveFlowFilesPenalized() {
         return allPenalized;
     }
+
+    @Override
+    public long getSwapInCount() {
+        return swapInCount;
+    }
+
+    @Override
+    public long getSwapInStallMillis() {
+        return swapInStallMillis;
+    }
 }
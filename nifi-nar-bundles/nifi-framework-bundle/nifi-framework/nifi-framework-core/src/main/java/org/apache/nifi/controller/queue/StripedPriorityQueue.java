@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue;
+
+import org.apache.nifi.controller.repository.FlowFileRecord;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ * A thread-safe Queue of FlowFiles that splits its contents across a number of independently locked {@link PriorityQueue}s, or "stripes".
+ * FlowFiles that are added to the queue are placed onto a randomly chosen stripe, so that concurrent threads that are adding and removing
+ * FlowFiles will generally contend on different locks.
+ * </p>
+ *
+ * <p>
+ * The {@link #poll()} and {@link #peek()} methods honor the ordering of the given Comparator across all stripes by comparing the head of each stripe.
+ * The {@link #pollAny(boolean)} method, on the other hand, returns the head of whichever stripe it happens to reach first and therefore provides
+ * no ordering guarantees across stripes. As such, it should be used only when the queue has no prioritizers configured.
+ * </p>
+ */
+public class StripedPriorityQueue extends AbstractQueue<FlowFileRecord> {
+    private final Stripe[] stripes;
+    private final Comparator<FlowFileRecord> comparator;
+
+    public StripedPriorityQueue(final int stripeCount, final Comparator<FlowFileRecord> comparator) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Stripe count must be at least 1 but was " + stripeCount);
+        }
+
+        this.comparator = comparator;
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(comparator);
+        }
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    @Override
+    public boolean offer(final FlowFileRecord flowFile) {
+        if (flowFile == null) {
+            throw new NullPointerException();
+        }
+
+        final Stripe stripe = stripes[ThreadLocalRandom.current().nextInt(stripes.length)];
+        stripe.lock.lock();
+        try {
+            stripe.queue.add(flowFile);
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        return true;
+    }
+
+    /**
+     * Removes and returns the head of the first stripe that has an eligible FlowFile, starting with a randomly chosen stripe.
+     * Unlike {@link #poll()}, this method does not compare the heads of all stripes and therefore does not guarantee that the FlowFile
+     * returned is the highest priority FlowFile in the queue.
+     *
+     * @param includePenalized whether or not a penalized FlowFile may be returned
+     * @return a FlowFile from the queue, or <code>null</code> if no stripe has an eligible FlowFile
+     */
+    public FlowFileRecord pollAny(final boolean includePenalized) {
+        final int startIndex = ThreadLocalRandom.current().nextInt(stripes.length);
+        for (int i = 0; i < stripes.length; i++) {
+            final Stripe stripe = stripes[(startIndex + i) % stripes.length];
+
+            stripe.lock.lock();
+            try {
+                final FlowFileRecord head = stripe.queue.peek();
+                if (head == null) {
+                    continue;
+                }
+
+                // Penalized FlowFiles are always ordered last, so if the head of the stripe is penalized, the rest of the stripe is as well.
+                if (!includePenalized && head.isPenalized()) {
+                    continue;
+                }
+
+                return stripe.queue.poll();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public FlowFileRecord poll() {
+        while (true) {
+            final int bestIndex = indexOfHighestPriorityHead();
+            if (bestIndex < 0) {
+                return null;
+            }
+
+            final Stripe stripe = stripes[bestIndex];
+            stripe.lock.lock();
+            try {
+                final FlowFileRecord head = stripe.queue.peek();
+                if (head != null && isHighestPriority(head, bestIndex)) {
+                    return stripe.queue.poll();
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+
+            // The queue was modified concurrently. Try again.
+        }
+    }
+
+    @Override
+    public FlowFileRecord peek() {
+        final int bestIndex = indexOfHighestPriorityHead();
+        if (bestIndex < 0) {
+            return null;
+        }
+
+        final Stripe stripe = stripes[bestIndex];
+        stripe.lock.lock();
+        try {
+            return stripe.queue.peek();
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    private int indexOfHighestPriorityHead() {
+        FlowFileRecord best = null;
+        int bestIndex = -1;
+
+        for (int i = 0; i < stripes.length; i++) {
+            final FlowFileRecord head = stripes[i].peek();
+            if (head != null && (best == null || comparator.compare(head, best) < 0)) {
+                best = head;
+                bestIndex = i;
+            }
+        }
+
+        return bestIndex;
+    }
+
+    private boolean isHighestPriority(final FlowFileRecord candidate, final int candidateIndex) {
+        for (int i = 0; i < stripes.length; i++) {
+            if (i == candidateIndex) {
+                continue;
+            }
+
+            final FlowFileRecord head = stripes[i].peek();
+            if (head != null && comparator.compare(head, candidate) < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (final Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.queue.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (final Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                if (!stripe.queue.isEmpty()) {
+                    return false;
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (final Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.queue.clear();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return an Iterator over a point-in-time copy of the contents of the queue. The FlowFiles are not returned in any particular order,
+     * and the Iterator does not support removal.
+     */
+    @Override
+    public Iterator<FlowFileRecord> iterator() {
+        final List<FlowFileRecord> snapshot = new ArrayList<>();
+        for (final Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                snapshot.addAll(stripe.queue);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+
+        final Iterator<FlowFileRecord> itr = snapshot.iterator();
+        return new Iterator<FlowFileRecord>() {
+            @Override
+            public boolean hasNext() {
+                return itr.hasNext();
+            }
+
+            @Override
+            public FlowFileRecord next() {
+                return itr.next();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return "StripedPriorityQueue[stripes=" + stripes.length + "]";
+    }
+
+    private static class Stripe {
+        private final Lock lock = new ReentrantLock();
+        private final PriorityQueue<FlowFileRecord> queue;
+
+        private Stripe(final Comparator<FlowFileRecord> comparator) {
+            this.queue = new PriorityQueue<>(20, comparator);
+        }
+
+        private FlowFileRecord peek() {
+            lock.lock();
+            try {
+                return queue.peek();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.function.DoubleSupplier;
+
+/**
+ * <p>
+ * The number of FlowFiles that a queue may hold in its Active Queue before it begins swapping FlowFiles out to disk.
+ * </p>
+ *
+ * <p>
+ * A fixed threshold always returns the configured value. An adaptive threshold starts at the configured value and, each time that it is
+ * refreshed, scales down linearly as the usage of the tenured generation of the heap after garbage collection climbs from
+ * {@value #LOW_HEAP_USAGE} to {@value #HIGH_HEAP_USAGE}, to a minimum of {@value #MINIMUM_THRESHOLD_FRACTION} of the configured value.
+ * Queues that share the same adaptive threshold therefore begin swapping sooner when the heap is under pressure and hold the configured
+ * number of FlowFiles again once the pressure has passed.
+ * </p>
+ */
+public final class SwapThreshold {
+    private static final Logger logger = LoggerFactory.getLogger(SwapThreshold.class);
+
+    static final double LOW_HEAP_USAGE = 0.5D;
+    static final double HIGH_HEAP_USAGE = 0.9D;
+    static final double MINIMUM_THRESHOLD_FRACTION = 0.1D;
+
+    private final int configuredThreshold;
+    private final int minimumThreshold;
+    private final DoubleSupplier heapUsage;
+    private volatile int threshold;
+
+    private SwapThreshold(final int configuredThreshold, final DoubleSupplier heapUsage) {
+        this.configuredThreshold = configuredThreshold;
+        this.minimumThreshold = Math.max(1, (int) (configuredThreshold * MINIMUM_THRESHOLD_FRACTION));
+        this.heapUsage = heapUsage;
+        this.threshold = configuredThreshold;
+    }
+
+    public static SwapThreshold fixed(final int threshold) {
+        return new SwapThreshold(threshold, null);
+    }
+
+    public static SwapThreshold adaptive(final int configuredThreshold) {
+        return adaptive(configuredThreshold, SwapThreshold::getTenuredHeapUsage);
+    }
+
+    /**
+     * @param heapUsage supplies the fraction, between 0 and 1, of the heap that is in use
+     */
+    static SwapThreshold adaptive(final int configuredThreshold, final DoubleSupplier heapUsage) {
+        return new SwapThreshold(configuredThreshold, heapUsage);
+    }
+
+    public int get() {
+        return threshold;
+    }
+
+    public int getConfiguredThreshold() {
+        return configuredThreshold;
+    }
+
+    /**
+     * @return <code>true</code> if the threshold is currently lower than the configured value because of heap pressure
+     */
+    public boolean isReduced() {
+        return threshold < configuredThreshold;
+    }
+
+    /**
+     * Recalculates an adaptive threshold based on current heap usage. Has no effect on a fixed threshold.
+     */
+    public void refresh() {
+        if (heapUsage == null) {
+            return;
+        }
+
+        final double usage = heapUsage.getAsDouble();
+        final int updated = calculateThreshold(usage);
+        if (updated != threshold) {
+            logger.debug("Heap usage is now {}%; changing swap threshold from {} to {}", (int) (usage * 100), threshold, updated);
+            threshold = updated;
+        }
+    }
+
+    private int calculateThreshold(final double usage) {
+        if (usage <= LOW_HEAP_USAGE) {
+            return configuredThreshold;
+        }
+        if (usage >= HIGH_HEAP_USAGE) {
+            return minimumThreshold;
+        }
+
+        final double pressure = (usage - LOW_HEAP_USAGE) / (HIGH_HEAP_USAGE - LOW_HEAP_USAGE);
+        return (int) Math.round(configuredThreshold - pressure * (configuredThreshold - minimumThreshold));
+    }
+
+    /**
+     * Determines the fraction of the tenured generation that remained in use after the most recent garbage collection. Unlike current usage,
+     * this is not inflated by garbage that has not yet been collected. The tenured generation is the heap pool that supports both usage and
+     * collection usage thresholds.
+     */
+    private static double getTenuredHeapUsage() {
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isUsageThresholdSupported() || !pool.isCollectionUsageThresholdSupported()) {
+                continue;
+            }
+
+            final MemoryUsage usage = pool.getCollectionUsage();
+            if (usage == null || usage.getMax() <= 0) {
+                return 0D;
+            }
+
+            return (double) usage.getUsed() / usage.getMax();
+        }
+
+        return 0D;
+    }
+
+    @Override
+    public String toString() {
+        return heapUsage == null ? "SwapThreshold[fixed=" + configuredThreshold + "]" : "SwapThreshold[configured=" + configuredThreshold + ", current=" + threshold + "]";
+    }
+}
@@ -58,7 +58,8 @@ public class SwappablePriorityQueue {
     private static final int SWAP_RECORD_POLL_SIZE = 10_000;
     private static final int MAX_EXPIRED_RECORDS_PER_ITERATION = 10_000;
 
-    private final int swapThreshold;
+    private final SwapThreshold swapThreshold;
+    private final int activeQueuePartitions;
     private final FlowFileSwapManager swapManager;
     private final EventReporter eventReporter;
     private final FlowFileQueue flowFileQueue;
@@ -80,8 +81,9 @@ public class SwappablePriorityQueue {
     // active queue, then we would end up processing the newer FlowFile before the swapped FlowFile. By
     // keeping these separate, we are able to guarantee that FlowFiles are swapped in in the same order
     // that they are swapped out.
-    // Guarded by lock.
-    private PriorityQueue<FlowFileRecord> activeQueue;
+    // Guarded by lock. If the active queue is a StripedPriorityQueue, FlowFiles may be added to and removed from it while holding only
+    // the read lock, as long as the queue is not in swap mode; all other modifications still require the write lock.
+    private Queue<FlowFileRecord> activeQueue;
     private ArrayList<FlowFileRecord> swapQueue;
     private boolean swapMode = false;
 
@@ -90,12 +92,36 @@ public class SwappablePriorityQueue {
     private final Map<String, Long> minQueueDateInSwapLocation = new HashMap<>();
     private final Map<String, Long> totalQueueDateInSwapLocation = new HashMap<>();
 
+    // Guarded by lock. The number of times that a swap file has been swapped in and the total time that polling threads have waited for it.
+    private long swapInCount = 0L;
+    private long swapInNanos = 0L;
+
     public SwappablePriorityQueue(final FlowFileSwapManager swapManager, final int swapThreshold, final EventReporter eventReporter, final FlowFileQueue flowFileQueue,
         final DropFlowFileAction dropAction, final String swapPartitionName) {
+        this(swapManager, swapThreshold, 1, eventReporter, flowFileQueue, dropAction, swapPartitionName);
+    }
+
+    /**
+     * @param activeQueuePartitions the number of independently locked partitions to split the active queue into when the queue has no prioritizers.
+     * A value of 1 results in a single PriorityQueue that is guarded by the queue's lock.
+     */
+    public SwappablePriorityQueue(final FlowFileSwapManager swapManager, final int swapThreshold, final int activeQueuePartitions, final EventReporter eventReporter,
+        final FlowFileQueue flowFileQueue, final DropFlowFileAction dropAction, final String swapPartitionName) {
+        this(swapManager, SwapThreshold.fixed(swapThreshold), activeQueuePartitions, eventReporter, flowFileQueue, dropAction, swapPartitionName);
+    }
+
+    /**
+     * @param swapThreshold the number of FlowFiles that the Active Queue may hold before FlowFiles are swapped out, which may change over time
+     * @param activeQueuePartitions the number of independently locked partitions to split the active queue into when the queue has no prioritizers.
+     * A value of 1 results in a single PriorityQueue that is guarded by the queue's lock.
+     */
+    public SwappablePriorityQueue(final FlowFileSwapManager swapManager, final SwapThreshold swapThreshold, final int activeQueuePartitions, final EventReporter eventReporter,
+        final FlowFileQueue flowFileQueue, final DropFlowFileAction dropAction, final String swapPartitionName) {
         this.swapManager = swapManager;
         this.swapThreshold = swapThreshold;
+        this.activeQueuePartitions = Math.max(1, activeQueuePartitions);
 
-        this.activeQueue = new PriorityQueue<>(20, new QueuePrioritizer(Collections.emptyList()));
+        this.activeQueue = createActiveQueue(Collections.emptyList(), 20);
         this.swapQueue = new ArrayList<>();
         this.eventReporter = eventReporter;
         this.flowFileQueue = flowFileQueue;
@@ -126,7 +152,7 @@ public class SwappablePriorityQueue {
             priorities.clear();
             priorities.addAll(newPriorities);
 
-            final PriorityQueue<FlowFileRecord> newQueue = new PriorityQueue<>(Math.max(20, activeQueue.size()), new QueuePrioritizer(newPriorities));
+            final Queue<FlowFileRecord> newQueue = createActiveQueue(newPriorities, Math.max(20, activeQueue.size()));
             newQueue.addAll(activeQueue);
             activeQueue = newQueue;
         } finally {
@@ -134,14 +160,30 @@ public class SwappablePriorityQueue {
         }
     }
 
+    /**
+     * Creates the queue that is to be used as the Active Queue. If no prioritizers are configured, the order in which FlowFiles are processed is
+     * not significant, so the queue is split into independently locked partitions (if configured to do so), which allows concurrent tasks to
+     * add and remove FlowFiles without obtaining the write lock.
+     */
+    private Queue<FlowFileRecord> createActiveQueue(final List<FlowFilePrioritizer> prioritizers, final int initialCapacity) {
+        final QueuePrioritizer queuePrioritizer = new QueuePrioritizer(prioritizers);
+        if (activeQueuePartitions > 1 && prioritizers.isEmpty()) {
+            return new StripedPriorityQueue(activeQueuePartitions, queuePrioritizer);
+        }
+
+        return new PriorityQueue<>(initialCapacity, queuePrioritizer);
+    }
+
 
     public LocalQueuePartitionDiagnostics getQueueDiagnostics() {
         readLock.lock();
         try {
-            final boolean anyPenalized = !activeQueue.isEmpty() && activeQueue.peek().isPenalized();
+            // The active queue may be drained concurrently when it is partitioned, so peek only once
+            final FlowFileRecord head = activeQueue.peek();
+            final boolean anyPenalized = head != null && head.isPenalized();
             final boolean allPenalized = anyPenalized && activeQueue.stream().anyMatch(FlowFileRecord::isPenalized);
 
-            return new StandardLocalQueuePartitionDiagnostics(getFlowFileQueueSize(), anyPenalized, allPenalized);
+            return new StandardLocalQueuePartitionDiagnostics(getFlowFileQueueSize(), anyPenalized, allPenalized, swapInCount, TimeUnit.NANOSECONDS.toMillis(swapInNanos));
         } finally {
             readLock.unlock("getQueueDiagnostics");
         }
@@ -295,6 +337,7 @@ public class SwappablePriorityQueue {
         // Swap Queue to the Active Queue. However, we don't do this if there are FlowFiles already swapped out
         // to disk, because we want them to be swapped back in in the same order that they were swapped out.
         if (!activeQueue.isEmpty()) {
+            prefetchSwapFileIfNecessary();
             return;
         }
 
@@ -327,13 +370,16 @@ public class SwappablePriorityQueue {
 
         int recordsMigrated = 0;
         long bytesMigrated = 0L;
-        while (activeQueue.size() < swapThreshold) {
+        int activeQueueCount = activeQueue.size();
+        final int threshold = swapThreshold.get();
+        while (activeQueueCount < threshold) {
             final FlowFileRecord toMigrate = tempQueue.poll();
             if (toMigrate == null) {
                 break;
             }
 
             activeQueue.add(toMigrate);
+            activeQueueCount++;
             bytesMigrated += toMigrate.getSize();
             recordsMigrated++;
         }
@@ -355,10 +401,31 @@ public class SwappablePriorityQueue {
         }
     }
 
+    /**
+     * Once the Active Queue has drained to half of the swap threshold, asks the Swap Manager to begin reading the next swap file in the background,
+     * so that the FlowFiles are already in memory when the Active Queue runs dry and the polling thread does not have to wait on disk while holding
+     * the write lock. Because the next swap file is only read once the Active Queue is this small, prefetching does not cause the queue to hold
+     * appreciably more FlowFiles in heap than the swap threshold allows. Nothing is prefetched while the swap threshold is reduced due to heap pressure.
+     *
+     * This method MUST be called with the read lock or the write lock held.
+     */
+    private void prefetchSwapFileIfNecessary() {
+        if (swapLocations.isEmpty() || swapThreshold.isReduced()) {
+            return;
+        }
+
+        if (getFlowFileQueueSize().getActiveCount() > swapThreshold.get() / 2) {
+            return;
+        }
+
+        swapManager.prefetch(swapLocations.get(0), flowFileQueue);
+    }
+
     private void swapIn() {
         final String swapLocation = swapLocations.get(0);
         boolean partialContents = false;
         SwapContents swapContents;
+        final long swapInStart = System.nanoTime();
         try {
             logger.debug("Attempting to swap in {}; all swap locations = {}", swapLocation, swapLocations);
             swapContents = swapManager.swapIn(swapLocation, flowFileQueue);
@@ -401,6 +468,9 @@ public class SwappablePriorityQueue {
             // an OOME, etc. then we don't want to he queue to still reflect that the data is around but never swap it in. By leaving the Swap File
             // in swapLocations, we will continue to retry.
             throw t;
+        } finally {
+            swapInCount++;
+            swapInNanos += System.nanoTime() - swapInStart;
         }
 
         final QueueSize swapSize = swapContents.getSummary().getQueueSize();
@@ -453,9 +523,14 @@ public class SwappablePriorityQueue {
 
 
     public void put(final FlowFileRecord flowFile) {
+        if (putToStripedQueue(Collections.singleton(flowFile), flowFile.getSize())) {
+            logger.trace("{} put to {}", flowFile, this);
+            return;
+        }
+
         writeLock.lock();
         try {
-            if (swapMode || activeQueue.size() >= swapThreshold) {
+            if (swapMode || activeQueue.size() >= swapThreshold.get()) {
                 swapQueue.add(flowFile);
                 incrementSwapQueueSize(1, flowFile.getSize(), 0);
                 swapMode = true;
@@ -478,9 +553,14 @@ public class SwappablePriorityQueue {
             bytes += flowFile.getSize();
         }
 
+        if (putToStripedQueue(flowFiles, bytes)) {
+            logger.trace("{} put to {}", flowFiles, this);
+            return;
+        }
+
         writeLock.lock();
         try {
-            if (swapMode || activeQueue.size() >= swapThreshold - numFiles) {
+            if (swapMode || activeQueue.size() >= swapThreshold.get() - numFiles) {
                 swapQueue.addAll(flowFiles);
                 incrementSwapQueueSize(numFiles, bytes, 0);
                 swapMode = true;
@@ -500,9 +580,46 @@ public class SwappablePriorityQueue {
         return poll(expiredRecords, expirationMillis, PollStrategy.UNPENALIZED_FLOWFILES);
     }
 
+    /**
+     * Adds the given FlowFiles to the Active Queue while holding only the read lock, if the Active Queue is partitioned and the FlowFiles can be
+     * added without swapping. Because concurrent puts each check the threshold independently, the active queue may slightly exceed the swap threshold.
+     *
+     * @return <code>true</code> if the FlowFiles were added, <code>false</code> if the caller must add them while holding the write lock
+     */
+    private boolean putToStripedQueue(final Collection<FlowFileRecord> flowFiles, final long bytes) {
+        if (activeQueuePartitions < 2) {
+            return false;
+        }
+
+        readLock.lock();
+        try {
+            if (!(activeQueue instanceof StripedPriorityQueue) || swapMode || getFlowFileQueueSize().getActiveCount() > swapThreshold.get() - flowFiles.size()) {
+                return false;
+            }
+
+            incrementActiveQueueSize(flowFiles.size(), bytes);
+            activeQueue.addAll(flowFiles);
+            return true;
+        } finally {
+            readLock.unlock("putToStripedQueue");
+        }
+    }
+
     public FlowFileRecord poll(final Set<FlowFileRecord> expiredRecords, final long expirationMillis, final PollStrategy pollStrategy) {
         FlowFileRecord flowFile;
 
+        if (activeQueuePartitions > 1) {
+            final List<FlowFileRecord> polled = new ArrayList<>(1);
+            if (pollFromStripedQueue(polled, 1, expiredRecords, expirationMillis, pollStrategy)) {
+                flowFile = polled.isEmpty() ? null : polled.get(0);
+                if (flowFile != null) {
+                    logger.trace("{} poll() returning {}", this, flowFile);
+                }
+
+                return flowFile;
+            }
+        }
+
         // First check if we have any records Pre-Fetched.
         writeLock.lock();
         try {
@@ -564,12 +681,14 @@ public class SwappablePriorityQueue {
     public List<FlowFileRecord> poll(int maxResults, final Set<FlowFileRecord> expiredRecords, final long expirationMillis, final PollStrategy pollStrategy) {
         final List<FlowFileRecord> records = new ArrayList<>(Math.min(1, maxResults));
 
-        // First check if we have any records Pre-Fetched.
-        writeLock.lock();
-        try {
-            doPoll(records, maxResults, expiredRecords, expirationMillis, pollStrategy);
-        } finally {
-            writeLock.unlock("poll(int, Set)");
+        if (activeQueuePartitions < 2 || !pollFromStripedQueue(records, maxResults, expiredRecords, expirationMillis, pollStrategy)) {
+            // First check if we have any records Pre-Fetched.
+            writeLock.lock();
+            try {
+                doPoll(records, maxResults, expiredRecords, expirationMillis, pollStrategy);
+            } finally {
+                writeLock.unlock("poll(int, Set)");
+            }
         }
 
         if (!records.isEmpty()) {
@@ -645,6 +764,58 @@ public class SwappablePriorityQueue {
         }
     }
 
+    /**
+     * Polls FlowFiles from the Active Queue while holding only the read lock, if the Active Queue is partitioned. If nothing could be pulled
+     * from the Active Queue and there are FlowFiles that may need to be migrated from the swap queue or swapped in, this method returns
+     * <code>false</code> so that the caller can instead poll while holding the write lock.
+     *
+     * @return <code>true</code> if the poll was completed, <code>false</code> if the caller must poll while holding the write lock
+     */
+    private boolean pollFromStripedQueue(final List<FlowFileRecord> records, final int maxResults, final Set<FlowFileRecord> expiredRecords, final long expirationMillis,
+                                         final PollStrategy pollStrategy) {
+        readLock.lock();
+        try {
+            if (!(activeQueue instanceof StripedPriorityQueue)) {
+                return false;
+            }
+
+            final StripedPriorityQueue stripedQueue = (StripedPriorityQueue) activeQueue;
+            final boolean includePenalized = pollStrategy != PollStrategy.UNPENALIZED_FLOWFILES;
+
+            int expiredCount = 0;
+            long expiredBytes = 0L;
+            long polledBytes = 0L;
+            FlowFileRecord pulled;
+            while (records.size() < maxResults && (pulled = stripedQueue.pollAny(includePenalized)) != null) {
+                if (isExpired(pulled, expirationMillis)) {
+                    expiredRecords.add(pulled);
+                    expiredCount++;
+                    expiredBytes += pulled.getSize();
+
+                    if (expiredRecords.size() >= MAX_EXPIRED_RECORDS_PER_ITERATION) {
+                        break;
+                    }
+                } else {
+                    records.add(pulled);
+                    polledBytes += pulled.getSize();
+                }
+            }
+
+            prefetchSwapFileIfNecessary();
+
+            if (records.isEmpty() && expiredCount == 0) {
+                // Nothing was available. If there is nothing swapped out, there is nothing that obtaining the write lock would accomplish.
+                return getFlowFileQueueSize().getSwappedCount() == 0;
+            }
+
+            incrementActiveQueueSize(-(records.size() + expiredCount), -(polledBytes + expiredBytes));
+            incrementUnacknowledgedQueueSize(records.size(), polledBytes);
+            return true;
+        } finally {
+            readLock.unlock("pollFromStripedQueue");
+        }
+    }
+
     private void doPoll(final List<FlowFileRecord> records, int maxResults, final Set<FlowFileRecord> expiredRecords, final long expirationMillis, final PollStrategy pollStrategy) {
         migrateSwapToActive();
 
@@ -20,6 +20,7 @@ package org.apache.nifi.controller.queue.clustered;
 import org.apache.nifi.controller.repository.ContentNotFoundException;
 import org.apache.nifi.controller.repository.ContentRepository;
 import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
 import org.apache.nifi.controller.repository.io.LimitedInputStream;
 import org.apache.nifi.stream.io.StreamUtils;
 
@@ -27,6 +28,8 @@ import java.io.EOFException;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.Optional;
 
 public class ContentRepositoryFlowFileAccess implements FlowFileContentAccess {
     private final ContentRepository contentRepository;
@@ -88,4 +91,42 @@ public class ContentRepositoryFlowFileAccess implements FlowFileContentAccess {
         };
     }
 
+    @Override
+    public Optional<FileChannel> openChannel(final FlowFileRecord flowFile) throws IOException {
+        final ContentClaim contentClaim = flowFile.getContentClaim();
+        if (contentClaim == null) {
+            return Optional.empty();
+        }
+
+        final Optional<FileChannel> optionalChannel;
+        try {
+            optionalChannel = contentRepository.openFileChannel(contentClaim);
+        } catch (final ContentNotFoundException cnfe) {
+            throw new ContentNotFoundException(flowFile, contentClaim, cnfe.getMessage());
+        }
+
+        if (!optionalChannel.isPresent()) {
+            return Optional.empty();
+        }
+
+        final FileChannel channel = optionalChannel.get();
+        final long contentStart = contentClaim.getOffset() + flowFile.getContentClaimOffset();
+        boolean positioned = false;
+        try {
+            final long channelSize = channel.size();
+            if (channelSize < contentStart + flowFile.getSize()) {
+                throw new ContentNotFoundException(flowFile, contentClaim, "FlowFile's content should span bytes " + contentStart + " through " + (contentStart + flowFile.getSize())
+                    + " of the Resource Claim but the Resource Claim only has " + channelSize + " bytes");
+            }
+
+            channel.position(contentStart);
+            positioned = true;
+        } finally {
+            if (!positioned) {
+                channel.close();
+            }
+        }
+
+        return Optional.of(channel);
+    }
 }
@@ -19,6 +19,8 @@ package org.apache.nifi.controller.queue.clustered;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.Optional;
 
 import org.apache.nifi.controller.repository.FlowFileRecord;
 
@@ -26,4 +28,17 @@ public interface FlowFileContentAccess {
 
     InputStream read(FlowFileRecord flowFile) throws IOException;
 
+    /**
+     * Optional operation that opens a FileChannel that is positioned at the first byte of the given FlowFile's content, so that the content can be
+     * read into direct ByteBuffers rather than being copied through a byte array. Exactly {@link FlowFileRecord#getSize()} bytes should be read
+     * from the channel, and the caller is responsible for closing it.
+     *
+     * @param flowFile the FlowFile whose content should be read
+     * @return a channel positioned at the start of the FlowFile's content, or an empty Optional if the content must be read using {@link #read(FlowFileRecord)}
+     * @throws IOException if unable to open the channel
+     */
+    default Optional<FileChannel> openChannel(FlowFileRecord flowFile) throws IOException {
+        return Optional.empty();
+    }
+
 }
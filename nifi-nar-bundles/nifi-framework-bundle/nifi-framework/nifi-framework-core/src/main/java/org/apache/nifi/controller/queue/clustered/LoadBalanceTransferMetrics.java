@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue.clustered;
+
+import org.apache.nifi.util.timebuffer.CountSizeEntityAccess;
+import org.apache.nifi.util.timebuffer.LongEntityAccess;
+import org.apache.nifi.util.timebuffer.TimedBuffer;
+import org.apache.nifi.util.timebuffer.TimedCountSize;
+import org.apache.nifi.util.timebuffer.TimestampedLong;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps track of how much data has been load balanced to and from each peer over the last five minutes so that the throughput of
+ * each peer can be reported in diagnostics.
+ */
+public class LoadBalanceTransferMetrics {
+    private static final int WINDOW_SECONDS = 300;
+
+    private final ConcurrentMap<String, PeerTransferMetrics> sent = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, PeerTransferMetrics> received = new ConcurrentHashMap<>();
+
+    public void recordSent(final String peer, final int flowFileCount, final long bytes, final long transferMillis) {
+        sent.computeIfAbsent(peer, key -> new PeerTransferMetrics()).record(flowFileCount, bytes, transferMillis);
+    }
+
+    public void recordReceived(final String peer, final int flowFileCount, final long bytes, final long transferMillis) {
+        received.computeIfAbsent(peer, key -> new PeerTransferMetrics()).record(flowFileCount, bytes, transferMillis);
+    }
+
+    /**
+     * @return the data sent to each peer over the last five minutes, keyed by the description of the peer
+     */
+    public Map<String, PeerTransferMetrics> getSent() {
+        return Collections.unmodifiableMap(new TreeMap<>(sent));
+    }
+
+    /**
+     * @return the data received from each peer over the last five minutes, keyed by the description of the peer
+     */
+    public Map<String, PeerTransferMetrics> getReceived() {
+        return Collections.unmodifiableMap(new TreeMap<>(received));
+    }
+
+    public static class PeerTransferMetrics {
+        private final TimedBuffer<TimedCountSize> transfers = new TimedBuffer<>(TimeUnit.SECONDS, WINDOW_SECONDS, new CountSizeEntityAccess());
+        private final TimedBuffer<TimestampedLong> transferMillis = new TimedBuffer<>(TimeUnit.SECONDS, WINDOW_SECONDS, new LongEntityAccess());
+
+        private synchronized void record(final int flowFileCount, final long bytes, final long millis) {
+            transfers.add(new TimedCountSize(flowFileCount, bytes));
+            transferMillis.add(new TimestampedLong(millis));
+        }
+
+        private synchronized TimedCountSize getTransfers() {
+            final TimedCountSize countSize = transfers.getAggregateValue(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(WINDOW_SECONDS));
+            return countSize == null ? new TimedCountSize(0L, 0L) : countSize;
+        }
+
+        public long getFlowFileCount() {
+            return getTransfers().getCount();
+        }
+
+        public long getBytes() {
+            return getTransfers().getSize();
+        }
+
+        /**
+         * @return the amount of time spent actively transferring data, which may be much less than five minutes if the connection is mostly idle
+         */
+        public synchronized long getTransferMillis() {
+            final TimestampedLong millis = transferMillis.getAggregateValue(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(WINDOW_SECONDS));
+            return millis == null ? 0L : millis.getValue();
+        }
+
+        /**
+         * @return the rate at which data was transferred while a transaction was in progress
+         */
+        public long getBytesPerSecond() {
+            final long millis = getTransferMillis();
+            return millis == 0L ? 0L : getBytes() * 1000L / millis;
+        }
+    }
+}
@@ -37,6 +37,7 @@ import org.apache.nifi.controller.queue.QueueDiagnostics;
 import org.apache.nifi.controller.queue.QueueSize;
 import org.apache.nifi.controller.queue.RemoteQueuePartitionDiagnostics;
 import org.apache.nifi.controller.queue.StandardQueueDiagnostics;
+import org.apache.nifi.controller.queue.SwapThreshold;
 import org.apache.nifi.controller.queue.SwappablePriorityQueue;
 import org.apache.nifi.controller.queue.clustered.client.async.AsyncLoadBalanceClientRegistry;
 import org.apache.nifi.controller.queue.clustered.partition.CorrelationAttributePartitioner;
@@ -129,6 +130,21 @@ public class SocketLoadBalancedFlowFileQueue extends AbstractFlowFileQueue imple
                                            final ProvenanceEventRepository provRepo, final ContentRepository contentRepo, final ResourceClaimManager resourceClaimManager,
                                            final ClusterCoordinator clusterCoordinator, final AsyncLoadBalanceClientRegistry clientRegistry, final FlowFileSwapManager swapManager,
                                            final int swapThreshold, final EventReporter eventReporter) {
+        this(identifier, eventListener, scheduler, flowFileRepo, provRepo, contentRepo, resourceClaimManager, clusterCoordinator, clientRegistry, swapManager, swapThreshold, 1, eventReporter);
+    }
+
+    public SocketLoadBalancedFlowFileQueue(final String identifier, final ConnectionEventListener eventListener, final ProcessScheduler scheduler, final FlowFileRepository flowFileRepo,
+                                           final ProvenanceEventRepository provRepo, final ContentRepository contentRepo, final ResourceClaimManager resourceClaimManager,
+                                           final ClusterCoordinator clusterCoordinator, final AsyncLoadBalanceClientRegistry clientRegistry, final FlowFileSwapManager swapManager,
+                                           final int swapThreshold, final int activeQueuePartitions, final EventReporter eventReporter) {
+        this(identifier, eventListener, scheduler, flowFileRepo, provRepo, contentRepo, resourceClaimManager, clusterCoordinator, clientRegistry, swapManager,
+            SwapThreshold.fixed(swapThreshold), activeQueuePartitions, eventReporter);
+    }
+
+    public SocketLoadBalancedFlowFileQueue(final String identifier, final ConnectionEventListener eventListener, final ProcessScheduler scheduler, final FlowFileRepository flowFileRepo,
+                                           final ProvenanceEventRepository provRepo, final ContentRepository contentRepo, final ResourceClaimManager resourceClaimManager,
+                                           final ClusterCoordinator clusterCoordinator, final AsyncLoadBalanceClientRegistry clientRegistry, final FlowFileSwapManager swapManager,
+                                           final SwapThreshold swapThreshold, final int activeQueuePartitions, final EventReporter eventReporter) {
 
         super(identifier, scheduler, flowFileRepo, provRepo, resourceClaimManager);
         this.eventListener = eventListener;
@@ -140,8 +156,8 @@ public class SocketLoadBalancedFlowFileQueue extends AbstractFlowFileQueue imple
         this.clusterCoordinator = clusterCoordinator;
         this.clientRegistry = clientRegistry;
 
-        localPartition = new SwappablePriorityQueueLocalPartition(swapManager, swapThreshold, eventReporter, this, this::drop);
-        rebalancingPartition = new StandardRebalancingPartition(swapManager, swapThreshold, eventReporter, this, this::drop);
+        localPartition = new SwappablePriorityQueueLocalPartition(swapManager, swapThreshold, activeQueuePartitions, eventReporter, this, this::drop);
+        rebalancingPartition = new StandardRebalancingPartition(swapManager, swapThreshold.getConfiguredThreshold(), eventReporter, this, this::drop);
 
         // Create a RemoteQueuePartition for each node
         nodeIdentifiers = clusterCoordinator == null ? Collections.emptySet() : new TreeSet<>(loadBalanceEndpointComparator);
@@ -21,34 +21,34 @@ import org.apache.nifi.controller.queue.LoadBalanceCompression;
 import org.apache.nifi.controller.queue.clustered.FlowFileContentAccess;
 import org.apache.nifi.controller.queue.clustered.TransactionThreshold;
 import org.apache.nifi.controller.queue.clustered.client.LoadBalanceFlowFileCodec;
+import org.apache.nifi.controller.queue.clustered.protocol.FrameCompressor;
+import org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceCodec;
 import org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants;
 import org.apache.nifi.controller.queue.clustered.server.TransactionAbortedException;
 import org.apache.nifi.controller.repository.ContentNotFoundException;
 import org.apache.nifi.controller.repository.FlowFileRecord;
 import org.apache.nifi.remote.StandardVersionNegotiator;
 import org.apache.nifi.remote.VersionNegotiator;
-import org.apache.nifi.stream.io.ByteCountingOutputStream;
-import org.apache.nifi.stream.io.GZIPOutputStream;
-import org.apache.nifi.stream.io.StreamUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.zip.CRC32;
-import java.util.zip.Checksum;
 
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.ABORT_PROTOCOL_NEGOTIATION;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.ABORT_TRANSACTION;
@@ -77,10 +77,12 @@ public class LoadBalanceSession {
     private final TransactionThreshold transactionThreshold;
     private volatile boolean canceled = false;
 
-    final VersionNegotiator negotiator = new StandardVersionNegotiator(1);
-    private int protocolVersion = 1;
+    final VersionNegotiator negotiator = new StandardVersionNegotiator(2, 1);
+    private int protocolVersion = 2;
+    private LoadBalanceCodec codec = LoadBalanceCodec.GZIP;
 
-    private final Checksum checksum = new CRC32();
+    private final CRC32 checksum = new CRC32();
+    private final long startTimestamp = System.currentTimeMillis();
 
     // guarded by synchronizing on 'this'
     private ByteBuffer preparedFrame;
@@ -88,7 +90,10 @@ public class LoadBalanceSession {
     private List<FlowFileRecord> flowFilesSent = new ArrayList<>();
     private TransactionPhase phase = TransactionPhase.RECOMMEND_PROTOCOL_VERSION;
     private InputStream flowFileInputStream;
-    private byte[] byteBuffer = new byte[MAX_DATA_FRAME_SIZE];
+    private FileChannel flowFileChannel;
+    private long flowFileBytesRemaining;
+    private final byte[] byteBuffer = new byte[5 + MAX_DATA_FRAME_SIZE]; // Data Frame header followed by up to MAX_DATA_FRAME_SIZE bytes of content
+    private final ByteArrayOutputStream metadataBuffer = new ByteArrayOutputStream();
     private boolean complete = false;
     private long readTimeout;
     private long penaltyExpiration = -1L;
@@ -114,6 +119,10 @@ public class LoadBalanceSession {
         return partition;
     }
 
+    public long getStartTimestamp() {
+        return startTimestamp;
+    }
+
     public synchronized int getDesiredReadinessFlag() {
         return phase.getRequiredSelectionKey();
     }
@@ -158,6 +167,8 @@ public class LoadBalanceSession {
                     return receiveProtocolVersionAcknowledgment();
                 case RECEIVE_RECOMMENDED_PROTOCOL_VERSION:
                     return receiveRecommendedProtocolVersion();
+                case RECEIVE_CODEC:
+                    return receiveCodec();
             }
 
             // Otherwise, we need to send something so get the data frame that should be sent and write it to the channel
@@ -168,6 +179,7 @@ public class LoadBalanceSession {
             return bytesWritten > 0;
         } catch (final Exception e) {
             complete = true;
+            closeFlowFileContent();
             throw e;
         }
     }
@@ -256,6 +268,8 @@ public class LoadBalanceSession {
                 return recommendProtocolVersion();
             case ABORT_PROTOCOL_NEGOTIATION:
                 return abortProtocolNegotiation();
+            case SEND_CODECS:
+                return getCodecs();
             case SEND_CONNECTION_ID:
                 return getConnectionId();
             case CHECK_SPACE:
@@ -302,71 +316,146 @@ public class LoadBalanceSession {
     }
 
     private ByteBuffer getFlowFileContent() throws IOException {
-        // This method is fairly inefficient, copying lots of byte[]. Can do better. But keeping it simple for
-        // now to get this working. Revisit with optimizations later.
         try {
-            if (flowFileInputStream == null) {
-                flowFileInputStream = flowFileContentAccess.read(currentFlowFile);
+            if (flowFileChannel == null && flowFileInputStream == null) {
+                openFlowFileContent();
+            }
+
+            final ByteBuffer buffer;
+            if (flowFileChannel != null) {
+                buffer = getDataFrameFromChannel();
+            } else {
+                buffer = getDataFrameFromStream();
             }
 
-            final int bytesRead = StreamUtils.fillBuffer(flowFileInputStream, byteBuffer, false);
-            if (bytesRead < 1) {
-                // If no data available, close the stream and move on to the next phase, returning a NO_DATA_FRAME buffer.
-                flowFileInputStream.close();
-                flowFileInputStream = null;
+            if (buffer == null) {
+                // If no data available, close the content and move on to the next phase, returning a NO_DATA_FRAME buffer.
+                closeFlowFileContent();
                 phase = TransactionPhase.GET_NEXT_FLOWFILE;
 
-                final ByteBuffer buffer = ByteBuffer.allocate(1);
-                buffer.put((byte) LoadBalanceProtocolConstants.NO_DATA_FRAME);
-                buffer.rewind();
+                final ByteBuffer noDataFrame = ByteBuffer.allocate(1);
+                noDataFrame.put((byte) LoadBalanceProtocolConstants.NO_DATA_FRAME);
+                noDataFrame.rewind();
 
                 checksum.update(LoadBalanceProtocolConstants.NO_DATA_FRAME);
 
                 logger.debug("Sending NO_DATA_FRAME indicator to Peer {}", peerDescription);
 
-                return buffer;
+                return noDataFrame;
             }
 
-            logger.trace("Sending Data Frame that is {} bytes long to Peer {}", bytesRead, peerDescription);
-            final ByteBuffer buffer;
+            phase = TransactionPhase.SEND_FLOWFILE_CONTENTS;
+            return buffer;
+        } catch (final ContentNotFoundException cnfe) {
+            throw new ContentNotFoundException(currentFlowFile, cnfe.getMissingClaim(), cnfe.getMessage());
+        }
+    }
 
-            if (partition.getCompression() == LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT) {
-                final byte[] compressed = compressDataFrame(byteBuffer, bytesRead);
-                final int compressedMaxLen = compressed.length;
+    private void openFlowFileContent() throws IOException {
+        // Compressed content has to pass through the compressor's byte array, so only read content through a channel when it is sent as-is
+        if (partition.getCompression() != LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT) {
+            final Optional<FileChannel> contentChannel = flowFileContentAccess.openChannel(currentFlowFile);
+            if (contentChannel.isPresent()) {
+                flowFileChannel = contentChannel.get();
+                flowFileBytesRemaining = currentFlowFile.getSize();
+                return;
+            }
+        }
 
-                buffer = ByteBuffer.allocate(5 + compressedMaxLen);
-                buffer.put((byte) LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS);
-                buffer.putInt(compressedMaxLen);
+        flowFileInputStream = flowFileContentAccess.read(currentFlowFile);
+    }
 
-                buffer.put(compressed, 0, compressedMaxLen);
-            } else {
-                buffer = ByteBuffer.allocate(5 + bytesRead);
-                buffer.put((byte) LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS);
-                buffer.putInt(bytesRead);
+    private void closeFlowFileContent() {
+        if (flowFileChannel != null) {
+            closeQuietly(flowFileChannel);
+            flowFileChannel = null;
+        }
+        if (flowFileInputStream != null) {
+            closeQuietly(flowFileInputStream);
+            flowFileInputStream = null;
+        }
+    }
+
+    private void closeQuietly(final Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (final IOException ioe) {
+            logger.warn("Failed to close content of {} after sending it to Peer {}", currentFlowFile, peerDescription, ioe);
+        }
+    }
 
-                buffer.put(byteBuffer, 0, bytesRead);
+    /**
+     * Reads the next Data Frame directly from the Content Repository's file into the channel's direct frame buffer, so that the content is never
+     * copied into the heap before it is written to the socket (or, if the connection is secure, encrypted).
+     */
+    private ByteBuffer getDataFrameFromChannel() throws IOException {
+        if (flowFileBytesRemaining <= 0) {
+            return null;
+        }
+
+        final int frameLength = (int) Math.min(MAX_DATA_FRAME_SIZE, flowFileBytesRemaining);
+        final ByteBuffer buffer = channel.getFrameBuffer(5 + MAX_DATA_FRAME_SIZE);
+        buffer.put((byte) LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS);
+        buffer.putInt(frameLength);
+        buffer.limit(5 + frameLength);
+
+        while (buffer.hasRemaining()) {
+            if (flowFileChannel.read(buffer) < 0) {
+                final long bytesRead = currentFlowFile.getSize() - flowFileBytesRemaining + buffer.position() - 5;
+                throw new EOFException("Expected " + currentFlowFile + " to contain " + currentFlowFile.getSize() + " bytes but the content repository only had " + bytesRead + " bytes for it");
             }
+        }
 
-            final byte[] frameArray = buffer.array();
-            checksum.update(frameArray, 0, frameArray.length);
+        buffer.flip();
+        checksum.update(buffer.duplicate());
+        flowFileBytesRemaining -= frameLength;
 
-            phase = TransactionPhase.SEND_FLOWFILE_CONTENTS;
-            buffer.rewind();
-            return buffer;
-        } catch (final ContentNotFoundException cnfe) {
-            throw new ContentNotFoundException(currentFlowFile, cnfe.getMissingClaim(), cnfe.getMessage());
-        }
+        logger.trace("Sending Data Frame that is {} bytes long to Peer {}", frameLength, peerDescription);
+        return buffer;
     }
 
-    private byte[] compressDataFrame(final byte[] uncompressed, final int byteCount) throws IOException {
-        try (final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-             final OutputStream gzipOut = new GZIPOutputStream(baos, 1)) {
+    private ByteBuffer getDataFrameFromStream() throws IOException {
+        // Read the content just past where the Data Frame header belongs so that an uncompressed frame can be sent without copying the content again
+        final int bytesRead = fillFrame(flowFileInputStream, byteBuffer);
+        if (bytesRead < 1) {
+            return null;
+        }
 
-            gzipOut.write(uncompressed, 0, byteCount);
-            gzipOut.close();
+        logger.trace("Sending Data Frame that is {} bytes long to Peer {}", bytesRead, peerDescription);
+        final ByteBuffer buffer;
 
-            return baos.toByteArray();
+        if (partition.getCompression() == LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT) {
+            final FrameCompressor compressor = channel.getCompressor(codec);
+            final int compressedLength = compressor.compress(byteBuffer, 5, bytesRead);
+
+            buffer = ByteBuffer.allocate(5 + compressedLength);
+            buffer.put((byte) LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS);
+            buffer.putInt(compressedLength);
+            buffer.put(compressor.getBuffer(), 0, compressedLength);
+        } else {
+            buffer = ByteBuffer.wrap(byteBuffer, 0, 5 + bytesRead);
+            buffer.put((byte) LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS);
+            buffer.putInt(bytesRead);
+            buffer.position(5 + bytesRead);
         }
+
+        buffer.flip();
+        checksum.update(buffer.array(), 0, buffer.limit());
+        return buffer;
+    }
+
+    private static int fillFrame(final InputStream in, final byte[] frame) throws IOException {
+        int offset = 5;
+        while (offset < frame.length) {
+            final int bytesRead = in.read(frame, offset, frame.length - offset);
+            if (bytesRead < 0) {
+                break;
+            }
+
+            offset += bytesRead;
+        }
+
+        return offset - 5;
     }
 
     private ByteBuffer getNextFlowFile() throws IOException {
@@ -394,23 +483,22 @@ public class LoadBalanceSession {
         final boolean compressAttributes = compression != LoadBalanceCompression.DO_NOT_COMPRESS;
         logger.debug("Compression to use for sending to Peer {} is {}", peerDescription, compression);
 
-        final byte[] flowFileEncoded;
-        try (final ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            if (compressAttributes) {
-                try (final OutputStream gzipOut = new GZIPOutputStream(baos, 1);
-                     final ByteCountingOutputStream out = new ByteCountingOutputStream(gzipOut)) {
-
-                    flowFileCodec.encode(currentFlowFile, out);
-                }
-            } else {
-                flowFileCodec.encode(currentFlowFile, baos);
-            }
+        metadataBuffer.reset();
+        flowFileCodec.encode(currentFlowFile, metadataBuffer);
 
-            flowFileEncoded = baos.toByteArray();
+        final byte[] flowFileEncoded;
+        final int metadataLength;
+        if (compressAttributes) {
+            final FrameCompressor compressor = channel.getCompressor(codec);
+            final byte[] uncompressed = metadataBuffer.toByteArray();
+            metadataLength = compressor.compress(uncompressed, 0, uncompressed.length);
+            flowFileEncoded = compressor.getBuffer();
+        } else {
+            flowFileEncoded = metadataBuffer.toByteArray();
+            metadataLength = flowFileEncoded.length;
         }
 
-        final int metadataLength = flowFileEncoded.length;
-        final ByteBuffer buffer = ByteBuffer.allocate(flowFileEncoded.length + 5);
+        final ByteBuffer buffer = ByteBuffer.allocate(metadataLength + 5);
         buffer.put((byte) LoadBalanceProtocolConstants.MORE_FLOWFILES);
         checksum.update(LoadBalanceProtocolConstants.MORE_FLOWFILES);
 
@@ -420,8 +508,8 @@ public class LoadBalanceSession {
         checksum.update((metadataLength >> 8) & 0xFF);
         checksum.update(metadataLength & 0xFF);
 
-        buffer.put(flowFileEncoded);
-        checksum.update(flowFileEncoded, 0, flowFileEncoded.length);
+        buffer.put(flowFileEncoded, 0, metadataLength);
+        checksum.update(flowFileEncoded, 0, metadataLength);
 
         phase = TransactionPhase.SEND_FLOWFILE_DEFINITION;
         buffer.rewind();
@@ -460,7 +548,7 @@ public class LoadBalanceSession {
 
         if (response == VERSION_ACCEPTED) {
             logger.debug("Peer {} accepted Protocol Version {}", peerDescription, protocolVersion);
-            phase = TransactionPhase.SEND_CONNECTION_ID;
+            phase = getPhaseAfterVersionNegotiation();
             return true;
         }
 
@@ -494,7 +582,7 @@ public class LoadBalanceSession {
 
         if (negotiator.isVersionSupported(requestedVersion)) {
             protocolVersion = requestedVersion;
-            phase = TransactionPhase.SEND_CONNECTION_ID;
+            phase = getPhaseAfterVersionNegotiation();
             logger.debug("Peer {} recommended Protocol Version of {}. Accepting version.", peerDescription, requestedVersion);
 
             return true;
@@ -513,6 +601,58 @@ public class LoadBalanceSession {
         }
     }
 
+    private TransactionPhase getPhaseAfterVersionNegotiation() {
+        if (protocolVersion < 2) {
+            // Version 1 of the protocol does not negotiate a codec and always uses GZIP
+            codec = LoadBalanceCodec.GZIP;
+            return TransactionPhase.SEND_CONNECTION_ID;
+        }
+
+        return TransactionPhase.SEND_CODECS;
+    }
+
+    private ByteBuffer getCodecs() {
+        final List<LoadBalanceCodec> codecs = LoadBalanceCodec.getPreferredCodecs();
+        logger.debug("Offering codecs {} to Peer {}", codecs, peerDescription);
+
+        final ByteBuffer buffer = ByteBuffer.allocate(1 + codecs.size());
+        buffer.put((byte) codecs.size());
+        for (final LoadBalanceCodec offered : codecs) {
+            buffer.put((byte) offered.getId());
+        }
+        buffer.rewind();
+
+        readTimeout = System.currentTimeMillis() + timeoutMillis;
+        phase = TransactionPhase.RECEIVE_CODEC;
+        return buffer;
+    }
+
+    private boolean receiveCodec() throws IOException {
+        final OptionalInt codecResponse = channel.read();
+        if (!codecResponse.isPresent()) {
+            if (System.currentTimeMillis() > readTimeout) {
+                throw new SocketTimeoutException("Timed out waiting for Peer " + peerDescription + " to choose a codec");
+            }
+
+            return false;
+        }
+
+        final int codecId = codecResponse.getAsInt();
+        if (codecId < 0) {
+            throw new EOFException("Encountered End-of-File with Peer " + peerDescription + " when expecting the codec to use");
+        }
+
+        final LoadBalanceCodec chosen = LoadBalanceCodec.fromId(codecId);
+        if (chosen == null || !LoadBalanceCodec.getPreferredCodecs().contains(chosen)) {
+            throw new IOException("Peer " + peerDescription + " chose codec " + codecId + ", which was not offered");
+        }
+
+        logger.debug("Peer {} chose codec {}", peerDescription, chosen);
+        codec = chosen;
+        phase = TransactionPhase.SEND_CONNECTION_ID;
+        return true;
+    }
+
     private ByteBuffer noMoreFlowFiles() {
         final ByteBuffer buffer = ByteBuffer.allocate(1);
         buffer.put((byte) LoadBalanceProtocolConstants.NO_MORE_FLOWFILES);
@@ -622,6 +762,10 @@ public class LoadBalanceSession {
 
         ABORT_PROTOCOL_NEGOTIATION(SelectionKey.OP_WRITE),
 
+        SEND_CODECS(SelectionKey.OP_WRITE),
+
+        RECEIVE_CODEC(SelectionKey.OP_READ),
+
         SEND_CONNECTION_ID(SelectionKey.OP_WRITE),
 
         CHECK_SPACE(SelectionKey.OP_WRITE),
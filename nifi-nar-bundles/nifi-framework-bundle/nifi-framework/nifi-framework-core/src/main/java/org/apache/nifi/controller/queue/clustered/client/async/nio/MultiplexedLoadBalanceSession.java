@@ -0,0 +1,926 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue.clustered.client.async.nio;
+
+import org.apache.nifi.controller.queue.LoadBalanceCompression;
+import org.apache.nifi.controller.queue.clustered.FlowFileContentAccess;
+import org.apache.nifi.controller.queue.clustered.TransactionThreshold;
+import org.apache.nifi.controller.queue.clustered.client.LoadBalanceFlowFileCodec;
+import org.apache.nifi.controller.queue.clustered.protocol.FrameCompressor;
+import org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceCodec;
+import org.apache.nifi.controller.queue.clustered.server.TransactionAbortedException;
+import org.apache.nifi.controller.repository.ContentNotFoundException;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Queue;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import static org.apache.nifi.controller.queue.clustered.client.async.nio.LoadBalanceSession.MAX_DATA_FRAME_SIZE;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.ABORT_TRANSACTION;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.CHECK_SPACE;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.CLOSE_SESSION;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.CONFIRM_COMPLETE_TRANSACTION;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.DATA_FRAME_FOLLOWS;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.MORE_FLOWFILES;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.NO_DATA_FRAME;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.NO_MORE_FLOWFILES;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.OPEN_STREAM;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.QUEUE_FULL;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.REJECT_CHECKSUM;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.REQEUST_DIFFERENT_VERSION;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.SKIP_SPACE_CHECK;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.SPACE_AVAILABLE;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.VERSION_ACCEPTED;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.WINDOW_UPDATE;
+
+/**
+ * <p>
+ * A session that uses version 3 of the Load Balance Protocol to send FlowFiles for many Connections over a single socket at the same time. Each Connection
+ * that has data to send is given its own logical stream, and the frames of all open streams are interleaved, so that a large FlowFile, or a Connection
+ * whose queue is full on the receiving node, does not hold up the data for every other Connection that is waiting to be load balanced to the same node.
+ * </p>
+ *
+ * <p>
+ * After the Protocol Version and codec have been agreed upon, every frame that is sent to the server starts with a 6-byte header made up of the frame type,
+ * the stream identifier, and the length of the payload that follows. A stream is opened with an <code>OPEN_STREAM</code> frame that carries the space check
+ * and the Connection ID, after which FlowFiles are sent as a <code>MORE_FLOWFILES</code> frame holding the FlowFile's metadata, any number of
+ * <code>DATA_FRAME_FOLLOWS</code> frames holding its content, and a <code>NO_DATA_FRAME</code> frame. A <code>NO_MORE_FLOWFILES</code> frame carries the
+ * CRC32 of all of the stream's other frames and completes the stream's transaction; each stream is committed on its own. Every response from the server is
+ * also 6 bytes: the response type, the stream identifier, and a 4-byte value.
+ * </p>
+ *
+ * <p>
+ * The server grants each stream a window of bytes when it opens the stream and extends the window as it consumes data. A stream does not start sending a new
+ * FlowFile while its window is exhausted, which bounds the amount of data that a stream can have in flight without ever stopping a FlowFile part way through.
+ * If the server indicates that the queue has filled, the stream finishes the FlowFile that it is sending and then completes.
+ * </p>
+ */
+public class MultiplexedLoadBalanceSession {
+    private static final Logger logger = LoggerFactory.getLogger(MultiplexedLoadBalanceSession.class);
+
+    static final int PROTOCOL_VERSION = 3;
+    static final int FRAME_HEADER_LENGTH = 6;
+    static final int RESPONSE_LENGTH = 6;
+    static final int MAX_STREAM_ID = 255;
+    private static final long PARTITION_CHECK_MILLIS = 10L;
+    private static final long QUEUE_FULL_PENALTY_MILLIS = 1000L;
+
+    private final Function<Predicate<RegisteredPartition>, RegisteredPartition> readyPartitionSupplier;
+    private final FlowFileContentAccess flowFileContentAccess;
+    private final LoadBalanceFlowFileCodec flowFileCodec;
+    private final PeerChannel channel;
+    private final String peerDescription;
+    private final int timeoutMillis;
+    private final int maxStreams;
+    private final Supplier<TransactionThreshold> transactionThresholdFactory;
+
+    private volatile boolean complete = false;
+    private volatile boolean protocolVersionRejected = false;
+
+    // guarded by synchronizing on 'this'
+    private SessionPhase phase = SessionPhase.RECOMMEND_PROTOCOL_VERSION;
+    private LoadBalanceCodec codec = LoadBalanceCodec.GZIP;
+    private ByteBuffer preparedFrame;
+    private long readTimeout;
+    private long nextPartitionCheck = 0L;
+    private int nextStreamIndex = 0;
+    private final LoadBalanceStream[] streamsById = new LoadBalanceStream[MAX_STREAM_ID + 1];
+    private final List<LoadBalanceStream> activeStreams = new ArrayList<>();
+    private final List<LoadBalanceStream> finishedStreams = new ArrayList<>();
+    private final Set<Integer> abandonedStreamIds = new HashSet<>();
+    private final Queue<Integer> pendingAborts = new ArrayDeque<>();
+    private final ByteBuffer responseBuffer = ByteBuffer.allocate(RESPONSE_LENGTH);
+    private final byte[] frameBytes = new byte[FRAME_HEADER_LENGTH + MAX_DATA_FRAME_SIZE]; // Frame header followed by up to MAX_DATA_FRAME_SIZE bytes of payload
+    private final ByteArrayOutputStream metadataBuffer = new ByteArrayOutputStream();
+
+    /**
+     * @param readyPartitionSupplier provides a partition that has data ready to be sent and that matches the given filter, or <code>null</code> if there is none
+     * @param contentAccess provides access to the content of the FlowFiles to send
+     * @param flowFileCodec the codec used to encode each FlowFile's metadata
+     * @param peerChannel the channel to the peer
+     * @param timeoutMillis how long to wait for the peer to respond before considering the session failed
+     * @param maxStreams the maximum number of streams that may be open at once
+     * @param transactionThresholdFactory creates the threshold that limits how much data a single stream sends before completing its transaction
+     */
+    public MultiplexedLoadBalanceSession(final Function<Predicate<RegisteredPartition>, RegisteredPartition> readyPartitionSupplier, final FlowFileContentAccess contentAccess,
+                                         final LoadBalanceFlowFileCodec flowFileCodec, final PeerChannel peerChannel, final int timeoutMillis, final int maxStreams,
+                                         final Supplier<TransactionThreshold> transactionThresholdFactory) {
+        if (timeoutMillis < 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.readyPartitionSupplier = readyPartitionSupplier;
+        this.flowFileContentAccess = contentAccess;
+        this.flowFileCodec = flowFileCodec;
+        this.channel = peerChannel;
+        this.peerDescription = peerChannel.getPeerDescription();
+        this.timeoutMillis = timeoutMillis;
+        this.maxStreams = Math.max(1, Math.min(maxStreams, MAX_STREAM_ID));
+        this.transactionThresholdFactory = transactionThresholdFactory;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return <code>true</code> if the peer does not support version 3 of the Load Balance Protocol, in which case the session is complete without having sent anything
+     */
+    public boolean isProtocolVersionRejected() {
+        return protocolVersionRejected;
+    }
+
+    public synchronized int getDesiredReadinessFlag() {
+        return phase.getRequiredSelectionKey();
+    }
+
+    /**
+     * @return the streams that have finished, successfully or not, since this method was last called. The caller is responsible for triggering the
+     * appropriate callback for each stream's partition.
+     */
+    public synchronized List<LoadBalanceStream> getAndPurgeFinishedStreams() {
+        if (finishedStreams.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<LoadBalanceStream> copy = new ArrayList<>(finishedStreams);
+        finishedStreams.clear();
+        return copy;
+    }
+
+    /**
+     * Completes the session and returns all of the streams that had not yet finished. This is used when the session fails, so that the FlowFiles in the
+     * returned streams can be failed.
+     */
+    public synchronized List<LoadBalanceStream> getAndPurgeActiveStreams() {
+        complete = true;
+
+        final List<LoadBalanceStream> copy = new ArrayList<>(activeStreams);
+        for (final LoadBalanceStream stream : copy) {
+            stream.closeFlowFileContent();
+            streamsById[stream.getStreamId()] = null;
+        }
+
+        activeStreams.clear();
+        return copy;
+    }
+
+    /**
+     * Abandons the stream that is sending data for the given Connection, if there is one. The server is told to abort the stream's transaction.
+     *
+     * @param connectionId the ID of the Connection
+     * @return the FlowFiles that the stream had sent, or <code>null</code> if there was no open stream for the Connection. The caller is responsible
+     * for failing the returned FlowFiles.
+     */
+    public synchronized List<FlowFileRecord> cancel(final String connectionId) {
+        for (final LoadBalanceStream stream : activeStreams) {
+            if (stream.getPartition().getConnectionId().equals(connectionId)) {
+                abandon(stream, null, false);
+                return stream.getAndPurgeFlowFilesSent();
+            }
+        }
+
+        return null;
+    }
+
+    public synchronized boolean communicate() throws IOException {
+        if (complete) {
+            return false;
+        }
+
+        try {
+            // If there's already a frame prepared for writing, just write to the channel.
+            if (preparedFrame != null && preparedFrame.hasRemaining()) {
+                logger.trace("Current Frame is already available. Will continue writing current frame to channel");
+                return writeFrame();
+            }
+
+            switch (phase) {
+                case RECOMMEND_PROTOCOL_VERSION:
+                    return prepareAndWrite(recommendProtocolVersion());
+                case RECEIVE_PROTOCOL_VERSION_ACKNOWLEDGMENT:
+                    return receiveProtocolVersionAcknowledgment();
+                case RECEIVE_RECOMMENDED_PROTOCOL_VERSION:
+                    return receiveRecommendedProtocolVersion();
+                case SEND_CODECS:
+                    return prepareAndWrite(getCodecs());
+                case RECEIVE_CODEC:
+                    return receiveCodec();
+                case MULTIPLEXING:
+                    return multiplex();
+                default:
+                    return false;
+            }
+        } catch (final Exception e) {
+            complete = true;
+            for (final LoadBalanceStream stream : activeStreams) {
+                stream.closeFlowFileContent();
+            }
+
+            throw e;
+        }
+    }
+
+    private boolean prepareAndWrite(final ByteBuffer frame) throws IOException {
+        preparedFrame = channel.prepareForWrite(frame); // Prepare frame for writing. E.g., encrypt the data, etc.
+        return writeFrame();
+    }
+
+    private boolean writeFrame() throws IOException {
+        final int bytesWritten = channel.write(preparedFrame);
+        if (bytesWritten > 0) {
+            readTimeout = System.currentTimeMillis() + timeoutMillis;
+        }
+
+        if (phase == SessionPhase.CLOSED && !preparedFrame.hasRemaining()) {
+            logger.debug("Finished Multiplexed Load Balance Session with Peer {}", peerDescription);
+            complete = true;
+        }
+
+        return bytesWritten > 0;
+    }
+
+    private boolean multiplex() throws IOException {
+        final boolean responsesReceived = readResponses();
+
+        final ByteBuffer frame = getNextFrame();
+        if (frame != null) {
+            return prepareAndWrite(frame) || responsesReceived;
+        }
+
+        if (responsesReceived) {
+            readTimeout = System.currentTimeMillis() + timeoutMillis;
+        } else if (System.currentTimeMillis() > readTimeout) {
+            throw new SocketTimeoutException("Timed out waiting for Peer " + peerDescription + " to respond to " + activeStreams.size() + " open Load Balancing streams");
+        }
+
+        return responsesReceived;
+    }
+
+    private boolean readResponses() throws IOException {
+        boolean anyRead = false;
+
+        while (true) {
+            final int bytesRead = channel.read(responseBuffer);
+            if (bytesRead < 0) {
+                throw new EOFException("Encountered End-of-File when expecting a response from Peer " + peerDescription);
+            }
+            if (bytesRead > 0) {
+                anyRead = true;
+            }
+            if (responseBuffer.hasRemaining()) {
+                return anyRead;
+            }
+
+            responseBuffer.flip();
+            final int responseType = responseBuffer.get() & 0xFF;
+            final int streamId = responseBuffer.get() & 0xFF;
+            final int value = responseBuffer.getInt();
+            responseBuffer.clear();
+
+            handleResponse(responseType, streamId, value);
+        }
+    }
+
+    private void handleResponse(final int responseType, final int streamId, final int value) throws IOException {
+        if (abandonedStreamIds.contains(streamId)) {
+            // Ignore anything that the server sent for an abandoned stream until it acknowledges the abort, after which the identifier may be reused.
+            if (responseType == ABORT_TRANSACTION) {
+                logger.debug("Peer {} acknowledged that stream {} was aborted", peerDescription, streamId);
+                abandonedStreamIds.remove(streamId);
+            }
+
+            return;
+        }
+
+        final LoadBalanceStream stream = streamsById[streamId];
+        if (stream == null) {
+            throw new IOException("Received response " + responseType + " from Peer " + peerDescription + " for stream " + streamId + " but no such stream is open");
+        }
+
+        stream.onResponse(responseType, value);
+        if (stream.isFinished()) {
+            removeStream(stream);
+            finishedStreams.add(stream);
+        }
+    }
+
+    private ByteBuffer getNextFrame() throws IOException {
+        final Integer abortedStreamId = pendingAborts.poll();
+        if (abortedStreamId != null) {
+            return createFrame(ABORT_TRANSACTION, abortedStreamId, null, 0, 0);
+        }
+
+        if (activeStreams.size() < maxStreams) {
+            final long now = System.currentTimeMillis();
+            if (activeStreams.isEmpty() || now >= nextPartitionCheck) {
+                nextPartitionCheck = now + PARTITION_CHECK_MILLIS;
+
+                // Only one stream is opened for a given Connection at a time so that its FlowFiles are sent in order
+                final RegisteredPartition partition = readyPartitionSupplier.apply(candidate -> !isStreamOpen(candidate));
+                if (partition != null) {
+                    final int streamId = nextAvailableStreamId();
+                    if (streamId > 0) {
+                        return openStream(partition, streamId);
+                    }
+                }
+            }
+        }
+
+        final int streamCount = activeStreams.size();
+        for (int i = 0; i < streamCount; i++) {
+            final LoadBalanceStream stream = activeStreams.get((nextStreamIndex + i) % streamCount);
+
+            final ByteBuffer frame;
+            try {
+                frame = stream.getNextFrame();
+            } catch (final ContentNotFoundException cnfe) {
+                // Only this stream's transaction is affected, so abort it and carry on with the others.
+                logger.warn("Could not find content of {} to send to Peer {}; aborting stream for Connection {}", stream.getCurrentFlowFile(), peerDescription,
+                    stream.getPartition().getConnectionId());
+                abandon(stream, new ContentNotFoundException(stream.getCurrentFlowFile(), cnfe.getMissingClaim(), cnfe.getMessage()), true);
+                return createFrame(ABORT_TRANSACTION, pendingAborts.remove(), null, 0, 0);
+            }
+
+            if (frame != null) {
+                nextStreamIndex = (nextStreamIndex + i + 1) % streamCount;
+                return frame;
+            }
+        }
+
+        if (activeStreams.isEmpty() && abandonedStreamIds.isEmpty()) {
+            logger.debug("No more data to send to Peer {}; closing Multiplexed Load Balance Session", peerDescription);
+            phase = SessionPhase.CLOSED;
+            return createFrame(CLOSE_SESSION, 0, null, 0, 0);
+        }
+
+        return null;
+    }
+
+    private boolean isStreamOpen(final RegisteredPartition partition) {
+        for (final LoadBalanceStream stream : activeStreams) {
+            if (stream.getPartition() == partition) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private int nextAvailableStreamId() {
+        for (int streamId = 1; streamId <= MAX_STREAM_ID; streamId++) {
+            if (streamsById[streamId] == null && !abandonedStreamIds.contains(streamId)) {
+                return streamId;
+            }
+        }
+
+        return -1;
+    }
+
+    private ByteBuffer openStream(final RegisteredPartition partition, final int streamId) {
+        final LoadBalanceStream stream = new LoadBalanceStream(partition, streamId, transactionThresholdFactory.get());
+        streamsById[streamId] = stream;
+        activeStreams.add(stream);
+
+        logger.debug("Opening stream {} to send FlowFiles for Connection {} to Peer {}", streamId, partition.getConnectionId(), peerDescription);
+
+        final byte[] connectionIdBytes = partition.getConnectionId().getBytes(StandardCharsets.UTF_8);
+        final byte[] payload = new byte[1 + connectionIdBytes.length];
+        payload[0] = (byte) (partition.isHonorBackpressure() ? CHECK_SPACE : SKIP_SPACE_CHECK);
+        System.arraycopy(connectionIdBytes, 0, payload, 1, connectionIdBytes.length);
+
+        final ByteBuffer frame = createFrame(OPEN_STREAM, streamId, payload, 0, payload.length);
+        stream.updateChecksum(frame);
+        return frame;
+    }
+
+    private void abandon(final LoadBalanceStream stream, final Exception cause, final boolean reportFailure) {
+        stream.closeFlowFileContent();
+        stream.fail(cause);
+        removeStream(stream);
+
+        abandonedStreamIds.add(stream.getStreamId());
+        pendingAborts.offer(stream.getStreamId());
+
+        if (reportFailure) {
+            finishedStreams.add(stream);
+        }
+    }
+
+    private void removeStream(final LoadBalanceStream stream) {
+        streamsById[stream.getStreamId()] = null;
+
+        final int index = activeStreams.indexOf(stream);
+        activeStreams.remove(index);
+        if (index < nextStreamIndex) {
+            nextStreamIndex--;
+        }
+        if (nextStreamIndex >= activeStreams.size()) {
+            nextStreamIndex = 0;
+        }
+    }
+
+    /**
+     * Creates a frame with the given header and payload. The frame is built in a buffer that is reused for every frame, which is safe because a frame is
+     * always written in full before the next one is created.
+     */
+    private ByteBuffer createFrame(final int frameType, final int streamId, final byte[] payload, final int offset, final int length) {
+        final byte[] destination = FRAME_HEADER_LENGTH + length <= frameBytes.length ? frameBytes : new byte[FRAME_HEADER_LENGTH + length];
+        writeHeader(destination, frameType, streamId, length);
+        if (length > 0) {
+            System.arraycopy(payload, offset, destination, FRAME_HEADER_LENGTH, length);
+        }
+
+        return ByteBuffer.wrap(destination, 0, FRAME_HEADER_LENGTH + length);
+    }
+
+    private static void writeHeader(final byte[] destination, final int frameType, final int streamId, final int payloadLength) {
+        destination[0] = (byte) frameType;
+        destination[1] = (byte) streamId;
+        destination[2] = (byte) (payloadLength >>> 24);
+        destination[3] = (byte) (payloadLength >>> 16);
+        destination[4] = (byte) (payloadLength >>> 8);
+        destination[5] = (byte) payloadLength;
+    }
+
+    private ByteBuffer recommendProtocolVersion() {
+        logger.debug("Recommending to Peer {} that Protocol Version {} be used", peerDescription, PROTOCOL_VERSION);
+
+        final ByteBuffer buffer = ByteBuffer.allocate(1);
+        buffer.put((byte) PROTOCOL_VERSION);
+        buffer.rewind();
+
+        phase = SessionPhase.RECEIVE_PROTOCOL_VERSION_ACKNOWLEDGMENT;
+        return buffer;
+    }
+
+    private boolean receiveProtocolVersionAcknowledgment() throws IOException {
+        final int response = readByte("acknowledge Protocol Version");
+        if (response < 0) {
+            return false;
+        }
+
+        if (response == VERSION_ACCEPTED) {
+            logger.debug("Peer {} accepted Protocol Version {}", peerDescription, PROTOCOL_VERSION);
+            phase = SessionPhase.SEND_CODECS;
+            return true;
+        }
+
+        if (response == REQEUST_DIFFERENT_VERSION) {
+            logger.debug("Recommended using Protocol Version of {} with Peer {} but received REQUEST_DIFFERENT_VERSION response", PROTOCOL_VERSION, peerDescription);
+            phase = SessionPhase.RECEIVE_RECOMMENDED_PROTOCOL_VERSION;
+            return true;
+        }
+
+        throw new IOException("Failed to negotiate Protocol Version with Peer " + peerDescription + ". Recommended version " + PROTOCOL_VERSION + " but instead of an ACCEPT or REJECT " +
+            "response got back a response of " + response);
+    }
+
+    private boolean receiveRecommendedProtocolVersion() throws IOException {
+        final int requestedVersion = readByte("recommend Protocol Version");
+        if (requestedVersion < 0) {
+            return false;
+        }
+
+        // The peer only supports an earlier version of the protocol, which cannot multiplex. The caller is expected to close the connection and fall back
+        // to sending data for one Connection at a time.
+        logger.debug("Peer {} requested version {} of the Load Balance Protocol instead of version {}", peerDescription, requestedVersion, PROTOCOL_VERSION);
+        protocolVersionRejected = true;
+        complete = true;
+        return false;
+    }
+
+    private ByteBuffer getCodecs() {
+        final List<LoadBalanceCodec> codecs = LoadBalanceCodec.getPreferredCodecs();
+        logger.debug("Offering codecs {} to Peer {}", codecs, peerDescription);
+
+        final ByteBuffer buffer = ByteBuffer.allocate(1 + codecs.size());
+        buffer.put((byte) codecs.size());
+        for (final LoadBalanceCodec offered : codecs) {
+            buffer.put((byte) offered.getId());
+        }
+        buffer.rewind();
+
+        phase = SessionPhase.RECEIVE_CODEC;
+        return buffer;
+    }
+
+    private boolean receiveCodec() throws IOException {
+        final int codecId = readByte("choose a codec");
+        if (codecId < 0) {
+            return false;
+        }
+
+        final LoadBalanceCodec chosen = LoadBalanceCodec.fromId(codecId);
+        if (chosen == null || !LoadBalanceCodec.getPreferredCodecs().contains(chosen)) {
+            throw new IOException("Peer " + peerDescription + " chose codec " + codecId + ", which was not offered");
+        }
+
+        logger.debug("Peer {} chose codec {}", peerDescription, chosen);
+        codec = chosen;
+        phase = SessionPhase.MULTIPLEXING;
+        return true;
+    }
+
+    /**
+     * @return the next byte from the peer, or -1 if no data is available yet
+     */
+    private int readByte(final String expectation) throws IOException {
+        final OptionalInt response = channel.read();
+        if (!response.isPresent()) {
+            if (System.currentTimeMillis() > readTimeout) {
+                throw new SocketTimeoutException("Timed out waiting for Peer " + peerDescription + " to " + expectation);
+            }
+
+            return -1;
+        }
+
+        final int value = response.getAsInt();
+        if (value < 0) {
+            throw new EOFException("Encountered End-of-File when waiting for Peer " + peerDescription + " to " + expectation);
+        }
+
+        return value;
+    }
+
+
+    /**
+     * A single Connection's transaction within the session
+     */
+    class LoadBalanceStream {
+        private final RegisteredPartition partition;
+        private final int streamId;
+        private final TransactionThreshold transactionThreshold;
+        private final LoadBalanceCompression compression;
+        private final CRC32 checksum = new CRC32();
+        private final long startTimestamp = System.currentTimeMillis();
+        private final List<FlowFileRecord> flowFilesSent = new ArrayList<>();
+
+        private StreamPhase streamPhase = StreamPhase.AWAITING_SPACE;
+        private long window = 0L;
+        private boolean queueFull = false;
+        private boolean successful = false;
+        private Exception failureCause;
+
+        private FlowFileRecord currentFlowFile;
+        private InputStream flowFileInputStream;
+        private FileChannel flowFileChannel;
+        private long flowFileBytesRemaining;
+
+        private LoadBalanceStream(final RegisteredPartition partition, final int streamId, final TransactionThreshold transactionThreshold) {
+            this.partition = partition;
+            this.streamId = streamId;
+            this.transactionThreshold = transactionThreshold;
+            this.compression = partition.getCompression();
+        }
+
+        RegisteredPartition getPartition() {
+            return partition;
+        }
+
+        int getStreamId() {
+            return streamId;
+        }
+
+        long getStartTimestamp() {
+            return startTimestamp;
+        }
+
+        FlowFileRecord getCurrentFlowFile() {
+            return currentFlowFile;
+        }
+
+        List<FlowFileRecord> getAndPurgeFlowFilesSent() {
+            final List<FlowFileRecord> copy = new ArrayList<>(flowFilesSent);
+            flowFilesSent.clear();
+            return copy;
+        }
+
+        boolean isFinished() {
+            return streamPhase == StreamPhase.FINISHED;
+        }
+
+        boolean isSuccessful() {
+            return successful;
+        }
+
+        Exception getFailureCause() {
+            return failureCause;
+        }
+
+        private void fail(final Exception cause) {
+            failureCause = cause;
+            successful = false;
+            streamPhase = StreamPhase.FINISHED;
+        }
+
+        private void updateChecksum(final ByteBuffer frame) {
+            checksum.update(frame.array(), frame.arrayOffset() + frame.position(), frame.remaining());
+        }
+
+        private void onResponse(final int responseType, final int value) throws IOException {
+            switch (responseType) {
+                case SPACE_AVAILABLE:
+                    if (streamPhase != StreamPhase.AWAITING_SPACE) {
+                        throw new IOException("Peer " + peerDescription + " sent SPACE_AVAILABLE for stream " + streamId + " after the stream was already opened");
+                    }
+
+                    logger.debug("Peer {} opened stream {} for Connection {} with a window of {} bytes", peerDescription, streamId, partition.getConnectionId(), value);
+                    window = value;
+                    streamPhase = StreamPhase.SEND_FLOWFILE;
+                    break;
+                case WINDOW_UPDATE:
+                    window += value;
+                    break;
+                case QUEUE_FULL:
+                    logger.debug("Peer {} has indicated that the queue is full for Connection {}", peerDescription, partition.getConnectionId());
+                    partition.penalize(QUEUE_FULL_PENALTY_MILLIS);
+                    if (streamPhase == StreamPhase.AWAITING_SPACE) {
+                        // Nothing was sent, so there is nothing left to do for this stream.
+                        successful = true;
+                        streamPhase = StreamPhase.FINISHED;
+                    } else {
+                        queueFull = true;
+                    }
+                    break;
+                case CONFIRM_COMPLETE_TRANSACTION:
+                    if (streamPhase != StreamPhase.AWAITING_COMPLETION) {
+                        throw new IOException("Peer " + peerDescription + " confirmed completion of stream " + streamId + " before the stream was completed");
+                    }
+
+                    logger.debug("Successfully completed Transaction to send {} FlowFiles to Peer {} for Connection {}", flowFilesSent.size(), peerDescription,
+                        partition.getConnectionId());
+                    successful = true;
+                    streamPhase = StreamPhase.FINISHED;
+                    break;
+                case REJECT_CHECKSUM:
+                    fail(new TransactionAbortedException("After transferring FlowFiles to Peer " + peerDescription + " received a REJECT_CHECKSUM response for Connection "
+                        + partition.getConnectionId() + ". Aborting transaction."));
+                    break;
+                case ABORT_TRANSACTION:
+                    closeFlowFileContent();
+                    fail(new TransactionAbortedException("Peer " + peerDescription + " aborted the transaction for Connection " + partition.getConnectionId()));
+                    break;
+                default:
+                    throw new IOException("Received unexpected response " + responseType + " from Peer " + peerDescription + " for stream " + streamId);
+            }
+        }
+
+        /**
+         * @return the next frame to send for this stream, or <code>null</code> if the stream is waiting on the peer
+         */
+        private ByteBuffer getNextFrame() throws IOException {
+            switch (streamPhase) {
+                case SEND_FLOWFILE:
+                    return getNextFlowFile();
+                case SEND_CONTENT:
+                    return getFlowFileContent();
+                default:
+                    return null;
+            }
+        }
+
+        private ByteBuffer getNextFlowFile() throws IOException {
+            if (queueFull) {
+                logger.debug("Queue is full for Connection {} on Peer {}; completing stream {}", partition.getConnectionId(), peerDescription, streamId);
+                return completeStream();
+            }
+
+            // Wait for the peer to extend the window before starting another FlowFile.
+            if (window <= 0) {
+                return null;
+            }
+
+            if (transactionThreshold.isThresholdMet()) {
+                logger.debug("Transaction Threshold reached sending to Peer {}; completing stream {}", peerDescription, streamId);
+                return completeStream();
+            }
+
+            currentFlowFile = partition.getFlowFileRecordSupplier().get();
+            if (currentFlowFile == null) {
+                logger.debug("No more FlowFiles to send to Peer {} for Connection {}; completing stream {}", peerDescription, partition.getConnectionId(), streamId);
+                return completeStream();
+            }
+
+            transactionThreshold.adjust(1, currentFlowFile.getSize());
+            flowFilesSent.add(currentFlowFile);
+
+            metadataBuffer.reset();
+            flowFileCodec.encode(currentFlowFile, metadataBuffer);
+
+            final byte[] metadata = metadataBuffer.toByteArray();
+            final ByteBuffer frame;
+            if (compression == LoadBalanceCompression.DO_NOT_COMPRESS) {
+                frame = createFrame(MORE_FLOWFILES, streamId, metadata, 0, metadata.length);
+            } else {
+                final FrameCompressor compressor = channel.getCompressor(codec);
+                final int compressedLength = compressor.compress(metadata, 0, metadata.length);
+                frame = createFrame(MORE_FLOWFILES, streamId, compressor.getBuffer(), 0, compressedLength);
+            }
+
+            updateChecksum(frame);
+            window -= frame.remaining() - FRAME_HEADER_LENGTH;
+            streamPhase = StreamPhase.SEND_CONTENT;
+            return frame;
+        }
+
+        private ByteBuffer completeStream() {
+            final ByteBuffer payload = ByteBuffer.allocate(8);
+            payload.putLong(checksum.getValue());
+
+            streamPhase = StreamPhase.AWAITING_COMPLETION;
+            return createFrame(NO_MORE_FLOWFILES, streamId, payload.array(), 0, 8);
+        }
+
+        private ByteBuffer getFlowFileContent() throws IOException {
+            if (flowFileChannel == null && flowFileInputStream == null) {
+                openFlowFileContent();
+            }
+
+            final ByteBuffer frame = flowFileChannel == null ? getDataFrameFromStream() : getDataFrameFromChannel();
+            if (frame != null) {
+                window -= frame.remaining() - FRAME_HEADER_LENGTH;
+                return frame;
+            }
+
+            closeFlowFileContent();
+            streamPhase = StreamPhase.SEND_FLOWFILE;
+
+            final ByteBuffer noDataFrame = createFrame(NO_DATA_FRAME, streamId, null, 0, 0);
+            updateChecksum(noDataFrame);
+            return noDataFrame;
+        }
+
+        private void openFlowFileContent() throws IOException {
+            // Compressed content has to pass through the compressor's byte array, so only read content through a channel when it is sent as-is
+            if (compression != LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT) {
+                final Optional<FileChannel> contentChannel = flowFileContentAccess.openChannel(currentFlowFile);
+                if (contentChannel.isPresent()) {
+                    flowFileChannel = contentChannel.get();
+                    flowFileBytesRemaining = currentFlowFile.getSize();
+                    return;
+                }
+            }
+
+            flowFileInputStream = flowFileContentAccess.read(currentFlowFile);
+        }
+
+        private void closeFlowFileContent() {
+            if (flowFileChannel != null) {
+                closeQuietly(flowFileChannel);
+                flowFileChannel = null;
+            }
+            if (flowFileInputStream != null) {
+                closeQuietly(flowFileInputStream);
+                flowFileInputStream = null;
+            }
+        }
+
+        private void closeQuietly(final Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (final IOException ioe) {
+                logger.warn("Failed to close content of {} after sending it to Peer {}", currentFlowFile, peerDescription, ioe);
+            }
+        }
+
+        private ByteBuffer getDataFrameFromChannel() throws IOException {
+            if (flowFileBytesRemaining <= 0) {
+                return null;
+            }
+
+            final int frameLength = (int) Math.min(MAX_DATA_FRAME_SIZE, flowFileBytesRemaining);
+            final ByteBuffer buffer = channel.getFrameBuffer(FRAME_HEADER_LENGTH + MAX_DATA_FRAME_SIZE);
+            buffer.put((byte) DATA_FRAME_FOLLOWS);
+            buffer.put((byte) streamId);
+            buffer.putInt(frameLength);
+            buffer.limit(FRAME_HEADER_LENGTH + frameLength);
+
+            while (buffer.hasRemaining()) {
+                if (flowFileChannel.read(buffer) < 0) {
+                    final long bytesRead = currentFlowFile.getSize() - flowFileBytesRemaining + buffer.position() - FRAME_HEADER_LENGTH;
+                    throw new EOFException("Expected " + currentFlowFile + " to contain " + currentFlowFile.getSize() + " bytes but the content repository only had " + bytesRead + " bytes for it");
+                }
+            }
+
+            buffer.flip();
+            checksum.update(buffer.duplicate());
+            flowFileBytesRemaining -= frameLength;
+            return buffer;
+        }
+
+        private ByteBuffer getDataFrameFromStream() throws IOException {
+            // Read the content just past where the frame header belongs so that an uncompressed frame can be sent without copying the content again
+            int offset = FRAME_HEADER_LENGTH;
+            while (offset < frameBytes.length) {
+                final int bytesRead = flowFileInputStream.read(frameBytes, offset, frameBytes.length - offset);
+                if (bytesRead < 0) {
+                    break;
+                }
+
+                offset += bytesRead;
+            }
+
+            final int contentLength = offset - FRAME_HEADER_LENGTH;
+            if (contentLength < 1) {
+                return null;
+            }
+
+            final ByteBuffer frame;
+            if (compression == LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT) {
+                final FrameCompressor compressor = channel.getCompressor(codec);
+                final int compressedLength = compressor.compress(frameBytes, FRAME_HEADER_LENGTH, contentLength);
+                frame = createFrame(DATA_FRAME_FOLLOWS, streamId, compressor.getBuffer(), 0, compressedLength);
+            } else {
+                writeHeader(frameBytes, DATA_FRAME_FOLLOWS, streamId, contentLength);
+                frame = ByteBuffer.wrap(frameBytes, 0, FRAME_HEADER_LENGTH + contentLength);
+            }
+
+            updateChecksum(frame);
+            return frame;
+        }
+
+        @Override
+        public String toString() {
+            return "LoadBalanceStream[id=" + streamId + ", connectionId=" + partition.getConnectionId() + ", phase=" + streamPhase + "]";
+        }
+    }
+
+
+    private enum StreamPhase {
+        AWAITING_SPACE,
+
+        SEND_FLOWFILE,
+
+        SEND_CONTENT,
+
+        AWAITING_COMPLETION,
+
+        FINISHED;
+    }
+
+    private enum SessionPhase {
+        RECOMMEND_PROTOCOL_VERSION(SelectionKey.OP_WRITE),
+
+        RECEIVE_PROTOCOL_VERSION_ACKNOWLEDGMENT(SelectionKey.OP_READ),
+
+        RECEIVE_RECOMMENDED_PROTOCOL_VERSION(SelectionKey.OP_READ),
+
+        SEND_CODECS(SelectionKey.OP_WRITE),
+
+        RECEIVE_CODEC(SelectionKey.OP_READ),
+
+        MULTIPLEXING(SelectionKey.OP_READ | SelectionKey.OP_WRITE),
+
+        CLOSED(SelectionKey.OP_WRITE);
+
+
+        private final int requiredSelectionKey;
+
+        SessionPhase(final int requiredSelectionKey) {
+            this.requiredSelectionKey = requiredSelectionKey;
+        }
+
+        public int getRequiredSelectionKey() {
+            return requiredSelectionKey;
+        }
+    }
+}
@@ -23,6 +23,7 @@ import org.apache.nifi.cluster.coordination.node.NodeConnectionStatus;
 import org.apache.nifi.cluster.protocol.NodeIdentifier;
 import org.apache.nifi.controller.queue.LoadBalanceCompression;
 import org.apache.nifi.controller.queue.clustered.FlowFileContentAccess;
+import org.apache.nifi.controller.queue.clustered.LoadBalanceTransferMetrics;
 import org.apache.nifi.controller.queue.clustered.SimpleLimitThreshold;
 import org.apache.nifi.controller.queue.clustered.TransactionThreshold;
 import org.apache.nifi.controller.queue.clustered.client.LoadBalanceFlowFileCodec;
@@ -32,6 +33,7 @@ import org.apache.nifi.controller.queue.clustered.client.async.TransactionFailur
 import org.apache.nifi.controller.repository.FlowFileRecord;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.reporting.Severity;
+import org.apache.nifi.util.NiFiProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,6 +64,8 @@ import java.util.function.Supplier;
 public class NioAsyncLoadBalanceClient implements AsyncLoadBalanceClient {
     private static final Logger logger = LoggerFactory.getLogger(NioAsyncLoadBalanceClient.class);
     private static final long PENALIZATION_MILLIS = TimeUnit.SECONDS.toMillis(1L);
+    private static final long MULTIPLEXING_RETRY_MILLIS = TimeUnit.MINUTES.toMillis(5L);
+    private static final long MULTIPLEXED_COMMUNICATION_NANOS = TimeUnit.MILLISECONDS.toNanos(100L);
 
     private final NodeIdentifier nodeIdentifier;
     private final SSLContext sslContext;
@@ -70,6 +74,8 @@ public class NioAsyncLoadBalanceClient implements AsyncLoadBalanceClient {
     private final LoadBalanceFlowFileCodec flowFileCodec;
     private final EventReporter eventReporter;
     private final ClusterCoordinator clusterCoordinator;
+    private final LoadBalanceTransferMetrics transferMetrics;
+    private final int maxStreamsPerConnection;
 
     private volatile boolean running = false;
     private final AtomicLong penalizationEnd = new AtomicLong(0L);
@@ -89,10 +95,19 @@ public class NioAsyncLoadBalanceClient implements AsyncLoadBalanceClient {
     // I.e., we need to use the capability of Lock#tryLock, and the synchronized keyword does not offer this sort of functionality.
     private final Lock loadBalanceSessionLock = new ReentrantLock();
     private LoadBalanceSession loadBalanceSession = null;
+    private volatile MultiplexedLoadBalanceSession multiplexedSession = null;
+    private long multiplexingRetryTime = 0L;
 
 
     public NioAsyncLoadBalanceClient(final NodeIdentifier nodeIdentifier, final SSLContext sslContext, final int timeoutMillis, final FlowFileContentAccess flowFileContentAccess,
                                      final LoadBalanceFlowFileCodec flowFileCodec, final EventReporter eventReporter, final ClusterCoordinator clusterCoordinator) {
+        this(nodeIdentifier, sslContext, timeoutMillis, flowFileContentAccess, flowFileCodec, eventReporter, clusterCoordinator, new LoadBalanceTransferMetrics(),
+            NiFiProperties.DEFAULT_LOAD_BALANCE_STREAMS_PER_CONNECTION);
+    }
+
+    public NioAsyncLoadBalanceClient(final NodeIdentifier nodeIdentifier, final SSLContext sslContext, final int timeoutMillis, final FlowFileContentAccess flowFileContentAccess,
+                                     final LoadBalanceFlowFileCodec flowFileCodec, final EventReporter eventReporter, final ClusterCoordinator clusterCoordinator,
+                                     final LoadBalanceTransferMetrics transferMetrics, final int maxStreamsPerConnection) {
         this.nodeIdentifier = nodeIdentifier;
         this.sslContext = sslContext;
         this.timeoutMillis = timeoutMillis;
@@ -100,6 +115,8 @@ public class NioAsyncLoadBalanceClient implements AsyncLoadBalanceClient {
         this.flowFileCodec = flowFileCodec;
         this.eventReporter = eventReporter;
         this.clusterCoordinator = clusterCoordinator;
+        this.transferMetrics = transferMetrics;
+        this.maxStreamsPerConnection = maxStreamsPerConnection;
     }
 
     @Override
@@ -120,12 +137,29 @@ public class NioAsyncLoadBalanceClient implements AsyncLoadBalanceClient {
         partitionQueue.add(partition);
     }
 
-    public synchronized void unregister(final String connectionId) {
+    public void unregister(final String connectionId) {
+        final RegisteredPartition removedPartition = unregisterPartition(connectionId);
+        if (removedPartition == null) {
+            return;
+        }
+
+        // The multiplexed session is canceled without synchronizing on this, because the session obtains partitions from this client while holding its own lock.
+        final MultiplexedLoadBalanceSession session = multiplexedSession;
+        if (session != null) {
+            final List<FlowFileRecord> flowFilesSent = session.cancel(connectionId);
+            if (flowFilesSent != null) {
+                logger.debug("{} Triggering failure callback for {} FlowFiles for Registered Partition {} because partition was unregistered", this, flowFilesSent.size(), removedPartition);
+                removedPartition.getFailureCallback().onTransactionFailed(flowFilesSent, TransactionFailureCallback.TransactionPhase.SENDING);
+            }
+        }
+    }
+
+    private synchronized RegisteredPartition unregisterPartition(final String connectionId) {
         final RegisteredPartition removedPartition = registeredPartitions.remove(connectionId);
 
         if (removedPartition == null) {
             logger.debug("{} Unregistered Connection with ID {} but there were no Registered Partitions", this, connectionId);
-            return;
+            return null;
         }
 
         logger.debug("{} Unregistered Connection with ID {}. Will fail any in-flight FlowFiles for Registered Partition {}", this, connectionId, removedPartition);
@@ -140,6 +174,8 @@ public class NioAsyncLoadBalanceClient implements AsyncLoadBalanceClient {
                 removedPartition.getFailureCallback().onTransactionFailed(flowFilesSent, TransactionFailureCallback.TransactionPhase.SENDING);
             }
         }
+
+        return removedPartition;
     }
 
     public synchronized int getRegisteredConnectionCount() {
@@ -223,6 +259,9 @@ public class NioAsyncLoadBalanceClient implements AsyncLoadBalanceClient {
             RegisteredPartition readyPartition = null;
 
             if (!isConnectionEstablished()) {
+                // A multiplexed session cannot outlive the connection that it was started on
+                failMultiplexedSession(new IOException("Connection to " + nodeIdentifier + " was closed"));
+
                 readyPartition = getReadyPartition();
                 if (readyPartition == null) {
                     logger.debug("{} has no connection with data ready to be transmitted so will penalize Client without communicating", this);
@@ -246,6 +285,10 @@ public class NioAsyncLoadBalanceClient implements AsyncLoadBalanceClient {
                 }
             }
 
+            if (useMultiplexing()) {
+                return communicateMultiplexed(readyPartition);
+            }
+
             final LoadBalanceSession loadBalanceSession = getActiveTransaction(readyPartition);
             if (loadBalanceSession == null) {
                 penalize();
@@ -279,11 +322,16 @@ public class NioAsyncLoadBalanceClient implements AsyncLoadBalanceClient {
             } while (success);
 
             if (loadBalanceSession.isComplete() && !loadBalanceSession.isCanceled()) {
-                loadBalanceSession.getPartition().getSuccessCallback().onTransactionComplete(loadBalanceSession.getAndPurgeFlowFilesSent(), nodeIdentifier);
+                final List<FlowFileRecord> flowFilesSent = loadBalanceSession.getAndPurgeFlowFilesSent();
+                final long bytesSent = flowFilesSent.stream().mapToLong(FlowFileRecord::getSize).sum();
+                transferMetrics.recordSent(nodeIdentifier.toString(), flowFilesSent.size(), bytesSent, System.currentTimeMillis() - loadBalanceSession.getStartTimestamp());
+
+                loadBalanceSession.getPartition().getSuccessCallback().onTransactionComplete(flowFilesSent, nodeIdentifier);
             }
 
             return anySuccess;
         } catch (final Exception e) {
+            failMultiplexedSession(e);
             close();
             loadBalanceSession = null;
             throw e;
@@ -292,6 +340,98 @@ public class NioAsyncLoadBalanceClient implements AsyncLoadBalanceClient {
         }
     }
 
+    private synchronized boolean useMultiplexing() {
+        final MultiplexedLoadBalanceSession session = multiplexedSession;
+        if (session != null && !session.isComplete()) {
+            return true;
+        }
+        if (loadBalanceSession != null && !loadBalanceSession.isComplete()) {
+            return false;
+        }
+
+        return maxStreamsPerConnection > 1 && System.currentTimeMillis() >= multiplexingRetryTime;
+    }
+
+    private boolean communicateMultiplexed(final RegisteredPartition proposedPartition) throws IOException {
+        if (proposedPartition != null) {
+            // The multiplexed session obtains its own partitions as it opens streams
+            partitionQueue.offer(proposedPartition);
+        }
+
+        final MultiplexedLoadBalanceSession session = getActiveMultiplexedSession();
+        if (session == null) {
+            penalize();
+            return false;
+        }
+
+        selector.selectNow();
+        final boolean ready = (session.getDesiredReadinessFlag() & selectionKey.readyOps()) != 0;
+        if (!ready) {
+            return false;
+        }
+
+        // Bound the time spent with this client so that a busy session does not starve the clients for other nodes
+        final long stopTime = System.nanoTime() + MULTIPLEXED_COMMUNICATION_NANOS;
+        boolean anySuccess = false;
+        boolean success;
+        do {
+            try {
+                success = session.communicate();
+            } catch (final Exception e) {
+                logger.error("Failed to communicate with Peer {}", nodeIdentifier.toString(), e);
+                eventReporter.reportEvent(Severity.ERROR, "Load Balanced Connection", "Failed to communicate with Peer " + nodeIdentifier + " when load balancing data due to " + e);
+
+                penalize();
+                failMultiplexedSession(e);
+                close();
+
+                return false;
+            }
+
+            completeFinishedStreams(session);
+            anySuccess = anySuccess || success;
+        } while (success && System.nanoTime() < stopTime);
+
+        if (session.isProtocolVersionRejected()) {
+            logger.info("Peer {} does not support sending data for multiple Connections at once; will load balance data for one Connection at a time", nodeIdentifier);
+            multiplexingRetryTime = System.currentTimeMillis() + MULTIPLEXING_RETRY_MILLIS;
+            close();
+        }
+
+        return anySuccess;
+    }
+
+    private void completeFinishedStreams(final MultiplexedLoadBalanceSession session) {
+        for (final MultiplexedLoadBalanceSession.LoadBalanceStream stream : session.getAndPurgeFinishedStreams()) {
+            final RegisteredPartition partition = stream.getPartition();
+            final List<FlowFileRecord> flowFilesSent = stream.getAndPurgeFlowFilesSent();
+
+            if (stream.isSuccessful()) {
+                final long bytesSent = flowFilesSent.stream().mapToLong(FlowFileRecord::getSize).sum();
+                transferMetrics.recordSent(nodeIdentifier.toString(), flowFilesSent.size(), bytesSent, System.currentTimeMillis() - stream.getStartTimestamp());
+
+                partition.getSuccessCallback().onTransactionComplete(flowFilesSent, nodeIdentifier);
+            } else {
+                logger.error("Failed to send {} FlowFiles to Peer {} for Connection {}", flowFilesSent.size(), nodeIdentifier, partition.getConnectionId(), stream.getFailureCause());
+                partition.getFailureCallback().onTransactionFailed(flowFilesSent, stream.getFailureCause(), TransactionFailureCallback.TransactionPhase.SENDING);
+            }
+        }
+    }
+
+    private void failMultiplexedSession(final Exception cause) {
+        final MultiplexedLoadBalanceSession session = multiplexedSession;
+        if (session == null) {
+            return;
+        }
+
+        multiplexedSession = null;
+        completeFinishedStreams(session);
+
+        for (final MultiplexedLoadBalanceSession.LoadBalanceStream stream : session.getAndPurgeActiveStreams()) {
+            stream.getPartition().getFailureCallback().onTransactionFailed(stream.getAndPurgeFlowFilesSent(), cause, TransactionFailureCallback.TransactionPhase.SENDING);
+        }
+    }
+
     /**
      * If any FlowFiles have been transferred in an active session, fail the transaction. Otherwise, gather up to the Transaction Threshold's limits
      * worth of FlowFiles and treat them as a failed transaction. In either case, terminate the session. This allows us to transfer FlowFiles from
@@ -307,6 +447,24 @@ public class NioAsyncLoadBalanceClient implements AsyncLoadBalanceClient {
         }
 
         try {
+            final MultiplexedLoadBalanceSession multiplexed = multiplexedSession;
+            if (multiplexed != null && !multiplexed.isComplete()) {
+                multiplexedSession = null;
+
+                logger.debug("Node {} disconnected so will terminate the Multiplexed Load Balancing Session", nodeIdentifier);
+                completeFinishedStreams(multiplexed);
+                for (final MultiplexedLoadBalanceSession.LoadBalanceStream stream : multiplexed.getAndPurgeActiveStreams()) {
+                    final List<FlowFileRecord> flowFilesSent = stream.getAndPurgeFlowFilesSent();
+                    if (!flowFilesSent.isEmpty()) {
+                        stream.getPartition().getFailureCallback().onTransactionFailed(flowFilesSent, TransactionFailureCallback.TransactionPhase.SENDING);
+                    }
+                }
+
+                close();
+                penalize();
+                return;
+            }
+
             final LoadBalanceSession session = getFailoverSession();
             if (session != null) {
                 loadBalanceSession = null;
@@ -417,6 +575,33 @@ public class NioAsyncLoadBalanceClient implements AsyncLoadBalanceClient {
         return loadBalanceSession;
     }
 
+    private synchronized MultiplexedLoadBalanceSession getActiveMultiplexedSession() {
+        final MultiplexedLoadBalanceSession session = multiplexedSession;
+        if (session != null && !session.isComplete()) {
+            return session;
+        }
+
+        // Only start a session when there is data to send. Otherwise, the peer would be left waiting on a session that never sends anything.
+        final RegisteredPartition readyPartition = getReadyPartition();
+        if (readyPartition == null) {
+            return null;
+        }
+
+        partitionQueue.offer(readyPartition);
+        multiplexedSession = new MultiplexedLoadBalanceSession(this::getPartitionForStream, flowFileContentAccess, flowFileCodec, channel, timeoutMillis,
+            maxStreamsPerConnection, this::newTransactionThreshold);
+        return multiplexedSession;
+    }
+
+    private RegisteredPartition getPartitionForStream(final Predicate<RegisteredPartition> filter) {
+        final RegisteredPartition partition = getReadyPartition(true, filter);
+        if (partition != null) {
+            partitionQueue.offer(partition);
+        }
+
+        return partition;
+    }
+
     private TransactionThreshold newTransactionThreshold() {
          return new SimpleLimitThreshold(1000, 10_000_000L);
     }
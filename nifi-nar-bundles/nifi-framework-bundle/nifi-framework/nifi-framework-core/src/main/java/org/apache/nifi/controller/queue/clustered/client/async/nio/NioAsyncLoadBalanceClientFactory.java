@@ -20,9 +20,11 @@ package org.apache.nifi.controller.queue.clustered.client.async.nio;
 import org.apache.nifi.cluster.coordination.ClusterCoordinator;
 import org.apache.nifi.cluster.protocol.NodeIdentifier;
 import org.apache.nifi.controller.queue.clustered.FlowFileContentAccess;
+import org.apache.nifi.controller.queue.clustered.LoadBalanceTransferMetrics;
 import org.apache.nifi.controller.queue.clustered.client.LoadBalanceFlowFileCodec;
 import org.apache.nifi.controller.queue.clustered.client.async.AsyncLoadBalanceClientFactory;
 import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.util.NiFiProperties;
 
 import javax.net.ssl.SSLContext;
 
@@ -33,20 +35,32 @@ public class NioAsyncLoadBalanceClientFactory implements AsyncLoadBalanceClientF
     private final EventReporter eventReporter;
     private final LoadBalanceFlowFileCodec flowFileCodec;
     private final ClusterCoordinator clusterCoordinator;
+    private final LoadBalanceTransferMetrics transferMetrics;
+    private final int maxStreamsPerConnection;
 
     public NioAsyncLoadBalanceClientFactory(final SSLContext sslContext, final int timeoutMillis, final FlowFileContentAccess flowFileContentAccess, final EventReporter eventReporter,
                                             final LoadBalanceFlowFileCodec loadBalanceFlowFileCodec, final ClusterCoordinator clusterCoordinator) {
+        this(sslContext, timeoutMillis, flowFileContentAccess, eventReporter, loadBalanceFlowFileCodec, clusterCoordinator, new LoadBalanceTransferMetrics(),
+            NiFiProperties.DEFAULT_LOAD_BALANCE_STREAMS_PER_CONNECTION);
+    }
+
+    public NioAsyncLoadBalanceClientFactory(final SSLContext sslContext, final int timeoutMillis, final FlowFileContentAccess flowFileContentAccess, final EventReporter eventReporter,
+                                            final LoadBalanceFlowFileCodec loadBalanceFlowFileCodec, final ClusterCoordinator clusterCoordinator,
+                                            final LoadBalanceTransferMetrics transferMetrics, final int maxStreamsPerConnection) {
         this.sslContext = sslContext;
         this.timeoutMillis = timeoutMillis;
         this.flowFileContentAccess = flowFileContentAccess;
         this.eventReporter = eventReporter;
         this.flowFileCodec = loadBalanceFlowFileCodec;
         this.clusterCoordinator = clusterCoordinator;
+        this.transferMetrics = transferMetrics;
+        this.maxStreamsPerConnection = maxStreamsPerConnection;
     }
 
 
     @Override
     public NioAsyncLoadBalanceClient createClient(final NodeIdentifier nodeIdentifier) {
-        return new NioAsyncLoadBalanceClient(nodeIdentifier, sslContext, timeoutMillis, flowFileContentAccess, flowFileCodec, eventReporter, clusterCoordinator);
+        return new NioAsyncLoadBalanceClient(nodeIdentifier, sslContext, timeoutMillis, flowFileContentAccess, flowFileCodec, eventReporter, clusterCoordinator, transferMetrics,
+            maxStreamsPerConnection);
     }
 }
@@ -17,6 +17,8 @@
 
 package org.apache.nifi.controller.queue.clustered.client.async.nio;
 
+import org.apache.nifi.controller.queue.clustered.protocol.FrameCompressor;
+import org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,6 +29,8 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.OptionalInt;
 
 public class PeerChannel implements Closeable {
@@ -40,6 +44,9 @@ public class PeerChannel implements Closeable {
     private ByteBuffer destinationBuffer = ByteBuffer.allocate(16 * 1024); // buffer that SSLEngine is to write into
     private ByteBuffer streamBuffer = ByteBuffer.allocate(16 * 1024); // buffer for data that is read from SocketChannel
     private ByteBuffer applicationBuffer = ByteBuffer.allocate(0); // buffer for application-level data that is ready to be served up (i.e., already decrypted if necessary)
+    private final Map<LoadBalanceCodec, FrameCompressor> compressors = new EnumMap<>(LoadBalanceCodec.class); // reused by each session that communicates over this channel
+    private ByteBuffer frameBuffer = ByteBuffer.allocateDirect(0); // direct buffer that sessions build Data Frames in, reused for every frame sent over this channel
+    private ByteBuffer preparedBuffer = ByteBuffer.allocateDirect(0); // direct buffer that encrypted frames are written into, reused for every frame sent over this channel
 
     public PeerChannel(final SocketChannel socketChannel, final SSLEngine sslEngine, final String peerDescription) {
         this.socketChannel = socketChannel;
@@ -50,6 +57,8 @@ public class PeerChannel implements Closeable {
 
     @Override
     public void close() throws IOException {
+        compressors.values().forEach(FrameCompressor::close);
+        compressors.clear();
         socketChannel.close();
     }
 
@@ -65,6 +74,29 @@ public class PeerChannel implements Closeable {
         return peerDescription;
     }
 
+    /**
+     * @return the compressor for the given codec, which is created the first time that it is needed and then reused for as long as the channel is open
+     */
+    public FrameCompressor getCompressor(final LoadBalanceCodec codec) {
+        return compressors.computeIfAbsent(codec, LoadBalanceCodec::createCompressor);
+    }
+
+    /**
+     * Returns a direct buffer that a frame may be built in before it is passed to {@link #prepareForWrite(ByteBuffer)}. The same buffer is returned on each call,
+     * so a frame built in it must be fully written before the buffer is requested again.
+     *
+     * @param capacity the minimum capacity that the buffer must have
+     * @return a cleared direct buffer with at least the given capacity
+     */
+    public ByteBuffer getFrameBuffer(final int capacity) {
+        if (frameBuffer.capacity() < capacity) {
+            frameBuffer = ByteBuffer.allocateDirect(capacity);
+        }
+
+        frameBuffer.clear();
+        return frameBuffer;
+    }
+
     public boolean write(final byte b) throws IOException {
         singleByteBuffer.clear();
         singleByteBuffer.put(b);
@@ -97,7 +129,8 @@ public class PeerChannel implements Closeable {
     /**
      * Reads the given ByteBuffer of data and returns a new ByteBuffer (which is "flipped" / ready to be read). The newly returned
      * ByteBuffer will be written to be written via the {@link #write(ByteBuffer)} method. I.e., it will have already been encrypted, if
-     * necessary, and any other decorations that need to be applied before sending will already have been applied.
+     * necessary, and any other decorations that need to be applied before sending will already have been applied. When encryption is
+     * necessary, the same direct buffer is returned on each call, so the prepared data must be fully written before more data is prepared.
      *
      * @param plaintext the data to be prepped
      * @return a ByteBuffer containing the prepared data
@@ -109,23 +142,23 @@ public class PeerChannel implements Closeable {
         }
 
 
-        ByteBuffer prepared = ByteBuffer.allocate(Math.min(85, plaintext.capacity() - plaintext.position()));
+        preparedBuffer.clear();
         while (plaintext.hasRemaining()) {
             encrypt(plaintext);
 
-            final int bytesRemaining = prepared.capacity() - prepared.position();
-            if (bytesRemaining < destinationBuffer.remaining()) {
-                final ByteBuffer temp = ByteBuffer.allocate(prepared.capacity() + sslEngine.getSession().getApplicationBufferSize());
-                prepared.flip();
-                temp.put(prepared);
-                prepared = temp;
+            if (preparedBuffer.remaining() < destinationBuffer.remaining()) {
+                final int growth = Math.max(destinationBuffer.remaining(), sslEngine.getSession().getPacketBufferSize());
+                final ByteBuffer temp = ByteBuffer.allocateDirect(preparedBuffer.capacity() + growth);
+                preparedBuffer.flip();
+                temp.put(preparedBuffer);
+                preparedBuffer = temp;
             }
 
-            prepared.put(destinationBuffer);
+            preparedBuffer.put(destinationBuffer);
         }
 
-        prepared.flip();
-        return prepared;
+        preparedBuffer.flip();
+        return preparedBuffer;
     }
 
     public int write(final ByteBuffer preparedBuffer) throws IOException {
@@ -141,7 +174,8 @@ public class PeerChannel implements Closeable {
         }
 
         final int bytesRead = socketChannel.read(streamBuffer);
-        if (bytesRead < 1) {
+        // A previous read may have left complete TLS records in the stream buffer, so only give up if there is nothing buffered
+        if (bytesRead < 0 || streamBuffer.position() == 0) {
             return bytesRead;
         }
 
@@ -168,7 +202,6 @@ public class PeerChannel implements Closeable {
                     // Not enough data to decrypt. Compact the buffer so that we keep the data we have
                     // but prepare the buffer to be written to again.
                     logger.debug("Not enough data to decrypt. Will need to consume more data before decrypting");
-                    streamBuffer.compact();
                     return 0;
                 }
             }
@@ -263,6 +296,11 @@ public class PeerChannel implements Closeable {
 
             switch (result.getStatus()) {
                 case OK:
+                    // Once the handshake is complete, a record such as a TLS 1.3 session ticket yields no application data; keep unwrapping any records that follow it
+                    if (result.bytesProduced() == 0 && encrypted.hasRemaining() && result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING) {
+                        break;
+                    }
+
                     destinationBuffer.flip();
                     return true;
                 case CLOSED:
@@ -25,6 +25,7 @@ import org.apache.nifi.controller.queue.FlowFileQueueContents;
 import org.apache.nifi.controller.queue.LocalQueuePartitionDiagnostics;
 import org.apache.nifi.controller.queue.PollStrategy;
 import org.apache.nifi.controller.queue.QueueSize;
+import org.apache.nifi.controller.queue.SwapThreshold;
 import org.apache.nifi.controller.queue.SwappablePriorityQueue;
 import org.apache.nifi.controller.repository.FlowFileRecord;
 import org.apache.nifi.controller.repository.FlowFileSwapManager;
@@ -52,7 +53,17 @@ public class SwappablePriorityQueueLocalPartition implements LocalQueuePartition
 
     public SwappablePriorityQueueLocalPartition(final FlowFileSwapManager swapManager, final int swapThreshold, final EventReporter eventReporter,
             final FlowFileQueue flowFileQueue, final DropFlowFileAction dropAction) {
-        this.priorityQueue = new SwappablePriorityQueue(swapManager, swapThreshold, eventReporter, flowFileQueue, dropAction, SWAP_PARTITION_NAME);
+        this(swapManager, swapThreshold, 1, eventReporter, flowFileQueue, dropAction);
+    }
+
+    public SwappablePriorityQueueLocalPartition(final FlowFileSwapManager swapManager, final int swapThreshold, final int activeQueuePartitions, final EventReporter eventReporter,
+            final FlowFileQueue flowFileQueue, final DropFlowFileAction dropAction) {
+        this(swapManager, SwapThreshold.fixed(swapThreshold), activeQueuePartitions, eventReporter, flowFileQueue, dropAction);
+    }
+
+    public SwappablePriorityQueueLocalPartition(final FlowFileSwapManager swapManager, final SwapThreshold swapThreshold, final int activeQueuePartitions,
+            final EventReporter eventReporter, final FlowFileQueue flowFileQueue, final DropFlowFileAction dropAction) {
+        this.priorityQueue = new SwappablePriorityQueue(swapManager, swapThreshold, activeQueuePartitions, eventReporter, flowFileQueue, dropAction, SWAP_PARTITION_NAME);
         this.flowFileQueue = flowFileQueue;
         this.description = "SwappablePriorityQueueLocalPartition[queueId=" + flowFileQueue.getIdentifier() + "]";
     }
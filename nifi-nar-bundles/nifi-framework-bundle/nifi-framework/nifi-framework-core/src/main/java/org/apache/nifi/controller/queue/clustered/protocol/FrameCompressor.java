@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.queue.clustered.protocol;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Compresses the Data Frames and FlowFile metadata that are sent to a peer. A compressor reuses its buffers and native resources
+ * from one frame to the next, so it is not thread-safe and should be used by only one Load Balance Session at a time.
+ */
+public interface FrameCompressor extends Closeable {
+
+    /**
+     * Compresses the given data into this compressor's buffer
+     *
+     * @param data the data to compress
+     * @param offset the offset into the data at which to start
+     * @param length the number of bytes to compress
+     * @return the number of compressed bytes that were written to the buffer returned by {@link #getBuffer()}
+     * @throws IOException if unable to compress the data
+     */
+    int compress(byte[] data, int offset, int length) throws IOException;
+
+    /**
+     * @return the buffer holding the result of the most recent call to {@link #compress(byte[], int, int)}. The buffer may be replaced by a larger one
+     * on subsequent calls, so the buffer must be retrieved again after each call.
+     */
+    byte[] getBuffer();
+
+    /**
+     * Releases any resources held by the compressor
+     */
+    @Override
+    void close();
+}
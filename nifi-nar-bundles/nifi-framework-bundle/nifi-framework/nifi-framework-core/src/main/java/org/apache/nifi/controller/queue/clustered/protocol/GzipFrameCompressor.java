@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.queue.clustered.protocol;
+
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes each frame as a complete GZIP stream, as the first version of the Load Balance Protocol requires, but reuses a single Deflater
+ * and output buffer instead of creating a new GZIPOutputStream for every frame.
+ */
+class GzipFrameCompressor implements FrameCompressor {
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    private static final int TRAILER_LENGTH = 8;
+
+    private final Deflater deflater = new Deflater(1, true);
+    private final CRC32 crc = new CRC32();
+    private byte[] buffer = new byte[8192];
+
+    @Override
+    public int compress(final byte[] data, final int offset, final int length) {
+        deflater.reset();
+        deflater.setInput(data, offset, length);
+        deflater.finish();
+
+        crc.reset();
+        crc.update(data, offset, length);
+
+        System.arraycopy(HEADER, 0, buffer, 0, HEADER.length);
+        int position = HEADER.length;
+        while (!deflater.finished()) {
+            if (position == buffer.length - TRAILER_LENGTH) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+
+            position += deflater.deflate(buffer, position, buffer.length - TRAILER_LENGTH - position);
+        }
+
+        writeIntLittleEndian((int) crc.getValue(), position);
+        writeIntLittleEndian(length, position + 4);
+        return position + TRAILER_LENGTH;
+    }
+
+    private void writeIntLittleEndian(final int value, final int position) {
+        buffer[position] = (byte) value;
+        buffer[position + 1] = (byte) (value >> 8);
+        buffer[position + 2] = (byte) (value >> 16);
+        buffer[position + 3] = (byte) (value >> 24);
+    }
+
+    @Override
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    @Override
+    public void close() {
+        deflater.end();
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.queue.clustered.protocol;
+
+import org.apache.nifi.controller.repository.io.LimitedInputStream;
+import org.apache.nifi.stream.io.ByteCountingInputStream;
+import org.apache.nifi.stream.io.StreamUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xerial.snappy.Snappy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * <p>
+ * The codecs that may be used to compress FlowFile metadata and Data Frames when a connection is configured to compress data that is load balanced.
+ * </p>
+ *
+ * <p>
+ * Starting with version 2 of the Load Balance Protocol, the client offers the codecs that it supports, in order of preference, immediately after
+ * the Protocol Version has been agreed upon, and the server responds with the identifier of the first codec that it also supports. Version 1
+ * of the protocol has no such negotiation and always uses GZIP, so GZIP must always remain available.
+ * </p>
+ */
+public enum LoadBalanceCodec {
+    GZIP(1) {
+        @Override
+        public boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        public FrameCompressor createCompressor() {
+            return new GzipFrameCompressor();
+        }
+
+        @Override
+        public InputStream decompress(final InputStream compressed, final int compressedLength) throws IOException {
+            verifyLength(compressedLength);
+            return new GZIPInputStream(new LimitedInputStream(compressed, compressedLength));
+        }
+
+        @Override
+        public int decompressFrame(final DataInputStream in, final int compressedLength, final byte[] destination, final byte[] compressedBuffer) throws IOException {
+            final ByteCountingInputStream bcis = new ByteCountingInputStream(new LimitedInputStream(in, compressedLength));
+            final int decompressedSize = StreamUtils.fillBuffer(new GZIPInputStream(bcis), destination, false);
+
+            if (bcis.getBytesRead() < compressedLength) {
+                throw new EOFException("Expected to receive a Data Frame of length " + compressedLength + " bytes but received only " + bcis.getBytesRead() + " bytes");
+            }
+
+            return decompressedSize;
+        }
+    },
+
+    SNAPPY(2) {
+        @Override
+        public boolean isAvailable() {
+            return SNAPPY_AVAILABLE;
+        }
+
+        @Override
+        public FrameCompressor createCompressor() {
+            return new SnappyFrameCompressor();
+        }
+
+        @Override
+        public InputStream decompress(final InputStream compressed, final int compressedLength) throws IOException {
+            verifyLength(compressedLength);
+
+            // The length comes from the peer, so grow the buffer as bytes arrive rather than allocating it up front
+            final ByteArrayOutputStream compressedOut = new ByteArrayOutputStream(Math.min(compressedLength, INITIAL_METADATA_BUFFER_SIZE));
+            StreamUtils.copy(new LimitedInputStream(compressed, compressedLength), compressedOut);
+            if (compressedOut.size() < compressedLength) {
+                throw new EOFException("Expected to receive " + compressedLength + " bytes of compressed FlowFile metadata but received only " + compressedOut.size() + " bytes");
+            }
+
+            // A valid buffer cannot declare more decompressed bytes than its contents produce, which bounds the allocation below
+            final byte[] compressedBytes = compressedOut.toByteArray();
+            if (!Snappy.isValidCompressedBuffer(compressedBytes)) {
+                throw new IOException("Received " + compressedLength + " bytes of compressed FlowFile metadata that are not valid Snappy data");
+            }
+
+            final byte[] decompressed = new byte[Snappy.uncompressedLength(compressedBytes)];
+            Snappy.uncompress(compressedBytes, 0, compressedLength, decompressed, 0);
+            return new ByteArrayInputStream(decompressed);
+        }
+
+        @Override
+        public int decompressFrame(final DataInputStream in, final int compressedLength, final byte[] destination, final byte[] compressedBuffer) throws IOException {
+            if (compressedLength > compressedBuffer.length) {
+                throw new IOException("Received a compressed Data Frame of " + compressedLength + " bytes, which exceeds the maximum allowed size of " + compressedBuffer.length + " bytes");
+            }
+
+            in.readFully(compressedBuffer, 0, compressedLength);
+
+            final int decompressedSize = Snappy.uncompressedLength(compressedBuffer, 0, compressedLength);
+            if (decompressedSize > destination.length) {
+                throw new IOException("Received a Data Frame that decompresses to " + decompressedSize + " bytes, which exceeds the maximum allowed size of " + destination.length + " bytes");
+            }
+
+            return Snappy.uncompress(compressedBuffer, 0, compressedLength, destination, 0);
+        }
+    };
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadBalanceCodec.class);
+    private static final boolean SNAPPY_AVAILABLE = isSnappyAvailable();
+    private static final int INITIAL_METADATA_BUFFER_SIZE = 8192;
+
+    private final int id;
+
+    LoadBalanceCodec(final int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return <code>true</code> if the codec can be used on this node. A codec that depends on a native library is unavailable if the library cannot be loaded.
+     */
+    public abstract boolean isAvailable();
+
+    public abstract FrameCompressor createCompressor();
+
+    /**
+     * Returns an InputStream that provides the decompressed form of the next <code>compressedLength</code> bytes of the given stream
+     *
+     * @throws IOException if the length is negative, the stream ends early, or the bytes cannot be decompressed
+     */
+    public abstract InputStream decompress(InputStream compressed, int compressedLength) throws IOException;
+
+    /**
+     * Reads a compressed Data Frame of the given length from the given stream and decompresses it into the destination
+     *
+     * @param in the stream to read from
+     * @param compressedLength the number of compressed bytes that make up the Data Frame
+     * @param destination the buffer to decompress the frame into
+     * @param compressedBuffer a scratch buffer that the codec may use to hold the compressed frame
+     * @return the number of decompressed bytes written to the destination
+     * @throws IOException if unable to read or decompress the frame
+     */
+    public abstract int decompressFrame(DataInputStream in, int compressedLength, byte[] destination, byte[] compressedBuffer) throws IOException;
+
+    /**
+     * @return the codecs that are available on this node, in order of preference
+     */
+    public static List<LoadBalanceCodec> getPreferredCodecs() {
+        final List<LoadBalanceCodec> codecs = new ArrayList<>(2);
+        if (SNAPPY.isAvailable()) {
+            codecs.add(SNAPPY);
+        }
+        codecs.add(GZIP);
+        return Collections.unmodifiableList(codecs);
+    }
+
+    /**
+     * @return the codec with the given identifier, or <code>null</code> if the identifier is not known
+     */
+    public static LoadBalanceCodec fromId(final int id) {
+        for (final LoadBalanceCodec codec : values()) {
+            if (codec.id == id) {
+                return codec;
+            }
+        }
+
+        return null;
+    }
+
+    private static void verifyLength(final int compressedLength) throws IOException {
+        if (compressedLength < 0) {
+            throw new IOException("Received invalid compressed FlowFile metadata length of " + compressedLength + " bytes");
+        }
+    }
+
+    private static boolean isSnappyAvailable() {
+        try {
+            Snappy.maxCompressedLength(1);
+            return true;
+        } catch (final Throwable t) {
+            logger.warn("Snappy native library could not be loaded; load-balanced connections will use GZIP compression", t);
+            return false;
+        }
+    }
+}
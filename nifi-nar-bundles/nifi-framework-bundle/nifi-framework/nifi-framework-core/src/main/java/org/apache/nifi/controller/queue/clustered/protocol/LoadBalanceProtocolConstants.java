@@ -43,4 +43,9 @@ public class LoadBalanceProtocolConstants {
     // data frame constants
     public static final int NO_DATA_FRAME = 0x40;
     public static final int DATA_FRAME_FOLLOWS = 0x42;
+
+    // stream multiplexing constants (protocol version 3)
+    public static final int OPEN_STREAM = 0x71;
+    public static final int WINDOW_UPDATE = 0x72;
+    public static final int CLOSE_SESSION = 0x7F;
 }
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.queue.clustered.protocol;
+
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+
+/**
+ * Compresses each frame as a single raw Snappy block, reusing the output buffer from one frame to the next
+ */
+class SnappyFrameCompressor implements FrameCompressor {
+    private byte[] buffer = new byte[0];
+
+    @Override
+    public int compress(final byte[] data, final int offset, final int length) throws IOException {
+        final int maxCompressedLength = Snappy.maxCompressedLength(length);
+        if (buffer.length < maxCompressedLength) {
+            buffer = new byte[maxCompressedLength];
+        }
+
+        return Snappy.compress(data, offset, length, buffer, 0);
+    }
+
+    @Override
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    @Override
+    public void close() {
+    }
+}
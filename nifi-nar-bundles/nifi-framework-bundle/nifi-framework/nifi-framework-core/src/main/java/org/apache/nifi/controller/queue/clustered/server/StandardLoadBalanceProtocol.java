@@ -23,6 +23,8 @@ import org.apache.nifi.controller.queue.FlowFileQueue;
 import org.apache.nifi.controller.queue.IllegalClusterStateException;
 import org.apache.nifi.controller.queue.LoadBalanceCompression;
 import org.apache.nifi.controller.queue.LoadBalancedFlowFileQueue;
+import org.apache.nifi.controller.queue.clustered.LoadBalanceTransferMetrics;
+import org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceCodec;
 import org.apache.nifi.controller.repository.ContentRepository;
 import org.apache.nifi.controller.repository.FlowFileRecord;
 import org.apache.nifi.controller.repository.FlowFileRepository;
@@ -31,7 +33,6 @@ import org.apache.nifi.controller.repository.StandardFlowFileRecord;
 import org.apache.nifi.controller.repository.StandardRepositoryRecord;
 import org.apache.nifi.controller.repository.claim.ContentClaim;
 import org.apache.nifi.controller.repository.claim.ResourceClaim;
-import org.apache.nifi.controller.repository.io.LimitedInputStream;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
 import org.apache.nifi.provenance.ProvenanceEventBuilder;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
@@ -66,11 +67,11 @@ import java.util.stream.Collectors;
 import java.util.zip.CRC32;
 import java.util.zip.CheckedInputStream;
 import java.util.zip.Checksum;
-import java.util.zip.GZIPInputStream;
 
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.ABORT_PROTOCOL_NEGOTIATION;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.ABORT_TRANSACTION;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.CHECK_SPACE;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.CLOSE_SESSION;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.COMPLETE_TRANSACTION;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.CONFIRM_CHECKSUM;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.CONFIRM_COMPLETE_TRANSACTION;
@@ -78,12 +79,14 @@ import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalancePro
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.MORE_FLOWFILES;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.NO_DATA_FRAME;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.NO_MORE_FLOWFILES;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.OPEN_STREAM;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.QUEUE_FULL;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.REJECT_CHECKSUM;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.REQEUST_DIFFERENT_VERSION;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.SKIP_SPACE_CHECK;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.SPACE_AVAILABLE;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.VERSION_ACCEPTED;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.WINDOW_UPDATE;
 
 public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
     private static final Logger logger = LoggerFactory.getLogger(StandardLoadBalanceProtocol.class);
@@ -91,22 +94,35 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
     private static final int SOCKET_CLOSED = -1;
     private static final int NO_DATA_AVAILABLE = 0;
 
+    private static final int MULTIPLEXED_PROTOCOL_VERSION = 3;
+    private static final int MULTIPLEXED_FRAME_HEADER_LENGTH = 6;
+    private static final int STREAM_WINDOW_SIZE = 1024 * 1024;
+    private static final int STREAM_WINDOW_UPDATE_THRESHOLD = STREAM_WINDOW_SIZE / 4;
+
     private final FlowFileRepository flowFileRepository;
     private final ContentRepository contentRepository;
     private final ProvenanceRepository provenanceRepository;
     private final FlowController flowController;
     private final LoadBalanceAuthorizer authorizer;
+    private final LoadBalanceTransferMetrics transferMetrics;
 
     private final ThreadLocal<byte[]> dataBuffer = new ThreadLocal<>();
+    private final ThreadLocal<byte[]> compressedDataBuffer = new ThreadLocal<>();
     private final AtomicLong lineageStartIndex = new AtomicLong(0L);
 
     public StandardLoadBalanceProtocol(final FlowFileRepository flowFileRepository, final ContentRepository contentRepository, final ProvenanceRepository provenanceRepository,
                                        final FlowController flowController, final LoadBalanceAuthorizer authorizer) {
+        this(flowFileRepository, contentRepository, provenanceRepository, flowController, authorizer, new LoadBalanceTransferMetrics());
+    }
+
+    public StandardLoadBalanceProtocol(final FlowFileRepository flowFileRepository, final ContentRepository contentRepository, final ProvenanceRepository provenanceRepository,
+                                       final FlowController flowController, final LoadBalanceAuthorizer authorizer, final LoadBalanceTransferMetrics transferMetrics) {
         this.flowFileRepository = flowFileRepository;
         this.contentRepository = contentRepository;
         this.provenanceRepository = provenanceRepository;
         this.flowController = flowController;
         this.authorizer = authorizer;
+        this.transferMetrics = transferMetrics;
     }
 
 
@@ -136,7 +152,7 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
 
 
     protected int negotiateProtocolVersion(final InputStream in, final OutputStream out, final String peerDescription) throws IOException {
-        final VersionNegotiator negotiator = new StandardVersionNegotiator(1);
+        final VersionNegotiator negotiator = new StandardVersionNegotiator(3, 2, 1);
 
         for (int i=0;; i++) {
             final int requestedVersion;
@@ -185,10 +201,57 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
     }
 
 
+    protected LoadBalanceCodec negotiateCodec(final InputStream in, final OutputStream out, final String peerDescription, final int protocolVersion) throws IOException {
+        // Version 1 of the protocol does not negotiate a codec and always uses GZIP
+        if (protocolVersion < 2) {
+            return LoadBalanceCodec.GZIP;
+        }
+
+        final int offeredCount = in.read();
+        if (offeredCount < 0) {
+            logger.debug("Encountered End-of-File when expecting Peer {} to offer the codecs that it supports. Returning null for codec", peerDescription);
+            return null;
+        }
+
+        LoadBalanceCodec chosen = null;
+        for (int i = 0; i < offeredCount; i++) {
+            final int codecId = in.read();
+            if (codecId < 0) {
+                throw new EOFException("Encountered End-of-File when receiving the codecs offered by Peer " + peerDescription);
+            }
+
+            final LoadBalanceCodec offered = LoadBalanceCodec.fromId(codecId);
+            if (chosen == null && offered != null && offered.isAvailable()) {
+                chosen = offered;
+            }
+        }
+
+        // GZIP is always offered by peers that support codec negotiation, but fall back to it regardless so that we never fail to agree on a codec
+        if (chosen == null) {
+            chosen = LoadBalanceCodec.GZIP;
+        }
+
+        logger.debug("Peer {} offered {} codecs; choosing {}", peerDescription, offeredCount, chosen);
+        out.write(chosen.getId());
+        out.flush();
+        return chosen;
+    }
+
     protected void receiveFlowFiles(final InputStream in, final OutputStream out, final String peerDescription, final int protocolVersion) throws IOException {
         logger.debug("Receiving FlowFiles from {}", peerDescription);
         final long startTimestamp = System.currentTimeMillis();
 
+        final LoadBalanceCodec codec = negotiateCodec(in, out, peerDescription, protocolVersion);
+        if (codec == null) {
+            logger.debug("Received no codecs from Peer {}. Will consider receipt of FlowFiles complete", peerDescription);
+            return;
+        }
+
+        if (protocolVersion >= MULTIPLEXED_PROTOCOL_VERSION) {
+            receiveMultiplexedFlowFiles(in, out, peerDescription, codec);
+            return;
+        }
+
         final Checksum checksum = new CRC32();
         final InputStream checkedInput = new CheckedInputStream(in, checksum);
 
@@ -235,7 +298,7 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
         }
 
         final LoadBalanceCompression compression = connection.getFlowFileQueue().getLoadBalanceCompression();
-        logger.debug("Receiving FlowFiles from Peer {} for Connection {}; Compression = {}", peerDescription, connectionId, compression);
+        logger.debug("Receiving FlowFiles from Peer {} for Connection {}; Compression = {}, Codec = {}", peerDescription, connectionId, compression, codec);
 
         ContentClaim contentClaim = null;
         final List<RemoteFlowFileRecord> flowFilesReceived = new ArrayList<>();
@@ -250,7 +313,7 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
                         contentClaimOut = contentRepository.write(contentClaim);
                     }
 
-                    final RemoteFlowFileRecord flowFile = receiveFlowFile(dataIn, contentClaimOut, contentClaim, claimOffset, protocolVersion, peerDescription, compression);
+                    final RemoteFlowFileRecord flowFile = receiveFlowFile(dataIn, contentClaimOut, contentClaim, claimOffset, protocolVersion, peerDescription, compression, codec);
 
                     // The FlowFile's Content Claim will either be null or equal to the provided Content Claim.
                     // Incrementing the FlowFile's content claim will increment the count for the provided Content Claim, if it was
@@ -293,6 +356,158 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
         logger.debug("Successfully received {} FlowFiles from Peer {} to Load Balance for Connection {}", flowFilesReceived.size(), peerDescription, connectionId);
     }
 
+    /**
+     * Receives FlowFiles using version 3 of the protocol, in which the frames for many Connections are interleaved over the same socket. Each Connection's
+     * FlowFiles are received on their own stream, which has its own Content Claim and checksum and is committed independently of the others.
+     */
+    private void receiveMultiplexedFlowFiles(final InputStream in, final OutputStream out, final String peerDescription, final LoadBalanceCodec codec) throws IOException {
+        final DataInputStream dataIn = new DataInputStream(in);
+        final byte[] header = new byte[MULTIPLEXED_FRAME_HEADER_LENGTH];
+        final Map<Integer, ReceivingStream> streams = new HashMap<>();
+
+        try {
+            while (true) {
+                try {
+                    dataIn.readFully(header);
+                } catch (final EOFException eof) {
+                    throw new EOFException("Encountered End-of-File when expecting to receive a Frame from Peer " + peerDescription);
+                }
+
+                final int frameType = header[0] & 0xFF;
+                final int streamId = header[1] & 0xFF;
+                final int payloadLength = ((header[2] & 0xFF) << 24) | ((header[3] & 0xFF) << 16) | ((header[4] & 0xFF) << 8) | (header[5] & 0xFF);
+                if (payloadLength < 0) {
+                    throw new IOException("Received a Frame from Peer " + peerDescription + " with an invalid payload length of " + payloadLength);
+                }
+
+                if (frameType == CLOSE_SESSION) {
+                    if (!streams.isEmpty()) {
+                        throw new IOException("Peer " + peerDescription + " closed the Load Balancing session while " + streams.size() + " streams were still open");
+                    }
+
+                    logger.debug("Peer {} closed the Multiplexed Load Balancing session", peerDescription);
+                    return;
+                }
+
+                if (frameType == OPEN_STREAM) {
+                    if (streams.containsKey(streamId)) {
+                        throw new IOException("Peer " + peerDescription + " attempted to open stream " + streamId + " but that stream is already open");
+                    }
+
+                    final ReceivingStream stream = openStream(dataIn, header, streamId, payloadLength, out, peerDescription, codec);
+                    if (stream != null) {
+                        streams.put(streamId, stream);
+                    }
+                    continue;
+                }
+
+                final ReceivingStream stream = streams.get(streamId);
+                if (stream == null) {
+                    if (frameType == ABORT_TRANSACTION) {
+                        // The stream was already completed or rejected by the time that the peer aborted it. Acknowledge the abort so that the peer can reuse the stream ID.
+                        writeStreamResponse(out, ABORT_TRANSACTION, streamId, 0);
+                        continue;
+                    }
+
+                    throw new IOException("Received Frame of type " + frameType + " from Peer " + peerDescription + " for stream " + streamId + " but no such stream is open");
+                }
+
+                switch (frameType) {
+                    case MORE_FLOWFILES:
+                        stream.startFlowFile(header, payloadLength);
+                        stream.consumed(payloadLength, out);
+                        break;
+                    case DATA_FRAME_FOLLOWS:
+                        stream.receiveContent(header, payloadLength);
+                        stream.consumed(payloadLength, out);
+                        break;
+                    case NO_DATA_FRAME:
+                        stream.endFlowFile(header);
+                        break;
+                    case NO_MORE_FLOWFILES:
+                        if (payloadLength != 8) {
+                            throw new IOException("Peer " + peerDescription + " completed stream " + streamId + " with a payload of " + payloadLength + " bytes instead of an 8-byte checksum");
+                        }
+
+                        streams.remove(streamId);
+                        stream.complete(readChecksum(dataIn), out);
+                        break;
+                    case ABORT_TRANSACTION:
+                        logger.debug("Peer {} aborted stream {} for Connection {}", peerDescription, streamId, stream.getConnectionId());
+                        streams.remove(streamId);
+                        stream.abort();
+                        writeStreamResponse(out, ABORT_TRANSACTION, streamId, 0);
+                        break;
+                    default:
+                        throw new IOException("Received unexpected Frame type " + frameType + " from Peer " + peerDescription + " for stream " + streamId);
+                }
+            }
+        } catch (final Exception e) {
+            for (final ReceivingStream stream : streams.values()) {
+                try {
+                    stream.abort();
+                } catch (final Exception e1) {
+                    e.addSuppressed(e1);
+                }
+            }
+
+            throw e;
+        }
+    }
+
+    private ReceivingStream openStream(final DataInputStream dataIn, final byte[] header, final int streamId, final int payloadLength, final OutputStream out,
+                                       final String peerDescription, final LoadBalanceCodec codec) throws IOException {
+        if (payloadLength < 1) {
+            throw new IOException("Peer " + peerDescription + " attempted to open stream " + streamId + " without providing a Connection ID");
+        }
+
+        final Checksum checksum = new CRC32();
+        checksum.update(header, 0, header.length);
+        final DataInputStream streamIn = new DataInputStream(new CheckedInputStream(dataIn, checksum));
+
+        final int spaceCheck = streamIn.read();
+        final byte[] connectionIdBytes = new byte[payloadLength - 1];
+        streamIn.readFully(connectionIdBytes);
+        final String connectionId = new String(connectionIdBytes, StandardCharsets.UTF_8);
+
+        if (spaceCheck != CHECK_SPACE && spaceCheck != SKIP_SPACE_CHECK) {
+            throw new TransactionAbortedException("Expected to receive a request to determine whether or not space was available for Connection with ID "
+                + connectionId + " from Peer " + peerDescription + " but instead received value " + spaceCheck);
+        }
+
+        final Connection connection = flowController.getFlowManager().getConnection(connectionId);
+        if (connection == null || !(connection.getFlowFileQueue() instanceof LoadBalancedFlowFileQueue)) {
+            // Unlike the earlier versions of the protocol, this only affects the one stream, so abort it rather than the whole session.
+            logger.error("Attempted to receive FlowFiles from Peer {} for Connection with ID {} but no Connection that allows for Load Balancing exists with that ID", peerDescription, connectionId);
+            writeStreamResponse(out, ABORT_TRANSACTION, streamId, 0);
+            return null;
+        }
+
+        final LoadBalancedFlowFileQueue flowFileQueue = (LoadBalancedFlowFileQueue) connection.getFlowFileQueue();
+        final boolean honorBackpressure = spaceCheck == CHECK_SPACE;
+        if (honorBackpressure && flowFileQueue.isLocalPartitionFull()) {
+            logger.debug("Received a 'Check Space' request from Peer {} for Connection with ID {} on stream {}; responding with QUEUE_FULL", peerDescription, connectionId, streamId);
+            writeStreamResponse(out, QUEUE_FULL, streamId, 0);
+            return null;
+        }
+
+        final LoadBalanceCompression compression = flowFileQueue.getLoadBalanceCompression();
+        logger.debug("Receiving FlowFiles from Peer {} for Connection {} on stream {}; Compression = {}, Codec = {}", peerDescription, connectionId, streamId, compression, codec);
+        writeStreamResponse(out, SPACE_AVAILABLE, streamId, STREAM_WINDOW_SIZE);
+
+        return new ReceivingStream(streamId, peerDescription, connectionId, flowFileQueue, honorBackpressure, compression, codec, checksum, streamIn);
+    }
+
+    private void writeStreamResponse(final OutputStream out, final int responseType, final int streamId, final int value) throws IOException {
+        out.write(responseType);
+        out.write(streamId);
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+        out.flush();
+    }
+
     private void completeTransaction(final InputStream in, final OutputStream out, final String peerDescription, final List<RemoteFlowFileRecord> flowFilesReceived,
                                      final String connectionId, final long startTimestamp, final LoadBalancedFlowFileQueue flowFileQueue) throws IOException {
         final int completionIndicator = in.read();
@@ -313,6 +528,26 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
         }
 
         logger.debug("Received Complete Transaction indicator from Peer {}", peerDescription);
+        if (!transferReceivedFlowFiles(flowFilesReceived, peerDescription, connectionId, startTimestamp, flowFileQueue)) {
+            out.write(ABORT_TRANSACTION);
+            out.flush();
+            return;
+        }
+
+        out.write(CONFIRM_COMPLETE_TRANSACTION);
+        out.flush();
+
+        recordReceived(flowFilesReceived, peerDescription, startTimestamp);
+    }
+
+    /**
+     * Registers the received FlowFiles with the Provenance and FlowFile Repositories and transfers them to the queue. If the FlowFiles cannot be transferred
+     * to the queue, the repositories are updated to note that the FlowFiles were dropped.
+     *
+     * @return <code>true</code> if the FlowFiles were transferred to the queue, <code>false</code> if the transfer was rejected
+     */
+    private boolean transferReceivedFlowFiles(final List<RemoteFlowFileRecord> flowFilesReceived, final String peerDescription, final String connectionId,
+                                              final long startTimestamp, final LoadBalancedFlowFileQueue flowFileQueue) throws IOException {
         registerReceiveProvenanceEvents(flowFilesReceived, peerDescription, connectionId, startTimestamp);
         updateFlowFileRepository(flowFilesReceived, flowFileQueue);
 
@@ -320,8 +555,6 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
             transferFlowFilesToQueue(flowFilesReceived, flowFileQueue);
         } catch (final IllegalClusterStateException e) {
             logger.error("Failed to transferred received data into FlowFile Queue {}", flowFileQueue, e);
-            out.write(ABORT_TRANSACTION);
-            out.flush();
 
             try {
                 cleanupRepositoriesOnTransferFailure(flowFilesReceived, flowFileQueue, "Rejected transfer due to " + e.getMessage());
@@ -333,11 +566,15 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
             // the caller of this method would catch the Exception and decrement the Content Claims, etc. However,
             // since we have already updated the FlowFile Repository to DROP the data, that would decrement the claims
             // twice, which could lead to data loss.
-            return;
+            return false;
         }
 
-        out.write(CONFIRM_COMPLETE_TRANSACTION);
-        out.flush();
+        return true;
+    }
+
+    private void recordReceived(final List<RemoteFlowFileRecord> flowFilesReceived, final String peerDescription, final long startTimestamp) {
+        final long bytesReceived = flowFilesReceived.stream().mapToLong(flowFile -> flowFile.getFlowFile().getSize()).sum();
+        transferMetrics.recordReceived(peerDescription, flowFilesReceived.size(), bytesReceived, System.currentTimeMillis() - startTimestamp);
     }
 
     private void cleanupRepositoriesOnTransferFailure(final List<RemoteFlowFileRecord> flowFilesReceived, final FlowFileQueue flowFileQueue, final String details) throws IOException {
@@ -465,6 +702,16 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
         return buffer;
     }
 
+    private byte[] getCompressedDataBuffer() {
+        byte[] buffer = compressedDataBuffer.get();
+        if (buffer == null) {
+            buffer = new byte[128 * 1024];
+            compressedDataBuffer.set(buffer);
+        }
+
+        return buffer;
+    }
+
     private String getConnectionID(final DataInputStream in, final String peerDescription) throws IOException {
         try {
             return in.readUTF();
@@ -494,24 +741,38 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
     }
 
     private RemoteFlowFileRecord receiveFlowFile(final DataInputStream dis, final OutputStream out, final ContentClaim contentClaim, final long claimOffset, final int protocolVersion,
-                                                 final String peerDescription, final LoadBalanceCompression compression) throws IOException {
+                                                 final String peerDescription, final LoadBalanceCompression compression, final LoadBalanceCodec codec) throws IOException {
         final int metadataLength = dis.readInt();
+        final FlowFileMetadata metadata = readFlowFileMetadata(dis, metadataLength, peerDescription, compression, codec);
 
-        DataInputStream metadataIn = new DataInputStream(new LimitingInputStream(dis, metadataLength));
-        if (compression != LoadBalanceCompression.DO_NOT_COMPRESS) {
-            metadataIn = new DataInputStream(new GZIPInputStream(metadataIn));
+        final ContentClaimTriple contentClaimTriple = consumeContent(dis, out, contentClaim, claimOffset, peerDescription,
+            compression == LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT ? codec : null);
+
+        return createRemoteFlowFile(metadata, contentClaimTriple);
+    }
+
+    private FlowFileMetadata readFlowFileMetadata(final DataInputStream dis, final int metadataLength, final String peerDescription, final LoadBalanceCompression compression,
+                                                  final LoadBalanceCodec codec) throws IOException {
+        final DataInputStream metadataIn;
+        if (compression == LoadBalanceCompression.DO_NOT_COMPRESS) {
+            metadataIn = new DataInputStream(new LimitingInputStream(dis, metadataLength));
+        } else {
+            metadataIn = new DataInputStream(codec.decompress(dis, metadataLength));
         }
 
         final Map<String, String> attributes = readAttributes(metadataIn);
-        final String sourceSystemUuid = attributes.get(CoreAttributes.UUID.key());
-
         logger.debug("Received Attributes {} from Peer {}", attributes, peerDescription);
 
         final long lineageStartDate = metadataIn.readLong();
         final long entryDate = metadataIn.readLong();
         final long penaltyExpirationMillis = metadataIn.readLong();
 
-        final ContentClaimTriple contentClaimTriple = consumeContent(dis, out, contentClaim, claimOffset, peerDescription, compression == LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT);
+        return new FlowFileMetadata(attributes, lineageStartDate, entryDate, penaltyExpirationMillis);
+    }
+
+    private RemoteFlowFileRecord createRemoteFlowFile(final FlowFileMetadata metadata, final ContentClaimTriple contentClaimTriple) {
+        final Map<String, String> attributes = metadata.getAttributes();
+        final String sourceSystemUuid = attributes.get(CoreAttributes.UUID.key());
 
         final FlowFileRecord flowFileRecord = new StandardFlowFileRecord.Builder()
             .id(flowFileRepository.getNextFlowFileSequence())
@@ -520,9 +781,9 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
             .contentClaim(contentClaimTriple.getContentClaim())
             .contentClaimOffset(contentClaimTriple.getClaimOffset())
             .size(contentClaimTriple.getContentLength())
-            .entryDate(entryDate)
-            .lineageStart(lineageStartDate, lineageStartIndex.getAndIncrement())
-            .penaltyExpirationTime(penaltyExpirationMillis)
+            .entryDate(metadata.getEntryDate())
+            .lineageStart(metadata.getLineageStartDate(), lineageStartIndex.getAndIncrement())
+            .penaltyExpirationTime(metadata.getPenaltyExpirationMillis())
             .build();
 
         logger.debug("Received FlowFile {} with {} attributes and {} bytes of content", flowFileRecord, attributes.size(), contentClaimTriple.getContentLength());
@@ -551,7 +812,7 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
     }
 
     private ContentClaimTriple consumeContent(final DataInputStream in, final OutputStream out, final ContentClaim contentClaim, final long claimOffset,
-                                              final String peerDescription, final boolean compressed) throws IOException {
+                                              final String peerDescription, final LoadBalanceCodec codec) throws IOException {
         logger.debug("Consuming content from Peer {}", peerDescription);
 
         int dataFrameIndicator = in.read();
@@ -569,20 +830,23 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
             throw new IOException("Expected a Data Frame Indicator from Peer " + peerDescription + " but received a value of " + dataFrameIndicator);
         }
 
-        int dataFrameLength = in.readInt();
-        logger.trace("Received Data Frame Length of {} for {}", dataFrameLength, peerDescription);
-
         byte[] buffer = getDataBuffer();
+        int dataFrameLength = readDataFrameLength(in, buffer, codec, peerDescription);
 
         long claimLength = 0;
         while (true) {
-            final InputStream limitedIn = new LimitedInputStream(in, dataFrameLength);
-            final ByteCountingInputStream bcis = new ByteCountingInputStream(limitedIn);
-            final InputStream contentIn = compressed ? new GZIPInputStream(bcis) : bcis;
-            final int decompressedSize = StreamUtils.fillBuffer(contentIn, buffer, false);
+            final int decompressedSize;
+            if (codec == null) {
+                // Read the frame directly into the reusable buffer rather than wrapping the stream for each frame
+                try {
+                    in.readFully(buffer, 0, dataFrameLength);
+                } catch (final EOFException eof) {
+                    throw new EOFException("Expected to receive a Data Frame of length " + dataFrameLength + " bytes from Peer " + peerDescription + " but encountered End-of-File");
+                }
 
-            if (bcis.getBytesRead() < dataFrameLength) {
-                throw new EOFException("Expected to receive a Data Frame of length " + dataFrameLength + " bytes but received only " + bcis.getBytesRead() + " bytes");
+                decompressedSize = dataFrameLength;
+            } else {
+                decompressedSize = codec.decompressFrame(in, dataFrameLength, buffer, getCompressedDataBuffer());
             }
 
             out.write(buffer, 0, decompressedSize);
@@ -605,13 +869,250 @@ public class StandardLoadBalanceProtocol implements LoadBalanceProtocol {
                 throw new IOException("Expected a Data Frame Indicator from Peer " + peerDescription + " but received a value of " + dataFrameIndicator);
             }
 
-            dataFrameLength = in.readInt();
-            logger.trace("Received Data Frame Length of {} for {}", dataFrameLength, peerDescription);
+            dataFrameLength = readDataFrameLength(in, buffer, codec, peerDescription);
         }
 
         return new ContentClaimTriple(contentClaim, claimOffset, claimLength);
     }
 
+    /**
+     * Reads the length of the next Data Frame and validates it before any of the frame is consumed, so that an oversized frame is rejected
+     * without leaving part of it unread on the stream
+     */
+    private int readDataFrameLength(final DataInputStream in, final byte[] buffer, final LoadBalanceCodec codec, final String peerDescription) throws IOException {
+        final int dataFrameLength = in.readInt();
+        logger.trace("Received Data Frame Length of {} for {}", dataFrameLength, peerDescription);
+
+        if (dataFrameLength < 0) {
+            throw new IOException("Peer " + peerDescription + " sent a Data Frame Length of " + dataFrameLength + " bytes, which is not a valid length");
+        }
+        if (codec == null && dataFrameLength > buffer.length) {
+            throw new IOException("Peer " + peerDescription + " sent a Data Frame of " + dataFrameLength + " bytes, which exceeds the maximum allowed size of " + buffer.length + " bytes");
+        }
+
+        return dataFrameLength;
+    }
+
+    /**
+     * The state of a single Connection's transaction within a multiplexed session
+     */
+    private class ReceivingStream {
+        private final int streamId;
+        private final String peerDescription;
+        private final String connectionId;
+        private final LoadBalancedFlowFileQueue flowFileQueue;
+        private final boolean honorBackpressure;
+        private final LoadBalanceCompression compression;
+        private final LoadBalanceCodec codec;
+        private final Checksum checksum;
+        private final DataInputStream in;
+        private final long startTimestamp = System.currentTimeMillis();
+        private final List<RemoteFlowFileRecord> flowFilesReceived = new ArrayList<>();
+
+        private ContentClaim contentClaim;
+        private OutputStream contentClaimOut;
+        private long claimOffset = 0L;
+        private FlowFileMetadata currentMetadata;
+        private long currentContentLength;
+        private long unacknowledgedBytes = 0L;
+        private boolean queueFullReported = false;
+
+        /**
+         * @param checksum the checksum of the stream, which is updated with each Frame's header as it is processed
+         * @param in the stream to read Frame payloads from, which updates the checksum with every byte that it reads
+         */
+        ReceivingStream(final int streamId, final String peerDescription, final String connectionId, final LoadBalancedFlowFileQueue flowFileQueue, final boolean honorBackpressure,
+                        final LoadBalanceCompression compression, final LoadBalanceCodec codec, final Checksum checksum, final DataInputStream in) {
+            this.streamId = streamId;
+            this.peerDescription = peerDescription;
+            this.connectionId = connectionId;
+            this.flowFileQueue = flowFileQueue;
+            this.honorBackpressure = honorBackpressure;
+            this.compression = compression;
+            this.codec = codec;
+            this.checksum = checksum;
+            this.in = in;
+        }
+
+        String getConnectionId() {
+            return connectionId;
+        }
+
+        void startFlowFile(final byte[] header, final int metadataLength) throws IOException {
+            if (currentMetadata != null) {
+                throw new IOException("Peer " + peerDescription + " started a new FlowFile on stream " + streamId + " before finishing the previous one");
+            }
+
+            checksum.update(header, 0, header.length);
+
+            // Make sure that the whole payload is consumed, even if the decompressor stopped short of the end of it, so that the next Frame header is read correctly
+            final ByteCountingInputStream countingIn = new ByteCountingInputStream(in);
+            currentMetadata = readFlowFileMetadata(new DataInputStream(countingIn), metadataLength, peerDescription, compression, codec);
+            StreamUtils.skip(in, metadataLength - countingIn.getBytesRead());
+            currentContentLength = 0L;
+        }
+
+        void receiveContent(final byte[] header, final int frameLength) throws IOException {
+            if (currentMetadata == null) {
+                throw new IOException("Peer " + peerDescription + " sent a Data Frame on stream " + streamId + " without first sending a FlowFile");
+            }
+
+            checksum.update(header, 0, header.length);
+
+            final byte[] buffer = getDataBuffer();
+            final int contentLength;
+            if (compression == LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT) {
+                contentLength = codec.decompressFrame(in, frameLength, buffer, getCompressedDataBuffer());
+            } else {
+                if (frameLength > buffer.length) {
+                    throw new IOException("Peer " + peerDescription + " sent a Data Frame of " + frameLength + " bytes, which exceeds the maximum allowed size of " + buffer.length + " bytes");
+                }
+
+                in.readFully(buffer, 0, frameLength);
+                contentLength = frameLength;
+            }
+
+            if (contentClaim == null) {
+                contentClaim = contentRepository.create(false);
+                contentClaimOut = contentRepository.write(contentClaim);
+            }
+
+            contentClaimOut.write(buffer, 0, contentLength);
+            currentContentLength += contentLength;
+        }
+
+        void endFlowFile(final byte[] header) throws IOException {
+            if (currentMetadata == null) {
+                throw new IOException("Peer " + peerDescription + " ended a FlowFile on stream " + streamId + " without first sending one");
+            }
+
+            checksum.update(header, 0, header.length);
+
+            final ContentClaimTriple contentClaimTriple = currentContentLength == 0 ? new ContentClaimTriple(null, 0L, 0L)
+                : new ContentClaimTriple(contentClaim, claimOffset, currentContentLength);
+            final RemoteFlowFileRecord flowFile = createRemoteFlowFile(currentMetadata, contentClaimTriple);
+
+            contentRepository.incrementClaimaintCount(flowFile.getFlowFile().getContentClaim());
+            flowFilesReceived.add(flowFile);
+
+            claimOffset += currentContentLength;
+            currentMetadata = null;
+        }
+
+        /**
+         * Extends the peer's window once enough data has been consumed, unless the queue has filled up, in which case the peer is told to complete the stream instead
+         */
+        void consumed(final int payloadLength, final OutputStream out) throws IOException {
+            unacknowledgedBytes += payloadLength;
+            if (unacknowledgedBytes < STREAM_WINDOW_UPDATE_THRESHOLD || queueFullReported) {
+                return;
+            }
+
+            if (honorBackpressure && flowFileQueue.isLocalPartitionFull()) {
+                logger.debug("Queue for Connection {} filled while receiving FlowFiles from Peer {} on stream {}; responding with QUEUE_FULL", connectionId, peerDescription, streamId);
+                writeStreamResponse(out, QUEUE_FULL, streamId, 0);
+                queueFullReported = true;
+                return;
+            }
+
+            writeStreamResponse(out, WINDOW_UPDATE, streamId, (int) unacknowledgedBytes);
+            unacknowledgedBytes = 0L;
+        }
+
+        void complete(final long expectedChecksum, final OutputStream out) throws IOException {
+            if (currentMetadata != null) {
+                throw new IOException("Peer " + peerDescription + " completed stream " + streamId + " before finishing the FlowFile that it was sending");
+            }
+
+            closeContentClaim();
+
+            // The Content Claim has a Claimant Count that is 1 larger than the number of FlowFiles that reference it, as described in #receiveFlowFiles
+            final int count = contentRepository.decrementClaimantCount(contentClaim);
+
+            try {
+                if (checksum.getValue() != expectedChecksum) {
+                    // Only this stream's data is suspect, so reject its transaction and discard its FlowFiles without tearing down the streams of other Connections
+                    logger.error("Received {} FlowFiles from peer {} on stream {} but the Checksum reported by the peer ({}) did not match the checksum that was calculated ({}). "
+                        + "Will reject the transaction.", flowFilesReceived.size(), peerDescription, streamId, expectedChecksum, checksum.getValue());
+                    writeStreamResponse(out, REJECT_CHECKSUM, streamId, 0);
+                    discardFlowFiles();
+                    return;
+                }
+
+                final boolean transferred = transferReceivedFlowFiles(flowFilesReceived, peerDescription, connectionId, startTimestamp, flowFileQueue);
+                writeStreamResponse(out, transferred ? CONFIRM_COMPLETE_TRANSACTION : ABORT_TRANSACTION, streamId, flowFilesReceived.size());
+
+                if (transferred) {
+                    recordReceived(flowFilesReceived, peerDescription, startTimestamp);
+                    logger.debug("Successfully received {} FlowFiles from Peer {} to Load Balance for Connection {}", flowFilesReceived.size(), peerDescription, connectionId);
+                }
+
+                if (count == 0) {
+                    contentRepository.remove(contentClaim);
+                }
+            } catch (final Exception e) {
+                discardFlowFiles();
+                throw e;
+            }
+        }
+
+        void abort() throws IOException {
+            try {
+                closeContentClaim();
+            } finally {
+                discardFlowFiles();
+            }
+        }
+
+        private void closeContentClaim() throws IOException {
+            if (contentClaimOut != null) {
+                final OutputStream claimOut = contentClaimOut;
+                contentClaimOut = null;
+                claimOut.close();
+            }
+        }
+
+        private void discardFlowFiles() {
+            // The Content Claims are no longer needed, so decrement the claimant counts for the FlowFiles that referenced them
+            for (final RemoteFlowFileRecord remoteFlowFile : flowFilesReceived) {
+                contentRepository.decrementClaimantCount(remoteFlowFile.getFlowFile().getContentClaim());
+            }
+
+            flowFilesReceived.clear();
+            contentRepository.remove(contentClaim);
+        }
+    }
+
+    private static class FlowFileMetadata {
+        private final Map<String, String> attributes;
+        private final long lineageStartDate;
+        private final long entryDate;
+        private final long penaltyExpirationMillis;
+
+        public FlowFileMetadata(final Map<String, String> attributes, final long lineageStartDate, final long entryDate, final long penaltyExpirationMillis) {
+            this.attributes = attributes;
+            this.lineageStartDate = lineageStartDate;
+            this.entryDate = entryDate;
+            this.penaltyExpirationMillis = penaltyExpirationMillis;
+        }
+
+        public Map<String, String> getAttributes() {
+            return attributes;
+        }
+
+        public long getLineageStartDate() {
+            return lineageStartDate;
+        }
+
+        public long getEntryDate() {
+            return entryDate;
+        }
+
+        public long getPenaltyExpirationMillis() {
+            return penaltyExpirationMillis;
+        }
+    }
+
     private static class ContentClaimTriple {
         private final ContentClaim contentClaim;
         private final long claimOffset;
@@ -26,6 +26,7 @@ import org.apache.nifi.engine.FlowEngine;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.reporting.Severity;
+import org.apache.nifi.stream.io.ByteBufferInputStream;
 import org.apache.nifi.stream.io.ByteCountingOutputStream;
 import org.apache.nifi.stream.io.StreamUtils;
 import org.apache.nifi.stream.io.SynchronizedByteCountingOutputStream;
@@ -46,6 +47,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
@@ -62,6 +65,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
@@ -112,6 +116,8 @@ public class FileSystemRepository implements ContentRepository {
     // the OutputStream that we can use for writing to the claim.
     private final BlockingQueue<ClaimLengthPair> writableClaimQueue;
     private final ConcurrentMap<ResourceClaim, ByteCountingOutputStream> writableClaimStreams = new ConcurrentHashMap<>(100);
+    // null unless memory-mapped reads are enabled
+    private final MappedResourceClaimCache mappedClaimCache;
 
     private final boolean archiveData;
     // 1 MB default, as it means that we won't continually write to one
@@ -152,6 +158,7 @@ public class FileSystemRepository implements ContentRepository {
         maxAppendableClaimLength = 0;
         maxFlowFilesPerClaim = 0;
         writableClaimQueue = null;
+        mappedClaimCache = null;
     }
 
     public FileSystemRepository(final NiFiProperties nifiProperties) throws IOException {
@@ -252,6 +259,18 @@ public class FileSystemRepository implements ContentRepository {
 
         this.alwaysSync = Boolean.parseBoolean(nifiProperties.getProperty("nifi.content.repository.always.sync"));
         LOG.info("Initializing FileSystemRepository with 'Always Sync' set to {}", alwaysSync);
+
+        if (Boolean.parseBoolean(nifiProperties.getProperty(NiFiProperties.CONTENT_REPOSITORY_MAPPED_READS_ENABLED))) {
+            final String maxMappedSize = nifiProperties.getProperty(NiFiProperties.CONTENT_REPOSITORY_MAPPED_READS_MAX_SIZE, NiFiProperties.DEFAULT_CONTENT_REPOSITORY_MAPPED_READS_MAX_SIZE);
+            final long maxMappedBytes = DataUnit.parseDataSize(maxMappedSize, DataUnit.B).longValue();
+
+            // Resource Claims that hold many small FlowFiles are sealed shortly after they exceed the max appendable claim length. Larger Resource Claims
+            // generally hold a single large FlowFile, which gains little from being mapped, so we do not map those.
+            this.mappedClaimCache = new MappedResourceClaimCache(maxMappedBytes, maxAppendableClaimLength * 2);
+            LOG.info("Reads of sealed Resource Claims will be served from memory mappings, with a maximum of {} mapped at any time", maxMappedSize);
+        } else {
+            this.mappedClaimCache = null;
+        }
         initializeRepository();
 
         containerCleanupExecutor = new FlowEngine(containers.size(), "Cleanup FileSystemRepository Container", true);
@@ -284,6 +303,10 @@ public class FileSystemRepository implements ContentRepository {
         executor.shutdown();
         containerCleanupExecutor.shutdown();
 
+        if (mappedClaimCache != null) {
+            mappedClaimCache.clear();
+        }
+
         // Close any of the writable claim streams that are currently open.
         // Other threads may be writing to these streams, and that's okay.
         // If that happens, we will simply close the stream, resulting in an
@@ -726,6 +749,10 @@ public class FileSystemRepository implements ContentRepository {
         // Ensure that we have no writable claim streams for this resource claim
         final ByteCountingOutputStream bcos = writableClaimStreams.remove(claim);
 
+        if (mappedClaimCache != null) {
+            mappedClaimCache.invalidate(claim);
+        }
+
         if (bcos != null) {
             try {
                 bcos.close();
@@ -922,6 +949,11 @@ public class FileSystemRepository implements ContentRepository {
             return new ByteArrayInputStream(new byte[0]);
         }
 
+        final ByteBuffer mappedView = getMappedView(claim);
+        if (mappedView != null) {
+            return new ByteBufferInputStream(mappedView);
+        }
+
         final InputStream fis = getInputStream(claim);
         if (claim.getOffset() > 0L) {
             try {
@@ -960,6 +992,45 @@ public class FileSystemRepository implements ContentRepository {
         }
     }
 
+    @Override
+    public Optional<FileChannel> openFileChannel(final ContentClaim claim) throws IOException {
+        if (claim == null) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(FileChannel.open(getPath(claim, true), StandardOpenOption.READ));
+        } catch (final NoSuchFileException nsfe) {
+            // The claim may have been archived after its path was resolved
+            throw new ContentNotFoundException(claim, nsfe);
+        }
+    }
+
+    /**
+     * Returns a read-only view of the given Content Claim from a memory mapping of its Resource Claim, if memory-mapped reads are enabled and the Content Claim
+     * is eligible. Only Resource Claims that will no longer be written to are mapped, since the length of a mapping is fixed when it is created.
+     *
+     * @param claim the Content Claim
+     * @return a read-only view of the Content Claim's content, or <code>null</code> if the content must be read via a stream
+     */
+    private ByteBuffer getMappedView(final ContentClaim claim) throws IOException {
+        if (mappedClaimCache == null || claim.getLength() < 0) {
+            return null;
+        }
+
+        final ResourceClaim resourceClaim = claim.getResourceClaim();
+        if (resourceClaim.isWritable()) {
+            return null;
+        }
+
+        final Path path = getPath(resourceClaim);
+        if (path == null) {
+            return null;
+        }
+
+        return mappedClaimCache.getView(resourceClaim, path, claim.getOffset(), claim.getLength());
+    }
+
     private void closeQuietly(final Closeable closeable) {
         if (closeable == null) {
             return;
@@ -1143,6 +1214,10 @@ public class FileSystemRepository implements ContentRepository {
             }
         }
 
+        if (mappedClaimCache != null) {
+            mappedClaimCache.invalidate(claim);
+        }
+
         final Path curPath = getPath(claim);
         if (curPath == null) {
             return false;
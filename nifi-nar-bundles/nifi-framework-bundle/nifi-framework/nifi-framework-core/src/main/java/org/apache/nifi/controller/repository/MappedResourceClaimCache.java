@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * A bounded cache of read-only memory mappings of Resource Claims, keyed by Resource Claim. Only Resource Claims that are no longer
+ * writable should be mapped, since the mapping is created once and then shared by all readers of the Resource Claim.
+ * </p>
+ *
+ * <p>
+ * When the total number of mapped bytes exceeds the configured maximum, the least recently used mappings are evicted. Evicting a mapping
+ * only removes it from the cache: any reader that still holds a buffer obtained from the mapping can continue to use it, and the mapping
+ * is released once no buffer references it any longer.
+ * </p>
+ */
+class MappedResourceClaimCache {
+    private static final Logger logger = LoggerFactory.getLogger(MappedResourceClaimCache.class);
+
+    private final long maxMappedBytes;
+    private final long maxMappingSize;
+
+    // guarded by synchronizing on 'this'
+    private final Map<ResourceClaim, MappedByteBuffer> mappings = new LinkedHashMap<>(16, 0.75F, true);
+    private long mappedBytes = 0L;
+
+    /**
+     * @param maxMappedBytes the maximum number of bytes that may be held in the cache
+     * @param maxMappingSize the largest Resource Claim that will be mapped
+     */
+    MappedResourceClaimCache(final long maxMappedBytes, final long maxMappingSize) {
+        this.maxMappedBytes = maxMappedBytes;
+        this.maxMappingSize = Math.min(Math.min(maxMappingSize, maxMappedBytes), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns a read-only view of the given range of the Resource Claim, mapping the Resource Claim into memory if it is not already mapped
+     *
+     * @param resourceClaim the Resource Claim
+     * @param path the path of the file that holds the Resource Claim's content
+     * @param offset the offset into the Resource Claim
+     * @param length the number of bytes that the view should contain
+     * @return a read-only ByteBuffer containing exactly the requested range, or <code>null</code> if the range cannot be served from a mapping
+     * @throws IOException if unable to map the file
+     */
+    ByteBuffer getView(final ResourceClaim resourceClaim, final Path path, final long offset, final long length) throws IOException {
+        MappedByteBuffer mapping;
+        synchronized (this) {
+            mapping = mappings.get(resourceClaim);
+        }
+
+        if (mapping == null) {
+            mapping = map(path);
+            if (mapping == null) {
+                return null;
+            }
+
+            mapping = cache(resourceClaim, mapping);
+        }
+
+        if (offset < 0 || length < 0 || offset + length > mapping.capacity()) {
+            return null;
+        }
+
+        final ByteBuffer view = mapping.asReadOnlyBuffer();
+        view.position((int) offset);
+        view.limit((int) (offset + length));
+        return view.slice();
+    }
+
+    private MappedByteBuffer map(final Path path) throws IOException {
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long fileSize = channel.size();
+            if (fileSize == 0 || fileSize > maxMappingSize) {
+                return null;
+            }
+
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        } catch (final NoSuchFileException nsfe) {
+            // File may have been archived. The caller will fall back to reading the file via a stream.
+            return null;
+        }
+    }
+
+    private synchronized MappedByteBuffer cache(final ResourceClaim resourceClaim, final MappedByteBuffer mapping) {
+        final MappedByteBuffer existing = mappings.get(resourceClaim);
+        if (existing != null) {
+            return existing;
+        }
+
+        mappings.put(resourceClaim, mapping);
+        mappedBytes += mapping.capacity();
+
+        final Iterator<Map.Entry<ResourceClaim, MappedByteBuffer>> itr = mappings.entrySet().iterator();
+        while (mappedBytes > maxMappedBytes && itr.hasNext()) {
+            final Map.Entry<ResourceClaim, MappedByteBuffer> eldest = itr.next();
+            if (eldest.getKey().equals(resourceClaim)) {
+                continue;
+            }
+
+            itr.remove();
+            mappedBytes -= eldest.getValue().capacity();
+            logger.trace("Evicted mapping of {} from cache", eldest.getKey());
+        }
+
+        return mapping;
+    }
+
+    /**
+     * Removes any mapping of the given Resource Claim from the cache. This should be called whenever the Resource Claim is destroyed or archived.
+     *
+     * @param resourceClaim the Resource Claim
+     */
+    synchronized void invalidate(final ResourceClaim resourceClaim) {
+        final MappedByteBuffer removed = mappings.remove(resourceClaim);
+        if (removed != null) {
+            mappedBytes -= removed.capacity();
+        }
+    }
+
+    synchronized long getMappedBytes() {
+        return mappedBytes;
+    }
+
+    synchronized int getMappingCount() {
+        return mappings.size();
+    }
+
+    synchronized void clear() {
+        mappings.clear();
+        mappedBytes = 0L;
+    }
+}
@@ -27,6 +27,7 @@ import org.apache.nifi.repository.schema.FieldCache;
 import org.apache.nifi.util.FormatUtils;
 import org.apache.nifi.util.NiFiProperties;
 import org.apache.nifi.wali.EncryptedSequentialAccessWriteAheadLog;
+import org.apache.nifi.wali.LongKeyedDeltaSnapshot;
 import org.apache.nifi.wali.SequentialAccessWriteAheadLog;
 import org.apache.nifi.wali.SnapshotCapture;
 import org.slf4j.Logger;
@@ -90,14 +91,18 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
     private static final String WRITE_AHEAD_LOG_IMPL = "nifi.flowfile.repository.wal.implementation";
     private static final String RETAIN_ORPHANED_FLOWFILES = "nifi.flowfile.repository.retain.orphaned.flowfiles";
     private static final String FLOWFILE_REPO_CACHE_SIZE = "nifi.flowfile.repository.wal.cache.characters";
+    private static final String WRITE_AHEAD_LOG_SNAPSHOT_IMPL = "nifi.flowfile.repository.wal.snapshot.implementation";
 
     static final String SEQUENTIAL_ACCESS_WAL = "org.apache.nifi.wali.SequentialAccessWriteAheadLog";
     static final String ENCRYPTED_SEQUENTIAL_ACCESS_WAL = "org.apache.nifi.wali.EncryptedSequentialAccessWriteAheadLog";
     private static final String MINIMAL_LOCKING_WALI = "org.wali.MinimalLockingWriteAheadLog";
     private static final String DEFAULT_WAL_IMPLEMENTATION = SEQUENTIAL_ACCESS_WAL;
+    static final String HASH_MAP_SNAPSHOT = "org.apache.nifi.wali.HashMapSnapshot";
+    static final String LONG_KEYED_DELTA_SNAPSHOT = "org.apache.nifi.wali.LongKeyedDeltaSnapshot";
     private static final int DEFAULT_CACHE_SIZE = 10_000_000;
 
     private final String walImplementation;
+    private final String walSnapshotImplementation;
     protected final NiFiProperties nifiProperties;
 
     private final AtomicLong flowFileSequenceGenerator = new AtomicLong(0L);
@@ -155,6 +160,7 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         checkpointDelayMillis = 0L;
         checkpointExecutor = null;
         walImplementation = null;
+        walSnapshotImplementation = null;
         nifiProperties = null;
         retainOrphanedFlowFiles = true;
         maxCharactersToCache = 0;
@@ -173,6 +179,9 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
             writeAheadLogImpl = DEFAULT_WAL_IMPLEMENTATION;
         }
         this.walImplementation = writeAheadLogImpl;
+
+        final String snapshotImpl = nifiProperties.getProperty(WRITE_AHEAD_LOG_SNAPSHOT_IMPL);
+        this.walSnapshotImplementation = (snapshotImpl == null || snapshotImpl.trim().isEmpty()) ? HASH_MAP_SNAPSHOT : snapshotImpl.trim();
         this.maxCharactersToCache = nifiProperties.getIntegerProperty(FLOWFILE_REPO_CACHE_SIZE, DEFAULT_CACHE_SIZE);
 
         // We used to use one implementation (minimal locking) of the write-ahead log, but we now want to use the other
@@ -245,7 +254,15 @@ public class WriteAheadFlowFileRepository implements FlowFileRepository, SyncLis
         // The specified implementation can be plaintext or encrypted; the only difference is the serde factory
         if (isSequentialAccessWAL(walImplementation)) {
             // TODO: May need to instantiate ESAWAL for clarity?
-            wal = new SequentialAccessWriteAheadLog<>(flowFileRepositoryPaths.get(0), serdeFactory, this);
+            final File walDirectory = flowFileRepositoryPaths.get(0);
+            if (walSnapshotImplementation.equals(LONG_KEYED_DELTA_SNAPSHOT)) {
+                wal = new SequentialAccessWriteAheadLog<>(walDirectory, serdeFactory, this, new LongKeyedDeltaSnapshot<>(walDirectory, serdeFactory));
+            } else if (walSnapshotImplementation.equals(HASH_MAP_SNAPSHOT)) {
+                wal = new SequentialAccessWriteAheadLog<>(walDirectory, serdeFactory, this);
+            } else {
+                throw new IllegalStateException("Cannot create Write-Ahead Log because the configured property '" + WRITE_AHEAD_LOG_SNAPSHOT_IMPL + "' has an invalid value of '"
+                        + walSnapshotImplementation + "'. Please update nifi.properties to indicate a valid value for this property.");
+            }
         } else if (walImplementation.equals(MINIMAL_LOCKING_WALI)) {
             final SortedSet<Path> paths = flowFileRepositoryPaths.stream()
                     .map(File::toPath)
@@ -40,8 +40,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * This class is an implementation of the {@link FileSystemRepository} content repository which provides transparent
@@ -166,6 +168,17 @@ public class EncryptedFileSystemRepository extends FileSystemRepository {
         return false;
     }
 
+    /**
+     * Content is encrypted on disk, so a channel over the stored bytes cannot be provided
+     *
+     * @param claim the content claim to read
+     * @return an empty Optional
+     */
+    @Override
+    public Optional<FileChannel> openFileChannel(final ContentClaim claim) {
+        return Optional.empty();
+    }
+
     /**
      * Returns an InputStream (actually a {@link javax.crypto.CipherInputStream}) which wraps
      * the {@link java.io.FileInputStream} from the content repository claim on disk. This
@@ -16,6 +16,7 @@
  */
 package org.apache.nifi.controller.scheduling;
 
+import org.apache.nifi.annotation.behavior.IOBound;
 import org.apache.nifi.connectable.Connectable;
 import org.apache.nifi.controller.FlowController;
 import org.apache.nifi.controller.ReportingTaskNode;
@@ -35,10 +36,21 @@ import java.util.concurrent.atomic.AtomicReference;
 
 public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent {
     private final long noWorkYieldNanos;
+    private final FlowEngine ioBoundFlowEngine;
 
     public TimerDrivenSchedulingAgent(final FlowController flowController, final FlowEngine flowEngine, final RepositoryContextFactory contextFactory,
             final PropertyEncryptor encryptor, final NiFiProperties nifiProperties) {
+        this(flowController, flowEngine, null, contextFactory, encryptor, nifiProperties);
+    }
+
+    /**
+     * Creates a scheduling agent that runs components annotated with {@link IOBound} on the given I/O-bound engine and all other components
+     * on the given flow engine. If the I/O-bound engine is <code>null</code>, all components run on the flow engine.
+     */
+    public TimerDrivenSchedulingAgent(final FlowController flowController, final FlowEngine flowEngine, final FlowEngine ioBoundFlowEngine,
+            final RepositoryContextFactory contextFactory, final PropertyEncryptor encryptor, final NiFiProperties nifiProperties) {
         super(flowEngine, flowController, contextFactory, encryptor);
+        this.ioBoundFlowEngine = ioBoundFlowEngine;
 
         final String boredYieldDuration = nifiProperties.getBoredYieldDuration();
         try {
@@ -51,6 +63,9 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
     @Override
     public void shutdown() {
         flowEngine.shutdown();
+        if (ioBoundFlowEngine != null) {
+            ioBoundFlowEngine.shutdown();
+        }
     }
 
     @Override
@@ -70,15 +85,16 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
     public void doSchedule(final Connectable connectable, final LifecycleState scheduleState) {
         final List<ScheduledFuture<?>> futures = new ArrayList<>();
         final ConnectableTask connectableTask = new ConnectableTask(this, connectable, flowController, contextFactory, scheduleState, encryptor);
+        final FlowEngine engine = getFlowEngine(connectable);
 
         for (int i = 0; i < connectable.getMaxConcurrentTasks(); i++) {
             // Determine the task to run and create it.
             final AtomicReference<ScheduledFuture<?>> futureRef = new AtomicReference<>();
 
-            final Runnable trigger = createTrigger(connectableTask, scheduleState, futureRef);
+            final Runnable trigger = createTrigger(connectableTask, scheduleState, futureRef, engine);
 
             // Schedule the task to run
-            final ScheduledFuture<?> future = flowEngine.scheduleWithFixedDelay(trigger, 0L,
+            final ScheduledFuture<?> future = engine.scheduleWithFixedDelay(trigger, 0L,
                 connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
 
             // now that we have the future, set the atomic reference so that if the component is yielded we
@@ -90,10 +106,32 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
         }
 
         scheduleState.setFutures(futures);
-        logger.info("Scheduled {} to run with {} threads", connectable, connectable.getMaxConcurrentTasks());
+        if (engine == ioBoundFlowEngine) {
+            logger.info("Scheduled {} to run with {} threads from the I/O-bound thread pool", connectable, connectable.getMaxConcurrentTasks());
+        } else {
+            logger.info("Scheduled {} to run with {} threads", connectable, connectable.getMaxConcurrentTasks());
+        }
+    }
+
+    /**
+     * Returns the engine that the given component should run on. Components whose implementation is annotated with {@link IOBound} run on the
+     * dedicated I/O-bound engine, if one has been configured, so that threads blocked waiting on external systems do not starve other components.
+     */
+    FlowEngine getFlowEngine(final Connectable connectable) {
+        if (ioBoundFlowEngine == null) {
+            return flowEngine;
+        }
+
+        final Object runnableComponent = connectable.getRunnableComponent();
+        if (runnableComponent != null && runnableComponent.getClass().isAnnotationPresent(IOBound.class)) {
+            return ioBoundFlowEngine;
+        }
+
+        return flowEngine;
     }
 
-    private Runnable createTrigger(final ConnectableTask connectableTask, final LifecycleState scheduleState, final AtomicReference<ScheduledFuture<?>> futureRef) {
+    private Runnable createTrigger(final ConnectableTask connectableTask, final LifecycleState scheduleState, final AtomicReference<ScheduledFuture<?>> futureRef,
+                                   final FlowEngine engine) {
         final Connectable connectable = connectableTask.getConnectable();
         final Runnable yieldDetectionRunnable = new Runnable() {
             @Override
@@ -126,7 +164,7 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
                         synchronized (scheduleState) {
                             if (scheduleState.isScheduled()) {
                                 final long schedulingNanos = connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS);
-                                final ScheduledFuture<?> newFuture = flowEngine.scheduleWithFixedDelay(this, yieldNanos, schedulingNanos, TimeUnit.NANOSECONDS);
+                                final ScheduledFuture<?> newFuture = engine.scheduleWithFixedDelay(this, yieldNanos, schedulingNanos, TimeUnit.NANOSECONDS);
 
                                 scheduleState.replaceFuture(scheduledFuture, newFuture);
                                 futureRef.set(newFuture);
@@ -147,7 +185,7 @@ public class TimerDrivenSchedulingAgent extends AbstractTimeBasedSchedulingAgent
                     if (scheduledFuture.cancel(false)) {
                         synchronized (scheduleState) {
                             if (scheduleState.isScheduled()) {
-                                final ScheduledFuture<?> newFuture = flowEngine.scheduleWithFixedDelay(this, noWorkYieldNanos,
+                                final ScheduledFuture<?> newFuture = engine.scheduleWithFixedDelay(this, noWorkYieldNanos,
                                     connectable.getSchedulingPeriod(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
 
                                 scheduleState.replaceFuture(scheduledFuture, newFuture);
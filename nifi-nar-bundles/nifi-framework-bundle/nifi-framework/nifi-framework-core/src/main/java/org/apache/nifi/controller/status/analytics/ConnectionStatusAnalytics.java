@@ -57,6 +57,7 @@ public class ConnectionStatusAnalytics implements StatusAnalytics {
     private String scoreName = "rSquared";
     private double scoreThreshold = .90;
     private Map<String, Long> predictions;
+    private volatile long lastRefreshTimeMillis = 0L;
 
     private static String TIME_TO_BYTE_BACKPRESSURE_MILLIS = "timeToBytesBackpressureMillis";
     private static String TIME_TO_COUNT_BACKPRESSURE_MILLIS = "timeToCountBackpressureMillis";
@@ -88,11 +89,14 @@ public class ConnectionStatusAnalytics implements StatusAnalytics {
             this.queryWindow = new QueryWindow(System.currentTimeMillis() - getQueryIntervalMillis(), System.currentTimeMillis());
         }
 
+        // All models are trained from the same observations, so the status history is queried once
+        final StatusHistory statusHistory = statusHistoryRepository.getConnectionStatusHistory(connectionIdentifier, queryWindow.getStartDateTime(),
+            queryWindow.getEndDateTime(), Integer.MAX_VALUE);
+
         modelMap.forEach((metric, modelFunction) -> {
 
             StatusAnalyticsModel model = modelFunction.getKey();
             StatusMetricExtractFunction extract = modelFunction.getValue();
-            StatusHistory statusHistory = statusHistoryRepository.getConnectionStatusHistory(connectionIdentifier, queryWindow.getStartDateTime(), queryWindow.getEndDateTime(), Integer.MAX_VALUE);
             Tuple<Stream<Double[]>, Stream<Double>> modelData = extract.extractMetric(metric, statusHistory);
             Double[][] features = modelData.getKey().toArray(size -> new Double[size][1]);
             Double[] values = modelData.getValue().toArray(size -> new Double[size]);
@@ -118,6 +122,15 @@ public class ConnectionStatusAnalytics implements StatusAnalytics {
             }
 
         });
+
+        lastRefreshTimeMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * @return the time at which the models were last refreshed, or 0 if they have not been refreshed
+     */
+    public long getLastRefreshTimeMillis() {
+        return lastRefreshTimeMillis;
     }
 
     protected StatusAnalyticsModel getModel(String modelType){
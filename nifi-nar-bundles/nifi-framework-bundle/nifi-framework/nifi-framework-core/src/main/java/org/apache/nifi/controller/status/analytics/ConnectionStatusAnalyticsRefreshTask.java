@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.status.analytics;
+
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.flow.FlowManager;
+import org.apache.nifi.controller.repository.FlowFileEventRepository;
+import org.apache.nifi.controller.repository.RepositoryStatusReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * Periodically updates the back pressure predictions of all connections, using the given executor to process connections concurrently.
+ * </p>
+ *
+ * <p>
+ * A connection's models are trained only from status history, so they are retrained only after a new status snapshot has been captured,
+ * as signaled by {@link #onStatusHistoryCaptured()}. When a sample size is configured, at most that many connections are retrained each time
+ * the task runs, starting with the connections whose models were least recently trained. Predictions are updated for every connection each
+ * time the task runs, using each connection's current models.
+ * </p>
+ */
+public class ConnectionStatusAnalyticsRefreshTask implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(ConnectionStatusAnalyticsRefreshTask.class);
+
+    private final StatusAnalyticsEngine analyticsEngine;
+    private final FlowManager flowManager;
+    private final FlowFileEventRepository flowFileEventRepository;
+    private final ExecutorService executor;
+    private final int sampleSize;
+
+    private volatile long lastCaptureTimeMillis = 0L;
+
+    /**
+     * @param analyticsEngine the engine providing each connection's analytics
+     * @param flowManager the flow manager used to find connections
+     * @param flowFileEventRepository the repository providing the transfer events used for predictions
+     * @param executor the executor used to process connections
+     * @param sampleSize the maximum number of connections whose models are retrained each time the task runs, or 0 to retrain all connections
+     */
+    public ConnectionStatusAnalyticsRefreshTask(final StatusAnalyticsEngine analyticsEngine, final FlowManager flowManager, final FlowFileEventRepository flowFileEventRepository,
+                                                final ExecutorService executor, final int sampleSize) {
+        this.analyticsEngine = analyticsEngine;
+        this.flowManager = flowManager;
+        this.flowFileEventRepository = flowFileEventRepository;
+        this.executor = executor;
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * Indicates that a new status snapshot has been captured, so models should be retrained with the new observations
+     */
+    public void onStatusHistoryCaptured() {
+        lastCaptureTimeMillis = System.currentTimeMillis();
+    }
+
+    @Override
+    public void run() {
+        try {
+            final long startTs = System.currentTimeMillis();
+            final RepositoryStatusReport statusReport = flowFileEventRepository.reportTransferEvents(startTs);
+
+            final List<ConnectionStatusAnalytics> analytics = new ArrayList<>();
+            for (final Connection connection : flowManager.findAllConnections()) {
+                analytics.add((ConnectionStatusAnalytics) analyticsEngine.getStatusAnalytics(connection.getIdentifier()));
+            }
+
+            final Set<ConnectionStatusAnalytics> toRefresh = selectAnalyticsToRefresh(analytics);
+
+            final List<Callable<Void>> tasks = new ArrayList<>(analytics.size());
+            for (final ConnectionStatusAnalytics connectionStatusAnalytics : analytics) {
+                final boolean refresh = toRefresh.contains(connectionStatusAnalytics);
+                tasks.add(() -> {
+                    if (refresh) {
+                        connectionStatusAnalytics.refresh();
+                    }
+                    connectionStatusAnalytics.loadPredictions(statusReport);
+                    return null;
+                });
+            }
+
+            final List<Future<Void>> futures = executor.invokeAll(tasks);
+            for (final Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (final ExecutionException e) {
+                    LOG.error("Failed to generate predictions", e.getCause());
+                }
+            }
+
+            final long endTs = System.currentTimeMillis();
+            LOG.debug("Time Elapsed for Prediction for loading all predictions: {}; retrained models for {} of {} connections", endTs - startTs, toRefresh.size(), analytics.size());
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (final Exception e) {
+            LOG.error("Failed to generate predictions", e);
+        }
+    }
+
+    private Set<ConnectionStatusAnalytics> selectAnalyticsToRefresh(final List<ConnectionStatusAnalytics> analytics) {
+        final long captureTime = lastCaptureTimeMillis;
+
+        final List<ConnectionStatusAnalytics> stale = new ArrayList<>();
+        for (final ConnectionStatusAnalytics connectionStatusAnalytics : analytics) {
+            final long lastRefreshTime = connectionStatusAnalytics.getLastRefreshTimeMillis();
+            if (lastRefreshTime == 0L || lastRefreshTime < captureTime) {
+                stale.add(connectionStatusAnalytics);
+            }
+        }
+
+        if (sampleSize > 0 && stale.size() > sampleSize) {
+            stale.sort(Comparator.comparingLong(ConnectionStatusAnalytics::getLastRefreshTimeMillis));
+            return new HashSet<>(stale.subList(0, sampleSize));
+        }
+
+        return new HashSet<>(stale);
+    }
+}
@@ -22,13 +22,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
-import org.apache.nifi.controller.status.history.StatusHistoryUtil;
+import org.apache.nifi.controller.status.history.MetricDescriptor;
+import org.apache.nifi.controller.status.history.StatusSnapshot;
 import org.apache.nifi.nar.ExtensionManager;
 import org.apache.nifi.nar.NarThreadContextClassLoader;
 import org.apache.nifi.util.NiFiProperties;
 import org.apache.nifi.util.Tuple;
-import org.apache.nifi.web.api.dto.status.StatusHistoryDTO;
-import org.apache.nifi.web.api.dto.status.StatusSnapshotDTO;
 
 /**
  * <p>
@@ -96,25 +95,25 @@ public class StatusAnalyticsModelMapFactory {
             List<Double> values = new ArrayList<>();
             List<Double[]> features = new ArrayList<>();
             Random rand = new Random();
-            StatusHistoryDTO statusHistoryDTO = StatusHistoryUtil.createStatusHistoryDTO(statusHistory);
 
-            for (StatusSnapshotDTO snap : statusHistoryDTO.getAggregateSnapshots()) {
+            // Metrics are read from the snapshots directly rather than from a StatusHistoryDTO, avoiding a copy of every metric of every snapshot
+            for (StatusSnapshot snap : statusHistory.getStatusSnapshots()) {
                 List<Double> featureArray = new ArrayList<>();
-                Long snapValue = snap.getStatusMetrics().get(metric);
+                long snapValue = getStatusMetric(snap, metric);
                 long snapTime = snap.getTimestamp().getTime();
 
                 featureArray.add((double) snapTime);
                 Double randomError = +(rand.nextInt(1000) * .0000001);
                 if (metric.equals(QUEUED_COUNT_METRIC)) {
 
-                    Long inputCount = snap.getStatusMetrics().get(INPUT_COUNT_METRIC);
-                    Long outputCount = snap.getStatusMetrics().get(OUTPUT_COUNT_METRIC);
+                    long inputCount = getStatusMetric(snap, INPUT_COUNT_METRIC);
+                    long outputCount = getStatusMetric(snap, OUTPUT_COUNT_METRIC);
                     Double inOutRatio = ((double) outputCount / (double) inputCount) + randomError;
                     featureArray.add(Double.isNaN(inOutRatio) ? randomError : inOutRatio);
 
                 } else {
-                    Long inputBytes = snap.getStatusMetrics().get(INPUT_BYTES_METRIC);
-                    Long outputBytes = snap.getStatusMetrics().get(OUTPUT_BYTES_METRIC);
+                    long inputBytes = getStatusMetric(snap, INPUT_BYTES_METRIC);
+                    long outputBytes = getStatusMetric(snap, OUTPUT_BYTES_METRIC);
                     Double inOutRatio = ((double) outputBytes / (double) inputBytes) + randomError;
                     featureArray.add(Double.isNaN(inOutRatio) ? randomError : inOutRatio);
                 }
@@ -128,5 +127,16 @@ public class StatusAnalyticsModelMapFactory {
         };
     }
 
+    private static long getStatusMetric(final StatusSnapshot snapshot, final String field) {
+        for (final MetricDescriptor<?> descriptor : snapshot.getMetricDescriptors()) {
+            if (descriptor.getField().equals(field)) {
+                final Long value = snapshot.getStatusMetric(descriptor);
+                return value == null ? 0L : value;
+            }
+        }
+
+        return 0L;
+    }
+
 
 }
@@ -41,6 +41,7 @@ import org.apache.nifi.controller.status.history.storage.questdb.QuestDbNodeStat
 import org.apache.nifi.controller.status.history.storage.questdb.QuestDbProcessGroupStatusStorage;
 import org.apache.nifi.controller.status.history.storage.questdb.QuestDbProcessorStatusStorage;
 import org.apache.nifi.controller.status.history.storage.questdb.QuestDbRemoteProcessGroupStatusStorage;
+import org.apache.nifi.util.ComponentMetrics;
 import org.apache.nifi.util.NiFiProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,11 +49,12 @@ import org.slf4j.LoggerFactory;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -62,6 +64,7 @@ public class EmbeddedQuestDbStatusHistoryRepository implements StatusHistoryRepo
     private static final int PERSIST_BATCH_SIZE = 1000;
     private static final long PERSIST_FREQUENCY = TimeUnit.MILLISECONDS.convert(5, TimeUnit.SECONDS);
     private static final long ROLL_FREQUENCY = TimeUnit.MILLISECONDS.convert(10, TimeUnit.MINUTES);
+    private static final int PARALLEL_CAPTURE_THRESHOLD = 64;
 
 
     private final InMemoryComponentDetailsStorage componentDetailsProvider = new InMemoryComponentDetailsStorage();
@@ -182,8 +185,22 @@ public class EmbeddedQuestDbStatusHistoryRepository implements StatusHistoryRepo
     }
 
     private void captureComponentLevelStatus(final ProcessGroupStatus rootGroupStatus, final Instant capturedAt) {
-        captureComponents(rootGroupStatus, capturedAt);
-        updateComponentDetails(rootGroupStatus);
+        final List<ProcessGroupStatus> groupStatuses = new ArrayList<>();
+        addGroupStatuses(rootGroupStatus, groupStatuses);
+
+        // Note: details of deleted components will not be maintained (thus they are not reachable), but their status
+        // information is stored in the database until rolled out.
+        final Map<String, ComponentDetails> componentDetails = new ConcurrentHashMap<>();
+
+        // The buffered writers are backed by concurrent queues, so the components of separate groups can be collected concurrently
+        if (groupStatuses.size() < PARALLEL_CAPTURE_THRESHOLD) {
+            groupStatuses.forEach(groupStatus -> captureGroup(groupStatus, capturedAt, componentDetails));
+        } else {
+            groupStatuses.parallelStream().forEach(groupStatus -> captureGroup(groupStatus, capturedAt, componentDetails));
+        }
+
+        // Before the first capture, there will be no component detail provided!
+        componentDetailsProvider.setComponentDetails(componentDetails);
     }
 
     private void captureNodeLevelStatus(final NodeStatus nodeStatus, final List<GarbageCollectionStatus> garbageCollectionStatus, final Instant capturedAt) {
@@ -191,33 +208,41 @@ public class EmbeddedQuestDbStatusHistoryRepository implements StatusHistoryRepo
         garbageCollectionStatus.forEach(s -> garbageCollectionStatusWriter.collect(new ImmutablePair<>(capturedAt, s)));
     }
 
-    private void captureComponents(final ProcessGroupStatus groupStatus, final Instant capturedAt) {
-        processGroupStatusWriter.collect(new ImmutablePair<>(capturedAt, groupStatus));
-        groupStatus.getConnectionStatus().forEach(s -> connectionStatusWriter.collect(new ImmutablePair<>(capturedAt, s)));
-        groupStatus.getRemoteProcessGroupStatus().forEach(s -> remoteProcessGroupStatusWriter.collect(new ImmutablePair<>(capturedAt, s)));
-        groupStatus.getProcessorStatus().forEach(s -> processorStatusWriter.collect(new ImmutablePair<>(capturedAt, s)));
-        groupStatus.getProcessGroupStatus().forEach(childGroupStatus -> captureComponents(childGroupStatus, capturedAt));
+    private void addGroupStatuses(final ProcessGroupStatus groupStatus, final List<ProcessGroupStatus> groupStatuses) {
+        groupStatuses.add(groupStatus);
+        groupStatus.getProcessGroupStatus().forEach(childGroupStatus -> addGroupStatuses(childGroupStatus, groupStatuses));
     }
 
     /**
-     * Before the first capture, there will be no component detail provided!
-     *
-     * @param groupStatus Updates component details for components within the group, including the group itself.
+     * Collects the status of the components within the group, including the group itself. The status of a component without
+     * activity is not collected, as the storages complete the status history with empty snapshots for the captures it is missing from.
      */
-    private void updateComponentDetails(final ProcessGroupStatus groupStatus) {
-        // Note: details of deleted components will not be maintained (thus they are not reachable), but their status
-        // information is stored in the database until rolled out.
-        final Map<String, ComponentDetails> accumulator = new HashMap<>();
-        updateComponentDetails(groupStatus, accumulator);
-        componentDetailsProvider.setComponentDetails(accumulator);
-    }
+    private void captureGroup(final ProcessGroupStatus groupStatus, final Instant capturedAt, final Map<String, ComponentDetails> componentDetails) {
+        componentDetails.put(groupStatus.getId(), ComponentDetails.forProcessGroup(groupStatus));
+        if (!ComponentMetrics.isEmpty(groupStatus)) {
+            processGroupStatusWriter.collect(new ImmutablePair<>(capturedAt, groupStatus));
+        }
+
+        for (final ConnectionStatus status : groupStatus.getConnectionStatus()) {
+            componentDetails.put(status.getId(), ComponentDetails.forConnection(status));
+            if (!ComponentMetrics.isEmpty(status)) {
+                connectionStatusWriter.collect(new ImmutablePair<>(capturedAt, status));
+            }
+        }
+
+        for (final RemoteProcessGroupStatus status : groupStatus.getRemoteProcessGroupStatus()) {
+            componentDetails.put(status.getId(), ComponentDetails.forRemoteProcessGroup(status));
+            if (!ComponentMetrics.isEmpty(status)) {
+                remoteProcessGroupStatusWriter.collect(new ImmutablePair<>(capturedAt, status));
+            }
+        }
 
-    private void updateComponentDetails(final ProcessGroupStatus groupStatus, final Map<String, ComponentDetails> accumulator) {
-        accumulator.put(groupStatus.getId(), ComponentDetails.forProcessGroup(groupStatus));
-        groupStatus.getConnectionStatus().forEach(status -> accumulator.put(status.getId(), ComponentDetails.forConnection(status)));
-        groupStatus.getRemoteProcessGroupStatus().forEach(status -> accumulator.put(status.getId(), ComponentDetails.forRemoteProcessGroup(status)));
-        groupStatus.getProcessorStatus().forEach(status -> accumulator.put(status.getId(), ComponentDetails.forProcessor(status)));
-        groupStatus.getProcessGroupStatus().forEach(childGroupStatus -> updateComponentDetails(childGroupStatus, accumulator));
+        for (final ProcessorStatus status : groupStatus.getProcessorStatus()) {
+            componentDetails.put(status.getId(), ComponentDetails.forProcessor(status));
+            if (!ComponentMetrics.isEmpty(status)) {
+                processorStatusWriter.collect(new ImmutablePair<>(capturedAt, status));
+            }
+        }
     }
 
     @Override
@@ -14,21 +14,32 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
+
 package org.apache.nifi.controller.status.history;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+/**
+ * Holds the most recent status snapshots of a single component. Rather than retaining a {@link StatusSnapshot} for each capture, the buffer
+ * holds the value of each metric in a primitive column and creates snapshots only when the history is read.
+ */
 public class MetricRollingBuffer {
+    private static final int INITIAL_SIZE = 16;
+    private static final int GROWTH_INCREMENT = 64;
+
     private final int capacity;
 
-    private StatusSnapshot[] snapshots;
-    private int writeIndex = 0;
-    private int readIndex;
-    private boolean readExhausted;
+    private Set<MetricDescriptor<?>> metricDescriptors;
+    private long[] timestamps;
+    private long[][] values;
+    private Map<MetricDescriptor<?>, Long>[] counterValues;
+    private int start = 0;
     private int count = 0;
 
     public MetricRollingBuffer(final int maxCapacity) {
@@ -40,23 +51,33 @@ public class MetricRollingBuffer {
             return;
         }
 
-        if (snapshots == null) {
-            snapshots = new StatusSnapshot[Math.min(capacity, 16)];
+        final Set<MetricDescriptor<?>> snapshotDescriptors = snapshot.withoutCounters().getMetricDescriptors();
+        if (timestamps == null || (snapshotDescriptors != metricDescriptors && !snapshotDescriptors.equals(metricDescriptors))) {
+            // The metrics of a component do not change, so this happens only for the first snapshot or after all snapshots have expired
+            initialize(snapshotDescriptors);
         }
 
-        if (snapshots[writeIndex] == null) {
-            count++;
+        if (count == timestamps.length) {
+            if (timestamps.length < capacity) {
+                resize(Math.min(capacity, timestamps.length + GROWTH_INCREMENT));
+            } else {
+                // Overwrite the oldest snapshot
+                clearCounters(start);
+                start = nextIndex(start);
+                count--;
+            }
         }
 
-        snapshots[writeIndex++] = snapshot;
+        final int index = (start + count) % timestamps.length;
+        timestamps[index] = snapshot.getTimestamp().getTime();
 
-        if (writeIndex >= snapshots.length) {
-            if (snapshots.length < capacity) {
-                grow();
-            } else {
-                writeIndex = 0;
-            }
+        for (final MetricDescriptor<?> descriptor : metricDescriptors) {
+            final Long value = snapshot.getStatusMetric(descriptor);
+            values[descriptor.getMetricIdentifier()][index] = value == null ? 0L : value;
         }
+
+        updateCounters(snapshot, index);
+        count++;
     }
 
     public int size() {
@@ -64,133 +85,141 @@ public class MetricRollingBuffer {
     }
 
     public void expireBefore(final Date date) {
-        if (snapshots == null) {
+        if (timestamps == null) {
             return;
         }
 
-        int readIndex = writeIndex;
-        for (int i=0; i < snapshots.length; i++) {
-            final StatusSnapshot snapshot = snapshots[readIndex];
-            if (snapshot == null) {
-                readIndex++;
-                if (readIndex >= snapshots.length) {
-                    readIndex = 0;
-                }
-
-                continue;
-            }
-
-            final Date snapshotTimestamp = snapshot.getTimestamp();
-            if (snapshotTimestamp.after(date)) {
-                break;
-            }
-
-            snapshots[readIndex] = null;
+        final long expirationTime = date.getTime();
+        while (count > 0 && timestamps[start] <= expirationTime) {
+            clearCounters(start);
+            start = nextIndex(start);
             count--;
-
-            readIndex++;
-            if (readIndex >= snapshots.length) {
-                readIndex = 0;
-            }
         }
 
-        if (count < snapshots.length / 4 || snapshots.length - count > 128) {
-            // If we're using less than 1/4 of the array or we have at least 128 null entries, compact.
-            compact();
+        if (count == 0) {
+            // Release the columns of components that have not been active for the entire retention period
+            release();
+        } else if (count < timestamps.length / 4 || timestamps.length - count > 128) {
+            // If we're using less than 1/4 of the array or we have at least 128 unused entries, compact.
+            resize(count + 1);
         }
     }
 
-    private void grow() {
-        final int initialSize = snapshots.length;
-        final int newSize = Math.min(capacity, snapshots.length + 64);
-        final StatusSnapshot[] newArray = new StatusSnapshot[newSize];
-        System.arraycopy(snapshots, 0, newArray, 0, snapshots.length);
-        snapshots = newArray;
-        writeIndex = initialSize;
-    }
+    public List<StatusSnapshot> getSnapshots(final List<Date> timestamps, final boolean includeCounters, final Set<MetricDescriptor<?>> defaultStatusMetrics) {
+        if (this.timestamps == null) {
+            return Collections.emptyList();
+        }
 
-    private void compact() {
-        final StatusSnapshot[] newArray = new StatusSnapshot[count + 1];
-        int insertionIndex = 0;
+        final List<StatusSnapshot> list = new ArrayList<>(timestamps.size());
 
-        int readIndex = writeIndex;
-        for (int i=0; i < snapshots.length; i++) {
-            final StatusSnapshot snapshot = snapshots[readIndex];
-            if (snapshot != null) {
-                newArray[insertionIndex++] = snapshot;
+        int readOffset = 0;
+        for (final Date timestamp : timestamps) {
+            final long time = timestamp.getTime();
+            while (readOffset < count && this.timestamps[(start + readOffset) % this.timestamps.length] < time) {
+                readOffset++;
             }
 
-            readIndex++;
-            if (readIndex >= snapshots.length) {
-                readIndex = 0;
+            if (readOffset < count && this.timestamps[(start + readOffset) % this.timestamps.length] == time) {
+                list.add(createSnapshot((start + readOffset) % this.timestamps.length, includeCounters));
+                readOffset++;
+            } else {
+                list.add(new EmptyStatusSnapshot(timestamp, defaultStatusMetrics));
             }
         }
 
-        snapshots = newArray;
-        writeIndex = count;
-        count = newArray.length - 1;
+        return list;
     }
 
-    public List<StatusSnapshot> getSnapshots(final List<Date> timestamps, final boolean includeCounters, final Set<MetricDescriptor<?>> defaultStatusMetrics) {
-        if (snapshots == null) {
-            return Collections.emptyList();
+    private StatusSnapshot createSnapshot(final int index, final boolean includeCounters) {
+        final StandardStatusSnapshot snapshot = new StandardStatusSnapshot(metricDescriptors);
+        snapshot.setTimestamp(new Date(timestamps[index]));
+
+        for (final MetricDescriptor<?> descriptor : metricDescriptors) {
+            snapshot.addStatusMetric(descriptor, values[descriptor.getMetricIdentifier()][index]);
         }
 
-        final List<StatusSnapshot> list = new ArrayList<>(snapshots.length);
+        if (includeCounters && counterValues != null && counterValues[index] != null) {
+            counterValues[index].forEach(snapshot::addStatusMetric);
+        }
 
-        resetRead();
+        return snapshot;
+    }
 
-        for (final Date timestamp : timestamps) {
-            final StatusSnapshot snapshot = getSnapshotForTimestamp(timestamp);
-            if (snapshot == null) {
-                list.add(new EmptyStatusSnapshot(timestamp, defaultStatusMetrics));
-            } else {
-                list.add(includeCounters ? snapshot : snapshot.withoutCounters());
-            }
-        }
+    private void initialize(final Set<MetricDescriptor<?>> descriptors) {
+        metricDescriptors = descriptors;
+        timestamps = new long[Math.min(capacity, INITIAL_SIZE)];
+        values = new long[descriptors.size()][timestamps.length];
+        counterValues = null;
+        start = 0;
+        count = 0;
+    }
 
-        return list;
+    private void release() {
+        metricDescriptors = null;
+        timestamps = null;
+        values = null;
+        counterValues = null;
+        start = 0;
     }
 
-    private StatusSnapshot getSnapshotForTimestamp(final Date timestamp) {
-        while (!readExhausted) {
-            final StatusSnapshot snapshot = snapshots[readIndex];
-            if (snapshot == null) {
-                advanceRead();
-                continue;
-            }
+    private void resize(final int newLength) {
+        final long[] newTimestamps = new long[newLength];
+        final long[][] newValues = new long[values.length][newLength];
+        final Map<MetricDescriptor<?>, Long>[] newCounterValues = counterValues == null ? null : createCounterArray(newLength);
 
-            final Date snapshotTimestamp = snapshot.getTimestamp();
-            if (snapshotTimestamp.before(timestamp)) {
-                advanceRead();
-                continue;
+        for (int i = 0; i < count; i++) {
+            final int index = (start + i) % timestamps.length;
+            newTimestamps[i] = timestamps[index];
+            for (int metric = 0; metric < values.length; metric++) {
+                newValues[metric][i] = values[metric][index];
             }
 
-            if (snapshotTimestamp.after(timestamp)) {
-                return null;
+            if (newCounterValues != null) {
+                newCounterValues[i] = counterValues[index];
             }
-
-            advanceRead();
-            return snapshot;
         }
 
-        return null;
+        timestamps = newTimestamps;
+        values = newValues;
+        counterValues = newCounterValues;
+        start = 0;
     }
 
-    private void resetRead() {
-        readIndex = writeIndex;
-        readExhausted = false;
-    }
+    private void updateCounters(final StatusSnapshot snapshot, final int index) {
+        Map<MetricDescriptor<?>, Long> counters = null;
+        for (final MetricDescriptor<?> descriptor : snapshot.getMetricDescriptors()) {
+            if (descriptor.isCounter()) {
+                if (counters == null) {
+                    counters = new HashMap<>();
+                }
+                counters.put(descriptor, snapshot.getStatusMetric(descriptor));
+            }
+        }
 
-    private void advanceRead() {
-        readIndex++;
+        if (counters == null) {
+            clearCounters(index);
+            return;
+        }
 
-        if (readIndex >= snapshots.length) {
-            readIndex = 0;
+        if (counterValues == null) {
+            counterValues = createCounterArray(timestamps.length);
         }
+        counterValues[index] = counters;
+    }
 
-        if (readIndex == writeIndex) {
-            readExhausted = true;
+    private void clearCounters(final int index) {
+        if (counterValues != null) {
+            counterValues[index] = null;
         }
     }
+
+    @SuppressWarnings("unchecked")
+    private static Map<MetricDescriptor<?>, Long>[] createCounterArray(final int length) {
+        return (Map<MetricDescriptor<?>, Long>[]) new Map[length];
+    }
+
+    private int nextIndex(final int index) {
+        final int next = index + 1;
+        return next >= timestamps.length ? 0 : next;
+    }
 }
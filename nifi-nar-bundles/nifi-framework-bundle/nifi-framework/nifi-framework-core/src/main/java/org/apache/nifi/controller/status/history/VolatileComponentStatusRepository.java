@@ -27,6 +27,7 @@ import org.apache.nifi.util.RingBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
@@ -35,7 +36,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class VolatileComponentStatusRepository implements StatusHistoryRepository {
@@ -69,7 +72,9 @@ public class VolatileComponentStatusRepository implements StatusHistoryRepositor
     public static final String NUM_DATA_POINTS_PROPERTY = "nifi.components.status.repository.buffer.size";
     public static final int DEFAULT_NUM_DATA_POINTS = 288;   // 1 day worth of 5-minute snapshots
 
-    private final Map<String, ComponentStatusHistory> componentStatusHistories = new HashMap<>();
+    private static final int PARALLEL_CAPTURE_THRESHOLD = 64;
+
+    private final Map<String, ComponentStatusHistory> componentStatusHistories = new ConcurrentHashMap<>();
 
     // Changed to protected to allow unit testing
     protected final RingBuffer<Date> timestamps;
@@ -111,44 +116,54 @@ public class VolatileComponentStatusRepository implements StatusHistoryRepositor
     }
 
 
-    private void capture(final ProcessGroupStatus groupStatus, final Date timestamp) {
+    private void capture(final ProcessGroupStatus rootGroupStatus, final Date timestamp) {
+        final List<ProcessGroupStatus> groupStatuses = new ArrayList<>();
+        addGroupStatuses(rootGroupStatus, groupStatuses);
+
+        // Each component belongs to exactly one Process Group, so the histories of separate groups can be updated concurrently
+        if (groupStatuses.size() < PARALLEL_CAPTURE_THRESHOLD) {
+            groupStatuses.forEach(groupStatus -> captureGroup(groupStatus, timestamp));
+        } else {
+            groupStatuses.parallelStream().forEach(groupStatus -> captureGroup(groupStatus, timestamp));
+        }
+    }
+
+    private void addGroupStatuses(final ProcessGroupStatus groupStatus, final List<ProcessGroupStatus> groupStatuses) {
+        groupStatuses.add(groupStatus);
+        for (final ProcessGroupStatus childStatus : groupStatus.getProcessGroupStatus()) {
+            addGroupStatuses(childStatus, groupStatuses);
+        }
+    }
+
+    private void captureGroup(final ProcessGroupStatus groupStatus, final Date timestamp) {
         // Capture status for the ProcessGroup
-        final ComponentDetails groupDetails = ComponentDetails.forProcessGroup(groupStatus);
-        final StatusSnapshot groupSnapshot = ComponentMetrics.createSnapshot(groupStatus, timestamp);
-        updateStatusHistory(groupSnapshot, groupDetails, timestamp);
+        updateStatusHistory(groupStatus.getId(), ComponentMetrics.createSnapshot(groupStatus, timestamp), () -> ComponentDetails.forProcessGroup(groupStatus));
 
         // Capture statuses for the Processors
         for (final ProcessorStatus processorStatus : groupStatus.getProcessorStatus()) {
-            final ComponentDetails componentDetails = ComponentDetails.forProcessor(processorStatus);
-            final StatusSnapshot snapshot = ComponentMetrics.createSnapshot(processorStatus, timestamp);
-            updateStatusHistory(snapshot, componentDetails, timestamp);
+            updateStatusHistory(processorStatus.getId(), ComponentMetrics.createSnapshot(processorStatus, timestamp), () -> ComponentDetails.forProcessor(processorStatus));
         }
 
         // Capture statuses for the Connections
         for (final ConnectionStatus connectionStatus : groupStatus.getConnectionStatus()) {
-            final ComponentDetails componentDetails = ComponentDetails.forConnection(connectionStatus);
-            final StatusSnapshot snapshot = ComponentMetrics.createSnapshot(connectionStatus, timestamp);
-            updateStatusHistory(snapshot, componentDetails, timestamp);
+            updateStatusHistory(connectionStatus.getId(), ComponentMetrics.createSnapshot(connectionStatus, timestamp), () -> ComponentDetails.forConnection(connectionStatus));
         }
 
         // Capture statuses for the RPG's
         for (final RemoteProcessGroupStatus rpgStatus : groupStatus.getRemoteProcessGroupStatus()) {
-            final ComponentDetails componentDetails = ComponentDetails.forRemoteProcessGroup(rpgStatus);
-            final StatusSnapshot snapshot = ComponentMetrics.createSnapshot(rpgStatus, timestamp);
-            updateStatusHistory(snapshot, componentDetails, timestamp);
-        }
-
-        // Capture statuses for the child groups
-        for (final ProcessGroupStatus childStatus : groupStatus.getProcessGroupStatus()) {
-            capture(childStatus, timestamp);
+            updateStatusHistory(rpgStatus.getId(), ComponentMetrics.createSnapshot(rpgStatus, timestamp), () -> ComponentDetails.forRemoteProcessGroup(rpgStatus));
         }
     }
 
+    private void updateStatusHistory(final String componentId, final StatusSnapshot statusSnapshot, final Supplier<ComponentDetails> componentDetailsSupplier) {
+        // A snapshot is not created for a component that has had no activity, in which case there is nothing to update
+        // for a component that already has a history, and the details of the component need not be created.
+        final ComponentStatusHistory procHistory = componentStatusHistories.computeIfAbsent(componentId,
+            id -> new ComponentStatusHistory(componentDetailsSupplier.get(), numDataPoints));
 
-    private void updateStatusHistory(final StatusSnapshot statusSnapshot, final ComponentDetails componentDetails, final Date timestamp) {
-        final String componentId = componentDetails.getComponentId();
-        final ComponentStatusHistory procHistory = componentStatusHistories.computeIfAbsent(componentId, id -> new ComponentStatusHistory(componentDetails, numDataPoints));
-        procHistory.update(statusSnapshot, componentDetails);
+        if (statusSnapshot != null) {
+            procHistory.update(statusSnapshot, componentDetailsSupplier.get());
+        }
     }
 
     @Override
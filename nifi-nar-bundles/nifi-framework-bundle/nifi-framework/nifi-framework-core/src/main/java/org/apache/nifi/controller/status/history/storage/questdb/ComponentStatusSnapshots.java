@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.status.history.storage.questdb;
+
+import io.questdb.cairo.sql.RecordCursor;
+import org.apache.nifi.controller.status.history.MetricDescriptor;
+import org.apache.nifi.controller.status.history.StandardStatusSnapshot;
+import org.apache.nifi.controller.status.history.StatusSnapshot;
+import org.apache.nifi.controller.status.history.questdb.QuestDbContext;
+import org.apache.nifi.controller.status.history.questdb.QuestDbReadingTemplate;
+import org.apache.nifi.controller.status.history.storage.StatusStorage;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns the stored status snapshots of a component into the snapshots of its status history.
+ *
+ * Components without activity are not stored during capture, so the snapshots are completed with empty ones for every capture of the
+ * node status within the time range. In case this results in more snapshots than the preferred number of data points, the snapshots are
+ * rolled up to the finest of the one minute, five minute and one hour intervals which fits into the preferred number of data points.
+ */
+final class ComponentStatusSnapshots {
+    private static final long[] ROLLUP_INTERVALS = {
+        TimeUnit.MINUTES.toMillis(1),
+        TimeUnit.MINUTES.toMillis(5),
+        TimeUnit.HOURS.toMillis(1)
+    };
+
+    private static final String CAPTURE_TIME_QUERY =
+            "SELECT capturedAt FROM nodeStatus " +
+            "WHERE capturedAt > to_timestamp('%s', '" + StatusStorage.CAPTURE_DATE_FORMAT + "') " +
+            "AND capturedAt < to_timestamp('%s', '" + StatusStorage.CAPTURE_DATE_FORMAT + "') " +
+            "ORDER BY capturedAt ASC";
+
+    private static final QuestDbReadingTemplate<List<Long>> CAPTURE_TIME_READING_TEMPLATE = new QuestDbReadingTemplate<List<Long>>(CAPTURE_TIME_QUERY, e -> Collections.emptyList()) {
+        @Override
+        protected List<Long> processResult(final RecordCursor cursor) {
+            final List<Long> captureTimes = new ArrayList<>();
+
+            while (cursor.hasNext()) {
+                captureTimes.add(TimeUnit.MICROSECONDS.toMillis(cursor.getRecord().getTimestamp(0)));
+            }
+
+            return captureTimes;
+        }
+    };
+
+    private ComponentStatusSnapshots() {
+        // Should not be instantiated!
+    }
+
+    /**
+     * @param dbContext The database context, used for reading the capture times.
+     * @param storedSnapshots The stored snapshots of the component within the time range, in the order of their capture.
+     * @param start Start of the time range.
+     * @param end End of the time range.
+     * @param preferredDataPoints The preferred number of data points.
+     *
+     * @return The snapshots of the status history. Empty in case there is no stored snapshot.
+     */
+    static List<StatusSnapshot> forHistory(
+            final QuestDbContext dbContext,
+            final List<? extends StatusSnapshot> storedSnapshots,
+            final Instant start,
+            final Instant end,
+            final int preferredDataPoints) {
+        if (storedSnapshots.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<Long> captureTimes = CAPTURE_TIME_READING_TEMPLATE.read(
+                dbContext.getEngine(),
+                dbContext.getSqlExecutionContext(),
+                Arrays.asList(StatusStorage.DATE_FORMATTER.format(start), StatusStorage.DATE_FORMATTER.format(end)));
+        return forHistory(storedSnapshots, captureTimes, preferredDataPoints);
+    }
+
+    static List<StatusSnapshot> forHistory(final List<? extends StatusSnapshot> storedSnapshots, final List<Long> captureTimes, final int preferredDataPoints) {
+        if (storedSnapshots.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<StatusSnapshot> snapshots = fillCaptures(storedSnapshots, captureTimes);
+
+        if (snapshots.size() <= preferredDataPoints) {
+            return snapshots;
+        }
+
+        for (final long interval : ROLLUP_INTERVALS) {
+            if (countIntervals(snapshots, interval) <= preferredDataPoints) {
+                return rollUp(snapshots, interval);
+            }
+        }
+
+        // Even the coarsest rollup has too many data points, in which case the latest are kept
+        final List<StatusSnapshot> rolledUp = rollUp(snapshots, ROLLUP_INTERVALS[ROLLUP_INTERVALS.length - 1]);
+        return new ArrayList<>(rolledUp.subList(Math.max(rolledUp.size() - preferredDataPoints, 0), rolledUp.size()));
+    }
+
+    private static List<StatusSnapshot> fillCaptures(final List<? extends StatusSnapshot> storedSnapshots, final List<Long> captureTimes) {
+        final Set<MetricDescriptor<?>> metricDescriptors = storedSnapshots.get(0).withoutCounters().getMetricDescriptors();
+        final List<StatusSnapshot> snapshots = new ArrayList<>(Math.max(storedSnapshots.size(), captureTimes.size()));
+
+        int storedIndex = 0;
+        for (final long captureTime : captureTimes) {
+            while (storedIndex < storedSnapshots.size() && storedSnapshots.get(storedIndex).getTimestamp().getTime() < captureTime) {
+                snapshots.add(storedSnapshots.get(storedIndex++));
+            }
+
+            if (storedIndex < storedSnapshots.size() && storedSnapshots.get(storedIndex).getTimestamp().getTime() == captureTime) {
+                snapshots.add(storedSnapshots.get(storedIndex++));
+            } else {
+                final StandardStatusSnapshot emptySnapshot = new StandardStatusSnapshot(metricDescriptors);
+                emptySnapshot.setTimestamp(new Date(captureTime));
+                snapshots.add(emptySnapshot);
+            }
+        }
+
+        while (storedIndex < storedSnapshots.size()) {
+            snapshots.add(storedSnapshots.get(storedIndex++));
+        }
+
+        return snapshots;
+    }
+
+    private static int countIntervals(final List<StatusSnapshot> snapshots, final long interval) {
+        int count = 0;
+        long lastIntervalStart = Long.MIN_VALUE;
+
+        for (final StatusSnapshot snapshot : snapshots) {
+            final long intervalStart = getIntervalStart(snapshot, interval);
+            if (intervalStart != lastIntervalStart) {
+                count++;
+                lastIntervalStart = intervalStart;
+            }
+        }
+
+        return count;
+    }
+
+    private static List<StatusSnapshot> rollUp(final List<StatusSnapshot> snapshots, final long interval) {
+        final List<StatusSnapshot> rolledUp = new ArrayList<>();
+
+        int from = 0;
+        while (from < snapshots.size()) {
+            final long intervalStart = getIntervalStart(snapshots.get(from), interval);
+            int to = from + 1;
+            while (to < snapshots.size() && getIntervalStart(snapshots.get(to), interval) == intervalStart) {
+                to++;
+            }
+
+            rolledUp.add(average(snapshots.subList(from, to), intervalStart));
+            from = to;
+        }
+
+        return rolledUp;
+    }
+
+    private static StatusSnapshot average(final List<StatusSnapshot> snapshots, final long intervalStart) {
+        // The metrics already cover the past five minutes of the capture, so the snapshots within an interval are averaged rather than summed
+        final Map<MetricDescriptor<?>, Long> sums = new LinkedHashMap<>();
+        for (final StatusSnapshot snapshot : snapshots) {
+            for (final MetricDescriptor<?> descriptor : snapshot.getMetricDescriptors()) {
+                final Long value = snapshot.getStatusMetric(descriptor);
+                sums.merge(descriptor, value == null ? 0L : value, Long::sum);
+            }
+        }
+
+        final StandardStatusSnapshot rolledUp = new StandardStatusSnapshot(snapshots.get(0).withoutCounters().getMetricDescriptors());
+        rolledUp.setTimestamp(new Date(intervalStart));
+        sums.forEach((descriptor, sum) -> rolledUp.addStatusMetric(descriptor, Math.round((double) sum / snapshots.size())));
+        return rolledUp;
+    }
+
+    private static long getIntervalStart(final StatusSnapshot snapshot, final long interval) {
+        final long time = snapshot.getTimestamp().getTime();
+        return time - Math.floorMod(time, interval);
+    }
+}
@@ -98,7 +98,7 @@ abstract class QuestDbComponentStatusStorage<T> implements ComponentStatusStorag
                 dbContext.getSqlExecutionContext(),
                 Arrays.asList(getTableName(), componentId, DATE_FORMATTER.format(start), DATE_FORMATTER.format(end)));
         return new StandardStatusHistory(
-                snapshots.subList(Math.max(snapshots.size() - preferredDataPoints, 0), snapshots.size()),
+                ComponentStatusSnapshots.forHistory(dbContext, snapshots, start, end, preferredDataPoints),
                 componentDetailsStorage.getDetails(componentId),
                 new Date()
         );
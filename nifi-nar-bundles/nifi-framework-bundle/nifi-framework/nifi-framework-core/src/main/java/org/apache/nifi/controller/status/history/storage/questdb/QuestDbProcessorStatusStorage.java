@@ -28,7 +28,6 @@ import org.apache.nifi.controller.status.history.ProcessorStatusDescriptor;
 import org.apache.nifi.controller.status.history.StandardStatusHistory;
 import org.apache.nifi.controller.status.history.StandardStatusSnapshot;
 import org.apache.nifi.controller.status.history.StatusHistory;
-import org.apache.nifi.controller.status.history.StatusSnapshot;
 import org.apache.nifi.controller.status.history.questdb.QuestDbContext;
 import org.apache.nifi.controller.status.history.questdb.QuestDbEntityReadingTemplate;
 import org.apache.nifi.controller.status.history.questdb.QuestDbEntityWritingTemplate;
@@ -38,7 +37,6 @@ import org.apache.nifi.controller.status.history.questdb.QuestDbWritingTemplate;
 import org.apache.nifi.controller.status.history.storage.ProcessorStatusStorage;
 
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
@@ -102,7 +100,7 @@ public class QuestDbProcessorStatusStorage implements ProcessorStatusStorage {
                 dbContext.getSqlExecutionContext(),
                 Arrays.asList(TABLE_NAME, componentId, DATE_FORMATTER.format(start), DATE_FORMATTER.format(end)));
         return new StandardStatusHistory(
-                new ArrayList<>(snapshots.subList(Math.max(snapshots.size() - preferredDataPoints, 0), snapshots.size())),
+                ComponentStatusSnapshots.forHistory(dbContext, snapshots, start, end, preferredDataPoints),
                 componentDetailsStorage.getDetails(componentId),
                 new Date()
         );
@@ -116,12 +114,12 @@ public class QuestDbProcessorStatusStorage implements ProcessorStatusStorage {
                 executionContext,
                 Arrays.asList(TABLE_NAME, componentId, DATE_FORMATTER.format(start), DATE_FORMATTER.format(end)));
         final CounterReadingTemplate counterReadingTemplate = new CounterReadingTemplate(snapshots);
-        final List<StatusSnapshot> enrichedSnapshots = new ArrayList<>(counterReadingTemplate.read(
+        final List<StandardStatusSnapshot> enrichedSnapshots = counterReadingTemplate.read(
                 dbContext.getEngine(),
                 executionContext,
-                Arrays.asList("componentCounter", componentId, DATE_FORMATTER.format(start), DATE_FORMATTER.format(end))));
+                Arrays.asList("componentCounter", componentId, DATE_FORMATTER.format(start), DATE_FORMATTER.format(end)));
         return new StandardStatusHistory(
-                enrichedSnapshots.subList(Math.max(snapshots.size() - preferredDataPoints, 0), snapshots.size()),
+                ComponentStatusSnapshots.forHistory(dbContext, enrichedSnapshots, start, end, preferredDataPoints),
                 componentDetailsStorage.getDetails(componentId),
                 new Date()
         );
@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.swap;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.queue.QueueSize;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.StandardFlowFileRecord;
+import org.apache.nifi.controller.repository.SwapContents;
+import org.apache.nifi.controller.repository.SwapSummary;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardContentClaim;
+import org.apache.nifi.stream.io.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads swap files that were written by the {@link ColumnarSwapSerializer}
+ */
+public class ColumnarSwapDeserializer implements SwapDeserializer {
+
+    @Override
+    public SwapContents deserializeFlowFiles(final DataInputStream in, final String swapLocation, final FlowFileQueue queue, final ResourceClaimManager claimManager) throws IOException {
+        readHeader(in, swapLocation);
+
+        final byte[] compressedColumns = new byte[in.readInt()];
+        StreamUtils.fillBuffer(in, compressedColumns);
+
+        final Footer footer = readFooter(in, claimManager);
+        try (final DataInputStream columnsIn = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressedColumns)))) {
+            final List<FlowFileRecord> flowFiles = readColumns(columnsIn, footer);
+            return new StandardSwapContents(footer.toSwapSummary(), flowFiles);
+        }
+    }
+
+    @Override
+    public SwapSummary getSwapSummary(final DataInputStream in, final String swapLocation, final ResourceClaimManager claimManager) throws IOException {
+        readHeader(in, swapLocation);
+
+        // The summary is in the footer, so skip over the FlowFiles without decompressing them
+        final int compressedLength = in.readInt();
+        StreamUtils.skip(in, compressedLength);
+
+        return readFooter(in, claimManager).toSwapSummary();
+    }
+
+    private void readHeader(final DataInputStream in, final String swapLocation) throws IOException {
+        final int encodingVersion = in.readInt();
+        if (encodingVersion > ColumnarSwapSerializer.ENCODING_VERSION) {
+            throw new IOException("Cannot swap FlowFiles in from " + swapLocation + " because the encoding version is " + encodingVersion
+                + ", which is too new (expecting " + ColumnarSwapSerializer.ENCODING_VERSION + " or less)");
+        }
+
+        in.readUTF(); // queue identifier
+
+        final byte codec = in.readByte();
+        if (codec != ColumnarSwapSerializer.CODEC_DEFLATE) {
+            throw new IOException("Cannot swap FlowFiles in from " + swapLocation + " because it was written with unknown compression codec " + codec);
+        }
+    }
+
+    private Footer readFooter(final DataInputStream in, final ResourceClaimManager claimManager) throws IOException {
+        final Footer footer = new Footer();
+        footer.flowFileCount = in.readInt();
+        footer.contentSize = in.readLong();
+        footer.maxFlowFileId = in.readLong();
+        footer.minLastQueueDate = in.readLong();
+        footer.totalLastQueueDate = in.readLong();
+
+        final int claimCount = in.readInt();
+        footer.resourceClaims = new ResourceClaim[claimCount];
+        footer.claimReferenceCounts = new int[claimCount];
+        for (int i = 0; i < claimCount; i++) {
+            final String container = in.readUTF();
+            final String section = in.readUTF();
+            final String identifier = in.readUTF();
+            final boolean lossTolerant = in.readBoolean();
+
+            // Preserve the Resource Claim held by the Resource Claim Manager, if there is one, so that we honor its determination of whether or not
+            // the claim is writable. Otherwise, the claim can be assumed not to be writable, or the Resource Claim Manager would know about it.
+            ResourceClaim resourceClaim = claimManager.getResourceClaim(container, section, identifier);
+            if (resourceClaim == null) {
+                resourceClaim = claimManager.newResourceClaim(container, section, identifier, lossTolerant, false);
+            }
+
+            footer.resourceClaims[i] = resourceClaim;
+            footer.claimReferenceCounts[i] = in.readInt();
+        }
+
+        return footer;
+    }
+
+    private List<FlowFileRecord> readColumns(final DataInputStream in, final Footer footer) throws IOException {
+        final int flowFileCount = footer.flowFileCount;
+
+        final long[] ids = readDeltaColumn(in, flowFileCount);
+        final long[] entryDates = readDeltaColumn(in, flowFileCount);
+        final long[] lineageStartDates = readDeltaColumn(in, flowFileCount);
+        final long[] lineageStartIndices = readDeltaColumn(in, flowFileCount);
+        final long[] lastQueueDates = readDeltaColumn(in, flowFileCount);
+        final long[] queueDateIndices = readDeltaColumn(in, flowFileCount);
+        final long[] sizes = readLongColumn(in, flowFileCount);
+
+        final int[] claimIndices = new int[flowFileCount];
+        int withContentCount = 0;
+        for (int i = 0; i < flowFileCount; i++) {
+            claimIndices[i] = in.readInt();
+            if (claimIndices[i] != ColumnarSwapSerializer.NO_CLAIM) {
+                withContentCount++;
+            }
+        }
+
+        final long[] claimOffsets = readLongColumn(in, withContentCount);
+        final long[] claimLengths = readLongColumn(in, withContentCount);
+        final long[] contentClaimOffsets = readLongColumn(in, withContentCount);
+
+        final List<Map<String, String>> attributes = readAttributeColumns(in, flowFileCount);
+
+        final List<FlowFileRecord> flowFiles = new ArrayList<>(flowFileCount);
+        int contentIndex = 0;
+        for (int i = 0; i < flowFileCount; i++) {
+            final StandardFlowFileRecord.Builder builder = new StandardFlowFileRecord.Builder()
+                .id(ids[i])
+                .entryDate(entryDates[i])
+                .lineageStart(lineageStartDates[i], lineageStartIndices[i])
+                .lastQueued(lastQueueDates[i], queueDateIndices[i])
+                .size(sizes[i])
+                .addAttributes(attributes.get(i));
+
+            if (claimIndices[i] != ColumnarSwapSerializer.NO_CLAIM) {
+                final StandardContentClaim contentClaim = new StandardContentClaim(footer.resourceClaims[claimIndices[i]], claimOffsets[contentIndex]);
+                contentClaim.setLength(claimLengths[contentIndex]);
+                builder.contentClaim(contentClaim);
+                builder.contentClaimOffset(contentClaimOffsets[contentIndex]);
+                contentIndex++;
+            }
+
+            flowFiles.add(builder.build());
+        }
+
+        return flowFiles;
+    }
+
+    private List<Map<String, String>> readAttributeColumns(final DataInputStream in, final int flowFileCount) throws IOException {
+        final String[] keys = new String[in.readInt()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = readString(in);
+        }
+
+        final int[][] keySets = new int[in.readInt()][];
+        for (int i = 0; i < keySets.length; i++) {
+            final int[] keySet = new int[in.readInt()];
+            for (int j = 0; j < keySet.length; j++) {
+                keySet[j] = in.readInt();
+            }
+            keySets[i] = keySet;
+        }
+
+        final List<Map<String, String>> attributes = new ArrayList<>(flowFileCount);
+        final List<List<Map<String, String>>> flowFilesByKey = new ArrayList<>(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            flowFilesByKey.add(new ArrayList<>());
+        }
+
+        for (int i = 0; i < flowFileCount; i++) {
+            final int[] keySet = keySets[in.readInt()];
+            final Map<String, String> flowFileAttributes = new HashMap<>(keySet.length * 2);
+            attributes.add(flowFileAttributes);
+
+            for (final int keyIndex : keySet) {
+                flowFilesByKey.get(keyIndex).add(flowFileAttributes);
+            }
+        }
+
+        for (int keyIndex = 0; keyIndex < keys.length; keyIndex++) {
+            final String key = keys[keyIndex];
+            final List<Map<String, String>> flowFilesWithKey = flowFilesByKey.get(keyIndex);
+
+            final byte encoding = in.readByte();
+            if (encoding == ColumnarSwapSerializer.VALUES_DICTIONARY) {
+                final String[] dictionary = new String[in.readInt()];
+                for (int i = 0; i < dictionary.length; i++) {
+                    dictionary[i] = readString(in);
+                }
+                for (final Map<String, String> flowFileAttributes : flowFilesWithKey) {
+                    flowFileAttributes.put(key, dictionary[in.readInt()]);
+                }
+            } else if (encoding == ColumnarSwapSerializer.VALUES_RAW) {
+                for (final Map<String, String> flowFileAttributes : flowFilesWithKey) {
+                    flowFileAttributes.put(key, readString(in));
+                }
+            } else {
+                throw new IOException("Swap File contains unknown encoding " + encoding + " for the values of attribute " + key);
+            }
+        }
+
+        return attributes;
+    }
+
+    private static long[] readDeltaColumn(final DataInputStream in, final int count) throws IOException {
+        final long[] values = new long[count];
+        long previous = 0L;
+        for (int i = 0; i < count; i++) {
+            previous += in.readLong();
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    private static long[] readLongColumn(final DataInputStream in, final int count) throws IOException {
+        final long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readLong();
+        }
+        return values;
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static String getSerializationName() {
+        return ColumnarSwapSerializer.SERIALIZATION_NAME;
+    }
+
+    private static class Footer {
+        private int flowFileCount;
+        private long contentSize;
+        private long maxFlowFileId;
+        private long minLastQueueDate;
+        private long totalLastQueueDate;
+        private ResourceClaim[] resourceClaims;
+        private int[] claimReferenceCounts;
+
+        private SwapSummary toSwapSummary() {
+            final List<ResourceClaim> claims = new ArrayList<>(flowFileCount);
+            for (int i = 0; i < resourceClaims.length; i++) {
+                for (int j = 0; j < claimReferenceCounts[i]; j++) {
+                    claims.add(resourceClaims[i]);
+                }
+            }
+
+            return new StandardSwapSummary(new QueueSize(flowFileCount, contentSize), maxFlowFileId, claims, minLastQueueDate, totalLastQueueDate);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.swap;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * <p>
+ * Writes swap files in a columnar layout. Rather than writing each FlowFile in turn, each field of the FlowFiles is written as a column,
+ * attribute names are written only once per file, and the values of each attribute are written together, dictionary-encoded when they repeat.
+ * The columns are then compressed as a single block. Swapped-out FlowFiles tend to come from the same source and so have very similar
+ * attributes, which makes these files far smaller than those written by the {@link SchemaSwapSerializer} and quicker to read back.
+ * </p>
+ *
+ * <p>
+ * The file is laid out as follows:
+ * </p>
+ * <pre>
+ * int     encoding version
+ * UTF     queue identifier
+ * byte    compression codec
+ * int     length of the compressed block
+ * byte[]  compressed block of columns
+ * footer: FlowFile count, content size, max FlowFile ID, min and total last queue dates, and each Resource Claim referenced along with its number of references
+ * </pre>
+ *
+ * <p>
+ * Because the compressed block is length-prefixed, the {@link ColumnarSwapDeserializer} can obtain the summary of the swap file by skipping
+ * over the FlowFiles without decompressing them.
+ * </p>
+ */
+public class ColumnarSwapSerializer implements SwapSerializer {
+    static final String SERIALIZATION_NAME = "Columnar Swap Serialization";
+    static final int ENCODING_VERSION = 1;
+
+    static final byte CODEC_DEFLATE = 1;
+
+    static final byte VALUES_RAW = 0;
+    static final byte VALUES_DICTIONARY = 1;
+
+    static final int NO_CLAIM = -1;
+
+    @Override
+    public void serializeFlowFiles(final List<FlowFileRecord> toSwap, final FlowFileQueue queue, final String swapLocation, final OutputStream destination) throws IOException {
+        final DataOutputStream out = new DataOutputStream(destination);
+        out.writeInt(ENCODING_VERSION);
+        out.writeUTF(queue.getIdentifier());
+        out.writeByte(CODEC_DEFLATE);
+
+        final Map<ResourceClaim, Integer> claimIndices = new LinkedHashMap<>();
+        final List<Integer> claimCounts = new ArrayList<>();
+        final byte[] compressedColumns = compressColumns(toSwap, claimIndices, claimCounts);
+        out.writeInt(compressedColumns.length);
+        out.write(compressedColumns);
+
+        writeFooter(toSwap, claimIndices, claimCounts, out);
+        out.flush();
+    }
+
+    private byte[] compressColumns(final List<FlowFileRecord> toSwap, final Map<ResourceClaim, Integer> claimIndices, final List<Integer> claimCounts) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (final DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(compressed, deflater, 65536))) {
+            writeColumns(toSwap, claimIndices, claimCounts, out);
+        } finally {
+            deflater.end();
+        }
+
+        return compressed.toByteArray();
+    }
+
+    private void writeColumns(final List<FlowFileRecord> toSwap, final Map<ResourceClaim, Integer> claimIndices, final List<Integer> claimCounts,
+                              final DataOutputStream out) throws IOException {
+        final int flowFileCount = toSwap.size();
+
+        // Sequential FlowFiles tend to have close IDs and dates, so those columns are delta-encoded, which makes them far more compressible
+        writeDeltaColumn(toSwap, FlowFileRecord::getId, out);
+        writeDeltaColumn(toSwap, FlowFileRecord::getEntryDate, out);
+        writeDeltaColumn(toSwap, FlowFileRecord::getLineageStartDate, out);
+        writeDeltaColumn(toSwap, FlowFileRecord::getLineageStartIndex, out);
+        writeDeltaColumn(toSwap, FlowFileRecord::getLastQueueDate, out);
+        writeDeltaColumn(toSwap, FlowFileRecord::getQueueDateIndex, out);
+        for (final FlowFileRecord flowFile : toSwap) {
+            out.writeLong(flowFile.getSize());
+        }
+
+        final List<FlowFileRecord> withContent = new ArrayList<>(flowFileCount);
+        for (final FlowFileRecord flowFile : toSwap) {
+            final ContentClaim contentClaim = flowFile.getContentClaim();
+            if (contentClaim == null) {
+                out.writeInt(NO_CLAIM);
+                continue;
+            }
+
+            final ResourceClaim resourceClaim = contentClaim.getResourceClaim();
+            Integer claimIndex = claimIndices.get(resourceClaim);
+            if (claimIndex == null) {
+                claimIndex = claimIndices.size();
+                claimIndices.put(resourceClaim, claimIndex);
+                claimCounts.add(0);
+            }
+
+            claimCounts.set(claimIndex, claimCounts.get(claimIndex) + 1);
+            out.writeInt(claimIndex);
+            withContent.add(flowFile);
+        }
+
+        for (final FlowFileRecord flowFile : withContent) {
+            out.writeLong(flowFile.getContentClaim().getOffset());
+        }
+        for (final FlowFileRecord flowFile : withContent) {
+            out.writeLong(flowFile.getContentClaim().getLength());
+        }
+        for (final FlowFileRecord flowFile : withContent) {
+            out.writeLong(flowFile.getContentClaimOffset());
+        }
+
+        writeAttributeColumns(toSwap, out);
+    }
+
+    private void writeAttributeColumns(final List<FlowFileRecord> toSwap, final DataOutputStream out) throws IOException {
+        // Assign each distinct attribute name an index and each distinct set of attribute names an index
+        final Map<String, Integer> keyIndices = new LinkedHashMap<>();
+        final Map<KeySet, Integer> keySetIndices = new LinkedHashMap<>();
+        final int[] flowFileKeySets = new int[toSwap.size()];
+
+        for (int i = 0; i < toSwap.size(); i++) {
+            final Map<String, String> attributes = toSwap.get(i).getAttributes();
+            final int[] keys = new int[attributes.size()];
+            int keyCount = 0;
+            for (final String key : attributes.keySet()) {
+                Integer keyIndex = keyIndices.get(key);
+                if (keyIndex == null) {
+                    keyIndex = keyIndices.size();
+                    keyIndices.put(key, keyIndex);
+                }
+                keys[keyCount++] = keyIndex;
+            }
+
+            Arrays.sort(keys);
+            final KeySet keySet = new KeySet(keys);
+            Integer keySetIndex = keySetIndices.get(keySet);
+            if (keySetIndex == null) {
+                keySetIndex = keySetIndices.size();
+                keySetIndices.put(keySet, keySetIndex);
+            }
+            flowFileKeySets[i] = keySetIndex;
+        }
+
+        out.writeInt(keyIndices.size());
+        for (final String key : keyIndices.keySet()) {
+            writeString(key, out);
+        }
+
+        out.writeInt(keySetIndices.size());
+        for (final KeySet keySet : keySetIndices.keySet()) {
+            out.writeInt(keySet.keys.length);
+            for (final int keyIndex : keySet.keys) {
+                out.writeInt(keyIndex);
+            }
+        }
+
+        for (final int keySetIndex : flowFileKeySets) {
+            out.writeInt(keySetIndex);
+        }
+
+        // Write the values of each attribute together, in the order of the FlowFiles that have the attribute
+        for (final String key : keyIndices.keySet()) {
+            final List<String> values = new ArrayList<>();
+            for (final FlowFileRecord flowFile : toSwap) {
+                final String value = flowFile.getAttribute(key);
+                if (value != null) {
+                    values.add(value);
+                }
+            }
+
+            writeValueColumn(values, out);
+        }
+    }
+
+    private void writeValueColumn(final List<String> values, final DataOutputStream out) throws IOException {
+        final Map<String, Integer> dictionary = new HashMap<>();
+        for (final String value : values) {
+            dictionary.putIfAbsent(value, dictionary.size());
+            if (dictionary.size() > values.size() / 2) {
+                break;
+            }
+        }
+
+        if (dictionary.size() > values.size() / 2) {
+            out.writeByte(VALUES_RAW);
+            for (final String value : values) {
+                writeString(value, out);
+            }
+            return;
+        }
+
+        out.writeByte(VALUES_DICTIONARY);
+        final String[] dictionaryValues = new String[dictionary.size()];
+        for (final Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+            dictionaryValues[entry.getValue()] = entry.getKey();
+        }
+
+        out.writeInt(dictionaryValues.length);
+        for (final String value : dictionaryValues) {
+            writeString(value, out);
+        }
+        for (final String value : values) {
+            out.writeInt(dictionary.get(value));
+        }
+    }
+
+    private void writeFooter(final List<FlowFileRecord> toSwap, final Map<ResourceClaim, Integer> claimIndices, final List<Integer> claimCounts,
+                             final DataOutputStream out) throws IOException {
+        long contentSize = 0L;
+        long maxFlowFileId = -1L;
+        long minLastQueueDate = Long.MAX_VALUE;
+        long totalLastQueueDate = 0L;
+        for (final FlowFileRecord flowFile : toSwap) {
+            contentSize += flowFile.getSize();
+            maxFlowFileId = Math.max(maxFlowFileId, flowFile.getId());
+            minLastQueueDate = Math.min(minLastQueueDate, flowFile.getLastQueueDate());
+            totalLastQueueDate += flowFile.getLastQueueDate();
+        }
+
+        out.writeInt(toSwap.size());
+        out.writeLong(contentSize);
+        out.writeLong(maxFlowFileId);
+        out.writeLong(minLastQueueDate);
+        out.writeLong(totalLastQueueDate);
+
+        out.writeInt(claimIndices.size());
+        for (final Map.Entry<ResourceClaim, Integer> entry : claimIndices.entrySet()) {
+            final ResourceClaim resourceClaim = entry.getKey();
+            out.writeUTF(resourceClaim.getContainer());
+            out.writeUTF(resourceClaim.getSection());
+            out.writeUTF(resourceClaim.getId());
+            out.writeBoolean(resourceClaim.isLossTolerant());
+            out.writeInt(claimCounts.get(entry.getValue()));
+        }
+    }
+
+    private void writeDeltaColumn(final List<FlowFileRecord> toSwap, final LongField field, final DataOutputStream out) throws IOException {
+        long previous = 0L;
+        for (final FlowFileRecord flowFile : toSwap) {
+            final long value = field.get(flowFile);
+            out.writeLong(value - previous);
+            previous = value;
+        }
+    }
+
+    static void writeString(final String value, final DataOutputStream out) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    public String getSerializationName() {
+        return SERIALIZATION_NAME;
+    }
+
+    private interface LongField {
+        long get(FlowFileRecord flowFile);
+    }
+
+    private static class KeySet {
+        private final int[] keys;
+        private final int hashCode;
+
+        KeySet(final int[] keys) {
+            this.keys = keys;
+            this.hashCode = Arrays.hashCode(keys);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return obj instanceof KeySet && Arrays.equals(keys, ((KeySet) obj).keys);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -24,7 +24,9 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.nifi.controller.queue.FlowFileQueue;
 import org.apache.nifi.controller.queue.QueueSize;
@@ -231,13 +233,17 @@ public class SimpleSwapDeserializer implements SwapDeserializer {
                 }
 
                 if (attributesChanged) {
+                    // Collect the attributes first so that the FlowFile's attribute map is built once rather than once per attribute
                     final int numAttributes = in.readInt();
+                    final Map<String, String> attributes = new HashMap<>(numAttributes * 2);
                     for (int j = 0; j < numAttributes; j++) {
                         final String key = readString(in);
                         final String value = readString(in);
 
-                        ffBuilder.addAttribute(key, value);
+                        attributes.put(key, value);
                     }
+
+                    ffBuilder.addAttributes(attributes);
                 }
 
                 final FlowFileRecord record = ffBuilder.build();
@@ -22,9 +22,12 @@ import org.apache.nifi.cluster.coordination.node.NodeConnectionStatus;
 import org.apache.nifi.cluster.protocol.NodeIdentifier;
 import org.apache.nifi.controller.FlowController;
 import org.apache.nifi.controller.leader.election.LeaderElectionManager;
+import org.apache.nifi.controller.queue.clustered.LoadBalanceTransferMetrics;
+import org.apache.nifi.controller.queue.clustered.LoadBalanceTransferMetrics.PeerTransferMetrics;
 import org.apache.nifi.diagnostics.DiagnosticTask;
 import org.apache.nifi.diagnostics.DiagnosticsDumpElement;
 import org.apache.nifi.diagnostics.StandardDiagnosticsDumpElement;
+import org.apache.nifi.util.FormatUtils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -84,6 +87,15 @@ public class ClusterDiagnosticTask implements DiagnosticTask {
                 + leaderElectionManager.getAveragePollTime(TimeUnit.MILLISECONDS) + " millis");
         }
 
+        final LoadBalanceTransferMetrics transferMetrics = flowController.getLoadBalanceTransferMetrics();
+        transferMetrics.getSent().forEach((peer, metrics) -> details.add("In the past 5 minutes, load balanced " + describe(metrics) + " to " + peer));
+        transferMetrics.getReceived().forEach((peer, metrics) -> details.add("In the past 5 minutes, received " + describe(metrics) + " from " + peer + " via load balancing"));
+
         return new StandardDiagnosticsDumpElement("Cluster Details", details);
     }
+
+    private String describe(final PeerTransferMetrics metrics) {
+        return metrics.getFlowFileCount() + " FlowFiles (" + FormatUtils.formatDataSize(metrics.getBytes()) + ") in "
+            + metrics.getTransferMillis() + " millis of transfer time (" + FormatUtils.formatDataSize(metrics.getBytesPerSecond()) + "/sec)";
+    }
 }
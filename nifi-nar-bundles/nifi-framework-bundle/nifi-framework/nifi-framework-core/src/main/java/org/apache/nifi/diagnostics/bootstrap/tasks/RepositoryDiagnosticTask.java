@@ -95,6 +95,8 @@ public class RepositoryDiagnosticTask implements DiagnosticTask {
             details.add("Provenance Repository <" + containerName + "> Storage Capacity: " + FormatUtils.formatDataSize(repository.getContainerCapacity(containerName)));
             details.add("Provenance Repository <" + containerName + "> Usable Space: " + FormatUtils.formatDataSize(repository.getContainerUsableSpace(containerName)));
         }
+
+        details.add("Provenance Events Dropped: " + repository.getDroppedEventCount());
     }
 
 }
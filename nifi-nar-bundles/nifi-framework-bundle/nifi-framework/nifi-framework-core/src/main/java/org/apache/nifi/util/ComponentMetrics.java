@@ -147,7 +147,7 @@ public class ComponentMetrics {
         return snapshot;
     }
 
-    private static boolean isEmpty(final ProcessGroupStatus status) {
+    public static boolean isEmpty(final ProcessGroupStatus status) {
         for (final ProcessGroupStatusDescriptor descriptor : ProcessGroupStatusDescriptor.values()) {
             final Long value = descriptor.getDescriptor().getValueFunction().getValue(status);
             if (value != null && value > 0) {
@@ -173,7 +173,7 @@ public class ComponentMetrics {
         return snapshot;
     }
 
-    private static boolean isEmpty(final RemoteProcessGroupStatus status) {
+    public static boolean isEmpty(final RemoteProcessGroupStatus status) {
         for (final RemoteProcessGroupStatusDescriptor descriptor : RemoteProcessGroupStatusDescriptor.values()) {
             final Long value = descriptor.getDescriptor().getValueFunction().getValue(status);
             if (value != null && value > 0) {
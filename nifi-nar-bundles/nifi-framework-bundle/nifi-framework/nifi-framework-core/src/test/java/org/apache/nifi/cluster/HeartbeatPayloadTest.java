@@ -16,12 +16,27 @@
  */
 package org.apache.nifi.cluster;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
+import javax.xml.bind.JAXBContext;
+
+import org.apache.nifi.cluster.coordination.node.DisconnectionCode;
+import org.apache.nifi.cluster.coordination.node.NodeConnectionState;
+import org.apache.nifi.cluster.coordination.node.NodeConnectionStatus;
+import org.apache.nifi.cluster.coordination.node.OffloadCode;
 import org.apache.nifi.cluster.protocol.HeartbeatPayload;
+import org.apache.nifi.cluster.protocol.NodeIdentifier;
 import org.apache.nifi.util.NiFiProperties;
 import org.junit.Before;
 import org.junit.BeforeClass;
@@ -68,4 +83,103 @@ public class HeartbeatPayloadTest {
         assertEquals(activeThreadCount, newPayload.getActiveThreadCount());
         assertEquals(totalFlowFileCount, newPayload.getTotalFlowFileCount());
     }
+
+    @Test
+    public void testMarshallingClusterStatus() {
+        final NodeIdentifier connectedId = new NodeIdentifier("node-1", "localhost", 8000, "localhost", 8001, "localhost", 8002, "localhost", 8003, 8004, true,
+            Collections.singleton("CN=node-1"));
+        final NodeIdentifier disconnectedId = new NodeIdentifier("node-2", "localhost", 9000, "localhost", 9001, null, null, 9004, false);
+        final NodeIdentifier offloadedId = new NodeIdentifier("node-3", "localhost", 7000, "localhost", 7001, null, 7003, null, false);
+
+        final List<NodeConnectionStatus> clusterStatus = Arrays.asList(
+            new NodeConnectionStatus(connectedId, NodeConnectionState.CONNECTED),
+            new NodeConnectionStatus(disconnectedId, DisconnectionCode.LACK_OF_HEARTBEAT, "No heartbeat"),
+            new NodeConnectionStatus(offloadedId, NodeConnectionState.OFFLOADED, OffloadCode.OFFLOADED, "Offloaded by user"));
+
+        payload.setActiveThreadCount(activeThreadCount);
+        payload.setTotalFlowFileCount(totalFlowFileCount);
+        payload.setTotalFlowFileBytes(1024L);
+        payload.setSystemStartTime(12345L);
+        payload.setRevisionUpdateCount(7L);
+        payload.setClusterStatus(clusterStatus);
+
+        HeartbeatPayload.marshal(payload, marshalledBytes, HeartbeatPayload.Format.BINARY);
+        HeartbeatPayload newPayload = HeartbeatPayload.unmarshal(new ByteArrayInputStream(marshalledBytes.toByteArray()));
+
+        assertEquals(activeThreadCount, newPayload.getActiveThreadCount());
+        assertEquals(totalFlowFileCount, newPayload.getTotalFlowFileCount());
+        assertEquals(1024L, newPayload.getTotalFlowFileBytes());
+        assertEquals(12345L, newPayload.getSystemStartTime());
+        assertEquals(7L, newPayload.getRevisionUpdateCount());
+        assertFalse(newPayload.isClusterStatusUnchanged());
+        assertEquals(clusterStatus, newPayload.getClusterStatus());
+
+        for (int i = 0; i < clusterStatus.size(); i++) {
+            final NodeConnectionStatus expected = clusterStatus.get(i);
+            final NodeConnectionStatus actual = newPayload.getClusterStatus().get(i);
+            assertEquals(expected.getUpdateIdentifier(), actual.getUpdateIdentifier());
+            assertEquals(expected.getOffloadCode(), actual.getOffloadCode());
+            assertEquals(expected.getDisconnectCode(), actual.getDisconnectCode());
+            assertEquals(expected.getReason(), actual.getReason());
+            assertEquals(expected.getNodeIdentifier().getFullDescription(), actual.getNodeIdentifier().getFullDescription());
+        }
+    }
+
+    @Test
+    public void testMarshallingClusterStatusUnchanged() {
+        payload.setActiveThreadCount(activeThreadCount);
+        payload.setClusterStatusUnchanged(true);
+
+        HeartbeatPayload newPayload = HeartbeatPayload.unmarshal(payload.marshal(HeartbeatPayload.Format.BINARY));
+
+        assertEquals(activeThreadCount, newPayload.getActiveThreadCount());
+        assertTrue(newPayload.isClusterStatusUnchanged());
+        assertNull(newPayload.getClusterStatus());
+    }
+
+    @Test
+    public void testMarshallingXmlFormat() throws Exception {
+        final NodeIdentifier nodeId = new NodeIdentifier("node-1", "localhost", 8000, "localhost", 8001, "localhost", 8002, 8003, true);
+        payload.setActiveThreadCount(activeThreadCount);
+        payload.setTotalFlowFileCount(totalFlowFileCount);
+        payload.setClusterStatus(Collections.singletonList(new NodeConnectionStatus(nodeId, NodeConnectionState.CONNECTED)));
+
+        final byte[] xml = payload.marshal(HeartbeatPayload.Format.XML);
+
+        // Older Cluster Coordinators unmarshal the payload with JAXB, so it must not be in the binary format or contain elements they do not know
+        final HeartbeatPayload jaxbPayload = (HeartbeatPayload) JAXBContext.newInstance(HeartbeatPayload.class).createUnmarshaller().unmarshal(new ByteArrayInputStream(xml));
+        assertEquals(activeThreadCount, jaxbPayload.getActiveThreadCount());
+        assertFalse(new String(xml, StandardCharsets.UTF_8).contains("clusterStatusUnchanged"));
+
+        HeartbeatPayload newPayload = HeartbeatPayload.unmarshal(xml);
+        assertEquals(activeThreadCount, newPayload.getActiveThreadCount());
+        assertEquals(totalFlowFileCount, newPayload.getTotalFlowFileCount());
+        assertEquals(payload.getClusterStatus(), newPayload.getClusterStatus());
+    }
+
+    @Test
+    public void testDefaultFormatIsXml() throws Exception {
+        payload.setActiveThreadCount(activeThreadCount);
+
+        final HeartbeatPayload jaxbPayload = (HeartbeatPayload) JAXBContext.newInstance(HeartbeatPayload.class).createUnmarshaller().unmarshal(new ByteArrayInputStream(payload.marshal()));
+        assertEquals(activeThreadCount, jaxbPayload.getActiveThreadCount());
+
+        HeartbeatPayload.marshal(payload, marshalledBytes);
+        assertArrayEquals(payload.marshal(HeartbeatPayload.Format.XML), marshalledBytes.toByteArray());
+    }
+
+    @Test
+    public void testUnmarshallingXml() throws Exception {
+        final NodeIdentifier nodeId = new NodeIdentifier("node-1", "localhost", 8000, "localhost", 8001, "localhost", 8002, 8003, true);
+        payload.setActiveThreadCount(activeThreadCount);
+        payload.setTotalFlowFileCount(totalFlowFileCount);
+        payload.setClusterStatus(Collections.singletonList(new NodeConnectionStatus(nodeId, NodeConnectionState.CONNECTED)));
+
+        JAXBContext.newInstance(HeartbeatPayload.class).createMarshaller().marshal(payload, marshalledBytes);
+        HeartbeatPayload newPayload = HeartbeatPayload.unmarshal(marshalledBytes.toByteArray());
+
+        assertEquals(activeThreadCount, newPayload.getActiveThreadCount());
+        assertEquals(totalFlowFileCount, newPayload.getTotalFlowFileCount());
+        assertEquals(payload.getClusterStatus(), newPayload.getClusterStatus());
+    }
 }
@@ -23,6 +23,8 @@ import org.apache.nifi.controller.repository.SwapContents;
 import org.apache.nifi.controller.repository.SwapManagerInitializationContext;
 import org.apache.nifi.controller.repository.claim.ResourceClaim;
 import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.swap.ColumnarSwapSerializer;
+import org.apache.nifi.controller.swap.SchemaSwapSerializer;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.stream.io.StreamUtils;
 import org.junit.Assert;
@@ -33,6 +35,7 @@ import org.mockito.Mockito;
 
 import java.io.BufferedInputStream;
 import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -46,6 +49,8 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
@@ -148,6 +153,94 @@ public class TestFileSystemSwapManager {
         assertEquals(10000, contents.getFlowFiles().size());
     }
 
+    @Test
+    public void testSchemaSwapFileReadable() throws IOException {
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        when(flowFileQueue.getIdentifier()).thenReturn("87bb99fe-412c-49f6-a441-d1b0af4e20b4");
+
+        final List<FlowFileRecord> flowFileRecords = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            flowFileRecords.add(new MockFlowFileRecord(i));
+        }
+
+        // Write a Swap File as it was written before the columnar format was introduced
+        final File swapFile = temporaryFolder.newFile("schema.swap");
+        final SchemaSwapSerializer serializer = new SchemaSwapSerializer();
+        try (final OutputStream fos = new FileOutputStream(swapFile);
+             final DataOutputStream out = new DataOutputStream(fos)) {
+            out.write(new byte[] {'S', 'W', 'A', 'P'});
+            out.writeUTF(serializer.getSerializationName());
+            serializer.serializeFlowFiles(flowFileRecords, flowFileQueue, swapFile.getAbsolutePath(), out);
+        }
+
+        final FileSystemSwapManager swapManager = createSwapManager();
+        assertEquals(100, swapManager.getSwapSummary(swapFile.getAbsolutePath()).getQueueSize().getObjectCount());
+        assertEquals(100, swapManager.peek(swapFile.getAbsolutePath(), flowFileQueue).getFlowFiles().size());
+    }
+
+    @Test
+    public void testSwapInUsesPrefetchedContents() throws IOException {
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        when(flowFileQueue.getIdentifier()).thenReturn("87bb99fe-412c-49f6-a441-d1b0af4e20b4");
+
+        final FlowFileRepository flowFileRepo = Mockito.mock(FlowFileRepository.class);
+        when(flowFileRepo.isValidSwapLocationSuffix(anyString())).thenReturn(true);
+        final FileSystemSwapManager swapManager = createSwapManager(flowFileRepo);
+
+        final List<FlowFileRecord> flowFileRecords = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            flowFileRecords.add(new MockFlowFileRecord(i));
+        }
+
+        final String swapLocation = swapManager.swapOut(flowFileRecords, flowFileQueue, null);
+        swapManager.prefetch(swapLocation, flowFileQueue);
+        swapManager.prefetch(swapLocation, flowFileQueue);
+
+        final SwapContents contents = swapManager.swapIn(swapLocation, flowFileQueue);
+        assertEquals(10000, contents.getFlowFiles().size());
+        assertFalse(new File(swapLocation).exists());
+
+        // Once swapped in, the prefetched contents must not be handed out again
+        try {
+            swapManager.swapIn(swapLocation, flowFileQueue);
+            Assert.fail("Expected swapping in the same Swap File twice to fail");
+        } catch (final IOException expected) {
+        }
+    }
+
+    @Test
+    public void testSerializationFormat() throws IOException {
+        final FlowFileQueue flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        when(flowFileQueue.getIdentifier()).thenReturn("87bb99fe-412c-49f6-a441-d1b0af4e20b4");
+
+        final List<FlowFileRecord> flowFileRecords = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            flowFileRecords.add(new MockFlowFileRecord(i));
+        }
+
+        // Swap Files must be written in the format that earlier versions can read unless the columnar format is configured
+        final FileSystemSwapManager schemaSwapManager = createSwapManager(Mockito.mock(FlowFileRepository.class), null);
+        final String schemaLocation = schemaSwapManager.swapOut(flowFileRecords, flowFileQueue, null);
+        assertEquals(new SchemaSwapSerializer().getSerializationName(), readSerializationName(schemaLocation));
+
+        final FileSystemSwapManager columnarSwapManager = createSwapManager(Mockito.mock(FlowFileRepository.class), "columnar");
+        final String columnarLocation = columnarSwapManager.swapOut(flowFileRecords, flowFileQueue, null);
+        assertEquals(new ColumnarSwapSerializer().getSerializationName(), readSerializationName(columnarLocation));
+
+        // Swap Files written in either format can be read regardless of the configured format
+        assertEquals(100, columnarSwapManager.peek(schemaLocation, flowFileQueue).getFlowFiles().size());
+        assertEquals(100, schemaSwapManager.peek(columnarLocation, flowFileQueue).getFlowFiles().size());
+
+        assertThrows(IllegalArgumentException.class, () -> new FileSystemSwapManager(temporaryFolder.newFolder().toPath(), "CSV"));
+    }
+
+    private String readSerializationName(final String swapLocation) throws IOException {
+        try (final DataInputStream in = new DataInputStream(new FileInputStream(swapLocation))) {
+            StreamUtils.skip(in, 4);
+            return in.readUTF();
+        }
+    }
+
     private FileSystemSwapManager createSwapManager() throws IOException {
         final FlowFileRepository flowFileRepo = Mockito.mock(FlowFileRepository.class);
         return createSwapManager(flowFileRepo);
@@ -157,7 +250,11 @@ public class TestFileSystemSwapManager {
     public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
     private FileSystemSwapManager createSwapManager(final FlowFileRepository flowFileRepo) throws IOException {
-        final FileSystemSwapManager swapManager = new FileSystemSwapManager(temporaryFolder.newFolder().toPath());
+        return createSwapManager(flowFileRepo, FileSystemSwapManager.SCHEMA_SERIALIZATION_FORMAT);
+    }
+
+    private FileSystemSwapManager createSwapManager(final FlowFileRepository flowFileRepo, final String serializationFormat) throws IOException {
+        final FileSystemSwapManager swapManager = new FileSystemSwapManager(temporaryFolder.newFolder().toPath(), serializationFormat);
         final ResourceClaimManager resourceClaimManager = new NopResourceClaimManager();
         swapManager.initialize(new SwapManagerInitializationContext() {
             @Override
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.queue;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestSwapThreshold {
+
+    @Test
+    public void testFixedThresholdIgnoresRefresh() {
+        final SwapThreshold threshold = SwapThreshold.fixed(20000);
+        threshold.refresh();
+
+        assertEquals(20000, threshold.get());
+        assertEquals(20000, threshold.getConfiguredThreshold());
+        assertFalse(threshold.isReduced());
+    }
+
+    @Test
+    public void testAdaptiveThresholdScalesWithHeapUsage() {
+        final AtomicReference<Double> heapUsage = new AtomicReference<>(0.2D);
+        final SwapThreshold threshold = SwapThreshold.adaptive(20000, heapUsage::get);
+
+        threshold.refresh();
+        assertEquals(20000, threshold.get());
+        assertFalse(threshold.isReduced());
+
+        heapUsage.set(0.7D);
+        threshold.refresh();
+        assertEquals(11000, threshold.get());
+        assertTrue(threshold.isReduced());
+
+        heapUsage.set(0.95D);
+        threshold.refresh();
+        assertEquals(2000, threshold.get());
+
+        heapUsage.set(0.5D);
+        threshold.refresh();
+        assertEquals(20000, threshold.get());
+        assertFalse(threshold.isReduced());
+        assertEquals(20000, threshold.getConfiguredThreshold());
+    }
+}
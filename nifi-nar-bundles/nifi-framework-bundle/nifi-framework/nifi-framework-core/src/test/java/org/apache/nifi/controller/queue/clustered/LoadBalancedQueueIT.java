@@ -59,8 +59,11 @@ import org.apache.nifi.provenance.ProvenanceRepository;
 import org.apache.nifi.security.util.SslContextFactory;
 import org.apache.nifi.security.util.TemporaryKeyStoreBuilder;
 import org.apache.nifi.security.util.TlsConfiguration;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -68,6 +71,7 @@ import org.mockito.stubbing.Answer;
 import javax.net.ssl.SSLContext;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -91,6 +95,7 @@ import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertArrayEquals;
@@ -103,6 +108,7 @@ import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+@RunWith(Parameterized.class)
 public class LoadBalancedQueueIT {
     private final LoadBalanceAuthorizer ALWAYS_AUTHORIZED = (sslSocket) -> sslSocket == null ? null : "authorized.mydomain.com";
     private final LoadBalanceAuthorizer NEVER_AUTHORIZED = (sslSocket) -> {
@@ -139,6 +145,20 @@ public class LoadBalancedQueueIT {
     private final Set<ClusterTopologyEventListener> clusterEventListeners = Collections.synchronizedSet(new HashSet<>());
     private final AtomicReference<LoadBalanceCompression> compressionReference = new AtomicReference<>();
 
+    private final int streamsPerConnection;
+
+    /**
+     * Runs each test against both the one-Connection-at-a-time protocol and the multiplexed protocol, in which many Connections share a socket
+     */
+    @Parameterized.Parameters(name = "streamsPerConnection={0}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(new Object[][] {{1}, {8}});
+    }
+
+    public LoadBalancedQueueIT(final int streamsPerConnection) {
+        this.streamsPerConnection = streamsPerConnection;
+    }
+
     @Before
     public void setup() throws IOException, GeneralSecurityException {
         compressionReference.set(LoadBalanceCompression.DO_NOT_COMPRESS);
@@ -213,7 +233,8 @@ public class LoadBalancedQueueIT {
 
     private NioAsyncLoadBalanceClientFactory createClientFactory(final SSLContext sslContext) {
         final FlowFileContentAccess flowFileContentAccess = flowFile -> clientContentRepo.read(flowFile.getContentClaim());
-        return new NioAsyncLoadBalanceClientFactory(sslContext, 30000, flowFileContentAccess, eventReporter, new StandardLoadBalanceFlowFileCodec(), clusterCoordinator);
+        return new NioAsyncLoadBalanceClientFactory(sslContext, 30000, flowFileContentAccess, eventReporter, new StandardLoadBalanceFlowFileCodec(), clusterCoordinator,
+            new LoadBalanceTransferMetrics(), streamsPerConnection);
     }
 
     @Test(timeout = 20_000)
@@ -1284,6 +1305,202 @@ public class LoadBalancedQueueIT {
         }
     }
 
+    @Test(timeout = 35_000)
+    public void testMultiplexedStreamAbortedForUnknownConnection() throws IOException, InterruptedException {
+        Assume.assumeTrue(streamsPerConnection > 1);
+
+        localNodeId = new NodeIdentifier("unit-test-local", "localhost", 7090, "localhost", 7090, "localhost", 7090, null, null, null, false, null);
+        nodeIdentifiers.add(localNodeId);
+
+        // Until the Connection exists on the server, the server aborts the stream that was opened for it
+        final FlowManager flowManager = flowController.getFlowManager();
+        final Connection connection = flowManager.getConnection(queueId);
+        when(flowManager.getConnection(Mockito.anyString())).thenReturn(null);
+
+        // Create the server
+        final int timeoutMillis = 30000;
+        final LoadBalanceProtocol loadBalanceProtocol = new StandardLoadBalanceProtocol(serverFlowFileRepo, serverContentRepo, serverProvRepo, flowController, ALWAYS_AUTHORIZED);
+
+        final ConnectionLoadBalanceServer server = new ConnectionLoadBalanceServer("localhost", 0, sslContext, 2, loadBalanceProtocol, eventReporter, timeoutMillis);
+        server.start();
+
+        try {
+            final int loadBalancePort = server.getPort();
+
+            // Create the Load Balanced FlowFile Queue
+            final NodeIdentifier remoteNodeId = new NodeIdentifier("unit-test", "localhost", 8090, "localhost", 8090, "localhost", loadBalancePort, null, null, null, false, null);
+            nodeIdentifiers.add(remoteNodeId);
+
+            final NioAsyncLoadBalanceClientRegistry clientRegistry = new NioAsyncLoadBalanceClientRegistry(createClientFactory(sslContext), 1);
+            clientRegistry.start();
+
+            final NodeConnectionStatus connectionStatus = mock(NodeConnectionStatus.class);
+            when(connectionStatus.getState()).thenReturn(NodeConnectionState.CONNECTED);
+            when(clusterCoordinator.getConnectionStatus(any(NodeIdentifier.class))).thenReturn(connectionStatus);
+            final NioAsyncLoadBalanceClientTask clientTask = new NioAsyncLoadBalanceClientTask(clientRegistry, clusterCoordinator, eventReporter);
+
+            final Thread clientThread = new Thread(clientTask);
+            clientThread.setDaemon(true);
+            clientThread.start();
+
+            final SocketLoadBalancedFlowFileQueue flowFileQueue = new SocketLoadBalancedFlowFileQueue(queueId, new NopConnectionEventListener(), processScheduler, clientFlowFileRepo, clientProvRepo,
+                    clientContentRepo, resourceClaimManager, clusterCoordinator, clientRegistry, flowFileSwapManager, swapThreshold, eventReporter);
+            flowFileQueue.setFlowFilePartitioner(new RoundRobinPartitioner());
+
+            try {
+                final MockFlowFileRecord firstFlowFile = new MockFlowFileRecord(0L);
+                flowFileQueue.put(firstFlowFile);
+
+                final ContentClaim contentClaim = createContentClaim("hello".getBytes());
+                final Map<String, String> attributes = new HashMap<>();
+                attributes.put("integration", "test");
+
+                final MockFlowFileRecord secondFlowFile = new MockFlowFileRecord(attributes, 5L, contentClaim);
+                flowFileQueue.put(secondFlowFile);
+
+                flowFileQueue.startLoadBalancing();
+
+                Thread.sleep(5000L);
+
+                assertTrue("Server's FlowFile Repo was updated", serverRepoRecords.isEmpty());
+                assertTrue(clientRepoRecords.isEmpty());
+                assertEquals(2, flowFileQueue.size().getObjectCount());
+
+                // Once the Connection exists, the FlowFile that was kept on the client is sent again
+                when(flowManager.getConnection(Mockito.anyString())).thenReturn(connection);
+
+                while (clientRepoRecords.size() != 1) {
+                    Thread.sleep(10L);
+                }
+
+                assertEquals(1, serverRepoRecords.size());
+                final ContentClaim serverContentClaim = serverRepoRecords.get(0).getCurrent().getContentClaim();
+                assertArrayEquals("hello".getBytes(), serverClaimContents.get(serverContentClaim));
+            } finally {
+                flowFileQueue.stopLoadBalancing();
+                clientRegistry.getAllClients().forEach(AsyncLoadBalanceClient::stop);
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test(timeout = 35_000)
+    public void testMultiplexedChecksumRejected() throws IOException, InterruptedException {
+        Assume.assumeTrue(streamsPerConnection > 1);
+
+        // Create a server that corrupts the FlowFile content that it receives, so that the checksum of the stream does not match
+        final int timeoutMillis = 30000;
+        final LoadBalanceProtocol standardProtocol = new StandardLoadBalanceProtocol(serverFlowFileRepo, serverContentRepo, serverProvRepo, flowController, ALWAYS_AUTHORIZED);
+        final AtomicBoolean corrupted = new AtomicBoolean(false);
+        final LoadBalanceProtocol loadBalanceProtocol = (socket, in, out) -> standardProtocol.receiveFlowFiles(socket, new CorruptingInputStream(in, "hello".getBytes(), corrupted), out);
+        final SSLContext sslContext = null;
+
+        final ConnectionLoadBalanceServer server = new ConnectionLoadBalanceServer("localhost", 0, sslContext, 2, loadBalanceProtocol, eventReporter, timeoutMillis);
+        server.start();
+
+        try {
+            final int loadBalancePort = server.getPort();
+
+            // Create the Load Balanced FlowFile Queue
+            final NodeIdentifier remoteNodeId = new NodeIdentifier("unit-test", "localhost", 8090, "localhost", 8090, "localhost", loadBalancePort, null, null, null, false, null);
+            nodeIdentifiers.add(remoteNodeId);
+
+            final NioAsyncLoadBalanceClientRegistry clientRegistry = new NioAsyncLoadBalanceClientRegistry(createClientFactory(sslContext), 1);
+            clientRegistry.start();
+
+            final NodeConnectionStatus connectionStatus = mock(NodeConnectionStatus.class);
+            when(connectionStatus.getState()).thenReturn(NodeConnectionState.CONNECTED);
+            when(clusterCoordinator.getConnectionStatus(any(NodeIdentifier.class))).thenReturn(connectionStatus);
+            final NioAsyncLoadBalanceClientTask clientTask = new NioAsyncLoadBalanceClientTask(clientRegistry, clusterCoordinator, eventReporter);
+
+            final Thread clientThread = new Thread(clientTask);
+            clientThread.setDaemon(true);
+            clientThread.start();
+
+            final SocketLoadBalancedFlowFileQueue flowFileQueue = new SocketLoadBalancedFlowFileQueue(queueId, new NopConnectionEventListener(), processScheduler, clientFlowFileRepo, clientProvRepo,
+                    clientContentRepo, resourceClaimManager, clusterCoordinator, clientRegistry, flowFileSwapManager, swapThreshold, eventReporter);
+            flowFileQueue.setFlowFilePartitioner(new RoundRobinPartitioner());
+
+            try {
+                final ContentClaim contentClaim = createContentClaim("hello".getBytes());
+                final Map<String, String> attributes = new HashMap<>();
+                attributes.put("integration", "test");
+
+                final MockFlowFileRecord flowFile = new MockFlowFileRecord(attributes, 5L, contentClaim);
+                flowFileQueue.put(flowFile);
+
+                flowFileQueue.startLoadBalancing();
+
+                while (!corrupted.get()) {
+                    Thread.sleep(10L);
+                }
+
+                Thread.sleep(2000L);
+
+                // The rejected transaction must not be committed on either side, and the FlowFile must remain queued on the client
+                assertTrue("Server's FlowFile Repo was updated", serverRepoRecords.isEmpty());
+                assertTrue(clientRepoRecords.isEmpty());
+                assertEquals(1, flowFileQueue.size().getObjectCount());
+            } finally {
+                flowFileQueue.stopLoadBalancing();
+                clientRegistry.getAllClients().forEach(AsyncLoadBalanceClient::stop);
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    /**
+     * Changes the last byte of the first occurrence of the given sequence in the stream. Bytes are never read ahead, so that the stream can safely be
+     * wrapped each time that the protocol is invoked for the same socket.
+     */
+    private static class CorruptingInputStream extends FilterInputStream {
+        private final byte[] sequence;
+        private final AtomicBoolean corrupted;
+        private int matched = 0;
+
+        CorruptingInputStream(final InputStream in, final byte[] sequence, final AtomicBoolean corrupted) {
+            super(in);
+            this.sequence = sequence;
+            this.corrupted = corrupted;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int value = super.read();
+            if (value < 0) {
+                return value;
+            }
+
+            return inspect((byte) value) & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int count = super.read(b, off, len);
+            for (int i = 0; i < count; i++) {
+                b[off + i] = inspect(b[off + i]);
+            }
+
+            return count;
+        }
+
+        private byte inspect(final byte value) {
+            if (corrupted.get()) {
+                return value;
+            }
+
+            matched = value == sequence[matched] ? matched + 1 : (value == sequence[0] ? 1 : 0);
+            if (matched == sequence.length) {
+                corrupted.set(true);
+                return (byte) (value + 1);
+            }
+
+            return value;
+        }
+    }
+
     private FlowFileRepository createFlowFileRepository(final List<RepositoryRecord> repoRecords) throws IOException {
         final FlowFileRepository flowFileRepo = mock(FlowFileRepository.class);
         doAnswer(invocation -> {
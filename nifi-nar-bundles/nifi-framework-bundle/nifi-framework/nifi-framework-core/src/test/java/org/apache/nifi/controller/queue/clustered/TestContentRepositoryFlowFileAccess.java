@@ -28,15 +28,24 @@ import org.apache.nifi.controller.repository.claim.StandardResourceClaim;
 import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
 import org.apache.nifi.stream.io.StreamUtils;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.ByteArrayInputStream;
 import java.io.EOFException;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -44,6 +53,9 @@ import static org.mockito.Mockito.when;
 
 public class TestContentRepositoryFlowFileAccess {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void testInputStreamFromContentRepo() throws IOException {
         final ContentRepository contentRepo = mock(ContentRepository.class);
@@ -127,4 +139,77 @@ public class TestContentRepositoryFlowFileAccess {
         }
     }
 
+    @Test
+    public void testChannelPositionedAtFlowFileContent() throws IOException {
+        final File claimFile = temporaryFolder.newFile("claim");
+        Files.write(claimFile.toPath(), "aaaaahello world".getBytes());
+
+        final ContentRepository contentRepo = mock(ContentRepository.class);
+
+        final ResourceClaimManager claimManager = new StandardResourceClaimManager();
+        final ResourceClaim resourceClaim = new StandardResourceClaim(claimManager, "container", "section", "id", false);
+        final ContentClaim contentClaim = new StandardContentClaim(resourceClaim, 5L);
+
+        final FlowFileRecord flowFile = mock(FlowFileRecord.class);
+        when(flowFile.getContentClaim()).thenReturn(contentClaim);
+        when(flowFile.getContentClaimOffset()).thenReturn(6L);
+        when(flowFile.getSize()).thenReturn(5L);
+
+        when(contentRepo.openFileChannel(contentClaim)).thenAnswer(invocation -> Optional.of(FileChannel.open(claimFile.toPath(), StandardOpenOption.READ)));
+
+        final ContentRepositoryFlowFileAccess flowAccess = new ContentRepositoryFlowFileAccess(contentRepo);
+
+        try (final FileChannel channel = flowAccess.openChannel(flowFile).orElseThrow(() -> new AssertionError("Expected a FileChannel"))) {
+            final ByteBuffer buffer = ByteBuffer.allocate(5);
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+            }
+
+            assertArrayEquals("world".getBytes(), buffer.array());
+        }
+    }
+
+    @Test
+    public void testChannelTooShortForContent() throws IOException {
+        final File claimFile = temporaryFolder.newFile("claim");
+        Files.write(claimFile.toPath(), "hello".getBytes());
+
+        final ContentRepository contentRepo = mock(ContentRepository.class);
+
+        final ResourceClaimManager claimManager = new StandardResourceClaimManager();
+        final ResourceClaim resourceClaim = new StandardResourceClaim(claimManager, "container", "section", "id", false);
+        final ContentClaim contentClaim = new StandardContentClaim(resourceClaim, 0L);
+
+        final FlowFileRecord flowFile = mock(FlowFileRecord.class);
+        when(flowFile.getContentClaim()).thenReturn(contentClaim);
+        when(flowFile.getSize()).thenReturn(100L);
+
+        final FileChannel channel = FileChannel.open(claimFile.toPath(), StandardOpenOption.READ);
+        when(contentRepo.openFileChannel(contentClaim)).thenReturn(Optional.of(channel));
+
+        final ContentRepositoryFlowFileAccess flowAccess = new ContentRepositoryFlowFileAccess(contentRepo);
+
+        try {
+            flowAccess.openChannel(flowFile);
+            Assert.fail("Expected ContentNotFoundException because the Resource Claim does not contain all of the FlowFile's content");
+        } catch (final ContentNotFoundException expected) {
+            assertFalse(channel.isOpen());
+        }
+    }
+
+    @Test
+    public void testNoChannelIfRepositoryDoesNotSupportIt() throws IOException {
+        final ContentRepository contentRepo = mock(ContentRepository.class);
+
+        final ResourceClaimManager claimManager = new StandardResourceClaimManager();
+        final ResourceClaim resourceClaim = new StandardResourceClaim(claimManager, "container", "section", "id", false);
+        final ContentClaim contentClaim = new StandardContentClaim(resourceClaim, 0L);
+
+        final FlowFileRecord flowFile = mock(FlowFileRecord.class);
+        when(flowFile.getContentClaim()).thenReturn(contentClaim);
+        when(contentRepo.openFileChannel(contentClaim)).thenReturn(Optional.empty());
+
+        final ContentRepositoryFlowFileAccess flowAccess = new ContentRepositoryFlowFileAccess(contentRepo);
+        assertFalse(flowAccess.openChannel(flowFile).isPresent());
+    }
+
 }
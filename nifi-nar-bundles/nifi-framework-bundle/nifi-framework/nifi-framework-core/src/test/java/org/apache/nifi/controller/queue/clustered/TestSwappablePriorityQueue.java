@@ -789,4 +789,108 @@ public class TestSwappablePriorityQueue {
         assertEquals(totalNow - totalQueueDate, queue.getTotalQueuedDuration(now));
         assertEquals(minQueueDate, queue.getMinLastQueueDate());
     }
+
+    @Test
+    public void testPartitionedActiveQueueSwapOutAndIn() {
+        final SwappablePriorityQueue queue = new SwappablePriorityQueue(swapManager, 10000, 4, eventReporter, flowFileQueue, dropAction, "local");
+
+        for (int i = 0; i < 20000; i++) {
+            queue.put(new MockFlowFileRecord());
+        }
+
+        assertEquals(1, swapManager.swapOutCalledCount);
+        assertEquals(10000, queue.getQueueDiagnostics().getActiveQueueSize().getObjectCount());
+        assertEquals(20000, queue.size().getObjectCount());
+
+        final Set<FlowFileRecord> expired = new HashSet<>();
+        final Set<Long> polledIds = new HashSet<>();
+        for (int i = 0; i < 20000; i++) {
+            final FlowFileRecord polled = queue.poll(expired, 0L);
+            assertNotNull(polled);
+            assertTrue(polledIds.add(polled.getId()));
+            queue.acknowledge(polled);
+        }
+
+        assertEquals(1, swapManager.swapInCalledCount);
+        assertNull(queue.poll(expired, 0L));
+        assertTrue(expired.isEmpty());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testPartitionedActiveQueuePollWithPenalizedFlowFile() {
+        final SwappablePriorityQueue queue = new SwappablePriorityQueue(swapManager, 10000, 4, eventReporter, flowFileQueue, dropAction, "local");
+
+        final FlowFileRecord penalizedFlowFile = mock(FlowFileRecord.class);
+        when(penalizedFlowFile.isPenalized()).thenReturn(true);
+        queue.put(penalizedFlowFile);
+
+        final FlowFileRecord unpenalizedFlowFile = new MockFlowFileRecord();
+        queue.put(unpenalizedFlowFile);
+
+        final Set<FlowFileRecord> expiredRecords = new HashSet<>();
+        assertSame(unpenalizedFlowFile, queue.poll(expiredRecords, 0, PollStrategy.UNPENALIZED_FLOWFILES));
+        assertNull(queue.poll(expiredRecords, 0, PollStrategy.UNPENALIZED_FLOWFILES));
+        assertSame(penalizedFlowFile, queue.poll(expiredRecords, 0, PollStrategy.ALL_FLOWFILES));
+        assertEquals(2, queue.getQueueDiagnostics().getUnacknowledgedQueueSize().getObjectCount());
+    }
+
+    @Test
+    public void testPartitionedActiveQueueHonorsPrioritizers() {
+        final SwappablePriorityQueue queue = new SwappablePriorityQueue(swapManager, 10000, 4, eventReporter, flowFileQueue, dropAction, "local");
+
+        final FlowFilePrioritizer iAttributePrioritizer = (o1, o2) -> Integer.compare(Integer.parseInt(o1.getAttribute("i")), Integer.parseInt(o2.getAttribute("i")));
+        queue.setPriorities(Collections.singletonList(iAttributePrioritizer));
+
+        for (int i = 999; i >= 0; i--) {
+            final MockFlowFile flowFile = new MockFlowFile(i);
+            flowFile.putAttributes(Collections.singletonMap("i", String.valueOf(i)));
+            queue.put(flowFile);
+        }
+
+        final List<FlowFileRecord> polled = queue.poll(1000, new HashSet<>(), 0L);
+        assertEquals(1000, polled.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(String.valueOf(i), polled.get(i).getAttribute("i"));
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testPartitionedActiveQueueConcurrentPutAndPoll() throws InterruptedException {
+        final SwappablePriorityQueue queue = new SwappablePriorityQueue(swapManager, 1000, 8, eventReporter, flowFileQueue, dropAction, "local");
+
+        final int threadCount = 8;
+        final int flowFilesPerThread = 5000;
+        final Set<Long> polledIds = Collections.synchronizedSet(new HashSet<>());
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            threads.add(new Thread(() -> {
+                final Set<FlowFileRecord> expired = new HashSet<>();
+                for (int i = 0; i < flowFilesPerThread; i++) {
+                    queue.put(new MockFlowFileRecord());
+
+                    final List<FlowFileRecord> polled = queue.poll(2, expired, 0L);
+                    polled.forEach(flowFile -> polledIds.add(flowFile.getId()));
+                    queue.acknowledge(polled);
+                }
+            }));
+        }
+
+        threads.forEach(Thread::start);
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        final Set<FlowFileRecord> expired = new HashSet<>();
+        List<FlowFileRecord> polled;
+        while (!(polled = queue.poll(100, expired, 0L)).isEmpty()) {
+            polled.forEach(flowFile -> polledIds.add(flowFile.getId()));
+            queue.acknowledge(polled);
+        }
+
+        assertEquals(threadCount * flowFilesPerThread, polledIds.size());
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.getFlowFileQueueSize().getActiveCount());
+        assertEquals(0, queue.getFlowFileQueueSize().getSwappedCount());
+    }
 }
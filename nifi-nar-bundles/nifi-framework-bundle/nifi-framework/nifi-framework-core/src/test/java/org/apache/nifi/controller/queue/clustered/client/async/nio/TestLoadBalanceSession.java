@@ -23,34 +23,44 @@ import org.apache.nifi.controller.queue.clustered.FlowFileContentAccess;
 import org.apache.nifi.controller.queue.clustered.SimpleLimitThreshold;
 import org.apache.nifi.controller.queue.clustered.client.StandardLoadBalanceFlowFileCodec;
 import org.apache.nifi.controller.queue.clustered.client.async.TransactionFailureCallback;
+import org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceCodec;
 import org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants;
 import org.apache.nifi.controller.repository.FlowFileRecord;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.zip.CRC32;
 import java.util.zip.CheckedOutputStream;
 import java.util.zip.Checksum;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class TestLoadBalanceSession {
@@ -66,6 +76,9 @@ public class TestLoadBalanceSession {
         }
     };
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private ByteArrayOutputStream received;
     private ServerSocket serverSocket;
     private int port;
@@ -85,6 +98,7 @@ public class TestLoadBalanceSession {
                     int data;
 
                     socket.getOutputStream().write(LoadBalanceProtocolConstants.VERSION_ACCEPTED);
+                    socket.getOutputStream().write(LoadBalanceCodec.GZIP.getId());
                     socket.getOutputStream().write(LoadBalanceProtocolConstants.SPACE_AVAILABLE);
                     socket.getOutputStream().write(LoadBalanceProtocolConstants.CONFIRM_CHECKSUM);
                     socket.getOutputStream().write(LoadBalanceProtocolConstants.CONFIRM_COMPLETE_TRANSACTION);
@@ -141,7 +155,8 @@ public class TestLoadBalanceSession {
 
         final Checksum expectedChecksum = new CRC32();
         final ByteArrayOutputStream expectedOut = new ByteArrayOutputStream();
-        expectedOut.write(1); // Protocol Version
+        expectedOut.write(2); // Protocol Version
+        writeOfferedCodecs(expectedOut);
 
         final DataOutputStream expectedDos = new DataOutputStream(new CheckedOutputStream(expectedOut, expectedChecksum));
         expectedDos.writeUTF("unit-test-connection");
@@ -227,9 +242,88 @@ public class TestLoadBalanceSession {
 
         socketChannel.close();
 
+        final byte[] expectedSent = getExpectedLargeContentTransaction(content, flowFile1);
+
+        while (received.size() < expectedSent.length) {
+            Thread.sleep(10L);
+        }
+        final byte[] dataSent = received.toByteArray();
+
+        assertArrayEquals(expectedSent, dataSent);
+
+        assertEquals(Arrays.asList(flowFile1), transaction.getAndPurgeFlowFilesSent());
+    }
+
+    @Test(timeout = 10000)
+    public void testLargeContentFromFileChannel() throws InterruptedException, IOException {
+        final byte[] content = new byte[66000];
+        for (int i=0; i < 66000; i++) {
+            content[i] = (byte) ('A' + i % 26);
+        }
+
+        // Place the content after some unrelated bytes, as it would be in a Resource Claim that is shared by several FlowFiles
+        final File claimFile = temporaryFolder.newFile("claim");
+        try (final FileOutputStream fos = new FileOutputStream(claimFile)) {
+            fos.write("unrelated".getBytes());
+            fos.write(content);
+            fos.write("trailing".getBytes());
+        }
+
+        final Queue<FlowFileRecord> flowFiles = new LinkedList<>();
+        final FlowFileRecord flowFile1 = new MockFlowFileRecord(content.length);
+        flowFiles.offer(flowFile1);
+
+        final AtomicReference<FileChannel> openedChannel = new AtomicReference<>();
+        final FlowFileContentAccess contentAccess = new FlowFileContentAccess() {
+            @Override
+            public InputStream read(final FlowFileRecord flowFile) {
+                throw new AssertionError("Content should have been read from the FileChannel");
+            }
+
+            @Override
+            public Optional<FileChannel> openChannel(final FlowFileRecord flowFile) throws IOException {
+                final FileChannel channel = FileChannel.open(claimFile.toPath(), StandardOpenOption.READ);
+                channel.position("unrelated".length());
+                openedChannel.set(channel);
+                return Optional.of(channel);
+            }
+        };
+
+        final RegisteredPartition partition = new RegisteredPartition("unit-test-connection", () -> false,
+            flowFiles::poll, NOP_FAILURE_CALLBACK, (ff, nodeId) -> {}, () -> LoadBalanceCompression.DO_NOT_COMPRESS, () -> true);
+
+        final SocketChannel socketChannel = SocketChannel.open(new InetSocketAddress("localhost", port));
+
+        socketChannel.configureBlocking(false);
+        final PeerChannel peerChannel = new PeerChannel(socketChannel, null, "unit-test");
+        final LoadBalanceSession transaction = new LoadBalanceSession(partition, contentAccess, new StandardLoadBalanceFlowFileCodec(), peerChannel, 30000,
+            new SimpleLimitThreshold(100, 10_000_000));
+
+        Thread.sleep(100L);
+
+        while (transaction.communicate()) {
+        }
+
+        socketChannel.close();
+
+        final byte[] expectedSent = getExpectedLargeContentTransaction(content, flowFile1);
+
+        while (received.size() < expectedSent.length) {
+            Thread.sleep(10L);
+        }
+        final byte[] dataSent = received.toByteArray();
+
+        assertArrayEquals(expectedSent, dataSent);
+
+        assertEquals(Arrays.asList(flowFile1), transaction.getAndPurgeFlowFilesSent());
+        assertFalse(openedChannel.get().isOpen());
+    }
+
+    private byte[] getExpectedLargeContentTransaction(final byte[] content, final FlowFileRecord flowFile1) throws IOException {
         final Checksum expectedChecksum = new CRC32();
         final ByteArrayOutputStream expectedOut = new ByteArrayOutputStream();
-        expectedOut.write(1); // Protocol Version
+        expectedOut.write(2); // Protocol Version
+        writeOfferedCodecs(expectedOut);
 
         final DataOutputStream expectedDos = new DataOutputStream(new CheckedOutputStream(expectedOut, expectedChecksum));
 
@@ -262,15 +356,12 @@ public class TestLoadBalanceSession {
         expectedDos.writeLong(expectedChecksum.getValue());
         expectedDos.write(LoadBalanceProtocolConstants.COMPLETE_TRANSACTION);
 
-        final byte[] expectedSent = expectedOut.toByteArray();
-
-        while (received.size() < expectedSent.length) {
-            Thread.sleep(10L);
-        }
-        final byte[] dataSent = received.toByteArray();
-
-        assertArrayEquals(expectedSent, dataSent);
+        return expectedOut.toByteArray();
+    }
 
-        assertEquals(Arrays.asList(flowFile1), transaction.getAndPurgeFlowFilesSent());
+    private void writeOfferedCodecs(final ByteArrayOutputStream out) {
+        final List<LoadBalanceCodec> codecs = LoadBalanceCodec.getPreferredCodecs();
+        out.write(codecs.size());
+        codecs.forEach(codec -> out.write(codec.getId()));
     }
 }
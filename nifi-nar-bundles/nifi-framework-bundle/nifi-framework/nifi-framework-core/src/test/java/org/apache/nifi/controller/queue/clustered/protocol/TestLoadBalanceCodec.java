@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.queue.clustered.protocol;
+
+import org.apache.nifi.stream.io.StreamUtils;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
+
+public class TestLoadBalanceCodec {
+
+    @Test
+    public void testGzipCompressorReadableByGzipInputStream() throws IOException {
+        final byte[] data = createData(100_000);
+
+        try (final FrameCompressor compressor = LoadBalanceCodec.GZIP.createCompressor()) {
+            final int compressedLength = compressor.compress(data, 0, data.length);
+
+            final ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+            try (final InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressor.getBuffer(), 0, compressedLength))) {
+                StreamUtils.copy(in, decompressed);
+            }
+
+            assertArrayEquals(data, decompressed.toByteArray());
+        }
+    }
+
+    @Test
+    public void testCompressorReuse() throws IOException {
+        for (final LoadBalanceCodec codec : LoadBalanceCodec.getPreferredCodecs()) {
+            try (final FrameCompressor compressor = codec.createCompressor()) {
+                for (int size : new int[] {65535, 1, 0, 4096}) {
+                    final byte[] data = createData(size);
+                    final int compressedLength = compressor.compress(data, 0, data.length);
+                    final byte[] compressed = Arrays.copyOf(compressor.getBuffer(), compressedLength);
+
+                    final byte[] destination = new byte[65536];
+                    final int decompressedLength = codec.decompressFrame(new DataInputStream(new ByteArrayInputStream(compressed)), compressedLength, destination, new byte[128 * 1024]);
+                    assertEquals(size, decompressedLength);
+                    assertArrayEquals(data, Arrays.copyOf(destination, decompressedLength));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDecompressLeavesRemainingBytes() throws IOException {
+        for (final LoadBalanceCodec codec : LoadBalanceCodec.getPreferredCodecs()) {
+            final byte[] data = createData(500);
+
+            try (final FrameCompressor compressor = codec.createCompressor()) {
+                final int compressedLength = compressor.compress(data, 0, data.length);
+
+                final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                baos.write(compressor.getBuffer(), 0, compressedLength);
+                baos.write(42);
+
+                final InputStream in = new ByteArrayInputStream(baos.toByteArray());
+                final ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+                StreamUtils.copy(codec.decompress(in, compressedLength), decompressed);
+
+                assertArrayEquals(data, decompressed.toByteArray());
+                assertEquals(42, in.read());
+            }
+        }
+    }
+
+    @Test
+    public void testDecompressRejectsInvalidLength() {
+        for (final LoadBalanceCodec codec : LoadBalanceCodec.getPreferredCodecs()) {
+            assertThrows(IOException.class, () -> codec.decompress(new ByteArrayInputStream(new byte[16]), -1));
+        }
+    }
+
+    @Test
+    public void testSnappyDecompressRejectsTruncatedAndInvalidData() throws IOException {
+        Assume.assumeTrue(LoadBalanceCodec.SNAPPY.isAvailable());
+
+        // A peer that claims far more bytes than it sends must not cause the full claimed length to be allocated
+        assertThrows(EOFException.class, () -> LoadBalanceCodec.SNAPPY.decompress(new ByteArrayInputStream(new byte[16]), Integer.MAX_VALUE));
+
+        // Declares a decompressed length of Integer.MAX_VALUE in its varint header but holds no data
+        final byte[] oversized = new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        assertThrows(IOException.class, () -> LoadBalanceCodec.SNAPPY.decompress(new ByteArrayInputStream(oversized), oversized.length));
+    }
+
+    @Test
+    public void testSnappyPreferredWhenAvailable() {
+        Assume.assumeTrue(LoadBalanceCodec.SNAPPY.isAvailable());
+        assertSame(LoadBalanceCodec.SNAPPY, LoadBalanceCodec.getPreferredCodecs().get(0));
+    }
+
+    @Test
+    public void testFromId() {
+        for (final LoadBalanceCodec codec : LoadBalanceCodec.values()) {
+            assertSame(codec, LoadBalanceCodec.fromId(codec.getId()));
+        }
+
+        assertNull(LoadBalanceCodec.fromId(0));
+        assertNull(LoadBalanceCodec.fromId(255));
+    }
+
+    private byte[] createData(final int size) {
+        final byte[] pattern = "The quick brown fox jumps over the lazy dog. ".getBytes(StandardCharsets.UTF_8);
+        final byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (pattern[i % pattern.length] + (i / 1000) % 3);
+        }
+        return data;
+    }
+}
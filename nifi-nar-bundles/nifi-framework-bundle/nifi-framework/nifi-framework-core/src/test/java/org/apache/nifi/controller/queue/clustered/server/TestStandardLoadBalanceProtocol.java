@@ -23,6 +23,8 @@ import org.apache.nifi.controller.flow.FlowManager;
 import org.apache.nifi.controller.queue.IllegalClusterStateException;
 import org.apache.nifi.controller.queue.LoadBalanceCompression;
 import org.apache.nifi.controller.queue.LoadBalancedFlowFileQueue;
+import org.apache.nifi.controller.queue.clustered.protocol.FrameCompressor;
+import org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceCodec;
 import org.apache.nifi.controller.repository.ContentRepository;
 import org.apache.nifi.controller.repository.FlowFileRecord;
 import org.apache.nifi.controller.repository.FlowFileRepository;
@@ -39,6 +41,7 @@ import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
@@ -60,6 +63,7 @@ import java.util.zip.Checksum;
 
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.ABORT_TRANSACTION;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.CHECK_SPACE;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.CLOSE_SESSION;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.COMPLETE_TRANSACTION;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.CONFIRM_CHECKSUM;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.CONFIRM_COMPLETE_TRANSACTION;
@@ -67,11 +71,14 @@ import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalancePro
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.MORE_FLOWFILES;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.NO_DATA_FRAME;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.NO_MORE_FLOWFILES;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.OPEN_STREAM;
+import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.QUEUE_FULL;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.REJECT_CHECKSUM;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.SKIP_SPACE_CHECK;
 import static org.apache.nifi.controller.queue.clustered.protocol.LoadBalanceProtocolConstants.SPACE_AVAILABLE;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyList;
@@ -491,7 +498,7 @@ public class TestStandardLoadBalanceProtocol {
 
         // Indicate 45 byte data frame, then stop after 5 bytes.
         dos.write(DATA_FRAME_FOLLOWS);
-        dos.writeShort(45);
+        dos.writeInt(45);
         dos.write("hello".getBytes());
         dos.flush();
         dos.close();
@@ -519,6 +526,48 @@ public class TestStandardLoadBalanceProtocol {
         Mockito.verify(contentRepo, times(1)).remove(claimContents.keySet().iterator().next());
     }
 
+    @Test
+    public void testOversizedDataFrameRejectedBeforeConsumingContent() throws IOException {
+        final StandardLoadBalanceProtocol protocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepo, provenanceRepo, flowController, ALWAYS_AUTHORIZED);
+
+        final ByteArrayOutputStream serverContentSource = new ByteArrayOutputStream();
+        final DataOutputStream dos = new DataOutputStream(serverContentSource);
+        dos.writeUTF("unit-test-connection-id");
+
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("uuid", "unit-test-id");
+
+        dos.write(CHECK_SPACE);
+        dos.write(MORE_FLOWFILES);
+        writeAttributes(attributes, dos);
+
+        // Indicate a data frame that is larger than any frame the server will accept, followed by some of its content.
+        dos.write(DATA_FRAME_FOLLOWS);
+        dos.writeInt(Integer.MAX_VALUE);
+        dos.write("hello".getBytes());
+        dos.close();
+
+        final ByteArrayInputStream serverInput = new ByteArrayInputStream(serverContentSource.toByteArray());
+        final ByteArrayOutputStream serverOutput = new ByteArrayOutputStream();
+
+        try {
+            protocol.receiveFlowFiles(serverInput, serverOutput, "Unit Test", 1);
+            Assert.fail("Expected IOException but none was thrown");
+        } catch (final IOException e) {
+            assertFalse(e instanceof EOFException);
+        }
+
+        // None of the frame's content should have been consumed
+        assertEquals(5, serverInput.available());
+
+        assertEquals(1, claimContents.size());
+        assertArrayEquals(new byte[0], claimContents.values().iterator().next());
+
+        Mockito.verify(flowFileRepo, times(0)).updateRepository(anyCollection());
+        Mockito.verify(provenanceRepo, times(0)).registerEvents(anyList());
+        Mockito.verify(flowFileQueue, times(0)).putAll(anyCollection());
+    }
+
     @Test
     public void testAbortAfterChecksumConfirmation() throws IOException {
         final StandardLoadBalanceProtocol protocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepo, provenanceRepo, flowController, ALWAYS_AUTHORIZED);
@@ -571,6 +620,75 @@ public class TestStandardLoadBalanceProtocol {
         Mockito.verify(contentRepo, times(1)).remove(claimContents.keySet().iterator().next());
     }
 
+    @Test
+    public void testCompressedFlowFileWithNegotiatedCodec() throws IOException, IllegalClusterStateException {
+        when(flowFileQueue.getLoadBalanceCompression()).thenReturn(LoadBalanceCompression.COMPRESS_ATTRIBUTES_AND_CONTENT);
+        final StandardLoadBalanceProtocol protocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepo, provenanceRepo, flowController, ALWAYS_AUTHORIZED);
+        final LoadBalanceCodec codec = LoadBalanceCodec.getPreferredCodecs().get(0);
+
+        // The compressed content is larger than a pipe's buffer, so write the entire transaction up front
+        final ByteArrayOutputStream serverContentSource = new ByteArrayOutputStream();
+
+        final ByteArrayOutputStream serverOutput = new ByteArrayOutputStream();
+
+        // Offer an unknown codec followed by the preferred codec; the server should skip the unknown one
+        serverContentSource.write(2);
+        serverContentSource.write(255);
+        serverContentSource.write(codec.getId());
+
+        final Checksum checksum = new CRC32();
+        final OutputStream checkedOutput = new CheckedOutputStream(serverContentSource, checksum);
+        final DataOutputStream dos = new DataOutputStream(checkedOutput);
+        dos.writeUTF("unit-test-connection-id");
+
+        final Map<String, String> attributes = new HashMap<>();
+        attributes.put("uuid", "unit-test-id");
+
+        final byte[] content = new byte[100_000];
+        Arrays.fill(content, (byte) 'A');
+
+        try (final FrameCompressor compressor = codec.createCompressor()) {
+            dos.write(CHECK_SPACE);
+            dos.write(MORE_FLOWFILES);
+
+            final ByteArrayOutputStream metadata = new ByteArrayOutputStream();
+            writeAttributes(attributes, new DataOutputStream(metadata));
+            final byte[] metadataBytes = metadata.toByteArray();
+            // writeAttributes prefixes the metadata with its length, which the compressed form replaces
+            final int metadataLength = compressor.compress(metadataBytes, 4, metadataBytes.length - 4);
+            dos.writeInt(metadataLength);
+            dos.write(compressor.getBuffer(), 0, metadataLength);
+
+            for (int offset = 0; offset < content.length; offset += 65535) {
+                final int frameLength = compressor.compress(content, offset, Math.min(65535, content.length - offset));
+                dos.write(DATA_FRAME_FOLLOWS);
+                dos.writeInt(frameLength);
+                dos.write(compressor.getBuffer(), 0, frameLength);
+            }
+
+            dos.write(NO_DATA_FRAME);
+            dos.write(NO_MORE_FLOWFILES);
+        }
+
+        dos.writeLong(checksum.getValue());
+        dos.write(COMPLETE_TRANSACTION);
+
+        protocol.receiveFlowFiles(new ByteArrayInputStream(serverContentSource.toByteArray()), serverOutput, "Unit Test", 2);
+
+        final byte[] serverResponse = serverOutput.toByteArray();
+        assertEquals(4, serverResponse.length);
+        assertEquals(codec.getId(), serverResponse[0]);
+        assertEquals(SPACE_AVAILABLE, serverResponse[1]);
+        assertEquals(CONFIRM_CHECKSUM, serverResponse[2]);
+        assertEquals(CONFIRM_COMPLETE_TRANSACTION, serverResponse[3]);
+
+        assertEquals(1, claimContents.size());
+        assertArrayEquals(content, claimContents.values().iterator().next());
+
+        Mockito.verify(flowFileRepo, times(1)).updateRepository(anyCollection());
+        Mockito.verify(flowFileQueue, times(1)).receiveFromPeer(anyCollection());
+    }
+
     @Test
     public void testFlowFileNoContent() throws IOException, IllegalClusterStateException {
         final StandardLoadBalanceProtocol protocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepo, provenanceRepo, flowController, ALWAYS_AUTHORIZED);
@@ -616,6 +734,125 @@ public class TestStandardLoadBalanceProtocol {
         Mockito.verify(flowFileQueue, times(1)).receiveFromPeer(anyCollection());
     }
 
+    @Test
+    public void testMultiplexedStreamsInterleaved() throws IOException, IllegalClusterStateException {
+        final StandardLoadBalanceProtocol protocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepo, provenanceRepo, flowController, ALWAYS_AUTHORIZED);
+
+        final ByteArrayOutputStream serverContentSource = new ByteArrayOutputStream();
+        final MultiplexedFrameWriter writer = new MultiplexedFrameWriter(serverContentSource);
+
+        final byte[] largeContent = new byte[100_000];
+        Arrays.fill(largeContent, (byte) 'A');
+
+        // Start a large FlowFile on stream 1, then send a complete transaction on stream 2 before finishing stream 1
+        writer.open(1, "connection-1", CHECK_SPACE);
+        writer.open(2, "connection-2", CHECK_SPACE);
+        writer.frame(MORE_FLOWFILES, 1, writer.metadata(Collections.singletonMap("uuid", "large")));
+        writer.frame(DATA_FRAME_FOLLOWS, 1, Arrays.copyOfRange(largeContent, 0, 65535));
+        writer.flowFile(2, Collections.singletonMap("uuid", "small"), "hello".getBytes());
+        writer.complete(2);
+        writer.frame(DATA_FRAME_FOLLOWS, 1, Arrays.copyOfRange(largeContent, 65535, largeContent.length));
+        writer.frame(NO_DATA_FRAME, 1, new byte[0]);
+        writer.complete(1);
+        writer.closeSession();
+
+        final ByteArrayOutputStream serverOutput = new ByteArrayOutputStream();
+        protocol.receiveFlowFiles(new ByteArrayInputStream(serverContentSource.toByteArray()), serverOutput, "Unit Test", 3);
+
+        final byte[] serverResponse = serverOutput.toByteArray();
+        assertEquals(1 + 4 * 6, serverResponse.length);
+        assertStreamResponse(serverResponse, 0, SPACE_AVAILABLE, 1);
+        assertStreamResponse(serverResponse, 1, SPACE_AVAILABLE, 2);
+        assertStreamResponse(serverResponse, 2, CONFIRM_COMPLETE_TRANSACTION, 2);
+        assertStreamResponse(serverResponse, 3, CONFIRM_COMPLETE_TRANSACTION, 1);
+
+        // Each stream writes to its own Content Claim
+        assertEquals(2, claimContents.size());
+        assertTrue(claimContents.values().stream().anyMatch(content -> Arrays.equals("hello".getBytes(), content)));
+        assertTrue(claimContents.values().stream().anyMatch(content -> Arrays.equals(largeContent, content)));
+
+        assertEquals(2, flowFileQueueReceiveRecords.size());
+        assertEquals("small", provRepoUpdateRecords.get(0).getSourceSystemFlowFileIdentifier());
+        assertEquals("large", provRepoUpdateRecords.get(1).getSourceSystemFlowFileIdentifier());
+        Mockito.verify(flowFileQueue, times(2)).receiveFromPeer(anyCollection());
+    }
+
+    @Test
+    public void testMultiplexedQueueFullAndAbortedStream() throws IOException, IllegalClusterStateException {
+        when(flowFileQueue.isLocalPartitionFull()).thenReturn(true);
+        final StandardLoadBalanceProtocol protocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepo, provenanceRepo, flowController, ALWAYS_AUTHORIZED);
+
+        final ByteArrayOutputStream serverContentSource = new ByteArrayOutputStream();
+        final MultiplexedFrameWriter writer = new MultiplexedFrameWriter(serverContentSource);
+
+        // Stream 1 checks for space and is refused. Stream 2 does not check but is aborted part way through. Stream 3 completes.
+        writer.open(1, "connection-1", CHECK_SPACE);
+        writer.open(2, "connection-2", SKIP_SPACE_CHECK);
+        writer.open(3, "connection-3", SKIP_SPACE_CHECK);
+        writer.frame(MORE_FLOWFILES, 2, writer.metadata(Collections.singletonMap("uuid", "aborted")));
+        writer.frame(DATA_FRAME_FOLLOWS, 2, "partial".getBytes());
+        writer.flowFile(3, Collections.singletonMap("uuid", "received"), "hello".getBytes());
+        writer.frame(ABORT_TRANSACTION, 2, new byte[0]);
+        writer.complete(3);
+        writer.closeSession();
+
+        final ByteArrayOutputStream serverOutput = new ByteArrayOutputStream();
+        protocol.receiveFlowFiles(new ByteArrayInputStream(serverContentSource.toByteArray()), serverOutput, "Unit Test", 3);
+
+        final byte[] serverResponse = serverOutput.toByteArray();
+        assertEquals(1 + 5 * 6, serverResponse.length);
+        assertStreamResponse(serverResponse, 0, QUEUE_FULL, 1);
+        assertStreamResponse(serverResponse, 1, SPACE_AVAILABLE, 2);
+        assertStreamResponse(serverResponse, 2, SPACE_AVAILABLE, 3);
+        assertStreamResponse(serverResponse, 3, ABORT_TRANSACTION, 2);
+        assertStreamResponse(serverResponse, 4, CONFIRM_COMPLETE_TRANSACTION, 3);
+
+        assertEquals(1, flowFileQueueReceiveRecords.size());
+        assertEquals(5, flowFileQueueReceiveRecords.get(0).getSize());
+
+        // The aborted stream's Content Claim is removed, as is the completed stream's because the mocked repository reports no remaining claimants
+        Mockito.verify(contentRepo, times(2)).remove(Mockito.any(ContentClaim.class));
+    }
+
+    @Test
+    public void testMultiplexedBadChecksum() throws IOException, IllegalClusterStateException {
+        final StandardLoadBalanceProtocol protocol = new StandardLoadBalanceProtocol(flowFileRepo, contentRepo, provenanceRepo, flowController, ALWAYS_AUTHORIZED);
+
+        final ByteArrayOutputStream serverContentSource = new ByteArrayOutputStream();
+        final MultiplexedFrameWriter writer = new MultiplexedFrameWriter(serverContentSource);
+
+        writer.open(1, "connection-1", CHECK_SPACE);
+        writer.open(2, "connection-2", CHECK_SPACE);
+        writer.flowFile(1, Collections.singletonMap("uuid", "first"), "hello".getBytes());
+        writer.flowFile(2, Collections.singletonMap("uuid", "second"), "world".getBytes());
+        writer.frame(NO_MORE_FLOWFILES, 1, new byte[] {0, 0, 0, 0, 0, 0, 0, 1});
+        writer.complete(2);
+        writer.closeSession();
+
+        final ByteArrayOutputStream serverOutput = new ByteArrayOutputStream();
+        protocol.receiveFlowFiles(new ByteArrayInputStream(serverContentSource.toByteArray()), serverOutput, "Unit Test", 3);
+
+        final byte[] serverResponse = serverOutput.toByteArray();
+        assertEquals(1 + 4 * 6, serverResponse.length);
+        assertStreamResponse(serverResponse, 0, SPACE_AVAILABLE, 1);
+        assertStreamResponse(serverResponse, 1, SPACE_AVAILABLE, 2);
+        assertStreamResponse(serverResponse, 2, REJECT_CHECKSUM, 1);
+        assertStreamResponse(serverResponse, 3, CONFIRM_COMPLETE_TRANSACTION, 2);
+
+        // Only the stream whose checksum was corrupted is rejected; the other stream on the same connection still completes
+        assertEquals(1, flowFileQueueReceiveRecords.size());
+        assertEquals(5, flowFileQueueReceiveRecords.get(0).getSize());
+        Mockito.verify(flowFileRepo, times(1)).updateRepository(anyCollection());
+        Mockito.verify(contentRepo, times(2)).remove(Mockito.any(ContentClaim.class));
+    }
+
+    private void assertStreamResponse(final byte[] serverResponse, final int responseIndex, final int expectedType, final int expectedStreamId) {
+        // The first byte of the response is the codec that the server chose
+        final int offset = 1 + responseIndex * 6;
+        assertEquals(expectedType, serverResponse[offset]);
+        assertEquals(expectedStreamId, serverResponse[offset + 1]);
+    }
+
     private void writeAttributes(final Map<String, String> attributes, final DataOutputStream dos) throws IOException {
         try (final ByteArrayOutputStream baos = new ByteArrayOutputStream();
              final DataOutputStream out = new DataOutputStream(baos)) {
@@ -663,4 +900,73 @@ public class TestStandardLoadBalanceProtocol {
 
         out.write(NO_DATA_FRAME);
     }
+
+    /**
+     * Writes the frames of a multiplexed (version 3) session, keeping a checksum for each stream
+     */
+    private class MultiplexedFrameWriter {
+        private final DataOutputStream out;
+        private final Map<Integer, Checksum> checksums = new HashMap<>();
+
+        MultiplexedFrameWriter(final OutputStream out) throws IOException {
+            this.out = new DataOutputStream(out);
+
+            // Offer the preferred codec
+            this.out.write(1);
+            this.out.write(LoadBalanceCodec.getPreferredCodecs().get(0).getId());
+        }
+
+        void open(final int streamId, final String connectionId, final int spaceCheck) throws IOException {
+            final byte[] connectionIdBytes = connectionId.getBytes();
+            final byte[] payload = new byte[connectionIdBytes.length + 1];
+            payload[0] = (byte) spaceCheck;
+            System.arraycopy(connectionIdBytes, 0, payload, 1, connectionIdBytes.length);
+
+            checksums.put(streamId, new CRC32());
+            frame(OPEN_STREAM, streamId, payload);
+        }
+
+        byte[] metadata(final Map<String, String> attributes) throws IOException {
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            writeAttributes(attributes, new DataOutputStream(baos));
+
+            // writeAttributes prefixes the metadata with its length, which the frame header replaces
+            final byte[] metadata = baos.toByteArray();
+            return Arrays.copyOfRange(metadata, 4, metadata.length);
+        }
+
+        void flowFile(final int streamId, final Map<String, String> attributes, final byte[] content) throws IOException {
+            frame(MORE_FLOWFILES, streamId, metadata(attributes));
+            frame(DATA_FRAME_FOLLOWS, streamId, content);
+            frame(NO_DATA_FRAME, streamId, new byte[0]);
+        }
+
+        void complete(final int streamId) throws IOException {
+            final long checksum = checksums.remove(streamId).getValue();
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            new DataOutputStream(baos).writeLong(checksum);
+            frame(NO_MORE_FLOWFILES, streamId, baos.toByteArray());
+        }
+
+        void closeSession() throws IOException {
+            frame(CLOSE_SESSION, 0, new byte[0]);
+        }
+
+        void frame(final int frameType, final int streamId, final byte[] payload) throws IOException {
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            final DataOutputStream frameOut = new DataOutputStream(baos);
+            frameOut.write(frameType);
+            frameOut.write(streamId);
+            frameOut.writeInt(payload.length);
+            frameOut.write(payload);
+
+            final byte[] frame = baos.toByteArray();
+            final Checksum checksum = checksums.get(streamId);
+            if (checksum != null && frameType != NO_MORE_FLOWFILES && frameType != ABORT_TRANSACTION) {
+                checksum.update(frame, 0, frame.length);
+            }
+
+            out.write(frame);
+        }
+    }
 }
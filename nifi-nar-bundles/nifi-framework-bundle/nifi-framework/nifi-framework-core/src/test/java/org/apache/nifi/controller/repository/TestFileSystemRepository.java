@@ -25,6 +25,7 @@ import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
 import org.apache.nifi.controller.repository.util.DiskUtils;
 import org.apache.nifi.events.EventReporter;
 import org.apache.nifi.processor.DataUnit;
+import org.apache.nifi.stream.io.ByteBufferInputStream;
 import org.apache.nifi.stream.io.StreamUtils;
 import org.apache.nifi.util.NiFiProperties;
 import org.junit.After;
@@ -52,8 +53,10 @@ import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 
@@ -62,6 +65,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 
 public class TestFileSystemRepository {
@@ -496,6 +500,78 @@ public class TestFileSystemRepository {
         }
     }
 
+    @Test
+    public void testMappedReadsOfSealedResourceClaim() throws IOException {
+        repository.shutdown();
+        repository = createRepositoryWithMappedReads();
+
+        final List<ContentClaim> claims = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final ContentClaim claim = repository.create(false);
+            try (final OutputStream out = repository.write(claim)) {
+                out.write(("content-" + i).getBytes(StandardCharsets.UTF_8));
+            }
+            claims.add(claim);
+        }
+
+        final ResourceClaim resourceClaim = claims.get(0).getResourceClaim();
+        for (final ContentClaim claim : claims) {
+            assertEquals(resourceClaim, claim.getResourceClaim());
+        }
+
+        // Resource Claim is still writable, so it must not be mapped.
+        try (final InputStream in = repository.read(claims.get(0))) {
+            assertFalse(in instanceof ByteBufferInputStream);
+        }
+
+        claimManager.freeze(resourceClaim);
+
+        for (int i = 0; i < claims.size(); i++) {
+            final ContentClaim claim = claims.get(i);
+            final byte[] expected = ("content-" + i).getBytes(StandardCharsets.UTF_8);
+
+            try (final InputStream in = repository.read(claim)) {
+                assertTrue(in instanceof ByteBufferInputStream);
+                assertEquals(expected.length, in.available());
+                assertArrayEquals(expected, readFully(in, expected.length));
+                assertEquals(-1, in.read());
+            }
+        }
+    }
+
+    @Test
+    public void testMappedReadAfterResourceClaimRemoved() throws IOException {
+        repository.shutdown();
+        repository = createRepositoryWithMappedReads();
+
+        final ContentClaim claim = repository.create(false);
+        try (final OutputStream out = repository.write(claim)) {
+            out.write("hello".getBytes(StandardCharsets.UTF_8));
+        }
+
+        claimManager.freeze(claim.getResourceClaim());
+        try (final InputStream in = repository.read(claim)) {
+            assertTrue(in instanceof ByteBufferInputStream);
+        }
+
+        repository.decrementClaimantCount(claim);
+        assertTrue(repository.remove(claim));
+        assertThrows(ContentNotFoundException.class, () -> repository.read(claim));
+    }
+
+    private FileSystemRepository createRepositoryWithMappedReads() throws IOException {
+        final Map<String, String> additionalProperties = new HashMap<>();
+        additionalProperties.put(NiFiProperties.CONTENT_REPOSITORY_MAPPED_READS_ENABLED, "true");
+        additionalProperties.put(NiFiProperties.CONTENT_REPOSITORY_MAPPED_READS_MAX_SIZE, "1 MB");
+        final NiFiProperties properties = NiFiProperties.createBasicNiFiProperties(TestFileSystemRepository.class.getResource("/conf/nifi.properties").getFile(), additionalProperties);
+
+        final FileSystemRepository mappedRepository = new FileSystemRepository(properties);
+        claimManager = new StandardResourceClaimManager();
+        mappedRepository.initialize(new StandardContentRepositoryContext(claimManager, EventReporter.NO_OP));
+        mappedRepository.purge();
+        return mappedRepository;
+    }
+
     private boolean isWindowsEnvironment() {
         return System.getProperty("os.name").toLowerCase().startsWith("windows");
     }
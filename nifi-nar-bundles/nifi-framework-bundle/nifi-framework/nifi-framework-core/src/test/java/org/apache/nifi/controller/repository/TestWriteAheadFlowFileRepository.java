@@ -611,6 +611,17 @@ public class TestWriteAheadFlowFileRepository {
 
     @Test
     public void testRestartWithOneRecord() throws IOException {
+        verifyRestartWithOneRecord(niFiProperties);
+    }
+
+    @Test
+    public void testRestartWithOneRecordUsingDeltaSnapshot() throws IOException {
+        final NiFiProperties properties = NiFiProperties.createBasicNiFiProperties(TestWriteAheadFlowFileRepository.class.getResource("/conf/nifi.properties").getFile(),
+            Collections.singletonMap("nifi.flowfile.repository.wal.snapshot.implementation", WriteAheadFlowFileRepository.LONG_KEYED_DELTA_SNAPSHOT));
+        verifyRestartWithOneRecord(properties);
+    }
+
+    private void verifyRestartWithOneRecord(final NiFiProperties niFiProperties) throws IOException {
         final Path path = Paths.get("target/test-repo");
         if (Files.exists(path)) {
             FileUtils.deleteFile(path.toFile(), true);
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.scheduling;
+
+import org.apache.nifi.annotation.behavior.IOBound;
+import org.apache.nifi.connectable.Connectable;
+import org.apache.nifi.controller.FlowController;
+import org.apache.nifi.encrypt.PropertyEncryptor;
+import org.apache.nifi.engine.FlowEngine;
+import org.apache.nifi.processor.AbstractProcessor;
+import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.processor.ProcessSession;
+import org.apache.nifi.util.NiFiProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.when;
+
+public class TestTimerDrivenSchedulingAgent {
+    private FlowEngine flowEngine;
+    private FlowEngine ioBoundFlowEngine;
+    private NiFiProperties nifiProperties;
+
+    @Before
+    public void setup() {
+        flowEngine = new FlowEngine(1, "Unit Test Timer-Driven", true);
+        ioBoundFlowEngine = new FlowEngine(1, "Unit Test Timer-Driven I/O", true);
+        nifiProperties = NiFiProperties.createBasicNiFiProperties(null);
+    }
+
+    @After
+    public void tearDown() {
+        flowEngine.shutdownNow();
+        ioBoundFlowEngine.shutdownNow();
+    }
+
+    @Test
+    public void testIOBoundComponentUsesIOBoundEngine() {
+        final TimerDrivenSchedulingAgent agent = createAgent(ioBoundFlowEngine);
+
+        assertSame(ioBoundFlowEngine, agent.getFlowEngine(createConnectable(new IOBoundProcessor())));
+        assertSame(flowEngine, agent.getFlowEngine(createConnectable(new CpuBoundProcessor())));
+    }
+
+    @Test
+    public void testIOBoundComponentUsesFlowEngineWhenNoIOBoundEngine() {
+        final TimerDrivenSchedulingAgent agent = createAgent(null);
+
+        assertSame(flowEngine, agent.getFlowEngine(createConnectable(new IOBoundProcessor())));
+        assertSame(flowEngine, agent.getFlowEngine(createConnectable(new CpuBoundProcessor())));
+    }
+
+    private TimerDrivenSchedulingAgent createAgent(final FlowEngine ioBoundEngine) {
+        return new TimerDrivenSchedulingAgent(Mockito.mock(FlowController.class), flowEngine, ioBoundEngine, Mockito.mock(RepositoryContextFactory.class),
+            Mockito.mock(PropertyEncryptor.class), nifiProperties);
+    }
+
+    private Connectable createConnectable(final Object component) {
+        final Connectable connectable = Mockito.mock(Connectable.class);
+        when(connectable.getRunnableComponent()).thenReturn(component);
+        return connectable;
+    }
+
+    @IOBound
+    public static class IOBoundProcessor extends AbstractProcessor {
+        @Override
+        public void onTrigger(final ProcessContext context, final ProcessSession session) {
+        }
+    }
+
+    public static class CpuBoundProcessor extends AbstractProcessor {
+        @Override
+        public void onTrigger(final ProcessContext context, final ProcessSession session) {
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.controller.status.analytics;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.nifi.connectable.Connection;
+import org.apache.nifi.controller.flow.FlowManager;
+import org.apache.nifi.controller.repository.FlowFileEventRepository;
+import org.apache.nifi.controller.repository.RepositoryStatusReport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestConnectionStatusAnalyticsRefreshTask {
+
+    private StatusAnalyticsEngine analyticsEngine;
+    private FlowManager flowManager;
+    private FlowFileEventRepository flowFileEventRepository;
+    private RepositoryStatusReport statusReport;
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        analyticsEngine = Mockito.mock(StatusAnalyticsEngine.class);
+        flowManager = Mockito.mock(FlowManager.class);
+        flowFileEventRepository = Mockito.mock(FlowFileEventRepository.class);
+        statusReport = Mockito.mock(RepositoryStatusReport.class);
+        executor = Executors.newFixedThreadPool(2);
+
+        when(flowFileEventRepository.reportTransferEvents(anyLong())).thenReturn(statusReport);
+    }
+
+    @After
+    public void cleanup() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testRefreshesAllConnectionsInitially() {
+        final ConnectionStatusAnalytics first = mockAnalytics("1", 0L);
+        final ConnectionStatusAnalytics second = mockAnalytics("2", 0L);
+
+        new ConnectionStatusAnalyticsRefreshTask(analyticsEngine, flowManager, flowFileEventRepository, executor, 0).run();
+
+        verify(first).refresh();
+        verify(first).loadPredictions(statusReport);
+        verify(second).refresh();
+        verify(second).loadPredictions(statusReport);
+    }
+
+    @Test
+    public void testRefreshesOnlyAfterStatusHistoryCaptured() {
+        final ConnectionStatusAnalytics analytics = mockAnalytics("1", System.currentTimeMillis() + 60_000L);
+        final ConnectionStatusAnalyticsRefreshTask task = new ConnectionStatusAnalyticsRefreshTask(analyticsEngine, flowManager, flowFileEventRepository, executor, 0);
+
+        task.run();
+        verify(analytics, never()).refresh();
+        verify(analytics, times(1)).loadPredictions(statusReport);
+
+        when(analytics.getLastRefreshTimeMillis()).thenReturn(1L);
+        task.onStatusHistoryCaptured();
+        task.run();
+        verify(analytics, times(1)).refresh();
+        verify(analytics, times(2)).loadPredictions(statusReport);
+    }
+
+    @Test
+    public void testSampleSizeRefreshesLeastRecentlyRefreshed() {
+        final ConnectionStatusAnalytics recent = mockAnalytics("1", 30L);
+        final ConnectionStatusAnalytics oldest = mockAnalytics("2", 10L);
+        final ConnectionStatusAnalytics older = mockAnalytics("3", 20L);
+        final ConnectionStatusAnalyticsRefreshTask task = new ConnectionStatusAnalyticsRefreshTask(analyticsEngine, flowManager, flowFileEventRepository, executor, 2);
+
+        task.onStatusHistoryCaptured();
+        task.run();
+
+        verify(oldest).refresh();
+        verify(older).refresh();
+        verify(recent, never()).refresh();
+        verify(recent).loadPredictions(statusReport);
+    }
+
+    @Test
+    public void testFailedConnectionDoesNotPreventPredictions() {
+        final ConnectionStatusAnalytics failing = mockAnalytics("1", 0L);
+        final ConnectionStatusAnalytics analytics = mockAnalytics("2", 0L);
+        doThrow(new IllegalStateException("Intentional Unit Test Exception")).when(failing).refresh();
+
+        new ConnectionStatusAnalyticsRefreshTask(analyticsEngine, flowManager, flowFileEventRepository, executor, 0).run();
+
+        verify(failing, never()).loadPredictions(any());
+        verify(analytics).refresh();
+        verify(analytics).loadPredictions(statusReport);
+    }
+
+    private ConnectionStatusAnalytics mockAnalytics(final String connectionId, final long lastRefreshTimeMillis) {
+        final Connection connection = Mockito.mock(Connection.class);
+        when(connection.getIdentifier()).thenReturn(connectionId);
+
+        final Set<Connection> connections = new LinkedHashSet<>(flowManager.findAllConnections());
+        connections.add(connection);
+        when(flowManager.findAllConnections()).thenReturn(connections);
+
+        final ConnectionStatusAnalytics analytics = Mockito.mock(ConnectionStatusAnalytics.class);
+        when(analytics.getLastRefreshTimeMillis()).thenReturn(lastRefreshTimeMillis);
+        when(analyticsEngine.getStatusAnalytics(connectionId)).thenReturn(analytics);
+        return analytics;
+    }
+}
@@ -17,10 +17,13 @@
 package org.apache.nifi.controller.status.history;
 
 import org.apache.nifi.controller.status.NodeStatus;
+import org.apache.nifi.controller.status.ProcessGroupStatus;
+import org.apache.nifi.controller.status.ProcessorStatus;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
 
@@ -81,23 +84,74 @@ public class EmbeddedQuestDbStatusHistoryRepositoryForComponentsTest extends Abs
         assertStatusHistoryIsEmpty(rootGroupStatus2);
     }
 
+    @Test
+    public void testReadingIdleComponent() throws Exception {
+        // given - the processor is idle during the second capture
+        final ProcessorStatus idleProcessorStatus = new ProcessorStatus();
+        idleProcessorStatus.setId(PROCESSOR_ID);
+        idleProcessorStatus.setName("Processor");
+        final ProcessGroupStatus idleRootGroupStatus = givenSimpleRootProcessGroupStatus();
+        idleRootGroupStatus.setProcessorStatus(Collections.singleton(idleProcessorStatus));
+
+        testSubject.capture(new NodeStatus(), givenRootProcessGroupStatus(), new ArrayList<>(), new Date(INSERTED_AT.getTime() - TimeUnit.MINUTES.toMillis(1)));
+        testSubject.capture(new NodeStatus(), idleRootGroupStatus, new ArrayList<>(), INSERTED_AT);
+        givenWaitUntilPersisted();
+
+        // when
+        final StatusHistory result = testSubject.getProcessorStatusHistory(PROCESSOR_ID, START, END, PREFERRED_DATA_POINTS, false);
+
+        // then - the capture the processor was not stored for is filled in with an empty snapshot
+        Assert.assertEquals(2, result.getStatusSnapshots().size());
+        assertProcessorStatusSnapshot(result.getStatusSnapshots().get(0));
+        Assert.assertEquals(INSERTED_AT, result.getStatusSnapshots().get(1).getTimestamp());
+        Assert.assertEquals(0L, result.getStatusSnapshots().get(1).getStatusMetric(ProcessorStatusDescriptor.INPUT_COUNT.getDescriptor()).longValue());
+        Assert.assertEquals(0L, result.getStatusSnapshots().get(1).getStatusMetric(ProcessorStatusDescriptor.TASK_MILLIS.getDescriptor()).longValue());
+    }
+
+    @Test
+    public void testReadingRolledUpByPreferredDataPoints() throws Exception {
+        // given
+        final long intervalStart = NOW - NOW % TimeUnit.MINUTES.toMillis(5) - TimeUnit.MINUTES.toMillis(30);
+
+        for (int i = 0; i < 10; i++) {
+            final ProcessGroupStatus status = givenSimpleRootProcessGroupStatus();
+            status.setInputCount(i);
+            testSubject.capture(new NodeStatus(), status, new ArrayList<>(), new Date(intervalStart + TimeUnit.MINUTES.toMillis(i)));
+        }
+
+        givenWaitUntilPersisted();
+
+        // when
+        final StatusHistory result = testSubject.getProcessGroupStatusHistory(ROOT_GROUP_ID, START, END, 3);
+
+        // then - the ten one minute captures do not fit into three data points, so they are rolled up to five minute intervals
+        Assert.assertEquals(2, result.getStatusSnapshots().size());
+        Assert.assertEquals(new Date(intervalStart), result.getStatusSnapshots().get(0).getTimestamp());
+        Assert.assertEquals(new Date(intervalStart + TimeUnit.MINUTES.toMillis(5)), result.getStatusSnapshots().get(1).getTimestamp());
+        Assert.assertEquals(2L, result.getStatusSnapshots().get(0).getStatusMetric(ProcessGroupStatusDescriptor.INPUT_COUNT.getDescriptor()).longValue());
+        Assert.assertEquals(7L, result.getStatusSnapshots().get(1).getStatusMetric(ProcessGroupStatusDescriptor.INPUT_COUNT.getDescriptor()).longValue());
+        Assert.assertEquals(7L, result.getStatusSnapshots().get(1).getStatusMetric(ProcessGroupStatusDescriptor.QUEUED_COUNT.getDescriptor()).longValue());
+    }
+
     @Test
     public void testReadingLimitedByPreferredDataPoints() throws Exception {
         // given
-        testSubject.capture(new NodeStatus(), givenSimpleRootProcessGroupStatus(), new ArrayList<>(), new Date(INSERTED_AT.getTime() - TimeUnit.MINUTES.toMillis(8)));
-        testSubject.capture(new NodeStatus(), givenSimpleRootProcessGroupStatus(), new ArrayList<>(), new Date(INSERTED_AT.getTime() - TimeUnit.MINUTES.toMillis(7)));
-        testSubject.capture(new NodeStatus(), givenSimpleRootProcessGroupStatus(), new ArrayList<>(), new Date(INSERTED_AT.getTime() - TimeUnit.MINUTES.toMillis(6)));
-        testSubject.capture(new NodeStatus(), givenSimpleRootProcessGroupStatus(), new ArrayList<>(), new Date(INSERTED_AT.getTime() - TimeUnit.MINUTES.toMillis(5)));
+        final long intervalStart = NOW - NOW % TimeUnit.HOURS.toMillis(1) - TimeUnit.HOURS.toMillis(5);
+
+        for (int i = 0; i < 5; i++) {
+            testSubject.capture(new NodeStatus(), givenSimpleRootProcessGroupStatus(), new ArrayList<>(), new Date(intervalStart + TimeUnit.HOURS.toMillis(i)));
+        }
+
         givenWaitUntilPersisted();
 
         // when
         final StatusHistory result = testSubject.getProcessGroupStatusHistory(ROOT_GROUP_ID, START, END, 3);
 
-        // then - in case the value of preferred data points are lower than the number of snapshots available, the latest will added to the result
+        // then - in case even the hourly rollup has more data points than preferred, the latest will added to the result
         Assert.assertEquals(3, result.getStatusSnapshots().size());
-        Assert.assertEquals(new Date(INSERTED_AT.getTime() - TimeUnit.MINUTES.toMillis(7)), result.getStatusSnapshots().get(0).getTimestamp());
-        Assert.assertEquals(new Date(INSERTED_AT.getTime() - TimeUnit.MINUTES.toMillis(6)), result.getStatusSnapshots().get(1).getTimestamp());
-        Assert.assertEquals(new Date(INSERTED_AT.getTime() - TimeUnit.MINUTES.toMillis(5)), result.getStatusSnapshots().get(2).getTimestamp());
+        Assert.assertEquals(new Date(intervalStart + TimeUnit.HOURS.toMillis(2)), result.getStatusSnapshots().get(0).getTimestamp());
+        Assert.assertEquals(new Date(intervalStart + TimeUnit.HOURS.toMillis(3)), result.getStatusSnapshots().get(1).getTimestamp());
+        Assert.assertEquals(new Date(intervalStart + TimeUnit.HOURS.toMillis(4)), result.getStatusSnapshots().get(2).getTimestamp());
     }
 
     private void assertCorrectStatusHistory(final StatusHistory rootGroupStatus, final String id, final String name) {
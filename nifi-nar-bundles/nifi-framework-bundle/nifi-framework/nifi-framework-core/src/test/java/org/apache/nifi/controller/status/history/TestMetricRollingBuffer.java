@@ -123,4 +123,44 @@ public class TestMetricRollingBuffer {
             assertEquals(Long.valueOf(i), snapshot.getStatusMetric(ProcessorStatusDescriptor.BYTES_WRITTEN.getDescriptor()));
         }
     }
+
+    @Test
+    public void testCountersRetained() {
+        final MetricRollingBuffer buffer = new MetricRollingBuffer(10);
+        final MetricDescriptor<?> counterDescriptor = new CounterMetricDescriptor<>("counter", "Counter", "Counter", MetricDescriptor.Formatter.COUNT, s -> 0L);
+
+        final long startTime = System.currentTimeMillis();
+        final List<Date> timestamps = new ArrayList<>();
+        for (int i=0; i < 15; i++) {
+            final StandardStatusSnapshot snapshot = new StandardStatusSnapshot(PROCESSOR_METRICS);
+            snapshot.setTimestamp(new Date(startTime + i * 1000));
+            timestamps.add(snapshot.getTimestamp());
+
+            snapshot.addStatusMetric(ProcessorStatusDescriptor.TASK_COUNT.getDescriptor(), Long.valueOf(i));
+            if (i % 2 == 0) {
+                snapshot.addStatusMetric(counterDescriptor, Long.valueOf(i * 10));
+            }
+
+            buffer.update(snapshot);
+        }
+
+        assertEquals(10, buffer.size());
+
+        final List<StatusSnapshot> withCounters = buffer.getSnapshots(timestamps, true, PROCESSOR_METRICS);
+        final List<StatusSnapshot> withoutCounters = buffer.getSnapshots(timestamps, false, PROCESSOR_METRICS);
+        for (int i=5; i < 15; i++) {
+            assertEquals(Long.valueOf(i), withCounters.get(i).getStatusMetric(ProcessorStatusDescriptor.TASK_COUNT.getDescriptor()));
+            assertFalse(withoutCounters.get(i).getMetricDescriptors().contains(counterDescriptor));
+
+            if (i % 2 == 0) {
+                assertEquals(Long.valueOf(i * 10), withCounters.get(i).getStatusMetric(counterDescriptor));
+            } else {
+                assertFalse(withCounters.get(i).getMetricDescriptors().contains(counterDescriptor));
+            }
+        }
+
+        buffer.expireBefore(new Date(startTime + 15_000L));
+        assertEquals(0, buffer.size());
+        assertTrue(buffer.getSnapshots(timestamps, true, PROCESSOR_METRICS).isEmpty());
+    }
 }
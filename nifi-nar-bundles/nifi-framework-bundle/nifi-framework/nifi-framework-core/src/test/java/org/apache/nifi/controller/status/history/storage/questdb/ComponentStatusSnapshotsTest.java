@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.status.history.storage.questdb;
+
+import org.apache.nifi.controller.status.ProcessorStatus;
+import org.apache.nifi.controller.status.history.CounterMetricDescriptor;
+import org.apache.nifi.controller.status.history.MetricDescriptor;
+import org.apache.nifi.controller.status.history.ProcessorStatusDescriptor;
+import org.apache.nifi.controller.status.history.StandardStatusSnapshot;
+import org.apache.nifi.controller.status.history.StatusSnapshot;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+public class ComponentStatusSnapshotsTest {
+    private static final MetricDescriptor<ProcessorStatus> INPUT_COUNT = ProcessorStatusDescriptor.INPUT_COUNT.getDescriptor();
+    private static final MetricDescriptor<ProcessorStatus> COUNTER = new CounterMetricDescriptor<>(
+            "counter", "counter (5 mins)", "counter (5 mins)", MetricDescriptor.Formatter.COUNT, s -> 0L);
+    private static final Set<MetricDescriptor<?>> METRICS = new HashSet<>(Arrays.asList(
+            ProcessorStatusDescriptor.BYTES_READ.getDescriptor(),
+            ProcessorStatusDescriptor.BYTES_WRITTEN.getDescriptor(),
+            ProcessorStatusDescriptor.BYTES_TRANSFERRED.getDescriptor(),
+            ProcessorStatusDescriptor.INPUT_BYTES.getDescriptor(),
+            INPUT_COUNT));
+
+    private static final long START = TimeUnit.DAYS.toMillis(1);
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    @Test
+    public void testEmptyWithoutStoredSnapshots() {
+        Assert.assertTrue(ComponentStatusSnapshots.forHistory(Collections.emptyList(), Arrays.asList(START, START + MINUTE), 10).isEmpty());
+    }
+
+    @Test
+    public void testFillingCapturesWithoutStoredSnapshot() {
+        final List<StatusSnapshot> result = ComponentStatusSnapshots.forHistory(
+                Arrays.asList(givenSnapshot(START + MINUTE, 5L)),
+                Arrays.asList(START, START + MINUTE, START + 2 * MINUTE),
+                10);
+
+        Assert.assertEquals(3, result.size());
+        assertSnapshot(result.get(0), START, 0L);
+        assertSnapshot(result.get(1), START + MINUTE, 5L);
+        assertSnapshot(result.get(2), START + 2 * MINUTE, 0L);
+    }
+
+    @Test
+    public void testKeepingStoredSnapshotsWithoutCapture() {
+        final List<StatusSnapshot> result = ComponentStatusSnapshots.forHistory(
+                Arrays.asList(givenSnapshot(START, 3L), givenSnapshot(START + 2 * MINUTE, 5L)),
+                Collections.singletonList(START + MINUTE),
+                10);
+
+        Assert.assertEquals(3, result.size());
+        assertSnapshot(result.get(0), START, 3L);
+        assertSnapshot(result.get(1), START + MINUTE, 0L);
+        assertSnapshot(result.get(2), START + 2 * MINUTE, 5L);
+    }
+
+    @Test
+    public void testRollingUpToFiveMinutes() {
+        final List<StandardStatusSnapshot> storedSnapshots = new ArrayList<>();
+        final List<Long> captureTimes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            captureTimes.add(START + i * MINUTE);
+
+            // Every second capture is idle and therefore is not stored
+            if (i % 2 == 0) {
+                final StandardStatusSnapshot snapshot = givenSnapshot(START + i * MINUTE, 10L);
+                snapshot.addStatusMetric(COUNTER, 20L);
+                storedSnapshots.add(snapshot);
+            }
+        }
+
+        final List<StatusSnapshot> result = ComponentStatusSnapshots.forHistory(storedSnapshots, captureTimes, 5);
+
+        Assert.assertEquals(2, result.size());
+        assertSnapshot(result.get(0), START, 6L);
+        assertSnapshot(result.get(1), START + 5 * MINUTE, 4L);
+        Assert.assertEquals(12L, result.get(0).getStatusMetric(COUNTER).longValue());
+        Assert.assertEquals(8L, result.get(1).getStatusMetric(COUNTER).longValue());
+    }
+
+    @Test
+    public void testKeepingLatestHoursWhenRollupExceedsPreferredDataPoints() {
+        final List<StandardStatusSnapshot> storedSnapshots = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            storedSnapshots.add(givenSnapshot(START + TimeUnit.HOURS.toMillis(i), i));
+            storedSnapshots.add(givenSnapshot(START + TimeUnit.HOURS.toMillis(i) + MINUTE, i + 2));
+        }
+
+        final List<StatusSnapshot> result = ComponentStatusSnapshots.forHistory(storedSnapshots, Collections.emptyList(), 3);
+
+        Assert.assertEquals(3, result.size());
+        assertSnapshot(result.get(0), START + TimeUnit.HOURS.toMillis(2), 3L);
+        assertSnapshot(result.get(1), START + TimeUnit.HOURS.toMillis(3), 4L);
+        assertSnapshot(result.get(2), START + TimeUnit.HOURS.toMillis(4), 5L);
+    }
+
+    private StandardStatusSnapshot givenSnapshot(final long timestamp, final long inputCount) {
+        final StandardStatusSnapshot snapshot = new StandardStatusSnapshot(METRICS);
+        snapshot.setTimestamp(new Date(timestamp));
+        snapshot.addStatusMetric(INPUT_COUNT, inputCount);
+        return snapshot;
+    }
+
+    private void assertSnapshot(final StatusSnapshot snapshot, final long timestamp, final long inputCount) {
+        Assert.assertEquals(new Date(timestamp), snapshot.getTimestamp());
+        Assert.assertEquals(inputCount, snapshot.getStatusMetric(INPUT_COUNT).longValue());
+    }
+}
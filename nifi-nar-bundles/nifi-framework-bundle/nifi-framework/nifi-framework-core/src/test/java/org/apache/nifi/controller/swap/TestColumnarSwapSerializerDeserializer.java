@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.swap;
+
+import org.apache.nifi.controller.queue.FlowFileQueue;
+import org.apache.nifi.controller.repository.FlowFileRecord;
+import org.apache.nifi.controller.repository.SwapContents;
+import org.apache.nifi.controller.repository.SwapSummary;
+import org.apache.nifi.controller.repository.claim.ContentClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaim;
+import org.apache.nifi.controller.repository.claim.ResourceClaimManager;
+import org.apache.nifi.controller.repository.claim.StandardResourceClaimManager;
+import org.apache.nifi.flowfile.FlowFile;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestColumnarSwapSerializerDeserializer {
+    private FlowFileQueue flowFileQueue;
+
+    @Before
+    public void setup() {
+        MockFlowFile.resetIdGenerator();
+
+        flowFileQueue = Mockito.mock(FlowFileQueue.class);
+        Mockito.when(flowFileQueue.getIdentifier()).thenReturn("87bb99fe-412c-49f6-a441-d1b0af4e20b4");
+    }
+
+    @Test
+    public void testRoundTripSerializeDeserializeSummary() throws IOException {
+        final ResourceClaimManager resourceClaimManager = new StandardResourceClaimManager();
+
+        final List<FlowFileRecord> toSwap = new ArrayList<>(10000);
+        final Map<String, String> attrs = new HashMap<>();
+        long size = 0L;
+        final ContentClaim firstClaim = MockFlowFile.createContentClaim("id", resourceClaimManager);
+        for (int i = 0; i < 10000; i++) {
+            attrs.put("i", String.valueOf(i));
+            final FlowFileRecord ff = i < 2 ? new MockFlowFile(attrs, i, firstClaim) : new MockFlowFile(attrs, i, resourceClaimManager);
+            toSwap.add(ff);
+            size += i;
+        }
+
+        final byte[] serialized = serialize(toSwap);
+
+        final SwapSummary swapSummary;
+        try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(serialized))) {
+            swapSummary = new ColumnarSwapDeserializer().getSwapSummary(in, "testRoundTrip.swap", resourceClaimManager);
+        }
+
+        assertEquals(10000, swapSummary.getQueueSize().getObjectCount());
+        assertEquals(size, swapSummary.getQueueSize().getByteCount());
+        assertEquals(9999, swapSummary.getMaxFlowFileId().intValue());
+
+        final List<ResourceClaim> resourceClaims = swapSummary.getResourceClaims();
+        assertEquals(10000, resourceClaims.size());
+        assertFalse(resourceClaims.stream().anyMatch(claim -> claim == null));
+        assertEquals(2, resourceClaims.stream().filter(claim -> claim.getId().equals("id")).collect(Collectors.counting()).intValue());
+
+        final Set<ResourceClaim> uniqueClaims = new HashSet<>(resourceClaims);
+        assertEquals(9999, uniqueClaims.size());
+
+        assertEquals((Long) toSwap.stream().mapToLong(FlowFile::getLastQueueDate).sum(), swapSummary.getTotalLastQueueDate());
+        assertEquals((Long) toSwap.stream().mapToLong(FlowFile::getLastQueueDate).min().getAsLong(), swapSummary.getMinLastQueueDate());
+    }
+
+    @Test
+    public void testRoundTripSerializeDeserializeFullSwapFile() throws IOException {
+        final ResourceClaimManager resourceClaimManager = new StandardResourceClaimManager();
+        final ContentClaim sharedClaim = MockFlowFile.createContentClaim("shared", resourceClaimManager);
+
+        final StringBuilder largeValue = new StringBuilder();
+        for (int i = 0; i < 70000; i++) {
+            largeValue.append('x');
+        }
+
+        final List<FlowFileRecord> toSwap = new ArrayList<>(1000);
+        for (int i = 0; i < 1000; i++) {
+            final Map<String, String> attrs = new HashMap<>();
+            attrs.put("filename", "file-" + i);
+            attrs.put("mime.type", "application/json");
+            if (i % 3 == 0) {
+                attrs.put("retry.count", String.valueOf(i % 2));
+            }
+            if (i == 500) {
+                attrs.put("large", largeValue.toString());
+            }
+
+            final ContentClaim contentClaim = i % 10 == 0 ? null : sharedClaim;
+            toSwap.add(new MockFlowFile(attrs, i, contentClaim));
+        }
+
+        final SwapContents contents;
+        try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(serialize(toSwap)))) {
+            contents = new ColumnarSwapDeserializer().deserializeFlowFiles(in, "testRoundTrip.swap", flowFileQueue, resourceClaimManager);
+        }
+
+        final SwapSummary swapSummary = contents.getSummary();
+        assertEquals(1000, swapSummary.getQueueSize().getObjectCount());
+        assertEquals(999, swapSummary.getMaxFlowFileId().intValue());
+        assertEquals(900, swapSummary.getResourceClaims().size());
+
+        final List<FlowFileRecord> flowFiles = contents.getFlowFiles();
+        assertEquals(1000, flowFiles.size());
+        for (int i = 0; i < flowFiles.size(); i++) {
+            final FlowFileRecord original = toSwap.get(i);
+            final FlowFileRecord flowFile = flowFiles.get(i);
+
+            assertEquals(original.getId(), flowFile.getId());
+            assertEquals(original.getSize(), flowFile.getSize());
+            assertEquals(original.getEntryDate(), flowFile.getEntryDate());
+            assertEquals(original.getLineageStartDate(), flowFile.getLineageStartDate());
+            assertEquals(original.getLastQueueDate(), flowFile.getLastQueueDate());
+            assertEquals(original.getAttributes(), flowFile.getAttributes());
+
+            if (original.getContentClaim() == null) {
+                assertNull(flowFile.getContentClaim());
+            } else {
+                assertEquals(original.getContentClaim(), flowFile.getContentClaim());
+                assertEquals(original.getContentClaimOffset(), flowFile.getContentClaimOffset());
+            }
+        }
+    }
+
+    @Test
+    public void testRepetitiveAttributesAreSmallerThanSchemaSerialization() throws IOException {
+        final ResourceClaimManager resourceClaimManager = new StandardResourceClaimManager();
+
+        final List<FlowFileRecord> toSwap = new ArrayList<>(10000);
+        final Map<String, String> attrs = new HashMap<>();
+        attrs.put("path", "./");
+        attrs.put("mime.type", "text/plain");
+        attrs.put("kafka.topic", "events");
+        for (int i = 0; i < 10000; i++) {
+            attrs.put("filename", "file-" + i);
+            toSwap.add(new MockFlowFile(attrs, i, resourceClaimManager));
+        }
+
+        final ByteArrayOutputStream schemaOut = new ByteArrayOutputStream();
+        new SchemaSwapSerializer().serializeFlowFiles(toSwap, flowFileQueue, "testRoundTrip.swap", schemaOut);
+
+        final byte[] columnar = serialize(toSwap);
+        assertTrue(columnar.length < schemaOut.size() / 2);
+    }
+
+    @Test
+    public void testEmptyAttributes() throws IOException {
+        final ResourceClaimManager resourceClaimManager = new StandardResourceClaimManager();
+        final List<FlowFileRecord> toSwap = Collections.singletonList(new MockFlowFile(Collections.emptyMap(), 10L, (ContentClaim) null));
+
+        final SwapContents contents;
+        try (final DataInputStream in = new DataInputStream(new ByteArrayInputStream(serialize(toSwap)))) {
+            contents = new ColumnarSwapDeserializer().deserializeFlowFiles(in, "testRoundTrip.swap", flowFileQueue, resourceClaimManager);
+        }
+
+        assertEquals(1, contents.getFlowFiles().size());
+        assertTrue(contents.getFlowFiles().get(0).getAttributes().isEmpty());
+        assertTrue(contents.getSummary().getResourceClaims().isEmpty());
+    }
+
+    private byte[] serialize(final List<FlowFileRecord> toSwap) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        new ColumnarSwapSerializer().serializeFlowFiles(toSwap, flowFileQueue, "testRoundTrip.swap", baos);
+        return baos.toByteArray();
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * <p>
+ * A compact, immutable Map of FlowFile attributes. Rather than keeping a hash table per FlowFile, the attribute names are held in a
+ * sorted key set that is shared by every FlowFile with the same attribute names, and each FlowFile holds only an array of the
+ * corresponding values. Key sets, and the attribute name Strings within them, are interned in a bounded, JVM-wide dictionary so that
+ * FlowFiles created by the same processors, restored from the FlowFile Repository, or swapped in from disk share a single copy.
+ * </p>
+ *
+ * <p>
+ * Updates return a new map and leave the original untouched. Changing the value of an existing attribute shares the key set with the
+ * original and copies only the values array; adding or removing attributes looks up the resulting key set from the dictionary.
+ * </p>
+ *
+ * <b>Immutable - Thread Safe</b>
+ */
+public final class FlowFileAttributeMap extends AbstractMap<String, String> {
+    private static final FlowFileAttributeMap EMPTY = new FlowFileAttributeMap(AttributeKeys.EMPTY, new String[0]);
+
+    private final AttributeKeys keys;
+    private final String[] values;
+
+    private FlowFileAttributeMap(final AttributeKeys keys, final String[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    public static FlowFileAttributeMap empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns a FlowFileAttributeMap with the same entries as the given map, ignoring any <code>null</code> keys or values. If the
+     * given map is already a FlowFileAttributeMap, it is returned as-is.
+     *
+     * @param attributes the attributes to copy
+     * @return a FlowFileAttributeMap with the given attributes
+     */
+    public static FlowFileAttributeMap copyOf(final Map<String, String> attributes) {
+        if (attributes instanceof FlowFileAttributeMap) {
+            return (FlowFileAttributeMap) attributes;
+        }
+        if (attributes == null || attributes.isEmpty()) {
+            return EMPTY;
+        }
+
+        return EMPTY.withAll(attributes);
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    @Override
+    public String get(final Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+
+        final int index = keys.indexOf((String) key);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return key instanceof String && keys.indexOf((String) key) >= 0;
+    }
+
+    @Override
+    public void forEach(final BiConsumer<? super String, ? super String> action) {
+        final String[] keyArray = keys.keys;
+        for (int i = 0; i < values.length; i++) {
+            action.accept(keyArray[i], values[i]);
+        }
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new EntrySet();
+    }
+
+    /**
+     * Returns a map with the given attribute added or updated. If the attribute already has the given value, this map is returned.
+     *
+     * @param key the attribute name
+     * @param value the attribute value
+     * @return a map with the given attribute set
+     */
+    public FlowFileAttributeMap with(final String key, final String value) {
+        if (key == null || value == null) {
+            return this;
+        }
+
+        final int index = keys.indexOf(key);
+        if (index >= 0) {
+            if (value.equals(values[index])) {
+                return this;
+            }
+
+            final String[] updatedValues = values.clone();
+            updatedValues[index] = value;
+            return new FlowFileAttributeMap(keys, updatedValues);
+        }
+
+        final AttributeKeys updatedKeys = keys.withKey(key);
+        final int insertionIndex = -Arrays.binarySearch(keys.keys, key) - 1;
+        final String[] updatedValues = new String[values.length + 1];
+        System.arraycopy(values, 0, updatedValues, 0, insertionIndex);
+        updatedValues[insertionIndex] = value;
+        System.arraycopy(values, insertionIndex, updatedValues, insertionIndex + 1, values.length - insertionIndex);
+        return new FlowFileAttributeMap(updatedKeys, updatedValues);
+    }
+
+    /**
+     * Returns a map with all of the given attributes added or updated, ignoring any <code>null</code> keys or values.
+     *
+     * @param attributes the attributes to set
+     * @return a map with the given attributes set
+     */
+    public FlowFileAttributeMap withAll(final Map<String, String> attributes) {
+        if (attributes == null || attributes.isEmpty()) {
+            return this;
+        }
+
+        String[] addedKeys = null;
+        int addedCount = 0;
+        for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+            final String key = entry.getKey();
+            if (key != null && entry.getValue() != null && keys.indexOf(key) < 0) {
+                if (addedKeys == null) {
+                    addedKeys = new String[attributes.size()];
+                }
+                addedKeys[addedCount++] = key;
+            }
+        }
+
+        if (addedCount == 0) {
+            String[] updatedValues = null;
+            for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+                final String key = entry.getKey();
+                final String value = entry.getValue();
+                if (key == null || value == null) {
+                    continue;
+                }
+
+                final int index = keys.indexOf(key);
+                if (!value.equals(values[index])) {
+                    if (updatedValues == null) {
+                        updatedValues = values.clone();
+                    }
+                    updatedValues[index] = value;
+                }
+            }
+
+            return updatedValues == null ? this : new FlowFileAttributeMap(keys, updatedValues);
+        }
+
+        // Merge the new keys into the existing, sorted keys, carrying the existing values along with them
+        Arrays.sort(addedKeys, 0, addedCount);
+        final String[] existingKeys = keys.keys;
+        final String[] mergedKeys = new String[existingKeys.length + addedCount];
+        final String[] mergedValues = new String[mergedKeys.length];
+        int existingIndex = 0;
+        int addedIndex = 0;
+        for (int i = 0; i < mergedKeys.length; i++) {
+            if (addedIndex >= addedCount || (existingIndex < existingKeys.length && existingKeys[existingIndex].compareTo(addedKeys[addedIndex]) < 0)) {
+                mergedKeys[i] = existingKeys[existingIndex];
+                mergedValues[i] = values[existingIndex++];
+            } else {
+                mergedKeys[i] = addedKeys[addedIndex++];
+            }
+        }
+
+        final AttributeKeys updatedKeys = AttributeKeys.of(mergedKeys);
+        for (final Map.Entry<String, String> entry : attributes.entrySet()) {
+            final String key = entry.getKey();
+            final String value = entry.getValue();
+            if (key != null && value != null) {
+                mergedValues[updatedKeys.indexOf(key)] = value;
+            }
+        }
+
+        return new FlowFileAttributeMap(updatedKeys, mergedValues);
+    }
+
+    /**
+     * Returns a map without any of the attributes whose names match the given filter. If no attribute matches, this map is returned.
+     *
+     * @param filter determines which attribute names to remove
+     * @return a map without the matching attributes
+     */
+    public FlowFileAttributeMap without(final Predicate<String> filter) {
+        final String[] existingKeys = keys.keys;
+        boolean[] removed = null;
+        int removedCount = 0;
+        for (int i = 0; i < existingKeys.length; i++) {
+            if (filter.test(existingKeys[i])) {
+                if (removed == null) {
+                    removed = new boolean[existingKeys.length];
+                }
+                removed[i] = true;
+                removedCount++;
+            }
+        }
+
+        if (removedCount == 0) {
+            return this;
+        }
+        if (removedCount == existingKeys.length) {
+            return EMPTY;
+        }
+
+        final String[] remainingKeys = new String[existingKeys.length - removedCount];
+        final String[] remainingValues = new String[remainingKeys.length];
+        int remainingIndex = 0;
+        for (int i = 0; i < existingKeys.length; i++) {
+            if (!removed[i]) {
+                remainingKeys[remainingIndex] = existingKeys[i];
+                remainingValues[remainingIndex++] = values[i];
+            }
+        }
+
+        return new FlowFileAttributeMap(AttributeKeys.of(remainingKeys), remainingValues);
+    }
+
+    private class EntrySet extends AbstractSet<Entry<String, String>> {
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public Iterator<Entry<String, String>> iterator() {
+            return new Iterator<Entry<String, String>>() {
+                private int index = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return index < values.length;
+                }
+
+                @Override
+                public Entry<String, String> next() {
+                    if (index >= values.length) {
+                        throw new NoSuchElementException();
+                    }
+
+                    final Entry<String, String> entry = new SimpleImmutableEntry<>(keys.keys[index], values[index]);
+                    index++;
+                    return entry;
+                }
+            };
+        }
+    }
+
+    /**
+     * A sorted set of attribute names along with an open-addressing index for looking up the position of a name.
+     */
+    private static final class AttributeKeys {
+        private static final int MAX_INTERNED_KEY_SETS = 10_000;
+        private static final int MAX_INTERNED_KEYS = 10_000;
+        private static final int MAX_CACHED_ADDITIONS = 64;
+
+        private static final ConcurrentMap<AttributeKeys, AttributeKeys> keySetDictionary = new ConcurrentHashMap<>();
+        private static final ConcurrentMap<String, String> keyDictionary = new ConcurrentHashMap<>();
+
+        static final AttributeKeys EMPTY = new AttributeKeys(new String[0]);
+
+        private final String[] keys;
+        private final int[] slots;
+        private final int hashCode;
+        private volatile ConcurrentMap<String, AttributeKeys> additions;
+
+        private AttributeKeys(final String[] keys) {
+            this.keys = keys;
+            this.hashCode = Arrays.hashCode(keys);
+
+            int capacity = 2;
+            while (capacity < keys.length * 2) {
+                capacity <<= 1;
+            }
+
+            slots = new int[capacity];
+            final int mask = capacity - 1;
+            for (int i = 0; i < keys.length; i++) {
+                int slot = spread(keys[i].hashCode()) & mask;
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = i + 1;
+            }
+        }
+
+        /**
+         * Returns the shared key set for the given sorted keys, interning it if the dictionary is not yet full. The array may be
+         * modified to reference the interned copy of each key, so it must not be shared with the caller.
+         */
+        static AttributeKeys of(final String[] sortedKeys) {
+            final AttributeKeys candidate = new AttributeKeys(sortedKeys);
+            final AttributeKeys existing = keySetDictionary.get(candidate);
+            if (existing != null) {
+                return existing;
+            }
+            if (keySetDictionary.size() >= MAX_INTERNED_KEY_SETS) {
+                return candidate;
+            }
+
+            for (int i = 0; i < sortedKeys.length; i++) {
+                sortedKeys[i] = internKey(sortedKeys[i]);
+            }
+
+            final AttributeKeys previous = keySetDictionary.putIfAbsent(candidate, candidate);
+            return previous == null ? candidate : previous;
+        }
+
+        private static String internKey(final String key) {
+            final String existing = keyDictionary.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            if (keyDictionary.size() >= MAX_INTERNED_KEYS) {
+                return key;
+            }
+
+            final String previous = keyDictionary.putIfAbsent(key, key);
+            return previous == null ? key : previous;
+        }
+
+        private static int spread(final int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        int indexOf(final String key) {
+            final int mask = slots.length - 1;
+            int slot = spread(key.hashCode()) & mask;
+            while (true) {
+                final int position = slots[slot];
+                if (position == 0) {
+                    return -1;
+                }
+
+                final String candidate = keys[position - 1];
+                if (candidate == key || candidate.equals(key)) {
+                    return position - 1;
+                }
+
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        /**
+         * Returns the key set that results from adding the given key, which must not already be present
+         */
+        AttributeKeys withKey(final String key) {
+            // Created lazily because most key sets are never extended. Two threads racing here may each create a cache, which only
+            // costs a dictionary lookup the next time the key is added.
+            ConcurrentMap<String, AttributeKeys> cachedAdditions = additions;
+            if (cachedAdditions == null) {
+                cachedAdditions = new ConcurrentHashMap<>();
+                additions = cachedAdditions;
+            }
+
+            final AttributeKeys cached = cachedAdditions.get(key);
+            if (cached != null) {
+                return cached;
+            }
+
+            final int insertionIndex = -Arrays.binarySearch(keys, key) - 1;
+            final String[] updatedKeys = new String[keys.length + 1];
+            System.arraycopy(keys, 0, updatedKeys, 0, insertionIndex);
+            updatedKeys[insertionIndex] = key;
+            System.arraycopy(keys, insertionIndex, updatedKeys, insertionIndex + 1, keys.length - insertionIndex);
+
+            final AttributeKeys updated = of(updatedKeys);
+            if (cachedAdditions.size() < MAX_CACHED_ADDITIONS) {
+                cachedAdditions.putIfAbsent(key, updated);
+            }
+            return updated;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof AttributeKeys)) {
+                return false;
+            }
+
+            final AttributeKeys other = (AttributeKeys) obj;
+            return hashCode == other.hashCode && Arrays.equals(keys, other.keys);
+        }
+    }
+}
@@ -24,10 +24,9 @@ import org.apache.nifi.controller.repository.claim.ContentClaim;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
 
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -48,7 +47,7 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
     private final long lineageStartIndex;
     private final long size;
     private final long penaltyExpirationMs;
-    private final Map<String, String> attributes;
+    private final FlowFileAttributeMap attributes;
     private final ContentClaim claim;
     private final long claimOffset;
     private final long lastQueueDate;
@@ -56,7 +55,7 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
 
     private StandardFlowFileRecord(final Builder builder) {
         this.id = builder.bId;
-        this.attributes = builder.bAttributes == null ? Collections.emptyMap() : builder.bAttributes;
+        this.attributes = builder.bAttributes;
         this.entryDate = builder.bEntryDate;
         this.lineageStartDate = builder.bLineageStartDate;
         this.lineageStartIndex = builder.bLineageStartIndex;
@@ -105,7 +104,8 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
 
     @Override
     public Map<String, String> getAttributes() {
-        return Collections.unmodifiableMap(this.attributes);
+        // The attribute map is immutable, so it can be returned without being wrapped
+        return this.attributes;
     }
 
     @Override
@@ -179,8 +179,7 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
         private long bClaimOffset = 0L;
         private long bLastQueueDate = System.currentTimeMillis();
         private long bQueueDateIndex = 0L;
-        private Map<String, String> bAttributes;
-        private boolean bAttributesCopied = false;
+        private FlowFileAttributeMap bAttributes = FlowFileAttributeMap.empty();
 
         public Builder id(final long id) {
             bId = id;
@@ -210,83 +209,41 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
             return this;
         }
 
-        private Map<String, String> initializeAttributes() {
-            if (bAttributes == null) {
-                bAttributes = new HashMap<>();
-                bAttributesCopied = true;
-            } else if (!bAttributesCopied) {
-                bAttributes = new HashMap<>(bAttributes);
-                bAttributesCopied = true;
-            }
-
-            return bAttributes;
-        }
-
         public Builder addAttribute(final String key, final String value) {
             if (key != null && value != null) {
-                initializeAttributes().put(FlowFile.KeyValidator.validateKey(key), value);
+                bAttributes = bAttributes.with(FlowFile.KeyValidator.validateKey(key), value);
             }
             return this;
         }
 
         public Builder addAttributes(final Map<String, String> attributes) {
-            final Map<String, String> initializedAttributes = initializeAttributes();
-
             if (null != attributes) {
                 for (final String key : attributes.keySet()) {
                     FlowFile.KeyValidator.validateKey(key);
                 }
-                for (final Map.Entry<String, String> entry : attributes.entrySet()) {
-                    final String key = entry.getKey();
-                    final String value = entry.getValue();
-                    if (key != null && value != null) {
-                        initializedAttributes.put(key, value);
-                    }
-                }
+                bAttributes = bAttributes.withAll(attributes);
             }
             return this;
         }
 
         public Builder removeAttributes(final String... keys) {
-            if (keys != null) {
-                for (final String key : keys) {
-                    if (CoreAttributes.UUID.key().equals(key)) {
-                        continue;
-                    }
-
-                    initializeAttributes().remove(key);
-                }
+            if (keys != null && keys.length > 0) {
+                final List<String> keyList = Arrays.asList(keys);
+                bAttributes = bAttributes.without(key -> !CoreAttributes.UUID.key().equals(key) && keyList.contains(key));
             }
             return this;
         }
 
         public Builder removeAttributes(final Set<String> keys) {
-            if (keys != null) {
-                for (final String key : keys) {
-                    if (CoreAttributes.UUID.key().equals(key)) {
-                        continue;
-                    }
-
-                    initializeAttributes().remove(key);
-                }
+            if (keys != null && !keys.isEmpty()) {
+                bAttributes = bAttributes.without(key -> !CoreAttributes.UUID.key().equals(key) && keys.contains(key));
             }
             return this;
         }
 
         public Builder removeAttributes(final Pattern keyPattern) {
             if (keyPattern != null) {
-                final Iterator<String> iterator = initializeAttributes().keySet().iterator();
-                while (iterator.hasNext()) {
-                    final String key = iterator.next();
-
-                    if (CoreAttributes.UUID.key().equals(key)) {
-                        continue;
-                    }
-
-                    if (keyPattern.matcher(key).matches()) {
-                        iterator.remove();
-                    }
-                }
+                bAttributes = bAttributes.without(key -> !CoreAttributes.UUID.key().equals(key) && keyPattern.matcher(key).matches());
             }
             return this;
         }
@@ -318,13 +275,9 @@ public final class StandardFlowFileRecord implements FlowFile, FlowFileRecord {
             bLineageIdentifiers.clear();
             bPenaltyExpirationMs = specFlowFile.getPenaltyExpirationMillis();
             bSize = specFlowFile.getSize();
-            // If this is a StandardFlowFileRecord, access the attributes map directly. Do not use the
-            // getAttributes() method, because that will wrap the original in an UnmodifiableMap. As a result,
-            // a Processor that continually calls session.append() for instance will have a FlowFile whose attributes
-            // Map is wrapped thousands of times until it hits a StackOverflowError. We want the getter to return
-            // UnmodifiableMap, though, so that Processors cannot directly modify that Map.
-            bAttributes = specFlowFile instanceof StandardFlowFileRecord ? ((StandardFlowFileRecord) specFlowFile).attributes : specFlowFile.getAttributes();
-            bAttributesCopied = false;
+            // The attributes of a StandardFlowFileRecord are immutable, so they can be shared with the new FlowFile rather than copied.
+            // Any other implementation's attributes are copied once into a FlowFileAttributeMap.
+            bAttributes = specFlowFile instanceof StandardFlowFileRecord ? ((StandardFlowFileRecord) specFlowFile).attributes : FlowFileAttributeMap.copyOf(specFlowFile.getAttributes());
             bClaim = specFlowFile.getContentClaim();
             bClaimOffset = specFlowFile.getContentClaimOffset();
             bLastQueueDate = specFlowFile.getLastQueueDate();
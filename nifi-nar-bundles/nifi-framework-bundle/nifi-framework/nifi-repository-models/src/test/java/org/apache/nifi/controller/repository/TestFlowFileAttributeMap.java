@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.controller.repository;
+
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestFlowFileAttributeMap {
+
+    @Test
+    public void testWithAddsAndUpdatesAttributes() {
+        final FlowFileAttributeMap empty = FlowFileAttributeMap.empty();
+        final FlowFileAttributeMap one = empty.with("b", "2");
+        final FlowFileAttributeMap two = one.with("a", "1");
+        final FlowFileAttributeMap three = two.with("c", "3");
+        final FlowFileAttributeMap updated = three.with("a", "one");
+
+        assertTrue(empty.isEmpty());
+        assertEquals(Collections.singletonMap("b", "2"), one);
+        assertEquals(2, two.size());
+        assertEquals("1", two.get("a"));
+        assertEquals("2", two.get("b"));
+        assertNull(two.get("c"));
+
+        final Map<String, String> expected = new HashMap<>();
+        expected.put("a", "one");
+        expected.put("b", "2");
+        expected.put("c", "3");
+        assertEquals(expected, updated);
+        assertEquals(expected.hashCode(), updated.hashCode());
+
+        // Earlier versions are not modified by updates
+        assertEquals("1", three.get("a"));
+        assertSame(three, three.with("a", "1"));
+    }
+
+    @Test
+    public void testWithAll() {
+        final FlowFileAttributeMap base = FlowFileAttributeMap.empty().with("b", "2").with("d", "4");
+
+        final Map<String, String> updates = new HashMap<>();
+        updates.put("a", "1");
+        updates.put("b", "two");
+        updates.put("e", "5");
+        updates.put("f", null);
+
+        final FlowFileAttributeMap updated = base.withAll(updates);
+        assertEquals(4, updated.size());
+        assertEquals("1", updated.get("a"));
+        assertEquals("two", updated.get("b"));
+        assertEquals("4", updated.get("d"));
+        assertEquals("5", updated.get("e"));
+        assertNull(updated.get("f"));
+
+        assertSame(base, base.withAll(Collections.singletonMap("b", "2")));
+        assertEquals("3", base.withAll(Collections.singletonMap("d", "3")).get("d"));
+    }
+
+    @Test
+    public void testWithout() {
+        final Map<String, String> attributes = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            attributes.put("attr." + i, String.valueOf(i));
+        }
+        final FlowFileAttributeMap map = FlowFileAttributeMap.copyOf(attributes);
+
+        final FlowFileAttributeMap removed = map.without(key -> key.endsWith("5"));
+        assertEquals(18, removed.size());
+        assertNull(removed.get("attr.5"));
+        assertNull(removed.get("attr.15"));
+        assertEquals("4", removed.get("attr.4"));
+
+        assertSame(map, map.without(key -> false));
+        assertTrue(map.without(key -> true).isEmpty());
+        assertEquals(attributes, map);
+    }
+
+    @Test
+    public void testKeySetsAreShared() {
+        final FlowFileAttributeMap first = FlowFileAttributeMap.empty().with("shared.key.1", "a").with("shared.key.2", "b");
+        final FlowFileAttributeMap second = FlowFileAttributeMap.empty().with(new String("shared.key.2"), "c").with(new String("shared.key.1"), "d");
+
+        final String firstKey = first.keySet().iterator().next();
+        final String secondKey = second.keySet().iterator().next();
+        assertEquals(firstKey, secondKey);
+        assertSame(firstKey, secondKey);
+    }
+
+    @Test
+    public void testForEachAndIteration() {
+        final FlowFileAttributeMap map = FlowFileAttributeMap.empty().with("x", "1").with("y", "2");
+
+        final Map<String, String> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(map, visited);
+
+        final Map<String, String> iterated = new HashMap<>();
+        for (final Map.Entry<String, String> entry : map.entrySet()) {
+            iterated.put(entry.getKey(), entry.getValue());
+        }
+        assertEquals(map, iterated);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() {
+        FlowFileAttributeMap.empty().with("a", "1").put("b", "2");
+    }
+
+    @Test
+    public void testFlowFileBuilder() {
+        final FlowFile original = new StandardFlowFileRecord.Builder()
+            .id(1L)
+            .addAttribute(CoreAttributes.UUID.key(), "1234")
+            .addAttribute("filename", "file.txt")
+            .addAttribute("remove.me", "x")
+            .build();
+
+        final FlowFile updated = new StandardFlowFileRecord.Builder()
+            .fromFlowFile((FlowFileRecord) original)
+            .addAttribute("path", "/")
+            .removeAttributes(Pattern.compile(".*"))
+            .addAttribute("filename", "other.txt")
+            .build();
+
+        assertEquals(2, updated.getAttributes().size());
+        assertEquals("1234", updated.getAttribute(CoreAttributes.UUID.key()));
+        assertEquals("other.txt", updated.getAttribute("filename"));
+
+        assertEquals(3, original.getAttributes().size());
+        assertEquals("file.txt", original.getAttribute("filename"));
+        assertEquals("x", original.getAttribute("remove.me"));
+    }
+}
@@ -3725,6 +3725,8 @@ public final class DtoFactory {
         dto.setSwapByteCount(swapSize.getByteCount());
         dto.setSwapFlowFileCount(swapSize.getObjectCount());
         dto.setSwapFiles(queueDiagnostics.getSwapFileCount());
+        dto.setSwapInCount(queueDiagnostics.getSwapInCount());
+        dto.setSwapInStallMillis(queueDiagnostics.getSwapInStallMillis());
 
         dto.setTotalByteCount(activeSize.getByteCount() + inFlightSize.getByteCount() + swapSize.getByteCount());
         dto.setTotalFlowFileCount(activeSize.getObjectCount() + inFlightSize.getObjectCount() + swapSize.getObjectCount());
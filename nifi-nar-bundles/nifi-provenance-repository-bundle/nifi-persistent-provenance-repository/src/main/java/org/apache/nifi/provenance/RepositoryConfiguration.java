@@ -20,6 +20,7 @@ import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -27,6 +28,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import org.apache.nifi.processor.DataUnit;
+import org.apache.nifi.provenance.ingest.BufferFullPolicy;
 import org.apache.nifi.provenance.search.SearchableField;
 import org.apache.nifi.util.FormatUtils;
 import org.apache.nifi.util.NiFiProperties;
@@ -62,6 +64,12 @@ public class RepositoryConfiguration {
     private boolean allowRollover = true;
     private int concurrentMergeThreads = 4;
     private Integer warmCacheFrequencyMinutes = null;
+    private boolean columnarStoreEnabled = false;
+    private long columnarPartitionMillis = TimeUnit.HOURS.toMillis(1L);
+    private boolean asyncIngestEnabled = false;
+    private int asyncIngestBufferSize = 1024;
+    private int asyncIngestThreads = 2;
+    private BufferFullPolicy asyncIngestFullPolicy = BufferFullPolicy.BLOCK;
 
     public void setAllowRollover(final boolean allow) {
         this.allowRollover = allow;
@@ -379,6 +387,74 @@ public class RepositoryConfiguration {
     }
 
 
+    /**
+     * @return <code>true</code> if a columnar, time-partitioned copy of the events' summaries should be kept alongside the event files, so that
+     * queries on the summary fields can be answered without consulting the Lucene indices
+     */
+    public boolean isColumnarStoreEnabled() {
+        return columnarStoreEnabled;
+    }
+
+    public void setColumnarStoreEnabled(final boolean columnarStoreEnabled) {
+        this.columnarStoreEnabled = columnarStoreEnabled;
+    }
+
+    /**
+     * @param timeUnit the unit of the returned value
+     * @return the length of time covered by each partition of the columnar store
+     */
+    public long getColumnarPartitionDuration(final TimeUnit timeUnit) {
+        return timeUnit.convert(columnarPartitionMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void setColumnarPartitionDuration(final long duration, final TimeUnit timeUnit) {
+        this.columnarPartitionMillis = timeUnit.toMillis(duration);
+    }
+
+    /**
+     * @return <code>true</code> if events should be handed off to dedicated threads to be written, rather than being written by the thread that registers them
+     */
+    public boolean isAsyncIngestEnabled() {
+        return asyncIngestEnabled;
+    }
+
+    public void setAsyncIngestEnabled(final boolean asyncIngestEnabled) {
+        this.asyncIngestEnabled = asyncIngestEnabled;
+    }
+
+    /**
+     * @return the maximum number of batches of events that may be waiting to be written when asynchronous ingest is enabled
+     */
+    public int getAsyncIngestBufferSize() {
+        return asyncIngestBufferSize;
+    }
+
+    public void setAsyncIngestBufferSize(final int asyncIngestBufferSize) {
+        this.asyncIngestBufferSize = asyncIngestBufferSize;
+    }
+
+    /**
+     * @return the number of threads that write events to the repository when asynchronous ingest is enabled
+     */
+    public int getAsyncIngestThreads() {
+        return asyncIngestThreads;
+    }
+
+    public void setAsyncIngestThreads(final int asyncIngestThreads) {
+        this.asyncIngestThreads = asyncIngestThreads;
+    }
+
+    /**
+     * @return what should happen when events are registered while the asynchronous ingest buffer is full
+     */
+    public BufferFullPolicy getAsyncIngestFullPolicy() {
+        return asyncIngestFullPolicy;
+    }
+
+    public void setAsyncIngestFullPolicy(final BufferFullPolicy asyncIngestFullPolicy) {
+        this.asyncIngestFullPolicy = asyncIngestFullPolicy;
+    }
+
     public static RepositoryConfiguration create(final NiFiProperties nifiProperties) {
         final Map<String, Path> storageDirectories = nifiProperties.getProvenanceRepositoryPaths();
         if (storageDirectories.isEmpty()) {
@@ -402,6 +478,10 @@ public class RepositoryConfiguration {
         final long rolloverBytes = DataUnit.parseDataSize(rolloverSize, DataUnit.B).longValue();
 
         final boolean compressOnRollover = Boolean.parseBoolean(nifiProperties.getProperty(NiFiProperties.PROVENANCE_COMPRESS_ON_ROLLOVER));
+        final boolean columnarStoreEnabled = Boolean.parseBoolean(nifiProperties.getProperty(NiFiProperties.PROVENANCE_COLUMNAR_STORE_ENABLED, "false"));
+        final String columnarPartitionDuration = nifiProperties.getProperty(NiFiProperties.PROVENANCE_COLUMNAR_PARTITION_DURATION, "1 hour");
+        final boolean asyncIngestEnabled = Boolean.parseBoolean(nifiProperties.getProperty(NiFiProperties.PROVENANCE_ASYNC_INGEST_ENABLED, "false"));
+        final String asyncIngestFullPolicy = nifiProperties.getProperty(NiFiProperties.PROVENANCE_ASYNC_INGEST_FULL_POLICY, BufferFullPolicy.BLOCK.name());
         final String indexedFieldString = nifiProperties.getProperty(NiFiProperties.PROVENANCE_INDEXED_FIELDS);
         final String indexedAttrString = nifiProperties.getProperty(NiFiProperties.PROVENANCE_INDEXED_ATTRIBUTES);
 
@@ -460,6 +540,17 @@ public class RepositoryConfiguration {
         }
 
         config.setAlwaysSync(alwaysSync);
+        config.setColumnarStoreEnabled(columnarStoreEnabled);
+        config.setColumnarPartitionDuration(FormatUtils.getTimeDuration(columnarPartitionDuration, TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
+        config.setAsyncIngestEnabled(asyncIngestEnabled);
+        config.setAsyncIngestBufferSize(nifiProperties.getIntegerProperty(NiFiProperties.PROVENANCE_ASYNC_INGEST_BUFFER_SIZE, config.getAsyncIngestBufferSize()));
+        config.setAsyncIngestThreads(nifiProperties.getIntegerProperty(NiFiProperties.PROVENANCE_ASYNC_INGEST_THREADS, config.getAsyncIngestThreads()));
+        try {
+            config.setAsyncIngestFullPolicy(BufferFullPolicy.valueOf(asyncIngestFullPolicy.trim().toUpperCase()));
+        } catch (final IllegalArgumentException iae) {
+            throw new IllegalArgumentException("Invalid value '" + asyncIngestFullPolicy + "' for property " + NiFiProperties.PROVENANCE_ASYNC_INGEST_FULL_POLICY
+                + "; must be one of " + Arrays.toString(BufferFullPolicy.values()));
+        }
 
         config.setDebugFrequency(nifiProperties.getIntegerProperty(NiFiProperties.PROVENANCE_REPO_DEBUG_FREQUENCY, config.getDebugFrequency()));
         return config;
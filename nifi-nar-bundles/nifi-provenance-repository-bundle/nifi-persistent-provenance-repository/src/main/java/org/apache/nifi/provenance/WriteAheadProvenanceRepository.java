@@ -26,6 +26,7 @@ import org.apache.nifi.provenance.authorization.EventAuthorizer;
 import org.apache.nifi.provenance.authorization.UserEventAuthorizer;
 import org.apache.nifi.provenance.index.EventIndex;
 import org.apache.nifi.provenance.index.lucene.LuceneEventIndex;
+import org.apache.nifi.provenance.ingest.AsyncEventIngester;
 import org.apache.nifi.provenance.lineage.ComputeLineageSubmission;
 import org.apache.nifi.provenance.lucene.IndexManager;
 import org.apache.nifi.provenance.lucene.StandardIndexManager;
@@ -40,6 +41,7 @@ import org.apache.nifi.provenance.store.PartitionedWriteAheadEventStore;
 import org.apache.nifi.provenance.store.RecordReaderFactory;
 import org.apache.nifi.provenance.store.RecordWriterFactory;
 import org.apache.nifi.provenance.store.StorageResult;
+import org.apache.nifi.provenance.store.columnar.ColumnarEventStore;
 import org.apache.nifi.provenance.toc.StandardTocWriter;
 import org.apache.nifi.provenance.toc.TocUtil;
 import org.apache.nifi.provenance.toc.TocWriter;
@@ -97,6 +99,7 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
     // effectively final
     private EventStore eventStore;
     private EventIndex eventIndex;
+    private AsyncEventIngester asyncIngester;
     private EventReporter eventReporter;
     private Authorizer authorizer;
     private ProvenanceAuthorizableFactory resourceFactory;
@@ -144,7 +147,8 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
                            final ProvenanceAuthorizableFactory resourceFactory) throws IOException {
         final EventFileManager fileManager = new EventFileManager();
 
-        eventStore = new PartitionedWriteAheadEventStore(config, recordWriterFactory, recordReaderFactory, eventReporter, fileManager);
+        final EventStore writeAheadEventStore = new PartitionedWriteAheadEventStore(config, recordWriterFactory, recordReaderFactory, eventReporter, fileManager);
+        eventStore = config.isColumnarStoreEnabled() ? new ColumnarEventStore(writeAheadEventStore, config, eventReporter) : writeAheadEventStore;
 
         final IndexManager indexManager = new StandardIndexManager(config);
         eventIndex = new LuceneEventIndex(config, indexManager, eventReporter);
@@ -166,6 +170,11 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
         } else {
             logger.info("Provenance Event Index indicates that no events should be re-indexed upon startup. Will not wait for re-indexing to occur.");
         }
+
+        if (config.isAsyncIngestEnabled()) {
+            asyncIngester = new AsyncEventIngester(config, this::writeEvents, eventReporter);
+            asyncIngester.start();
+        }
     }
 
     @Override
@@ -180,6 +189,14 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
 
     @Override
     public void registerEvents(final Iterable<ProvenanceEventRecord> events) {
+        if (asyncIngester == null) {
+            writeEvents(events);
+        } else {
+            asyncIngester.registerEvents(events);
+        }
+    }
+
+    private void writeEvents(final Iterable<ProvenanceEventRecord> events) {
         final StorageResult storageResult;
 
         try {
@@ -211,9 +228,15 @@ public class WriteAheadProvenanceRepository implements ProvenanceRepository {
         return eventStore.getMaxEventId();
     }
 
+    @Override
+    public long getDroppedEventCount() {
+        return asyncIngester == null ? 0L : asyncIngester.getDroppedEventCount() + asyncIngester.getFailedEventCount();
+    }
+
     @Override
     public void close() {
-        CloseableUtil.closeQuietly(eventStore, eventIndex);
+        // Close the ingester first so that any buffered events are written before the store and index are closed
+        CloseableUtil.closeQuietly(asyncIngester, eventStore, eventIndex);
     }
 
     @Override
@@ -47,6 +47,16 @@ public interface EventAuthorizer {
      */
     void authorize(ProvenanceEventRecord event) throws AccessDeniedException;
 
+    /**
+     * Indicates whether or not the decisions made by {@link #isAuthorized(ProvenanceEventRecord)} depend only on the Component ID of the event. If so,
+     * the event can be authorized using a summary of the event that is read from the index, without first reading the event from the Event Store.
+     *
+     * @return <code>true</code> if only the Component ID of the event is used to authorize it, <code>false</code> otherwise
+     */
+    default boolean isComponentBased() {
+        return false;
+    }
+
     /**
      * Filters out any events that the user is not authorized to access
      *
@@ -82,6 +92,11 @@ public interface EventAuthorizer {
         public void authorize(ProvenanceEventRecord event) throws AccessDeniedException {
         }
 
+        @Override
+        public boolean isComponentBased() {
+            return true;
+        }
+
         @Override
         public List<ProvenanceEventRecord> filterUnauthorizedEvents(List<ProvenanceEventRecord> events) {
             return events;
@@ -104,6 +119,11 @@ public interface EventAuthorizer {
             throw new AccessDeniedException();
         }
 
+        @Override
+        public boolean isComponentBased() {
+            return true;
+        }
+
         @Override
         public List<ProvenanceEventRecord> filterUnauthorizedEvents(List<ProvenanceEventRecord> events) {
             return Collections.emptyList();
@@ -64,4 +64,9 @@ public class UserEventAuthorizer implements EventAuthorizer {
         final Authorizable eventAuthorizable = resourceFactory.createProvenanceDataAuthorizable(event.getComponentId());
         eventAuthorizable.authorize(authorizer, RequestAction.READ, user);
     }
+
+    @Override
+    public boolean isComponentBased() {
+        return true;
+    }
 }
@@ -21,9 +21,12 @@ import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Field.Store;
 import org.apache.lucene.document.FieldType;
 import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DocValuesType;
 import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.util.BytesRef;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.ProvenanceEventType;
@@ -55,6 +58,14 @@ public class ConvertEventToLuceneDocument {
     }
 
 
+    private void addDocValue(final Document doc, final SearchableField field, final String value) {
+        if (value == null) {
+            return;
+        }
+
+        doc.add(new SortedDocValuesField(field.getSearchableFieldName(), new BytesRef(value)));
+    }
+
     public Document convert(final ProvenanceEventRecord record, final StorageSummary persistedEvent) {
         return convert(record, persistedEvent.getEventId());
     }
@@ -94,6 +105,12 @@ public class ConvertEventToLuceneDocument {
         // be stored so that we know how to lookup the event in the store.
         doc.add(new UnIndexedLongField(SearchableFields.Identifier.getSearchableFieldName(), eventId));
 
+        // Keep a summary of the event in DocValues so that query results can be sorted by time and the event summarized without reading
+        // the event from the Event Store. The summary values are stored as-is, rather than lower-cased as the indexed terms are.
+        doc.add(new NumericDocValuesField(SearchableFields.EventTime.getSearchableFieldName(), record.getEventTime()));
+        addDocValue(doc, SearchableFields.ComponentID, record.getComponentId());
+        addDocValue(doc, SearchableFields.FlowFileUUID, record.getFlowFileUuid());
+
         // If it's event is a FORK, or JOIN, add the FlowFileUUID for all child/parent UUIDs.
         final ProvenanceEventType eventType = record.getEventType();
         if (eventType == ProvenanceEventType.FORK || eventType == ProvenanceEventType.CLONE || eventType == ProvenanceEventType.REPLAY) {
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.index.lucene;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.nifi.provenance.PlaceholderProvenanceEvent;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.SearchableFields;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>
+ * Reads a summary of each Provenance Event that matched a query from the DocValues of the Lucene index, rather than from the stored fields of the
+ * Documents or from the Event Store. The summary consists of the Event ID, Event Time, Component ID, and FlowFile UUID - the same information that
+ * is kept by a {@link PlaceholderProvenanceEvent}, and all that is needed in order to determine whether or not a user is authorized to see the event.
+ * </p>
+ *
+ * <p>
+ * The hits are read one segment at a time, in increasing order of document ID, so that the DocValues iterators only ever move forward. Documents that were
+ * indexed before the summary was added to the index have only an Event ID; for those, the summary's Component ID is <code>null</code>, and
+ * {@link #isComplete(ProvenanceEventRecord)} returns <code>false</code> so that the caller knows to read the full event instead.
+ * </p>
+ */
+public class EventSummaryReader {
+    private static final String EVENT_ID_FIELD = SearchableFields.Identifier.getSearchableFieldName();
+    private static final String EVENT_TIME_FIELD = SearchableFields.EventTime.getSearchableFieldName();
+    private static final String COMPONENT_ID_FIELD = SearchableFields.ComponentID.getSearchableFieldName();
+    private static final String FLOWFILE_UUID_FIELD = SearchableFields.FlowFileUUID.getSearchableFieldName();
+    private static final Set<String> STORED_FIELDS_TO_LOAD = Collections.singleton(EVENT_ID_FIELD);
+
+    /**
+     * Reads the summaries of the given hits
+     *
+     * @param scoreDocs the hits whose summaries should be read
+     * @param indexReader the reader for the index that produced the hits
+     * @return a summary of each hit, in the same order as the given hits
+     * @throws IOException if unable to read from the index
+     */
+    public List<ProvenanceEventRecord> read(final ScoreDoc[] scoreDocs, final IndexReader indexReader) throws IOException {
+        if (scoreDocs.length == 0) {
+            return Collections.emptyList();
+        }
+
+        final int[] docIds = new int[scoreDocs.length];
+        for (int i = 0; i < scoreDocs.length; i++) {
+            docIds[i] = scoreDocs[i].doc;
+        }
+        Arrays.sort(docIds);
+
+        final List<LeafReaderContext> leaves = indexReader.leaves();
+        final ProvenanceEventRecord[] summaries = new ProvenanceEventRecord[docIds.length];
+
+        int index = 0;
+        while (index < docIds.length) {
+            final LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(docIds[index], leaves));
+            final int leafEnd = leaf.docBase + leaf.reader().maxDoc();
+
+            final LeafSummaries leafSummaries = new LeafSummaries(leaf.reader());
+            while (index < docIds.length && docIds[index] < leafEnd) {
+                summaries[index] = leafSummaries.summarize(docIds[index] - leaf.docBase);
+                index++;
+            }
+        }
+
+        // Return the summaries in the order of the hits, rather than in order of document ID
+        final List<ProvenanceEventRecord> orderedSummaries = new ArrayList<>(scoreDocs.length);
+        for (final ScoreDoc scoreDoc : scoreDocs) {
+            orderedSummaries.add(summaries[Arrays.binarySearch(docIds, scoreDoc.doc)]);
+        }
+
+        return orderedSummaries;
+    }
+
+    /**
+     * @param summary a summary that was returned by {@link #read(ScoreDoc[], IndexReader)}
+     * @return <code>true</code> if the summary contains everything that the index can provide, <code>false</code> if the document was indexed
+     * without a summary and only its Event ID is known
+     */
+    public boolean isComplete(final ProvenanceEventRecord summary) {
+        return summary.getComponentId() != null;
+    }
+
+    private static class LeafSummaries {
+        private final LeafReader leafReader;
+        private final NumericDocValues eventIds;
+        private final NumericDocValues eventTimes;
+        private final SortedDocValues componentIds;
+        private final SortedDocValues flowFileUuids;
+
+        LeafSummaries(final LeafReader leafReader) throws IOException {
+            this.leafReader = leafReader;
+            this.eventIds = leafReader.getNumericDocValues(EVENT_ID_FIELD);
+            this.eventTimes = leafReader.getNumericDocValues(EVENT_TIME_FIELD);
+            this.componentIds = leafReader.getSortedDocValues(COMPONENT_ID_FIELD);
+            this.flowFileUuids = leafReader.getSortedDocValues(FLOWFILE_UUID_FIELD);
+        }
+
+        ProvenanceEventRecord summarize(final int docId) throws IOException {
+            final long eventId;
+            if (eventIds != null && eventIds.advanceExact(docId)) {
+                eventId = eventIds.longValue();
+            } else {
+                final Document document = leafReader.document(docId, STORED_FIELDS_TO_LOAD);
+                final IndexableField eventIdField = document.getField(EVENT_ID_FIELD);
+                eventId = eventIdField.numericValue().longValue();
+            }
+
+            final long eventTime = eventTimes != null && eventTimes.advanceExact(docId) ? eventTimes.longValue() : 0L;
+            final String componentId = getValue(componentIds, docId);
+            final String flowFileUuid = getValue(flowFileUuids, docId);
+            return new PlaceholderProvenanceEvent(componentId, eventId, eventTime, flowFileUuid);
+        }
+
+        private String getValue(final SortedDocValues docValues, final int docId) throws IOException {
+            if (docValues == null || !docValues.advanceExact(docId)) {
+                return null;
+            }
+
+            return docValues.binaryValue().utf8ToString();
+        }
+    }
+}
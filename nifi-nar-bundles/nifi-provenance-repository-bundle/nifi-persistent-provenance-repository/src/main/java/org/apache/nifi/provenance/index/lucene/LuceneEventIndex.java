@@ -46,6 +46,7 @@ import org.apache.nifi.provenance.search.Query;
 import org.apache.nifi.provenance.search.QuerySubmission;
 import org.apache.nifi.provenance.serialization.StorageSummary;
 import org.apache.nifi.provenance.store.EventStore;
+import org.apache.nifi.provenance.store.QueryableEventStore;
 import org.apache.nifi.provenance.util.DirectoryUtils;
 import org.apache.nifi.provenance.util.NamedThreadFactory;
 import org.apache.nifi.reporting.Severity;
@@ -68,6 +69,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
@@ -594,6 +596,36 @@ public class LuceneEventIndex implements EventIndex {
         return lineageQuery;
     }
 
+    private QuerySubmission submitEventIdQuery(final Query query, final EventAuthorizer authorizer, final String userId, final Callable<List<Long>> eventIdSupplier) {
+        final AsyncQuerySubmission submission = new AsyncQuerySubmission(query, 1, userId);
+        querySubmissionMap.put(query.getIdentifier(), submission);
+
+        queryExecutor.submit(() -> {
+            List<ProvenanceEventRecord> events;
+            try {
+                final List<Long> eventIds = eventIdSupplier.call();
+                events = eventStore.getEvents(eventIds, authorizer, EventTransformer.EMPTY_TRANSFORMER);
+                logger.debug("Retrieved {} of {} Events from Event Store", events.size(), eventIds.size());
+
+                submission.getResult().update(events, eventIds.size());
+            } catch (final Exception e) {
+                submission.getResult().setError("Failed to retrieve Provenance Events from store; see logs for more details");
+                logger.error("Failed to retrieve Provenance Events from store", e);
+            }
+        });
+
+        // There are some queries that are optimized and will complete very quickly. As a result,
+        // we don't want to wait for the client to issue a second request, so we will give the query
+        // up to 500 milliseconds to complete before running.
+        try {
+            submission.getResult().awaitCompletion(500, TimeUnit.MILLISECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return submission;
+    }
+
     @Override
     public QuerySubmission submitQuery(final Query query, final EventAuthorizer authorizer, final String userId) {
         validate(query);
@@ -602,38 +634,20 @@ public class LuceneEventIndex implements EventIndex {
         for (final CachedQuery cachedQuery : cachedQueries) {
             final Optional<List<Long>> eventIdListOption = cachedQuery.evaluate(query);
             if (eventIdListOption.isPresent()) {
-                final AsyncQuerySubmission submission = new AsyncQuerySubmission(query, 1, userId);
-                querySubmissionMap.put(query.getIdentifier(), submission);
-
                 final List<Long> eventIds = eventIdListOption.get();
                 logger.debug("Cached Query {} produced {} Event IDs for {}: {}", cachedQuery, eventIds.size(), query, eventIds);
 
-                queryExecutor.submit(() -> {
-                    List<ProvenanceEventRecord> events;
-                    try {
-                        events = eventStore.getEvents(eventIds, authorizer, EventTransformer.EMPTY_TRANSFORMER);
-                        logger.debug("Retrieved {} of {} Events from Event Store", events.size(), eventIds.size());
-
-                        submission.getResult().update(events, eventIds.size());
-                    } catch (final Exception e) {
-                        submission.getResult().setError("Failed to retrieve Provenance Events from store; see logs for more details");
-                        logger.error("Failed to retrieve Provenance Events from store", e);
-                    }
-                });
-
-                // There are some queries that are optimized and will complete very quickly. As a result,
-                // we don't want to wait for the client to issue a second request, so we will give the query
-                // up to 500 milliseconds to complete before running.
-                try {
-                    submission.getResult().awaitCompletion(500, TimeUnit.MILLISECONDS);
-                } catch (final InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-
-                return submission;
+                return submitEventIdQuery(query, authorizer, userId, () -> eventIds);
             }
         }
 
+        // If the Event Store is able to evaluate the query directly, it can do so without searching the indices
+        if (eventStore instanceof QueryableEventStore && ((QueryableEventStore) eventStore).isQuerySupported(query)) {
+            logger.debug("Evaluating {} against the Event Store instead of the index", query);
+            final QueryableEventStore queryableStore = (QueryableEventStore) eventStore;
+            return submitEventIdQuery(query, authorizer, userId, () -> queryableStore.getEventIds(query));
+        }
+
         final List<File> indexDirectories = directoryManager.getDirectories(
             query.getStartDate() == null ? null : query.getStartDate().getTime(),
             query.getEndDate() == null ? null : query.getEndDate().getTime());
@@ -17,11 +17,15 @@
 
 package org.apache.nifi.provenance.index.lucene;
 
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.FieldInfo;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldCollector;
 import org.apache.nifi.provenance.ProgressiveResult;
 import org.apache.nifi.provenance.ProvenanceEventRecord;
 import org.apache.nifi.provenance.SearchableFields;
@@ -38,16 +42,14 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 public class QueryTask implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(QueryTask.class);
-    private static final Set<String> LUCENE_FIELDS_TO_LOAD = Collections.singleton(SearchableFields.Identifier.getSearchableFieldName());
+    private static final String EVENT_TIME_FIELD = SearchableFields.EventTime.getSearchableFieldName();
 
     private final Query query;
     private final ProgressiveResult queryResult;
@@ -57,6 +59,7 @@ public class QueryTask implements Runnable {
     private final EventStore eventStore;
     private final EventAuthorizer authorizer;
     private final EventTransformer transformer;
+    private final EventSummaryReader summaryReader = new EventSummaryReader();
 
     public QueryTask(final Query query, final ProgressiveResult result, final int maxResults, final IndexManager indexManager,
         final File indexDir, final EventStore eventStore, final EventAuthorizer authorizer,
@@ -127,10 +130,11 @@ public class QueryTask implements Runnable {
             final TopDocs topDocs;
             try {
 
-                // Sort based on document id, descending. This gives us most recent events first.
-                final Sort sort = new Sort(new SortField(null, SortField.Type.DOC, true));
-
-                topDocs = searcher.getIndexSearcher().search(query, maxResults, sort);
+                // Collect only as many hits as we need. Once that many have been found, Lucene no longer needs an exact count of hits and can
+                // skip over documents that cannot compete with those already collected.
+                final TopFieldCollector collector = TopFieldCollector.create(createSort(indexReader), maxResults, maxResults);
+                searcher.getIndexSearcher().search(query, collector);
+                topDocs = collector.topDocs();
             } catch (final Exception e) {
                 logger.error("Failed to query Lucene for index " + indexDir, e);
                 queryResult.setError("Failed to query Lucene for index " + indexDir + " due to " + e);
@@ -174,6 +178,26 @@ public class QueryTask implements Runnable {
         }
     }
 
+    /**
+     * Creates the Sort that orders the hits with the most recent events first. If every segment of the index stores the Event Time as a DocValue, the hits are
+     * sorted by Event Time, which allows Lucene to use the Event Time points to skip documents that are older than the hits that have already been collected.
+     * Otherwise, the index was (at least partially) written before the Event Time was stored as a DocValue, so we sort based on document id, descending.
+     */
+    private Sort createSort(final IndexReader indexReader) {
+        final SortField docSortField = new SortField(null, SortField.Type.DOC, true);
+
+        for (final LeafReaderContext leaf : indexReader.leaves()) {
+            final FieldInfo eventTimeInfo = leaf.reader().getFieldInfos().fieldInfo(EVENT_TIME_FIELD);
+            if (eventTimeInfo == null || eventTimeInfo.getDocValuesType() != DocValuesType.NUMERIC || eventTimeInfo.getPointDimensionCount() == 0) {
+                return new Sort(docSortField);
+            }
+        }
+
+        final SortField eventTimeSortField = new SortField(EVENT_TIME_FIELD, SortField.Type.LONG, true);
+        eventTimeSortField.setCanUsePoints();
+        return new Sort(eventTimeSortField, docSortField);
+    }
+
     private Tuple<List<ProvenanceEventRecord>, Long> readDocuments(final TopDocs topDocs, final IndexReader indexReader) {
         // If no topDocs is supplied, just provide a Tuple that has no records and a hit count of 0.
         if (topDocs == null || topDocs.totalHits.value == 0) {
@@ -181,25 +205,34 @@ public class QueryTask implements Runnable {
         }
 
         final long start = System.nanoTime();
-        final List<Long> eventIds = Arrays.stream(topDocs.scoreDocs)
-            .mapToInt(scoreDoc -> scoreDoc.doc)
-            .mapToObj(docId -> {
-                try {
-                    return indexReader.document(docId, LUCENE_FIELDS_TO_LOAD);
-                } catch (final Exception e) {
-                    throw new SearchFailedException("Failed to read Provenance Events from Event File", e);
-                }
-            })
-            .map(doc -> doc.getField(SearchableFields.Identifier.getSearchableFieldName()).numericValue().longValue())
-            .collect(Collectors.toList());
+        final List<ProvenanceEventRecord> summaries;
+        try {
+            summaries = summaryReader.read(topDocs.scoreDocs, indexReader);
+        } catch (final Exception e) {
+            throw new SearchFailedException("Failed to read Provenance Event summaries from Lucene index", e);
+        }
+
+        // If the authorizer needs only the Component ID, the summary contains everything needed to authorize the event, so events that the user is not
+        // authorized to see never need to be read from the Event Store. Instead, the summary is given to the transformer, which will either drop the event
+        // or create a placeholder for it.
+        final List<Long> eventIds = new ArrayList<>(summaries.size());
+        final List<ProvenanceEventRecord> unauthorizedEvents = new ArrayList<>();
+        final boolean authorizeSummaries = authorizer != null && authorizer != EventAuthorizer.GRANT_ALL && authorizer.isComponentBased();
+        for (final ProvenanceEventRecord summary : summaries) {
+            if (authorizeSummaries && summaryReader.isComplete(summary) && !authorizer.isAuthorized(summary)) {
+                transformer.transform(summary).ifPresent(unauthorizedEvents::add);
+            } else {
+                eventIds.add(summary.getEventId());
+            }
+        }
 
         final long endConvert = System.nanoTime();
         final long ms = TimeUnit.NANOSECONDS.toMillis(endConvert - start);
-        logger.trace("Converting documents took {} ms", ms);
+        logger.trace("Reading summaries of {} documents took {} ms; {} events were not authorized and will not be fetched", summaries.size(), ms, summaries.size() - eventIds.size());
 
-        List<ProvenanceEventRecord> events;
+        final List<ProvenanceEventRecord> events = new ArrayList<>(summaries.size());
         try {
-            events = eventStore.getEvents(eventIds, authorizer, transformer);
+            events.addAll(eventStore.getEvents(eventIds, authorizer, transformer));
         } catch (IOException e) {
             throw new SearchFailedException("Unable to retrieve events from the Provenance Store", e);
         }
@@ -207,6 +240,8 @@ public class QueryTask implements Runnable {
         final long fetchEventNanos = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - endConvert);
         logger.debug("Fetching {} events from Event Store took {} ms ({} events actually fetched)", eventIds.size(), fetchEventNanos, events.size());
 
+        events.addAll(unauthorizedEvents);
+
         final long totalHits = topDocs.totalHits.value;
         return new Tuple<>(events, totalHits);
     }
@@ -0,0 +1,354 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.ingest;
+
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.RepositoryConfiguration;
+import org.apache.nifi.provenance.util.NamedThreadFactory;
+import org.apache.nifi.reporting.Severity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * Decouples the registration of Provenance Events from writing them to the repository. Registering a batch of events copies references to the events into
+ * an {@link EventRingBuffer} and returns; dedicated writer threads take batches from the buffer, combining several batches into a single write where
+ * possible, and hand them to the given writer to be serialized, compressed and indexed.
+ * </p>
+ *
+ * <p>
+ * When the buffer is full, the configured {@link BufferFullPolicy} determines whether the registering thread waits for room in the buffer or the events are
+ * discarded. The number of pending batches and events, the age of the oldest pending batch, the time that registering threads spent waiting, and the number
+ * of events that were dropped or that failed to be written are available as metrics and are logged periodically.
+ * </p>
+ *
+ * <p>
+ * If the writer fails with an Exception, the events in that write are counted as failed and the writer thread continues with the next batches. If it fails
+ * with an Error, the events are counted as failed and the Error is rethrown, terminating the writer thread; once no writer threads remain, registering
+ * threads write their events themselves.
+ * </p>
+ */
+public class AsyncEventIngester implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncEventIngester.class);
+    private static final String EVENT_CATEGORY = "Provenance Repository";
+
+    private static final int MAX_BATCHES_PER_WRITE = 32;
+    private static final long MIN_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(1L);
+    private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(1L);
+    private static final long REPORT_INTERVAL_SECONDS = 60L;
+    private static final long SHUTDOWN_WAIT_SECONDS = 30L;
+
+    private final EventRingBuffer ringBuffer;
+    private final Consumer<Iterable<ProvenanceEventRecord>> eventWriter;
+    private final EventReporter eventReporter;
+    private final BufferFullPolicy fullPolicy;
+    private final int writerThreadCount;
+
+    private final LongAdder pendingEvents = new LongAdder();
+    private final LongAdder writtenEvents = new LongAdder();
+    private final LongAdder droppedEvents = new LongAdder();
+    private final LongAdder failedEvents = new LongAdder();
+    private final LongAdder blockedNanos = new LongAdder();
+    private final AtomicInteger runningWriters = new AtomicInteger(0);
+
+    private ExecutorService writerExecutor;
+    private ScheduledExecutorService reportExecutor;
+    private long lastReportedDroppedEvents = 0L; // accessed only by the report thread
+    private long lastReportedFailedEvents = 0L; // accessed only by the report thread
+    private volatile boolean stopped = false;
+
+    /**
+     * @param config the repository configuration, which provides the buffer size, number of writer threads and full policy
+     * @param eventWriter writes a batch of events to the repository; any Exception that it throws is logged and the events are counted as failed
+     * @param eventReporter the reporter used to notify users when events are dropped
+     */
+    public AsyncEventIngester(final RepositoryConfiguration config, final Consumer<Iterable<ProvenanceEventRecord>> eventWriter, final EventReporter eventReporter) {
+        this.ringBuffer = new EventRingBuffer(config.getAsyncIngestBufferSize());
+        this.eventWriter = eventWriter;
+        this.eventReporter = eventReporter;
+        this.fullPolicy = config.getAsyncIngestFullPolicy();
+        this.writerThreadCount = Math.max(1, config.getAsyncIngestThreads());
+    }
+
+    public synchronized void start() {
+        writerExecutor = Executors.newFixedThreadPool(writerThreadCount, new NamedThreadFactory("Provenance Event Writer", true));
+        runningWriters.set(writerThreadCount);
+        for (int i = 0; i < writerThreadCount; i++) {
+            // use execute rather than submit so that an Error thrown by the writer reaches the thread's uncaught exception handler instead of a discarded Future
+            writerExecutor.execute(() -> {
+                try {
+                    new BatchWriter().run();
+                } finally {
+                    runningWriters.decrementAndGet();
+                }
+            });
+        }
+
+        reportExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("Provenance Ingest Metrics", true));
+        reportExecutor.scheduleWithFixedDelay(this::reportMetrics, REPORT_INTERVAL_SECONDS, REPORT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+
+        logger.info("Provenance Events will be written asynchronously by {} threads using a buffer of {} batches; when the buffer is full, the policy is {}",
+            writerThreadCount, ringBuffer.getCapacity(), fullPolicy);
+    }
+
+    /**
+     * Places the given events into the buffer to be written by a writer thread. The events are iterated only once, on the calling thread.
+     * If the buffer is full, either waits for room or discards the events, according to the configured {@link BufferFullPolicy}.
+     * If this ingester has been closed, or no writer threads are running, the events are written on the calling thread.
+     *
+     * @param events the events to register
+     */
+    public void registerEvents(final Iterable<ProvenanceEventRecord> events) {
+        if (stopped || runningWriters.get() == 0) {
+            eventWriter.accept(events);
+            return;
+        }
+
+        long position = ringBuffer.claimForWrite();
+        if (position < 0) {
+            if (fullPolicy == BufferFullPolicy.DROP) {
+                drop(events);
+                return;
+            }
+
+            position = awaitSlot();
+            if (position < 0) {
+                eventWriter.accept(events);
+                return;
+            }
+        }
+
+        int eventCount = 0;
+        try {
+            eventCount = ringBuffer.fill(position, events);
+        } finally {
+            pendingEvents.add(eventCount);
+            ringBuffer.publish(position);
+        }
+    }
+
+    private long awaitSlot() {
+        final long start = System.nanoTime();
+        long waitNanos = MIN_WAIT_NANOS;
+
+        try {
+            while (!stopped && runningWriters.get() > 0) {
+                LockSupport.parkNanos(waitNanos);
+                waitNanos = Math.min(waitNanos * 2, MAX_WAIT_NANOS);
+
+                final long position = ringBuffer.claimForWrite();
+                if (position >= 0) {
+                    return position;
+                }
+            }
+
+            return -1L;
+        } finally {
+            blockedNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private void drop(final Iterable<ProvenanceEventRecord> events) {
+        long count = 0L;
+        for (final ProvenanceEventRecord ignored : events) {
+            count++;
+        }
+
+        droppedEvents.add(count);
+        logger.debug("Dropped {} Provenance Events because the ingest buffer is full", count);
+    }
+
+    /**
+     * @return the number of batches that have been registered but not yet taken by a writer thread
+     */
+    public int getPendingBatchCount() {
+        return ringBuffer.getPendingCount();
+    }
+
+    /**
+     * @return the number of events that have been registered but not yet written
+     */
+    public long getPendingEventCount() {
+        return pendingEvents.sum();
+    }
+
+    /**
+     * @param timeUnit the unit of the returned value
+     * @return how long the oldest batch that has not yet been taken by a writer thread has been waiting, or 0 if there is none
+     */
+    public long getLag(final TimeUnit timeUnit) {
+        return timeUnit.convert(ringBuffer.getOldestPendingNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the number of events that have been written by the writer threads
+     */
+    public long getWrittenEventCount() {
+        return writtenEvents.sum();
+    }
+
+    /**
+     * @return the number of events that have been discarded because the buffer was full
+     */
+    public long getDroppedEventCount() {
+        return droppedEvents.sum();
+    }
+
+    /**
+     * @return the number of events that were taken from the buffer but could not be written because the writer threw an Exception or Error
+     */
+    public long getFailedEventCount() {
+        return failedEvents.sum();
+    }
+
+    /**
+     * @param timeUnit the unit of the returned value
+     * @return the total amount of time that registering threads have spent waiting for room in the buffer
+     */
+    public long getBlockedTime(final TimeUnit timeUnit) {
+        return timeUnit.convert(blockedNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    private void reportMetrics() {
+        final long dropped = getDroppedEventCount();
+        final long newlyDropped = dropped - lastReportedDroppedEvents;
+        lastReportedDroppedEvents = dropped;
+
+        final long failed = getFailedEventCount();
+        final long newlyFailed = failed - lastReportedFailedEvents;
+        lastReportedFailedEvents = failed;
+
+        logger.debug("Provenance Ingest: {} batches ({} events) pending with a lag of {} millis; {} events written, {} dropped, {} failed, {} millis spent waiting for buffer space",
+            getPendingBatchCount(), getPendingEventCount(), getLag(TimeUnit.MILLISECONDS), getWrittenEventCount(), dropped, failed, getBlockedTime(TimeUnit.MILLISECONDS));
+
+        if (newlyDropped > 0) {
+            logger.warn("Dropped {} Provenance Events in the last {} seconds because the ingest buffer was full", newlyDropped, REPORT_INTERVAL_SECONDS);
+            eventReporter.reportEvent(Severity.WARNING, EVENT_CATEGORY, "Dropped " + newlyDropped + " Provenance Events in the last " + REPORT_INTERVAL_SECONDS
+                + " seconds because the repository could not keep up with the rate at which events were generated");
+        }
+
+        if (newlyFailed > 0) {
+            logger.error("Failed to write {} Provenance Events in the last {} seconds; see previous log messages for the cause", newlyFailed, REPORT_INTERVAL_SECONDS);
+            eventReporter.reportEvent(Severity.ERROR, EVENT_CATEGORY, "Failed to write " + newlyFailed + " Provenance Events in the last " + REPORT_INTERVAL_SECONDS
+                + " seconds. See logs for more details.");
+        }
+    }
+
+    /**
+     * Stops accepting events into the buffer and waits for the writer threads to write all buffered events
+     */
+    @Override
+    public synchronized void close() {
+        stopped = true;
+
+        if (writerExecutor != null) {
+            writerExecutor.shutdown();
+            try {
+                if (!writerExecutor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                    logger.warn("Provenance Event Writer threads did not finish within {} seconds; {} buffered events may not be written", SHUTDOWN_WAIT_SECONDS, getPendingEventCount());
+                    writerExecutor.shutdownNow();
+                }
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // A thread that began registering events before this ingester was stopped may have published its batch after the writer threads finished
+        if (ringBuffer.getPendingCount() > 0 && !Thread.currentThread().isInterrupted()) {
+            new BatchWriter().run();
+        }
+
+        if (reportExecutor != null) {
+            reportExecutor.shutdownNow();
+            reportMetrics();
+        }
+    }
+
+    /**
+     * Takes batches from the buffer and writes them until this ingester is closed and the buffer is empty
+     */
+    private class BatchWriter implements Runnable {
+        private final long[] positions = new long[MAX_BATCHES_PER_WRITE];
+
+        @Override
+        public void run() {
+            long waitNanos = MIN_WAIT_NANOS;
+
+            while (true) {
+                int claimed = 0;
+                while (claimed < positions.length) {
+                    final long position = ringBuffer.claimForRead();
+                    if (position < 0) {
+                        break;
+                    }
+
+                    positions[claimed++] = position;
+                }
+
+                if (claimed == 0) {
+                    if ((stopped && ringBuffer.getPendingCount() == 0) || Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+
+                    LockSupport.parkNanos(waitNanos);
+                    waitNanos = Math.min(waitNanos * 2, MAX_WAIT_NANOS);
+                    continue;
+                }
+
+                waitNanos = MIN_WAIT_NANOS;
+                write(claimed);
+            }
+        }
+
+        private void write(final int claimed) {
+            long eventCount = 0L;
+            for (int i = 0; i < claimed; i++) {
+                eventCount += ringBuffer.getSize(positions[i]);
+            }
+
+            try {
+                eventWriter.accept(ringBuffer.getEvents(positions, claimed));
+                writtenEvents.add(eventCount);
+            } catch (final Exception e) {
+                failedEvents.add(eventCount);
+                logger.error("Failed to write {} Provenance Events to the repository", eventCount, e);
+            } catch (final Error e) {
+                failedEvents.add(eventCount);
+                logger.error("Failed to write {} Provenance Events to the repository; this Provenance Event Writer thread will terminate", eventCount, e);
+                throw e;
+            } finally {
+                for (int i = 0; i < claimed; i++) {
+                    ringBuffer.release(positions[i]);
+                }
+
+                pendingEvents.add(-eventCount);
+            }
+        }
+    }
+}
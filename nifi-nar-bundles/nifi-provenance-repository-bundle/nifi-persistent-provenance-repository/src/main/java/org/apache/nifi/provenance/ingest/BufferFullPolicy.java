@@ -0,0 +1,33 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.ingest;
+
+/**
+ * Determines what happens when Provenance Events are registered while the asynchronous ingest buffer is full
+ */
+public enum BufferFullPolicy {
+    /**
+     * The registering thread waits until there is room in the buffer, so that the flow is slowed to the rate at which events can be written
+     */
+    BLOCK,
+
+    /**
+     * The events are discarded and counted, so that the flow is never slowed by the repository at the cost of gaps in lineage
+     */
+    DROP;
+}
@@ -0,0 +1,239 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.ingest;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * A bounded, lock-free, multi-producer/multi-consumer ring of batches of Provenance Events. Each slot has a sequence number that indicates whether it is
+ * free to be written, has been published and may be read, or is still in use, so that producers and consumers coordinate using only compare-and-set
+ * operations on the head and tail positions.
+ * </p>
+ *
+ * <p>
+ * Each slot owns an array that the events of a batch are copied into, and the array is reused once the slot is released, so that handing off a batch
+ * does not require any allocation per event. A slot's array is replaced with a smaller one when released if an unusually large batch caused it to grow.
+ * </p>
+ */
+final class EventRingBuffer {
+    private static final int INITIAL_SLOT_CAPACITY = 16;
+    private static final int MAX_RETAINED_SLOT_CAPACITY = 1024;
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final ProvenanceEventRecord[][] slots;
+    private final int[] slotSizes;
+    private final long[] publishNanos;
+    private final AtomicLong head = new AtomicLong(0L);
+    private final AtomicLong tail = new AtomicLong(0L);
+
+    EventRingBuffer(final int requestedCapacity) {
+        if (requestedCapacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive but was " + requestedCapacity);
+        }
+
+        // A slot's sequence can only distinguish 'published' from 'free for the next lap' if there are at least two slots
+        capacity = requestedCapacity <= 2 ? 2 : Integer.highestOneBit(requestedCapacity - 1) << 1;
+        mask = capacity - 1;
+        sequences = new AtomicLongArray(capacity);
+        slots = new ProvenanceEventRecord[capacity][];
+        slotSizes = new int[capacity];
+        publishNanos = new long[capacity];
+
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+            slots[i] = new ProvenanceEventRecord[INITIAL_SLOT_CAPACITY];
+        }
+    }
+
+    /**
+     * Claims the next slot for writing. The caller must {@link #fill(long, Iterable) fill} and then {@link #publish(long) publish} the slot.
+     *
+     * @return the position of the claimed slot, or <code>-1</code> if the buffer is full
+     */
+    long claimForWrite() {
+        long position = tail.get();
+        while (true) {
+            final long difference = sequences.get(index(position)) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+
+                position = tail.get();
+            } else if (difference < 0) {
+                return -1L;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Copies the given events into the slot at the given position, which must have been claimed for writing
+     *
+     * @return the number of events copied
+     */
+    int fill(final long position, final Iterable<ProvenanceEventRecord> events) {
+        final int index = index(position);
+        ProvenanceEventRecord[] slot = slots[index];
+        int size = 0;
+
+        try {
+            for (final ProvenanceEventRecord event : events) {
+                if (size == slot.length) {
+                    slot = Arrays.copyOf(slot, size * 2);
+                    slots[index] = slot;
+                }
+
+                slot[size++] = event;
+            }
+        } finally {
+            slotSizes[index] = size;
+        }
+
+        return size;
+    }
+
+    /**
+     * Makes the slot at the given position, which must have been claimed for writing, available to be read
+     */
+    void publish(final long position) {
+        final int index = index(position);
+        publishNanos[index] = System.nanoTime();
+        sequences.set(index, position + 1);
+    }
+
+    /**
+     * Claims the next published slot for reading. The caller must {@link #release(long) release} the slot once its events have been consumed.
+     *
+     * @return the position of the claimed slot, or <code>-1</code> if no published slot is available
+     */
+    long claimForRead() {
+        long position = head.get();
+        while (true) {
+            final long difference = sequences.get(index(position)) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+
+                position = head.get();
+            } else if (difference < 0) {
+                return -1L;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    /**
+     * @return the number of events in the slot at the given position, which must have been claimed for reading
+     */
+    int getSize(final long position) {
+        return slotSizes[index(position)];
+    }
+
+    /**
+     * Provides a view of the events in the slots at the given positions, all of which must have been claimed for reading
+     *
+     * @param positions the positions of the slots
+     * @param count the number of positions to use
+     * @return an Iterable over the events of each of the slots, in the order given
+     */
+    Iterable<ProvenanceEventRecord> getEvents(final long[] positions, final int count) {
+        return () -> new Iterator<ProvenanceEventRecord>() {
+            private int positionIndex = 0;
+            private int eventIndex = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (positionIndex < count) {
+                    if (eventIndex < slotSizes[index(positions[positionIndex])]) {
+                        return true;
+                    }
+
+                    positionIndex++;
+                    eventIndex = 0;
+                }
+
+                return false;
+            }
+
+            @Override
+            public ProvenanceEventRecord next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return slots[index(positions[positionIndex])][eventIndex++];
+            }
+        };
+    }
+
+    /**
+     * Makes the slot at the given position, which must have been claimed for reading, available to be written again
+     */
+    void release(final long position) {
+        final int index = index(position);
+        if (slots[index].length > MAX_RETAINED_SLOT_CAPACITY) {
+            slots[index] = new ProvenanceEventRecord[INITIAL_SLOT_CAPACITY];
+        } else {
+            Arrays.fill(slots[index], 0, slotSizes[index], null);
+        }
+
+        slotSizes[index] = 0;
+        sequences.set(index, position + capacity);
+    }
+
+    /**
+     * @return the number of slots that have been claimed for writing but not yet claimed for reading
+     */
+    int getPendingCount() {
+        return (int) Math.max(0L, tail.get() - head.get());
+    }
+
+    /**
+     * @return the number of nanoseconds since the oldest published slot that has not yet been claimed for reading was published, or 0 if there is none
+     */
+    long getOldestPendingNanos() {
+        final long position = head.get();
+        final int index = index(position);
+        if (sequences.get(index) != position + 1) {
+            return 0L;
+        }
+
+        return Math.max(0L, System.nanoTime() - publishNanos[index]);
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    private int index(final long position) {
+        return (int) (position & mask);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store;
+
+import org.apache.nifi.provenance.search.Query;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * <p>
+ * An Event Store that is able to evaluate some queries itself, without the use of an index.
+ * </p>
+ */
+public interface QueryableEventStore extends EventStore {
+
+    /**
+     * Indicates whether or not this store is able to evaluate the given query itself, without the use of an index
+     *
+     * @param query the query
+     * @return <code>true</code> if {@link #getEventIds(Query)} can be used to evaluate the query, <code>false</code> otherwise
+     */
+    boolean isQuerySupported(Query query);
+
+    /**
+     * Evaluates the given query against the store, returning the ID's of up to {@link Query#getMaxResults()} matching events, with the largest
+     * Event ID's first. This method may only be called if {@link #isQuerySupported(Query)} returns <code>true</code> for the query.
+     *
+     * @param query the query to evaluate
+     * @return the ID's of the matching events
+     * @throws IOException if unable to read from the store
+     */
+    List<Long> getEventIds(Query query) throws IOException;
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A fixed-size bloom filter over Strings, used to determine whether or not a segment of the columnar store may contain a given FlowFile UUID or Component ID
+ * without reading the segment's columns. The filter is sized for about 1% false positives and uses the two halves of a 64-bit FNV-1a hash to derive its bit positions.
+ */
+class BloomFilter {
+    private static final int BITS_PER_ELEMENT = 10;
+    private static final int HASH_COUNT = 7;
+
+    private final long[] bits;
+
+    BloomFilter(final int expectedElements) {
+        final long bitCount = Math.max(64L, (long) expectedElements * BITS_PER_ELEMENT);
+        this.bits = new long[(int) Math.min(Integer.MAX_VALUE, (bitCount + 63) / 64)];
+    }
+
+    private BloomFilter(final long[] bits) {
+        this.bits = bits;
+    }
+
+    void add(final String value) {
+        final long hash = hash(value);
+        final int hash1 = (int) hash;
+        final int hash2 = (int) (hash >>> 32);
+        final long bitCount = (long) bits.length * 64;
+
+        for (int i = 1; i <= HASH_COUNT; i++) {
+            final long bit = ((hash1 + i * hash2) & Integer.MAX_VALUE) % bitCount;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(final String value) {
+        final long hash = hash(value);
+        final int hash1 = (int) hash;
+        final int hash2 = (int) (hash >>> 32);
+        final long bitCount = (long) bits.length * 64;
+
+        for (int i = 1; i <= HASH_COUNT; i++) {
+            final long bit = ((hash1 + i * hash2) & Integer.MAX_VALUE) % bitCount;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static long hash(final String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (final byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+
+        return hash;
+    }
+
+    void write(final DataOutputStream out) throws IOException {
+        out.writeInt(bits.length);
+        for (final long word : bits) {
+            out.writeLong(word);
+        }
+    }
+
+    static BloomFilter read(final DataInputStream in) throws IOException {
+        final long[] bits = new long[in.readInt()];
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = in.readLong();
+        }
+
+        return new BloomFilter(bits);
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encodes and decodes the individual columns of a {@link ColumnarSegment}. Numeric columns are written as zig-zag encoded variable-length deltas from the
+ * previous row, low-cardinality String columns are dictionary-encoded, and every column is compressed on its own so that a query decompresses only
+ * the columns that it needs.
+ */
+final class ColumnCodec {
+
+    private ColumnCodec() {
+    }
+
+    static byte[] encodeDeltas(final long[] values) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (final DataOutputStream out = createCompressingStream(baos)) {
+            long previous = 0L;
+            for (final long value : values) {
+                writeVarLong(out, zigZag(value - previous));
+                previous = value;
+            }
+        }
+
+        return baos.toByteArray();
+    }
+
+    static long[] decodeDeltas(final InputStream compressed, final int rowCount) throws IOException {
+        final long[] values = new long[rowCount];
+        try (final DataInputStream in = createDecompressingStream(compressed)) {
+            long previous = 0L;
+            for (int i = 0; i < rowCount; i++) {
+                previous += unZigZag(readVarLong(in));
+                values[i] = previous;
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Encodes the given values as a dictionary of the distinct values followed by the dictionary index of each row. <code>null</code> values are permitted.
+     */
+    static byte[] encodeDictionary(final String[] values) throws IOException {
+        final Map<String, Integer> dictionary = new HashMap<>();
+        final List<String> dictionaryValues = new ArrayList<>();
+        final int[] indices = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            final String value = values[i];
+            if (value == null) {
+                indices[i] = 0;
+                continue;
+            }
+
+            Integer index = dictionary.get(value);
+            if (index == null) {
+                dictionaryValues.add(value);
+                index = dictionaryValues.size();
+                dictionary.put(value, index);
+            }
+            indices[i] = index;
+        }
+
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (final DataOutputStream out = createCompressingStream(baos)) {
+            writeVarLong(out, dictionaryValues.size());
+            for (final String value : dictionaryValues) {
+                out.writeUTF(value);
+            }
+
+            for (final int index : indices) {
+                writeVarLong(out, index);
+            }
+        }
+
+        return baos.toByteArray();
+    }
+
+    static String[] decodeDictionary(final InputStream compressed, final int rowCount) throws IOException {
+        final String[] values = new String[rowCount];
+        try (final DataInputStream in = createDecompressingStream(compressed)) {
+            final String[] dictionary = new String[(int) readVarLong(in) + 1];
+            for (int i = 1; i < dictionary.length; i++) {
+                dictionary[i] = in.readUTF();
+            }
+
+            for (int i = 0; i < rowCount; i++) {
+                values[i] = dictionary[(int) readVarLong(in)];
+            }
+        }
+
+        return values;
+    }
+
+    static byte[] encodeStringLists(final String[][] values) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (final DataOutputStream out = createCompressingStream(baos)) {
+            for (final String[] rowValues : values) {
+                writeVarLong(out, rowValues.length);
+                for (final String value : rowValues) {
+                    out.writeUTF(value);
+                }
+            }
+        }
+
+        return baos.toByteArray();
+    }
+
+    static String[][] decodeStringLists(final InputStream compressed, final int rowCount) throws IOException {
+        final String[][] values = new String[rowCount][];
+        try (final DataInputStream in = createDecompressingStream(compressed)) {
+            for (int i = 0; i < rowCount; i++) {
+                final String[] rowValues = new String[(int) readVarLong(in)];
+                for (int j = 0; j < rowValues.length; j++) {
+                    rowValues[j] = in.readUTF();
+                }
+                values[i] = rowValues;
+            }
+        }
+
+        return values;
+    }
+
+    private static DataOutputStream createCompressingStream(final OutputStream out) {
+        return new DataOutputStream(new DeflaterOutputStream(out, new Deflater(Deflater.BEST_SPEED), 8192) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    def.end();
+                }
+            }
+        });
+    }
+
+    private static DataInputStream createDecompressingStream(final InputStream in) {
+        return new DataInputStream(new InflaterInputStream(in, new Inflater(), 8192) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inf.end();
+                }
+            }
+        });
+    }
+
+    private static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(final DataOutputStream out, final long value) throws IOException {
+        long remaining = value;
+        while ((remaining & ~0x7FL) != 0) {
+            out.write((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        out.write((int) remaining);
+    }
+
+    private static long readVarLong(final DataInputStream in) throws IOException {
+        long value = 0L;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+
+        return value;
+    }
+}
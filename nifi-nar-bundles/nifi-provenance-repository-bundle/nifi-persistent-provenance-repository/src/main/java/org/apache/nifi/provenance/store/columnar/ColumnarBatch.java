@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A set of rows of the columnar store, whose columns can be read independently of one another
+ */
+interface ColumnarBatch {
+
+    int getRowCount();
+
+    long[] getEventIds() throws IOException;
+
+    long[] getEventTimes() throws IOException;
+
+    String[] getEventTypes() throws IOException;
+
+    String[] getComponentIds() throws IOException;
+
+    String[][] getFlowFileUuids() throws IOException;
+
+    long[] getFileSizes() throws IOException;
+
+    /**
+     * Creates a batch from rows that are held in memory
+     *
+     * @param rows the rows
+     * @return a batch that contains the given rows
+     */
+    static ColumnarBatch of(final List<ColumnarRow> rows) {
+        return new ColumnarBatch() {
+            @Override
+            public int getRowCount() {
+                return rows.size();
+            }
+
+            @Override
+            public long[] getEventIds() {
+                return rows.stream().mapToLong(ColumnarRow::getEventId).toArray();
+            }
+
+            @Override
+            public long[] getEventTimes() {
+                return rows.stream().mapToLong(ColumnarRow::getEventTime).toArray();
+            }
+
+            @Override
+            public String[] getEventTypes() {
+                return rows.stream().map(ColumnarRow::getEventType).toArray(String[]::new);
+            }
+
+            @Override
+            public String[] getComponentIds() {
+                return rows.stream().map(ColumnarRow::getComponentId).toArray(String[]::new);
+            }
+
+            @Override
+            public String[][] getFlowFileUuids() {
+                return rows.stream().map(ColumnarRow::getFlowFileUuids).toArray(String[][]::new);
+            }
+
+            @Override
+            public long[] getFileSizes() {
+                return rows.stream().mapToLong(ColumnarRow::getFileSize).toArray();
+            }
+        };
+    }
+}
@@ -0,0 +1,477 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.RepositoryConfiguration;
+import org.apache.nifi.provenance.authorization.EventAuthorizer;
+import org.apache.nifi.provenance.authorization.EventTransformer;
+import org.apache.nifi.provenance.index.EventIndex;
+import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.serialization.StorageSummary;
+import org.apache.nifi.provenance.store.EventStore;
+import org.apache.nifi.provenance.store.QueryableEventStore;
+import org.apache.nifi.provenance.store.StorageResult;
+import org.apache.nifi.provenance.store.iterator.EventIterator;
+import org.apache.nifi.provenance.util.NamedThreadFactory;
+import org.apache.nifi.reporting.Severity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * An Event Store that writes events to another Event Store and also keeps a summary of each event in a columnar, time-partitioned form. The summaries are
+ * buffered in memory and written to a new {@link ColumnarSegment} whenever the events move into a new time partition or the buffer fills. Each segment holds
+ * per-column compressed data along with min/max statistics and bloom filters on FlowFile UUID and Component ID, so queries on those fields, the Event Type,
+ * the Event Time and the File Size can be evaluated by reading only the segments, and only the columns, that could contain a match.
+ * </p>
+ *
+ * <p>
+ * All other operations, including retrieving the events themselves, are performed by the wrapped Event Store. Segments are removed once the wrapped store
+ * no longer holds any of their events.
+ * </p>
+ *
+ * <p>
+ * The store records, in a checkpoint file, the Event ID up to which every event's summary has been written. On startup, the summaries of any events after the
+ * checkpoint are written in the background. Until that has finished, {@link #isQuerySupported(Query)} returns <code>false</code> so that queries are answered
+ * using the index instead.
+ * </p>
+ */
+public class ColumnarEventStore implements QueryableEventStore {
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarEventStore.class);
+    private static final String EVENT_CATEGORY = "Provenance Repository";
+
+    static final String DIRECTORY_NAME = "columnar";
+    private static final String CHECKPOINT_FILENAME = "checkpoint";
+    private static final int MAX_ROWS_PER_SEGMENT = 100_000;
+    private static final int BACKFILL_BATCH_SIZE = 10_000;
+
+    private final EventStore delegate;
+    private final File directory;
+    private final long partitionMillis;
+    private final EventReporter eventReporter;
+    private final List<ColumnarSegment> segments = new CopyOnWriteArrayList<>();
+    private final SegmentBuffer liveBuffer = new SegmentBuffer();
+    private final Object flushLock = new Object();
+    private final ExecutorService backfillExecutor;
+
+    private volatile boolean caughtUp = false;
+    private volatile boolean healthy = true;
+    private volatile boolean closed = false;
+    private volatile long backfillNextEventId = -1L;
+    private long maxFlushedEventId = -1L; // guarded by flushLock
+
+    public ColumnarEventStore(final EventStore delegate, final RepositoryConfiguration config, final EventReporter eventReporter) {
+        this.delegate = delegate;
+        this.directory = new File(config.getStorageDirectories().values().iterator().next(), DIRECTORY_NAME);
+        this.partitionMillis = config.getColumnarPartitionDuration(TimeUnit.MILLISECONDS);
+        this.eventReporter = eventReporter;
+        this.backfillExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("Columnar Provenance Backfill", true));
+    }
+
+    @Override
+    public void initialize() throws IOException {
+        delegate.initialize();
+        Files.createDirectories(directory.toPath());
+
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                if (file.getName().endsWith(".tmp")) {
+                    Files.deleteIfExists(file.toPath());
+                } else if (file.getName().endsWith(ColumnarSegment.FILE_EXTENSION)) {
+                    try {
+                        segments.add(ColumnarSegment.read(file));
+                    } catch (final IOException ioe) {
+                        logger.warn("Failed to read Columnar Provenance Segment {}; the segment will be removed and its events' summaries rewritten", file, ioe);
+                        Files.deleteIfExists(file.toPath());
+                    }
+                }
+            }
+        }
+
+        final long checkpoint = readCheckpoint();
+        synchronized (flushLock) {
+            maxFlushedEventId = checkpoint;
+        }
+
+        final long maxEventId = delegate.getMaxEventId();
+        logger.info("Recovered {} Columnar Provenance Segments from {}; summaries have been written through Event ID {} and the largest Event ID is {}",
+            segments.size(), directory, checkpoint, maxEventId);
+
+        if (maxEventId <= checkpoint) {
+            caughtUp = true;
+            return;
+        }
+
+        backfillNextEventId = checkpoint + 1;
+        backfillExecutor.submit(() -> backfill(checkpoint + 1, maxEventId));
+    }
+
+    /**
+     * Writes the summaries of the events that are in the wrapped store but whose summaries were not yet written when NiFi was last stopped
+     */
+    private void backfill(final long firstEventId, final long lastEventId) {
+        final long start = System.nanoTime();
+        final SegmentBuffer backfillBuffer = new SegmentBuffer();
+        long nextEventId = firstEventId;
+        long eventCount = 0L;
+
+        try {
+            while (!closed && nextEventId <= lastEventId) {
+                final List<ProvenanceEventRecord> events = delegate.getEvents(nextEventId, BACKFILL_BATCH_SIZE);
+                if (events.isEmpty()) {
+                    break;
+                }
+
+                for (final ProvenanceEventRecord event : events) {
+                    if (event.getEventId() > lastEventId) {
+                        break;
+                    }
+
+                    final List<ColumnarRow> rowsToFlush = backfillBuffer.add(ColumnarRow.fromEvent(event));
+                    if (rowsToFlush != null) {
+                        flush(rowsToFlush);
+                    }
+
+                    nextEventId = event.getEventId() + 1;
+                    eventCount++;
+                }
+
+                backfillNextEventId = Math.min(nextEventId, backfillBuffer.getMinEventId().orElse(nextEventId));
+            }
+
+            if (closed) {
+                return;
+            }
+
+            final List<ColumnarRow> remainingRows = backfillBuffer.drain();
+            if (!remainingRows.isEmpty()) {
+                flush(remainingRows);
+            }
+
+            backfillNextEventId = -1L;
+            updateCheckpoint();
+            caughtUp = healthy;
+
+            logger.info("Wrote the columnar summaries of {} Provenance Events in {} seconds", eventCount, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+        } catch (final Exception e) {
+            logger.error("Failed to write the columnar summaries of Provenance Events starting with Event ID {}; queries will be answered using the index", nextEventId, e);
+            eventReporter.reportEvent(Severity.WARNING, EVENT_CATEGORY, "Failed to write columnar summaries of Provenance Events; queries will be answered using the index. See logs for more details.");
+        }
+    }
+
+    @Override
+    public StorageResult addEvents(final Iterable<ProvenanceEventRecord> events) throws IOException {
+        final StorageResult storageResult = delegate.addEvents(events);
+
+        final List<ColumnarRow> rows = new ArrayList<>(storageResult.getStorageLocations().size());
+        for (final Map.Entry<ProvenanceEventRecord, StorageSummary> entry : storageResult.getStorageLocations().entrySet()) {
+            rows.add(ColumnarRow.fromEvent(entry.getKey(), entry.getValue().getEventId()));
+        }
+        rows.sort(Comparator.comparingLong(ColumnarRow::getEventId));
+
+        for (final ColumnarRow row : rows) {
+            final List<ColumnarRow> rowsToFlush = liveBuffer.add(row);
+            if (rowsToFlush != null) {
+                try {
+                    flush(rowsToFlush);
+                } catch (final IOException ioe) {
+                    // The events themselves have been stored, so we do not fail the update. Instead, stop answering queries from the columnar
+                    // store, since it is now missing events. Because the checkpoint is no longer updated, the summaries will be rewritten on restart.
+                    healthy = false;
+                    caughtUp = false;
+                    logger.error("Failed to write Columnar Provenance Segment to {}; queries will be answered using the index until NiFi is restarted", directory, ioe);
+                    eventReporter.reportEvent(Severity.WARNING, EVENT_CATEGORY, "Failed to write columnar summaries of Provenance Events; queries will be answered using the index. "
+                        + "See logs for more details.");
+                }
+            }
+        }
+
+        return storageResult;
+    }
+
+    private void flush(final List<ColumnarRow> rows) throws IOException {
+        final ColumnarRow firstRow = rows.get(0);
+        final long partitionStart = getPartitionStart(firstRow.getEventTime());
+        final File file = new File(directory, partitionStart + "-" + firstRow.getEventId() + "-" + rows.get(rows.size() - 1).getEventId() + ColumnarSegment.FILE_EXTENSION);
+
+        synchronized (flushLock) {
+            final ColumnarSegment segment = ColumnarSegment.write(file, rows);
+            segments.add(segment);
+            maxFlushedEventId = Math.max(maxFlushedEventId, segment.getMaxEventId());
+            logger.debug("Wrote {}", segment);
+        }
+
+        updateCheckpoint();
+        removeExpiredSegments();
+    }
+
+    /**
+     * Records the largest Event ID for which the summaries of it and all prior events have been written. This is the smallest Event ID that is still buffered,
+     * or that has yet to be read by the backfill, minus one.
+     */
+    private void updateCheckpoint() throws IOException {
+        if (!healthy) {
+            return;
+        }
+
+        synchronized (flushLock) {
+            long checkpoint = maxFlushedEventId;
+
+            final Optional<Long> minBufferedEventId = liveBuffer.getMinEventId();
+            if (minBufferedEventId.isPresent()) {
+                checkpoint = Math.min(checkpoint, minBufferedEventId.get() - 1);
+            }
+
+            final long backfillEventId = backfillNextEventId;
+            if (backfillEventId >= 0) {
+                checkpoint = Math.min(checkpoint, backfillEventId - 1);
+            }
+
+            final File checkpointFile = new File(directory, CHECKPOINT_FILENAME);
+            final File tempFile = new File(directory, CHECKPOINT_FILENAME + ".tmp");
+            Files.write(tempFile.toPath(), String.valueOf(checkpoint).getBytes(StandardCharsets.UTF_8));
+            Files.move(tempFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        final File checkpointFile = new File(directory, CHECKPOINT_FILENAME);
+        if (!checkpointFile.exists()) {
+            return -1L;
+        }
+
+        final String checkpoint = new String(Files.readAllBytes(checkpointFile.toPath()), StandardCharsets.UTF_8).trim();
+        try {
+            return Long.parseLong(checkpoint);
+        } catch (final NumberFormatException nfe) {
+            logger.warn("Columnar Provenance checkpoint {} contains invalid value '{}'; the summaries of all events will be rewritten", checkpointFile, checkpoint);
+            return -1L;
+        }
+    }
+
+    /**
+     * Removes any segment whose events have all been aged off from the wrapped store
+     */
+    private void removeExpiredSegments() {
+        final long firstEventId;
+        try {
+            final List<ProvenanceEventRecord> firstEvents = delegate.getEvents(0, 1);
+            if (firstEvents.isEmpty()) {
+                return;
+            }
+
+            firstEventId = firstEvents.get(0).getEventId();
+        } catch (final IOException ioe) {
+            logger.warn("Failed to determine the first Provenance Event in the repository; will not remove expired Columnar Provenance Segments", ioe);
+            return;
+        }
+
+        for (final ColumnarSegment segment : segments) {
+            if (segment.getMaxEventId() < firstEventId) {
+                segments.remove(segment);
+
+                try {
+                    Files.deleteIfExists(segment.getFile().toPath());
+                    logger.debug("Removed expired {}", segment);
+                } catch (final IOException ioe) {
+                    logger.warn("Failed to remove expired Columnar Provenance Segment {}", segment.getFile(), ioe);
+                }
+            }
+        }
+    }
+
+    private long getPartitionStart(final long eventTime) {
+        return eventTime - Math.floorMod(eventTime, partitionMillis);
+    }
+
+    @Override
+    public boolean isQuerySupported(final Query query) {
+        return caughtUp && ColumnarQuery.isSupported(query);
+    }
+
+    @Override
+    public List<Long> getEventIds(final Query query) throws IOException {
+        if (!isQuerySupported(query)) {
+            throw new UnsupportedOperationException("Query " + query + " cannot be evaluated by the Columnar Event Store");
+        }
+
+        final long start = System.nanoTime();
+        final ColumnarQuery columnarQuery = new ColumnarQuery(query);
+        final ColumnarQuery.Results results = columnarQuery.createResults();
+
+        // The buffered rows are the most recent, so evaluate them first
+        columnarQuery.addMatches(ColumnarBatch.of(liveBuffer.snapshot()), results);
+
+        final List<ColumnarSegment> sortedSegments = new ArrayList<>(segments);
+        sortedSegments.sort(Comparator.comparingLong(ColumnarSegment::getMaxEventId).reversed());
+
+        int segmentsRead = 0;
+        for (final ColumnarSegment segment : sortedSegments) {
+            if (results.isComplete(segment.getMaxEventId())) {
+                break;
+            }
+
+            try {
+                if (!columnarQuery.mightMatch(segment)) {
+                    continue;
+                }
+
+                columnarQuery.addMatches(segment.createBatch(), results);
+                segmentsRead++;
+            } catch (final FileNotFoundException fnfe) {
+                logger.debug("Columnar Provenance Segment {} was removed while being queried", segment.getFile());
+            }
+        }
+
+        final List<Long> eventIds = results.getEventIds();
+        logger.debug("Evaluated {} against the Columnar Event Store, reading {} of {} segments, and found {} matching events in {} millis",
+            query, segmentsRead, sortedSegments.size(), eventIds.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return eventIds;
+    }
+
+    @Override
+    public long getSize() throws IOException {
+        long size = delegate.getSize();
+        for (final ColumnarSegment segment : segments) {
+            size += segment.getFile().length();
+        }
+
+        return size;
+    }
+
+    @Override
+    public long getMaxEventId() {
+        return delegate.getMaxEventId();
+    }
+
+    @Override
+    public Optional<ProvenanceEventRecord> getEvent(final long id) throws IOException {
+        return delegate.getEvent(id);
+    }
+
+    @Override
+    public List<ProvenanceEventRecord> getEvents(final long firstRecordId, final int maxRecords) throws IOException {
+        return delegate.getEvents(firstRecordId, maxRecords);
+    }
+
+    @Override
+    public List<ProvenanceEventRecord> getEvents(final long firstRecordId, final int maxRecords, final EventAuthorizer authorizer,
+                                                 final EventTransformer unauthorizedTransformer) throws IOException {
+        return delegate.getEvents(firstRecordId, maxRecords, authorizer, unauthorizedTransformer);
+    }
+
+    @Override
+    public List<ProvenanceEventRecord> getEvents(final List<Long> eventIds, final EventAuthorizer authorizer, final EventTransformer unauthorizedTransformer) throws IOException {
+        return delegate.getEvents(eventIds, authorizer, unauthorizedTransformer);
+    }
+
+    @Override
+    public void reindexLatestEvents(final EventIndex eventIndex) {
+        delegate.reindexLatestEvents(eventIndex);
+    }
+
+    @Override
+    public EventIterator getEventsByTimestamp(final long minTimestamp, final long maxTimestamp) throws IOException {
+        return delegate.getEventsByTimestamp(minTimestamp, maxTimestamp);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        backfillExecutor.shutdownNow();
+
+        try {
+            final List<ColumnarRow> remainingRows = liveBuffer.drain();
+            if (!remainingRows.isEmpty() && healthy) {
+                flush(remainingRows);
+            }
+        } finally {
+            delegate.close();
+        }
+    }
+
+    /**
+     * Buffers the rows for the current time partition until they are written to a segment
+     */
+    private class SegmentBuffer {
+        private List<ColumnarRow> rows = new ArrayList<>();
+        private long partitionStart = Long.MIN_VALUE;
+
+        /**
+         * Adds the given row to the buffer
+         *
+         * @return the rows that should now be written to a segment, or <code>null</code> if the buffer should not yet be written
+         */
+        synchronized List<ColumnarRow> add(final ColumnarRow row) {
+            final long rowPartitionStart = getPartitionStart(row.getEventTime());
+
+            // Late-arriving events for an earlier partition are kept with the current partition rather than starting a new segment
+            List<ColumnarRow> rowsToFlush = null;
+            if (!rows.isEmpty() && rowPartitionStart > partitionStart) {
+                rowsToFlush = rows;
+                rows = new ArrayList<>();
+            }
+
+            if (rows.isEmpty()) {
+                partitionStart = rowPartitionStart;
+            }
+            rows.add(row);
+
+            if (rowsToFlush == null && rows.size() >= MAX_ROWS_PER_SEGMENT) {
+                rowsToFlush = rows;
+                rows = new ArrayList<>();
+            }
+
+            return rowsToFlush;
+        }
+
+        synchronized List<ColumnarRow> drain() {
+            final List<ColumnarRow> drained = rows;
+            rows = new ArrayList<>();
+            return drained;
+        }
+
+        synchronized List<ColumnarRow> snapshot() {
+            return Collections.unmodifiableList(new ArrayList<>(rows));
+        }
+
+        synchronized Optional<Long> getMinEventId() {
+            return rows.stream().map(ColumnarRow::getEventId).min(Long::compare);
+        }
+    }
+}
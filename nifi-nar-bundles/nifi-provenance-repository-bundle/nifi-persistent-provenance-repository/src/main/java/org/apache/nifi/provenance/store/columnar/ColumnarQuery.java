@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import org.apache.nifi.processor.DataUnit;
+import org.apache.nifi.provenance.SearchableFields;
+import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.SearchTerm;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * A Provenance Query, compiled so that it can be evaluated against the columns of the columnar store. Search terms are matched in the same way that
+ * they are matched against the Lucene index: case-insensitively, with <code>*</code> and <code>?</code> as wildcards, and with inverted terms excluding
+ * any event that matches them.
+ */
+class ColumnarQuery {
+    private static final Set<String> SUPPORTED_FIELDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+        SearchableFields.FlowFileUUID.getSearchableFieldName(),
+        SearchableFields.ComponentID.getSearchableFieldName(),
+        SearchableFields.EventType.getSearchableFieldName())));
+
+    private final int maxResults;
+    private final long minEventTime;
+    private final long maxEventTime;
+    private final long minFileSize;
+    private final long maxFileSize;
+    private final List<TermMatcher> terms = new ArrayList<>();
+
+    ColumnarQuery(final Query query) {
+        this.maxResults = query.getMaxResults();
+        this.minEventTime = query.getStartDate() == null ? 0L : query.getStartDate().getTime();
+        this.maxEventTime = query.getEndDate() == null ? Long.MAX_VALUE : query.getEndDate().getTime();
+        this.minFileSize = query.getMinFileSize() == null ? 0L : DataUnit.parseDataSize(query.getMinFileSize(), DataUnit.B).longValue();
+        this.maxFileSize = query.getMaxFileSize() == null ? Long.MAX_VALUE : DataUnit.parseDataSize(query.getMaxFileSize(), DataUnit.B).longValue();
+
+        for (final SearchTerm searchTerm : query.getSearchTerms()) {
+            terms.add(new TermMatcher(searchTerm));
+        }
+    }
+
+    /**
+     * @param query the query
+     * @return <code>true</code> if every search term of the query is on a field that is kept in the columnar store
+     */
+    static boolean isSupported(final Query query) {
+        for (final SearchTerm searchTerm : query.getSearchTerms()) {
+            if (searchTerm.getValue() == null || !SUPPORTED_FIELDS.contains(searchTerm.getSearchableField().getSearchableFieldName())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Determines, using only the segment's statistics and bloom filters, whether or not the segment may contain any events that match the query
+     */
+    boolean mightMatch(final ColumnarSegment segment) throws IOException {
+        if (segment.getMaxEventTime() < minEventTime || segment.getMinEventTime() > maxEventTime) {
+            return false;
+        }
+        if (segment.getMaxFileSize() < minFileSize || segment.getMinFileSize() > maxFileSize) {
+            return false;
+        }
+
+        for (final TermMatcher term : terms) {
+            if (!term.mightMatch(segment)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Adds the Event ID of each row in the batch that matches the query to the given results
+     */
+    void addMatches(final ColumnarBatch batch, final Results results) throws IOException {
+        final int rowCount = batch.getRowCount();
+        final boolean[] matches = new boolean[rowCount];
+        Arrays.fill(matches, true);
+
+        if (minEventTime > 0L || maxEventTime < Long.MAX_VALUE) {
+            final long[] eventTimes = batch.getEventTimes();
+            for (int i = 0; i < rowCount; i++) {
+                matches[i] &= eventTimes[i] >= minEventTime && eventTimes[i] <= maxEventTime;
+            }
+        }
+
+        if (minFileSize > 0L || maxFileSize < Long.MAX_VALUE) {
+            final long[] fileSizes = batch.getFileSizes();
+            for (int i = 0; i < rowCount; i++) {
+                matches[i] &= fileSizes[i] >= minFileSize && fileSizes[i] <= maxFileSize;
+            }
+        }
+
+        for (final TermMatcher term : terms) {
+            term.filter(batch, matches);
+        }
+
+        final long[] eventIds = batch.getEventIds();
+        for (int i = 0; i < rowCount; i++) {
+            if (matches[i]) {
+                results.add(eventIds[i]);
+            }
+        }
+    }
+
+    Results createResults() {
+        return new Results(maxResults);
+    }
+
+    /**
+     * Keeps the largest Event ID's that match the query, up to the query's maximum number of results. An event may be found more than once, if it was
+     * written to more than one segment, so the ID's are kept in a Set.
+     */
+    static class Results {
+        private final int maxResults;
+        private final TreeSet<Long> eventIds = new TreeSet<>();
+
+        private Results(final int maxResults) {
+            this.maxResults = maxResults;
+        }
+
+        void add(final long eventId) {
+            if (eventIds.size() < maxResults) {
+                eventIds.add(eventId);
+            } else if (eventIds.first() < eventId && eventIds.add(eventId)) {
+                eventIds.pollFirst();
+            }
+        }
+
+        /**
+         * @return <code>true</code> if no event whose ID is less than or equal to the given ID can be among the results
+         */
+        boolean isComplete(final long maxRemainingEventId) {
+            return eventIds.size() >= maxResults && eventIds.first() > maxRemainingEventId;
+        }
+
+        /**
+         * @return the Event ID's, with the largest first
+         */
+        List<Long> getEventIds() {
+            return new ArrayList<>(eventIds.descendingSet());
+        }
+    }
+
+    private static class TermMatcher {
+        private final String fieldName;
+        private final String value;
+        private final Pattern pattern;
+        private final boolean inverted;
+
+        TermMatcher(final SearchTerm searchTerm) {
+            this.fieldName = searchTerm.getSearchableField().getSearchableFieldName();
+            this.value = searchTerm.getValue().toLowerCase(Locale.ROOT);
+            this.inverted = Boolean.TRUE.equals(searchTerm.isInverted());
+            this.pattern = value.contains("*") || value.contains("?") ? toPattern(value) : null;
+        }
+
+        private static Pattern toPattern(final String wildcard) {
+            final StringBuilder regex = new StringBuilder();
+            final StringBuilder literal = new StringBuilder();
+            for (final char c : wildcard.toCharArray()) {
+                if (c == '*' || c == '?') {
+                    if (literal.length() > 0) {
+                        regex.append(Pattern.quote(literal.toString()));
+                        literal.setLength(0);
+                    }
+                    regex.append(c == '*' ? ".*" : ".");
+                } else {
+                    literal.append(c);
+                }
+            }
+            if (literal.length() > 0) {
+                regex.append(Pattern.quote(literal.toString()));
+            }
+
+            return Pattern.compile(regex.toString(), Pattern.DOTALL);
+        }
+
+        private boolean matches(final String candidate) {
+            if (candidate == null) {
+                return false;
+            }
+
+            return pattern == null ? value.equals(candidate) : pattern.matcher(candidate).matches();
+        }
+
+        boolean mightMatch(final ColumnarSegment segment) throws IOException {
+            // An inverted term excludes events, so it can only rule out a segment if we knew that every event matched it.
+            if (inverted) {
+                return true;
+            }
+
+            if (fieldName.equals(SearchableFields.EventType.getSearchableFieldName())) {
+                return segment.getEventTypes().stream().anyMatch(this::matches);
+            }
+
+            // Bloom filters can only answer whether or not a specific value is present.
+            if (pattern != null) {
+                return true;
+            }
+
+            if (fieldName.equals(SearchableFields.ComponentID.getSearchableFieldName())) {
+                return segment.mightContainComponentId(value);
+            }
+
+            return segment.mightContainFlowFileUuid(value);
+        }
+
+        void filter(final ColumnarBatch batch, final boolean[] matches) throws IOException {
+            if (fieldName.equals(SearchableFields.FlowFileUUID.getSearchableFieldName())) {
+                final String[][] flowFileUuids = batch.getFlowFileUuids();
+                for (int i = 0; i < matches.length; i++) {
+                    if (matches[i]) {
+                        matches[i] = Arrays.stream(flowFileUuids[i]).anyMatch(this::matches) != inverted;
+                    }
+                }
+
+                return;
+            }
+
+            final String[] values = fieldName.equals(SearchableFields.EventType.getSearchableFieldName()) ? batch.getEventTypes() : batch.getComponentIds();
+            for (int i = 0; i < matches.length; i++) {
+                if (matches[i]) {
+                    matches[i] = matches(values[i]) != inverted;
+                }
+            }
+        }
+    }
+}
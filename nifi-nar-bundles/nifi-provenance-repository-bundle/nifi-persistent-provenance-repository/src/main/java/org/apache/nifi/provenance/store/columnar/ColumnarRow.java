@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The summary of a single Provenance Event that is kept in the columnar store. String values are lower-cased, as they are when indexed by Lucene,
+ * so that queries match the same events regardless of whether they are evaluated against the columnar store or against the index.
+ */
+class ColumnarRow {
+    private final long eventId;
+    private final long eventTime;
+    private final String eventType;
+    private final String componentId;
+    private final String[] flowFileUuids;
+    private final long fileSize;
+
+    ColumnarRow(final long eventId, final long eventTime, final String eventType, final String componentId, final String[] flowFileUuids, final long fileSize) {
+        this.eventId = eventId;
+        this.eventTime = eventTime;
+        this.eventType = eventType;
+        this.componentId = componentId;
+        this.flowFileUuids = flowFileUuids;
+        this.fileSize = fileSize;
+    }
+
+    static ColumnarRow fromEvent(final ProvenanceEventRecord event) {
+        return fromEvent(event, event.getEventId());
+    }
+
+    /**
+     * Creates the row for an event that has just been stored, before its Event ID has been set on the record
+     */
+    static ColumnarRow fromEvent(final ProvenanceEventRecord event, final long eventId) {
+        return new ColumnarRow(eventId, event.getEventTime(), lowerCase(event.getEventType().name()), lowerCase(event.getComponentId()),
+            getFlowFileUuids(event), event.getFileSize());
+    }
+
+    /**
+     * Determines the FlowFile UUIDs that an event is associated with, in the same way that the event is indexed: the event's own FlowFile UUID, plus the
+     * children of a FORK, CLONE or REPLAY, the parents of a JOIN, and the source system's UUID for a RECEIVE.
+     */
+    private static String[] getFlowFileUuids(final ProvenanceEventRecord event) {
+        final Set<String> uuids = new LinkedHashSet<>();
+        if (event.getFlowFileUuid() != null) {
+            uuids.add(lowerCase(event.getFlowFileUuid()));
+        }
+
+        final ProvenanceEventType eventType = event.getEventType();
+        if (eventType == ProvenanceEventType.FORK || eventType == ProvenanceEventType.CLONE || eventType == ProvenanceEventType.REPLAY) {
+            event.getChildUuids().forEach(uuid -> uuids.add(lowerCase(uuid)));
+        } else if (eventType == ProvenanceEventType.JOIN) {
+            event.getParentUuids().forEach(uuid -> uuids.add(lowerCase(uuid)));
+        } else if (eventType == ProvenanceEventType.RECEIVE && event.getSourceSystemFlowFileIdentifier() != null) {
+            final String sourceIdentifier = event.getSourceSystemFlowFileIdentifier();
+            final int lastColon = sourceIdentifier.lastIndexOf(":");
+            if (lastColon > -1 && lastColon < sourceIdentifier.length() - 2) {
+                uuids.add(lowerCase(sourceIdentifier.substring(lastColon + 1)));
+            }
+        }
+
+        return uuids.toArray(new String[0]);
+    }
+
+    private static String lowerCase(final String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    long getEventId() {
+        return eventId;
+    }
+
+    long getEventTime() {
+        return eventTime;
+    }
+
+    String getEventType() {
+        return eventType;
+    }
+
+    String getComponentId() {
+        return componentId;
+    }
+
+    String[] getFlowFileUuids() {
+        return flowFileUuids;
+    }
+
+    long getFileSize() {
+        return fileSize;
+    }
+}
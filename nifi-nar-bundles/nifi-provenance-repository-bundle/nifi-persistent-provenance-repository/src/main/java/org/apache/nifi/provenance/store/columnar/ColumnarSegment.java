@@ -0,0 +1,400 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>
+ * An immutable file that holds the summaries of a set of Provenance Events, one column per field. The file begins with a header that holds the number of rows,
+ * the minimum and maximum Event ID, Event Time and File Size, the distinct Event Types, and the location of each bloom filter and column within the file.
+ * The header is kept in memory so that a query can rule out a segment based on its statistics alone. The bloom filters and columns are read only when
+ * a query needs them.
+ * </p>
+ *
+ * <p>
+ * The layout of the file is:
+ * </p>
+ * <pre>
+ * [header length : int][header][FlowFile UUID bloom filter][Component ID bloom filter][column]...
+ * </pre>
+ *
+ * <p>
+ * All offsets in the header are relative to the end of the header.
+ * </p>
+ */
+class ColumnarSegment {
+    static final String FILE_EXTENSION = ".columnar";
+
+    private static final int MAGIC = 0x4E504353; // NPCS - NiFi Provenance Columnar Segment
+    private static final int VERSION = 1;
+
+    private static final int EVENT_ID_COLUMN = 0;
+    private static final int EVENT_TIME_COLUMN = 1;
+    private static final int EVENT_TYPE_COLUMN = 2;
+    private static final int COMPONENT_ID_COLUMN = 3;
+    private static final int FLOWFILE_UUIDS_COLUMN = 4;
+    private static final int FILE_SIZE_COLUMN = 5;
+    private static final int COLUMN_COUNT = 6;
+
+    private static final int UUID_BLOOM_FILTER = COLUMN_COUNT;
+    private static final int COMPONENT_BLOOM_FILTER = COLUMN_COUNT + 1;
+
+    private final File file;
+    private final int rowCount;
+    private final long minEventId;
+    private final long maxEventId;
+    private final long minEventTime;
+    private final long maxEventTime;
+    private final long minFileSize;
+    private final long maxFileSize;
+    private final Set<String> eventTypes;
+    private final long dataOffset;
+    private final long[] sectionOffsets;
+    private final int[] sectionLengths;
+
+    private ColumnarSegment(final File file, final int rowCount, final long[] statistics, final Set<String> eventTypes, final long dataOffset,
+                            final long[] sectionOffsets, final int[] sectionLengths) {
+        this.file = file;
+        this.rowCount = rowCount;
+        this.minEventId = statistics[0];
+        this.maxEventId = statistics[1];
+        this.minEventTime = statistics[2];
+        this.maxEventTime = statistics[3];
+        this.minFileSize = statistics[4];
+        this.maxFileSize = statistics[5];
+        this.eventTypes = eventTypes;
+        this.dataOffset = dataOffset;
+        this.sectionOffsets = sectionOffsets;
+        this.sectionLengths = sectionLengths;
+    }
+
+    /**
+     * Writes the given rows to a new segment file. The file is first written to a temporary file and then renamed, so that a partially written segment is never read.
+     *
+     * @param file the file to write to
+     * @param rows the rows to write; must not be empty
+     * @return the segment that was written
+     * @throws IOException if unable to write the segment
+     */
+    static ColumnarSegment write(final File file, final List<ColumnarRow> rows) throws IOException {
+        final int rowCount = rows.size();
+        final long[] eventIds = new long[rowCount];
+        final long[] eventTimes = new long[rowCount];
+        final String[] eventTypeValues = new String[rowCount];
+        final String[] componentIds = new String[rowCount];
+        final String[][] flowFileUuids = new String[rowCount][];
+        final long[] fileSizes = new long[rowCount];
+
+        final long[] statistics = {Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+        final Set<String> eventTypes = new HashSet<>();
+        final BloomFilter uuidBloomFilter = new BloomFilter(rowCount);
+        final BloomFilter componentBloomFilter = new BloomFilter(rowCount);
+
+        for (int i = 0; i < rowCount; i++) {
+            final ColumnarRow row = rows.get(i);
+            eventIds[i] = row.getEventId();
+            eventTimes[i] = row.getEventTime();
+            eventTypeValues[i] = row.getEventType();
+            componentIds[i] = row.getComponentId();
+            flowFileUuids[i] = row.getFlowFileUuids();
+            fileSizes[i] = row.getFileSize();
+
+            updateRange(statistics, 0, row.getEventId());
+            updateRange(statistics, 2, row.getEventTime());
+            updateRange(statistics, 4, row.getFileSize());
+            eventTypes.add(row.getEventType());
+
+            if (row.getComponentId() != null) {
+                componentBloomFilter.add(row.getComponentId());
+            }
+            for (final String uuid : row.getFlowFileUuids()) {
+                uuidBloomFilter.add(uuid);
+            }
+        }
+
+        final byte[][] sections = new byte[COLUMN_COUNT + 2][];
+        sections[EVENT_ID_COLUMN] = ColumnCodec.encodeDeltas(eventIds);
+        sections[EVENT_TIME_COLUMN] = ColumnCodec.encodeDeltas(eventTimes);
+        sections[EVENT_TYPE_COLUMN] = ColumnCodec.encodeDictionary(eventTypeValues);
+        sections[COMPONENT_ID_COLUMN] = ColumnCodec.encodeDictionary(componentIds);
+        sections[FLOWFILE_UUIDS_COLUMN] = ColumnCodec.encodeStringLists(flowFileUuids);
+        sections[FILE_SIZE_COLUMN] = ColumnCodec.encodeDeltas(fileSizes);
+        sections[UUID_BLOOM_FILTER] = toBytes(uuidBloomFilter);
+        sections[COMPONENT_BLOOM_FILTER] = toBytes(componentBloomFilter);
+
+        final long[] sectionOffsets = new long[sections.length];
+        final int[] sectionLengths = new int[sections.length];
+        long offset = 0L;
+        for (int i = 0; i < sections.length; i++) {
+            sectionOffsets[i] = offset;
+            sectionLengths[i] = sections[i].length;
+            offset += sections[i].length;
+        }
+
+        final ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        final DataOutputStream header = new DataOutputStream(headerBytes);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeInt(rowCount);
+        for (final long statistic : statistics) {
+            header.writeLong(statistic);
+        }
+        header.writeInt(eventTypes.size());
+        for (final String eventType : eventTypes) {
+            header.writeUTF(eventType);
+        }
+        header.writeInt(sections.length);
+        for (int i = 0; i < sections.length; i++) {
+            header.writeLong(sectionOffsets[i]);
+            header.writeInt(sectionLengths[i]);
+        }
+        header.flush();
+
+        final File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (final FileOutputStream fos = new FileOutputStream(tempFile);
+             final DataOutputStream out = new DataOutputStream(fos)) {
+            out.writeInt(headerBytes.size());
+            headerBytes.writeTo(out);
+            for (final byte[] section : sections) {
+                out.write(section);
+            }
+
+            out.flush();
+            fos.getFD().sync();
+        }
+
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new ColumnarSegment(file, rowCount, statistics, Collections.unmodifiableSet(eventTypes), 4L + headerBytes.size(), sectionOffsets, sectionLengths);
+    }
+
+    /**
+     * Reads the header of the given segment file
+     *
+     * @param file the segment file
+     * @return the segment
+     * @throws IOException if unable to read the segment's header, or if the file is not a segment of a supported version
+     */
+    static ColumnarSegment read(final File file) throws IOException {
+        try (final InputStream fis = new FileInputStream(file);
+             final DataInputStream in = new DataInputStream(new BufferedInputStream(fis))) {
+            final int headerLength = in.readInt();
+
+            final int magic = in.readInt();
+            if (magic != MAGIC) {
+                throw new IOException("File " + file + " is not a Columnar Provenance Segment");
+            }
+
+            final int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Columnar Provenance Segment " + file + " was written using version " + version + ", but only version " + VERSION + " is supported");
+            }
+
+            final int rowCount = in.readInt();
+            final long[] statistics = new long[6];
+            for (int i = 0; i < statistics.length; i++) {
+                statistics[i] = in.readLong();
+            }
+
+            final int eventTypeCount = in.readInt();
+            final Set<String> eventTypes = new HashSet<>(eventTypeCount);
+            for (int i = 0; i < eventTypeCount; i++) {
+                eventTypes.add(in.readUTF());
+            }
+
+            final int sectionCount = in.readInt();
+            final long[] sectionOffsets = new long[sectionCount];
+            final int[] sectionLengths = new int[sectionCount];
+            for (int i = 0; i < sectionCount; i++) {
+                sectionOffsets[i] = in.readLong();
+                sectionLengths[i] = in.readInt();
+            }
+
+            return new ColumnarSegment(file, rowCount, statistics, Collections.unmodifiableSet(eventTypes), 4L + headerLength, sectionOffsets, sectionLengths);
+        }
+    }
+
+    private static void updateRange(final long[] statistics, final int minIndex, final long value) {
+        statistics[minIndex] = Math.min(statistics[minIndex], value);
+        statistics[minIndex + 1] = Math.max(statistics[minIndex + 1], value);
+    }
+
+    private static byte[] toBytes(final BloomFilter bloomFilter) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (final DataOutputStream out = new DataOutputStream(baos)) {
+            bloomFilter.write(out);
+        }
+
+        return baos.toByteArray();
+    }
+
+    private byte[] readSection(final int section) throws IOException {
+        final byte[] bytes = new byte[sectionLengths[section]];
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            raf.seek(dataOffset + sectionOffsets[section]);
+            raf.readFully(bytes);
+        }
+
+        return bytes;
+    }
+
+    private InputStream openSection(final int section) throws IOException {
+        return new ByteArrayInputStream(readSection(section));
+    }
+
+    boolean mightContainFlowFileUuid(final String uuid) throws IOException {
+        return readBloomFilter(UUID_BLOOM_FILTER).mightContain(uuid);
+    }
+
+    boolean mightContainComponentId(final String componentId) throws IOException {
+        return readBloomFilter(COMPONENT_BLOOM_FILTER).mightContain(componentId);
+    }
+
+    private BloomFilter readBloomFilter(final int section) throws IOException {
+        try (final DataInputStream in = new DataInputStream(openSection(section))) {
+            return BloomFilter.read(in);
+        }
+    }
+
+    /**
+     * @return a batch whose columns are read from this segment when first requested. The batch holds on to the columns that it has read, so it should
+     * be discarded once the caller is finished with it.
+     */
+    ColumnarBatch createBatch() {
+        return new ColumnarBatch() {
+            private long[] eventIds;
+            private long[] eventTimes;
+            private String[] eventTypeValues;
+            private String[] componentIds;
+            private String[][] flowFileUuids;
+            private long[] fileSizes;
+
+            @Override
+            public int getRowCount() {
+                return rowCount;
+            }
+
+            @Override
+            public long[] getEventIds() throws IOException {
+                if (eventIds == null) {
+                    eventIds = ColumnCodec.decodeDeltas(openSection(EVENT_ID_COLUMN), rowCount);
+                }
+                return eventIds;
+            }
+
+            @Override
+            public long[] getEventTimes() throws IOException {
+                if (eventTimes == null) {
+                    eventTimes = ColumnCodec.decodeDeltas(openSection(EVENT_TIME_COLUMN), rowCount);
+                }
+                return eventTimes;
+            }
+
+            @Override
+            public String[] getEventTypes() throws IOException {
+                if (eventTypeValues == null) {
+                    eventTypeValues = ColumnCodec.decodeDictionary(openSection(EVENT_TYPE_COLUMN), rowCount);
+                }
+                return eventTypeValues;
+            }
+
+            @Override
+            public String[] getComponentIds() throws IOException {
+                if (componentIds == null) {
+                    componentIds = ColumnCodec.decodeDictionary(openSection(COMPONENT_ID_COLUMN), rowCount);
+                }
+                return componentIds;
+            }
+
+            @Override
+            public String[][] getFlowFileUuids() throws IOException {
+                if (flowFileUuids == null) {
+                    flowFileUuids = ColumnCodec.decodeStringLists(openSection(FLOWFILE_UUIDS_COLUMN), rowCount);
+                }
+                return flowFileUuids;
+            }
+
+            @Override
+            public long[] getFileSizes() throws IOException {
+                if (fileSizes == null) {
+                    fileSizes = ColumnCodec.decodeDeltas(openSection(FILE_SIZE_COLUMN), rowCount);
+                }
+                return fileSizes;
+            }
+        };
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    int getRowCount() {
+        return rowCount;
+    }
+
+    long getMinEventId() {
+        return minEventId;
+    }
+
+    long getMaxEventId() {
+        return maxEventId;
+    }
+
+    long getMinEventTime() {
+        return minEventTime;
+    }
+
+    long getMaxEventTime() {
+        return maxEventTime;
+    }
+
+    long getMinFileSize() {
+        return minFileSize;
+    }
+
+    long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    Set<String> getEventTypes() {
+        return eventTypes;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnarSegment[file=" + file + ", rows=" + rowCount + ", eventIds=" + minEventId + "-" + maxEventId + ", eventTypes=" + eventTypes
+            + ", sections=" + Arrays.toString(sectionLengths) + "]";
+    }
+}
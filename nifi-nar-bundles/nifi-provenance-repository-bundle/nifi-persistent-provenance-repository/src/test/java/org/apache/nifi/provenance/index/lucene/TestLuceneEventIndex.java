@@ -25,6 +25,7 @@ import org.apache.nifi.provenance.RepositoryConfiguration;
 import org.apache.nifi.provenance.SearchableFields;
 import org.apache.nifi.provenance.StandardProvenanceEventRecord;
 import org.apache.nifi.provenance.authorization.EventAuthorizer;
+import org.apache.nifi.provenance.authorization.EventTransformer;
 import org.apache.nifi.provenance.lineage.ComputeLineageSubmission;
 import org.apache.nifi.provenance.lineage.LineageNode;
 import org.apache.nifi.provenance.lineage.LineageNodeType;
@@ -63,6 +64,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -277,6 +279,87 @@ public class TestLuceneEventIndex {
         assertEquals(2, events.size());
     }
 
+    @Test
+    public void testComponentBasedAuthorizerDoesNotFetchUnauthorizedEvents() throws InterruptedException {
+        final RepositoryConfiguration repoConfig = createConfig(1);
+        repoConfig.setDesiredIndexSize(1L);
+        final IndexManager indexManager = new StandardIndexManager(repoConfig);
+
+        final List<Long> fetchedEventIds = Collections.synchronizedList(new ArrayList<>());
+        final ArrayListEventStore eventStore = new ArrayListEventStore() {
+            @Override
+            public List<ProvenanceEventRecord> getEvents(final List<Long> eventIds, final EventAuthorizer authorizer, final EventTransformer transformer) {
+                fetchedEventIds.addAll(eventIds);
+                return super.getEvents(eventIds, authorizer, transformer);
+            }
+        };
+
+        final LuceneEventIndex index = new LuceneEventIndex(repoConfig, indexManager, 3, EventReporter.NO_OP);
+        index.initialize(eventStore);
+
+        final long timestamp = System.currentTimeMillis();
+        final List<ProvenanceEventRecord> hiddenEvents = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            final ProvenanceEventRecord event = createEvent(timestamp + i, "1234", i % 2 == 0 ? "hidden-component" : "visible-component");
+            if (i % 2 == 0) {
+                hiddenEvents.add(event);
+            }
+
+            index.addEvents(eventStore.addEvent(event).getStorageLocations());
+        }
+
+        final EventAuthorizer authorizer = new EventAuthorizer() {
+            @Override
+            public boolean isAuthorized(ProvenanceEventRecord event) {
+                return "visible-component".equals(event.getComponentId());
+            }
+
+            @Override
+            public void authorize(ProvenanceEventRecord event) throws AccessDeniedException {
+                throw new AccessDeniedException();
+            }
+
+            @Override
+            public boolean isComponentBased() {
+                return true;
+            }
+        };
+
+        final Query query = new Query(UUID.randomUUID().toString());
+        List<ProvenanceEventRecord> events = Collections.emptyList();
+        while (events.size() < 2) {
+            final QuerySubmission submission = index.submitQuery(query, authorizer, "unit test");
+            assertTrue(submission.getResult().awaitCompletion(15, TimeUnit.SECONDS));
+            events = submission.getResult().getMatchingEvents();
+            Thread.sleep(25L);
+        }
+
+        assertEquals(2, events.size());
+        events.forEach(event -> assertEquals(ProvenanceEventType.CONTENT_MODIFIED, event.getEventType()));
+        events.forEach(event -> assertEquals("visible-component", event.getComponentId()));
+
+        // Lineage replaces the unauthorized events with placeholders that are built from the summary in the index
+        List<LineageNode> unknownNodes = Collections.emptyList();
+        while (unknownNodes.size() < 2) {
+            final ComputeLineageSubmission submission = index.submitLineageComputation("1234", createUser(), authorizer);
+            assertTrue(submission.getResult().awaitCompletion(15, TimeUnit.SECONDS));
+
+            unknownNodes = submission.getResult().getNodes().stream()
+                .filter(n -> n.getNodeType() == LineageNodeType.PROVENANCE_EVENT_NODE)
+                .filter(n -> ((ProvenanceEventLineageNode) n).getEventType() == ProvenanceEventType.UNKNOWN)
+                .collect(Collectors.toList());
+            Thread.sleep(25L);
+        }
+
+        assertEquals(2, unknownNodes.size());
+        unknownNodes.forEach(node -> assertEquals("1234", node.getFlowFileUuid()));
+
+        // None of the unauthorized events should have been read from the Event Store
+        for (final ProvenanceEventRecord hiddenEvent : hiddenEvents) {
+            assertFalse(fetchedEventIds.contains(hiddenEvent.getEventId()));
+        }
+    }
+
     private NiFiUser createUser() {
         return new NiFiUser() {
             @Override
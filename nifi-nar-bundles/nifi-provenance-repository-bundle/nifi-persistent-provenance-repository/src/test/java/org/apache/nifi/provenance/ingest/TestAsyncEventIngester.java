@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.ingest;
+
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.RepositoryConfiguration;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestAsyncEventIngester {
+
+    @Test
+    public void testRingBufferClaimsInOrderAndReportsFull() {
+        final EventRingBuffer ringBuffer = new EventRingBuffer(3);
+        assertEquals(4, ringBuffer.getCapacity());
+
+        final List<ProvenanceEventRecord> events = createEvents(40);
+        for (int i = 0; i < 4; i++) {
+            final long position = ringBuffer.claimForWrite();
+            assertEquals(i, position);
+            assertEquals(10, ringBuffer.fill(position, events.subList(i * 10, (i + 1) * 10)));
+            ringBuffer.publish(position);
+        }
+
+        assertEquals(-1L, ringBuffer.claimForWrite());
+        assertEquals(4, ringBuffer.getPendingCount());
+
+        final long[] positions = new long[] {ringBuffer.claimForRead(), ringBuffer.claimForRead()};
+        final List<ProvenanceEventRecord> read = new ArrayList<>();
+        ringBuffer.getEvents(positions, positions.length).forEach(read::add);
+        assertEquals(events.subList(0, 20), read);
+
+        ringBuffer.release(positions[0]);
+        ringBuffer.release(positions[1]);
+        assertEquals(4L, ringBuffer.claimForWrite());
+        assertEquals(5L, ringBuffer.claimForWrite());
+        assertEquals(-1L, ringBuffer.claimForWrite());
+    }
+
+    @Test
+    public void testRingBufferDoesNotReadUnpublishedSlots() {
+        final EventRingBuffer ringBuffer = new EventRingBuffer(4);
+        final long first = ringBuffer.claimForWrite();
+        final long second = ringBuffer.claimForWrite();
+
+        ringBuffer.fill(second, createEvents(2));
+        ringBuffer.publish(second);
+        assertEquals(-1L, ringBuffer.claimForRead());
+
+        ringBuffer.fill(first, createEvents(1));
+        ringBuffer.publish(first);
+        assertEquals(first, ringBuffer.claimForRead());
+        assertEquals(second, ringBuffer.claimForRead());
+        assertEquals(-1L, ringBuffer.claimForRead());
+    }
+
+    @Test
+    public void testAllEventsWrittenByConcurrentProducers() throws InterruptedException {
+        final Queue<ProvenanceEventRecord> written = new ConcurrentLinkedQueue<>();
+        final AsyncEventIngester ingester = new AsyncEventIngester(createConfig(8, BufferFullPolicy.BLOCK), events -> events.forEach(written::add), EventReporter.NO_OP);
+        ingester.start();
+
+        final int threadCount = 4;
+        final int batchesPerThread = 1000;
+        final List<ProvenanceEventRecord> allEvents = Collections.synchronizedList(new ArrayList<>());
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            final Thread thread = new Thread(() -> {
+                for (int i = 0; i < batchesPerThread; i++) {
+                    final List<ProvenanceEventRecord> batch = createEvents(3);
+                    allEvents.addAll(batch);
+                    ingester.registerEvents(batch);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        ingester.close();
+
+        assertEquals(threadCount * batchesPerThread * 3, written.size());
+        assertEquals(new HashSet<>(allEvents), new HashSet<>(written));
+        assertEquals(written.size(), ingester.getWrittenEventCount());
+        assertEquals(0L, ingester.getPendingEventCount());
+        assertEquals(0L, ingester.getDroppedEventCount());
+    }
+
+    @Test
+    public void testEventsDroppedWhenBufferFull() throws InterruptedException {
+        final CountDownLatch writeStarted = new CountDownLatch(1);
+        final CountDownLatch allowWrite = new CountDownLatch(1);
+        final BlockingWriter writer = new BlockingWriter(writeStarted, allowWrite);
+
+        final AsyncEventIngester ingester = new AsyncEventIngester(createConfig(1, BufferFullPolicy.DROP), writer, EventReporter.NO_OP);
+        ingester.start();
+
+        // The first batch is taken by the writer thread, which then waits; the second fills the buffer, and the third is dropped
+        ingester.registerEvents(createEvents(2));
+        assertTrue(writeStarted.await(10, TimeUnit.SECONDS));
+        ingester.registerEvents(createEvents(3));
+        ingester.registerEvents(createEvents(4));
+
+        assertEquals(4L, ingester.getDroppedEventCount());
+        assertEquals(1, ingester.getPendingBatchCount());
+        assertEquals(5L, ingester.getPendingEventCount());
+
+        allowWrite.countDown();
+        ingester.close();
+
+        assertEquals(5, writer.getWritten().size());
+        assertEquals(4L, ingester.getDroppedEventCount());
+    }
+
+    @Test
+    public void testRegistrationBlocksWhenBufferFull() throws InterruptedException {
+        final CountDownLatch writeStarted = new CountDownLatch(1);
+        final CountDownLatch allowWrite = new CountDownLatch(1);
+        final BlockingWriter writer = new BlockingWriter(writeStarted, allowWrite);
+
+        final AsyncEventIngester ingester = new AsyncEventIngester(createConfig(1, BufferFullPolicy.BLOCK), writer, EventReporter.NO_OP);
+        ingester.start();
+
+        ingester.registerEvents(createEvents(1));
+        assertTrue(writeStarted.await(10, TimeUnit.SECONDS));
+        ingester.registerEvents(createEvents(1));
+
+        final AtomicBoolean registered = new AtomicBoolean(false);
+        final List<ProvenanceEventRecord> blockedBatch = createEvents(1);
+        final Thread thread = new Thread(() -> {
+            ingester.registerEvents(blockedBatch);
+            registered.set(true);
+        });
+        thread.start();
+
+        Thread.sleep(100L);
+        assertFalse(registered.get());
+
+        allowWrite.countDown();
+        thread.join(10_000L);
+        assertTrue(registered.get());
+
+        ingester.close();
+        assertEquals(3, writer.getWritten().size());
+        assertSame(blockedBatch.get(0), writer.getWritten().get(2));
+        assertTrue(ingester.getBlockedTime(TimeUnit.NANOSECONDS) > 0L);
+        assertEquals(0L, ingester.getDroppedEventCount());
+    }
+
+    @Test
+    public void testFailedWritesCounted() throws InterruptedException {
+        final List<ProvenanceEventRecord> written = Collections.synchronizedList(new ArrayList<>());
+        final AtomicBoolean fail = new AtomicBoolean(true);
+        final CountDownLatch failed = new CountDownLatch(1);
+        final Consumer<Iterable<ProvenanceEventRecord>> writer = events -> {
+            if (fail.getAndSet(false)) {
+                failed.countDown();
+                throw new IllegalStateException("Intentional Exception for unit test");
+            }
+
+            events.forEach(written::add);
+        };
+
+        final AsyncEventIngester ingester = new AsyncEventIngester(createConfig(4, BufferFullPolicy.BLOCK), writer, EventReporter.NO_OP);
+        ingester.start();
+
+        ingester.registerEvents(createEvents(3));
+        assertTrue(failed.await(10, TimeUnit.SECONDS));
+        ingester.registerEvents(createEvents(2));
+        ingester.close();
+
+        assertEquals(3L, ingester.getFailedEventCount());
+        assertEquals(2, written.size());
+        assertEquals(2L, ingester.getWrittenEventCount());
+        assertEquals(0L, ingester.getPendingEventCount());
+    }
+
+    @Test
+    public void testErrorTerminatesWriterThread() throws InterruptedException {
+        final List<ProvenanceEventRecord> written = Collections.synchronizedList(new ArrayList<>());
+        final AtomicBoolean fail = new AtomicBoolean(true);
+        final AtomicReference<Throwable> uncaught = new AtomicReference<>();
+        final CountDownLatch writerTerminated = new CountDownLatch(1);
+        final Consumer<Iterable<ProvenanceEventRecord>> writer = events -> {
+            if (fail.getAndSet(false)) {
+                Thread.currentThread().setUncaughtExceptionHandler((thread, t) -> {
+                    uncaught.set(t);
+                    writerTerminated.countDown();
+                });
+                throw new AssertionError("Intentional Error for unit test");
+            }
+
+            events.forEach(written::add);
+        };
+
+        final AsyncEventIngester ingester = new AsyncEventIngester(createConfig(4, BufferFullPolicy.BLOCK), writer, EventReporter.NO_OP);
+        ingester.start();
+
+        ingester.registerEvents(createEvents(3));
+        assertTrue(writerTerminated.await(10, TimeUnit.SECONDS));
+        assertTrue(uncaught.get() instanceof AssertionError);
+        assertEquals(3L, ingester.getFailedEventCount());
+
+        // With no writer threads left, events are written by the registering thread
+        final List<ProvenanceEventRecord> events = createEvents(2);
+        ingester.registerEvents(events);
+        assertEquals(events, written);
+        ingester.close();
+    }
+
+    @Test
+    public void testEventsWrittenSynchronouslyAfterClose() {
+        final List<ProvenanceEventRecord> written = new ArrayList<>();
+        final AsyncEventIngester ingester = new AsyncEventIngester(createConfig(4, BufferFullPolicy.BLOCK), events -> events.forEach(written::add), EventReporter.NO_OP);
+        ingester.start();
+        ingester.close();
+
+        final List<ProvenanceEventRecord> events = createEvents(2);
+        ingester.registerEvents(events);
+        assertEquals(events, written);
+    }
+
+    private RepositoryConfiguration createConfig(final int bufferSize, final BufferFullPolicy fullPolicy) {
+        final RepositoryConfiguration config = new RepositoryConfiguration();
+        config.setAsyncIngestEnabled(true);
+        config.setAsyncIngestBufferSize(bufferSize);
+        config.setAsyncIngestThreads(1);
+        config.setAsyncIngestFullPolicy(fullPolicy);
+        return config;
+    }
+
+    private List<ProvenanceEventRecord> createEvents(final int count) {
+        final ProvenanceEventRecord[] events = new ProvenanceEventRecord[count];
+        for (int i = 0; i < count; i++) {
+            events[i] = new StandardProvenanceEventRecord.Builder()
+                .setEventType(ProvenanceEventType.CREATE)
+                .setComponentId("component-1")
+                .setComponentType("unit test")
+                .setEventTime(System.currentTimeMillis())
+                .setFlowFileUUID(String.valueOf(i))
+                .setCurrentContentClaim("container", "section", "unit-test-id", 0L, 1024L)
+                .build();
+        }
+
+        return Arrays.asList(events);
+    }
+
+    private static class BlockingWriter implements Consumer<Iterable<ProvenanceEventRecord>> {
+        private final CountDownLatch writeStarted;
+        private final CountDownLatch allowWrite;
+        private final List<ProvenanceEventRecord> written = Collections.synchronizedList(new ArrayList<>());
+
+        BlockingWriter(final CountDownLatch writeStarted, final CountDownLatch allowWrite) {
+            this.writeStarted = writeStarted;
+            this.allowWrite = allowWrite;
+        }
+
+        @Override
+        public void accept(final Iterable<ProvenanceEventRecord> events) {
+            writeStarted.countDown();
+            try {
+                allowWrite.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            events.forEach(written::add);
+        }
+
+        List<ProvenanceEventRecord> getWritten() {
+            return written;
+        }
+    }
+}
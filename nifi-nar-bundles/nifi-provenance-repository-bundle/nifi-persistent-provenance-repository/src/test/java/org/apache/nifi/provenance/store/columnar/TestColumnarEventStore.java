@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.provenance.store.columnar;
+
+import org.apache.nifi.events.EventReporter;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.provenance.RepositoryConfiguration;
+import org.apache.nifi.provenance.SearchableFields;
+import org.apache.nifi.provenance.StandardProvenanceEventRecord;
+import org.apache.nifi.provenance.search.Query;
+import org.apache.nifi.provenance.search.SearchTerms;
+import org.apache.nifi.provenance.serialization.RecordReaders;
+import org.apache.nifi.provenance.serialization.RecordWriters;
+import org.apache.nifi.provenance.store.EventFileManager;
+import org.apache.nifi.provenance.store.EventStore;
+import org.apache.nifi.provenance.store.PartitionedWriteAheadEventStore;
+import org.apache.nifi.provenance.store.RecordReaderFactory;
+import org.apache.nifi.provenance.store.RecordWriterFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestColumnarEventStore {
+    private static final RecordWriterFactory writerFactory = (file, idGen, compress, createToc) -> RecordWriters.newSchemaRecordWriter(file, idGen, compress, createToc);
+    private static final RecordReaderFactory readerFactory = (file, logs, maxChars) -> RecordReaders.newRecordReader(file, logs, maxChars);
+    private static final long START_TIME = TimeUnit.HOURS.toMillis(TimeUnit.MILLISECONDS.toHours(System.currentTimeMillis()) - 24);
+
+    @Test
+    public void testQueryByComponentIdAndFlowFileUuid() throws IOException {
+        final RepositoryConfiguration config = createConfig();
+        final ColumnarEventStore store = createStore(config);
+        store.initialize();
+
+        final List<ProvenanceEventRecord> events = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            events.add(createEvent("component-" + (i % 4), UUID.randomUUID().toString(), START_TIME + i, ProvenanceEventType.CONTENT_MODIFIED, i));
+        }
+        store.addEvents(events);
+        assertTrue(store.isQuerySupported(new Query(UUID.randomUUID().toString())));
+
+        final Query componentQuery = new Query(UUID.randomUUID().toString());
+        componentQuery.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "component-2", null));
+        componentQuery.setMaxResults(10);
+
+        final List<Long> componentEventIds = store.getEventIds(componentQuery);
+        assertEquals(Arrays.asList(98L, 94L, 90L, 86L, 82L, 78L, 74L, 70L, 66L, 62L), componentEventIds);
+
+        final Query uuidQuery = new Query(UUID.randomUUID().toString());
+        uuidQuery.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.FlowFileUUID, events.get(37).getFlowFileUuid(), null));
+        assertEquals(Collections.singletonList(37L), store.getEventIds(uuidQuery));
+
+        store.close();
+    }
+
+    @Test
+    public void testQueryWithWildcardsInversionAndRanges() throws IOException {
+        final RepositoryConfiguration config = createConfig();
+        final ColumnarEventStore store = createStore(config);
+        store.initialize();
+
+        final List<ProvenanceEventRecord> events = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final ProvenanceEventType eventType = i % 2 == 0 ? ProvenanceEventType.RECEIVE : ProvenanceEventType.DROP;
+            events.add(createEvent("Component-" + i, UUID.randomUUID().toString(), START_TIME + i, eventType, i * 100L));
+        }
+        store.addEvents(events);
+
+        final Query wildcardQuery = new Query(UUID.randomUUID().toString());
+        wildcardQuery.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "component-1?", null));
+        wildcardQuery.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.EventType, "DROP", true));
+        assertEquals(Arrays.asList(18L, 16L, 14L, 12L, 10L), store.getEventIds(wildcardQuery));
+
+        final Query rangeQuery = new Query(UUID.randomUUID().toString());
+        rangeQuery.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.EventType, "drop", null));
+        rangeQuery.setStartDate(new Date(START_TIME + 5));
+        rangeQuery.setEndDate(new Date(START_TIME + 12));
+        rangeQuery.setMinFileSize("700 B");
+        assertEquals(Arrays.asList(11L, 9L, 7L), store.getEventIds(rangeQuery));
+
+        final Query unsupportedQuery = new Query(UUID.randomUUID().toString());
+        unsupportedQuery.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.TransitURI, "http://localhost", null));
+        assertFalse(store.isQuerySupported(unsupportedQuery));
+
+        store.close();
+    }
+
+    @Test
+    public void testSegmentsWrittenPerPartitionAndRecovered() throws IOException {
+        final RepositoryConfiguration config = createConfig();
+        final ColumnarEventStore store = createStore(config);
+        store.initialize();
+
+        final List<String> uuids = new ArrayList<>();
+        for (int hour = 0; hour < 3; hour++) {
+            final List<ProvenanceEventRecord> events = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                final String uuid = UUID.randomUUID().toString();
+                uuids.add(uuid);
+                events.add(createEvent("component-" + hour, uuid, START_TIME + TimeUnit.HOURS.toMillis(hour) + i, ProvenanceEventType.CONTENT_MODIFIED, i));
+            }
+            store.addEvents(events);
+        }
+
+        // The first two partitions are written when the next partition begins; the last is written on close
+        assertEquals(2, getSegmentFiles(config).length);
+        store.close();
+        assertEquals(3, getSegmentFiles(config).length);
+
+        final ColumnarEventStore recoveredStore = createStore(config);
+        recoveredStore.initialize();
+
+        final Query query = new Query(UUID.randomUUID().toString());
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.FlowFileUUID, uuids.get(15), null));
+        assertTrue(recoveredStore.isQuerySupported(query));
+        assertEquals(Collections.singletonList(15L), recoveredStore.getEventIds(query));
+
+        recoveredStore.close();
+    }
+
+    @Test
+    public void testSummariesWrittenForEventsAddedWithoutColumnarStore() throws IOException, InterruptedException {
+        final RepositoryConfiguration config = createConfig();
+        final EventStore writeAheadStore = new PartitionedWriteAheadEventStore(config, writerFactory, readerFactory, EventReporter.NO_OP, new EventFileManager());
+        writeAheadStore.initialize();
+
+        final List<ProvenanceEventRecord> events = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            events.add(createEvent("component-" + (i % 5), UUID.randomUUID().toString(), START_TIME + i, ProvenanceEventType.CONTENT_MODIFIED, i));
+        }
+        writeAheadStore.addEvents(events);
+        writeAheadStore.close();
+
+        final ColumnarEventStore store = createStore(config);
+        store.initialize();
+
+        final Query query = new Query(UUID.randomUUID().toString());
+        query.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "component-3", null));
+
+        final long timeout = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!store.isQuerySupported(query) && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10L);
+        }
+
+        assertTrue(store.isQuerySupported(query));
+        assertEquals(Arrays.asList(48L, 43L, 38L, 33L, 28L, 23L, 18L, 13L, 8L, 3L), store.getEventIds(query));
+
+        store.close();
+    }
+
+    @Test
+    public void testSegmentStatisticsAndBloomFiltersPruneSegments() throws IOException {
+        final File directory = new File("target/storage/" + getClass().getSimpleName() + "/" + UUID.randomUUID());
+        assertTrue(directory.mkdirs());
+
+        final List<ColumnarRow> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            final ProvenanceEventRecord event = createEvent("component-" + (i % 10), "uuid-" + i, START_TIME + i, ProvenanceEventType.CONTENT_MODIFIED, i);
+            rows.add(ColumnarRow.fromEvent(event, i));
+        }
+
+        final ColumnarSegment segment = ColumnarSegment.write(new File(directory, "segment" + ColumnarSegment.FILE_EXTENSION), rows);
+        final ColumnarSegment recovered = ColumnarSegment.read(segment.getFile());
+        assertEquals(1000, recovered.getRowCount());
+        assertEquals(0L, recovered.getMinEventId());
+        assertEquals(999L, recovered.getMaxEventId());
+        assertEquals(START_TIME, recovered.getMinEventTime());
+        assertEquals(START_TIME + 999, recovered.getMaxEventTime());
+        assertEquals(Collections.singleton("content_modified"), recovered.getEventTypes());
+
+        final ColumnarBatch batch = recovered.createBatch();
+        assertEquals(517L, batch.getEventIds()[517]);
+        assertEquals("component-7", batch.getComponentIds()[517]);
+        assertEquals("uuid-517", batch.getFlowFileUuids()[517][0]);
+
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(recovered.mightContainFlowFileUuid("uuid-" + i));
+        }
+        assertFalse(recovered.mightContainComponentId("component-10"));
+
+        final Query afterSegment = new Query(UUID.randomUUID().toString());
+        afterSegment.setStartDate(new Date(START_TIME + 1000));
+        assertFalse(new ColumnarQuery(afterSegment).mightMatch(recovered));
+
+        final Query otherEventType = new Query(UUID.randomUUID().toString());
+        otherEventType.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.EventType, "RECEIVE", null));
+        assertFalse(new ColumnarQuery(otherEventType).mightMatch(recovered));
+
+        final Query matchingComponent = new Query(UUID.randomUUID().toString());
+        matchingComponent.addSearchTerm(SearchTerms.newSearchTerm(SearchableFields.ComponentID, "component-4", null));
+        assertTrue(new ColumnarQuery(matchingComponent).mightMatch(recovered));
+    }
+
+    private File[] getSegmentFiles(final RepositoryConfiguration config) {
+        final File directory = new File(config.getStorageDirectories().values().iterator().next(), ColumnarEventStore.DIRECTORY_NAME);
+        return directory.listFiles((dir, name) -> name.endsWith(ColumnarSegment.FILE_EXTENSION));
+    }
+
+    private ColumnarEventStore createStore(final RepositoryConfiguration config) {
+        final EventStore writeAheadStore = new PartitionedWriteAheadEventStore(config, writerFactory, readerFactory, EventReporter.NO_OP, new EventFileManager());
+        return new ColumnarEventStore(writeAheadStore, config, EventReporter.NO_OP);
+    }
+
+    private RepositoryConfiguration createConfig() {
+        final RepositoryConfiguration config = new RepositoryConfiguration();
+        final File storageDir = new File("target/storage/" + getClass().getSimpleName() + "/" + UUID.randomUUID());
+        config.addStorageDirectory("1", new File(storageDir, "1"));
+        config.setColumnarStoreEnabled(true);
+        config.setColumnarPartitionDuration(1, TimeUnit.HOURS);
+        return config;
+    }
+
+    private ProvenanceEventRecord createEvent(final String componentId, final String uuid, final long eventTime, final ProvenanceEventType eventType, final long fileSize) {
+        final Map<String, String> previousAttributes = new HashMap<>();
+        previousAttributes.put("uuid", uuid);
+
+        final StandardProvenanceEventRecord.Builder builder = new StandardProvenanceEventRecord.Builder()
+            .setEventType(eventType)
+            .setAttributes(previousAttributes, Collections.emptyMap())
+            .setComponentId(componentId)
+            .setComponentType("unit test")
+            .setEventTime(eventTime)
+            .setFlowFileEntryDate(eventTime)
+            .setFlowFileUUID(uuid)
+            .setLineageStartDate(eventTime)
+            .setCurrentContentClaim("container", "section", "unit-test-id", 0L, fileSize);
+
+        if (eventType == ProvenanceEventType.RECEIVE) {
+            builder.setTransitUri("http://localhost/" + uuid);
+        }
+
+        return builder.build();
+    }
+}
@@ -35,6 +35,7 @@ import org.apache.nifi.serialization.RecordSetWriter;
 import org.apache.nifi.serialization.RecordSetWriterFactory;
 import org.apache.nifi.serialization.WriteResult;
 import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordBatch;
 import org.apache.nifi.serialization.record.RecordSchema;
 
 import java.io.IOException;
@@ -152,11 +153,16 @@ public abstract class AbstractRecordProcessor extends AbstractProcessor {
 
                             writer.write(firstRecord);
 
-                            Record record;
+                            // Read, process and write the remaining records a batch at a time rather than one record at a time
+                            RecordBatch batch;
                             long count = 1L;
-                            while ((record = reader.nextRecord()) != null) {
-                                final Record processed = AbstractRecordProcessor.this.process(record, original, context, ++count);
-                                writer.write(processed);
+                            while ((batch = reader.nextBatch(RecordBatch.DEFAULT_BATCH_SIZE)) != null) {
+                                for (int i = 0; i < batch.size(); i++) {
+                                    final Record processed = AbstractRecordProcessor.this.process(batch.get(i), original, context, ++count);
+                                    batch.set(i, processed);
+                                }
+
+                                writer.writeBatch(batch);
                             }
 
                             final WriteResult writeResult = writer.finishRecordSet();
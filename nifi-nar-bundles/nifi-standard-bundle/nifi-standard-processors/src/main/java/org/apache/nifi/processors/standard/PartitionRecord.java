@@ -49,6 +49,7 @@ import org.apache.nifi.serialization.RecordSetWriter;
 import org.apache.nifi.serialization.RecordSetWriterFactory;
 import org.apache.nifi.serialization.WriteResult;
 import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordBatch;
 import org.apache.nifi.serialization.record.RecordSchema;
 import org.apache.nifi.serialization.record.util.DataTypeUtils;
 
@@ -61,6 +62,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -204,38 +206,50 @@ public class PartitionRecord extends AbstractProcessor {
 
             final RecordSchema writeSchema = writerFactory.getSchema(originalAttributes, reader.getSchema());
 
-            Record record;
-            while ((record = reader.nextRecord()) != null) {
-                final Map<String, List<ValueWrapper>> recordMap = new HashMap<>();
-
-                // Evaluate all of the RecordPath's for this Record
-                for (final Map.Entry<String, RecordPath> entry : recordPaths.entrySet()) {
-                    final String propName = entry.getKey();
-                    final RecordPath recordPath = entry.getValue();
-
-                    final Stream<FieldValue> fieldValueStream = recordPath.evaluate(record).getSelectedFields();
-                    final List<ValueWrapper> fieldValues = fieldValueStream
-                        .map(fieldVal -> new ValueWrapper(fieldVal.getValue()))
-                        .collect(Collectors.toList());
-                    recordMap.put(propName, fieldValues);
+            RecordBatch batch;
+            while ((batch = reader.nextBatch(RecordBatch.DEFAULT_BATCH_SIZE)) != null) {
+                // Group the Records of the batch by partition so that the Records of each partition are written as a single batch
+                final Map<RecordSetWriter, List<Record>> partitionRecords = new LinkedHashMap<>();
+                for (final Record record : batch) {
+                    final Map<String, List<ValueWrapper>> recordMap = new HashMap<>();
+
+                    // Evaluate all of the RecordPath's for this Record
+                    for (final Map.Entry<String, RecordPath> entry : recordPaths.entrySet()) {
+                        final String propName = entry.getKey();
+                        final RecordPath recordPath = entry.getValue();
+
+                        final Stream<FieldValue> fieldValueStream = recordPath.evaluate(record).getSelectedFields();
+                        final List<ValueWrapper> fieldValues = fieldValueStream
+                            .map(fieldVal -> new ValueWrapper(fieldVal.getValue()))
+                            .collect(Collectors.toList());
+                        recordMap.put(propName, fieldValues);
+                    }
+
+                    final RecordValueMap recordValueMap = new RecordValueMap(recordMap);
+
+                    // Get the RecordSetWriter that contains the same values for all RecordPaths - or create one if none exists.
+                    RecordSetWriter writer = writerMap.get(recordValueMap);
+                    if (writer == null) {
+                        final FlowFile childFlowFile = session.create(flowFile);
+                        recordValueMap.setFlowFile(childFlowFile);
+
+                        final OutputStream out = session.write(childFlowFile);
+
+                        writer = writerFactory.createWriter(getLogger(), writeSchema, out, childFlowFile);
+                        writer.beginRecordSet();
+                        writerMap.put(recordValueMap, writer);
+                    }
+
+                    partitionRecords.computeIfAbsent(writer, key -> new ArrayList<>()).add(record);
                 }
 
-                final RecordValueMap recordValueMap = new RecordValueMap(recordMap);
-
-                // Get the RecordSetWriter that contains the same values for all RecordPaths - or create one if none exists.
-                RecordSetWriter writer = writerMap.get(recordValueMap);
-                if (writer == null) {
-                    final FlowFile childFlowFile = session.create(flowFile);
-                    recordValueMap.setFlowFile(childFlowFile);
-
-                    final OutputStream out = session.write(childFlowFile);
-
-                    writer = writerFactory.createWriter(getLogger(), writeSchema, out, childFlowFile);
-                    writer.beginRecordSet();
-                    writerMap.put(recordValueMap, writer);
+                // Size each batch to its partition so that a partition key with many distinct values does not allocate a full-size batch per value
+                for (final Map.Entry<RecordSetWriter, List<Record>> entry : partitionRecords.entrySet()) {
+                    final List<Record> records = entry.getValue();
+                    final RecordBatch partitionBatch = new RecordBatch(batch.getSchema(), records.size());
+                    records.forEach(partitionBatch::add);
+                    entry.getKey().writeBatch(partitionBatch);
                 }
-
-                writer.write(record);
             }
 
             // For each RecordSetWriter, finish the record set and close the writer.
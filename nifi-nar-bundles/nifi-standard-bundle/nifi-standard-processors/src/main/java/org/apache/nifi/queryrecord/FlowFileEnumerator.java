@@ -22,16 +22,24 @@ import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.serialization.MalformedRecordException;
 import org.apache.nifi.serialization.RecordReader;
 import org.apache.nifi.serialization.RecordReaderFactory;
 import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordBatch;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.List;
 
 public class FlowFileEnumerator implements Enumerator<Object> {
+    // The first batch holds a single Record, and each subsequent batch is twice the size of the previous one, up to
+    // RecordBatch.DEFAULT_BATCH_SIZE. A query that stops early, such as one with a small LIMIT, then parses at most about
+    // twice as many Records as it consumes rather than a full batch.
+    private static final int INITIAL_BATCH_SIZE = 1;
+
     private final ProcessSession session;
     private final FlowFile flowFile;
     private final ComponentLog logger;
@@ -41,6 +49,9 @@ public class FlowFileEnumerator implements Enumerator<Object> {
     private InputStream rawIn;
     private Object currentRow;
     private RecordReader recordParser;
+    private RecordBatch recordBatch;
+    private int batchIndex = 0;
+    private int nextBatchSize = INITIAL_BATCH_SIZE;
     private int recordsRead = 0;
 
     public FlowFileEnumerator(final ProcessSession session, final FlowFile flowFile, final ComponentLog logger, final RecordReaderFactory parserFactory, final int[] fields) {
@@ -61,7 +72,7 @@ public class FlowFileEnumerator implements Enumerator<Object> {
     public boolean moveNext() {
         currentRow = null;
         try {
-            final Record record = recordParser.nextRecord();
+            final Record record = nextRecord();
             if (record == null) {
                 // If we are out of data, close the InputStream. We do this because
                 // Calcite does not necessarily call our close() method.
@@ -84,6 +95,21 @@ public class FlowFileEnumerator implements Enumerator<Object> {
         return true;
     }
 
+    private Record nextRecord() throws IOException, MalformedRecordException {
+        // Records are read from the FlowFile a batch at a time and handed to Calcite one at a time
+        if (recordBatch == null || batchIndex >= recordBatch.size()) {
+            recordBatch = recordParser.nextBatch(nextBatchSize);
+            batchIndex = 0;
+            nextBatchSize = Math.min(nextBatchSize * 2, RecordBatch.DEFAULT_BATCH_SIZE);
+
+            if (recordBatch == null) {
+                return null;
+            }
+        }
+
+        return recordBatch.get(batchIndex++);
+    }
+
     protected int getRecordsRead() {
         return recordsRead;
     }
@@ -145,6 +171,9 @@ public class FlowFileEnumerator implements Enumerator<Object> {
         }
 
         rawIn = session.read(flowFile);
+        recordBatch = null;
+        batchIndex = 0;
+        nextBatchSize = INITIAL_BATCH_SIZE;
 
         try {
             recordParser = recordParserFactory.createRecordReader(flowFile, rawIn, logger);
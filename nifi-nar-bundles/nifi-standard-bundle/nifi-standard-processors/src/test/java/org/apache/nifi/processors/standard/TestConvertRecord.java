@@ -94,6 +94,41 @@ public class TestConvertRecord {
         out.assertContentEquals("header\nJohn Doe,48\nJane Doe,47\nJimmy Doe,14\n");
     }
 
+    @Test
+    public void testConversionOfMultipleBatches() throws InitializationException {
+        final MockRecordParser readerService = new MockRecordParser();
+        final MockRecordWriter writerService = new MockRecordWriter("header", false);
+
+        final TestRunner runner = TestRunners.newTestRunner(ConvertRecord.class);
+        runner.addControllerService("reader", readerService);
+        runner.enableControllerService(readerService);
+        runner.addControllerService("writer", writerService);
+        runner.enableControllerService(writerService);
+
+        runner.setProperty(ConvertRecord.RECORD_READER, "reader");
+        runner.setProperty(ConvertRecord.RECORD_WRITER, "writer");
+
+        readerService.addSchemaField("name", RecordFieldType.STRING);
+        readerService.addSchemaField("age", RecordFieldType.INT);
+
+        // More Records than fit in a single batch, with the last batch only partially filled
+        final int recordCount = 2500;
+        final StringBuilder expectedContent = new StringBuilder("header\n");
+        for (int i = 0; i < recordCount; i++) {
+            readerService.addRecord("Person " + i, i);
+            expectedContent.append("Person ").append(i).append(",").append(i).append("\n");
+        }
+
+        runner.enqueue("");
+        runner.run();
+
+        runner.assertAllFlowFilesTransferred(ConvertRecord.REL_SUCCESS, 1);
+        final MockFlowFile out = runner.getFlowFilesForRelationship(ConvertRecord.REL_SUCCESS).get(0);
+
+        out.assertAttributeEquals("record.count", String.valueOf(recordCount));
+        out.assertContentEquals(expectedContent.toString());
+    }
+
     @Test
     public void testDropEmpty() throws InitializationException {
         final MockRecordParser readerService = new MockRecordParser();
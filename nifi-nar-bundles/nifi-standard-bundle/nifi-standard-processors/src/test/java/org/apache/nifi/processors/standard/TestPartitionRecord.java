@@ -28,7 +28,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.IntStream;
 
 import static org.junit.Assert.assertEquals;
@@ -225,6 +227,37 @@ public class TestPartitionRecord {
         assertTrue(out.stream().noneMatch(mff -> mff.getAttributes().containsKey("sports")));
     }
 
+    @Test
+    public void testGroupAcrossBatches() {
+        runner.setProperty("person-name", "/name");
+
+        // Spread each partition over several batches of Records to ensure that a partition's Records are all written to the same FlowFile, in order
+        final String[] names = new String[] {"John", "Jane", "Jake"};
+        final Map<String, StringBuilder> expectedContent = new HashMap<>();
+        final int recordCount = 2500;
+        for (int i = 0; i < recordCount; i++) {
+            final String name = names[i % names.length];
+            readerService.addRecord(name, i, null);
+            expectedContent.computeIfAbsent(name, key -> new StringBuilder()).append(name).append(",").append(i).append(",\n");
+        }
+
+        runner.enqueue(new byte[0]);
+
+        runner.run();
+
+        runner.assertTransferCount(PartitionRecord.REL_ORIGINAL, 1);
+        runner.assertTransferCount(PartitionRecord.REL_FAILURE, 0);
+        runner.assertTransferCount(PartitionRecord.REL_SUCCESS, 3);
+
+        final List<MockFlowFile> out = runner.getFlowFilesForRelationship(PartitionRecord.REL_SUCCESS);
+        assertEquals(1L, out.stream().filter(ff -> ff.getAttribute("record.count").equals("834")).count());
+        assertEquals(2L, out.stream().filter(ff -> ff.getAttribute("record.count").equals("833")).count());
+
+        for (final MockFlowFile flowFile : out) {
+            flowFile.assertContentEquals(expectedContent.get(flowFile.getAttribute("person-name")).toString());
+        }
+    }
+
     @Test
     public void testReadFailure() throws IOException {
         runner.setProperty("sports", "/sports");
@@ -842,6 +842,40 @@ public class TestQueryRecord {
         runner.assertTransferCount(QueryRecord.REL_FAILURE, 1);
     }
 
+    @Test
+    public void testLimitStopsReadingBeforeMalformedRecord() throws InitializationException {
+        final MockRecordParser parser = new MockRecordParser();
+        parser.addSchemaField("name", RecordFieldType.STRING);
+        parser.addSchemaField("age", RecordFieldType.INT);
+        for (int i = 0; i < 1000; i++) {
+            parser.addRecord("Person " + i, i);
+        }
+
+        // The 501st record is malformed. The query only needs the first 10, so it must not be read.
+        parser.failAfter(500);
+
+        final MockRecordWriter writer = new MockRecordWriter("\"name\",\"age\"");
+
+        TestRunner runner = getRunner();
+        runner.addControllerService("parser", parser);
+        runner.enableControllerService(parser);
+        runner.addControllerService("writer", writer);
+        runner.enableControllerService(writer);
+
+        runner.setProperty(REL_NAME, "select name, age from FLOWFILE LIMIT 10");
+        runner.setProperty(QueryRecord.RECORD_READER_FACTORY, "parser");
+        runner.setProperty(QueryRecord.RECORD_WRITER_FACTORY, "writer");
+
+        runner.enqueue(new byte[0]);
+
+        runner.run();
+
+        runner.assertTransferCount(QueryRecord.REL_FAILURE, 0);
+        runner.assertTransferCount(REL_NAME, 1);
+        final MockFlowFile out = runner.getFlowFilesForRelationship(REL_NAME).get(0);
+        out.assertAttributeEquals("record.count", "10");
+    }
+
     @Test
     public void testSimple() throws InitializationException {
         final MockRecordParser parser = new MockRecordParser();
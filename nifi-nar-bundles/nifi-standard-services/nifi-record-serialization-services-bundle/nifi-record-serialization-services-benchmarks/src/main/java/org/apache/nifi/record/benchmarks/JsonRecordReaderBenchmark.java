@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.record.benchmarks;
+
+import org.apache.nifi.json.JsonStreamingRowRecordReader;
+import org.apache.nifi.json.JsonTreeRowRecordReader;
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading a FlowFile of JSON objects into Records with {@link JsonTreeRowRecordReader}, which reads each object into a JSON tree
+ * first, and {@link JsonStreamingRowRecordReader}, which binds the parser's tokens directly into the Records. The schema contains
+ * <code>schemaFieldCount</code> of the <code>jsonFieldCount</code> fields of each object, and the remaining fields are dropped.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonRecordReaderBenchmark {
+    private static final int RECORD_COUNT = 1000;
+
+    @Param({"20"})
+    private int jsonFieldCount;
+
+    @Param({"4", "20"})
+    private int schemaFieldCount;
+
+    private ComponentLog logger;
+    private RecordSchema schema;
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        logger = Mockito.mock(ComponentLog.class);
+
+        final List<RecordField> fields = new ArrayList<>();
+        for (int i = 0; i < schemaFieldCount; i++) {
+            fields.add(new RecordField("field" + i, getFieldType(i).getDataType()));
+        }
+        schema = new SimpleRecordSchema(fields);
+
+        final StringBuilder sb = new StringBuilder("[");
+        for (int recordIndex = 0; recordIndex < RECORD_COUNT; recordIndex++) {
+            if (recordIndex > 0) {
+                sb.append(",\n");
+            }
+
+            sb.append('{');
+            for (int i = 0; i < jsonFieldCount; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+
+                sb.append("\"field").append(i).append("\": ");
+                switch (getFieldType(i)) {
+                    case LONG:
+                        sb.append(recordIndex * 31L + i);
+                        break;
+                    case DOUBLE:
+                        sb.append(recordIndex + i / 10D);
+                        break;
+                    case BOOLEAN:
+                        sb.append(recordIndex % 2 == 0);
+                        break;
+                    default:
+                        sb.append("\"value-").append(recordIndex).append('-').append(i).append('"');
+                        break;
+                }
+            }
+            sb.append('}');
+        }
+        sb.append(']');
+
+        json = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static RecordFieldType getFieldType(final int fieldIndex) {
+        switch (fieldIndex % 4) {
+            case 0:
+                return RecordFieldType.LONG;
+            case 1:
+                return RecordFieldType.STRING;
+            case 2:
+                return RecordFieldType.DOUBLE;
+            default:
+                return RecordFieldType.BOOLEAN;
+        }
+    }
+
+    @Benchmark
+    public void readTree(final Blackhole blackhole) throws IOException, MalformedRecordException {
+        try (final RecordReader reader = new JsonTreeRowRecordReader(new ByteArrayInputStream(json), logger, schema, null, null, null)) {
+            readAll(reader, blackhole);
+        }
+    }
+
+    @Benchmark
+    public void readStreaming(final Blackhole blackhole) throws IOException, MalformedRecordException {
+        try (final RecordReader reader = new JsonStreamingRowRecordReader(new ByteArrayInputStream(json), logger, schema, null, null, null)) {
+            readAll(reader, blackhole);
+        }
+    }
+
+    private void readAll(final RecordReader reader, final Blackhole blackhole) throws IOException, MalformedRecordException {
+        Record record;
+        while ((record = reader.nextRecord(true, true)) != null) {
+            blackhole.consume(record);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.nifi.record.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * <p>
+ * Entry point for running the Record serialization benchmarks. Build the module with <code>mvn package -P benchmarks</code> and then run
+ * <code>java -jar target/benchmarks.jar [JMH options] [benchmark regex]</code>.
+ * </p>
+ *
+ * <p>
+ * All of the standard JMH command-line options are supported. Unless a result format is given on the command line, the results are
+ * written as JSON to <code>nifi-record-serialization-services-benchmarks.json</code> in the working directory.
+ * </p>
+ */
+public class RecordSerializationBenchmarks {
+    static final String DEFAULT_RESULT_FILE = "nifi-record-serialization-services-benchmarks.json";
+
+    public static void main(final String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        final CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        if (commandLineOptions.shouldHelp()) {
+            commandLineOptions.showHelp();
+            return;
+        }
+
+        final ChainedOptionsBuilder optionsBuilder = new OptionsBuilder().parent(commandLineOptions);
+        if (!commandLineOptions.getResultFormat().hasValue()) {
+            optionsBuilder.resultFormat(ResultFormatType.JSON);
+            if (!commandLineOptions.getResult().hasValue()) {
+                optionsBuilder.result(DEFAULT_RESULT_FILE);
+            }
+        }
+
+        if (commandLineOptions.getIncludes().isEmpty()) {
+            optionsBuilder.include(RecordSerializationBenchmarks.class.getPackage().getName() + "\\..*");
+        }
+
+        new Runner(optionsBuilder.build()).run();
+    }
+}
@@ -20,12 +20,12 @@ package org.apache.nifi.avro;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.nifi.serialization.MalformedRecordException;
 import org.apache.nifi.serialization.RecordReader;
-import org.apache.nifi.serialization.record.MapRecord;
+import org.apache.nifi.serialization.record.ArrayRecord;
 import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordBatch;
 import org.apache.nifi.serialization.record.RecordSchema;
 
 import java.io.IOException;
-import java.util.Map;
 
 public abstract class AvroRecordReader implements RecordReader {
 
@@ -39,9 +39,34 @@ public abstract class AvroRecordReader implements RecordReader {
                 return null;
             }
 
+            return toRecord(record, getSchema());
+        } catch (IOException e) {
+            throw e;
+        } catch (MalformedRecordException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new MalformedRecordException("Error while getting next record", e);
+        }
+    }
+
+    @Override
+    public RecordBatch nextBatch(final int maxRecords, final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+        try {
+            GenericRecord record = nextAvroRecord();
+            if (record == null) {
+                return null;
+            }
+
+            // Every Record that is read from the Avro data has the same schema, so it is resolved once for the entire batch
             final RecordSchema schema = getSchema();
-            final Map<String, Object> values = AvroTypeUtil.convertAvroRecordToMap(record, schema);
-            return new MapRecord(schema, values);
+            final RecordBatch batch = new RecordBatch(schema, maxRecords);
+            batch.add(toRecord(record, schema));
+
+            while (!batch.isFull() && (record = nextAvroRecord()) != null) {
+                batch.add(toRecord(record, schema));
+            }
+
+            return batch;
         } catch (IOException e) {
             throw e;
         } catch (MalformedRecordException e) {
@@ -50,4 +75,18 @@ public abstract class AvroRecordReader implements RecordReader {
             throw new MalformedRecordException("Error while getting next record", e);
         }
     }
+
+    private Record toRecord(final GenericRecord record, final RecordSchema schema) {
+        final Object[] values = AvroTypeUtil.convertAvroRecordToValues(record, schema);
+        final ArrayRecord arrayRecord = new ArrayRecord(schema, values);
+
+        // Every field of the schema is present in the Avro Record, so fields without a value are retained as fields whose value is null
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                arrayRecord.setValue(i, null);
+            }
+        }
+
+        return arrayRecord;
+    }
 }
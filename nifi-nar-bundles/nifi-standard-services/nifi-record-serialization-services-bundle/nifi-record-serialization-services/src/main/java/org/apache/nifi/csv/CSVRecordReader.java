@@ -22,6 +22,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,17 +36,20 @@ import org.apache.commons.csv.CSVRecord;
 import org.apache.commons.io.input.BOMInputStream;
 import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.record.ArrayRecord;
 import org.apache.nifi.serialization.record.DataType;
-import org.apache.nifi.serialization.record.MapRecord;
 import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordBatch;
 import org.apache.nifi.serialization.record.RecordField;
 import org.apache.nifi.serialization.record.RecordFieldType;
 import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.RecordSchemaIndex;
 
 public class CSVRecordReader extends AbstractCSVRecordReader {
     private final CSVParser csvParser;
 
     private List<RecordField> recordFields;
+    private int[] fieldIndexes;
 
     public CSVRecordReader(final InputStream in, final ComponentLog logger, final RecordSchema schema, final CSVFormat csvFormat, final boolean hasHeader, final boolean ignoreHeader,
                            final String dateFormat, final String timeFormat, final String timestampFormat, final String encoding) throws IOException {
@@ -76,49 +80,108 @@ public class CSVRecordReader extends AbstractCSVRecordReader {
             final RecordSchema schema = getSchema();
 
             final List<RecordField> recordFields = getRecordFields();
-            final int numFieldNames = recordFields.size();
             for (final CSVRecord csvRecord : csvParser) {
-                final Map<String, Object> values = new LinkedHashMap<>(recordFields.size() * 2);
-                for (int i = 0; i < csvRecord.size(); i++) {
-                    final String rawValue = csvRecord.get(i);
-
-                    final String rawFieldName;
-                    final DataType dataType;
-                    if (i >= numFieldNames) {
-                        if (!dropUnknownFields) {
-                            values.put("unknown_field_index_" + i, rawValue);
-                        }
-
-                        continue;
-                    } else {
-                        final RecordField recordField = recordFields.get(i);
-                        rawFieldName = recordField.getFieldName();
-                        dataType = recordField.getDataType();
-                    }
+                return toRecord(csvRecord, schema, recordFields, coerceTypes, dropUnknownFields);
+            }
+        } catch (Exception e) {
+            throw new MalformedRecordException("Error while getting next record", e);
+        }
 
+        return null;
+    }
 
-                    final Object value;
-                    if (coerceTypes) {
-                        value = convert(rawValue, dataType, rawFieldName);
-                    } else {
-                        // The CSV Reader is going to return all fields as Strings, because CSV doesn't have any way to
-                        // dictate a field type. As a result, we will use the schema that we have to attempt to convert
-                        // the value into the desired type if it's a simple type.
-                        value = convertSimpleIfPossible(rawValue, dataType, rawFieldName);
-                    }
+    @Override
+    public RecordBatch nextBatch(final int maxRecords, final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+        try {
+            // Resolve the schema and the fields of the columns once for the entire batch
+            final RecordSchema schema = getSchema();
+            final List<RecordField> recordFields = getRecordFields();
 
-                    values.put(rawFieldName, value);
-                }
+            final Iterator<CSVRecord> csvRecords = csvParser.iterator();
+            if (!csvRecords.hasNext()) {
+                return null;
+            }
 
-                return new MapRecord(schema, values, coerceTypes, dropUnknownFields);
+            final RecordBatch batch = new RecordBatch(schema, maxRecords);
+            while (!batch.isFull() && csvRecords.hasNext()) {
+                batch.add(toRecord(csvRecords.next(), schema, recordFields, coerceTypes, dropUnknownFields));
             }
+
+            return batch;
         } catch (Exception e) {
             throw new MalformedRecordException("Error while getting next record", e);
         }
+    }
 
-        return null;
+    private Record toRecord(final CSVRecord csvRecord, final RecordSchema schema, final List<RecordField> recordFields, final boolean coerceTypes, final boolean dropUnknownFields) {
+        final int numFieldNames = recordFields.size();
+        final Object[] values = new Object[schema.getFieldCount()];
+        Map<String, Object> unknownValues = null;
+        List<Integer> nullFieldIndexes = null;
+
+        for (int i = 0; i < csvRecord.size(); i++) {
+            final String rawValue = csvRecord.get(i);
+
+            final String rawFieldName;
+            final DataType dataType;
+            final int fieldIndex;
+            if (i >= numFieldNames) {
+                if (!dropUnknownFields) {
+                    unknownValues = putUnknownValue(unknownValues, "unknown_field_index_" + i, rawValue);
+                }
+
+                continue;
+            } else {
+                final RecordField recordField = recordFields.get(i);
+                rawFieldName = recordField.getFieldName();
+                dataType = recordField.getDataType();
+                fieldIndex = fieldIndexes[i];
+            }
+
+            if (fieldIndex < 0 && dropUnknownFields) {
+                continue;
+            }
+
+            final Object value;
+            if (coerceTypes) {
+                value = convert(rawValue, dataType, rawFieldName);
+            } else {
+                // The CSV Reader is going to return all fields as Strings, because CSV doesn't have any way to
+                // dictate a field type. As a result, we will use the schema that we have to attempt to convert
+                // the value into the desired type if it's a simple type.
+                value = convertSimpleIfPossible(rawValue, dataType, rawFieldName);
+            }
+
+            if (fieldIndex < 0) {
+                unknownValues = putUnknownValue(unknownValues, rawFieldName, value);
+            } else {
+                values[fieldIndex] = value;
+                if (value == null) {
+                    if (nullFieldIndexes == null) {
+                        nullFieldIndexes = new ArrayList<>();
+                    }
+
+                    nullFieldIndexes.add(fieldIndex);
+                }
+            }
+        }
+
+        final ArrayRecord record = new ArrayRecord(schema, values, unknownValues, null, coerceTypes, dropUnknownFields);
+        if (nullFieldIndexes != null) {
+            // Columns that are present but have no value are retained as fields whose value is null
+            for (final Integer fieldIndex : nullFieldIndexes) {
+                record.setValue(fieldIndex, null);
+            }
+        }
+
+        return record;
     }
 
+    private static Map<String, Object> putUnknownValue(final Map<String, Object> unknownValues, final String fieldName, final Object value) {
+        final Map<String, Object> map = unknownValues == null ? new LinkedHashMap<>() : unknownValues;
+        map.put(fieldName, value);
+        return map;
+    }
 
     private List<RecordField> getRecordFields() {
         if (this.recordFields != null) {
@@ -142,6 +205,14 @@ public class CSVRecordReader extends AbstractCSVRecordReader {
             }
         }
 
+        // Resolve the position of each column's field in the schema once, rather than for every record
+        final RecordSchemaIndex schemaIndex = schema.getSchemaIndex();
+        final int[] indexes = new int[fields.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = schemaIndex.getFieldIndex(fields.get(i).getFieldName());
+        }
+
+        this.fieldIndexes = indexes;
         this.recordFields = fields;
         return fields;
     }
@@ -23,11 +23,10 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 
 import org.apache.commons.csv.CSVFormat;
@@ -36,10 +35,11 @@ import org.apache.commons.lang3.CharUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.record.ArrayRecord;
 import org.apache.nifi.serialization.record.DataType;
-import org.apache.nifi.serialization.record.MapRecord;
 import org.apache.nifi.serialization.record.Record;
 import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.RecordSchemaIndex;
 
 import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectReader;
@@ -153,34 +153,59 @@ public class JacksonCSVRecordReader extends AbstractCSVRecordReader {
                 return null;
             }
 
-            final Map<String, Object> values = new HashMap<>(rawFieldNames.size() * 2);
+            final RecordSchemaIndex schemaIndex = schema.getSchemaIndex();
+            final Object[] values = new Object[schemaIndex.getFieldCount()];
+            Map<String, Object> unknownValues = null;
+            List<Integer> nullFieldIndexes = null;
+
             final int numFieldNames = rawFieldNames.size();
             for (int i = 0; i < csvRecord.length; i++) {
                 final String rawFieldName = numFieldNames <= i ? "unknown_field_index_" + i : rawFieldNames.get(i);
                 String rawValue = (i >= csvRecord.length) ? null : csvRecord[i];
 
-                final Optional<DataType> dataTypeOption = schema.getDataType(rawFieldName);
+                final int fieldIndex = schemaIndex.getFieldIndex(rawFieldName);
+                if (fieldIndex < 0) {
+                    if (!dropUnknownFields) {
+                        if (unknownValues == null) {
+                            unknownValues = new LinkedHashMap<>();
+                        }
+
+                        unknownValues.put(rawFieldName, rawValue);
+                    }
 
-                if (!dataTypeOption.isPresent() && dropUnknownFields) {
                     continue;
                 }
 
+                final DataType dataType = schemaIndex.getField(fieldIndex).getDataType();
                 final Object value;
-                if (coerceTypes && dataTypeOption.isPresent()) {
-                    value = convert(rawValue, dataTypeOption.get(), rawFieldName);
-                } else if (dataTypeOption.isPresent()) {
+                if (coerceTypes) {
+                    value = convert(rawValue, dataType, rawFieldName);
+                } else {
                     // The CSV Reader is going to return all fields as Strings, because CSV doesn't have any way to
                     // dictate a field type. As a result, we will use the schema that we have to attempt to convert
                     // the value into the desired type if it's a simple type.
-                    value = convertSimpleIfPossible(rawValue, dataTypeOption.get(), rawFieldName);
-                } else {
-                    value = rawValue;
+                    value = convertSimpleIfPossible(rawValue, dataType, rawFieldName);
                 }
 
-                values.put(rawFieldName, value);
+                values[fieldIndex] = value;
+                if (value == null) {
+                    if (nullFieldIndexes == null) {
+                        nullFieldIndexes = new ArrayList<>();
+                    }
+
+                    nullFieldIndexes.add(fieldIndex);
+                }
+            }
+
+            final ArrayRecord record = new ArrayRecord(schema, values, unknownValues, null, coerceTypes, dropUnknownFields);
+            if (nullFieldIndexes != null) {
+                // Columns that are present but have no value are retained as fields whose value is null
+                for (final Integer fieldIndex : nullFieldIndexes) {
+                    record.setValue(fieldIndex, null);
+                }
             }
 
-            return new MapRecord(schema, values, coerceTypes, dropUnknownFields);
+            return record;
         }
 
         return null;
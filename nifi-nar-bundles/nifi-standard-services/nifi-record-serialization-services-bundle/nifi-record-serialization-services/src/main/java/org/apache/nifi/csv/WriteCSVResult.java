@@ -26,14 +26,16 @@ import org.apache.nifi.serialization.WriteResult;
 import org.apache.nifi.serialization.record.DataType;
 import org.apache.nifi.serialization.record.RawRecordWriter;
 import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordBatch;
 import org.apache.nifi.serialization.record.RecordField;
-import org.apache.nifi.serialization.record.RecordFieldType;
 import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.util.DataTypeUtils;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -150,10 +152,62 @@ public class WriteCSVResult extends AbstractRecordSetWriter implements RecordSet
         return schemaWriter.getAttributes(recordSchema);
     }
 
+    @Override
+    protected Map<String, String> writeRecords(final RecordBatch batch) throws IOException {
+        // Outside of a RecordSet the schema information is written for every Record, so each Record is written individually
+        if (!isActiveRecordSet()) {
+            return super.writeRecords(batch);
+        }
+
+        includeHeaderIfNecessary(batch.get(0), true);
+
+        // Convert the values of the batch one field at a time so that the type and format of each field are resolved once per batch
+        final List<RecordField> recordFields = recordSchema.getFields();
+        final Object[][] columns = new Object[recordFields.size()][];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = getFieldValues(batch, recordFields.get(i));
+        }
+
+        for (int row = 0; row < batch.size(); row++) {
+            for (int i = 0; i < columns.length; i++) {
+                fieldValues[i] = columns[i][row];
+            }
+
+            printer.printRecord(fieldValues);
+            incrementRecordCount();
+        }
+
+        return schemaWriter.getAttributes(recordSchema);
+    }
+
     private Object getFieldValue(final Record record, final RecordField recordField) {
-        final RecordFieldType fieldType = recordField.getDataType().getFieldType();
+        if (isNumeric(recordField)) {
+            final Object value = record.getValue(recordField);
+            if (value instanceof Number) {
+                return value;
+            }
+        }
 
-        switch (fieldType) {
+        return record.getAsString(recordField, getFormat(recordField));
+    }
+
+    private Object[] getFieldValues(final RecordBatch batch, final RecordField recordField) {
+        final boolean numeric = isNumeric(recordField);
+        final String format = getFormat(recordField);
+
+        final Object[] values = batch.getColumn(recordField);
+        for (int i = 0; i < values.length; i++) {
+            final Object value = values[i];
+            if (value != null && !(numeric && value instanceof Number)) {
+                values[i] = DataTypeUtils.toString(value, format);
+            }
+        }
+
+        return values;
+    }
+
+    private static boolean isNumeric(final RecordField recordField) {
+        switch (recordField.getDataType().getFieldType()) {
             case BIGINT:
             case BYTE:
             case DECIMAL:
@@ -162,14 +216,10 @@ public class WriteCSVResult extends AbstractRecordSetWriter implements RecordSet
             case LONG:
             case INT:
             case SHORT:
-                final Object value = record.getValue(recordField);
-                if (value instanceof Number) {
-                    return value;
-                }
-                break;
+                return true;
+            default:
+                return false;
         }
-
-        return record.getAsString(recordField, getFormat(recordField));
     }
 
     @Override
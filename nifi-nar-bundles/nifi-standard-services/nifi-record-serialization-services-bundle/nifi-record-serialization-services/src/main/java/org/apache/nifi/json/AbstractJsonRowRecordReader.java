@@ -24,6 +24,7 @@ import org.apache.nifi.serialization.SimpleRecordSchema;
 import org.apache.nifi.serialization.record.DataType;
 import org.apache.nifi.serialization.record.MapRecord;
 import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordBatch;
 import org.apache.nifi.serialization.record.RecordFieldType;
 import org.apache.nifi.serialization.record.RecordSchema;
 import org.apache.nifi.serialization.record.type.ArrayDataType;
@@ -51,8 +52,8 @@ import java.util.function.Supplier;
 
 public abstract class AbstractJsonRowRecordReader implements RecordReader {
     private final ComponentLog logger;
-    private final JsonParser jsonParser;
-    private final JsonNode firstJsonNode;
+    private JsonParser jsonParser;
+    private JsonNode firstJsonNode;
     private final Supplier<DateFormat> LAZY_DATE_FORMAT;
     private final Supplier<DateFormat> LAZY_TIME_FORMAT;
     private final Supplier<DateFormat> LAZY_TIMESTAMP_FORMAT;
@@ -63,9 +64,11 @@ public abstract class AbstractJsonRowRecordReader implements RecordReader {
     private static final ObjectMapper codec = new ObjectMapper();
 
 
-    public AbstractJsonRowRecordReader(final InputStream in, final ComponentLog logger, final String dateFormat, final String timeFormat, final String timestampFormat)
-            throws IOException, MalformedRecordException {
-
+    /**
+     * Creates a reader that does not consume any input itself. Subclasses that use this constructor are responsible for
+     * reading the input and must override {@link #nextRecord(boolean, boolean)} and {@link #close()}.
+     */
+    protected AbstractJsonRowRecordReader(final ComponentLog logger, final String dateFormat, final String timeFormat, final String timestampFormat) {
         this.logger = logger;
 
         final DateFormat df = dateFormat == null ? null : DataTypeUtils.getDateFormat(dateFormat);
@@ -75,6 +78,12 @@ public abstract class AbstractJsonRowRecordReader implements RecordReader {
         LAZY_DATE_FORMAT = () -> df;
         LAZY_TIME_FORMAT = () -> tf;
         LAZY_TIMESTAMP_FORMAT = () -> tsf;
+    }
+
+    public AbstractJsonRowRecordReader(final InputStream in, final ComponentLog logger, final String dateFormat, final String timeFormat, final String timestampFormat)
+            throws IOException, MalformedRecordException {
+
+        this(logger, dateFormat, timeFormat, timestampFormat);
 
         try {
             jsonParser = jsonFactory.createJsonParser(in);
@@ -116,12 +125,32 @@ public abstract class AbstractJsonRowRecordReader implements RecordReader {
         }
 
         final RecordSchema schema = getSchema();
+        return toRecord(nextNode, schema, coerceTypes, dropUnknownFields);
+    }
+
+    @Override
+    public RecordBatch nextBatch(final int maxRecords, final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+        JsonNode nextNode = getNextJsonNode();
+        if (nextNode == null) {
+            return null;
+        }
+
+        final RecordSchema schema = getSchema();
+        final RecordBatch batch = new RecordBatch(schema, maxRecords);
+        do {
+            batch.add(toRecord(nextNode, schema, coerceTypes, dropUnknownFields));
+        } while (!batch.isFull() && (nextNode = getNextJsonNode()) != null);
+
+        return batch;
+    }
+
+    private Record toRecord(final JsonNode jsonNode, final RecordSchema schema, final boolean coerceTypes, final boolean dropUnknownFields) throws MalformedRecordException {
         try {
-            return convertJsonNodeToRecord(nextNode, schema, coerceTypes, dropUnknownFields);
+            return convertJsonNodeToRecord(jsonNode, schema, coerceTypes, dropUnknownFields);
         } catch (final MalformedRecordException mre) {
             throw mre;
         } catch (final Exception e) {
-            logger.debug("Failed to convert JSON Element {} into a Record object using schema {} due to {}", new Object[] {nextNode, schema, e.toString(), e});
+            logger.debug("Failed to convert JSON Element {} into a Record object using schema {} due to {}", new Object[] {jsonNode, schema, e.toString(), e});
             throw new MalformedRecordException("Successfully parsed a JSON object from input but failed to convert into a Record object with the given schema", e);
         }
     }
@@ -342,7 +371,9 @@ public abstract class AbstractJsonRowRecordReader implements RecordReader {
 
     @Override
     public void close() throws IOException {
-        jsonParser.close();
+        if (jsonParser != null) {
+            jsonParser.close();
+        }
     }
 
     protected abstract Record convertJsonNodeToRecord(JsonNode nextNode, RecordSchema schema, boolean coerceTypes, boolean dropUnknownFields) throws IOException, MalformedRecordException;
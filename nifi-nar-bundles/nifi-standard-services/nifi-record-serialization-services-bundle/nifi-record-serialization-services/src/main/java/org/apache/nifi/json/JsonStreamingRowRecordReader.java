@@ -0,0 +1,384 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.json;
+
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.ArrayRecord;
+import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.MapRecord;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordBatch;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.RecordSchemaIndex;
+import org.apache.nifi.serialization.record.type.ArrayDataType;
+import org.apache.nifi.serialization.record.type.MapDataType;
+import org.apache.nifi.serialization.record.type.RecordDataType;
+import org.apache.nifi.serialization.record.util.DataTypeUtils;
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParseException;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.codehaus.jackson.map.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A JSON Record Reader that binds the tokens of the JSON parser directly into the values of each Record, rather than first reading
+ * each JSON object into an intermediate JSON tree. Fields that are not part of the schema are skipped without being materialized when
+ * unknown fields are to be dropped. The Records produced are equivalent to those produced by {@link JsonTreeRowRecordReader}, except that
+ * they do not retain the original JSON as their serialized form. The few values whose type cannot be determined without looking ahead
+ * (CHOICE types and Records without a child schema) are read as a JSON tree and converted in the same way as the tree reader does.
+ */
+public class JsonStreamingRowRecordReader extends JsonTreeRowRecordReader {
+    // Buffers used by the parsers are recycled per thread by the factory, so sharing a single factory allows them to be reused across FlowFiles
+    private static final JsonFactory jsonFactory = new JsonFactory();
+    private static final ObjectMapper codec = new ObjectMapper();
+
+    private final ComponentLog logger;
+    private final JsonParser jsonParser;
+
+    public JsonStreamingRowRecordReader(final InputStream in, final ComponentLog logger, final RecordSchema schema,
+                                        final String dateFormat, final String timeFormat, final String timestampFormat) throws IOException, MalformedRecordException {
+        super(logger, schema, dateFormat, timeFormat, timestampFormat);
+        this.logger = logger;
+
+        try {
+            jsonParser = jsonFactory.createJsonParser(in);
+            jsonParser.setCodec(codec);
+        } catch (final JsonParseException e) {
+            throw new MalformedRecordException("Could not parse data as JSON", e);
+        }
+    }
+
+    @Override
+    public Record nextRecord(final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+        final RecordSchema schema = getSchema();
+
+        try {
+            if (!advanceToNextObject()) {
+                return null;
+            }
+
+            return readRecord(schema, null, coerceTypes, dropUnknownFields);
+        } catch (final MalformedRecordException mre) {
+            throw mre;
+        } catch (final JsonParseException jpe) {
+            throw new MalformedRecordException("Could not parse data as JSON", jpe);
+        } catch (final Exception e) {
+            logger.debug("Failed to convert JSON into a Record object using schema {} due to {}", new Object[] {schema, e.toString(), e});
+            throw new MalformedRecordException("Successfully parsed a JSON object from input but failed to convert into a Record object with the given schema", e);
+        }
+    }
+
+    @Override
+    public RecordBatch nextBatch(final int maxRecords, final boolean coerceTypes, final boolean dropUnknownFields) throws IOException, MalformedRecordException {
+        final RecordSchema schema = getSchema();
+
+        try {
+            if (!advanceToNextObject()) {
+                return null;
+            }
+
+            final RecordBatch batch = new RecordBatch(schema, maxRecords);
+            do {
+                batch.add(readRecord(schema, null, coerceTypes, dropUnknownFields));
+            } while (!batch.isFull() && advanceToNextObject());
+
+            return batch;
+        } catch (final MalformedRecordException mre) {
+            throw mre;
+        } catch (final JsonParseException jpe) {
+            throw new MalformedRecordException("Could not parse data as JSON", jpe);
+        } catch (final Exception e) {
+            logger.debug("Failed to convert JSON into a Record object using schema {} due to {}", new Object[] {schema, e.toString(), e});
+            throw new MalformedRecordException("Successfully parsed a JSON object from input but failed to convert into a Record object with the given schema", e);
+        }
+    }
+
+    private boolean advanceToNextObject() throws IOException, MalformedRecordException {
+        while (true) {
+            final JsonToken token = jsonParser.nextToken();
+            if (token == null) {
+                return false;
+            }
+
+            switch (token) {
+                case START_OBJECT:
+                    return true;
+                case END_OBJECT:
+                case END_ARRAY:
+                case START_ARRAY:
+                    continue;
+
+                default:
+                    throw new MalformedRecordException("Expected to get a JSON Object but got a token of type " + token.name());
+            }
+        }
+    }
+
+    /**
+     * Reads the fields of the JSON object that the parser is currently positioned at, leaving the parser positioned at the object's END_OBJECT token
+     */
+    private Record readRecord(final RecordSchema schema, final String fieldNamePrefix, final boolean coerceTypes, final boolean dropUnknown)
+            throws IOException, MalformedRecordException {
+
+        final RecordSchemaIndex schemaIndex = schema.getSchemaIndex();
+        final Object[] values = new Object[schemaIndex.getFieldCount()];
+        Map<String, Object> unknownValues = null;
+        List<Integer> nullFieldIndexes = null;
+
+        while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+            final String fieldName = jsonParser.getCurrentName();
+            final JsonToken valueToken = jsonParser.nextToken();
+
+            final int fieldIndex = schemaIndex.getFieldIndex(fieldName);
+            if (fieldIndex < 0) {
+                if (dropUnknown) {
+                    jsonParser.skipChildren();
+                    continue;
+                }
+
+                if (unknownValues == null) {
+                    unknownValues = new LinkedHashMap<>();
+                }
+
+                unknownValues.put(fieldName, readRawValue(valueToken, null, fieldName));
+                continue;
+            }
+
+            final RecordField recordField = schemaIndex.getField(fieldIndex);
+            final Object value;
+            if (coerceTypes) {
+                final String fullFieldName = fieldNamePrefix == null ? recordField.getFieldName() : fieldNamePrefix + recordField.getFieldName();
+                value = readField(valueToken, fullFieldName, recordField.getDataType(), dropUnknown);
+            } else {
+                value = readRawValue(valueToken, recordField.getDataType(), recordField.getFieldName());
+            }
+
+            values[fieldIndex] = value;
+            if (value == null) {
+                if (nullFieldIndexes == null) {
+                    nullFieldIndexes = new ArrayList<>();
+                }
+
+                nullFieldIndexes.add(fieldIndex);
+            }
+        }
+
+        final ArrayRecord record = new ArrayRecord(schema, values, unknownValues, null, false, dropUnknown);
+        if (nullFieldIndexes != null) {
+            // Fields that are present in the JSON with a value of null are retained as fields whose value is null
+            for (final Integer fieldIndex : nullFieldIndexes) {
+                record.setValue(fieldIndex, null);
+            }
+        }
+
+        return record;
+    }
+
+    /**
+     * Equivalent of {@link #convertField(org.codehaus.jackson.JsonNode, String, DataType, boolean)} for the value at the parser's current token
+     */
+    private Object readField(final JsonToken token, final String fieldName, final DataType desiredType, final boolean dropUnknown) throws IOException, MalformedRecordException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+
+        switch (desiredType.getFieldType()) {
+            case BOOLEAN:
+            case BYTE:
+            case CHAR:
+            case DECIMAL:
+            case DOUBLE:
+            case FLOAT:
+            case INT:
+            case BIGINT:
+            case LONG:
+            case SHORT:
+            case STRING:
+            case ENUM:
+            case DATE:
+            case TIME:
+            case TIMESTAMP: {
+                final Object rawValue = readRawValue(token, null, fieldName);
+                return DataTypeUtils.convertType(rawValue, desiredType, getLazyDateFormat(), getLazyTimeFormat(), getLazyTimestampFormat(), fieldName);
+            }
+            case MAP: {
+                final Map<String, Object> map = new HashMap<>();
+                if (token != JsonToken.START_OBJECT) {
+                    jsonParser.skipChildren();
+                    return map;
+                }
+
+                final DataType valueType = ((MapDataType) desiredType).getValueType();
+                while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String childName = jsonParser.getCurrentName();
+                    final Object childValue = readField(jsonParser.nextToken(), fieldName, valueType, dropUnknown);
+                    map.put(childName, childValue);
+                }
+
+                return map;
+            }
+            case ARRAY: {
+                if (token != JsonToken.START_ARRAY) {
+                    throw new MalformedRecordException("Expected a JSON Array for field " + fieldName + " but got a token of type " + token.name());
+                }
+
+                final DataType elementType = ((ArrayDataType) desiredType).getElementType();
+                final List<Object> elements = new ArrayList<>();
+                JsonToken elementToken;
+                while ((elementToken = jsonParser.nextToken()) != JsonToken.END_ARRAY) {
+                    elements.add(readField(elementToken, fieldName, elementType, dropUnknown));
+                }
+
+                return elements.toArray();
+            }
+            case RECORD: {
+                if (token != JsonToken.START_OBJECT || !(desiredType instanceof RecordDataType)) {
+                    jsonParser.skipChildren();
+                    return null;
+                }
+
+                final RecordSchema childSchema = ((RecordDataType) desiredType).getChildSchema();
+                if (childSchema == null) {
+                    // The schema is derived from the names of the fields, so the object must be read in its entirety first
+                    return convertField(jsonParser.readValueAsTree(), fieldName, desiredType, dropUnknown);
+                }
+
+                return readRecord(childSchema, fieldName + ".", true, dropUnknown);
+            }
+            case CHOICE: {
+                return DataTypeUtils.convertType(readRawValue(token, desiredType, fieldName), desiredType, fieldName);
+            }
+        }
+
+        jsonParser.skipChildren();
+        return null;
+    }
+
+    /**
+     * Equivalent of {@link #getRawNodeValue(org.codehaus.jackson.JsonNode, DataType, String)} for the value at the parser's current token
+     */
+    private Object readRawValue(final JsonToken token, final DataType dataType, final String fieldName) throws IOException {
+        switch (token) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_NUMBER_INT:
+            case VALUE_NUMBER_FLOAT:
+                return jsonParser.getNumberValue();
+            case VALUE_TRUE:
+                return Boolean.TRUE;
+            case VALUE_FALSE:
+                return Boolean.FALSE;
+            case VALUE_EMBEDDED_OBJECT:
+                return jsonParser.getEmbeddedObject();
+            case VALUE_STRING: {
+                final String textValue = jsonParser.getText();
+                if (dataType == null) {
+                    return textValue;
+                }
+
+                switch (dataType.getFieldType()) {
+                    case DATE:
+                    case TIME:
+                    case TIMESTAMP:
+                        try {
+                            return DataTypeUtils.convertType(textValue, dataType, getLazyDateFormat(), getLazyTimeFormat(), getLazyTimestampFormat(), fieldName);
+                        } catch (final Exception e) {
+                            return textValue;
+                        }
+                    default:
+                        return textValue;
+                }
+            }
+            case START_ARRAY: {
+                if (dataType != null && dataType.getFieldType() == RecordFieldType.CHOICE) {
+                    // Each possible array type is tried in turn against the elements, so the array must be read in its entirety first
+                    return getRawNodeValue(jsonParser.readValueAsTree(), dataType, fieldName);
+                }
+
+                final DataType elementDataType;
+                if (dataType != null && dataType.getFieldType() == RecordFieldType.ARRAY) {
+                    elementDataType = ((ArrayDataType) dataType).getElementType();
+                } else {
+                    elementDataType = dataType;
+                }
+
+                final List<Object> elements = new ArrayList<>();
+                JsonToken elementToken;
+                while ((elementToken = jsonParser.nextToken()) != JsonToken.END_ARRAY) {
+                    elements.add(readRawValue(elementToken, elementDataType, fieldName));
+                }
+
+                return elements.toArray();
+            }
+            case START_OBJECT: {
+                if (dataType != null && dataType.getFieldType() == RecordFieldType.CHOICE) {
+                    // Each possible record type is tried in turn against the object, so the object must be read in its entirety first
+                    return getRawNodeValue(jsonParser.readValueAsTree(), dataType, fieldName);
+                }
+
+                if (dataType != null && dataType.getFieldType() == RecordFieldType.MAP) {
+                    final DataType valueType = ((MapDataType) dataType).getValueType();
+                    final Map<String, Object> mapValue = new HashMap<>();
+                    while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+                        final String elementName = jsonParser.getCurrentName();
+                        mapValue.put(elementName, readRawValue(jsonParser.nextToken(), valueType, fieldName + "['" + elementName + "']"));
+                    }
+
+                    return mapValue;
+                }
+
+                RecordSchema childSchema = null;
+                if (dataType != null && dataType.getFieldType() == RecordFieldType.RECORD) {
+                    childSchema = ((RecordDataType) dataType).getChildSchema();
+                }
+                if (childSchema == null) {
+                    childSchema = new SimpleRecordSchema(Collections.emptyList());
+                }
+
+                final Map<String, Object> childValues = new HashMap<>();
+                while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+                    final String childFieldName = jsonParser.getCurrentName();
+                    final DataType childDataType = childSchema.getDataType(childFieldName).orElse(null);
+                    childValues.put(childFieldName, readRawValue(jsonParser.nextToken(), childDataType, childFieldName));
+                }
+
+                return new MapRecord(childSchema, childValues);
+            }
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        jsonParser.close();
+    }
+}
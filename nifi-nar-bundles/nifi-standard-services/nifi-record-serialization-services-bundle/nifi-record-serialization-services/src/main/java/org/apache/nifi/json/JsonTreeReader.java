@@ -63,9 +63,27 @@ import static org.apache.nifi.schema.inference.SchemaInferenceUtil.SCHEMA_CACHE;
 @SeeAlso(JsonPathReader.class)
 public class JsonTreeReader extends SchemaRegistryService implements RecordReaderFactory {
 
+    static final AllowableValue TREE_PARSING = new AllowableValue("tree", "JSON Tree",
+        "Each JSON object is first read into an intermediate JSON tree, which is then converted into a Record. The Records retain the original JSON, "
+            + "which allows a JSON Record Writer to write unmodified Records without serializing them again.");
+    static final AllowableValue STREAMING_PARSING = new AllowableValue("streaming", "Streaming",
+        "JSON tokens are bound directly into the fields of each Record as they are read, without building an intermediate JSON tree. Fields that are not "
+            + "part of the schema are skipped without being materialized. This is typically faster and uses less memory, particularly when the schema contains "
+            + "only a subset of the fields in the JSON, but the Records do not retain the original JSON.");
+
+    public static final PropertyDescriptor PARSING_STRATEGY = new PropertyDescriptor.Builder()
+        .name("json-parsing-strategy")
+        .displayName("Parsing Strategy")
+        .description("Specifies how the JSON is bound into Records")
+        .allowableValues(TREE_PARSING, STREAMING_PARSING)
+        .defaultValue(TREE_PARSING.getValue())
+        .required(true)
+        .build();
+
     private volatile String dateFormat;
     private volatile String timeFormat;
     private volatile String timestampFormat;
+    private volatile boolean streamingParsing;
 
     @Override
     protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
@@ -77,6 +95,7 @@ public class JsonTreeReader extends SchemaRegistryService implements RecordReade
         properties.add(DateTimeUtils.DATE_FORMAT);
         properties.add(DateTimeUtils.TIME_FORMAT);
         properties.add(DateTimeUtils.TIMESTAMP_FORMAT);
+        properties.add(PARSING_STRATEGY);
         return properties;
     }
 
@@ -85,6 +104,7 @@ public class JsonTreeReader extends SchemaRegistryService implements RecordReade
         this.dateFormat = context.getProperty(DateTimeUtils.DATE_FORMAT).getValue();
         this.timeFormat = context.getProperty(DateTimeUtils.TIME_FORMAT).getValue();
         this.timestampFormat = context.getProperty(DateTimeUtils.TIMESTAMP_FORMAT).getValue();
+        this.streamingParsing = STREAMING_PARSING.getValue().equals(context.getProperty(PARSING_STRATEGY).getValue());
     }
 
     @Override
@@ -113,6 +133,10 @@ public class JsonTreeReader extends SchemaRegistryService implements RecordReade
     public RecordReader createRecordReader(final Map<String, String> variables, final InputStream in, final long inputLength, final ComponentLog logger)
             throws IOException, MalformedRecordException, SchemaNotFoundException {
         final RecordSchema schema = getSchema(variables, in, null);
+        if (streamingParsing) {
+            return new JsonStreamingRowRecordReader(in, logger, schema, dateFormat, timeFormat, timestampFormat);
+        }
+
         return new JsonTreeRowRecordReader(in, logger, schema, dateFormat, timeFormat, timestampFormat);
     }
 }
@@ -20,12 +20,13 @@ package org.apache.nifi.json;
 import org.apache.nifi.logging.ComponentLog;
 import org.apache.nifi.serialization.MalformedRecordException;
 import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.ArrayRecord;
 import org.apache.nifi.serialization.record.DataType;
-import org.apache.nifi.serialization.record.MapRecord;
 import org.apache.nifi.serialization.record.Record;
 import org.apache.nifi.serialization.record.RecordField;
 import org.apache.nifi.serialization.record.RecordFieldType;
 import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.RecordSchemaIndex;
 import org.apache.nifi.serialization.record.SerializedForm;
 import org.apache.nifi.serialization.record.type.ArrayDataType;
 import org.apache.nifi.serialization.record.type.MapDataType;
@@ -39,6 +40,7 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
@@ -53,6 +55,15 @@ public class JsonTreeRowRecordReader extends AbstractJsonRowRecordReader {
         this.schema = schema;
     }
 
+    /**
+     * Creates a reader that does not consume any input itself, for subclasses that read the input by other means
+     * but convert JSON trees into Records in the same way as this reader.
+     */
+    protected JsonTreeRowRecordReader(final ComponentLog logger, final RecordSchema schema, final String dateFormat, final String timeFormat, final String timestampFormat) {
+        super(logger, dateFormat, timeFormat, timestampFormat);
+        this.schema = schema;
+    }
+
 
 
     @Override
@@ -87,10 +98,14 @@ public class JsonTreeRowRecordReader extends AbstractJsonRowRecordReader {
     private Record convertJsonNodeToRecord(final JsonNode jsonNode, final RecordSchema schema, final String fieldNamePrefix,
             final boolean coerceTypes, final boolean dropUnknown) throws IOException, MalformedRecordException {
 
-        final Map<String, Object> values = new HashMap<>(schema.getFieldCount() * 2);
+        final RecordSchemaIndex schemaIndex = schema.getSchemaIndex();
+        final Object[] values = new Object[schemaIndex.getFieldCount()];
+        Map<String, Object> unknownValues = null;
+        List<Integer> nullFieldIndexes = null;
 
         if (dropUnknown) {
-            for (final RecordField recordField : schema.getFields()) {
+            for (int i = 0; i < values.length; i++) {
+                final RecordField recordField = schemaIndex.getField(i);
                 final JsonNode childNode = getChildNode(jsonNode, recordField);
                 if (childNode == null) {
                     continue;
@@ -104,10 +119,13 @@ public class JsonTreeRowRecordReader extends AbstractJsonRowRecordReader {
                     final String fullFieldName = fieldNamePrefix == null ? fieldName : fieldNamePrefix + fieldName;
                     value = convertField(childNode, fullFieldName, desiredType, dropUnknown);
                 } else {
-                    value = getRawNodeValue(childNode, recordField == null ? null : recordField.getDataType(), fieldName);
+                    value = getRawNodeValue(childNode, recordField.getDataType(), fieldName);
                 }
 
-                values.put(fieldName, value);
+                values[i] = value;
+                if (value == null) {
+                    nullFieldIndexes = addIndex(nullFieldIndexes, i);
+                }
             }
         } else {
             final Iterator<String> fieldNames = jsonNode.getFieldNames();
@@ -115,7 +133,8 @@ public class JsonTreeRowRecordReader extends AbstractJsonRowRecordReader {
                 final String fieldName = fieldNames.next();
                 final JsonNode childNode = jsonNode.get(fieldName);
 
-                final RecordField recordField = schema.getField(fieldName).orElse(null);
+                final int fieldIndex = schemaIndex.getFieldIndex(fieldName);
+                final RecordField recordField = fieldIndex < 0 ? null : schemaIndex.getField(fieldIndex);
 
                 final Object value;
                 if (coerceTypes && recordField != null) {
@@ -126,12 +145,37 @@ public class JsonTreeRowRecordReader extends AbstractJsonRowRecordReader {
                     value = getRawNodeValue(childNode, recordField == null ? null : recordField.getDataType(), fieldName);
                 }
 
-                values.put(fieldName, value);
+                if (fieldIndex < 0) {
+                    if (unknownValues == null) {
+                        unknownValues = new LinkedHashMap<>();
+                    }
+
+                    unknownValues.put(fieldName, value);
+                } else {
+                    values[fieldIndex] = value;
+                    if (value == null) {
+                        nullFieldIndexes = addIndex(nullFieldIndexes, fieldIndex);
+                    }
+                }
             }
         }
 
         final Supplier<String> supplier = jsonNode::toString;
-        return new MapRecord(schema, values, SerializedForm.of(supplier, "application/json"), false, dropUnknown);
+        final ArrayRecord record = new ArrayRecord(schema, values, unknownValues, SerializedForm.of(supplier, "application/json"), false, dropUnknown);
+        if (nullFieldIndexes != null) {
+            // Fields that are present in the JSON with a value of null are retained as fields whose value is null
+            for (final Integer fieldIndex : nullFieldIndexes) {
+                record.setValue(fieldIndex, null);
+            }
+        }
+
+        return record;
+    }
+
+    private static List<Integer> addIndex(final List<Integer> indexes, final int index) {
+        final List<Integer> updated = indexes == null ? new ArrayList<>() : indexes;
+        updated.add(index);
+        return updated;
     }
 
 
@@ -26,6 +26,7 @@ import org.apache.nifi.serialization.WriteResult;
 import org.apache.nifi.serialization.record.DataType;
 import org.apache.nifi.serialization.record.RawRecordWriter;
 import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordBatch;
 import org.apache.nifi.serialization.record.RecordField;
 import org.apache.nifi.serialization.record.RecordFieldType;
 import org.apache.nifi.serialization.record.RecordSchema;
@@ -151,6 +152,23 @@ public class WriteJsonResult extends AbstractRecordSetWriter implements RecordSe
         return schemaAccess.getAttributes(recordSchema);
     }
 
+    @Override
+    protected Map<String, String> writeRecords(final RecordBatch batch) throws IOException {
+        // Outside of a RecordSet the schema information is written for every Record, so each Record is written individually
+        if (!isActiveRecordSet()) {
+            return super.writeRecords(batch);
+        }
+
+        final GeneratorTask startTask = JsonGenerator::writeStartObject;
+        final GeneratorTask endTask = JsonGenerator::writeEndObject;
+        for (final Record record : batch) {
+            writeRecord(record, recordSchema, generator, startTask, endTask, true);
+            incrementRecordCount();
+        }
+
+        return schemaAccess.getAttributes(recordSchema);
+    }
+
     @Override
     public WriteResult writeRawRecord(final Record record) throws IOException {
         // If we are not writing an active record set, then we need to ensure that we write the
@@ -24,6 +24,7 @@ import org.apache.nifi.serialization.SimpleRecordSchema;
 import org.apache.nifi.serialization.record.DataType;
 import org.apache.nifi.serialization.record.MapRecord;
 import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordBatch;
 import org.apache.nifi.serialization.record.RecordField;
 import org.apache.nifi.serialization.record.RecordFieldType;
 import org.apache.nifi.serialization.record.RecordSchema;
@@ -245,6 +246,49 @@ public class TestWriteCSVResult {
         assertEquals("id,name\n1,\n", output);
     }
 
+    @Test
+    public void testWriteBatchMatchesWriteRecord() throws IOException {
+        final CSVFormat csvFormat = CSVFormat.DEFAULT.withQuoteMode(QuoteMode.NON_NUMERIC).withRecordSeparator("\n");
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
+        fields.add(new RecordField("name", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("amount", RecordFieldType.DOUBLE.getDataType()));
+        fields.add(new RecordField("date", RecordFieldType.DATE.getDataType()));
+        final RecordSchema schema = new SimpleRecordSchema(fields);
+
+        final RecordBatch batch = new RecordBatch(schema, 3);
+        for (int i = 0; i < 3; i++) {
+            final Map<String, Object> values = new LinkedHashMap<>();
+            values.put("id", i);
+            values.put("name", i == 1 ? null : "name-" + i);
+            values.put("amount", i == 2 ? "12.5" : 10.0 * i);
+            values.put("date", new Date(86_400_000L * i));
+            batch.add(new MapRecord(schema, values));
+        }
+
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (final WriteCSVResult writer = new WriteCSVResult(csvFormat, schema, new SchemaNameAsAttribute(), expected,
+            RecordFieldType.DATE.getDefaultFormat(), RecordFieldType.TIME.getDefaultFormat(), RecordFieldType.TIMESTAMP.getDefaultFormat(), true, "UTF-8")) {
+
+            writer.beginRecordSet();
+            for (final Record record : batch) {
+                writer.write(record);
+            }
+            writer.finishRecordSet();
+        }
+
+        final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        try (final WriteCSVResult writer = new WriteCSVResult(csvFormat, schema, new SchemaNameAsAttribute(), actual,
+            RecordFieldType.DATE.getDefaultFormat(), RecordFieldType.TIME.getDefaultFormat(), RecordFieldType.TIMESTAMP.getDefaultFormat(), true, "UTF-8")) {
+
+            writer.beginRecordSet();
+            assertEquals(3, writer.writeBatch(batch).getRecordCount());
+            assertEquals(3, writer.finishRecordSet().getRecordCount());
+        }
+
+        assertEquals(expected.toString("UTF-8"), actual.toString("UTF-8"));
+    }
+
     @Test
     public void testMissingFieldWriteRawRecord() throws IOException {
         final CSVFormat csvFormat = CSVFormat.DEFAULT.withEscape('\\').withQuoteMode(QuoteMode.NONE).withRecordSeparator("\n");
@@ -0,0 +1,252 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.nifi.json;
+
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.serialization.MalformedRecordException;
+import org.apache.nifi.serialization.RecordReader;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordBatch;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class TestJsonStreamingRowRecordReader {
+    private final String dateFormat = RecordFieldType.DATE.getDefaultFormat();
+    private final String timeFormat = RecordFieldType.TIME.getDefaultFormat();
+    private final String timestampFormat = RecordFieldType.TIMESTAMP.getDefaultFormat();
+
+    private RecordSchema getAccountSchema() {
+        final List<RecordField> accountFields = new ArrayList<>();
+        accountFields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
+        accountFields.add(new RecordField("balance", RecordFieldType.DOUBLE.getDataType()));
+        return new SimpleRecordSchema(accountFields);
+    }
+
+    private RecordSchema getPersonSchema(final DataType accountDataType) {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("id", RecordFieldType.INT.getDataType()));
+        fields.add(new RecordField("name", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("balance", RecordFieldType.DOUBLE.getDataType()));
+        fields.add(new RecordField("address", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("city", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("state", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("zipCode", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("country", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("account", accountDataType));
+        return new SimpleRecordSchema(fields);
+    }
+
+    @Test
+    public void testMatchesTreeReaderForBankAccounts() throws IOException, MalformedRecordException {
+        final RecordSchema schema = getPersonSchema(RecordFieldType.RECORD.getRecordDataType(getAccountSchema()));
+
+        for (final String filename : Arrays.asList("bank-account-array.json", "bank-account-multiline.json", "bank-account-oneline.json", "bank-account-mixed.json",
+                "bank-account-array-optional-balance.json", "single-element-nested.json", "single-element-nested-array.json")) {
+            assertMatchesTreeReader(new File("src/test/resources/json/" + filename), schema);
+        }
+    }
+
+    @Test
+    public void testMatchesTreeReaderForChoiceOfRecords() throws IOException, MalformedRecordException {
+        final RecordSchema firstChildSchema = new SimpleRecordSchema(Arrays.asList(new RecordField("id", RecordFieldType.STRING.getDataType())));
+        final RecordSchema secondChildSchema = new SimpleRecordSchema(Arrays.asList(new RecordField("name", RecordFieldType.STRING.getDataType())));
+        final DataType childType = RecordFieldType.CHOICE.getChoiceDataType(RecordFieldType.RECORD.getRecordDataType(firstChildSchema),
+            RecordFieldType.RECORD.getRecordDataType(secondChildSchema));
+
+        final RecordSchema schema = new SimpleRecordSchema(Arrays.asList(
+            new RecordField("id", RecordFieldType.STRING.getDataType()),
+            new RecordField("child", childType)));
+
+        assertMatchesTreeReader(new File("src/test/resources/json/elements-for-record-choice.json"), schema);
+    }
+
+    @Test
+    public void testMatchesTreeReaderForArraysAndMaps() throws IOException, MalformedRecordException {
+        final RecordSchema schema = new SimpleRecordSchema(Arrays.asList(
+            new RecordField("id", RecordFieldType.INT.getDataType()),
+            new RecordField("tags", RecordFieldType.ARRAY.getArrayDataType(RecordFieldType.STRING.getDataType())),
+            new RecordField("accounts", RecordFieldType.ARRAY.getArrayDataType(RecordFieldType.RECORD.getRecordDataType(getAccountSchema()))),
+            new RecordField("attributes", RecordFieldType.MAP.getMapDataType(RecordFieldType.INT.getDataType())),
+            new RecordField("created", RecordFieldType.DATE.getDataType())));
+
+        final String json = "[{\"id\": 1, \"tags\": [\"a\", \"b\"], \"accounts\": [{\"id\": 42, \"balance\": 4750.89}, {\"id\": 43, \"balance\": 48212.38}], "
+            + "\"attributes\": {\"x\": 1, \"y\": 2}, \"created\": \"2017-01-01\", \"extra\": {\"nested\": [1, 2, {\"deeper\": true}]}}, "
+            + "{\"id\": \"2\", \"tags\": [], \"accounts\": null, \"attributes\": {}, \"extra\": [null]}]";
+
+        assertMatchesTreeReader(json.getBytes(StandardCharsets.UTF_8), schema);
+    }
+
+    @Test
+    public void testNextBatchMatchesNextRecord() throws IOException, MalformedRecordException {
+        final RecordSchema schema = getPersonSchema(RecordFieldType.RECORD.getRecordDataType(getAccountSchema()));
+        final byte[] json = Files.readAllBytes(new File("src/test/resources/json/bank-account-array.json").toPath());
+
+        for (final boolean streaming : new boolean[] {true, false}) {
+            final List<Object> expected = new ArrayList<>();
+            try (final RecordReader reader = streaming ? createStreamingReader(json, schema) : createTreeReader(json, schema)) {
+                Record record;
+                while ((record = reader.nextRecord()) != null) {
+                    expected.add(toComparable(record));
+                }
+            }
+
+            final List<Object> actual = new ArrayList<>();
+            try (final RecordReader reader = streaming ? createStreamingReader(json, schema) : createTreeReader(json, schema)) {
+                RecordBatch batch;
+                while ((batch = reader.nextBatch(1)) != null) {
+                    assertEquals(1, batch.size());
+                    assertEquals(schema, batch.getSchema());
+                    batch.forEach(record -> actual.add(toComparable(record)));
+                }
+            }
+
+            assertEquals(2, expected.size());
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testUnknownFieldsSkippedWhenDropped() throws IOException, MalformedRecordException {
+        final RecordSchema schema = getAccountSchema();
+        final String json = "{\"id\": 1, \"unknown\": {\"a\": [1, 2, {\"b\": null}]}, \"balance\": 12.5, \"other\": \"x\"}";
+
+        try (final RecordReader reader = createStreamingReader(json.getBytes(StandardCharsets.UTF_8), schema)) {
+            final Record record = reader.nextRecord(true, true);
+            assertArrayEquals(new Object[] {1, 12.5D}, record.getValues());
+            assertEquals(schema.getFieldNames(), new ArrayList<>(record.getRawFieldNames()));
+            assertNull(record.getValue("other"));
+            assertNull(reader.nextRecord());
+        }
+
+        try (final RecordReader reader = createStreamingReader(json.getBytes(StandardCharsets.UTF_8), schema)) {
+            final Record record = reader.nextRecord(true, false);
+            assertEquals("x", record.getValue("other"));
+            assertTrue(record.getRawFieldNames().contains("unknown"));
+        }
+    }
+
+    @Test
+    public void testExplicitNullRetained() throws IOException, MalformedRecordException {
+        final RecordSchema schema = getPersonSchema(RecordFieldType.RECORD.getRecordDataType(getAccountSchema()));
+        final String json = "{\"id\": 1, \"name\": null}";
+
+        try (final RecordReader reader = createStreamingReader(json.getBytes(StandardCharsets.UTF_8), schema)) {
+            final Record record = reader.nextRecord();
+            assertEquals(1, record.getValue("id"));
+            assertTrue(record.getRawFieldNames().contains("name"));
+            assertFalse(record.getRawFieldNames().contains("balance"));
+            assertNull(record.getValue("name"));
+        }
+    }
+
+    @Test
+    public void testMalformedJson() throws IOException, MalformedRecordException {
+        final RecordSchema schema = getAccountSchema();
+
+        try (final RecordReader reader = createStreamingReader("{\"id\": 1, \"balance\": }".getBytes(StandardCharsets.UTF_8), schema)) {
+            assertThrows(MalformedRecordException.class, reader::nextRecord);
+        }
+
+        try (final RecordReader reader = createStreamingReader("[1, 2]".getBytes(StandardCharsets.UTF_8), schema)) {
+            assertThrows(MalformedRecordException.class, reader::nextRecord);
+        }
+    }
+
+    private RecordReader createStreamingReader(final byte[] json, final RecordSchema schema) throws IOException, MalformedRecordException {
+        return new JsonStreamingRowRecordReader(new ByteArrayInputStream(json), mock(ComponentLog.class), schema, dateFormat, timeFormat, timestampFormat);
+    }
+
+    private RecordReader createTreeReader(final byte[] json, final RecordSchema schema) throws IOException, MalformedRecordException {
+        return new JsonTreeRowRecordReader(new ByteArrayInputStream(json), mock(ComponentLog.class), schema, dateFormat, timeFormat, timestampFormat);
+    }
+
+    private void assertMatchesTreeReader(final File file, final RecordSchema schema) throws IOException, MalformedRecordException {
+        assertMatchesTreeReader(Files.readAllBytes(file.toPath()), schema);
+    }
+
+    private void assertMatchesTreeReader(final byte[] json, final RecordSchema schema) throws IOException, MalformedRecordException {
+        for (final boolean coerceTypes : new boolean[] {true, false}) {
+            for (final boolean dropUnknownFields : new boolean[] {true, false}) {
+                try (final InputStream treeIn = new ByteArrayInputStream(json);
+                     final RecordReader treeReader = new JsonTreeRowRecordReader(treeIn, mock(ComponentLog.class), schema, dateFormat, timeFormat, timestampFormat);
+                     final RecordReader streamingReader = createStreamingReader(json, schema)) {
+
+                    Record expected;
+                    while ((expected = treeReader.nextRecord(coerceTypes, dropUnknownFields)) != null) {
+                        final Record actual = streamingReader.nextRecord(coerceTypes, dropUnknownFields);
+                        assertEquals(toComparable(expected), toComparable(actual));
+                    }
+
+                    assertNull(streamingReader.nextRecord(coerceTypes, dropUnknownFields));
+                }
+            }
+        }
+    }
+
+    private static Object toComparable(final Object value) {
+        if (value instanceof Record) {
+            final Record record = (Record) value;
+            final Map<String, Object> map = new LinkedHashMap<>();
+            map.put("schema", record.getSchema().getFieldNames());
+            for (final String fieldName : record.getRawFieldNames()) {
+                map.put(fieldName, toComparable(record.getValue(fieldName)));
+            }
+            return map;
+        }
+
+        if (value instanceof Object[]) {
+            final List<Object> list = new ArrayList<>();
+            for (final Object element : (Object[]) value) {
+                list.add(toComparable(element));
+            }
+            return list;
+        }
+
+        if (value instanceof Map) {
+            final Map<Object, Object> map = new LinkedHashMap<>();
+            ((Map<?, ?>) value).forEach((key, mapValue) -> map.put(key, toComparable(mapValue)));
+            return map;
+        }
+
+        return value;
+    }
+}